@@ -0,0 +1,839 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.arrow;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.ref.Cleaner;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayBase;
+import com.d3x.morpheus.array.ArrayBuilder;
+import com.d3x.morpheus.array.ArrayCursor;
+import com.d3x.morpheus.array.ArrayException;
+import com.d3x.morpheus.array.ArrayStyle;
+import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.array.coding.IntCoding;
+import com.d3x.morpheus.array.coding.LongCoding;
+import com.d3x.morpheus.array.coding.WithIntCoding;
+import com.d3x.morpheus.array.coding.WithLongCoding;
+import com.d3x.morpheus.util.MemoryLayout;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BaseIntVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DateMilliVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampVector;
+import org.apache.arrow.vector.UInt4Vector;
+import org.apache.arrow.vector.UInt8Vector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+
+/**
+ * A read only Morpheus Array that is a view over the buffers of an Arrow vector, so no values are copied on import.
+ *
+ * <p>
+ * Views are supported for fixed width Arrow vectors and dictionary encoded strings: floating point vectors are viewed
+ * as Double, signed integer vectors of up to 32 bits as Integer, 64 bit integer vectors as Long, bit vectors as Boolean,
+ * date vectors as LocalDate and timestamp vectors as Instant, the last two exposing the same LongCoding that the dense
+ * Morpheus arrays of those types use. Dictionary encoded string vectors are viewed through an IntCoding whose codes are
+ * the dictionary indexes, so only the dictionary itself is decoded. Use <code>copy()</code> to obtain a dense mutable
+ * array.
+ * </p>
+ *
+ * <p>
+ * The values live in off-heap Arrow buffers that were read into memory, not in a memory mapped file, so views report
+ * the DENSE style: every element is resident and none of it is paged from disk. The underlying vector is owned by the
+ * view and shared with its parallel and sequential twins. Calling <code>close()</code> on any of them releases the
+ * off-heap memory at once, after which none of them may be read; otherwise a Cleaner releases it once the view and
+ * all its twins are no longer reachable.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public abstract class ArrowArray<T> extends ArrayBase<T> implements AutoCloseable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The allocator that owns the memory of vectors backing array views */
+    static final BufferAllocator ALLOCATOR = new RootAllocator();
+    /** The cleaner that closes vectors once the views over them are unreachable, unless closed explicitly */
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private int length;
+    private transient Owner owner;
+
+    /**
+     * Constructor
+     * @param type      the element type for this array
+     * @param owner     the owner of the vector viewed by this array
+     * @param parallel  true for the parallel implementation
+     */
+    ArrowArray(Class<T> type, Owner owner, boolean parallel) {
+        super(type, ArrayStyle.DENSE, parallel);
+        this.owner = owner;
+        this.length = owner.vector.getValueCount();
+    }
+
+
+    /**
+     * Returns true if a vector can be viewed as an array without copying
+     * @param vector        the vector reference
+     * @param dictionary    the dictionary for a dictionary encoded vector, null otherwise
+     * @return              true if an array view is supported
+     */
+    public static boolean isSupported(FieldVector vector, Dictionary dictionary) {
+        if (dictionary != null) {
+            return vector instanceof BaseIntVector && dictionary.getVector() instanceof VarCharVector;
+        } else if (vector instanceof UInt4Vector || vector instanceof UInt8Vector) {
+            return false;
+        } else if (vector instanceof Float8Vector || vector instanceof Float4Vector) {
+            return true;
+        } else if (vector instanceof BitVector || vector instanceof TimeStampVector) {
+            return true;
+        } else if (vector instanceof DateDayVector || vector instanceof DateMilliVector) {
+            return true;
+        } else {
+            return vector instanceof BaseIntVector;
+        }
+    }
+
+
+    /**
+     * Returns a read only array view over the vector, which takes ownership of the vector
+     * @param vector        the vector to view
+     * @param dictionary    the dictionary for a dictionary encoded vector, null otherwise
+     * @return              the array view over the vector
+     * @throws ArrayException   if the vector is not supported
+     */
+    public static Array<?> of(FieldVector vector, Dictionary dictionary) {
+        if (!isSupported(vector, dictionary)) {
+            throw new ArrayException("Unsupported Arrow vector for array view: " + vector.getField());
+        } else if (dictionary != null) {
+            final String[] values = decode((VarCharVector)dictionary.getVector());
+            return new OfStrings(new Owner(vector), new DictionaryCoding(values), false);
+        } else if (vector instanceof Float8Vector || vector instanceof Float4Vector) {
+            return new OfDoubles(new Owner(vector), false);
+        } else if (vector instanceof BitVector) {
+            return new OfBooleans(new Owner(vector), false);
+        } else if (vector instanceof DateDayVector || vector instanceof DateMilliVector) {
+            return new OfLongCoding<>(LocalDate.class, LongCoding.ofLocalDate(), new Owner(vector), false);
+        } else if (vector instanceof TimeStampVector) {
+            return new OfLongCoding<>(Instant.class, LongCoding.ofInstant(), new Owner(vector), false);
+        } else if (vector instanceof BigIntVector || ((ArrowType.Int)vector.getField().getType()).getBitWidth() > 32) {
+            return new OfLongs(new Owner(vector), false);
+        } else {
+            return new OfInts(new Owner(vector), false);
+        }
+    }
+
+
+    /**
+     * Returns the values of a string vector decoded into a Java array
+     * @param vector    the string vector
+     * @return          the decoded values, with null for null entries
+     */
+    static String[] decode(VarCharVector vector) {
+        final String[] values = new String[vector.getValueCount()];
+        for (int i=0; i<values.length; ++i) {
+            if (!vector.isNull(i)) {
+                values[i] = new String(vector.get(i), StandardCharsets.UTF_8);
+            }
+        }
+        return values;
+    }
+
+
+    /**
+     * Returns a new array view of the same vector with the parallel flag specified
+     * @param parallel  true for the parallel implementation
+     * @return          the new array view
+     */
+    abstract ArrowArray<T> create(boolean parallel);
+
+
+    /**
+     * Returns the owner of the vector viewed by this array
+     * @return  the vector owner
+     */
+    final Owner owner() {
+        return owner;
+    }
+
+
+    /**
+     * Returns the vector viewed by this array
+     * @return  the Arrow vector
+     */
+    final FieldVector vector() {
+        return owner.vector;
+    }
+
+
+    /**
+     * Returns the exception thrown by all attempts to modify this array
+     * @param operation the name of the operation attempted
+     * @return          the exception to throw
+     */
+    private ArrayException unsupported(String operation) {
+        return new ArrayException("This is a read only Morpheus Array, " + operation + " not supported");
+    }
+
+
+    /**
+     * Releases the off-heap memory of the vector viewed by this array and its parallel or sequential twins.
+     * This method is idempotent, and none of the views over the vector may be read once it has been called.
+     */
+    @Override
+    public final void close() {
+        owner.close();
+    }
+
+
+    @Override
+    public final int length() {
+        return length;
+    }
+
+
+    @Override
+    public float loadFactor() {
+        return 1F;
+    }
+
+
+    @Override
+    public long retainedBytes() {
+        return MemoryLayout.shallow(5, 5);
+    }
+
+
+    @Override
+    public final boolean isReadOnly() {
+        return true;
+    }
+
+
+    @Override
+    public final Array<T> parallel() {
+        return isParallel() ? this : create(true);
+    }
+
+
+    @Override
+    public final Array<T> sequential() {
+        return isParallel() ? create(false) : this;
+    }
+
+
+    @Override()
+    public final Array<T> copy() {
+        return copy(0, length);
+    }
+
+
+    @Override()
+    public final Array<T> copy(int[] indexes) {
+        final Array<T> clone = Array.of(type(), indexes.length, defaultValue());
+        for (int i=0; i<indexes.length; ++i) {
+            clone.update(i, this, indexes[i], 1);
+        }
+        return clone;
+    }
+
+
+    @Override
+    public final Array<T> copy(Array<Integer> indexes) {
+        final Array<T> clone = Array.of(type(), indexes.length(), defaultValue());
+        for (int i=0; i<indexes.length(); ++i) {
+            clone.update(i, this, indexes.getInt(i), 1);
+        }
+        return clone;
+    }
+
+
+    @Override()
+    public final Array<T> copy(int start, int end) {
+        final Array<T> clone = Array.of(type(), end - start, defaultValue());
+        clone.update(0, this, start, end - start);
+        return clone;
+    }
+
+
+    @Override
+    protected final Array<T> sort(int start, int end, int multiplier) {
+        throw unsupported("sort");
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final int compare(int i, int j) {
+        switch (typeCode()) {
+            case BOOLEAN:   return Boolean.compare(getBoolean(i), getBoolean(j));
+            case INTEGER:   return Integer.compare(getInt(i), getInt(j));
+            case LONG:      return Long.compare(getLong(i), getLong(j));
+            case DOUBLE:    return Double.compare(getDouble(i), getDouble(j));
+            default:
+                final Comparable c1 = (Comparable)getValue(i);
+                final Comparable c2 = (Comparable)getValue(j);
+                return (c1 == null ? c2 == null ? 0 : -1 : c2 == null ? 1 : c1.compareTo(c2));
+        }
+    }
+
+
+    @Override
+    public final Array<T> swap(int i, int j) {
+        throw unsupported("swap");
+    }
+
+
+    @Override
+    public final Array<T> filter(Predicate<ArrayValue<T>> predicate) {
+        final ArrayCursor<T> cursor = cursor();
+        final ArrayBuilder<T> builder = ArrayBuilder.of(length(), type());
+        for (int i=0; i<length; ++i) {
+            cursor.moveTo(i);
+            final boolean match = predicate.test(cursor);
+            if (match) {
+                builder.append(cursor.getValue());
+            }
+        }
+        return builder.toArray();
+    }
+
+
+    @Override
+    public final Array<T> update(Array<T> from, int[] fromIndexes, int[] toIndexes) {
+        throw unsupported("update");
+    }
+
+
+    @Override
+    public final Array<T> update(int toIndex, Array<T> from, int fromIndex, int length) {
+        throw unsupported("update");
+    }
+
+
+    @Override
+    public final Array<T> expand(int newLength) {
+        if (newLength > length) {
+            throw unsupported("expand");
+        } else {
+            return this;
+        }
+    }
+
+
+    @Override
+    public final Array<T> fill(T value, int start, int end) {
+        throw unsupported("fill");
+    }
+
+
+    @Override
+    public boolean isNull(int index) {
+        return owner.vector.isNull(index);
+    }
+
+
+    @Override
+    public final boolean isEqualTo(int index, T value) {
+        final T current = getValue(index);
+        return current == null ? value == null : current.equals(value);
+    }
+
+
+    @Override
+    public final boolean setBoolean(int index, boolean value) {
+        throw unsupported("setBoolean");
+    }
+
+
+    @Override
+    public final int setInt(int index, int value) {
+        throw unsupported("setInt");
+    }
+
+
+    @Override
+    public final long setLong(int index, long value) {
+        throw unsupported("setLong");
+    }
+
+
+    @Override
+    public final double setDouble(int index, double value) {
+        throw unsupported("setDouble");
+    }
+
+
+    @Override
+    public final T setValue(int index, T value) {
+        throw unsupported("setValue");
+    }
+
+
+    @Override
+    public final void read(ObjectInputStream is, int count) throws IOException {
+        throw unsupported("read");
+    }
+
+
+    /**
+     * Holds the vector shared by an array view and its parallel or sequential twins, and closes it when closed or unreachable
+     */
+    static class Owner {
+
+        private FieldVector vector;
+        private Cleaner.Cleanable cleanable;
+
+        /**
+         * Constructor
+         * @param vector    the vector to own
+         */
+        Owner(FieldVector vector) {
+            this.vector = vector;
+            this.cleanable = CLEANER.register(this, vector::close);
+        }
+
+        /**
+         * Closes the vector now rather than when this owner becomes unreachable, which has no effect if already closed
+         */
+        void close() {
+            cleanable.clean();
+        }
+    }
+
+
+    /**
+     * An array view over a floating point vector, with nulls viewed as NaN
+     */
+    static class OfDoubles extends ArrowArray<Double> {
+
+        private static final long serialVersionUID = 1L;
+
+        private transient Float8Vector float8;
+        private transient Float4Vector float4;
+
+        /**
+         * Constructor
+         * @param owner     the owner of the vector
+         * @param parallel  true for the parallel implementation
+         */
+        OfDoubles(Owner owner, boolean parallel) {
+            super(Double.class, owner, parallel);
+            this.float8 = owner.vector instanceof Float8Vector ? (Float8Vector)owner.vector : null;
+            this.float4 = owner.vector instanceof Float4Vector ? (Float4Vector)owner.vector : null;
+        }
+
+        @Override
+        final ArrowArray<Double> create(boolean parallel) {
+            return new OfDoubles(owner(), parallel);
+        }
+
+        @Override
+        public final Double defaultValue() {
+            return Double.NaN;
+        }
+
+        @Override
+        public final boolean isNull(int index) {
+            return Double.isNaN(getDouble(index));
+        }
+
+        @Override
+        public final double getDouble(int index) {
+            if (float8 != null) {
+                return float8.isNull(index) ? Double.NaN : float8.get(index);
+            } else {
+                return float4.isNull(index) ? Double.NaN : float4.get(index);
+            }
+        }
+
+        @Override
+        public final Double getValue(int index) {
+            return getDouble(index);
+        }
+
+        @Override
+        public final void write(ObjectOutputStream os, int[] indexes) throws IOException {
+            for (int index : indexes) {
+                os.writeDouble(getDouble(index));
+            }
+        }
+    }
+
+
+    /**
+     * An array view over a signed integer vector of up to 32 bits, with nulls viewed as zero
+     */
+    static class OfInts extends ArrowArray<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private transient BaseIntVector ints;
+
+        /**
+         * Constructor
+         * @param owner     the owner of the vector
+         * @param parallel  true for the parallel implementation
+         */
+        OfInts(Owner owner, boolean parallel) {
+            super(Integer.class, owner, parallel);
+            this.ints = (BaseIntVector)owner.vector;
+        }
+
+        @Override
+        final ArrowArray<Integer> create(boolean parallel) {
+            return new OfInts(owner(), parallel);
+        }
+
+        @Override
+        public final Integer defaultValue() {
+            return 0;
+        }
+
+        @Override
+        public final int getInt(int index) {
+            return ints.isNull(index) ? 0 : (int)ints.getValueAsLong(index);
+        }
+
+        @Override
+        public final long getLong(int index) {
+            return getInt(index);
+        }
+
+        @Override
+        public final double getDouble(int index) {
+            return getInt(index);
+        }
+
+        @Override
+        public final Integer getValue(int index) {
+            return getInt(index);
+        }
+
+        @Override
+        public final void write(ObjectOutputStream os, int[] indexes) throws IOException {
+            for (int index : indexes) {
+                os.writeInt(getInt(index));
+            }
+        }
+    }
+
+
+    /**
+     * An array view over a 64 bit integer vector, with nulls viewed as zero
+     */
+    static class OfLongs extends ArrowArray<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private transient BaseIntVector longs;
+
+        /**
+         * Constructor
+         * @param owner     the owner of the vector
+         * @param parallel  true for the parallel implementation
+         */
+        OfLongs(Owner owner, boolean parallel) {
+            super(Long.class, owner, parallel);
+            this.longs = (BaseIntVector)owner.vector;
+        }
+
+        @Override
+        final ArrowArray<Long> create(boolean parallel) {
+            return new OfLongs(owner(), parallel);
+        }
+
+        @Override
+        public final Long defaultValue() {
+            return 0L;
+        }
+
+        @Override
+        public final long getLong(int index) {
+            return longs.isNull(index) ? 0L : longs.getValueAsLong(index);
+        }
+
+        @Override
+        public final double getDouble(int index) {
+            return getLong(index);
+        }
+
+        @Override
+        public final Long getValue(int index) {
+            return getLong(index);
+        }
+
+        @Override
+        public final void write(ObjectOutputStream os, int[] indexes) throws IOException {
+            for (int index : indexes) {
+                os.writeLong(getLong(index));
+            }
+        }
+    }
+
+
+    /**
+     * An array view over a bit vector, with nulls viewed as false
+     */
+    static class OfBooleans extends ArrowArray<Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private transient BitVector bits;
+
+        /**
+         * Constructor
+         * @param owner     the owner of the vector
+         * @param parallel  true for the parallel implementation
+         */
+        OfBooleans(Owner owner, boolean parallel) {
+            super(Boolean.class, owner, parallel);
+            this.bits = (BitVector)owner.vector;
+        }
+
+        @Override
+        final ArrowArray<Boolean> create(boolean parallel) {
+            return new OfBooleans(owner(), parallel);
+        }
+
+        @Override
+        public final Boolean defaultValue() {
+            return false;
+        }
+
+        @Override
+        public final boolean getBoolean(int index) {
+            return !bits.isNull(index) && bits.get(index) != 0;
+        }
+
+        @Override
+        public final Boolean getValue(int index) {
+            return getBoolean(index);
+        }
+
+        @Override
+        public final void write(ObjectOutputStream os, int[] indexes) throws IOException {
+            for (int index : indexes) {
+                os.writeBoolean(getBoolean(index));
+            }
+        }
+    }
+
+
+    /**
+     * An array view over a date or timestamp vector, where the long code of each element is the same as in dense arrays
+     */
+    static class OfLongCoding<T> extends ArrowArray<T> implements WithLongCoding<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final long MILLIS_PER_DAY = 86400000L;
+
+        private LongCoding<T> coding;
+        private transient DateDayVector days;
+        private transient DateMilliVector dateMillis;
+        private transient TimeStampVector timestamps;
+        private transient long multiplier;
+        private transient long divisor;
+
+        /**
+         * Constructor
+         * @param type      the element type
+         * @param coding    the coding for the element type
+         * @param owner     the owner of the vector
+         * @param parallel  true for the parallel implementation
+         */
+        OfLongCoding(Class<T> type, LongCoding<T> coding, Owner owner, boolean parallel) {
+            super(type, owner, parallel);
+            this.coding = coding;
+            this.multiplier = 1L;
+            this.divisor = 1L;
+            if (owner.vector instanceof DateDayVector) {
+                this.days = (DateDayVector)owner.vector;
+            } else if (owner.vector instanceof DateMilliVector) {
+                this.dateMillis = (DateMilliVector)owner.vector;
+            } else {
+                this.timestamps = (TimeStampVector)owner.vector;
+                switch (((ArrowType.Timestamp)owner.vector.getField().getType()).getUnit()) {
+                    case SECOND:        this.multiplier = 1000L;    break;
+                    case MILLISECOND:   break;
+                    case MICROSECOND:   this.divisor = 1000L;       break;
+                    case NANOSECOND:    this.divisor = 1000000L;    break;
+                }
+            }
+        }
+
+        @Override
+        final ArrowArray<T> create(boolean parallel) {
+            return new OfLongCoding<>(type(), coding, owner(), parallel);
+        }
+
+        @Override
+        public final LongCoding<T> getCoding() {
+            return coding;
+        }
+
+        @Override
+        public final T defaultValue() {
+            return null;
+        }
+
+        @Override
+        public final long getLong(int index) {
+            if (vector().isNull(index)) {
+                return Long.MIN_VALUE;
+            } else if (days != null) {
+                return days.get(index);
+            } else if (dateMillis != null) {
+                return Math.floorDiv(dateMillis.get(index), MILLIS_PER_DAY);
+            } else {
+                return Math.floorDiv(timestamps.get(index) * multiplier, divisor);
+            }
+        }
+
+        @Override
+        public final T getValue(int index) {
+            return coding.getValue(getLong(index));
+        }
+
+        @Override
+        public final void write(ObjectOutputStream os, int[] indexes) throws IOException {
+            for (int index : indexes) {
+                os.writeLong(getLong(index));
+            }
+        }
+    }
+
+
+    /**
+     * An array view over a dictionary encoded string vector, where the int code of each element is its dictionary index
+     */
+    static class OfStrings extends ArrowArray<String> implements WithIntCoding<String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private DictionaryCoding coding;
+        private transient BaseIntVector indexes;
+
+        /**
+         * Constructor
+         * @param owner     the owner of the index vector
+         * @param coding    the coding over the decoded dictionary
+         * @param parallel  true for the parallel implementation
+         */
+        OfStrings(Owner owner, DictionaryCoding coding, boolean parallel) {
+            super(String.class, owner, parallel);
+            this.coding = coding;
+            this.indexes = (BaseIntVector)owner.vector;
+        }
+
+        @Override
+        final ArrowArray<String> create(boolean parallel) {
+            return new OfStrings(owner(), coding, parallel);
+        }
+
+        @Override
+        public final IntCoding<String> getCoding() {
+            return coding;
+        }
+
+        @Override
+        public final String defaultValue() {
+            return null;
+        }
+
+        @Override
+        public final int getInt(int index) {
+            return indexes.isNull(index) ? -1 : (int)indexes.getValueAsLong(index);
+        }
+
+        @Override
+        public final String getValue(int index) {
+            return coding.getValue(getInt(index));
+        }
+
+        @Override
+        public final void write(ObjectOutputStream os, int[] indexes) throws IOException {
+            for (int index : indexes) {
+                os.writeObject(getValue(index));
+            }
+        }
+    }
+
+
+    /**
+     * An IntCoding for strings where the code of a value is its index in an Arrow dictionary, and -1 represents null
+     */
+    static class DictionaryCoding implements IntCoding<String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private String[] values;
+        private transient Map<String,Integer> codes;
+
+        /**
+         * Constructor
+         * @param values    the decoded dictionary values
+         */
+        DictionaryCoding(String[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public final Class<String> getType() {
+            return String.class;
+        }
+
+        @Override
+        public final synchronized int getCode(String value) {
+            if (value == null) {
+                return -1;
+            } else {
+                if (codes == null) {
+                    this.codes = new HashMap<>(values.length * 2);
+                    for (int i=values.length-1; i>=0; --i) {
+                        this.codes.put(values[i], i);
+                    }
+                }
+                return codes.getOrDefault(value, -1);
+            }
+        }
+
+        @Override
+        public final String getValue(int code) {
+            return code < 0 ? null : values[code];
+        }
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.arrow;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameException;
+import com.d3x.morpheus.frame.DataFrameSink;
+import com.d3x.morpheus.util.IO;
+import com.d3x.morpheus.util.Resource;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryEncoding;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.ArrowWriter;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+/**
+ * A DataFrameSink that writes a DataFrame in the Arrow IPC file or stream format, with one field per column
+ *
+ * <p>
+ * Boolean, Integer, Long and Double columns are written as Arrow bool, int, bigint and float8 vectors, LocalDate columns
+ * as day resolution dates and Instant columns as millisecond timestamps, both taken straight from the long codes of
+ * the Morpheus arrays. All other types are written as dictionary encoded UTF-8 strings, which keeps repetitive columns
+ * such as tickers or categories compact. The row keys can optionally be written as an additional leading field, and
+ * rows are written in record batches of a configurable size.
+ * </p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class ArrowSink<R,C> implements DataFrameSink<R,C,ArrowSink.Options> {
+
+    private DataFrame<R,C> frame;
+
+    /**
+     * Constructor
+     * @param frame the frame to write
+     */
+    public ArrowSink(DataFrame<R,C> frame) {
+        this.frame = frame;
+    }
+
+
+    @Override
+    public void write(Consumer<Options> configurator) {
+        final Options options = new Options();
+        configurator.accept(options);
+        BufferAllocator allocator = null;
+        DictionaryProvider.MapDictionaryProvider provider = null;
+        VectorSchemaRoot root = null;
+        ArrowWriter writer = null;
+        OutputStream os = null;
+        try {
+            options.validate();
+            allocator = ArrowArray.ALLOCATOR.newChildAllocator("ArrowSink", 0, Long.MAX_VALUE);
+            provider = new DictionaryProvider.MapDictionaryProvider();
+            final List<Field> fields = fields(options, allocator, provider);
+            final List<org.apache.arrow.vector.types.pojo.Field> schema = new ArrayList<>(fields.size());
+            fields.forEach(field -> schema.add(field.field));
+            root = VectorSchemaRoot.create(new Schema(schema), allocator);
+            root.allocateNew();
+            os = options.resource.toOutputStream();
+            if (options.stream) {
+                writer = new ArrowStreamWriter(root, provider, os);
+            } else {
+                writer = new ArrowFileWriter(root, provider, Channels.newChannel(os));
+            }
+            writer.start();
+            final int rowCount = frame.rowCount();
+            for (int start = 0; start < rowCount || start == 0; start += options.batchSize) {
+                final int end = Math.min(rowCount, start + options.batchSize);
+                for (int j=0; j<fields.size(); ++j) {
+                    fields.get(j).write(root.getVector(j), start, end);
+                }
+                root.setRowCount(end - start);
+                writer.writeBatch();
+            }
+            writer.end();
+        } catch (Exception ex) {
+            throw new DataFrameException("Failed to write DataFrame to Arrow output: " + options.resource, ex);
+        } finally {
+            IO.close(writer);
+            IO.close(root);
+            if (provider != null) {
+                for (long id : provider.getDictionaryIds()) {
+                    IO.close(provider.lookup(id).getVector());
+                }
+            }
+            IO.close(os);
+            IO.close(allocator);
+        }
+    }
+
+
+    /**
+     * Returns the list of fields to write for the frame, including the row key field if configured
+     * @param options       the options
+     * @param allocator     the allocator for dictionary vectors
+     * @param provider      the provider to register dictionaries with
+     * @return              the list of fields
+     */
+    private List<Field> fields(Options options, BufferAllocator allocator, DictionaryProvider.MapDictionaryProvider provider) {
+        final List<Field> fields = new ArrayList<>();
+        final Set<String> names = new HashSet<>();
+        if (options.rowKeyName != null) {
+            final String name = uniqueName(options.rowKeyName, names);
+            fields.add(new Field(name, -1, frame.rows().keyClass(), allocator, provider));
+        }
+        for (int j=0; j<frame.colCount(); ++j) {
+            final C colKey = frame.cols().key(j);
+            final String name = uniqueName(String.valueOf(colKey), names);
+            fields.add(new Field(name, j, frame.cols().type(colKey), allocator, provider));
+        }
+        return fields;
+    }
+
+
+    /**
+     * Returns a unique field name derived from the key string
+     * @param key       the key string
+     * @param names     the set of names already used, which is updated
+     * @return          the unique name
+     */
+    private static String uniqueName(String key, Set<String> names) {
+        String name = key;
+        for (int suffix = 1; !names.add(name); ++suffix) {
+            name = key + "_" + suffix;
+        }
+        return name;
+    }
+
+
+    /**
+     * The encoding of a single frame column, or the row keys, as an Arrow field
+     */
+    private class Field {
+
+        private int colOrdinal;
+        private int typeCode;
+        private Map<String,Integer> codes;
+        private org.apache.arrow.vector.types.pojo.Field field;
+
+        /**
+         * Constructor
+         * @param name          the Arrow field name
+         * @param colOrdinal    the column ordinal, -1 for the row keys
+         * @param type          the data type of the column or row keys
+         * @param allocator     the allocator for the dictionary vector
+         * @param provider      the provider to register the dictionary with
+         */
+        Field(String name, int colOrdinal, Class<?> type, BufferAllocator allocator, DictionaryProvider.MapDictionaryProvider provider) {
+            this.colOrdinal = colOrdinal;
+            if (type == Boolean.class) {
+                this.typeCode = 0;
+                this.field = field(name, FieldType.nullable(ArrowType.Bool.INSTANCE));
+            } else if (type == Integer.class) {
+                this.typeCode = 1;
+                this.field = field(name, FieldType.nullable(new ArrowType.Int(32, true)));
+            } else if (type == Long.class) {
+                this.typeCode = 2;
+                this.field = field(name, FieldType.nullable(new ArrowType.Int(64, true)));
+            } else if (type == Double.class || type == Float.class) {
+                this.typeCode = 3;
+                this.field = field(name, FieldType.nullable(new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE)));
+            } else if (type == LocalDate.class) {
+                this.typeCode = 4;
+                this.field = field(name, FieldType.nullable(new ArrowType.Date(DateUnit.DAY)));
+            } else if (type == Instant.class) {
+                this.typeCode = 5;
+                this.field = field(name, FieldType.nullable(new ArrowType.Timestamp(TimeUnit.MILLISECOND, null)));
+            } else {
+                this.typeCode = 6;
+                final long id = provider.getDictionaryIds().size();
+                final ArrowType.Int indexType = new ArrowType.Int(32, true);
+                final DictionaryEncoding encoding = new DictionaryEncoding(id, false, indexType);
+                final VarCharVector values = new VarCharVector(name, allocator);
+                this.codes = new LinkedHashMap<>();
+                values.allocateNew();
+                this.field = field(name, new FieldType(true, indexType, encoding));
+                for (int i=0; i<frame.rowCount(); ++i) {
+                    final String value = toString(i);
+                    if (value != null && !codes.containsKey(value)) {
+                        values.setSafe(codes.size(), value.getBytes(StandardCharsets.UTF_8));
+                        codes.put(value, codes.size());
+                    }
+                }
+                values.setValueCount(codes.size());
+                provider.put(new Dictionary(values, encoding));
+            }
+        }
+
+        /**
+         * Returns an Arrow field with no children
+         * @param name  the field name
+         * @param type  the field type
+         * @return      the Arrow field
+         */
+        private org.apache.arrow.vector.types.pojo.Field field(String name, FieldType type) {
+            return new org.apache.arrow.vector.types.pojo.Field(name, type, null);
+        }
+
+        /**
+         * Returns the string value of this field for the row specified
+         * @param rowOrdinal    the row ordinal
+         * @return              the string value, null if the value is null
+         */
+        private String toString(int rowOrdinal) {
+            final Object value = colOrdinal < 0 ? frame.rows().key(rowOrdinal) : frame.getValueAt(rowOrdinal, colOrdinal);
+            return value == null ? null : value.toString();
+        }
+
+        /**
+         * Returns the long code of this field for the row specified, where Long.MIN_VALUE represents null
+         * @param rowOrdinal    the row ordinal
+         * @return              the long code
+         */
+        private long toCode(int rowOrdinal) {
+            if (colOrdinal >= 0) {
+                return frame.getLongAt(rowOrdinal, colOrdinal);
+            } else if (typeCode == 4) {
+                final LocalDate value = (LocalDate)frame.rows().key(rowOrdinal);
+                return value == null ? Long.MIN_VALUE : value.toEpochDay();
+            } else {
+                final Instant value = (Instant)frame.rows().key(rowOrdinal);
+                return value == null ? Long.MIN_VALUE : value.toEpochMilli();
+            }
+        }
+
+        /**
+         * Writes the values of this field for a range of rows into the vector, starting at vector index zero
+         * @param vector    the vector for this field
+         * @param start     the first row ordinal, inclusive
+         * @param end       the last row ordinal, exclusive
+         */
+        void write(FieldVector vector, int start, int end) {
+            final boolean keys = colOrdinal < 0;
+            for (int i=start; i<end; ++i) {
+                final int index = i - start;
+                switch (typeCode) {
+                    case 0:
+                        final boolean bool = keys ? (Boolean)frame.rows().key(i) : frame.getBooleanAt(i, colOrdinal);
+                        ((BitVector)vector).setSafe(index, bool ? 1 : 0);
+                        break;
+                    case 1:
+                        final int intValue = keys ? (Integer)frame.rows().key(i) : frame.getIntAt(i, colOrdinal);
+                        ((IntVector)vector).setSafe(index, intValue);
+                        break;
+                    case 2:
+                        final long longValue = keys ? (Long)frame.rows().key(i) : frame.getLongAt(i, colOrdinal);
+                        ((BigIntVector)vector).setSafe(index, longValue);
+                        break;
+                    case 3:
+                        final double doubleValue = keys ? ((Number)frame.rows().key(i)).doubleValue() : frame.getDoubleAt(i, colOrdinal);
+                        ((Float8Vector)vector).setSafe(index, doubleValue);
+                        break;
+                    case 4:
+                        final long day = toCode(i);
+                        if (day == Long.MIN_VALUE) {
+                            ((DateDayVector)vector).setNull(index);
+                        } else {
+                            ((DateDayVector)vector).setSafe(index, (int)day);
+                        }
+                        break;
+                    case 5:
+                        final long millis = toCode(i);
+                        if (millis == Long.MIN_VALUE) {
+                            ((TimeStampMilliVector)vector).setNull(index);
+                        } else {
+                            ((TimeStampMilliVector)vector).setSafe(index, millis);
+                        }
+                        break;
+                    default:
+                        final String value = toString(i);
+                        if (value == null) {
+                            ((IntVector)vector).setNull(index);
+                        } else {
+                            ((IntVector)vector).setSafe(index, codes.get(value));
+                        }
+                        break;
+                }
+            }
+            vector.setValueCount(end - start);
+        }
+    }
+
+
+    /**
+     * The options for this sink
+     */
+    public static class Options {
+
+        /** The resource to write to */
+        @lombok.Getter
+        private Resource resource;
+        /** True to write the Arrow IPC stream format, false for the random access file format */
+        @lombok.Getter @lombok.Setter
+        private boolean stream;
+        /** The optional field name for row keys, row keys are not written if null */
+        @lombok.Getter @lombok.Setter
+        private String rowKeyName;
+        /** The maximum number of rows in each record batch */
+        @lombok.Getter @lombok.Setter
+        private int batchSize = 1 << 20;
+
+        /**
+         * Validates that these options are complete
+         */
+        void validate() {
+            Objects.requireNonNull(resource, "The resource cannot be null");
+            if (batchSize <= 0) throw new DataFrameException("The batch size must be > 0");
+        }
+
+        /**
+         * Sets the file to write to
+         * @param file  the file reference
+         */
+        public void setFile(File file) {
+            this.resource = Resource.of(file);
+        }
+
+        /**
+         * Sets the output stream to write to
+         * @param os    the output stream
+         */
+        public void setOutputStream(OutputStream os) {
+            this.resource = Resource.of(os);
+        }
+
+        /**
+         * Sets the file path to write to
+         * @param path  the file path
+         */
+        public void setFile(String path) {
+            this.resource = Resource.ofFile(path);
+        }
+    }
+}
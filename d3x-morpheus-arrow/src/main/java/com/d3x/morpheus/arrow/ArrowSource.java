@@ -0,0 +1,317 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.arrow;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayBuilder;
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameException;
+import com.d3x.morpheus.frame.DataFrameSource;
+import com.d3x.morpheus.range.Range;
+import com.d3x.morpheus.util.IO;
+import com.d3x.morpheus.util.Resource;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryEncoding;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.util.ByteArrayReadableSeekableByteChannel;
+
+/**
+ * A DataFrameSource that loads a DataFrame from the Arrow IPC file or stream format, with one column per field
+ *
+ * <p>
+ * Each record batch is loaded once into off-heap Arrow buffers, and the vectors of each selected field are then
+ * transferred out of the reader rather than copied. When the data arrives in a single record batch, fields with a
+ * fixed width layout and dictionary encoded string fields become read only <code>ArrowArray</code> views over
+ * those buffers, so no values are copied into the Java heap. Plain string fields are decoded into String columns,
+ * and fields of other types are copied into Object columns. With multiple record batches, or with zero copy
+ * disabled, the batches of each field are concatenated into dense Morpheus arrays and the Arrow buffers are released.
+ * </p>
+ *
+ * <p>
+ * Files are read through an <code>ArrowFileReader</code>, which copies each record batch from the channel into buffers
+ * allocated off heap, rather than memory mapping the file: Arrow Java offers no reader over a mapped region, so "zero
+ * copy" here means the columns view those buffers instead of being copied a second time into the Java heap. The
+ * views are released by a Cleaner once the frame is unreachable, so callers that need the off-heap memory back at a
+ * known point should disable zero copy, in which case every Arrow buffer is closed before <code>read()</code> returns.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class ArrowSource implements DataFrameSource<Integer,String,ArrowSource.Options> {
+
+
+    /**
+     * Returns a DataFrame loaded from an Arrow resource according to the options
+     * @param configurator  the consumer to configure options
+     * @return              the resulting DataFrame
+     */
+    public static DataFrame<Integer,String> load(Consumer<Options> configurator) {
+        return new ArrowSource().read(configurator);
+    }
+
+
+    @Override
+    public DataFrame<Integer,String> read(Consumer<Options> configurator) throws DataFrameException {
+        final Options options = initOptions(new Options(), configurator);
+        BufferAllocator allocator = null;
+        ArrowReader reader = null;
+        InputStream is = null;
+        try {
+            options.validate();
+            allocator = ArrowArray.ALLOCATOR.newChildAllocator("ArrowSource", 0, Long.MAX_VALUE);
+            final Resource resource = options.resource;
+            if (options.stream) {
+                is = resource.toInputStream();
+                reader = new ArrowStreamReader(is, allocator);
+            } else if (resource.isFile()) {
+                final FileChannel channel = FileChannel.open(resource.asFile().toPath(), StandardOpenOption.READ);
+                reader = new ArrowFileReader(channel, allocator);
+            } else {
+                is = resource.toInputStream();
+                reader = new ArrowFileReader(new ByteArrayReadableSeekableByteChannel(is.readAllBytes()), allocator);
+            }
+            return read(reader, options);
+        } catch (DataFrameException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new DataFrameException("Failed to load DataFrame from Arrow resource: " + options.resource, ex);
+        } finally {
+            IO.close(reader);
+            IO.close(is);
+            IO.close(allocator);
+        }
+    }
+
+
+    /**
+     * Returns a DataFrame with the selected fields of all record batches from the reader
+     * @param reader    the Arrow reader
+     * @param options   the options
+     * @return          the resulting DataFrame
+     */
+    private DataFrame<Integer,String> read(ArrowReader reader, Options options) throws Exception {
+        final VectorSchemaRoot root = reader.getVectorSchemaRoot();
+        final List<String> names = new ArrayList<>();
+        final List<Integer> ordinals = new ArrayList<>();
+        final List<FieldVector> vectors = root.getFieldVectors();
+        for (int j=0; j<vectors.size(); ++j) {
+            final String name = vectors.get(j).getField().getName();
+            if (options.includeColumns == null || options.includeColumns.contains(name)) {
+                names.add(name);
+                ordinals.add(j);
+            }
+        }
+        final List<List<Array<?>>> columns = new ArrayList<>(names.size());
+        names.forEach(name -> columns.add(new ArrayList<>()));
+        try {
+            int rowCount = 0;
+            while (reader.loadNextBatch()) {
+                rowCount += root.getRowCount();
+                for (int j=0; j<ordinals.size(); ++j) {
+                    final FieldVector vector = root.getVector(ordinals.get(j));
+                    final DictionaryEncoding encoding = vector.getField().getDictionary();
+                    final Dictionary dictionary = encoding != null ? reader.lookup(encoding.getId()) : null;
+                    columns.get(j).add(toArray(transfer(vector), dictionary));
+                }
+            }
+            final int totalRows = rowCount;
+            final boolean zeroCopy = options.zeroCopy;
+            return DataFrame.of(Range.of(0, totalRows), String.class, frame -> {
+                for (int j=0; j<names.size(); ++j) {
+                    frame.add(names.get(j), merge(columns.get(j), zeroCopy));
+                }
+            });
+        } catch (Exception ex) {
+            columns.forEach(this::close);
+            throw ex;
+        }
+    }
+
+
+    /**
+     * Closes any Arrow array views in the list specified, releasing their off-heap memory
+     * @param parts     the arrays for each record batch of a field
+     */
+    private void close(List<Array<?>> parts) {
+        parts.forEach(part -> {
+            if (part instanceof ArrowArray) {
+                ((ArrowArray<?>)part).close();
+            }
+        });
+    }
+
+
+    /**
+     * Returns a vector that has taken ownership of the buffers of the vector specified, which is left empty
+     * @param vector    the vector loaded by the reader
+     * @return          the vector that owns the buffers
+     */
+    private FieldVector transfer(FieldVector vector) {
+        final var transfer = vector.getTransferPair(ArrowArray.ALLOCATOR);
+        transfer.transfer();
+        return (FieldVector)transfer.getTo();
+    }
+
+
+    /**
+     * Returns a Morpheus array for a vector owned by the caller, which is closed unless it backs an array view
+     * @param vector        the vector reference
+     * @param dictionary    the dictionary for a dictionary encoded vector, null otherwise
+     * @return              the Morpheus array
+     */
+    private Array<?> toArray(FieldVector vector, Dictionary dictionary) {
+        if (ArrowArray.isSupported(vector, dictionary)) {
+            return ArrowArray.of(vector, dictionary);
+        } else {
+            try {
+                final int length = vector.getValueCount();
+                if (vector instanceof VarCharVector && dictionary == null) {
+                    final VarCharVector strings = (VarCharVector)vector;
+                    final ArrayBuilder<String> builder = ArrayBuilder.of(length, String.class);
+                    for (int i=0; i<length; ++i) {
+                        builder.append(strings.isNull(i) ? null : new String(strings.get(i), StandardCharsets.UTF_8));
+                    }
+                    return builder.toArray();
+                } else {
+                    final ArrayBuilder<Object> builder = ArrayBuilder.of(length, Object.class);
+                    for (int i=0; i<length; ++i) {
+                        final Object value = vector.getObject(i);
+                        if (dictionary == null || value == null) {
+                            builder.append(value);
+                        } else {
+                            builder.append(dictionary.getVector().getObject(((Number)value).intValue()));
+                        }
+                    }
+                    return builder.toArray();
+                }
+            } finally {
+                vector.close();
+            }
+        }
+    }
+
+
+    /**
+     * Returns a single array for a field given the arrays for each record batch
+     * @param parts     the arrays for each record batch, in order
+     * @param zeroCopy  true to return the array for a single batch as is
+     * @return          the array for the field
+     */
+    @SuppressWarnings("unchecked")
+    private Array<?> merge(List<Array<?>> parts, boolean zeroCopy) {
+        if (parts.size() == 1 && (zeroCopy || !(parts.get(0) instanceof ArrowArray))) {
+            return parts.get(0);
+        } else if (parts.isEmpty()) {
+            return Array.of(Object.class, 0);
+        } else {
+            final Class<Object> type = (Class<Object>)parts.get(0).type();
+            final List<Array<Object>> arrays = new ArrayList<>(parts.size());
+            parts.forEach(part -> arrays.add((Array<Object>)part));
+            final Array<?> result = Array.concat(type, arrays);
+            this.close(parts);
+            return result;
+        }
+    }
+
+
+    /**
+     * The options for this source
+     */
+    public static class Options {
+
+        /** The resource to load from */
+        @lombok.Getter
+        private Resource resource;
+        /** True if the resource is in the Arrow IPC stream format, false for the random access file format */
+        @lombok.Getter @lombok.Setter
+        private boolean stream;
+        /** True to back columns with the Arrow buffers where the layout allows, false to always copy into dense arrays */
+        @lombok.Getter @lombok.Setter
+        private boolean zeroCopy = true;
+        /** The optional set of field names to include, all fields are included if not set */
+        @lombok.Getter
+        private Set<String> includeColumns;
+
+        /**
+         * Validates that these options are complete
+         */
+        void validate() {
+            Objects.requireNonNull(resource, "The resource cannot be null");
+        }
+
+        /**
+         * Sets the field names to include, fields not named are skipped
+         * @param columns   the field names to include
+         */
+        public void setIncludeColumns(String... columns) {
+            this.includeColumns = new HashSet<>(Arrays.asList(columns));
+        }
+
+        /**
+         * Sets the file to load from
+         * @param file  the file reference
+         */
+        public void setFile(File file) {
+            this.resource = Resource.of(file);
+        }
+
+        /**
+         * Sets the URL to load from
+         * @param url   the url reference
+         */
+        public void setURL(URL url) {
+            this.resource = Resource.of(url);
+        }
+
+        /**
+         * Sets the input stream to load from
+         * @param stream    the input stream
+         */
+        public void setInputStream(InputStream stream) {
+            this.resource = Resource.of(stream);
+        }
+
+        /**
+         * Sets the resource string to load from
+         * @param resource  the resource string
+         */
+        public void setResource(String resource) {
+            this.resource = Resource.of(resource);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.arrow;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.Float8Vector;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayException;
+import com.d3x.morpheus.array.ArrayStyle;
+import com.d3x.morpheus.array.coding.WithLongCoding;
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.range.Range;
+
+/**
+ * Unit tests for the Arrow DataFrameSource and DataFrameSink
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class ArrowTests {
+
+
+    /**
+     * Returns a mixed type frame to write to Arrow
+     * @param rowCount  the row count
+     * @return          the frame
+     */
+    private DataFrame<Integer,String> frame(int rowCount) {
+        final Random random = new Random(1);
+        final LocalDate start = LocalDate.of(2000, 1, 1);
+        return DataFrame.of(Range.of(0, rowCount), String.class, columns -> {
+            columns.add("Flag", Boolean.class, v -> v.rowOrdinal() % 3 == 0);
+            columns.add("Count", Integer.class, v -> random.nextInt(1000));
+            columns.add("Volume", Long.class, v -> random.nextLong());
+            columns.add("Price", Double.class, v -> v.rowOrdinal() % 100 == 0 ? Double.NaN : random.nextDouble());
+            columns.add("Date", LocalDate.class, v -> v.rowOrdinal() % 50 == 0 ? null : start.plusDays(v.rowOrdinal()));
+            columns.add("Time", Instant.class, v -> Instant.ofEpochMilli(1500000000000L + v.rowOrdinal()));
+            columns.add("Ticker", String.class, v -> v.rowOrdinal() % 7 == 0 ? null : "T" + (v.rowOrdinal() % 20));
+        });
+    }
+
+
+    /**
+     * Asserts the frame read matches the frame written for the columns specified
+     * @param expected  the frame written
+     * @param actual    the frame read
+     * @param columns   the columns to compare
+     */
+    private void assertFrame(DataFrame<Integer,String> expected, DataFrame<Integer,String> actual, String... columns) {
+        Assert.assertEquals(actual.rowCount(), expected.rowCount());
+        Assert.assertEquals(actual.colCount(), columns.length);
+        for (String column : columns) {
+            Assert.assertEquals(actual.cols().type(column), expected.cols().type(column), "Type for " + column);
+            for (int i=0; i<expected.rowCount(); ++i) {
+                Assert.assertEquals((Object)actual.getValue(i, column), expected.getValue(i, column), "Value for " + column + " at " + i);
+            }
+        }
+    }
+
+
+    @Test()
+    public void testFileWithZeroCopy() throws Exception {
+        final File file = File.createTempFile("morpheus", ".arrow");
+        file.deleteOnExit();
+        final DataFrame<Integer,String> frame = frame(5000);
+        new ArrowSink<>(frame).write(options -> options.setFile(file));
+        final DataFrame<Integer,String> result = ArrowSource.load(options -> options.setFile(file));
+        assertFrame(frame, result, "Flag", "Count", "Volume", "Price", "Date", "Time", "Ticker");
+        Assert.assertThrows(RuntimeException.class, () -> result.setIntAt(0, 1, 1));
+        final DataFrame<Integer,String> copy = result.copy();
+        copy.setDouble(0, "Price", 1d);
+        Assert.assertEquals(copy.getDouble(0, "Price"), 1d);
+    }
+
+
+    @Test()
+    @SuppressWarnings("unchecked")
+    public void testArrayViews() {
+        final Float8Vector doubles = new Float8Vector("Price", ArrowArray.ALLOCATOR);
+        final DateDayVector dates = new DateDayVector("Date", ArrowArray.ALLOCATOR);
+        doubles.allocateNew(3);
+        dates.allocateNew(3);
+        doubles.set(0, 1.5d);
+        doubles.setNull(1);
+        doubles.set(2, 3.5d);
+        dates.set(0, 10);
+        dates.setNull(1);
+        dates.set(2, 20);
+        doubles.setValueCount(3);
+        dates.setValueCount(3);
+        final Array<Double> prices = (Array<Double>)ArrowArray.of(doubles, null);
+        final Array<LocalDate> days = (Array<LocalDate>)ArrowArray.of(dates, null);
+        Assert.assertEquals(prices.length(), 3);
+        Assert.assertEquals(prices.getDouble(0), 1.5d);
+        Assert.assertTrue(Double.isNaN(prices.getDouble(1)));
+        Assert.assertTrue(prices.isReadOnly());
+        Assert.assertThrows(ArrayException.class, () -> prices.setDouble(0, 2d));
+        Assert.assertTrue(days instanceof WithLongCoding);
+        Assert.assertEquals(days.getValue(0), LocalDate.ofEpochDay(10));
+        Assert.assertNull(days.getValue(1));
+        Assert.assertEquals(days.getLong(1), Long.MIN_VALUE);
+        Assert.assertEquals(days.getLong(2), 20L);
+        final Array<Double> copy = prices.copy();
+        copy.setDouble(0, 2d);
+        Assert.assertEquals(copy.getDouble(0), 2d);
+        Assert.assertEquals(prices.getDouble(0), 1.5d);
+        Assert.assertEquals(days.parallel().getValue(2), LocalDate.ofEpochDay(20));
+        Assert.assertEquals(prices.style(), ArrayStyle.DENSE);
+        final long allocated = ArrowArray.ALLOCATOR.getAllocatedMemory();
+        ((ArrowArray<Double>)prices).close();
+        ((ArrowArray<Double>)prices.parallel()).close();
+        Assert.assertTrue(ArrowArray.ALLOCATOR.getAllocatedMemory() < allocated);
+    }
+
+
+    @Test()
+    public void testStreamWithBatches() throws Exception {
+        final DataFrame<Integer,String> frame = frame(10000);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new ArrowSink<>(frame).write(options -> {
+            options.setOutputStream(bytes);
+            options.setStream(true);
+            options.setBatchSize(3000);
+            options.setRowKeyName("Id");
+        });
+        final DataFrame<Integer,String> result = ArrowSource.load(options -> {
+            options.setInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+            options.setStream(true);
+            options.setIncludeColumns("Id", "Price", "Ticker", "Time");
+        });
+        assertFrame(frame, result.cols().select(c -> !c.key().equals("Id")).copy(), "Price", "Ticker", "Time");
+        for (int i=0; i<frame.rowCount(); ++i) {
+            Assert.assertEquals(result.getIntAt(i, 0), i, "Records are in order");
+        }
+    }
+
+
+    @Test()
+    public void testFileFromStreamWithoutZeroCopy() throws Exception {
+        final DataFrame<Integer,String> frame = frame(1000);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new ArrowSink<>(frame).write(options -> options.setOutputStream(bytes));
+        final DataFrame<Integer,String> result = ArrowSource.load(options -> {
+            options.setInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+            options.setZeroCopy(false);
+        });
+        assertFrame(frame, result, "Flag", "Count", "Volume", "Price", "Date", "Time", "Ticker");
+        result.setIntAt(0, 1, 7);
+        Assert.assertEquals(result.getIntAt(0, 1), 7);
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.avro;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayBuilder;
+import com.d3x.morpheus.frame.DataFrameException;
+import org.apache.avro.LogicalType;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.ResolvingDecoder;
+
+/**
+ * A DatumReader that decodes Avro records straight into column builders, one per projected field.
+ *
+ * <p>
+ * Rather than materializing a record per row, each field is read from the decoder with the primitive read method
+ * that matches its schema and appended to a typed ArrayBuilder, so doubles, ints, longs and booleans are never boxed.
+ * The reader schema is the writer schema restricted to the projected fields, and Avro schema resolution skips over
+ * the remaining fields in the encoded data without decoding them. Morpheus int and long arrays cannot represent null,
+ * so nullable int and long fields are decoded into Object columns of boxed values, where null stays distinct from
+ * zero and reads as NaN through <code>getDouble()</code>. Complex field types such as records, arrays and maps fall
+ * back to generic decoding into Object columns. An instance is not thread safe, and each parallel split of
+ * a file uses its own reader.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+class AvroColumnReader extends GenericDatumReader<Void> {
+
+    private int count;
+    private int initialSize;
+    private Schema readerSchema;
+    private Predicate<String> projection;
+    private ResolvingDecoder resolver;
+    private List<Column> columns = new ArrayList<>();
+
+    /**
+     * Constructor
+     * @param projection    the predicate to select the field names to decode
+     * @param initialSize   the initial size for column builders
+     */
+    AvroColumnReader(Predicate<String> projection, int initialSize) {
+        this.projection = projection;
+        this.initialSize = initialSize;
+    }
+
+
+    /**
+     * Returns the projected reader schema, which is only available once the writer schema has been set
+     * @return  the reader schema
+     */
+    Schema getReaderSchema() {
+        return readerSchema;
+    }
+
+
+    /**
+     * Returns the number of records decoded by this reader
+     * @return  the record count
+     */
+    int count() {
+        return count;
+    }
+
+
+    /**
+     * Returns the names of the projected fields in reader schema order
+     * @return  the list of column names
+     */
+    List<String> names() {
+        return columns.stream().map(c -> c.name).collect(Collectors.toList());
+    }
+
+
+    /**
+     * Returns the array of values for the column at the index specified, with one entry per record decoded
+     * @param index the column index in reader schema order
+     * @return      the array of column values
+     */
+    Array<Object> array(int index) {
+        return columns.get(index).toArray();
+    }
+
+
+    @Override
+    public void setSchema(Schema writerSchema) {
+        try {
+            super.setSchema(writerSchema);
+            if (writerSchema.getType() != Schema.Type.RECORD) {
+                throw new DataFrameException("Avro schema must be a record to map to a DataFrame: " + writerSchema.getFullName());
+            }
+            final List<Schema.Field> fields = new ArrayList<>();
+            for (Schema.Field field : writerSchema.getFields()) {
+                if (projection == null || projection.test(field.name())) {
+                    fields.add(new Schema.Field(field.name(), field.schema(), field.doc(), field.defaultVal()));
+                }
+            }
+            this.readerSchema = Schema.createRecord(writerSchema.getName(), writerSchema.getDoc(), writerSchema.getNamespace(), false, fields);
+            this.resolver = DecoderFactory.get().resolvingDecoder(writerSchema, readerSchema, null);
+            this.columns.clear();
+            for (Schema.Field field : readerSchema.getFields()) {
+                this.columns.add(new Column(field.name(), field.schema(), initialSize));
+            }
+        } catch (IOException ex) {
+            throw new DataFrameException("Failed to resolve Avro schema: " + writerSchema, ex);
+        }
+    }
+
+
+    @Override
+    public Void read(Void reuse, Decoder in) throws IOException {
+        this.resolver.configure(in);
+        for (Schema.Field field : resolver.readFieldOrder()) {
+            this.columns.get(field.pos()).read(resolver);
+        }
+        this.resolver.drain();
+        this.count++;
+        return null;
+    }
+
+
+    /**
+     * Returns the Morpheus data type for the Avro schema specified, unwrapping nullable unions
+     * Nullable int and long fields map to Object, so that null values remain distinct from zero.
+     * @param schema    the Avro field schema
+     * @return          the data type for column
+     */
+    static Class<?> typeOf(Schema schema) {
+        final Schema value = nonNull(schema);
+        final LogicalType logicalType = value.getLogicalType();
+        final boolean nullable = value != schema;
+        switch (value.getType()) {
+            case BOOLEAN:   return Boolean.class;
+            case INT:       return logicalType instanceof LogicalTypes.Date ? LocalDate.class : nullable ? Object.class : Integer.class;
+            case LONG:      return isTimestamp(logicalType) ? Instant.class : nullable ? Object.class : Long.class;
+            case FLOAT:     return Double.class;
+            case DOUBLE:    return Double.class;
+            case STRING:    return String.class;
+            case ENUM:      return String.class;
+            default:        return Object.class;
+        }
+    }
+
+
+    /**
+     * Returns the non-null branch of a nullable union, or the schema itself if it is not a nullable union
+     * @param schema    the schema reference
+     * @return          the non-null value schema
+     */
+    static Schema nonNull(Schema schema) {
+        if (schema.getType() == Schema.Type.UNION && schema.getTypes().size() == 2) {
+            final Schema first = schema.getTypes().get(0);
+            final Schema second = schema.getTypes().get(1);
+            if (first.getType() == Schema.Type.NULL) return second;
+            if (second.getType() == Schema.Type.NULL) return first;
+        }
+        return schema;
+    }
+
+
+    /**
+     * Returns true if the logical type is a millisecond or microsecond timestamp
+     * @param logicalType   the logical type, which may be null
+     * @return              true if a timestamp logical type
+     */
+    private static boolean isTimestamp(LogicalType logicalType) {
+        return logicalType instanceof LogicalTypes.TimestampMillis || logicalType instanceof LogicalTypes.TimestampMicros;
+    }
+
+
+    /**
+     * Holds the builder and decoding strategy for a single projected field
+     */
+    private class Column {
+
+        private String name;
+        private Schema schema;
+        private Schema value;
+        private int nullIndex = -1;
+        private boolean micros;
+        private ArrayBuilder<Object> values;
+
+        /**
+         * Constructor
+         * @param name          the field name
+         * @param schema        the reader schema for field
+         * @param initialSize   the initial size for builder
+         */
+        @SuppressWarnings("unchecked")
+        Column(String name, Schema schema, int initialSize) {
+            this.name = name;
+            this.schema = schema;
+            this.value = nonNull(schema);
+            this.micros = value.getLogicalType() instanceof LogicalTypes.TimestampMicros;
+            this.values = ArrayBuilder.of(initialSize, (Class<Object>)typeOf(schema));
+            if (value != schema) {
+                this.nullIndex = schema.getTypes().get(0).getType() == Schema.Type.NULL ? 0 : 1;
+            }
+        }
+
+        /**
+         * Appends a null entry to the column, which is NaN for double columns
+         */
+        private void appendNull() {
+            switch (value.getType()) {
+                case FLOAT:     values.appendDouble(Double.NaN);   break;
+                case DOUBLE:    values.appendDouble(Double.NaN);   break;
+                default:        values.append(null);               break;
+            }
+        }
+
+        /**
+         * Returns the array of values decoded for this column
+         * A null appended past the capacity of the builder advances its length without growing the array,
+         * so the array is expanded with the default value to cover any trailing nulls.
+         * @return  the array of values, with one entry per record
+         */
+        Array<Object> toArray() {
+            final Array<Object> array = values.toArray();
+            return array.length() < values.length() ? array.expand(values.length()) : array;
+        }
+
+        /**
+         * Decodes the next value of this field and appends it to the column
+         * @param in    the resolving decoder
+         * @throws IOException  if decoding fails
+         */
+        void read(ResolvingDecoder in) throws IOException {
+            if (nullIndex >= 0 && in.readIndex() == nullIndex) {
+                in.readNull();
+                this.appendNull();
+            } else {
+                final LogicalType logicalType = value.getLogicalType();
+                switch (value.getType()) {
+                    case BOOLEAN:   values.appendBoolean(in.readBoolean());    break;
+                    case FLOAT:     values.appendDouble(in.readFloat());       break;
+                    case DOUBLE:    values.appendDouble(in.readDouble());      break;
+                    case STRING:    values.append(in.readString());            break;
+                    case ENUM:      values.append(value.getEnumSymbols().get(in.readEnum()));  break;
+                    case INT:
+                        if (logicalType instanceof LogicalTypes.Date) {
+                            values.append(LocalDate.ofEpochDay(in.readInt()));
+                        } else if (nullIndex >= 0) {
+                            values.append(in.readInt());
+                        } else {
+                            values.appendInt(in.readInt());
+                        }
+                        break;
+                    case LONG:
+                        if (micros) {
+                            final long epochMicros = in.readLong();
+                            values.append(Instant.ofEpochSecond(Math.floorDiv(epochMicros, 1000000L), Math.floorMod(epochMicros, 1000000L) * 1000L));
+                        } else if (isTimestamp(logicalType)) {
+                            values.append(Instant.ofEpochMilli(in.readLong()));
+                        } else if (nullIndex >= 0) {
+                            values.append(in.readLong());
+                        } else {
+                            values.appendLong(in.readLong());
+                        }
+                        break;
+                    default:
+                        values.append(AvroColumnReader.this.read(null, value, in));
+                        break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.avro;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.d3x.morpheus.array.ArrayType;
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameException;
+import com.d3x.morpheus.frame.DataFrameSink;
+import com.d3x.morpheus.util.IO;
+import com.d3x.morpheus.util.Resource;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Encoder;
+
+/**
+ * A DataFrameSink that writes a DataFrame to an Avro object container file, with one record per row
+ *
+ * <p>
+ * Each column becomes a record field, with Boolean, Integer, Long and Double columns written as the corresponding
+ * Avro primitives, LocalDate as an int with the date logical type, Instant as a long with the timestamp-millis
+ * logical type, and all other types as nullable strings. Column keys are converted to valid Avro names, and the row
+ * keys can optionally be written as an additional leading field. Records are encoded directly from the frame by row
+ * ordinal, so no intermediate record objects are created.
+ * </p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class AvroSink<R,C> implements DataFrameSink<R,C,AvroSink.Options> {
+
+    private DataFrame<R,C> frame;
+
+    /**
+     * Constructor
+     * @param frame the frame to write
+     */
+    public AvroSink(DataFrame<R,C> frame) {
+        this.frame = frame;
+    }
+
+
+    @Override
+    public void write(Consumer<Options> configurator) {
+        final Options options = new Options();
+        configurator.accept(options);
+        DataFileWriter<Integer> writer = null;
+        OutputStream os = null;
+        try {
+            options.validate();
+            final List<Field> fields = fields(options);
+            final Schema schema = schema(fields, options);
+            writer = new DataFileWriter<>(new RowWriter(fields));
+            writer.setCodec(options.codec);
+            os = options.resource.toOutputStream();
+            writer.create(schema, os);
+            for (int i=0; i<frame.rowCount(); ++i) {
+                writer.append(i);
+            }
+            writer.flush();
+        } catch (Exception ex) {
+            throw new DataFrameException("Failed to write DataFrame to Avro output: " + options.resource, ex);
+        } finally {
+            IO.close(writer);
+            IO.close(os);
+        }
+    }
+
+
+    /**
+     * Returns the list of fields to write for the frame, including the row key field if configured
+     * @param options   the options
+     * @return          the list of fields
+     */
+    private List<Field> fields(Options options) {
+        final List<Field> fields = new ArrayList<>();
+        final Set<String> names = new HashSet<>();
+        if (options.rowKeyName != null) {
+            final String name = uniqueName(options.rowKeyName, names);
+            fields.add(new Field(name, -1, frame.rows().keyClass()));
+        }
+        for (int j=0; j<frame.colCount(); ++j) {
+            final C colKey = frame.cols().key(j);
+            final String name = uniqueName(String.valueOf(colKey), names);
+            fields.add(new Field(name, j, frame.cols().type(colKey)));
+        }
+        return fields;
+    }
+
+
+    /**
+     * Returns the Avro record schema for the fields specified
+     * @param fields    the fields to write
+     * @param options   the options
+     * @return          the record schema
+     */
+    private Schema schema(List<Field> fields, Options options) {
+        final List<Schema.Field> result = new ArrayList<>(fields.size());
+        for (Field field : fields) {
+            result.add(new Schema.Field(field.name, field.schema, null, (Object)null));
+        }
+        return Schema.createRecord(options.recordName, null, options.namespace, false, result);
+    }
+
+
+    /**
+     * Returns a valid and unique Avro name derived from the key string
+     * @param key       the key string
+     * @param names     the set of names already used, which is updated
+     * @return          the valid and unique name
+     */
+    private static String uniqueName(String key, Set<String> names) {
+        final StringBuilder builder = new StringBuilder(key.length() + 1);
+        for (int i=0; i<key.length(); ++i) {
+            final char c = key.charAt(i);
+            final boolean valid = c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (i > 0 && c >= '0' && c <= '9');
+            builder.append(valid ? c : (c >= '0' && c <= '9') ? "_" + c : "_");
+        }
+        String name = builder.length() == 0 ? "_" : builder.toString();
+        for (int suffix = 1; !names.add(name); ++suffix) {
+            name = builder.toString() + "_" + suffix;
+        }
+        return name;
+    }
+
+
+    /**
+     * The encoding of a single frame column, or the row keys, as a record field
+     */
+    private class Field {
+
+        private String name;
+        private int colOrdinal;
+        private ArrayType type;
+        private Schema schema;
+
+        /**
+         * Constructor
+         * @param name          the Avro field name
+         * @param colOrdinal    the column ordinal, -1 for the row keys
+         * @param dataType      the data type of the column or row keys
+         */
+        Field(String name, int colOrdinal, Class<?> dataType) {
+            this.name = name;
+            this.colOrdinal = colOrdinal;
+            if (dataType == Boolean.class) {
+                this.type = ArrayType.BOOLEAN;
+                this.schema = Schema.create(Schema.Type.BOOLEAN);
+            } else if (dataType == Integer.class) {
+                this.type = ArrayType.INTEGER;
+                this.schema = Schema.create(Schema.Type.INT);
+            } else if (dataType == Long.class) {
+                this.type = ArrayType.LONG;
+                this.schema = Schema.create(Schema.Type.LONG);
+            } else if (dataType == Double.class || dataType == Float.class) {
+                this.type = ArrayType.DOUBLE;
+                this.schema = Schema.create(Schema.Type.DOUBLE);
+            } else if (dataType == LocalDate.class) {
+                this.type = ArrayType.LOCAL_DATE;
+                this.schema = nullable(LogicalTypes.date().addToSchema(Schema.create(Schema.Type.INT)));
+            } else if (dataType == Instant.class) {
+                this.type = ArrayType.INSTANT;
+                this.schema = nullable(LogicalTypes.timestampMillis().addToSchema(Schema.create(Schema.Type.LONG)));
+            } else {
+                this.type = ArrayType.STRING;
+                this.schema = nullable(Schema.create(Schema.Type.STRING));
+            }
+        }
+
+        /**
+         * Returns a union of null and the schema specified
+         * @param schema    the value schema
+         * @return          the nullable union
+         */
+        private Schema nullable(Schema schema) {
+            return Schema.createUnion(Schema.create(Schema.Type.NULL), schema);
+        }
+
+        /**
+         * Encodes the value of this field for the row specified
+         * @param rowOrdinal    the row ordinal
+         * @param out           the encoder
+         * @throws IOException  if encoding fails
+         */
+        void write(int rowOrdinal, Encoder out) throws IOException {
+            if (colOrdinal < 0) {
+                writeValue(frame.rows().key(rowOrdinal), out);
+            } else {
+                switch (this.type) {
+                    case BOOLEAN:   out.writeBoolean(frame.getBooleanAt(rowOrdinal, colOrdinal));  break;
+                    case INTEGER:   out.writeInt(frame.getIntAt(rowOrdinal, colOrdinal));  break;
+                    case LONG:      out.writeLong(frame.getLongAt(rowOrdinal, colOrdinal));  break;
+                    case DOUBLE:    out.writeDouble(frame.getDoubleAt(rowOrdinal, colOrdinal));  break;
+                    default:        writeValue(frame.getValueAt(rowOrdinal, colOrdinal), out);  break;
+                }
+            }
+        }
+
+        /**
+         * Encodes a boxed value according to the type of this field
+         * @param value     the value to encode, which may be null for nullable types
+         * @param out       the encoder
+         * @throws IOException  if encoding fails
+         */
+        private void writeValue(Object value, Encoder out) throws IOException {
+            switch (this.type) {
+                case BOOLEAN:   out.writeBoolean((Boolean)value);  break;
+                case INTEGER:   out.writeInt((Integer)value);  break;
+                case LONG:      out.writeLong((Long)value);  break;
+                case DOUBLE:    out.writeDouble(((Number)value).doubleValue());  break;
+                default:
+                    if (value == null) {
+                        out.writeIndex(0);
+                        out.writeNull();
+                    } else {
+                        out.writeIndex(1);
+                        switch (this.type) {
+                            case LOCAL_DATE:    out.writeInt((int)((LocalDate)value).toEpochDay());  break;
+                            case INSTANT:       out.writeLong(((Instant)value).toEpochMilli());  break;
+                            default:            out.writeString(value.toString());  break;
+                        }
+                    }
+            }
+        }
+    }
+
+
+    /**
+     * A DatumWriter that encodes the row of the frame identified by the datum, which is a row ordinal
+     */
+    private class RowWriter implements DatumWriter<Integer> {
+
+        private List<Field> fields;
+
+        /**
+         * Constructor
+         * @param fields    the fields to encode for each row
+         */
+        RowWriter(List<Field> fields) {
+            this.fields = fields;
+        }
+
+        @Override
+        public void setSchema(Schema schema) {
+            //  The schema is derived from the fields
+        }
+
+        @Override
+        public void write(Integer rowOrdinal, Encoder out) throws IOException {
+            for (Field field : fields) {
+                field.write(rowOrdinal, out);
+            }
+        }
+    }
+
+
+    /**
+     * The options for this sink
+     */
+    public static class Options {
+
+        /** The resource to write to */
+        @lombok.Getter
+        private Resource resource;
+        /** The name for the record schema */
+        @lombok.Getter @lombok.Setter @lombok.NonNull
+        private String recordName = "DataFrame";
+        /** The namespace for the record schema */
+        @lombok.Getter @lombok.Setter
+        private String namespace = "com.d3x.morpheus.avro";
+        /** The optional field name for row keys, row keys are not written if null */
+        @lombok.Getter @lombok.Setter
+        private String rowKeyName;
+        /** The codec used to compress blocks */
+        @lombok.Getter @lombok.Setter @lombok.NonNull
+        private CodecFactory codec = CodecFactory.nullCodec();
+
+        /**
+         * Validates that these options are complete
+         */
+        void validate() {
+            Objects.requireNonNull(resource, "The resource cannot be null");
+        }
+
+        /**
+         * Sets the file to write to
+         * @param file  the file reference
+         */
+        public void setFile(File file) {
+            this.resource = Resource.of(file);
+        }
+
+        /**
+         * Sets the output stream to write to
+         * @param os    the output stream
+         */
+        public void setOutputStream(OutputStream os) {
+            this.resource = Resource.of(os);
+        }
+
+        /**
+         * Sets the file path to write to
+         * @param path  the file path
+         */
+        public void setFile(String path) {
+            this.resource = Resource.ofFile(path);
+        }
+    }
+}
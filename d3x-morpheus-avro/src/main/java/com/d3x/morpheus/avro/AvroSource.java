@@ -0,0 +1,309 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.avro;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameException;
+import com.d3x.morpheus.frame.DataFrameSource;
+import com.d3x.morpheus.range.Range;
+import com.d3x.morpheus.util.IO;
+import com.d3x.morpheus.util.Resource;
+import com.d3x.morpheus.util.TaskScheduler;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.SeekableFileInput;
+
+/**
+ * A DataFrameSource that loads a DataFrame from an Avro object container file, with one column per record field
+ *
+ * <p>
+ * Field schemas map to column types as follows: boolean to Boolean, int to Integer (or LocalDate for the date logical
+ * type), long to Long (or Instant for the timestamp logical types), float and double to Double, string and enum to
+ * String, and nullable unions to the type of their non-null branch. Other types are decoded generically into Object
+ * columns. Records are decoded straight into typed column builders without materializing a record per row, fields
+ * excluded by the projection are skipped without being decoded, and when the source is a file it is divided into
+ * byte range splits aligned on Avro block sync markers which are decoded in parallel and concatenated in order.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class AvroSource implements DataFrameSource<Integer,String,AvroSource.Options> {
+
+
+    /**
+     * Returns a DataFrame loaded from an Avro container according to the options
+     * @param configurator  the consumer to configure options
+     * @return              the resulting DataFrame
+     */
+    public static DataFrame<Integer,String> load(Consumer<Options> configurator) {
+        return new AvroSource().read(configurator);
+    }
+
+
+    @Override
+    public DataFrame<Integer,String> read(Consumer<Options> configurator) throws DataFrameException {
+        final Options options = initOptions(new Options(), configurator);
+        try {
+            options.validate();
+            final Resource resource = options.resource;
+            if (resource.isFile() && options.parallel) {
+                return readFile(resource.asFile(), options);
+            } else {
+                return readStream(resource.toInputStream(), options);
+            }
+        } catch (DataFrameException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new DataFrameException("Failed to load DataFrame from Avro resource: " + options.resource, ex);
+        }
+    }
+
+
+    /**
+     * Returns a DataFrame decoded sequentially from an Avro container stream
+     * @param is        the input stream
+     * @param options   the options
+     * @return          the resulting DataFrame
+     */
+    private DataFrame<Integer,String> readStream(InputStream is, Options options) throws Exception {
+        final AvroColumnReader reader = new AvroColumnReader(options.projection(), options.initialSize);
+        try (DataFileStream<Void> stream = new DataFileStream<>(is, reader)) {
+            while (stream.hasNext()) {
+                stream.next(null);
+            }
+            return toFrame(List.of(reader));
+        }
+    }
+
+
+    /**
+     * Returns a DataFrame decoded from an Avro container file in parallel byte range splits
+     * @param file      the file to read
+     * @param options   the options
+     * @return          the resulting DataFrame
+     */
+    private DataFrame<Integer,String> readFile(File file, Options options) throws Exception {
+        final long length = file.length();
+        final TaskScheduler scheduler = TaskScheduler.current();
+        final int parallelism = scheduler.getPool().getParallelism();
+        final int splitCount = (int)Math.max(1L, Math.min(parallelism * 4L, length / Math.max(1L, options.splitSize)));
+        final long splitSize = (length + splitCount - 1) / splitCount;
+        final AvroColumnReader[] readers = new AvroColumnReader[splitCount];
+        final SplitTask task = new SplitTask(file, options, readers, splitSize, 0, splitCount);
+        if (splitCount > 1) {
+            scheduler.invoke(task);
+        } else {
+            task.compute();
+        }
+        return toFrame(Arrays.asList(readers));
+    }
+
+
+    /**
+     * Returns a DataFrame created by concatenating the columns decoded by each reader in order
+     * @param readers   the readers for each split, in file order
+     * @return          the resulting DataFrame
+     */
+    @SuppressWarnings("unchecked")
+    private DataFrame<Integer,String> toFrame(List<AvroColumnReader> readers) {
+        final AvroColumnReader first = readers.get(0);
+        final List<String> names = first.names();
+        final int rowCount = readers.stream().mapToInt(AvroColumnReader::count).sum();
+        return DataFrame.of(Range.of(0, rowCount), String.class, columns -> {
+            for (int j=0; j<names.size(); ++j) {
+                final List<Array<Object>> parts = new ArrayList<>(readers.size());
+                final Class<Object> type = (Class<Object>)AvroColumnReader.typeOf(first.getReaderSchema().getFields().get(j).schema());
+                for (AvroColumnReader reader : readers) {
+                    if (reader.count() > 0) {
+                        parts.add(reader.array(j));
+                    }
+                }
+                final Array<Object> values = parts.isEmpty() ? Array.of(type, 0) : parts.size() == 1 ? parts.get(0) : Array.concat(type, parts);
+                if (values.length() != rowCount) {
+                    throw new DataFrameException("Decoded " + values.length() + " values for column " + names.get(j) + ", expected " + rowCount);
+                } else {
+                    columns.add(names.get(j), values);
+                }
+            }
+        });
+    }
+
+
+    /**
+     * A RecursiveAction that decodes a range of file splits, each split with its own file handle and reader
+     */
+    private class SplitTask extends RecursiveAction {
+
+        private File file;
+        private Options options;
+        private AvroColumnReader[] readers;
+        private long splitSize;
+        private int from;
+        private int to;
+
+        /**
+         * Constructor
+         * @param file          the file to read
+         * @param options       the options
+         * @param readers       the array to hold the reader for each split
+         * @param splitSize     the size of each split in bytes
+         * @param from          the first split index, inclusive
+         * @param to            the last split index, exclusive
+         */
+        SplitTask(File file, Options options, AvroColumnReader[] readers, long splitSize, int from, int to) {
+            this.file = file;
+            this.options = options;
+            this.readers = readers;
+            this.splitSize = splitSize;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            final int count = to - from;
+            if (count > 1) {
+                final int midPoint = from + count / 2;
+                invokeAll(
+                    new SplitTask(file, options, readers, splitSize, from, midPoint),
+                    new SplitTask(file, options, readers, splitSize, midPoint, to)
+                );
+            } else {
+                final long start = from * splitSize;
+                final long end = start + splitSize;
+                final AvroColumnReader reader = new AvroColumnReader(options.projection(), options.initialSize / readers.length);
+                DataFileReader<Void> fileReader = null;
+                try {
+                    fileReader = new DataFileReader<>(new SeekableFileInput(file), reader);
+                    fileReader.sync(start);
+                    while (fileReader.hasNext() && !fileReader.pastSync(end)) {
+                        fileReader.next(null);
+                    }
+                    this.readers[from] = reader;
+                } catch (Exception ex) {
+                    throw new DataFrameException("Failed to decode Avro split at offset " + start + " of " + file, ex);
+                } finally {
+                    IO.close(fileReader);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * The options for this source
+     */
+    public static class Options {
+
+        /** The resource to load from */
+        @lombok.Getter
+        private Resource resource;
+        /** True to decode file splits in parallel, only applicable when reading from a file */
+        @lombok.Getter @lombok.Setter
+        private boolean parallel = true;
+        /** The target size in bytes of each parallel split of a file */
+        @lombok.Getter @lombok.Setter
+        private long splitSize = 8 * 1024 * 1024;
+        /** The initial capacity of each column, which can be set to the expected record count to avoid resizing */
+        @lombok.Getter @lombok.Setter
+        private int initialSize = 10000;
+        /** The optional set of field names to include, all fields are included if not set */
+        @lombok.Getter
+        private Set<String> includeColumns;
+        /** The optional predicate to select fields by name */
+        @lombok.Getter @lombok.Setter
+        private Predicate<String> columnPredicate;
+
+        /**
+         * Validates that these options are complete
+         */
+        void validate() {
+            Objects.requireNonNull(resource, "The resource cannot be null");
+            if (splitSize <= 0) throw new DataFrameException("The split size must be > 0");
+            if (initialSize < 0) throw new DataFrameException("The initial size must be >= 0");
+        }
+
+        /**
+         * Returns the predicate that selects which fields are decoded
+         * @return  the projection predicate, null for all fields
+         */
+        private Predicate<String> projection() {
+            if (includeColumns == null) {
+                return columnPredicate;
+            } else if (columnPredicate == null) {
+                return includeColumns::contains;
+            } else {
+                return name -> includeColumns.contains(name) && columnPredicate.test(name);
+            }
+        }
+
+        /**
+         * Sets the field names to include, fields not named are skipped
+         * @param columns   the field names to include
+         */
+        public void setIncludeColumns(String... columns) {
+            this.includeColumns = new HashSet<>(Arrays.asList(columns));
+        }
+
+        /**
+         * Sets the file to load from
+         * @param file  the file reference
+         */
+        public void setFile(File file) {
+            this.resource = Resource.of(file);
+        }
+
+        /**
+         * Sets the URL to load from
+         * @param url   the url reference
+         */
+        public void setURL(URL url) {
+            this.resource = Resource.of(url);
+        }
+
+        /**
+         * Sets the input stream to load from
+         * @param stream    the input stream
+         */
+        public void setInputStream(InputStream stream) {
+            this.resource = Resource.of(stream);
+        }
+
+        /**
+         * Sets the resource string to load from
+         * @param resource  the resource string
+         */
+        public void setResource(String resource) {
+            this.resource = Resource.of(resource);
+        }
+    }
+}
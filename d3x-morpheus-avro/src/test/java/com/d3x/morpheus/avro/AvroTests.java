@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.avro;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.range.Range;
+
+/**
+ * Unit tests for the Avro DataFrameSource and DataFrameSink
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class AvroTests {
+
+
+    /**
+     * Returns a mixed type frame to write to Avro
+     * @param rowCount  the row count
+     * @return          the frame
+     */
+    private DataFrame<Integer,String> frame(int rowCount) {
+        final Random random = new Random(1);
+        final LocalDate start = LocalDate.of(2000, 1, 1);
+        return DataFrame.of(Range.of(0, rowCount), String.class, columns -> {
+            columns.add("Flag", Boolean.class, v -> v.rowOrdinal() % 3 == 0);
+            columns.add("Count", Integer.class, v -> random.nextInt(1000));
+            columns.add("Volume", Long.class, v -> random.nextLong());
+            columns.add("Price", Double.class, v -> v.rowOrdinal() % 100 == 0 ? Double.NaN : random.nextDouble());
+            columns.add("Date", LocalDate.class, v -> v.rowOrdinal() % 50 == 0 ? null : start.plusDays(v.rowOrdinal()));
+            columns.add("Time", Instant.class, v -> Instant.ofEpochMilli(1500000000000L + v.rowOrdinal()));
+            columns.add("Ticker", String.class, v -> v.rowOrdinal() % 7 == 0 ? null : "T" + (v.rowOrdinal() % 20));
+        });
+    }
+
+
+    /**
+     * Asserts the frame read matches the frame written for the columns specified
+     * @param expected  the frame written
+     * @param actual    the frame read
+     * @param columns   the columns to compare
+     */
+    private void assertFrame(DataFrame<Integer,String> expected, DataFrame<Integer,String> actual, String... columns) {
+        Assert.assertEquals(actual.rowCount(), expected.rowCount());
+        Assert.assertEquals(actual.colCount(), columns.length);
+        for (String column : columns) {
+            Assert.assertEquals(actual.cols().type(column), expected.cols().type(column), "Type for " + column);
+            for (int i=0; i<expected.rowCount(); ++i) {
+                Assert.assertEquals((Object)actual.getValue(i, column), expected.getValue(i, column), "Value for " + column + " at " + i);
+            }
+        }
+    }
+
+
+    @Test()
+    public void testWriteAndRead() throws Exception {
+        final File file = File.createTempFile("morpheus", ".avro");
+        file.deleteOnExit();
+        final DataFrame<Integer,String> frame = frame(5000);
+        new AvroSink<>(frame).write(options -> options.setFile(file));
+        final DataFrame<Integer,String> result = AvroSource.load(options -> {
+            options.setFile(file);
+            options.setParallel(false);
+        });
+        assertFrame(frame, result, "Flag", "Count", "Volume", "Price", "Date", "Time", "Ticker");
+    }
+
+
+    @Test()
+    public void testParallelSplitsWithProjection() throws Exception {
+        final File file = File.createTempFile("morpheus", ".avro");
+        file.deleteOnExit();
+        final DataFrame<Integer,String> frame = frame(200000);
+        new AvroSink<>(frame).write(options -> {
+            options.setFile(file);
+            options.setRowKeyName("Id");
+        });
+        final DataFrame<Integer,String> result = AvroSource.load(options -> {
+            options.setFile(file);
+            options.setSplitSize(64 * 1024);
+            options.setIncludeColumns("Id", "Price", "Ticker");
+        });
+        assertFrame(frame, result.cols().select(c -> !c.key().equals("Id")).copy(), "Price", "Ticker");
+        for (int i=0; i<frame.rowCount(); ++i) {
+            Assert.assertEquals(result.getIntAt(i, 0), i, "Records are in file order");
+        }
+    }
+
+
+    @Test()
+    public void testTrailingNullsBeyondInitialSize() throws Exception {
+        final File file = File.createTempFile("morpheus", ".avro");
+        file.deleteOnExit();
+        final LocalDate start = LocalDate.of(2000, 1, 1);
+        final DataFrame<Integer,String> frame = DataFrame.of(Range.of(0, 25), String.class, columns -> {
+            columns.add("Price", Double.class, v -> v.rowOrdinal() < 5 ? v.rowOrdinal() * 1.5d : Double.NaN);
+            columns.add("Date", LocalDate.class, v -> v.rowOrdinal() < 5 ? start.plusDays(v.rowOrdinal()) : null);
+            columns.add("Ticker", String.class, v -> v.rowOrdinal() < 5 ? "T" + v.rowOrdinal() : null);
+        });
+        new AvroSink<>(frame).write(options -> options.setFile(file));
+        final DataFrame<Integer,String> result = AvroSource.load(options -> {
+            options.setFile(file);
+            options.setParallel(false);
+            options.setInitialSize(10);
+        });
+        assertFrame(frame, result, "Price", "Date", "Ticker");
+    }
+
+
+    @Test()
+    public void testTrailingNullsInParallelSplits() throws Exception {
+        final File file = File.createTempFile("morpheus", ".avro");
+        file.deleteOnExit();
+        final DataFrame<Integer,String> frame = DataFrame.of(Range.of(0, 100000), String.class, columns -> {
+            columns.add("Count", Integer.class, v -> v.rowOrdinal());
+            columns.add("Price", Double.class, v -> v.rowOrdinal() < 5 ? v.rowOrdinal() * 1.5d : Double.NaN);
+            columns.add("Ticker", String.class, v -> v.rowOrdinal() < 5 ? "T" + v.rowOrdinal() : null);
+        });
+        new AvroSink<>(frame).write(options -> options.setFile(file));
+        final DataFrame<Integer,String> result = AvroSource.load(options -> {
+            options.setFile(file);
+            options.setSplitSize(16 * 1024);
+            options.setInitialSize(100);
+        });
+        assertFrame(frame, result, "Count", "Price", "Ticker");
+    }
+
+
+    @Test()
+    public void testReadFromStream() throws Exception {
+        final File file = File.createTempFile("morpheus", ".avro");
+        file.deleteOnExit();
+        final DataFrame<Integer,String> frame = frame(1000);
+        new AvroSink<>(frame).write(options -> options.setFile(file));
+        try (InputStream is = new FileInputStream(file)) {
+            final DataFrame<Integer,String> result = AvroSource.load(options -> {
+                options.setInputStream(is);
+                options.setColumnPredicate(name -> name.startsWith("C"));
+            });
+            assertFrame(frame, result, "Count");
+        }
+    }
+
+
+    @Test()
+    public void testNullableIntsAndLongs() throws Exception {
+        final File file = File.createTempFile("morpheus", ".avro");
+        file.deleteOnExit();
+        final Schema schema = SchemaBuilder.record("Test").fields()
+            .optionalInt("Count")
+            .optionalLong("Volume")
+            .requiredInt("Id")
+            .endRecord();
+        try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(schema))) {
+            writer.create(schema, file);
+            for (int i=0; i<100; ++i) {
+                final GenericRecord record = new GenericData.Record(schema);
+                record.put("Count", i % 10 == 0 ? null : i % 2);
+                record.put("Volume", i % 10 == 0 ? null : (long)(i % 2));
+                record.put("Id", i);
+                writer.append(record);
+            }
+        }
+        final DataFrame<Integer,String> result = AvroSource.load(options -> {
+            options.setFile(file);
+            options.setParallel(false);
+        });
+        Assert.assertEquals(result.cols().type("Id"), Integer.class);
+        for (int i=0; i<100; ++i) {
+            if (i % 10 == 0) {
+                Assert.assertNull(result.getValue(i, "Count"));
+                Assert.assertNull(result.getValue(i, "Volume"));
+                Assert.assertTrue(Double.isNaN(result.getDouble(i, "Count")));
+            } else {
+                Assert.assertEquals(result.getValue(i, "Count"), (Object)(i % 2));
+                Assert.assertEquals(result.getValue(i, "Volume"), (Object)(long)(i % 2));
+                Assert.assertEquals(result.getInt(i, "Count"), i % 2);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayStyle;
+import com.d3x.morpheus.array.mapped.MappedFile;
+
+/**
+ * Benchmarks for creating and traversing arrays of each ArrayStyle
+ *
+ * <p>
+ * Arrays created by the MAPPED benchmarks are hosted in a mapped file opened for each invocation, which is closed and
+ * deleted after the invocation, so that the files do not accumulate until the garbage collector reclaims the arrays.
+ * The MAPPED copy benchmark therefore copies the source array into an array in that file rather than calling copy(),
+ * which would create a temporary file of its own. The source array is created once per trial.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayBenchmarks {
+
+    @Param({"DENSE", "SPARSE", "MAPPED"})
+    public ArrayStyle style;
+
+    @Param({"boolean", "double", "int", "long", "LocalDate"})
+    public String type;
+
+    @Param({"1000000"})
+    public int length;
+
+    private Class<Object> dataType;
+    private Array<Object> array;
+    private File directory;
+    private MappedFile mappedFile;
+    private long invocation;
+
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        switch (type) {
+            case "boolean":     dataType = (Class<Object>)(Class<?>)Boolean.class;     break;
+            case "double":      dataType = (Class<Object>)(Class<?>)Double.class;      break;
+            case "int":         dataType = (Class<Object>)(Class<?>)Integer.class;     break;
+            case "long":        dataType = (Class<Object>)(Class<?>)Long.class;        break;
+            case "LocalDate":   dataType = (Class<Object>)(Class<?>)LocalDate.class;   break;
+            default:    throw new IllegalArgumentException("Unsupported array type: " + type);
+        }
+        this.array = create();
+        final Object value = value();
+        for (int i=0; i<length; i += 10) {
+            array.setValue(i, value);
+        }
+    }
+
+
+    @Setup(Level.Invocation)
+    public void openFile() throws IOException {
+        if (style.isMapped()) {
+            if (directory == null) {
+                this.directory = Files.createTempDirectory("morpheus-bench").toFile();
+            }
+            this.mappedFile = MappedFile.open(new File(directory, "array-" + (++invocation) + ".dat"));
+        }
+    }
+
+
+    @TearDown(Level.Invocation)
+    public void closeFile() {
+        if (mappedFile != null) {
+            final File file = mappedFile.file();
+            this.mappedFile.close();
+            this.mappedFile = null;
+            this.delete(file);
+            this.delete(new File(file.getPath() + ".catalog"));
+        }
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (directory != null) {
+            this.delete(directory);
+            this.directory = null;
+        }
+    }
+
+
+    /**
+     * Deletes a file or empty directory created by this benchmark
+     * @param file  the file or directory to delete
+     */
+    private void delete(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to delete " + file, ex);
+        }
+    }
+
+
+    /**
+     * Returns a non-default value of the benchmark type
+     * @return  the non-default value
+     */
+    private Object value() {
+        switch (type) {
+            case "boolean":     return true;
+            case "double":      return 1d;
+            case "int":         return 1;
+            case "long":        return 1L;
+            default:            return LocalDate.of(2020, 1, 1);
+        }
+    }
+
+
+    @Benchmark()
+    public Array<Object> create() {
+        if (mappedFile != null) {
+            return mappedFile.array("create", dataType, length, null);
+        } else {
+            return Array.of(dataType, length, null, style);
+        }
+    }
+
+
+    @Benchmark()
+    public Array<Object> copy() {
+        if (mappedFile != null) {
+            return mappedFile.array("copy", dataType, length, null).update(0, array, 0, length);
+        } else {
+            return array.copy();
+        }
+    }
+
+
+    @Benchmark()
+    public int scan() {
+        int count = 0;
+        for (int i=0; i<length; ++i) {
+            if (array.isNull(i)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+}
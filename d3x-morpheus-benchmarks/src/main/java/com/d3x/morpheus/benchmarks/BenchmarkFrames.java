@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.benchmarks;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.range.Range;
+
+/**
+ * A factory for the reproducible DataFrames used as inputs to the benchmarks
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class BenchmarkFrames {
+
+    private static final String[] SECTORS = {"Energy", "Financials", "Health", "Industrials", "Materials", "Technology", "Utilities"};
+
+    /**
+     * Private constructor
+     */
+    private BenchmarkFrames() {
+        super();
+    }
+
+
+    /**
+     * Returns a frame of random doubles keyed by date with columns named C0, C1, ...
+     * @param rowCount  the number of rows
+     * @param colCount  the number of columns
+     * @param seed      the random seed
+     * @return          the frame of random doubles
+     */
+    public static DataFrame<LocalDate,String> doubles(int rowCount, int colCount, long seed) {
+        final Random random = new Random(seed);
+        final LocalDate start = LocalDate.of(1990, 1, 1);
+        final Range<LocalDate> rowKeys = Range.of(0, rowCount).map(start::plusDays);
+        final Range<String> colKeys = Range.of(0, colCount).map(i -> "C" + i);
+        return DataFrame.ofDoubles(rowKeys, colKeys, v -> random.nextGaussian());
+    }
+
+
+    /**
+     * Returns a mixed type frame resembling a security master, with a sector column suitable for grouping
+     * @param rowCount  the number of rows
+     * @param seed      the random seed
+     * @return          the mixed type frame
+     */
+    public static DataFrame<Integer,String> securities(int rowCount, long seed) {
+        final Random random = new Random(seed);
+        return DataFrame.of(Range.of(0, rowCount), String.class, columns -> {
+            columns.add("Sector", String.class, v -> SECTORS[random.nextInt(SECTORS.length)]);
+            columns.add("Rating", Integer.class, v -> random.nextInt(20));
+            columns.add("Price", Double.class, v -> 10d + random.nextDouble() * 90d);
+            columns.add("Volume", Long.class, v -> (long)random.nextInt(1000000));
+            columns.add("Return", Double.class, v -> random.nextGaussian() * 0.02d);
+        });
+    }
+
+
+    /**
+     * Returns a frame of regression data with a response Y linear in regressors X0, X1, ... plus noise
+     * @param rowCount          the number of observations
+     * @param regressorCount    the number of regressors
+     * @param seed              the random seed
+     * @return                  the regression data
+     */
+    public static DataFrame<Integer,String> regression(int rowCount, int regressorCount, long seed) {
+        final Random random = new Random(seed);
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(Range.of(0, rowCount), Range.of(0, regressorCount).map(i -> "X" + i), v -> random.nextGaussian());
+        frame.cols().add("Y", Double.class, v -> {
+            double y = random.nextGaussian() * 0.1d;
+            for (int j=0; j<regressorCount; ++j) {
+                y += (j + 1) * v.row().getDoubleAt(j);
+            }
+            return y;
+        });
+        return frame;
+    }
+}
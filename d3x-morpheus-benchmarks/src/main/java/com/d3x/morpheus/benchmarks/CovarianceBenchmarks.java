@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.benchmarks;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.d3x.morpheus.frame.DataFrame;
+
+/**
+ * Benchmarks for covariance and correlation matrices of the columns of a DataFrame
+ *
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CovarianceBenchmarks {
+
+    @Param({"10000"})
+    public int rowCount;
+
+    @Param({"10", "100"})
+    public int colCount;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private DataFrame<LocalDate,String> frame;
+
+
+    @Setup()
+    public void setup() {
+        final DataFrame<LocalDate,String> source = BenchmarkFrames.doubles(rowCount, colCount, 1L);
+        this.frame = parallel ? source.parallel() : source.sequential();
+    }
+
+
+    @Benchmark()
+    public DataFrame<String,String> covariance() {
+        return frame.cols().stats().covariance();
+    }
+
+
+    @Benchmark()
+    public DataFrame<String,String> correlation() {
+        return frame.cols().stats().correlation();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.d3x.morpheus.frame.DataFrame;
+
+/**
+ * Benchmarks for writing and parsing a DataFrame in CSV format
+ *
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvBenchmarks {
+
+    @Param({"10000", "100000"})
+    public int rowCount;
+
+    @Param({"10"})
+    public int colCount;
+
+    private byte[] bytes;
+    private DataFrame<LocalDate,String> frame;
+
+
+    @Setup()
+    public void setup() {
+        this.frame = BenchmarkFrames.doubles(rowCount, colCount, 1L);
+        this.bytes = write().toByteArray();
+    }
+
+
+    @Benchmark()
+    public ByteArrayOutputStream write() {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream(bytes != null ? bytes.length : 1024 * 1024);
+        frame.write().csv(os).apply();
+        return os;
+    }
+
+
+    @Benchmark()
+    public DataFrame<LocalDate,String> read() {
+        return DataFrame.read(new ByteArrayInputStream(bytes)).csv(LocalDate.class, options -> {
+            options.setRowKeyColumnName("DataFrame");
+            options.getFormats().setParser("DataFrame", LocalDate.class);
+        });
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.benchmarks;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.index.Index;
+import com.d3x.morpheus.range.Range;
+
+/**
+ * Benchmarks for key lookups in an Index for each of the common key types
+ *
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexBenchmarks {
+
+    @Param({"Integer", "Long", "String", "LocalDate"})
+    public String keyType;
+
+    @Param({"1000000"})
+    public int size;
+
+    private Index<Object> index;
+    private Object[] probes;
+
+
+    @Setup()
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        final Array<?> keys;
+        final LocalDate start = LocalDate.of(1900, 1, 1);
+        switch (keyType) {
+            case "Integer":     keys = Range.of(0, size).toArray();   break;
+            case "Long":        keys = Range.of(0L, (long)size).toArray();   break;
+            case "String":      keys = Range.of(0, size).map(i -> "Key-" + i).toArray();   break;
+            case "LocalDate":   keys = Range.of(0, size).map(start::plusDays).toArray();   break;
+            default:    throw new IllegalArgumentException("Unsupported key type: " + keyType);
+        }
+        final Random random = new Random(1);
+        this.index = (Index<Object>)Index.of(keys);
+        this.probes = new Object[10000];
+        for (int i=0; i<probes.length; ++i) {
+            this.probes[i] = keys.getValue(random.nextInt(size));
+        }
+    }
+
+
+    @Benchmark()
+    public Index<Object> create() {
+        return Index.of(index.toArray());
+    }
+
+
+    @Benchmark()
+    public long getOrdinal() {
+        long sum = 0L;
+        for (Object key : probes) {
+            sum += index.getOrdinal(key);
+        }
+        return sum;
+    }
+
+
+    @Benchmark()
+    public int contains() {
+        int count = 0;
+        for (Object key : probes) {
+            if (index.contains(key)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.benchmarks;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.d3x.morpheus.frame.DataFrame;
+
+/**
+ * Benchmarks for ordinary least squares regression of a response on a set of regressors
+ *
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegressionBenchmarks {
+
+    @Param({"1000", "100000"})
+    public int rowCount;
+
+    @Param({"2", "20"})
+    public int regressorCount;
+
+    private List<String> regressors;
+    private DataFrame<Integer,String> frame;
+
+
+    @Setup()
+    public void setup() {
+        this.frame = BenchmarkFrames.regression(rowCount, regressorCount, 1L);
+        this.regressors = frame.cols().keys().filter(key -> !key.equals("Y")).collect(Collectors.toList());
+    }
+
+
+    @Benchmark()
+    public double ols() {
+        return frame.regress().ols("Y", regressors, true, model -> Optional.of(model.getRSquared())).orElse(Double.NaN);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.benchmarks;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Level;
+
+import com.d3x.morpheus.frame.DataFrame;
+
+/**
+ * Benchmarks for sorting the rows of a DataFrame by value and by key
+ *
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortBenchmarks {
+
+    @Param({"100000", "1000000"})
+    public int rowCount;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private DataFrame<LocalDate,String> source;
+    private DataFrame<LocalDate,String> frame;
+
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.source = BenchmarkFrames.doubles(rowCount, 5, 1L);
+    }
+
+
+    @Setup(Level.Invocation)
+    public void copy() {
+        this.frame = parallel ? source.copy().parallel() : source.copy().sequential();
+    }
+
+
+    @Benchmark()
+    public DataFrame<LocalDate,String> sortByValue() {
+        return frame.rows().sort(true, "C0");
+    }
+
+
+    @Benchmark()
+    public DataFrame<LocalDate,String> sortByValues() {
+        return frame.rows().sort(false, List.of("C1", "C2"));
+    }
+
+
+    @Benchmark()
+    public DataFrame<LocalDate,String> sortByKey() {
+        return frame.rows().sort(false);
+    }
+}
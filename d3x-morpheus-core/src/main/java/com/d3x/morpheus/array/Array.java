@@ -87,6 +87,12 @@ public interface Array<T> extends Iterable<T>, Serializable, Cloneable {
      */
     ArrayStyle style();
 
+    /**
+     * Returns the number of heap bytes retained by this array, computed analytically from its style and coding
+     * @return  the retained heap bytes, which excludes the file backing a memory mapped array
+     */
+    long retainedBytes();
+
     /**
      * Returns true if this is a read-only wrapper of an array
      * @return  true if this is a read only array
@@ -651,6 +657,8 @@ public interface Array<T> extends Iterable<T>, Serializable, Cloneable {
 
     /**
      * Returns a newly created memory mapped array of the type specified using the file provided
+     * The array replaces any array previously created at the same path, while arrays created earlier keep their own
+     * storage. Use <code>MappedFile.open(file).array(name, ...)</code> to attach to an existing array in a file.
      * @param type          the element type for array
      * @param length        the initial length of the array
      * @param defaultValue  the default value for the array
@@ -27,7 +27,6 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
-import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Consumer;
@@ -55,6 +54,7 @@ import com.d3x.morpheus.util.Bounds;
 import com.d3x.morpheus.util.Comparators;
 import com.d3x.morpheus.util.IntComparator;
 import com.d3x.morpheus.util.SortAlgorithm;
+import com.d3x.morpheus.util.TaskScheduler;
 import com.d3x.morpheus.util.functions.ToBooleanFunction;
 
 /**
@@ -225,7 +225,7 @@ public abstract class ArrayBase<T> implements Array<T> {
         final Array<Boolean> result = Array.of(Boolean.class, length());
         final MapValues<Boolean> action = new MapValues<>(0, length() - 1, mapper, result);
         if (isParallel()) {
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
             return result;
         } else {
             action.compute();
@@ -239,7 +239,7 @@ public abstract class ArrayBase<T> implements Array<T> {
         final Array<Integer> result = Array.of(Integer.class, length());
         final MapValues<Integer> action = new MapValues<>(0, length() - 1, mapper, result);
         if (isParallel()) {
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
             return result;
         } else {
             action.compute();
@@ -253,7 +253,7 @@ public abstract class ArrayBase<T> implements Array<T> {
         final Array<Long> result = Array.of(Long.class, length());
         final MapValues<Long> action = new MapValues<>(0, length() - 1, mapper, result);
         if (isParallel()) {
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
             return result;
         } else {
             action.compute();
@@ -267,7 +267,7 @@ public abstract class ArrayBase<T> implements Array<T> {
         final Array<Double> result = Array.of(Double.class, length());
         final MapValues<Double> action = new MapValues<>(0, length() - 1, mapper, result);
         if (isParallel()) {
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
             return result;
         } else {
             action.compute();
@@ -290,7 +290,7 @@ public abstract class ArrayBase<T> implements Array<T> {
         if (length > 0) {
             final ApplyValues action = new ApplyValues(0, length - 1, function);
             if (isParallel()) {
-                ForkJoinPool.commonPool().invoke(action);
+                TaskScheduler.current().invoke(action);
             } else {
                 action.compute();
             }
@@ -305,7 +305,7 @@ public abstract class ArrayBase<T> implements Array<T> {
         if (length > 0) {
             final ApplyValues action = new ApplyValues(0, length - 1, function);
             if (isParallel()) {
-                ForkJoinPool.commonPool().invoke(action);
+                TaskScheduler.current().invoke(action);
             } else {
                 action.compute();
             }
@@ -320,7 +320,7 @@ public abstract class ArrayBase<T> implements Array<T> {
         if (length > 0) {
             final ApplyValues action = new ApplyValues(0, length - 1, function);
             if (isParallel()) {
-                ForkJoinPool.commonPool().invoke(action);
+                TaskScheduler.current().invoke(action);
             } else {
                 action.compute();
             }
@@ -335,7 +335,7 @@ public abstract class ArrayBase<T> implements Array<T> {
         if (length > 0) {
             final ApplyValues action = new ApplyValues(0, length - 1, function);
             if (isParallel()) {
-                ForkJoinPool.commonPool().invoke(action);
+                TaskScheduler.current().invoke(action);
             } else {
                 action.compute();
             }
@@ -350,7 +350,7 @@ public abstract class ArrayBase<T> implements Array<T> {
         if (length > 0) {
             final ApplyValues action = new ApplyValues(0, length - 1, function);
             if (isParallel()) {
-                ForkJoinPool.commonPool().invoke(action);
+                TaskScheduler.current().invoke(action);
             } else {
                 action.compute();
             }
@@ -366,7 +366,7 @@ public abstract class ArrayBase<T> implements Array<T> {
             final int processors = Runtime.getRuntime().availableProcessors();
             final int splitThreshold = parallel ? Math.max(length() / processors, 10000) : Integer.MAX_VALUE;
             final ForEach action = new ForEach(0, length - 1, splitThreshold, consumer);
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
         } else {
             for (int i=0; i<length; ++i) {
                 final T value = getValue(i);
@@ -382,7 +382,7 @@ public abstract class ArrayBase<T> implements Array<T> {
             final int processors = Runtime.getRuntime().availableProcessors();
             final int splitThreshold = parallel ? Math.max(length() / processors, 10000) : Integer.MAX_VALUE;
             final ForEach action = new ForEach(0, length - 1, splitThreshold, consumer);
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
         } else {
             for (int i=0; i<length; ++i) {
                 final boolean value = getBoolean(i);
@@ -399,7 +399,7 @@ public abstract class ArrayBase<T> implements Array<T> {
             final int processors = Runtime.getRuntime().availableProcessors();
             final int splitThreshold = parallel ? Math.max(length() / processors, 10000) : Integer.MAX_VALUE;
             final ForEach action = new ForEach(0, length - 1, splitThreshold, consumer);
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
         } else {
             for (int i=0; i<length; ++i) {
                 final int value = getInt(i);
@@ -416,7 +416,7 @@ public abstract class ArrayBase<T> implements Array<T> {
             final int processors = Runtime.getRuntime().availableProcessors();
             final int splitThreshold = parallel ? Math.max(length() / processors, 10000) : Integer.MAX_VALUE;
             final ForEach action = new ForEach(0, length - 1, splitThreshold, consumer);
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
         } else {
             for (int i=0; i<length; ++i) {
                 final long value = getLong(i);
@@ -433,7 +433,7 @@ public abstract class ArrayBase<T> implements Array<T> {
             final int processors = Runtime.getRuntime().availableProcessors();
             final int splitThreshold = parallel ? Math.max(length() / processors, 10000) : Integer.MAX_VALUE;
             final ForEach action = new ForEach(0, length - 1, splitThreshold, consumer);
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
         } else {
             for (int i=0; i<length; ++i) {
                 var value = getDouble(i);
@@ -450,7 +450,7 @@ public abstract class ArrayBase<T> implements Array<T> {
             final int processors = Runtime.getRuntime().availableProcessors();
             final int splitThreshold = parallel ? Math.max(length() / processors, 10000) : Integer.MAX_VALUE;
             final ForEachArrayValue action = new ForEachArrayValue(0, length - 1, splitThreshold, consumer);
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
         } else {
             final ForEachArrayValue action = new ForEachArrayValue(0, length - 1, Integer.MAX_VALUE, consumer);
             action.compute();
@@ -561,7 +561,7 @@ public abstract class ArrayBase<T> implements Array<T> {
             final int processors = Runtime.getRuntime().availableProcessors();
             final int splitThreshold = Math.max(length() / processors, 10000);
             final MinTask<T> task = new MinTask<>(this, 0, length()-1, splitThreshold);
-            final T minValue = ForkJoinPool.commonPool().invoke(task);
+            final T minValue = TaskScheduler.current().invoke(task);
             return Optional.ofNullable(minValue);
         } else {
             final MinTask<T> task = new MinTask<>(this, 0, length()-1, Integer.MAX_VALUE);
@@ -577,7 +577,7 @@ public abstract class ArrayBase<T> implements Array<T> {
             final int processors = Runtime.getRuntime().availableProcessors();
             final int splitThreshold = Math.max(length() / processors, 10000);
             final MaxTask<T> task = new MaxTask<>(this, 0, length()-1, splitThreshold);
-            final T maxValue = ForkJoinPool.commonPool().invoke(task);
+            final T maxValue = TaskScheduler.current().invoke(task);
             return Optional.ofNullable(maxValue);
         } else {
             final MaxTask<T> task = new MaxTask<>(this, 0, length()-1, Integer.MAX_VALUE);
@@ -593,7 +593,7 @@ public abstract class ArrayBase<T> implements Array<T> {
             final int processors = Runtime.getRuntime().availableProcessors();
             final int splitThreshold = Math.max(length() / processors, 10000);
             final BoundsTask<T> task = new BoundsTask<>(this, 0, length()-1, splitThreshold);
-            final Bounds<T> bounds = ForkJoinPool.commonPool().invoke(task);
+            final Bounds<T> bounds = TaskScheduler.current().invoke(task);
             return Optional.ofNullable(bounds);
         } else {
             final BoundsTask<T> task = new BoundsTask<>(this, 0, length()-1, Integer.MAX_VALUE);
@@ -698,7 +698,7 @@ public abstract class ArrayBase<T> implements Array<T> {
         if (isParallel() && length() > 0) {
             final int processors = Runtime.getRuntime().availableProcessors();
             final int splitThreshold = Math.max(length() / processors, 10000);
-            return ForkJoinPool.commonPool().invoke(new CountTask<>(this, 0, length()-1, splitThreshold, predicate));
+            return TaskScheduler.current().invoke(new CountTask<>(this, 0, length()-1, splitThreshold, predicate));
         } else {
             final CountTask task = new CountTask<>(this, 0, length()-1, Integer.MAX_VALUE, predicate);
             return task.compute();
@@ -21,6 +21,8 @@ import java.io.ObjectOutputStream;
 import java.util.Comparator;
 import java.util.function.Predicate;
 
+import com.d3x.morpheus.util.MemoryLayout;
+
 /**
  * A ready-only wrapper for a Morpheus Array inorder to expose an immutable view on an Array.
  *
@@ -55,6 +57,12 @@ class ArrayReadOnly<T> extends ArrayBase<T> {
         return source.loadFactor();
     }
 
+
+    @Override
+    public long retainedBytes() {
+        return MemoryLayout.shallow(3, 1) + source.retainedBytes();
+    }
+
     @Override
     public final T defaultValue() {
         return source.defaultValue();
@@ -28,6 +28,8 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.TimeZone;
 
+import com.d3x.morpheus.util.MemoryLayout;
+
 /**
  * Defines the universe of array types currently supported by the Morpheus Analytics library.
  *
@@ -117,6 +119,26 @@ public enum ArrayType {
         return typeClass.isEnum() ? ENUM : typeMap.getOrDefault(typeClass, OBJECT);
     }
 
+    /**
+     * Returns the number of bytes per element in a dense array of this type, excluding any objects referenced
+     * @return      the bytes per element for a dense array of this type
+     */
+    public int elementBytes() {
+        switch (this) {
+            case BOOLEAN:           return 1;
+            case INTEGER:           return Integer.BYTES;
+            case ENUM:              return Integer.BYTES;
+            case YEAR:              return Integer.BYTES;
+            case CURRENCY:          return Integer.BYTES;
+            case ZONE_ID:           return Integer.BYTES;
+            case TIME_ZONE:         return Integer.BYTES;
+            case ZONED_DATETIME:    return Long.BYTES + Short.BYTES;
+            case STRING:            return MemoryLayout.REFERENCE_BYTES;
+            case OBJECT:            return MemoryLayout.REFERENCE_BYTES;
+            default:                return Long.BYTES;
+        }
+    }
+
     /**
      * Returns true if this represents a numeric type
      * @return      true if numeric type
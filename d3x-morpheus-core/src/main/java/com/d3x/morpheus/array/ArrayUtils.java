@@ -107,6 +107,41 @@ public class ArrayUtils {
     }
 
 
+    /**
+     * Returns true if arrays of the element type specified can be created in the MAPPED style
+     * @param type  the array element type
+     * @return      true if arrays of type can be memory mapped
+     */
+    public static boolean isMappable(Class<?> type) {
+        final ArrayType typeCode = ArrayType.of(type);
+        return typeCode != ArrayType.STRING && typeCode != ArrayType.OBJECT;
+    }
+
+
+    /**
+     * Returns a memory mapped copy of an array with the length specified, padded with the default value
+     * @param array     the array to copy
+     * @param length    the length of the copy
+     * @return          the memory mapped copy
+     */
+    public static <V> Array<V> toMapped(Array<V> array, int length) {
+        final Array<V> mapped = Array.map(array.type(), length, array.defaultValue());
+        return mapped.update(0, array, 0, Math.min(length, array.length()));
+    }
+
+
+    /**
+     * Returns a memory mapped copy of the values at the indexes specified in an array
+     * @param array     the array to copy
+     * @param indexes   the indexes of values to copy
+     * @return          the memory mapped copy
+     */
+    public static <V> Array<V> toMapped(Array<V> array, int[] indexes) {
+        final Array<V> mapped = Array.map(array.type(), indexes.length, array.defaultValue());
+        return mapped.update(array, indexes, IntStream.range(0, indexes.length).toArray());
+    }
+
+
     /**
      * Returns an array of distinct values from the stream in the order they were observed
      * @param values    the stream to extract distinct values from
@@ -24,6 +24,7 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Currency;
 import java.util.Date;
+import java.util.Optional;
 import java.util.TimeZone;
 
 import com.d3x.morpheus.array.Array;
@@ -60,6 +61,30 @@ public class DenseArrayConstructor implements ArrayFactory.Constructor {
     }
 
 
+    /**
+     * Returns a dense Array of doubles that shares storage with the primitive array specified
+     * @param values    the values to wrap, which are not copied
+     * @return          the dense Array backed by values
+     */
+    public static Array<Double> wrap(double[] values) {
+        return new DenseArrayOfDoubles(values, Double.NaN);
+    }
+
+
+    /**
+     * Returns the primitive array that backs a dense Array of doubles, which is shared and not copied
+     * @param array     the array to unwrap
+     * @return          the backing primitive array, empty if array is not a dense array of doubles
+     */
+    public static Optional<double[]> unwrap(Array<?> array) {
+        if (array instanceof DenseArrayOfDoubles) {
+            return Optional.of(((DenseArrayOfDoubles)array).values());
+        } else {
+            return Optional.empty();
+        }
+    }
+
+
     @Override()
     public final <T> Array<T> apply(Class<T> type, int length, T defaultValue) {
         return apply(type, length, defaultValue, null);
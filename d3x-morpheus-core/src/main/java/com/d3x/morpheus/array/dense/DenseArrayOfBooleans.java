@@ -31,6 +31,7 @@ import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBase;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * An Array implementation designed to hold a dense array of boolean values
@@ -82,6 +83,12 @@ class DenseArrayOfBooleans extends ArrayBase<Boolean> {
     }
 
 
+    @Override
+    public long retainedBytes() {
+        return MemoryLayout.shallow(3, 2) + MemoryLayout.array(values.length, 1);
+    }
+
+
     @Override
     public final Boolean defaultValue() {
         return defaultValue;
@@ -30,6 +30,7 @@ import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBase;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * An Array implementation designed to hold a dense array of double values
@@ -57,6 +58,17 @@ class DenseArrayOfDoubles extends ArrayBase<Double> {
         Arrays.fill(values, this.defaultValue);
     }
 
+    /**
+     * Constructor
+     * @param values        the values to wrap without copying
+     * @param defaultValue  the default value for array
+     */
+    DenseArrayOfDoubles(double[] values, Double defaultValue) {
+        super(Double.class, ArrayStyle.DENSE, false);
+        this.values = values;
+        this.defaultValue = defaultValue != null ? defaultValue : Double.NaN;
+    }
+
     /**
      * Constructor
      * @param source    the source array to shallow copy
@@ -75,12 +87,27 @@ class DenseArrayOfDoubles extends ArrayBase<Double> {
     }
 
 
+    /**
+     * Returns the primitive array that backs this array, which is replaced if the array is expanded
+     * @return  the backing primitive array
+     */
+    final double[] values() {
+        return values;
+    }
+
+
     @Override
     public float loadFactor() {
         return 1F;
     }
 
 
+    @Override
+    public long retainedBytes() {
+        return MemoryLayout.shallow(3, 9) + MemoryLayout.array(values.length, Double.BYTES);
+    }
+
+
     @Override
     public final Double defaultValue() {
         return defaultValue;
@@ -31,6 +31,7 @@ import com.d3x.morpheus.array.ArrayCursor;
 import com.d3x.morpheus.array.ArrayException;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * An Array implementation designed to hold a dense array of int values
@@ -82,6 +83,12 @@ class DenseArrayOfInts extends ArrayBase<Integer> {
     }
 
 
+    @Override
+    public long retainedBytes() {
+        return MemoryLayout.shallow(3, 5) + MemoryLayout.array(values.length, Integer.BYTES);
+    }
+
+
     @Override
     public final Integer defaultValue() {
         return defaultValue;
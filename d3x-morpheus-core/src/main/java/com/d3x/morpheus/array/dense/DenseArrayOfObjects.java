@@ -28,6 +28,7 @@ import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBase;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * An Array implementation designed to hold a dense array of Object values
@@ -81,6 +82,16 @@ class DenseArrayOfObjects<T> extends ArrayBase<T> {
     }
 
 
+    @Override
+    public long retainedBytes() {
+        long bytes = MemoryLayout.shallow(4, 1) + MemoryLayout.references(values.length);
+        for (Object value : values) {
+            bytes += MemoryLayout.value(value);
+        }
+        return bytes;
+    }
+
+
     @Override
     public final T defaultValue() {
         return defaultValue;
@@ -35,6 +35,7 @@ import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBase;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * An Array implementation containing a dense array of ZonedDateTime values stored as a longs of Epoch Millis.
@@ -119,6 +120,12 @@ class DenseArrayOfZonedDateTimes extends ArrayBase<ZonedDateTime> {
     }
 
 
+    @Override
+    public long retainedBytes() {
+        return MemoryLayout.shallow(5, 11) + MemoryLayout.array(values.length, Long.BYTES) + MemoryLayout.array(zoneIds.length, Short.BYTES);
+    }
+
+
     @Override
     public final ZonedDateTime defaultValue() {
         return defaultValue;
@@ -33,6 +33,7 @@ import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
 import com.d3x.morpheus.array.coding.IntCoding;
 import com.d3x.morpheus.array.coding.WithIntCoding;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * A dense array implementation that maintains a primitive int array of codes that apply to Object values exposed through the IntCoding interface.
@@ -98,6 +99,12 @@ class DenseArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<T
     }
 
 
+    @Override
+    public long retainedBytes() {
+        return MemoryLayout.shallow(5, 5) + MemoryLayout.array(codes.length, Integer.BYTES);
+    }
+
+
     @Override
     public final T defaultValue() {
         return defaultValue;
@@ -33,6 +33,7 @@ import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
 import com.d3x.morpheus.array.coding.LongCoding;
 import com.d3x.morpheus.array.coding.WithLongCoding;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * A dense array implementation that maintains a primitive long array of codes that apply to Object values exposed through the LongCoding interface.
@@ -97,6 +98,12 @@ class DenseArrayWithLongCoding<T> extends ArrayBase<T> implements WithLongCoding
     }
 
 
+    @Override
+    public long retainedBytes() {
+        return MemoryLayout.shallow(5, 9) + MemoryLayout.array(codes.length, Long.BYTES);
+    }
+
+
     @Override
     public final T defaultValue() {
         return defaultValue;
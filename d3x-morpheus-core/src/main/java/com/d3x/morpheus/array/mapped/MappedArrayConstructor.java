@@ -76,30 +76,68 @@ public class MappedArrayConstructor implements ArrayFactory.Constructor {
         return apply(type, length, defaultValue, null);
     }
 
+    /**
+     * Returns a new memory mapped array, stored in a temporary file if path is null, or in the file at the path
+     * An array created with a path always starts out with the length and default value requested, replacing the
+     * array previously stored under the default name in that file. Arrays created earlier in this JVM with the
+     * same path keep their own storage, so they never alias the new array. Use MappedFile.open() and array()
+     * to attach to existing data or to host several named arrays in one file.
+     * @param type          the element type for array
+     * @param length        the length of the array
+     * @param defaultValue  the default value for array
+     * @param path          the file path, null for a temporary file
+     * @param <T>           the element type
+     * @return              the newly created array
+     */
     @Override
     @SuppressWarnings("unchecked")
     public <T> Array<T> apply(Class<T> type, int length, T defaultValue, String path) {
-        final File file = path == null ? randomFile(true) : createDir(new File(path));
+        if (ArrayType.of(type) == ArrayType.ZONED_DATETIME) {
+            final File file = path == null ? randomFile(true) : createDir(new File(path));
+            return (Array<T>)new MappedArrayOfZonedDateTimes(length, (ZonedDateTime)defaultValue, file);
+        } else if (path == null) {
+            return create(type, length, defaultValue, MappedFile.temporary(), null);
+        } else {
+            final MappedFile file = MappedFile.open(new File(path));
+            synchronized (file) {
+                file.truncate(MappedFile.DEFAULT_NAME);
+                return create(type, length, defaultValue, file, MappedFile.DEFAULT_NAME);
+            }
+        }
+    }
+
+
+    /**
+     * Returns a memory mapped array stored in segments of the mapped file specified
+     * @param type          the element type for array
+     * @param length        the minimum length of the array
+     * @param defaultValue  the default value for array
+     * @param file          the mapped file to host the array
+     * @param name          the name of the array in the file, null for an unnamed array
+     * @param <T>           the element type
+     * @return              the new or existing array
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Array<T> create(Class<T> type, int length, T defaultValue, MappedFile file, String name) {
         if (type.isEnum()) {
             final IntCoding<T> enumCoding = (IntCoding<T>)IntCoding.ofEnum((Class<Enum>) type);
-            return new MappedArrayWithIntCoding<>(length, defaultValue, enumCoding, file);
+            return new MappedArrayWithIntCoding<>(length, defaultValue, enumCoding, file, name);
         } else {
             switch (ArrayType.of(type)) {
-                case BOOLEAN:           return (Array<T>)new MappedArrayOfBooleans(length, (Boolean)defaultValue, file);
-                case INTEGER:           return (Array<T>)new MappedArrayOfInts(length, (Integer)defaultValue, file);
-                case LONG:              return (Array<T>)new MappedArrayOfLongs(length, (Long)defaultValue, file);
-                case DOUBLE:            return (Array<T>)new MappedArrayOfDoubles(length, (Double)defaultValue, file);
-                case CURRENCY:          return (Array<T>)new MappedArrayWithIntCoding<>(length, (Currency)defaultValue, currencyCoding, file);
-                case YEAR:              return (Array<T>)new MappedArrayWithIntCoding<>(length, (Year)defaultValue, yearCoding, file);
-                case ZONE_ID:           return (Array<T>)new MappedArrayWithIntCoding<>(length, (ZoneId)defaultValue, zoneIdCoding, file);
-                case TIME_ZONE:         return (Array<T>)new MappedArrayWithIntCoding<>(length, (TimeZone)defaultValue, timeZoneCoding, file);
-                case DATE:              return (Array<T>)new MappedArrayWithLongCoding<>(length, (Date)defaultValue, dateCoding, file);
-                case INSTANT:           return (Array<T>)new MappedArrayWithLongCoding<>(length, (Instant)defaultValue, instantCoding, file);
-                case LOCAL_DATE:        return (Array<T>)new MappedArrayWithLongCoding<>(length, (LocalDate)defaultValue, localDateCoding, file);
-                case LOCAL_TIME:        return (Array<T>)new MappedArrayWithLongCoding<>(length, (LocalTime)defaultValue, localTimeCoding, file);
-                case LOCAL_DATETIME:    return (Array<T>)new MappedArrayWithLongCoding<>(length, (LocalDateTime)defaultValue, localDateTimeCoding, file);
-                case ZONED_DATETIME:    return (Array<T>)new MappedArrayOfZonedDateTimes(length, (ZonedDateTime)defaultValue, file);
-                default:                throw new UnsupportedOperationException("Data type currently not supported for memory mapped arrays: " + type);
+                case BOOLEAN:           return (Array<T>)new MappedArrayOfBooleans(length, (Boolean)defaultValue, file, name);
+                case INTEGER:           return (Array<T>)new MappedArrayOfInts(length, (Integer)defaultValue, file, name);
+                case LONG:              return (Array<T>)new MappedArrayOfLongs(length, (Long)defaultValue, file, name);
+                case DOUBLE:            return (Array<T>)new MappedArrayOfDoubles(length, (Double)defaultValue, file, name);
+                case CURRENCY:          return (Array<T>)new MappedArrayWithIntCoding<>(length, (Currency)defaultValue, currencyCoding, file, name);
+                case YEAR:              return (Array<T>)new MappedArrayWithIntCoding<>(length, (Year)defaultValue, yearCoding, file, name);
+                case ZONE_ID:           return (Array<T>)new MappedArrayWithIntCoding<>(length, (ZoneId)defaultValue, zoneIdCoding, file, name);
+                case TIME_ZONE:         return (Array<T>)new MappedArrayWithIntCoding<>(length, (TimeZone)defaultValue, timeZoneCoding, file, name);
+                case DATE:              return (Array<T>)new MappedArrayWithLongCoding<>(length, (Date)defaultValue, dateCoding, file, name);
+                case INSTANT:           return (Array<T>)new MappedArrayWithLongCoding<>(length, (Instant)defaultValue, instantCoding, file, name);
+                case LOCAL_DATE:        return (Array<T>)new MappedArrayWithLongCoding<>(length, (LocalDate)defaultValue, localDateCoding, file, name);
+                case LOCAL_TIME:        return (Array<T>)new MappedArrayWithLongCoding<>(length, (LocalTime)defaultValue, localTimeCoding, file, name);
+                case LOCAL_DATETIME:    return (Array<T>)new MappedArrayWithLongCoding<>(length, (LocalDateTime)defaultValue, localDateTimeCoding, file, name);
+                default:                throw new ArrayException("Data type currently not supported for segmented memory mapped arrays: " + type);
             }
         }
     }
@@ -122,7 +160,7 @@ public class MappedArrayConstructor implements ArrayFactory.Constructor {
      * @param file      the memory mapped file handle
      * @return          the same as arg
      */
-    private static File createDir(File file) {
+    static File createDir(File file) {
         if (!file.exists()) {
             final File dir = file.getParentFile();
             if (dir != null && !dir.exists()) {
@@ -15,13 +15,9 @@
  */
 package com.d3x.morpheus.array.mapped;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.io.RandomAccessFile;
-import java.nio.ShortBuffer;
-import java.nio.channels.FileChannel;
 import java.util.function.Predicate;
 
 import gnu.trove.set.TShortSet;
@@ -34,6 +30,7 @@ import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBase;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * An Array implementation designed to hold a mapped array of boolean values
@@ -48,29 +45,26 @@ class MappedArrayOfBooleans extends ArrayBase<Boolean> {
 
     private static final long BYTE_COUNT = 2L;
 
-    private File file;
     private int length;
     private boolean defaultValue;
-    private FileChannel channel;
-    private ShortBuffer buffer;
+    private MappedSegments segments;
 
     /**
      * Constructor
      * @param length        the length for this array
      * @param defaultValue  the default value for array
-     * @param file          the memory mapped file reference
+     * @param file          the mapped file to host the array
+     * @param name          the name of the array in the file, null for an unnamed array
      */
-    MappedArrayOfBooleans(int length, Boolean defaultValue , File file) {
+    MappedArrayOfBooleans(int length, Boolean defaultValue , MappedFile file, String name) {
         super(Boolean.class, ArrayStyle.MAPPED, false);
         try {
-            this.file = file;
-            this.length = length;
             this.defaultValue = defaultValue == null ? false : defaultValue;
-            this.channel = new RandomAccessFile(file, "rw").getChannel();
-            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * length).asShortBuffer();
-            this.fill(defaultValue);
+            this.segments = file.segments(name, type(), (int)BYTE_COUNT);
+            this.length = segments.length();
+            this.expand(length);
         } catch (Exception ex) {
-            throw new ArrayException("Failed to initialise memory mapped array on file: " + file.getAbsolutePath(), ex);
+            throw new ArrayException("Failed to initialise memory mapped array in " + file, ex);
         }
     }
 
@@ -81,11 +75,9 @@ class MappedArrayOfBooleans extends ArrayBase<Boolean> {
      */
     private MappedArrayOfBooleans(MappedArrayOfBooleans source, boolean parallel) {
         super(source.type(), ArrayStyle.MAPPED, parallel);
-        this.file = source.file;
         this.length = source.length;
         this.defaultValue = source.defaultValue;
-        this.channel = source.channel;
-        this.buffer = source.buffer;
+        this.segments = source.segments;
     }
 
 
@@ -101,6 +93,12 @@ class MappedArrayOfBooleans extends ArrayBase<Boolean> {
     }
 
 
+    @Override
+    public long retainedBytes() {
+        return MemoryLayout.shallow(5, 5) + MemoryLayout.MAPPED_BUFFER_BYTES;
+    }
+
+
     @Override
     public final Boolean defaultValue() {
         return defaultValue;
@@ -122,13 +120,13 @@ class MappedArrayOfBooleans extends ArrayBase<Boolean> {
     @Override()
     public final Array<Boolean> copy() {
         try {
-            final File newFile = MappedArrayConstructor.randomFile(true);
+            final MappedFile newFile = MappedFile.temporary();
             final short defaultShort = defaultValue ? (short)1 : (short)0;
-            final MappedArrayOfBooleans copy = new MappedArrayOfBooleans(length, defaultValue, newFile);
+            final MappedArrayOfBooleans copy = new MappedArrayOfBooleans(length, defaultValue, newFile, null);
             for (int i=0; i<length; ++i) {
-                final short value = buffer.get(i);
+                final short value = segments.getShort(i);
                 if (value != defaultShort) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putShort(i, value);
                 }
             }
             return copy;
@@ -141,13 +139,13 @@ class MappedArrayOfBooleans extends ArrayBase<Boolean> {
     @Override()
     public final Array<Boolean> copy(int[] indexes) {
         try {
-            var newFile = MappedArrayConstructor.randomFile(true);
+            var newFile = MappedFile.temporary();
             var defaultShort = defaultValue ? (short)1 : (short)0;
-            var copy = new MappedArrayOfBooleans(indexes.length, defaultValue, newFile);
+            var copy = new MappedArrayOfBooleans(indexes.length, defaultValue, newFile, null);
             for (int i=0; i<indexes.length; ++i) {
-                var value = buffer.get(indexes[i]);
+                var value = segments.getShort(indexes[i]);
                 if (value != defaultShort) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putShort(i, value);
                 }
             }
             return copy;
@@ -160,13 +158,13 @@ class MappedArrayOfBooleans extends ArrayBase<Boolean> {
     @Override
     public Array<Boolean> copy(Array<Integer> indexes) {
         try {
-            var newFile = MappedArrayConstructor.randomFile(true);
+            var newFile = MappedFile.temporary();
             var defaultShort = defaultValue ? (short)1 : (short)0;
-            var copy = new MappedArrayOfBooleans(indexes.length(), defaultValue, newFile);
+            var copy = new MappedArrayOfBooleans(indexes.length(), defaultValue, newFile, null);
             for (int i=0; i<indexes.length(); ++i) {
-                var value = buffer.get(indexes.getInt(i));
+                var value = segments.getShort(indexes.getInt(i));
                 if (value != defaultShort) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putShort(i, value);
                 }
             }
             return copy;
@@ -180,13 +178,13 @@ class MappedArrayOfBooleans extends ArrayBase<Boolean> {
     public final Array<Boolean> copy(int start, int end) {
         try {
             final int newLength = end - start;
-            final File newFile = MappedArrayConstructor.randomFile(true);
+            final MappedFile newFile = MappedFile.temporary();
             final short defaultShort = defaultValue ? (short)1 : (short)0;
-            final MappedArrayOfBooleans copy = new MappedArrayOfBooleans(newLength, defaultValue, newFile);
+            final MappedArrayOfBooleans copy = new MappedArrayOfBooleans(newLength, defaultValue, newFile, null);
             for (int i=0; i<newLength; ++i) {
-                final short value = buffer.get(start + i);
+                final short value = segments.getShort(start + i);
                 if (value != defaultShort) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putShort(i, value);
                 }
             }
             return copy;
@@ -199,8 +197,8 @@ class MappedArrayOfBooleans extends ArrayBase<Boolean> {
     @Override
     protected final Array<Boolean> sort(int start, int end, int multiplier) {
         return doSort(start, end, (i, j) -> {
-            final boolean v1 = buffer.get(i) == 1;
-            final boolean v2 = buffer.get(j) == 1;
+            final boolean v1 = segments.getShort(i) == 1;
+            final boolean v2 = segments.getShort(j) == 1;
             return multiplier * Boolean.compare(v1, v2);
         });
     }
@@ -208,18 +206,18 @@ class MappedArrayOfBooleans extends ArrayBase<Boolean> {
 
     @Override
     public final int compare(int i, int j) {
-        final boolean v1 = buffer.get(i) == 1;
-        final boolean v2 = buffer.get(j) == 1;
+        final boolean v1 = segments.getShort(i) == 1;
+        final boolean v2 = segments.getShort(j) == 1;
         return Boolean.compare(v1, v2);
     }
 
 
     @Override
     public final Array<Boolean> swap(int i, int j) {
-        final short v1 = buffer.get(i);
-        final short v2 = buffer.get(j);
-        this.buffer.put(j, v1);
-        this.buffer.put(i, v2);
+        final short v1 = segments.getShort(i);
+        final short v2 = segments.getShort(j);
+        this.segments.putShort(j, v1);
+        this.segments.putShort(i, v2);
         return this;
     }
 
@@ -269,13 +267,13 @@ class MappedArrayOfBooleans extends ArrayBase<Boolean> {
     public final Array<Boolean> expand(int newLength) {
         try {
             if (newLength > length) {
-                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * newLength).asShortBuffer();
+                this.segments.resize(newLength);
                 this.fill(defaultValue, length, newLength);
                 this.length = newLength;
             }
             return this;
         } catch (Exception ex) {
-            throw new ArrayException("Failed to expand size of memory mapped array at " + file.getAbsolutePath(), ex);
+            throw new ArrayException("Failed to expand size of memory mapped array in " + segments.file(), ex);
         }
     }
 
@@ -285,7 +283,7 @@ class MappedArrayOfBooleans extends ArrayBase<Boolean> {
         final boolean fillValue = value == null ? defaultValue : value;
         final short fillShort = fillValue ? (short)1 : (short)0;
         for (int i=start; i<end; ++i) {
-            this.buffer.put(i, fillShort);
+            this.segments.putShort(i, fillShort);
         }
         return this;
     }
@@ -306,14 +304,14 @@ class MappedArrayOfBooleans extends ArrayBase<Boolean> {
     @Override
     public final boolean getBoolean(int index) {
         this.checkBounds(index, length);
-        return this.buffer.get(index) == 1;
+        return this.segments.getShort(index) == 1;
     }
 
 
     @Override
     public final Boolean getValue(int index) {
         this.checkBounds(index, length);
-        return this.buffer.get(index) == 1 ? Boolean.TRUE : Boolean.FALSE;
+        return this.segments.getShort(index) == 1 ? Boolean.TRUE : Boolean.FALSE;
     }
 
 
@@ -321,7 +319,7 @@ class MappedArrayOfBooleans extends ArrayBase<Boolean> {
     public final boolean setBoolean(int index, boolean value) {
         this.checkBounds(index, length);
         final boolean oldValue = getBoolean(index);
-        this.buffer.put(index, value ? (short)1 : (short)0);
+        this.segments.putShort(index, value ? (short)1 : (short)0);
         return oldValue;
     }
 
@@ -330,10 +328,10 @@ class MappedArrayOfBooleans extends ArrayBase<Boolean> {
     public final Boolean setValue(int index, Boolean value) {
         final boolean oldValue = getBoolean(index);
         if (value == null) {
-            this.buffer.put(index, defaultValue ? (short)1 : (short)0);
+            this.segments.putShort(index, defaultValue ? (short)1 : (short)0);
             return oldValue;
         } else {
-            this.buffer.put(index, value ? (short)1 : (short)0);
+            this.segments.putShort(index, value ? (short)1 : (short)0);
             return oldValue;
         }
     }
@@ -406,11 +404,10 @@ class MappedArrayOfBooleans extends ArrayBase<Boolean> {
     @SuppressWarnings("unchecked")
     /** Custom serialization */
     private void readObject(ObjectInputStream is) throws IOException, ClassNotFoundException {
-        this.file = MappedArrayConstructor.randomFile(true);
         this.length = is.readInt();
         this.defaultValue = is.readBoolean();
-        this.channel = new RandomAccessFile(file, "rw").getChannel();
-        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * length).asShortBuffer();
+        this.segments = MappedFile.temporary().segments(null, type(), (int)BYTE_COUNT);
+        this.segments.resize(length);
         for (int i=0; i<length; ++i) {
             final boolean value = is.readBoolean();
             this.setBoolean(i, value);
@@ -15,13 +15,9 @@
  */
 package com.d3x.morpheus.array.mapped;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.io.RandomAccessFile;
-import java.nio.DoubleBuffer;
-import java.nio.channels.FileChannel;
 import java.util.function.Predicate;
 
 import gnu.trove.set.TDoubleSet;
@@ -34,6 +30,7 @@ import com.d3x.morpheus.array.ArrayCursor;
 import com.d3x.morpheus.array.ArrayException;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * An Array implementation designed to represent a dense array of double values in a memory-mapped file.
@@ -46,29 +43,26 @@ class MappedArrayOfDoubles extends ArrayBase<Double> {
 
     private static final long BYTE_COUNT = 8L;
 
-    private File file;
     private int length;
     private double defaultValue;
-    private FileChannel channel;
-    private DoubleBuffer buffer;
+    private MappedSegments segments;
 
     /**
      * Constructor
      * @param length        the length of the array
      * @param defaultValue  the default value for array
-     * @param file          the memory mapped file reference
+     * @param file          the mapped file to host the array
+     * @param name          the name of the array in the file, null for an unnamed array
      */
-    MappedArrayOfDoubles(int length, Double defaultValue, File file) {
+    MappedArrayOfDoubles(int length, Double defaultValue, MappedFile file, String name) {
         super(Double.class, ArrayStyle.MAPPED, false);
         try {
-            this.file = file;
-            this.length = length;
             this.defaultValue = defaultValue == null ? Double.NaN : defaultValue;
-            this.channel = new RandomAccessFile(file, "rw").getChannel();
-            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * length).asDoubleBuffer();
-            this.fill(defaultValue);
+            this.segments = file.segments(name, type(), (int)BYTE_COUNT);
+            this.length = segments.length();
+            this.expand(length);
         } catch (Exception ex) {
-            throw new ArrayException("Failed to initialise memory mapped array on file: " + file.getAbsolutePath(), ex);
+            throw new ArrayException("Failed to initialise memory mapped array in " + file, ex);
         }
     }
 
@@ -79,20 +73,9 @@ class MappedArrayOfDoubles extends ArrayBase<Double> {
      */
     private MappedArrayOfDoubles(MappedArrayOfDoubles source, boolean parallel) {
         super(source.type(), ArrayStyle.MAPPED, parallel);
-        this.file = source.file;
         this.length = source.length;
         this.defaultValue = source.defaultValue;
-        this.channel = source.channel;
-        this.buffer = source.buffer;
-    }
-
-
-    /**
-     * Returns the file handle for this memory mapped array
-     * @return      the file handle for memory mapped array
-     */
-    File getFile() {
-        return file;
+        this.segments = source.segments;
     }
 
 
@@ -108,6 +91,12 @@ class MappedArrayOfDoubles extends ArrayBase<Double> {
     }
 
 
+    @Override
+    public long retainedBytes() {
+        return MemoryLayout.shallow(5, 13) + MemoryLayout.MAPPED_BUFFER_BYTES;
+    }
+
+
     @Override
     public final Double defaultValue() {
         return defaultValue;
@@ -129,11 +118,11 @@ class MappedArrayOfDoubles extends ArrayBase<Double> {
     @Override()
     public final Array<Double> copy() {
         try {
-            final File newFile = MappedArrayConstructor.randomFile(true);
-            final MappedArrayOfDoubles copy = new MappedArrayOfDoubles(length, defaultValue, newFile);
+            final MappedFile newFile = MappedFile.temporary();
+            final MappedArrayOfDoubles copy = new MappedArrayOfDoubles(length, defaultValue, newFile, null);
             for (int i=0; i<length; ++i) {
-                final double v = buffer.get(i);
-                copy.buffer.put(i, v);
+                final double v = segments.getDouble(i);
+                copy.segments.putDouble(i, v);
             }
             return copy;
         } catch (Exception ex) {
@@ -145,12 +134,12 @@ class MappedArrayOfDoubles extends ArrayBase<Double> {
     @Override()
     public final Array<Double> copy(int[] indexes) {
         try {
-            var newFile = MappedArrayConstructor.randomFile(true);
-            var copy = new MappedArrayOfDoubles(indexes.length, defaultValue, newFile);
+            var newFile = MappedFile.temporary();
+            var copy = new MappedArrayOfDoubles(indexes.length, defaultValue, newFile, null);
             for (int i=0; i<indexes.length; ++i) {
                 var value = getDouble(indexes[i]);
                 if (Double.compare(value, defaultValue) != 0) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putDouble(i, value);
                 }
             }
             return copy;
@@ -163,12 +152,12 @@ class MappedArrayOfDoubles extends ArrayBase<Double> {
     @Override
     public Array<Double> copy(Array<Integer> indexes) {
         try {
-            var newFile = MappedArrayConstructor.randomFile(true);
-            var copy = new MappedArrayOfDoubles(indexes.length(), defaultValue, newFile);
+            var newFile = MappedFile.temporary();
+            var copy = new MappedArrayOfDoubles(indexes.length(), defaultValue, newFile, null);
             for (int i=0; i<indexes.length(); ++i) {
                 var value = getDouble(indexes.getInt(i));
                 if (Double.compare(value, defaultValue) != 0) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putDouble(i, value);
                 }
             }
             return copy;
@@ -182,12 +171,12 @@ class MappedArrayOfDoubles extends ArrayBase<Double> {
     public final Array<Double> copy(int start, int end) {
         try {
             final int newLength = end - start;
-            final File newFile = MappedArrayConstructor.randomFile(true);
-            final MappedArrayOfDoubles copy = new MappedArrayOfDoubles(newLength, defaultValue, newFile);
+            final MappedFile newFile = MappedFile.temporary();
+            final MappedArrayOfDoubles copy = new MappedArrayOfDoubles(newLength, defaultValue, newFile, null);
             for (int i=0; i<newLength; ++i) {
-                final double value = buffer.get(start + i);
+                final double value = segments.getDouble(start + i);
                 if (Double.compare(value, defaultValue) != 0) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putDouble(i, value);
                 }
             }
             return copy;
@@ -270,13 +259,13 @@ class MappedArrayOfDoubles extends ArrayBase<Double> {
     public final Array<Double> expand(int newLength) {
         try {
             if (newLength > length) {
-                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * newLength).asDoubleBuffer();
+                this.segments.resize(newLength);
                 this.fill(defaultValue, length, newLength);
                 this.length = newLength;
             }
             return this;
         } catch (Exception ex) {
-            throw new ArrayException("Failed to expand size of memory mapped array at " + file.getAbsolutePath(), ex);
+            throw new ArrayException("Failed to expand size of memory mapped array in " + segments.file(), ex);
         }
     }
 
@@ -285,7 +274,7 @@ class MappedArrayOfDoubles extends ArrayBase<Double> {
     public final Array<Double> fill(Double value, int start, int end) {
         final double fillValue = value == null ? defaultValue : value;
         for (int i=start; i<end; ++i) {
-            this.buffer.put(i, fillValue);
+            this.segments.putDouble(i, fillValue);
         }
         return this;
     }
@@ -306,22 +295,22 @@ class MappedArrayOfDoubles extends ArrayBase<Double> {
     @Override
     public final double getDouble(int index) {
         this.checkBounds(index, length);
-        return buffer.get(index);
+        return segments.getDouble(index);
     }
 
 
     @Override
     public final Double getValue(int index) {
         this.checkBounds(index, length);
-        return buffer.get(index);
+        return segments.getDouble(index);
     }
 
 
     @Override
     public final double setDouble(int index, double value) {
         this.checkBounds(index, length);
-        final double oldValue = buffer.get(index);
-        this.buffer.put(index, value);
+        final double oldValue = segments.getDouble(index);
+        this.segments.putDouble(index, value);
         return oldValue;
     }
 
@@ -330,7 +319,7 @@ class MappedArrayOfDoubles extends ArrayBase<Double> {
     public final Double setValue(int index, Double value) {
         this.checkBounds(index, length);
         final Double oldValue = getValue(index);
-        this.buffer.put(index, value != null ? value : defaultValue);
+        this.segments.putDouble(index, value != null ? value : defaultValue);
         return oldValue;
     }
 
@@ -342,7 +331,7 @@ class MappedArrayOfDoubles extends ArrayBase<Double> {
             int high = end - 1;
             while (low <= high) {
                 final int midIndex = (low + high) >>> 1;
-                final double midValue = buffer.get(midIndex);
+                final double midValue = segments.getDouble(midIndex);
                 final int result = Double.compare(midValue, value);
                 if (result < 0) {
                     low = midIndex + 1;
@@ -384,7 +373,7 @@ class MappedArrayOfDoubles extends ArrayBase<Double> {
         result.setDouble(0, getDouble(0));
         for (int i=1; i<length; ++i) {
             final double prior = result.getDouble(i-1);
-            final double current = buffer.get(i);
+            final double current = segments.getDouble(i);
             if (Double.isNaN(prior)) {
                 result.setDouble(i, current);
             } else if (Double.isNaN(current)) {
@@ -428,11 +417,10 @@ class MappedArrayOfDoubles extends ArrayBase<Double> {
     @SuppressWarnings("unchecked")
     /** Custom serialization */
     private void readObject(ObjectInputStream is) throws IOException, ClassNotFoundException {
-        this.file = MappedArrayConstructor.randomFile(true);
         this.length = is.readInt();
         this.defaultValue = is.readDouble();
-        this.channel = new RandomAccessFile(file, "rw").getChannel();
-        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * length).asDoubleBuffer();
+        this.segments = MappedFile.temporary().segments(null, type(), (int)BYTE_COUNT);
+        this.segments.resize(length);
         for (int i=0; i<length; ++i) {
             final double value = is.readDouble();
             this.setDouble(i, value);
@@ -15,13 +15,9 @@
  */
 package com.d3x.morpheus.array.mapped;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.io.RandomAccessFile;
-import java.nio.IntBuffer;
-import java.nio.channels.FileChannel;
 import java.util.function.Predicate;
 
 import gnu.trove.set.TIntSet;
@@ -34,6 +30,7 @@ import com.d3x.morpheus.array.ArrayCursor;
 import com.d3x.morpheus.array.ArrayException;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * An Array implementation designed to represent a dense array of int values in a memory-mapped file.
@@ -46,29 +43,26 @@ class MappedArrayOfInts extends ArrayBase<Integer> {
 
     private static final long BYTE_COUNT = 4L;
 
-    private File file;
     private int length;
     private int defaultValue;
-    private FileChannel channel;
-    private IntBuffer buffer;
+    private MappedSegments segments;
 
     /**
      * Constructor
      * @param length        the length of the array
      * @param defaultValue  the default value for array
-     * @param file          the memory mapped file reference
+     * @param file          the mapped file to host the array
+     * @param name          the name of the array in the file, null for an unnamed array
      */
-    MappedArrayOfInts(int length, Integer defaultValue, File file) {
+    MappedArrayOfInts(int length, Integer defaultValue, MappedFile file, String name) {
         super(Integer.class, ArrayStyle.MAPPED, false);
         try {
-            this.file = file;
-            this.length = length;
             this.defaultValue = defaultValue == null ? 0 : defaultValue;
-            this.channel = new RandomAccessFile(file, "rw").getChannel();
-            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * length).asIntBuffer();
-            this.fill(defaultValue);
+            this.segments = file.segments(name, type(), (int)BYTE_COUNT);
+            this.length = segments.length();
+            this.expand(length);
         } catch (Exception ex) {
-            throw new ArrayException("Failed to initialise memory mapped array on file: " + file.getAbsolutePath(), ex);
+            throw new ArrayException("Failed to initialise memory mapped array in " + file, ex);
         }
     }
 
@@ -79,22 +73,11 @@ class MappedArrayOfInts extends ArrayBase<Integer> {
      */
     private MappedArrayOfInts(MappedArrayOfInts source, boolean parallel) {
         super(source.type(), ArrayStyle.MAPPED, parallel);
-        this.file = source.file;
         this.length = source.length;
         this.defaultValue = source.defaultValue;
-        this.channel = source.channel;
-        this.buffer = source.buffer;
+        this.segments = source.segments;
     }
 
-    /**
-     * Returns the file handle for this memory mapped array
-     * @return      the file handle for memory mapped array
-     */
-    File getFile() {
-        return file;
-    }
-
-
     @Override
     public final int length() {
         return length;
@@ -107,6 +90,12 @@ class MappedArrayOfInts extends ArrayBase<Integer> {
     }
 
 
+    @Override
+    public long retainedBytes() {
+        return MemoryLayout.shallow(5, 9) + MemoryLayout.MAPPED_BUFFER_BYTES;
+    }
+
+
     @Override
     public final Integer defaultValue() {
         return defaultValue;
@@ -128,11 +117,11 @@ class MappedArrayOfInts extends ArrayBase<Integer> {
     @Override()
     public final Array<Integer> copy() {
         try {
-            final File newFile = MappedArrayConstructor.randomFile(true);
-            final MappedArrayOfInts copy = new MappedArrayOfInts(length, defaultValue, newFile);
+            final MappedFile newFile = MappedFile.temporary();
+            final MappedArrayOfInts copy = new MappedArrayOfInts(length, defaultValue, newFile, null);
             for (int i=0; i<length; ++i) {
                 var v = getInt(i);
-                copy.buffer.put(i, v);
+                copy.segments.putInt(i, v);
             }
             return copy;
         } catch (Exception ex) {
@@ -144,12 +133,12 @@ class MappedArrayOfInts extends ArrayBase<Integer> {
     @Override()
     public final Array<Integer> copy(int[] indexes) {
         try {
-            var newFile = MappedArrayConstructor.randomFile(true);
-            var copy = new MappedArrayOfInts(indexes.length, defaultValue, newFile);
+            var newFile = MappedFile.temporary();
+            var copy = new MappedArrayOfInts(indexes.length, defaultValue, newFile, null);
             for (int i=0; i<indexes.length; ++i) {
                 var value = getInt(indexes[i]);
                 if (value != defaultValue) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putInt(i, value);
                 }
             }
             return copy;
@@ -162,12 +151,12 @@ class MappedArrayOfInts extends ArrayBase<Integer> {
     @Override
     public Array<Integer> copy(Array<Integer> indexes) {
         try {
-            var newFile = MappedArrayConstructor.randomFile(true);
-            var copy = new MappedArrayOfInts(indexes.length(), defaultValue, newFile);
+            var newFile = MappedFile.temporary();
+            var copy = new MappedArrayOfInts(indexes.length(), defaultValue, newFile, null);
             for (int i=0; i<indexes.length(); ++i) {
                 var value = getInt(indexes.getInt(i));
                 if (value != defaultValue) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putInt(i, value);
                 }
             }
             return copy;
@@ -181,12 +170,12 @@ class MappedArrayOfInts extends ArrayBase<Integer> {
     public final Array<Integer> copy(int start, int end) {
         try {
             var newLength = end - start;
-            final File newFile = MappedArrayConstructor.randomFile(true);
-            final MappedArrayOfInts copy = new MappedArrayOfInts(newLength, defaultValue, newFile);
+            final MappedFile newFile = MappedFile.temporary();
+            final MappedArrayOfInts copy = new MappedArrayOfInts(newLength, defaultValue, newFile, null);
             for (int i=0; i<newLength; ++i) {
-                var value = buffer.get(start + i);
+                var value = segments.getInt(start + i);
                 if (Integer.compare(value, defaultValue) != 0) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putInt(i, value);
                 }
             }
             return copy;
@@ -269,13 +258,13 @@ class MappedArrayOfInts extends ArrayBase<Integer> {
     public final Array<Integer> expand(int newLength) {
         try {
             if (newLength > length) {
-                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * newLength).asIntBuffer();
+                this.segments.resize(newLength);
                 this.fill(defaultValue, length, newLength);
                 this.length = newLength;
             }
             return this;
         } catch (Exception ex) {
-            throw new ArrayException("Failed to expand size of memory mapped array at " + file.getAbsolutePath(), ex);
+            throw new ArrayException("Failed to expand size of memory mapped array in " + segments.file(), ex);
         }
     }
 
@@ -284,7 +273,7 @@ class MappedArrayOfInts extends ArrayBase<Integer> {
     public final Array<Integer> fill(Integer value, int start, int end) {
         var fillValue = value == null ? defaultValue : value;
         for (int i=start; i<end; ++i) {
-            this.buffer.put(i, fillValue);
+            this.segments.putInt(i, fillValue);
         }
         return this;
     }
@@ -298,43 +287,43 @@ class MappedArrayOfInts extends ArrayBase<Integer> {
 
     @Override
     public final boolean isEqualTo(int index, Integer value) {
-        return value != null && value == buffer.get(index);
+        return value != null && value == segments.getInt(index);
     }
 
 
     @Override
     public final int getInt(int index) {
         this.checkBounds(index, length);
-        return buffer.get(index);
+        return segments.getInt(index);
     }
 
 
     @Override
     public final long getLong(int index) {
         this.checkBounds(index, length);
-        return buffer.get(index);
+        return segments.getInt(index);
     }
 
 
     @Override
     public final double getDouble(int index) {
         this.checkBounds(index, length);
-        return buffer.get(index);
+        return segments.getInt(index);
     }
 
 
     @Override
     public final Integer getValue(int index) {
         this.checkBounds(index, length);
-        return buffer.get(index);
+        return segments.getInt(index);
     }
 
 
     @Override
     public final int setInt(int index, int value) {
         this.checkBounds(index, length);
-        var oldValue = buffer.get(index);
-        this.buffer.put(index, value);
+        var oldValue = segments.getInt(index);
+        this.segments.putInt(index, value);
         return oldValue;
     }
 
@@ -342,7 +331,7 @@ class MappedArrayOfInts extends ArrayBase<Integer> {
     @Override
     public final Integer setValue(int index, Integer value) {
         var oldValue = getValue(index);
-        this.buffer.put(index, value != null ? value : defaultValue);
+        this.segments.putInt(index, value != null ? value : defaultValue);
         return oldValue;
     }
 
@@ -354,7 +343,7 @@ class MappedArrayOfInts extends ArrayBase<Integer> {
             int high = end - 1;
             while (low <= high) {
                 var midIndex = (low + high) >>> 1;
-                var midValue = buffer.get(midIndex);
+                var midValue = segments.getInt(midIndex);
                 var result = Integer.compare(midValue, value);
                 if (result < 0) {
                     low = midIndex + 1;
@@ -393,10 +382,10 @@ class MappedArrayOfInts extends ArrayBase<Integer> {
     public final Array<Integer> cumSum() {
         var length = length();
         final Array<Integer> result = Array.of(Integer.class, length);
-        result.setInt(0, buffer.get(0));
+        result.setInt(0, segments.getInt(0));
         for (int i=1; i<length; ++i) {
             var prior = result.getInt(i-1);
-            var current = buffer.get(i);
+            var current = segments.getInt(i);
             result.setInt(i, prior + current);
         }
         return result;
@@ -436,9 +425,8 @@ class MappedArrayOfInts extends ArrayBase<Integer> {
     private void readObject(ObjectInputStream is) throws IOException, ClassNotFoundException {
         this.length = is.readInt();
         this.defaultValue = is.readInt();
-        this.file = MappedArrayConstructor.randomFile(true);
-        this.channel = new RandomAccessFile(file, "rw").getChannel();
-        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * length).asIntBuffer();
+        this.segments = MappedFile.temporary().segments(null, type(), (int)BYTE_COUNT);
+        this.segments.resize(length);
         for (int i=0; i<length; ++i) {
             var value = is.readInt();
             this.setInt(i, value);
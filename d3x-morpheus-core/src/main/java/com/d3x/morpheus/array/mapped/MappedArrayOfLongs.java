@@ -15,13 +15,9 @@
  */
 package com.d3x.morpheus.array.mapped;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.io.RandomAccessFile;
-import java.nio.LongBuffer;
-import java.nio.channels.FileChannel;
 import java.util.function.Predicate;
 
 import gnu.trove.set.TLongSet;
@@ -34,6 +30,7 @@ import com.d3x.morpheus.array.ArrayCursor;
 import com.d3x.morpheus.array.ArrayException;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * An Array implementation designed to represent a dense array of int values in a memory-mapped file.
@@ -46,29 +43,26 @@ class MappedArrayOfLongs extends ArrayBase<Long> {
 
     private static final long BYTE_COUNT = 8L;
 
-    private File file;
     private int length;
     private long defaultValue;
-    private FileChannel channel;
-    private LongBuffer buffer;
+    private MappedSegments segments;
 
     /**
      * Constructor
      * @param length        the length of the array
      * @param defaultValue  the default value for array
-     * @param file          the memory mapped file reference
+     * @param file          the mapped file to host the array
+     * @param name          the name of the array in the file, null for an unnamed array
      */
-    MappedArrayOfLongs(int length, Long defaultValue, File file) {
+    MappedArrayOfLongs(int length, Long defaultValue, MappedFile file, String name) {
         super(Long.class, ArrayStyle.MAPPED, false);
         try {
-            this.file = file;
-            this.length = length;
             this.defaultValue = defaultValue == null ? 0 : defaultValue;
-            this.channel = new RandomAccessFile(file, "rw").getChannel();
-            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * length).asLongBuffer();
-            this.fill(defaultValue);
+            this.segments = file.segments(name, type(), (int)BYTE_COUNT);
+            this.length = segments.length();
+            this.expand(length);
         } catch (Exception ex) {
-            throw new ArrayException("Failed to initialise memory mapped array on file: " + file.getAbsolutePath(), ex);
+            throw new ArrayException("Failed to initialise memory mapped array in " + file, ex);
         }
     }
 
@@ -79,22 +73,11 @@ class MappedArrayOfLongs extends ArrayBase<Long> {
      */
     private MappedArrayOfLongs(MappedArrayOfLongs source, boolean parallel) {
         super(source.type(), ArrayStyle.MAPPED, parallel);
-        this.file = source.file;
         this.length = source.length;
         this.defaultValue = source.defaultValue;
-        this.channel = source.channel;
-        this.buffer = source.buffer;
+        this.segments = source.segments;
     }
 
-    /**
-     * Returns the file handle for this memory mapped array
-     * @return      the file handle for memory mapped array
-     */
-    File getFile() {
-        return file;
-    }
-
-
     @Override
     public final int length() {
         return length;
@@ -107,6 +90,12 @@ class MappedArrayOfLongs extends ArrayBase<Long> {
     }
 
 
+    @Override
+    public long retainedBytes() {
+        return MemoryLayout.shallow(5, 13) + MemoryLayout.MAPPED_BUFFER_BYTES;
+    }
+
+
     @Override
     public final Long defaultValue() {
         return defaultValue;
@@ -128,11 +117,11 @@ class MappedArrayOfLongs extends ArrayBase<Long> {
     @Override()
     public final Array<Long> copy() {
         try {
-            final File newFile = MappedArrayConstructor.randomFile(true);
-            final MappedArrayOfLongs copy = new MappedArrayOfLongs(length, defaultValue, newFile);
+            final MappedFile newFile = MappedFile.temporary();
+            final MappedArrayOfLongs copy = new MappedArrayOfLongs(length, defaultValue, newFile, null);
             for (int i=0; i<length; ++i) {
                 final long v = getLong(i);
-                copy.buffer.put(i, v);
+                copy.segments.putLong(i, v);
             }
             return copy;
         } catch (Exception ex) {
@@ -144,12 +133,12 @@ class MappedArrayOfLongs extends ArrayBase<Long> {
     @Override()
     public final Array<Long> copy(int[] indexes) {
         try {
-            var newFile = MappedArrayConstructor.randomFile(true);
-            var copy = new MappedArrayOfLongs(indexes.length, defaultValue, newFile);
+            var newFile = MappedFile.temporary();
+            var copy = new MappedArrayOfLongs(indexes.length, defaultValue, newFile, null);
             for (int i=0; i<indexes.length; ++i) {
                 final long value = getLong(indexes[i]);
                 if (value != defaultValue) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putLong(i, value);
                 }
             }
             return copy;
@@ -162,12 +151,12 @@ class MappedArrayOfLongs extends ArrayBase<Long> {
     @Override
     public Array<Long> copy(Array<Integer> indexes) {
         try {
-            var newFile = MappedArrayConstructor.randomFile(true);
-            var copy = new MappedArrayOfLongs(indexes.length(), defaultValue, newFile);
+            var newFile = MappedFile.temporary();
+            var copy = new MappedArrayOfLongs(indexes.length(), defaultValue, newFile, null);
             for (int i=0; i<indexes.length(); ++i) {
                 final long value = getLong(indexes.getInt(i));
                 if (value != defaultValue) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putLong(i, value);
                 }
             }
             return copy;
@@ -181,12 +170,12 @@ class MappedArrayOfLongs extends ArrayBase<Long> {
     public final Array<Long> copy(int start, int end) {
         try {
             var newLength = end - start;
-            final File newFile = MappedArrayConstructor.randomFile(true);
-            final MappedArrayOfLongs copy = new MappedArrayOfLongs(newLength, defaultValue, newFile);
+            final MappedFile newFile = MappedFile.temporary();
+            final MappedArrayOfLongs copy = new MappedArrayOfLongs(newLength, defaultValue, newFile, null);
             for (int i=0; i<newLength; ++i) {
-                final long value = buffer.get(start + i);
+                final long value = segments.getLong(start + i);
                 if (Long.compare(value, defaultValue) != 0) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putLong(i, value);
                 }
             }
             return copy;
@@ -269,13 +258,13 @@ class MappedArrayOfLongs extends ArrayBase<Long> {
     public final Array<Long> expand(int newLength) {
         try {
             if (newLength > length) {
-                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * newLength).asLongBuffer();
+                this.segments.resize(newLength);
                 this.fill(defaultValue, length, newLength);
                 this.length = newLength;
             }
             return this;
         } catch (Exception ex) {
-            throw new ArrayException("Failed to expand size of memory mapped array at " + file.getAbsolutePath(), ex);
+            throw new ArrayException("Failed to expand size of memory mapped array in " + segments.file(), ex);
         }
     }
 
@@ -284,7 +273,7 @@ class MappedArrayOfLongs extends ArrayBase<Long> {
     public final Array<Long> fill(Long value, int start, int end) {
         final long fillValue = value == null ? defaultValue : value;
         for (int i=start; i<end; ++i) {
-            this.buffer.put(i, fillValue);
+            this.segments.putLong(i, fillValue);
         }
         return this;
     }
@@ -298,36 +287,36 @@ class MappedArrayOfLongs extends ArrayBase<Long> {
 
     @Override
     public final boolean isEqualTo(int index, Long value) {
-        return value != null && value == buffer.get(index);
+        return value != null && value == segments.getLong(index);
     }
 
 
     @Override
     public final long getLong(int index) {
         this.checkBounds(index, length);
-        return buffer.get(index);
+        return segments.getLong(index);
     }
 
 
     @Override
     public final double getDouble(int index) {
         this.checkBounds(index, length);
-        return buffer.get(index);
+        return segments.getLong(index);
     }
 
 
     @Override
     public final Long getValue(int index) {
         this.checkBounds(index, length);
-        return buffer.get(index);
+        return segments.getLong(index);
     }
 
 
     @Override
     public final long setLong(int index, long value) {
         this.checkBounds(index, length);
-        final long oldValue = buffer.get(index);
-        this.buffer.put(index, value);
+        final long oldValue = segments.getLong(index);
+        this.segments.putLong(index, value);
         return oldValue;
     }
 
@@ -336,7 +325,7 @@ class MappedArrayOfLongs extends ArrayBase<Long> {
     public final Long setValue(int index, Long value) {
         this.checkBounds(index, length);
         final Long oldValue = getValue(index);
-        this.buffer.put(index, value != null ? value : defaultValue);
+        this.segments.putLong(index, value != null ? value : defaultValue);
         return oldValue;
     }
 
@@ -348,7 +337,7 @@ class MappedArrayOfLongs extends ArrayBase<Long> {
             int high = end - 1;
             while (low <= high) {
                 var midIndex = (low + high) >>> 1;
-                final long midValue = buffer.get(midIndex);
+                final long midValue = segments.getLong(midIndex);
                 var result = Long.compare(midValue, value);
                 if (result < 0) {
                     low = midIndex + 1;
@@ -387,10 +376,10 @@ class MappedArrayOfLongs extends ArrayBase<Long> {
     public final Array<Long> cumSum() {
         var length = length();
         final Array<Long> result = Array.of(Long.class, length);
-        result.setLong(0, buffer.get(0));
+        result.setLong(0, segments.getLong(0));
         for (int i=1; i<length; ++i) {
             final long prior = result.getLong(i-1);
-            final long current = buffer.get(i);
+            final long current = segments.getLong(i);
             result.setLong(i, prior + current);
         }
         return result;
@@ -428,11 +417,10 @@ class MappedArrayOfLongs extends ArrayBase<Long> {
     @SuppressWarnings("unchecked")
     /** Custom serialization */
     private void readObject(ObjectInputStream is) throws IOException, ClassNotFoundException {
-        this.file = MappedArrayConstructor.randomFile(true);
         this.length = is.readInt();
         this.defaultValue = is.readLong();
-        this.channel = new RandomAccessFile(file, "rw").getChannel();
-        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * length).asLongBuffer();
+        this.segments = MappedFile.temporary().segments(null, type(), (int)BYTE_COUNT);
+        this.segments.resize(length);
         for (int i=0; i<length; ++i) {
             final long value = is.readLong();
             this.setLong(i, value);
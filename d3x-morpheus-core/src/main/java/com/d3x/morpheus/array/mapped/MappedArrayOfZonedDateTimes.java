@@ -38,6 +38,7 @@ import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBase;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * An Array implementation containing mapped ZonedDateTime values stored as a longs of Epoch Millis.
@@ -135,6 +136,12 @@ class MappedArrayOfZonedDateTimes extends ArrayBase<ZonedDateTime> {
     }
 
 
+    @Override
+    public long retainedBytes() {
+        return MemoryLayout.shallow(6, 15) + MemoryLayout.MAPPED_BUFFER_BYTES;
+    }
+
+
     @Override
     public final ZonedDateTime defaultValue() {
         return defaultValue;
@@ -15,13 +15,9 @@
  */
 package com.d3x.morpheus.array.mapped;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.io.RandomAccessFile;
-import java.nio.IntBuffer;
-import java.nio.channels.FileChannel;
 import java.util.function.Predicate;
 
 import gnu.trove.set.TIntSet;
@@ -36,6 +32,7 @@ import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
 import com.d3x.morpheus.array.coding.IntCoding;
 import com.d3x.morpheus.array.coding.WithIntCoding;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * A dense array implementation that maintains a primitive int array of codes that map to Object values exposed through the IntCoding interface.
@@ -50,34 +47,31 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
 
     private static final long BYTE_COUNT = 4L;
 
-    private File file;
     private int length;
     private T defaultValue;
     private int defaultCode;
     private IntCoding<T> coding;
-    private FileChannel channel;
-    private IntBuffer buffer;
+    private MappedSegments segments;
 
     /**
      * Constructor
      * @param length        the length for this array
      * @param defaultValue  the default value for array
      * @param coding        the coding for this array
-     * @param file          the memory mapped file reference
+     * @param file          the mapped file to host the array
+     * @param name          the name of the array in the file, null for an unnamed array
      */
-    MappedArrayWithIntCoding(int length, T defaultValue, IntCoding<T> coding, File file) {
+    MappedArrayWithIntCoding(int length, T defaultValue, IntCoding<T> coding, MappedFile file, String name) {
         super(coding.getType(), ArrayStyle.MAPPED, false);
         try {
-            this.file = file;
-            this.length = length;
             this.coding = coding;
             this.defaultValue = defaultValue;
             this.defaultCode = coding.getCode(defaultValue);
-            this.channel = new RandomAccessFile(file, "rw").getChannel();
-            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * length).asIntBuffer();
-            this.fill(defaultValue);
+            this.segments = file.segments(name, type(), (int)BYTE_COUNT);
+            this.length = segments.length();
+            this.expand(length);
         } catch (Exception ex) {
-            throw new ArrayException("Failed to initialise memory mapped array on file: " + file.getAbsolutePath(), ex);
+            throw new ArrayException("Failed to initialise memory mapped array in " + file, ex);
         }
     }
 
@@ -89,13 +83,11 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
      */
     private MappedArrayWithIntCoding(MappedArrayWithIntCoding<T> source, boolean parallel) {
         super(source.type(), ArrayStyle.DENSE, parallel);
-        this.file = source.file;
         this.length = source.length;
         this.coding = source.coding;
         this.defaultValue = source.defaultValue;
         this.defaultCode = source.defaultCode;
-        this.channel = source.channel;
-        this.buffer = source.buffer;
+        this.segments = source.segments;
     }
 
 
@@ -117,6 +109,12 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
     }
 
 
+    @Override
+    public long retainedBytes() {
+        return MemoryLayout.shallow(7, 9) + MemoryLayout.MAPPED_BUFFER_BYTES;
+    }
+
+
     @Override
     public final T defaultValue() {
         return defaultValue;
@@ -139,11 +137,11 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
     @SuppressWarnings("unchecked")
     public final Array<T> copy() {
         try {
-            final File newFile = MappedArrayConstructor.randomFile(true);
-            final MappedArrayWithIntCoding<T> copy = new MappedArrayWithIntCoding<>(length, defaultValue, coding, newFile);
+            final MappedFile newFile = MappedFile.temporary();
+            final MappedArrayWithIntCoding<T> copy = new MappedArrayWithIntCoding<>(length, defaultValue, coding, newFile, null);
             for (int i=0; i<length; ++i) {
-                var v = buffer.get(i);
-                copy.buffer.put(i, v);
+                var v = segments.getInt(i);
+                copy.segments.putInt(i, v);
             }
             return copy;
         } catch (Exception ex) {
@@ -155,12 +153,12 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
     @Override()
     public final Array<T> copy(int[] indexes) {
         try {
-            var newFile = MappedArrayConstructor.randomFile(true);
-            var copy = new MappedArrayWithIntCoding<T>(indexes.length, defaultValue, coding, newFile);
+            var newFile = MappedFile.temporary();
+            var copy = new MappedArrayWithIntCoding<T>(indexes.length, defaultValue, coding, newFile, null);
             for (int i=0; i<indexes.length; ++i) {
-                var value = buffer.get(indexes[i]);
+                var value = segments.getInt(indexes[i]);
                 if (value != defaultCode) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putInt(i, value);
                 }
             }
             return copy;
@@ -173,12 +171,12 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
     @Override
     public Array<T> copy(Array<Integer> indexes) {
         try {
-            var newFile = MappedArrayConstructor.randomFile(true);
-            var copy = new MappedArrayWithIntCoding<T>(indexes.length(), defaultValue, coding, newFile);
+            var newFile = MappedFile.temporary();
+            var copy = new MappedArrayWithIntCoding<T>(indexes.length(), defaultValue, coding, newFile, null);
             for (int i=0; i<indexes.length(); ++i) {
-                var value = buffer.get(indexes.getInt(i));
+                var value = segments.getInt(indexes.getInt(i));
                 if (value != defaultCode) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putInt(i, value);
                 }
             }
             return copy;
@@ -192,12 +190,12 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
     public final Array<T> copy(int start, int end) {
         try {
             var newLength = end - start;
-            final File newFile = MappedArrayConstructor.randomFile(true);
-            final MappedArrayWithIntCoding<T> copy = new MappedArrayWithIntCoding<>(newLength, defaultValue, coding, newFile);
+            final MappedFile newFile = MappedFile.temporary();
+            final MappedArrayWithIntCoding<T> copy = new MappedArrayWithIntCoding<>(newLength, defaultValue, coding, newFile, null);
             for (int i=0; i<newLength; ++i) {
-                var value = buffer.get(start + i);
+                var value = segments.getInt(start + i);
                 if (Integer.compare(value, defaultCode) != 0) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putInt(i, value);
                 }
             }
             return copy;
@@ -210,8 +208,8 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
     @Override
     protected final Array<T> sort(int start, int end, int multiplier) {
         return doSort(start, end, (i, j) -> {
-            var v1 = buffer.get(i);
-            var v2 = buffer.get(j);
+            var v1 = segments.getInt(i);
+            var v2 = segments.getInt(j);
             return multiplier * Integer.compare(v1, v2);
         });
     }
@@ -219,18 +217,18 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
 
     @Override
     public final int compare(int i, int j) {
-        var v1 = buffer.get(i);
-        var v2 = buffer.get(j);
+        var v1 = segments.getInt(i);
+        var v2 = segments.getInt(j);
         return Integer.compare(v1, v2);
     }
 
 
     @Override
     public final Array<T> swap(int i, int j) {
-        var v1 = buffer.get(i);
-        var v2 = buffer.get(j);
-        this.buffer.put(j, v1);
-        this.buffer.put(i, v2);
+        var v1 = segments.getInt(i);
+        var v2 = segments.getInt(j);
+        this.segments.putInt(j, v1);
+        this.segments.putInt(i, v2);
         return this;
     }
 
@@ -271,7 +269,7 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
         if (from instanceof MappedArrayWithIntCoding) {
             final MappedArrayWithIntCoding other = (MappedArrayWithIntCoding) from;
             for (int i = 0; i < length; ++i) {
-                this.buffer.put(toIndex + i, other.buffer.get(fromIndex + i));
+                this.segments.putInt(toIndex + i, other.segments.getInt(fromIndex + i));
             }
         } else {
             for (int i=0; i<length; ++i) {
@@ -287,14 +285,14 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
     public final Array<T> expand(int newLength) {
         try {
             if (newLength > length) {
-                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * newLength).asIntBuffer();
+                this.segments.resize(newLength);
                 this.fill(defaultValue, length, newLength);
                 this.length = newLength;
             }
             return this;
 
         } catch (Exception ex) {
-            throw new ArrayException("Failed to expand size of memory mapped array at " + file.getAbsolutePath(), ex);
+            throw new ArrayException("Failed to expand size of memory mapped array in " + segments.file(), ex);
         }
     }
 
@@ -303,7 +301,7 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
     public Array<T> fill(T value, int start, int end) {
         var code = coding.getCode(value);
         for (int i=start; i<end; ++i) {
-            this.buffer.put(i, code);
+            this.segments.putInt(i, code);
         }
         return this;
     }
@@ -311,7 +309,7 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
 
     @Override
     public final boolean isNull(int index) {
-        return buffer.get(index) == coding.getCode(null);
+        return segments.getInt(index) == coding.getCode(null);
     }
 
 
@@ -321,7 +319,7 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
             return isNull(index);
         } else {
             var code = coding.getCode(value);
-            return code == buffer.get(index);
+            return code == segments.getInt(index);
         }
     }
 
@@ -329,14 +327,14 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
     @Override
     public int getInt(int index) {
         this.checkBounds(index, length);
-        return buffer.get(index);
+        return segments.getInt(index);
     }
 
 
     @Override
     public final T getValue(int index) {
         this.checkBounds(index, length);
-        var code = buffer.get(index);
+        var code = segments.getInt(index);
         return coding.getValue(code);
     }
 
@@ -344,7 +342,7 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
     @Override
     public int setInt(int index, int value) {
         var oldValue = getInt(index);
-        this.buffer.put(index, value);
+        this.segments.putInt(index, value);
         return oldValue;
     }
 
@@ -352,7 +350,7 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
     public final T setValue(int index, T value) {
         this.checkBounds(index, length);
         final T oldValue = getValue(index);
-        this.buffer.put(index, coding.getCode(value));
+        this.segments.putInt(index, coding.getCode(value));
         return oldValue;
     }
 
@@ -380,7 +378,7 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
     public final void read(ObjectInputStream is, int count) throws IOException {
         for (int i=0; i<count; ++i) {
             var code = is.readInt();
-            this.buffer.put(i, code);
+            this.segments.putInt(i, code);
         }
     }
 
@@ -388,7 +386,7 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
     @Override
     public final void write(ObjectOutputStream os, int[] indexes) throws IOException {
         for (int index : indexes) {
-            var code = buffer.get(index);
+            var code = segments.getInt(index);
             os.writeInt(code);
         }
     }
@@ -400,7 +398,7 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
         os.writeObject(defaultValue);
         os.writeObject(coding);
         for (int i=0; i<length; ++i) {
-            var value = buffer.get(i);
+            var value = segments.getInt(i);
             os.writeInt(value);
         }
     }
@@ -409,16 +407,15 @@ class MappedArrayWithIntCoding<T> extends ArrayBase<T> implements WithIntCoding<
     @SuppressWarnings("unchecked")
     /** Custom serialization */
     private void readObject(ObjectInputStream is) throws IOException, ClassNotFoundException {
-        this.file = MappedArrayConstructor.randomFile(true);
         this.length = is.readInt();
         this.defaultCode = is.readInt();
         this.defaultValue = (T)is.readObject();
         this.coding = (IntCoding<T>)is.readObject();
-        this.channel = new RandomAccessFile(file, "rw").getChannel();
-        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * length).asIntBuffer();
+        this.segments = MappedFile.temporary().segments(null, type(), (int)BYTE_COUNT);
+        this.segments.resize(length);
         for (int i=0; i<length; ++i) {
             var value = is.readInt();
-            this.buffer.put(i, value);
+            this.segments.putInt(i, value);
         }
     }
 
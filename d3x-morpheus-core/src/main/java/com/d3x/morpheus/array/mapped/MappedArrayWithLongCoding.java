@@ -15,13 +15,9 @@
  */
 package com.d3x.morpheus.array.mapped;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.io.RandomAccessFile;
-import java.nio.LongBuffer;
-import java.nio.channels.FileChannel;
 import java.util.function.Predicate;
 
 import gnu.trove.set.TLongSet;
@@ -35,6 +31,7 @@ import com.d3x.morpheus.array.ArrayException;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
 import com.d3x.morpheus.array.coding.LongCoding;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * A sparse array implementation that maintains a primitive long array of codes that apply to Object values exposed through the Coding interface.
@@ -49,13 +46,11 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
 
     private static final long BYTE_COUNT = 8L;
 
-    private File file;
     private int length;
     private T defaultValue;
     private long defaultCode;
     private LongCoding<T> coding;
-    private FileChannel channel;
-    private LongBuffer buffer;
+    private MappedSegments segments;
 
 
     /**
@@ -63,21 +58,20 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
      * @param length        the length for this array
      * @param defaultValue  the default value for array
      * @param coding        the coding for this array
-     * @param file          the memory mapped file reference
+     * @param file          the mapped file to host the array
+     * @param name          the name of the array in the file, null for an unnamed array
      */
-    MappedArrayWithLongCoding(int length, T defaultValue, LongCoding<T> coding, File file) {
+    MappedArrayWithLongCoding(int length, T defaultValue, LongCoding<T> coding, MappedFile file, String name) {
         super(coding.getType(), ArrayStyle.MAPPED, false);
         try {
-            this.file = file;
-            this.length = length;
             this.coding = coding;
             this.defaultValue = defaultValue;
             this.defaultCode = coding.getCode(defaultValue);
-            this.channel = new RandomAccessFile(file, "rw").getChannel();
-            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * length).asLongBuffer();
-            this.fill(defaultValue);
+            this.segments = file.segments(name, type(), (int)BYTE_COUNT);
+            this.length = segments.length();
+            this.expand(length);
         } catch (Exception ex) {
-            throw new ArrayException("Failed to initialise memory mapped array on file: " + file.getAbsolutePath(), ex);
+            throw new ArrayException("Failed to initialise memory mapped array in " + file, ex);
         }
     }
 
@@ -88,13 +82,11 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
      */
     private MappedArrayWithLongCoding(MappedArrayWithLongCoding<T> source, boolean parallel) {
         super(source.type(), ArrayStyle.SPARSE, parallel);
-        this.file = source.file;
         this.length = source.length;
         this.coding = source.coding;
         this.defaultValue = source.defaultValue;
         this.defaultCode = source.defaultCode;
-        this.channel = source.channel;
-        this.buffer = source.buffer;
+        this.segments = source.segments;
     }
 
 
@@ -110,6 +102,12 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
     }
 
 
+    @Override()
+    public final long retainedBytes() {
+        return MemoryLayout.shallow(7, 13) + MemoryLayout.MAPPED_BUFFER_BYTES;
+    }
+
+
     @Override
     public final T defaultValue() {
         return defaultValue;
@@ -132,11 +130,11 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
     @SuppressWarnings("unchecked")
     public final Array<T> copy() {
         try {
-            final File newFile = MappedArrayConstructor.randomFile(true);
-            final MappedArrayWithLongCoding<T> copy = new MappedArrayWithLongCoding<>(length, defaultValue, coding, newFile);
+            final MappedFile newFile = MappedFile.temporary();
+            final MappedArrayWithLongCoding<T> copy = new MappedArrayWithLongCoding<>(length, defaultValue, coding, newFile, null);
             for (int i=0; i<length; ++i) {
-                final long v = buffer.get(i);
-                copy.buffer.put(i, v);
+                final long v = segments.getLong(i);
+                copy.segments.putLong(i, v);
             }
             return copy;
         } catch (Exception ex) {
@@ -148,12 +146,12 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
     @Override()
     public final Array<T> copy(int[] indexes) {
         try {
-            var newFile = MappedArrayConstructor.randomFile(true);
-            var copy = new MappedArrayWithLongCoding<T>(indexes.length, defaultValue, coding, newFile);
+            var newFile = MappedFile.temporary();
+            var copy = new MappedArrayWithLongCoding<T>(indexes.length, defaultValue, coding, newFile, null);
             for (int i=0; i<indexes.length; ++i) {
-                var value = buffer.get(indexes[i]);
+                var value = segments.getLong(indexes[i]);
                 if (value != defaultCode) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putLong(i, value);
                 }
             }
             return copy;
@@ -166,12 +164,12 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
     @Override
     public Array<T> copy(Array<Integer> indexes) {
         try {
-            var newFile = MappedArrayConstructor.randomFile(true);
-            var copy = new MappedArrayWithLongCoding<T>(indexes.length(), defaultValue, coding, newFile);
+            var newFile = MappedFile.temporary();
+            var copy = new MappedArrayWithLongCoding<T>(indexes.length(), defaultValue, coding, newFile, null);
             for (int i=0; i<indexes.length(); ++i) {
-                var value = buffer.get(indexes.getInt(i));
+                var value = segments.getLong(indexes.getInt(i));
                 if (value != defaultCode) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putLong(i, value);
                 }
             }
             return copy;
@@ -185,12 +183,12 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
     public final Array<T> copy(int start, int end) {
         try {
             var newLength = end - start;
-            final File newFile = MappedArrayConstructor.randomFile(true);
-            final MappedArrayWithLongCoding<T> copy = new MappedArrayWithLongCoding<>(newLength, defaultValue, coding, newFile);
+            final MappedFile newFile = MappedFile.temporary();
+            final MappedArrayWithLongCoding<T> copy = new MappedArrayWithLongCoding<>(newLength, defaultValue, coding, newFile, null);
             for (int i=0; i<newLength; ++i) {
-                final long value = buffer.get(start + i);
+                final long value = segments.getLong(start + i);
                 if (Long.compare(value, defaultCode) != 0) {
-                    copy.buffer.put(i, value);
+                    copy.segments.putLong(i, value);
                 }
             }
             return copy;
@@ -202,18 +200,18 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
 
     @Override
     public final int compare(int i, int j) {
-        final long v1 = buffer.get(i);
-        final long v2 = buffer.get(j);
+        final long v1 = segments.getLong(i);
+        final long v2 = segments.getLong(j);
         return Long.compare(v1, v2);
     }
 
 
     @Override
     public final Array<T> swap(int i, int j) {
-        final long v1 = buffer.get(i);
-        final long v2 = buffer.get(j);
-        this.buffer.put(i, v2);
-        this.buffer.put(j, v1);
+        final long v1 = segments.getLong(i);
+        final long v2 = segments.getLong(j);
+        this.segments.putLong(i, v2);
+        this.segments.putLong(j, v1);
         return this;
     }
 
@@ -254,7 +252,7 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
         if (from instanceof MappedArrayWithLongCoding) {
             final MappedArrayWithLongCoding other = (MappedArrayWithLongCoding) from;
             for (int i = 0; i < length; ++i) {
-                this.buffer.put(toIndex + i, other.buffer.get(fromIndex + i));
+                this.segments.putLong(toIndex + i, other.segments.getLong(fromIndex + i));
             }
         } else {
             for (int i=0; i<length; ++i) {
@@ -270,13 +268,13 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
     public final Array<T> expand(int newLength) {
         try {
             if (newLength > length) {
-                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * newLength).asLongBuffer();
+                this.segments.resize(newLength);
                 this.fill(defaultValue, length, newLength);
                 this.length = newLength;
             }
             return this;
         } catch (Exception ex) {
-            throw new ArrayException("Failed to expand size of memory mapped array at " + file.getAbsolutePath(), ex);
+            throw new ArrayException("Failed to expand size of memory mapped array in " + segments.file(), ex);
         }
     }
 
@@ -285,7 +283,7 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
     public Array<T> fill(T value, int start, int end) {
         final long code = coding.getCode(value);
         for (int i=start; i<end; ++i) {
-            this.buffer.put(i, code);
+            this.segments.putLong(i, code);
         }
         return this;
     }
@@ -293,7 +291,7 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
 
     @Override
     public final boolean isNull(int index) {
-        return buffer.get(index) == coding.getCode(null);
+        return segments.getLong(index) == coding.getCode(null);
     }
 
 
@@ -303,7 +301,7 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
             return isNull(index);
         } else {
             final long code = coding.getCode(value);
-            return code == buffer.get(index);
+            return code == segments.getLong(index);
         }
     }
 
@@ -311,14 +309,14 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
     @Override
     public final long getLong(int index) {
         this.checkBounds(index, length);
-        return buffer.get(index);
+        return segments.getLong(index);
     }
 
 
     @Override
     public final T getValue(int index) {
         this.checkBounds(index, length);
-        final long code = buffer.get(index);
+        final long code = segments.getLong(index);
         return coding.getValue(code);
     }
 
@@ -326,8 +324,8 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
     @Override
     public final long setLong(int index, long value) {
         this.checkBounds(index, length);
-        final long oldCode = buffer.get(index);
-        this.buffer.put(index, value);
+        final long oldCode = segments.getLong(index);
+        this.segments.putLong(index, value);
         return oldCode;
     }
 
@@ -337,7 +335,7 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
         this.checkBounds(index, length);
         final T oldValue = getValue(index);
         final long code = coding.getCode(value);
-        this.buffer.put(index, code);
+        this.segments.putLong(index, code);
         return oldValue;
     }
 
@@ -365,7 +363,7 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
     public final void read(ObjectInputStream is, int count) throws IOException {
         for (int i=0; i<count; ++i) {
             final long value = is.readLong();
-            this.buffer.put(i, value);
+            this.segments.putLong(i, value);
         }
     }
 
@@ -386,7 +384,7 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
         os.writeObject(defaultValue);
         os.writeObject(coding);
         for (int i=0; i<length; ++i) {
-            final long value = buffer.get(i);
+            final long value = segments.getLong(i);
             os.writeLong(value);
         }
     }
@@ -395,16 +393,15 @@ class MappedArrayWithLongCoding<T> extends ArrayBase<T> {
     @SuppressWarnings("unchecked")
     /** Custom serialization */
     private void readObject(ObjectInputStream is) throws IOException, ClassNotFoundException {
-        this.file = MappedArrayConstructor.randomFile(true);
         this.length = is.readInt();
         this.defaultCode = is.readLong();
         this.defaultValue = (T)is.readObject();
         this.coding = (LongCoding<T>)is.readObject();
-        this.channel = new RandomAccessFile(file, "rw").getChannel();
-        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BYTE_COUNT * length).asLongBuffer();
+        this.segments = MappedFile.temporary().segments(null, type(), (int)BYTE_COUNT);
+        this.segments.resize(length);
         for (int i=0; i<length; ++i) {
             final long value = is.readLong();
-            this.buffer.put(i, value);
+            this.segments.putLong(i, value);
         }
     }
 
@@ -0,0 +1,481 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.array.mapped;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayException;
+
+/**
+ * A file that hosts any number of named memory mapped arrays, each stored in its own sequence of fixed size segments.
+ *
+ * <p>
+ * Segments are allocated at the end of the file as arrays grow, and only new segments are mapped, so an array can
+ * grow to the full int range of elements without ever re-mapping existing data. The layout of named arrays is
+ * recorded in a catalog file alongside the data file when the file is flushed or closed, so a later call to
+ * <code>open()</code> in another JVM attaches to the existing arrays without copying any data. This makes it possible
+ * for one file to host all the columns of a very large frame. A file is shared by all callers in a JVM that open the
+ * same path, and <code>close()</code> unmaps all segments, after which arrays hosted by the file can no longer be used.
+ * </p>
+ *
+ * <p>
+ * Closing a file releases its mappings immediately rather than waiting for the garbage collector, so it is not safe
+ * to call <code>close()</code> while another thread may still be reading or writing an array hosted by the file, as
+ * an access that races with the unmap can fault. Callers must ensure all access to the arrays has completed first.
+ * </p>
+ *
+ * <p>
+ * Segments reserve their full size in the file layout even if only partially mapped, which relies on the file system
+ * supporting sparse files when many small arrays share a file with large segments.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class MappedFile implements Closeable {
+
+    /** The default segment size in bytes, which can be overridden with the morpheus.array.segment.bytes property */
+    public static final long DEFAULT_SEGMENT_BYTES = Long.getLong("morpheus.array.segment.bytes", 256L * 1024L * 1024L);
+
+    /** The name under which an array created with <code>Array.map()</code> and a file path is stored */
+    public static final String DEFAULT_NAME = "default";
+
+    private static final Cleaner cleaner = Cleaner.create();
+    private static final Map<File,MappedFile> openFiles = new HashMap<>();
+
+    private File file;
+    private File catalogFile;
+    private long segmentBytes;
+    private boolean temporary;
+    private long end;
+    private boolean closed;
+    private FileChannel channel;
+    private Map<String,Entry> entries = new LinkedHashMap<>();
+    private Map<ByteBuffer,Boolean> buffers = new IdentityHashMap<>();
+    private ArrayDeque<Long> free = new ArrayDeque<>();
+    private List<WeakReference<MappedSegments>> segments = new ArrayList<>();
+
+    /**
+     * Constructor
+     * @param file          the data file
+     * @param segmentBytes  the segment size in bytes for a new file
+     * @param temporary     true if the file should be deleted when closed
+     */
+    private MappedFile(File file, long segmentBytes, boolean temporary) {
+        if (segmentBytes < 4096 || segmentBytes > (1L << 30) || Long.bitCount(segmentBytes) != 1) {
+            throw new ArrayException("The mapped segment size must be a power of 2 between 4KB and 1GB, not " + segmentBytes);
+        } else {
+            try {
+                this.file = file;
+                this.temporary = temporary;
+                this.segmentBytes = segmentBytes;
+                this.catalogFile = new File(file.getPath() + ".catalog");
+                if (!temporary && catalogFile.exists()) {
+                    this.readCatalog();
+                }
+                this.channel = new RandomAccessFile(file, "rw").getChannel();
+            } catch (IOException ex) {
+                throw new ArrayException("Failed to open memory mapped file at " + file.getAbsolutePath(), ex);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the mapped file for the path specified, creating it with the default segment size if it does not exist
+     * @param file  the data file, for which directories will be created if necessary
+     * @return      the mapped file, which is shared with other callers that have opened the same path
+     */
+    public static MappedFile open(File file) {
+        return open(file, DEFAULT_SEGMENT_BYTES);
+    }
+
+
+    /**
+     * Returns the mapped file for the path specified, creating it with the segment size specified if it does not exist
+     * The segment size of an existing file is read from its catalog, and the argument is ignored.
+     * @param file          the data file, for which directories will be created if necessary
+     * @param segmentBytes  the segment size in bytes for a new file, which must be a power of 2 between 4KB and 1GB
+     * @return              the mapped file, which is shared with other callers that have opened the same path
+     */
+    public static MappedFile open(File file, long segmentBytes) {
+        try {
+            final File key = file.getCanonicalFile();
+            synchronized (openFiles) {
+                final MappedFile existing = openFiles.get(key);
+                if (existing != null) {
+                    return existing;
+                } else {
+                    final MappedFile mappedFile = new MappedFile(MappedArrayConstructor.createDir(key), segmentBytes, false);
+                    openFiles.put(key, mappedFile);
+                    return mappedFile;
+                }
+            }
+        } catch (IOException ex) {
+            throw new ArrayException("Failed to resolve path for memory mapped file: " + file, ex);
+        }
+    }
+
+
+    /**
+     * Returns a newly created temporary mapped file for a single unnamed array under the morpheus.array.path directory
+     * The file is deleted when closed, when the arrays it hosts become unreachable, or on JVM exit.
+     * @return  the newly created temporary mapped file
+     */
+    static MappedFile temporary() {
+        return new MappedFile(MappedArrayConstructor.randomFile(true), DEFAULT_SEGMENT_BYTES, true);
+    }
+
+
+    /**
+     * Returns the data file for this mapped file
+     * @return  the data file
+     */
+    public File file() {
+        return file;
+    }
+
+
+    /**
+     * Returns the segment size in bytes for this file
+     * @return  the segment size in bytes
+     */
+    public long segmentBytes() {
+        return segmentBytes;
+    }
+
+
+    /**
+     * Returns true if this file has been closed
+     * @return  true if this file has been closed
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+
+    /**
+     * Returns the names of the arrays hosted by this file
+     * @return  the names of arrays in this file
+     */
+    public synchronized Set<String> names() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(entries.keySet()));
+    }
+
+
+    /**
+     * Returns true if this file hosts an array with the name specified
+     * @param name  the array name
+     * @return      true if an array with the name exists
+     */
+    public synchronized boolean contains(String name) {
+        return entries.containsKey(name);
+    }
+
+
+    /**
+     * Returns the named array in this file, attaching to existing data if the array already exists
+     * An existing array keeps its data and is expanded if its length is less than the length specified.
+     * @param name          the array name, which must be unique within this file
+     * @param type          the element type, which must match the type of an existing array
+     * @param length        the minimum length of the array
+     * @param defaultValue  the default value for the array
+     * @param <T>           the element type
+     * @return              the memory mapped array
+     * @throws ArrayException   if the type does not match an existing array, or is not supported in a shared file
+     */
+    public <T> Array<T> array(String name, Class<T> type, int length, T defaultValue) {
+        return MappedArrayConstructor.create(type, length, defaultValue, this, name);
+    }
+
+
+    /**
+     * Removes the named array from this file, so that the next request for the name creates a new empty array
+     * Arrays already attached to the entry keep their storage, which is no longer recorded in the catalog, and
+     * segments of an entry that has not been attached in this JVM are reused for later allocations.
+     * @param name  the array name
+     */
+    synchronized void truncate(String name) {
+        this.checkOpen();
+        final Entry entry = entries.remove(name);
+        if (entry != null && entry.segments == null) {
+            Arrays.stream(entry.offsets).forEach(free::add);
+        }
+    }
+
+
+    /**
+     * Returns the segments for a new or existing named array, or for an unnamed array if name is null
+     * @param name      the array name, null for an unnamed array
+     * @param type      the element type of array
+     * @param width     the number of bytes per element
+     * @return          the segments for the array
+     */
+    synchronized MappedSegments segments(String name, Class<?> type, int width) {
+        this.checkOpen();
+        final Entry entry = name != null ? entries.get(name) : null;
+        if (entry == null) {
+            final MappedSegments result = new MappedSegments(this, width, new long[0], 0);
+            if (name != null) {
+                this.entries.put(name, new Entry(type.getName(), width, result));
+            }
+            return register(result);
+        } else if (!entry.type.equals(type.getName()) || entry.width != width) {
+            throw new ArrayException("The mapped array " + name + " in " + file + " is of type " + entry.type + ", not " + type.getName());
+        } else if (entry.segments == null) {
+            entry.segments = register(new MappedSegments(this, width, entry.offsets, entry.length));
+            return entry.segments;
+        } else {
+            return entry.segments;
+        }
+    }
+
+
+    /**
+     * Registers segments with this file so that they can be detached on close
+     * @param segments  the segments to register
+     * @return          the same as arg
+     */
+    private MappedSegments register(MappedSegments segments) {
+        this.segments.removeIf(ref -> ref.get() == null);
+        this.segments.add(new WeakReference<>(segments));
+        if (temporary) {
+            cleaner.register(segments, this::close);
+        }
+        return segments;
+    }
+
+
+    /**
+     * Allocates a segment released by a truncated array, or a new segment at the end of this file
+     * @return  the file offset of the segment
+     */
+    synchronized long allocate() {
+        this.checkOpen();
+        if (!free.isEmpty()) {
+            return free.poll();
+        }
+        final long offset = end;
+        this.end += segmentBytes;
+        return offset;
+    }
+
+
+    /**
+     * Maps a region of this file, which extends the file if necessary
+     * @param offset    the file offset of the region
+     * @param bytes     the number of bytes to map
+     * @param previous  the previous mapping of a segment that is being extended, which is left to the garbage collector
+     * @return          the newly mapped buffer
+     */
+    synchronized ByteBuffer map(long offset, int bytes, MappedByteBuffer previous) {
+        try {
+            this.checkOpen();
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, offset, bytes);
+            if (previous != null) {
+                this.buffers.remove(previous);
+            }
+            this.buffers.put(buffer, Boolean.TRUE);
+            return buffer;
+        } catch (IOException ex) {
+            throw new ArrayException("Failed to map " + bytes + " bytes at offset " + offset + " of " + file.getAbsolutePath(), ex);
+        }
+    }
+
+
+    /**
+     * Writes the catalog of named arrays and forces changes to mapped data to be written to storage
+     */
+    public synchronized void flush() {
+        if (!closed && !temporary) {
+            this.buffers.keySet().forEach(buffer -> ((MappedByteBuffer)buffer).force());
+            this.writeCatalog();
+        }
+    }
+
+
+    /**
+     * Flushes this file, unmaps all segments and closes the file, deleting it if it is temporary
+     * Arrays hosted by this file will throw an exception if they are used after it has been closed, but this
+     * must not be called while other threads may still be accessing those arrays, since their mappings are released.
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            try {
+                this.flush();
+                this.closed = true;
+                this.segments.stream().map(WeakReference::get).filter(s -> s != null).forEach(MappedSegments::detach);
+                this.buffers.keySet().forEach(MappedFile::unmap);
+                this.buffers.clear();
+                this.segments.clear();
+                this.channel.close();
+                if (temporary) {
+                    if (!file.delete() && file.exists()) {
+                        throw new IOException("Unable to delete " + file.getAbsolutePath());
+                    }
+                } else {
+                    synchronized (openFiles) {
+                        openFiles.remove(file, this);
+                    }
+                }
+            } catch (IOException ex) {
+                throw new ArrayException("Failed to close memory mapped file " + file.getAbsolutePath(), ex);
+            }
+        }
+    }
+
+
+    /**
+     * Checks that this file is open
+     * @throws ArrayException   if this file has been closed
+     */
+    private void checkOpen() {
+        if (closed) {
+            throw new ArrayException("The memory mapped file has been closed: " + file.getAbsolutePath());
+        }
+    }
+
+
+    /**
+     * Reads the catalog of named arrays for this file
+     * @throws IOException  if the catalog cannot be read
+     */
+    private void readCatalog() throws IOException {
+        final Properties properties = new Properties();
+        try (InputStream is = new FileInputStream(catalogFile)) {
+            properties.load(is);
+        }
+        this.segmentBytes = Long.parseLong(properties.getProperty("segmentBytes"));
+        this.end = Long.parseLong(properties.getProperty("end"));
+        final String names = properties.getProperty("names", "");
+        for (String name : names.isEmpty() ? new String[0] : names.split(",")) {
+            final String type = properties.getProperty(name + ".type");
+            final int width = Integer.parseInt(properties.getProperty(name + ".width"));
+            final int length = Integer.parseInt(properties.getProperty(name + ".length"));
+            final String offsets = properties.getProperty(name + ".offsets", "");
+            final Entry entry = new Entry(type, width, null);
+            entry.length = length;
+            entry.offsets = offsets.isEmpty() ? new long[0] : Arrays.stream(offsets.split(",")).mapToLong(Long::parseLong).toArray();
+            this.entries.put(name, entry);
+        }
+    }
+
+
+    /**
+     * Writes the catalog of named arrays for this file
+     */
+    private void writeCatalog() {
+        final Properties properties = new Properties();
+        properties.setProperty("segmentBytes", String.valueOf(segmentBytes));
+        properties.setProperty("end", String.valueOf(end));
+        properties.setProperty("names", String.join(",", entries.keySet()));
+        this.entries.forEach((name, entry) -> {
+            if (name.isEmpty() || name.contains(",")) {
+                throw new ArrayException("Mapped array names cannot be empty or contain commas: " + name);
+            } else {
+                final long[] offsets = entry.segments != null ? entry.segments.offsets() : entry.offsets;
+                final int length = entry.segments != null ? entry.segments.length() : entry.length;
+                properties.setProperty(name + ".type", entry.type);
+                properties.setProperty(name + ".width", String.valueOf(entry.width));
+                properties.setProperty(name + ".length", String.valueOf(length));
+                properties.setProperty(name + ".offsets", Arrays.stream(offsets).mapToObj(String::valueOf).collect(Collectors.joining(",")));
+            }
+        });
+        try (OutputStream os = new FileOutputStream(catalogFile)) {
+            properties.store(os, "Morpheus memory mapped file catalog");
+        } catch (IOException ex) {
+            throw new ArrayException("Failed to write catalog for memory mapped file " + file.getAbsolutePath(), ex);
+        }
+    }
+
+
+    /**
+     * Unmaps the buffer immediately rather than waiting for the garbage collector, if the JVM allows it
+     * @param buffer    the mapped buffer to unmap
+     */
+    private static void unmap(ByteBuffer buffer) {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            final Method method = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            method.invoke(field.get(null), buffer);
+        } catch (Exception ex) {
+            // the mapping is released when the buffer is garbage collected
+        }
+    }
+
+
+    @Override
+    public String toString() {
+        return "MappedFile(" + file.getAbsolutePath() + ")";
+    }
+
+
+    /**
+     * The catalog entry for a named array
+     */
+    private static class Entry {
+
+        private String type;
+        private int width;
+        private int length;
+        private long[] offsets;
+        private MappedSegments segments;
+
+        /**
+         * Constructor
+         * @param type      the element type name
+         * @param width     the number of bytes per element
+         * @param segments  the segments for the array, null if not yet attached
+         */
+        Entry(String type, int width, MappedSegments segments) {
+            this.type = type;
+            this.width = width;
+            this.segments = segments;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.array.mapped;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.Arrays;
+
+import com.d3x.morpheus.array.ArrayException;
+
+/**
+ * The storage for one memory mapped array, held as a sequence of fixed size segments of a MappedFile.
+ *
+ * <p>
+ * Each segment is a separate mapping of at most 1GB, so the byte offset of an element within a file is a long while
+ * the offset within a segment is always an int, which removes the 2GB limit of a single mapping. All segments but the
+ * last are mapped in full, and the last is mapped only up to the current capacity. Growth re-maps the last segment
+ * and maps any new segments, so the cost of growth is bounded by the segment size rather than the array length.
+ * Segments are allocated at the end of the file, so the segments of an array need not be contiguous, which is what
+ * allows many arrays to share one file. Growth, detach and reads of the segment offsets are all guarded by the monitor
+ * of the hosting file, so there is a single lock order with flush and close. Element access takes no lock and reads a
+ * plain field to keep hot loops cheap, so a close must not race with access in progress, see MappedFile, and a closed
+ * file is only reported on the slow path when the array next grows.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+final class MappedSegments {
+
+    private static final ByteBuffer[] DETACHED = new ByteBuffer[0];
+
+    private MappedFile file;
+    private int width;
+    private int shift;
+    private int mask;
+    private int length;
+    private long capacity;
+    private long[] offsets;
+    private ByteBuffer[] buffers;
+
+    /**
+     * Constructor
+     * @param file      the file that hosts the segments
+     * @param width     the number of bytes per element, which must be a power of 2
+     * @param offsets   the file offsets of existing segments, empty for new storage
+     * @param length    the number of elements in existing segments, zero for new storage
+     */
+    MappedSegments(MappedFile file, int width, long[] offsets, int length) {
+        final long elements = file.segmentBytes() / width;
+        this.file = file;
+        this.width = width;
+        this.shift = Long.numberOfTrailingZeros(elements);
+        this.mask = (int)elements - 1;
+        this.offsets = offsets;
+        this.buffers = new ByteBuffer[0];
+        this.ensureCapacity(length);
+        this.length = length;
+    }
+
+
+    /**
+     * Returns the file that hosts these segments
+     * @return  the file for these segments
+     */
+    final MappedFile file() {
+        return file;
+    }
+
+
+    /**
+     * Returns the number of bytes per element
+     * @return  the number of bytes per element
+     */
+    final int width() {
+        return width;
+    }
+
+
+    /**
+     * Returns the length last recorded for the array stored in these segments
+     * @return  the array length
+     */
+    final int length() {
+        return length;
+    }
+
+
+    /**
+     * Returns the file offsets of the segments allocated so far
+     * @return  the file offsets of segments
+     */
+    final long[] offsets() {
+        synchronized (file) {
+            return offsets.clone();
+        }
+    }
+
+
+    /**
+     * Maps enough segments to hold the number of elements specified, and records the new array length
+     * @param length    the new length of the array
+     */
+    final void resize(int length) {
+        synchronized (file) {
+            this.ensureCapacity(length);
+            this.length = length;
+        }
+    }
+
+
+    /**
+     * Maps enough segments to hold the number of elements specified, mapping only the new or partially mapped segments
+     * @param elements  the required capacity in elements
+     */
+    private void ensureCapacity(long elements) {
+        if (elements > capacity) {
+            if (buffers == DETACHED) {
+                throw new ArrayException("The memory mapped file has been closed: " + file);
+            } else {
+                final long segmentLength = mask + 1L;
+                final int count = (int)((elements + segmentLength - 1) / segmentLength);
+                final ByteBuffer[] buffers = Arrays.copyOf(this.buffers, count);
+                if (offsets.length < count) {
+                    final int existing = offsets.length;
+                    this.offsets = Arrays.copyOf(offsets, count);
+                    for (int k=existing; k<count; ++k) {
+                        this.offsets[k] = file.allocate();
+                    }
+                }
+                final int first = Math.max(0, this.buffers.length - 1);
+                for (int k=first; k<count; ++k) {
+                    final long mapped = Math.min(segmentLength, elements - k * segmentLength);
+                    if (buffers[k] == null || buffers[k].capacity() < mapped * width) {
+                        final MappedByteBuffer previous = (MappedByteBuffer)buffers[k];
+                        buffers[k] = file.map(offsets[k], (int)(mapped * width), previous);
+                    }
+                }
+                this.buffers = buffers;
+                this.capacity = elements;
+            }
+        }
+    }
+
+
+    /**
+     * Releases the mappings of these segments, after which any access will fail
+     */
+    final void detach() {
+        synchronized (file) {
+            this.buffers = DETACHED;
+            this.capacity = 0;
+        }
+    }
+
+
+    /**
+     * Returns the short value at the element index specified
+     * @param index the element index
+     * @return      the value at index
+     */
+    final short getShort(int index) {
+        return buffers[index >>> shift].getShort((index & mask) << 1);
+    }
+
+
+    /**
+     * Sets the short value at the element index specified
+     * @param index the element index
+     * @param value the value to set
+     */
+    final void putShort(int index, short value) {
+        this.buffers[index >>> shift].putShort((index & mask) << 1, value);
+    }
+
+
+    /**
+     * Returns the int value at the element index specified
+     * @param index the element index
+     * @return      the value at index
+     */
+    final int getInt(int index) {
+        return buffers[index >>> shift].getInt((index & mask) << 2);
+    }
+
+
+    /**
+     * Sets the int value at the element index specified
+     * @param index the element index
+     * @param value the value to set
+     */
+    final void putInt(int index, int value) {
+        this.buffers[index >>> shift].putInt((index & mask) << 2, value);
+    }
+
+
+    /**
+     * Returns the long value at the element index specified
+     * @param index the element index
+     * @return      the value at index
+     */
+    final long getLong(int index) {
+        return buffers[index >>> shift].getLong((index & mask) << 3);
+    }
+
+
+    /**
+     * Sets the long value at the element index specified
+     * @param index the element index
+     * @param value the value to set
+     */
+    final void putLong(int index, long value) {
+        this.buffers[index >>> shift].putLong((index & mask) << 3, value);
+    }
+
+
+    /**
+     * Returns the double value at the element index specified
+     * @param index the element index
+     * @return      the value at index
+     */
+    final double getDouble(int index) {
+        return buffers[index >>> shift].getDouble((index & mask) << 3);
+    }
+
+
+    /**
+     * Sets the double value at the element index specified
+     * @param index the element index
+     * @param value the value to set
+     */
+    final void putDouble(int index, double value) {
+        this.buffers[index >>> shift].putDouble((index & mask) << 3, value);
+    }
+
+
+    @Override
+    public String toString() {
+        return "MappedSegments(file=" + file + ", width=" + width + ", length=" + length + ", segments=" + offsets.length + ")";
+    }
+}
@@ -0,0 +1,488 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.array.segmented;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayBase;
+import com.d3x.morpheus.array.ArrayBuilder;
+import com.d3x.morpheus.array.ArrayCursor;
+import com.d3x.morpheus.array.ArrayException;
+import com.d3x.morpheus.array.ArrayStyle;
+import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.util.MemoryLayout;
+
+/**
+ * An Array implementation that stores its elements in a sequence of fixed size dense segments.
+ *
+ * <p>
+ * Expanding a segmented array only allocates the additional segments required, so existing elements are never
+ * copied and the cost of growth is proportional to the growth rather than the length of the array. This makes the
+ * structure suitable for columns that grow continuously, such as a frame that ingests live data all day. The
+ * <code>prefix()</code> method returns a read only view over the first N elements that shares segments with this
+ * array, which is safe to read while this array continues to be appended to beyond N.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class SegmentedArray<T> extends ArrayBase<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The default number of bits used to express the segment size, implying segments of 16K elements */
+    public static final int DEFAULT_SEGMENT_BITS = 14;
+
+    private int length;
+    private int segmentCount;
+    private int segmentBits;
+    private int segmentMask;
+    private boolean frozen;
+    private T defaultValue;
+    private Array<T>[] segments;
+
+
+    /**
+     * Constructor
+     * @param type          the element type for array
+     * @param length        the initial length for array
+     * @param defaultValue  the default value for array, null for the type default
+     * @param segmentBits   the number of bits used to express the segment size
+     */
+    @SuppressWarnings("unchecked")
+    private SegmentedArray(Class<T> type, int length, T defaultValue, int segmentBits) {
+        super(type, ArrayStyle.DENSE, false);
+        if (segmentBits < 4 || segmentBits > 30) {
+            throw new ArrayException("The segment bits must be in the range 4 to 30, not " + segmentBits);
+        } else {
+            this.segmentBits = segmentBits;
+            this.segmentMask = (1 << segmentBits) - 1;
+            this.segments = new Array[0];
+            this.defaultValue = Array.of(type, 0, defaultValue).defaultValue();
+            this.expand(length);
+        }
+    }
+
+
+    /**
+     * Constructor
+     * @param source    the source array to shallow copy
+     * @param length    the length for this array, which must be no greater than the source length
+     * @param frozen    true if this array should be read only
+     * @param parallel  true for parallel version
+     */
+    private SegmentedArray(SegmentedArray<T> source, int length, boolean frozen, boolean parallel) {
+        super(source.type(), ArrayStyle.DENSE, parallel);
+        this.length = length;
+        this.frozen = frozen;
+        this.segments = source.segments;
+        this.segmentCount = source.segmentCount;
+        this.segmentBits = source.segmentBits;
+        this.segmentMask = source.segmentMask;
+        this.defaultValue = source.defaultValue;
+    }
+
+
+    /**
+     * Returns a newly created segmented array with the default segment size
+     * @param type      the element type for array
+     * @param length    the initial length for array
+     * @param <T>       the element type
+     * @return          the newly created array
+     */
+    public static <T> SegmentedArray<T> of(Class<T> type, int length) {
+        return new SegmentedArray<>(type, length, null, DEFAULT_SEGMENT_BITS);
+    }
+
+
+    /**
+     * Returns a newly created segmented array
+     * @param type          the element type for array
+     * @param length        the initial length for array
+     * @param defaultValue  the default value for array, null for the type default
+     * @param segmentBits   the number of bits used to express the segment size, for example 10 implies 1024 elements
+     * @param <T>           the element type
+     * @return              the newly created array
+     */
+    public static <T> SegmentedArray<T> of(Class<T> type, int length, T defaultValue, int segmentBits) {
+        return new SegmentedArray<>(type, length, defaultValue, segmentBits);
+    }
+
+
+    /**
+     * Returns a read only view of the first N elements of this array which shares segments with this array
+     * @param length    the length of the prefix, which must be no greater than the length of this array
+     * @return          the read only view of the prefix of this array
+     */
+    public final SegmentedArray<T> prefix(int length) {
+        if (length < 0 || length > this.length) {
+            throw new ArrayIndexOutOfBoundsException("Prefix length out of bounds: " + length + ", length " + this.length);
+        } else {
+            return new SegmentedArray<>(this, length, true, isParallel());
+        }
+    }
+
+
+    /**
+     * Returns the number of elements in each segment of this array
+     * @return  the segment size for this array
+     */
+    public final int segmentSize() {
+        return 1 << segmentBits;
+    }
+
+
+    /**
+     * Returns the segment that holds the element at the index specified
+     * @param index     the array index
+     * @return          the segment for index
+     */
+    private Array<T> segment(int index) {
+        if (index < 0 || index >= length) {
+            throw new ArrayIndexOutOfBoundsException("Array index out of bounds: " + index + ", length " + length);
+        } else {
+            return segments[index >>> segmentBits];
+        }
+    }
+
+
+    /**
+     * Returns the segment that holds the element at the index specified, checking this array can be modified
+     * @param index     the array index
+     * @return          the segment for index
+     */
+    private Array<T> writable(int index) {
+        if (frozen) {
+            throw new ArrayException("This is a read only Morpheus Array");
+        } else {
+            return segment(index);
+        }
+    }
+
+
+    @Override
+    public final int length() {
+        return length;
+    }
+
+
+    @Override
+    public float loadFactor() {
+        return 1F;
+    }
+
+
+    @Override
+    public long retainedBytes() {
+        long bytes = MemoryLayout.shallow(6, 17) + MemoryLayout.references(segments.length);
+        for (Array<T> segment : segments) {
+            bytes += segment != null ? segment.retainedBytes() : 0L;
+        }
+        return bytes;
+    }
+
+
+    @Override
+    public final T defaultValue() {
+        return defaultValue;
+    }
+
+
+    @Override
+    public final boolean isReadOnly() {
+        return frozen;
+    }
+
+
+    @Override
+    public final Array<T> parallel() {
+        return isParallel() ? this : new SegmentedArray<>(this, length, frozen, true);
+    }
+
+
+    @Override
+    public final Array<T> sequential() {
+        return isParallel() ? new SegmentedArray<>(this, length, frozen, false) : this;
+    }
+
+
+    @Override()
+    public final Array<T> copy() {
+        final SegmentedArray<T> copy = new SegmentedArray<>(type(), 0, defaultValue, segmentBits);
+        copy.segments = Arrays.copyOf(segments, segments.length);
+        for (int i=0; i<segmentCount; ++i) {
+            copy.segments[i] = segments[i].copy();
+        }
+        copy.segmentCount = segmentCount;
+        copy.length = length;
+        return copy;
+    }
+
+
+    @Override()
+    public final Array<T> copy(int[] indexes) {
+        final Array<T> clone = Array.of(type(), indexes.length, defaultValue);
+        for (int i=0; i<indexes.length; ++i) {
+            final int index = indexes[i];
+            clone.update(i, segment(index), index & segmentMask, 1);
+        }
+        return clone;
+    }
+
+
+    @Override
+    public final Array<T> copy(Array<Integer> indexes) {
+        final Array<T> clone = Array.of(type(), indexes.length(), defaultValue);
+        for (int i=0; i<indexes.length(); ++i) {
+            final int index = indexes.getInt(i);
+            clone.update(i, segment(index), index & segmentMask, 1);
+        }
+        return clone;
+    }
+
+
+    @Override()
+    public final Array<T> copy(int start, int end) {
+        final Array<T> clone = Array.of(type(), end - start, defaultValue);
+        int index = start;
+        while (index < end) {
+            final int offset = index & segmentMask;
+            final int count = Math.min(end - index, segmentSize() - offset);
+            clone.update(index - start, segment(index), offset, count);
+            index += count;
+        }
+        return clone;
+    }
+
+
+    @Override
+    protected final Array<T> sort(int start, int end, int multiplier) {
+        return doSort(start, end, (i, j) -> multiplier * compare(i, j));
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final int compare(int i, int j) {
+        switch (typeCode()) {
+            case BOOLEAN:   return Boolean.compare(getBoolean(i), getBoolean(j));
+            case INTEGER:   return Integer.compare(getInt(i), getInt(j));
+            case LONG:      return Long.compare(getLong(i), getLong(j));
+            case DOUBLE:    return Double.compare(getDouble(i), getDouble(j));
+            default:
+                final Comparable c1 = (Comparable)getValue(i);
+                final Comparable c2 = (Comparable)getValue(j);
+                return (c1 == null ? c2 == null ? 0 : -1 : c2 == null ? 1 : c1.compareTo(c2));
+        }
+    }
+
+
+    @Override
+    public final Array<T> swap(int i, int j) {
+        final T v1 = getValue(i);
+        final T v2 = getValue(j);
+        this.setValue(i, v2);
+        this.setValue(j, v1);
+        return this;
+    }
+
+
+    @Override
+    public final Array<T> filter(Predicate<ArrayValue<T>> predicate) {
+        final ArrayCursor<T> cursor = cursor();
+        final ArrayBuilder<T> builder = ArrayBuilder.of(length(), type());
+        for (int i=0; i<length; ++i) {
+            cursor.moveTo(i);
+            final boolean match = predicate.test(cursor);
+            if (match) {
+                builder.append(cursor.getValue());
+            }
+        }
+        return builder.toArray();
+    }
+
+
+    @Override
+    public final Array<T> update(Array<T> from, int[] fromIndexes, int[] toIndexes) {
+        if (fromIndexes.length != toIndexes.length) {
+            throw new ArrayException("The from index array must have the same length as the to index array");
+        } else {
+            for (int i=0; i<fromIndexes.length; ++i) {
+                final int toIndex = toIndexes[i];
+                writable(toIndex).update(toIndex & segmentMask, from, fromIndexes[i], 1);
+            }
+        }
+        return this;
+    }
+
+
+    @Override
+    public final Array<T> update(int toIndex, Array<T> from, int fromIndex, int length) {
+        int index = toIndex;
+        while (index < toIndex + length) {
+            final int offset = index & segmentMask;
+            final int count = Math.min(toIndex + length - index, segmentSize() - offset);
+            writable(index).update(offset, from, fromIndex + index - toIndex, count);
+            index += count;
+        }
+        return this;
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final Array<T> expand(int newLength) {
+        if (newLength > length) {
+            if (frozen) {
+                throw new ArrayException("This is a read only Morpheus Array");
+            } else {
+                final int required = (int)(((long)newLength + segmentMask) >>> segmentBits);
+                if (required > segmentCount) {
+                    if (required > segments.length) {
+                        this.segments = Arrays.copyOf(segments, Math.max(required, segments.length + (segments.length >> 1)));
+                    }
+                    for (int i=segmentCount; i<required; ++i) {
+                        this.segments[i] = Array.of(type(), segmentSize(), defaultValue);
+                    }
+                    this.segmentCount = required;
+                }
+                this.length = newLength;
+            }
+        }
+        return this;
+    }
+
+
+    @Override
+    public final Array<T> fill(T value, int start, int end) {
+        int index = start;
+        while (index < end) {
+            final int offset = index & segmentMask;
+            final int count = Math.min(end - index, segmentSize() - offset);
+            writable(index).fill(value, offset, offset + count);
+            index += count;
+        }
+        return this;
+    }
+
+
+    @Override
+    public final boolean isNull(int index) {
+        return segment(index).isNull(index & segmentMask);
+    }
+
+
+    @Override
+    public final boolean isEqualTo(int index, T value) {
+        return segment(index).isEqualTo(index & segmentMask, value);
+    }
+
+
+    @Override
+    public final boolean getBoolean(int index) {
+        return segment(index).getBoolean(index & segmentMask);
+    }
+
+
+    @Override
+    public final int getInt(int index) {
+        return segment(index).getInt(index & segmentMask);
+    }
+
+
+    @Override
+    public final long getLong(int index) {
+        return segment(index).getLong(index & segmentMask);
+    }
+
+
+    @Override
+    public final double getDouble(int index) {
+        return segment(index).getDouble(index & segmentMask);
+    }
+
+
+    @Override
+    public final T getValue(int index) {
+        return segment(index).getValue(index & segmentMask);
+    }
+
+
+    @Override
+    public final boolean setBoolean(int index, boolean value) {
+        return writable(index).setBoolean(index & segmentMask, value);
+    }
+
+
+    @Override
+    public final int setInt(int index, int value) {
+        return writable(index).setInt(index & segmentMask, value);
+    }
+
+
+    @Override
+    public final long setLong(int index, long value) {
+        return writable(index).setLong(index & segmentMask, value);
+    }
+
+
+    @Override
+    public final double setDouble(int index, double value) {
+        return writable(index).setDouble(index & segmentMask, value);
+    }
+
+
+    @Override
+    public final T setValue(int index, T value) {
+        return writable(index).setValue(index & segmentMask, value);
+    }
+
+
+    @Override
+    public final void read(ObjectInputStream is, int count) throws IOException {
+        int index = 0;
+        while (index < count) {
+            final int count2 = Math.min(count - index, segmentSize());
+            writable(index).read(is, count2);
+            index += count2;
+        }
+    }
+
+
+    @Override
+    public final void write(ObjectOutputStream os, int[] indexes) throws IOException {
+        int start = 0;
+        while (start < indexes.length) {
+            final int segment = indexes[start] >>> segmentBits;
+            int end = start + 1;
+            while (end < indexes.length && indexes[end] >>> segmentBits == segment) {
+                ++end;
+            }
+            final int[] offsets = new int[end - start];
+            for (int i=start; i<end; ++i) {
+                offsets[i - start] = indexes[i] & segmentMask;
+            }
+            this.segment(indexes[start]).write(os, offsets);
+            start = end;
+        }
+    }
+}
@@ -32,6 +32,7 @@ import com.d3x.morpheus.array.ArrayCursor;
 import com.d3x.morpheus.array.ArrayException;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * An Array implementation designed to hold a sparse array of double values
@@ -86,6 +87,12 @@ class SparseArrayOfDoubles extends ArrayBase<Double> {
     }
 
 
+    @Override()
+    public final long retainedBytes() {
+        return MemoryLayout.shallow(3, 13) + MemoryLayout.hash(values, Integer.BYTES, Double.BYTES);
+    }
+
+
     @Override
     public final Double defaultValue() {
         return defaultValue;
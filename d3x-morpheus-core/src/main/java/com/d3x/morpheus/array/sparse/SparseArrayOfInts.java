@@ -27,6 +27,7 @@ import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBase;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.util.MemoryLayout;
 
 import gnu.trove.map.TIntIntMap;
 import gnu.trove.map.hash.TIntIntHashMap;
@@ -86,6 +87,12 @@ class SparseArrayOfInts extends ArrayBase<Integer> {
     }
 
 
+    @Override()
+    public final long retainedBytes() {
+        return MemoryLayout.shallow(3, 9) + MemoryLayout.hash(values, Integer.BYTES, Integer.BYTES);
+    }
+
+
     @Override
     public final Integer defaultValue() {
         return defaultValue;
@@ -27,6 +27,7 @@ import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBase;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.util.MemoryLayout;
 
 import gnu.trove.map.TIntLongMap;
 import gnu.trove.map.hash.TIntLongHashMap;
@@ -86,6 +87,12 @@ class SparseArrayOfLongs extends ArrayBase<Long> {
     }
 
 
+    @Override()
+    public final long retainedBytes() {
+        return MemoryLayout.shallow(3, 13) + MemoryLayout.hash(values, Integer.BYTES, Long.BYTES);
+    }
+
+
     @Override
     public final Long defaultValue() {
         return defaultValue;
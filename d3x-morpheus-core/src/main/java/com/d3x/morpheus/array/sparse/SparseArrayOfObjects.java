@@ -29,6 +29,7 @@ import com.d3x.morpheus.array.ArrayCursor;
 import com.d3x.morpheus.array.ArrayException;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * An Array implementation designed to hold a sparse array of Object values
@@ -84,6 +85,17 @@ class SparseArrayOfObjects<T> extends ArrayBase<T> {
     }
 
 
+    @Override()
+    public final long retainedBytes() {
+        final long[] bytes = {MemoryLayout.shallow(4, 5) + MemoryLayout.hash(values, Integer.BYTES, MemoryLayout.REFERENCE_BYTES)};
+        values.forEachValue(value -> {
+            bytes[0] += MemoryLayout.value(value);
+            return true;
+        });
+        return bytes[0];
+    }
+
+
     @Override
     public final T defaultValue() {
         return defaultValue;
@@ -36,6 +36,7 @@ import com.d3x.morpheus.array.ArrayCursor;
 import com.d3x.morpheus.array.ArrayException;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * An Array implementation containing a sparse array of LocalDateTine values stored as a long of epoch milliseconds.
@@ -118,6 +119,12 @@ class SparseArrayOfZonedDateTimes extends ArrayBase<ZonedDateTime> {
     }
 
 
+    @Override()
+    public final long retainedBytes() {
+        return MemoryLayout.shallow(5, 14) + MemoryLayout.hash(values, Integer.BYTES, Long.BYTES) + MemoryLayout.hash(zoneIds, Integer.BYTES, Short.BYTES);
+    }
+
+
     @Override
     public final ZonedDateTime defaultValue() {
         return defaultValue;
@@ -33,6 +33,7 @@ import com.d3x.morpheus.array.ArrayException;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
 import com.d3x.morpheus.array.coding.IntCoding;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * A sparse array implementation that maintains a primitive int array of codes that apply to Object values exposed through the Coding interface.
@@ -94,6 +95,12 @@ class SparseArrayWithIntCoding<T> extends ArrayBase<T> {
     }
 
 
+    @Override()
+    public final long retainedBytes() {
+        return MemoryLayout.shallow(5, 8) + MemoryLayout.hash(codes, Integer.BYTES, Integer.BYTES);
+    }
+
+
     @Override
     public final T defaultValue() {
         return defaultValue;
@@ -33,6 +33,7 @@ import com.d3x.morpheus.array.ArrayException;
 import com.d3x.morpheus.array.ArrayStyle;
 import com.d3x.morpheus.array.ArrayValue;
 import com.d3x.morpheus.array.coding.LongCoding;
+import com.d3x.morpheus.util.MemoryLayout;
 
 /**
  * A sparse array implementation that maintains a primitive long array of codes that apply to Object values exposed through the Coding interface.
@@ -95,6 +96,12 @@ class SparseArrayWithLongCoding<T> extends ArrayBase<T> {
     }
 
 
+    @Override()
+    public final long retainedBytes() {
+        return MemoryLayout.shallow(5, 12) + MemoryLayout.hash(codes, Integer.BYTES, Long.BYTES);
+    }
+
+
     @Override
     public final T defaultValue() {
         return defaultValue;
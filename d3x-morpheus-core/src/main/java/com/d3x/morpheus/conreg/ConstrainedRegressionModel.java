@@ -24,6 +24,7 @@ import lombok.NonNull;
 import com.d3x.morpheus.frame.DataFrame;
 import com.d3x.morpheus.series.DoubleSeries;
 import com.d3x.morpheus.util.LazyValue;
+import com.d3x.morpheus.util.MorpheusException;
 
 /**
  * Defines a linear regression model that enforces linear equality constraints
@@ -77,6 +78,14 @@ public final class ConstrainedRegressionModel<R,C> {
     @Getter @NonNull
     private DoubleSeries<R> observationWeights;
 
+    /**
+     * The magnitude at or below which regressor values are treated as zero
+     * when the design matrix is stored in compressed sparse row format, or
+     * {@code NaN} if the design matrix has dense storage (the default).
+     */
+    @Getter
+    private double sparseThreshold = Double.NaN;
+
     private final List<RegressionConstraint<C>> constraintList = new ArrayList<>();
     private final LazyValue<RegressionConstraintSet<C>> constraintSet = LazyValue.of(this::buildConstraintSet);
 
@@ -263,6 +272,34 @@ public final class ConstrainedRegressionModel<R,C> {
         return this;
     }
 
+    /**
+     * Stores the design matrix in compressed sparse row format, which is much
+     * faster than dense storage when most regressor values are zero, such as
+     * the industry and country exposures in a factor risk model.
+     *
+     * @param threshold the magnitude at or below which regressor values are
+     *                  treated as zero.
+     *
+     * @return this model, updated, for operator chaining.
+     *
+     * @throws RuntimeException if the threshold is negative or not finite.
+     */
+    public ConstrainedRegressionModel<R,C> withSparseDesign(double threshold) {
+        if (!Double.isFinite(threshold) || threshold < 0.0)
+            throw new MorpheusException("The sparse threshold must be finite and non-negative.");
+
+        this.sparseThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Identifies models whose design matrix has compressed sparse storage.
+     * @return {@code true} iff the design matrix has compressed sparse storage.
+     */
+    public boolean isSparseDesign() {
+        return !Double.isNaN(sparseThreshold);
+    }
+
     /**
      * Adds observation weights from the regressor frame to this model.
      *
@@ -21,6 +21,7 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 
+import com.d3x.morpheus.matrix.CSRMatrix;
 import com.d3x.morpheus.matrix.D3xMatrix;
 import com.d3x.morpheus.vector.D3xVector;
 import com.d3x.morpheus.util.DoubleComparator;
@@ -142,7 +143,10 @@ public final class ConstrainedRegressionSystem<R,C> {
     }
 
     private D3xMatrix buildDesignMatrix() {
-        return D3xMatrix.copyFrame(regressionModel.getRegressorFrame(), observationKeys, regressorKeys);
+        if (regressionModel.isSparseDesign())
+            return CSRMatrix.copyFrame(regressionModel.getRegressorFrame(), observationKeys, regressorKeys, regressionModel.getSparseThreshold());
+        else
+            return D3xMatrix.copyFrame(regressionModel.getRegressorFrame(), observationKeys, regressorKeys);
     }
 
     private D3xVector buildWeightVector() {
@@ -175,7 +179,7 @@ public final class ConstrainedRegressionSystem<R,C> {
     }
 
     private D3xMatrix computeTwoATW() {
-        return designMatrix.transpose().times(D3xMatrix.diagonal(weightVector.times(2.0)));
+        return designMatrix.transpose().timesDiagonal(weightVector.times(2.0));
     }
 
     private D3xMatrix buildAugmentedMatrix() {
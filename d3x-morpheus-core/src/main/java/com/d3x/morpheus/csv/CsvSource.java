@@ -18,6 +18,7 @@ package com.d3x.morpheus.csv;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
@@ -90,8 +91,10 @@ public interface CsvSource {
         private Predicate<String> colNamePredicate;
         /** The optional column predicate based on column indexes */
         private Predicate<Integer> colIndexPredicate;
-        /** The optional column name mapping function */
+        /** The optional column name mapping function, applied to raw names before any other name based option */
         private ObjectIntBiFunction<String,String> columnNameMapping;
+        /** The optional predicates on raw column values keyed by column name, rows failing any predicate are skipped */
+        private Map<String,Predicate<String>> colValuePredicates;
 
 
         /**
@@ -108,6 +111,7 @@ public interface CsvSource {
             this.formats = new Formats();
             this.charset = StandardCharsets.UTF_8;
             this.colTypeMap = new HashMap<>();
+            this.colValuePredicates = new LinkedHashMap<>();
         }
 
 
@@ -127,6 +131,15 @@ public interface CsvSource {
             this.setColNamePredicate(Predicates.in(columns).negate());
         }
 
+        /**
+         * Adds a predicate on the raw values of the named column, so rows that fail it are skipped before parsing
+         * @param colName   the column name
+         * @param predicate the predicate applied to the raw column value, combined with any existing predicate
+         */
+        public void addValuePredicate(String colName, Predicate<String> predicate) {
+            this.colValuePredicates.merge(colName, predicate, Predicate::and);
+        }
+
         /**
          * Applies a column index predicate to include the specified indexes
          * @param columns   the column indexes to include
@@ -16,6 +16,7 @@
 package com.d3x.morpheus.csv;
 
 import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -39,6 +40,8 @@ import com.d3x.morpheus.range.Range;
 import com.d3x.morpheus.util.IO;
 import com.d3x.morpheus.util.Resource;
 import com.d3x.morpheus.util.http.HttpClient;
+import com.d3x.morpheus.util.metrics.Metrics;
+import com.d3x.morpheus.util.metrics.MetricsOperation;
 import com.d3x.morpheus.util.text.Formats;
 import com.d3x.morpheus.util.text.parser.Parser;
 import com.univocity.parsers.common.ParsingContext;
@@ -119,6 +122,25 @@ public class CsvSourceDefault implements CsvSource {
      * @throws IOException      if there stream read error
      */
     private <R> DataFrame<R,String> parse(Class<R> rowType, Options options, InputStream stream) throws IOException {
+        try (MetricsOperation operation = Metrics.start("csv.read")) {
+            var counter = operation.isEnabled() ? new CountingInputStream(stream) : null;
+            var frame = parse(rowType, options, counter != null ? counter : stream, operation);
+            if (counter != null) operation.bytes(counter.getCount());
+            return frame;
+        }
+    }
+
+
+    /**
+     * Returns a DataFrame parsed from the stream specified stream
+     * @param rowType   the row type
+     * @param options   the CSV options
+     * @param stream    the stream to parse
+     * @param operation the metrics operation for this parse
+     * @return          the DataFrame parsed from stream
+     * @throws IOException      if there stream read error
+     */
+    private <R> DataFrame<R,String> parse(Class<R> rowType, Options options, InputStream stream, MetricsOperation operation) throws IOException {
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, options.getCharset()))) {
             var handler = new CsvProcessor<R>(options);
             var settings = new CsvParserSettings();
@@ -135,7 +157,48 @@ public class CsvSourceDefault implements CsvSource {
             settings.setReadInputOnSeparateThread(true);
             var parser = new CsvParser(settings);
             parser.parse(reader);
-            return handler.build();
+            var frame = handler.build();
+            operation.rows(frame.rowCount()).columns(frame.colCount());
+            return frame;
+        }
+    }
+
+
+    /**
+     * A FilterInputStream that counts the bytes read through it for metrics
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        @lombok.Getter
+        private volatile long count;
+
+        /**
+         * Constructor
+         * @param stream    the underlying stream
+         */
+        CountingInputStream(InputStream stream) {
+            super(stream);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int value = super.read();
+            if (value >= 0) count++;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            final int result = super.read(bytes, offset, length);
+            if (result > 0) count += result;
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long result = super.skip(n);
+            count += result;
+            return result;
         }
     }
 
@@ -157,6 +220,8 @@ public class CsvSourceDefault implements CsvSource {
         private List<CsvColumn> columns;
         private Options options;
         private Predicate<String[]> rowPredicate;
+        private int[] valueIndexes;
+        private List<Predicate<String>> valuePredicates;
 
         /**
          * Constructor
@@ -170,14 +235,23 @@ public class CsvSourceDefault implements CsvSource {
 
         /**
          * Initializes the columns that will injest data from the CSV stream
+         * Column names are resolved through the optional name mapping first, so every name based option, including
+         * the value predicates pushed down by a lazy plan, refers to the column keys of the resulting frame.
          * @param colCount      the column count in source
          * @param context       the parsing context
          */
         private void initColumns(int colCount, ParsingContext context) {
             this.columns = new ArrayList<>();
             var headers = options.isHeader() ? context.headers() : IntStream.range(0, colCount).mapToObj(i -> "Column-" + i).toArray(String[]::new);
+            var mapping = options.getColumnNameMapping();
+            var colNames = new ArrayList<String>(colCount);
+            for (int colIndex=0; colIndex<colCount; ++colIndex) {
+                var header = colIndex < headers.length ? headers[colIndex] : null;
+                var rawName = Optional.ofNullable(header).orElse(String.format("Column-%s", colIndex));
+                colNames.add(mapping != null ? mapping.apply(rawName, colIndex) : rawName);
+            }
             for (int colIndex=0; colIndex<colCount; ++colIndex) {
-                var colName = Optional.ofNullable(headers[colIndex]).orElse(String.format("Column-%s", colIndex));
+                var colName = colNames.get(colIndex);
                 if (options.include(colName, colIndex)) {
                     var formats = options.getFormats();
                     var buffer = options.getReadBatchSize();
@@ -190,6 +264,37 @@ public class CsvSourceDefault implements CsvSource {
                     this.columns.add(column);
                 }
             }
+            var predicates = options.getColValuePredicates();
+            this.valueIndexes = new int[predicates != null ? predicates.size() : 0];
+            this.valuePredicates = new ArrayList<>(valueIndexes.length);
+            if (predicates != null) {
+                predicates.forEach((colName, predicate) -> {
+                    var colIndex = colNames.indexOf(colName);
+                    if (colIndex < 0) {
+                        throw new DataFrameException("No column in content matching value predicate column: " + colName);
+                    } else {
+                        this.valueIndexes[valuePredicates.size()] = colIndex;
+                        this.valuePredicates.add(predicate);
+                    }
+                });
+            }
+        }
+
+
+        /**
+         * Returns true if the raw values of the row satisfy all column value predicates
+         * @param row   the parsed row tokens
+         * @return      true if row should be included
+         */
+        private boolean acceptValues(String[] row) {
+            for (int i=0; i<valueIndexes.length; ++i) {
+                var colIndex = valueIndexes[i];
+                var value = colIndex < row.length ? row[colIndex] : null;
+                if (!valuePredicates.get(i).test(value)) {
+                    return false;
+                }
+            }
+            return true;
         }
 
 
@@ -216,7 +321,7 @@ public class CsvSourceDefault implements CsvSource {
                 if (columns == null) {
                     initColumns(row.length, context);
                 }
-                if (rowPredicate == null || rowPredicate.test(row)) {
+                if ((rowPredicate == null || rowPredicate.test(row)) && acceptValues(row)) {
                     this.rowCounter++;
                     if (rowCounter % 10000 == 0) {
                         var time = System.currentTimeMillis() - startTime;
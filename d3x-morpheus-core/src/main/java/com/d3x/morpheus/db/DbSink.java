@@ -42,6 +42,8 @@ import com.d3x.morpheus.util.IO;
 import com.d3x.morpheus.util.Initialiser;
 import com.d3x.morpheus.util.Try;
 import com.d3x.morpheus.util.functions.Function1;
+import com.d3x.morpheus.util.metrics.Metrics;
+import com.d3x.morpheus.util.metrics.MetricsOperation;
 import com.d3x.morpheus.util.sql.SQLPlatform;
 import com.d3x.morpheus.util.sql.SQLType;
 
@@ -94,7 +96,8 @@ public class DbSink {
         Objects.requireNonNull(frame, "DataFrame cannot be null");
         Objects.requireNonNull(configurator, "The options consumer cannot be null");
         var options = Initialiser.apply(new DbSinkOptions<>(), configurator);
-        try {
+        try (MetricsOperation operation = Metrics.start("db.write")) {
+            operation.rows(frame.rowCount()).columns(frame.colCount()).detail(options.getTableName());
             if (options.getPlatform() == null) {
                 var driverName = connection.getMetaData().getDriverName();
                 var platform = SQLPlatform.getPlatform(driverName);
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import com.d3x.morpheus.array.Array;
@@ -32,9 +33,12 @@ import com.d3x.morpheus.array.ArrayBuilder;
 import com.d3x.morpheus.array.ArrayType;
 import com.d3x.morpheus.frame.DataFrame;
 import com.d3x.morpheus.frame.DataFrameException;
+import com.d3x.morpheus.frame.DataFrameLazy;
 import com.d3x.morpheus.index.Index;
 import com.d3x.morpheus.range.Range;
 import com.d3x.morpheus.util.IO;
+import com.d3x.morpheus.util.metrics.Metrics;
+import com.d3x.morpheus.util.metrics.MetricsOperation;
 import com.d3x.morpheus.util.sql.SQLExtractor;
 import com.d3x.morpheus.util.sql.SQLPlatform;
 import com.d3x.morpheus.util.sql.SQLType;
@@ -92,22 +96,17 @@ public class DbSource {
      */
     @SuppressWarnings("unchecked")
     public <R> DataFrame<R,String> apply(Consumer<Options> configurator) throws DataFrameException {
-        try {
+        try (MetricsOperation operation = Metrics.start("db.read")) {
             var platform = getPlatform(resultSet);
             var metaData = resultSet.getMetaData();
             var options = new Options();
             configurator.accept(options);
             var columns = getColumns(metaData, platform, options);
-            if (!resultSet.next()) {
-                var rowKeys = (Index<R>)Index.empty();
-                return createFrame(rowKeys, columns, options.getColKeyMapper());
-            } else {
-                var counter = 1;
-                var t1 = System.currentTimeMillis();
-                for (ColumnInfo column : columns) {
-                    column.apply(resultSet);
-                }
-                while (resultSet.next()) {
+            var rowPredicate = options.getRowPredicate();
+            var counter = 0;
+            var t1 = System.currentTimeMillis();
+            while (resultSet.next()) {
+                if (rowPredicate == null || rowPredicate.test(resultSet)) {
                     for (ColumnInfo column : columns) {
                         column.apply(resultSet);
                     }
@@ -116,19 +115,23 @@ public class DbSource {
                         IO.println("Extracted " + counter + " rows in " + time + " millis");
                     }
                 }
-                if (options.getRowIndexColumnName() == null) {
-                    var rowKeys = (Array<R>)Range.of(0, counter).toArray();
-                    return createFrame(rowKeys, columns, options.getColKeyMapper());
+            }
+            operation.rows(counter).columns(columns.size());
+            if (counter == 0) {
+                var rowKeys = (Index<R>)Index.empty();
+                return createFrame(rowKeys, columns, options.getColKeyMapper());
+            } else if (options.getRowIndexColumnName() == null) {
+                var rowKeys = (Array<R>)Range.of(0, counter).toArray();
+                return createFrame(rowKeys, columns, options.getColKeyMapper());
+            } else {
+                var name = options.getRowIndexColumnName();
+                var column = columns.stream().filter(v -> v.name.equalsIgnoreCase(name)).findFirst().orElse(null);
+                if (column == null) {
+                    throw new IllegalArgumentException("No column matches row index column name: " + name);
                 } else {
-                    var name = options.getRowIndexColumnName();
-                    var column = columns.stream().filter(v -> v.name.equalsIgnoreCase(name)).findFirst().orElse(null);
-                    if (column == null) {
-                        throw new IllegalArgumentException("No column matches row index column name: " + name);
-                    } else {
-                        var rowKeys = (Array<R>)column.array.toArray();
-                        var data = columns.stream().filter(v -> !v.name.equalsIgnoreCase(name)).collect(Collectors.toList());
-                        return createFrame(rowKeys, data, options.getColKeyMapper());
-                    }
+                    var rowKeys = (Array<R>)column.array.toArray();
+                    var data = columns.stream().filter(v -> !v.name.equalsIgnoreCase(name)).collect(Collectors.toList());
+                    return createFrame(rowKeys, data, options.getColKeyMapper());
                 }
             }
         } catch (DataFrameException ex) {
@@ -141,6 +144,16 @@ public class DbSource {
     }
 
 
+    /**
+     * Returns a lazy query plan over the ResultSet, which pushes projections and filters into the extraction
+     * @param configurator  the options configurator
+     * @return              the lazy query plan, which consumes and closes the ResultSet when collected
+     */
+    public <R> DataFrameLazy<R,String> lazy(Consumer<Options> configurator) {
+        return DataFrameLazy.db(resultSet, configurator);
+    }
+
+
     /**
      * Returns the database platform type from the ResultSet
      * @param resultSet the result set
@@ -275,6 +288,8 @@ public class DbSource {
         private String rowIndexColumnName;
         private Set<String> excludeColumnSet = new HashSet<>();
         private Function<String,String> colKeyMapper = v -> v;
+        /** The optional predicate evaluated against each row of the ResultSet, rows failing it are not extracted */
+        private Predicate<ResultSet> rowPredicate;
     }
 
 }
@@ -32,6 +32,7 @@ import java.util.stream.Stream;
 
 import javax.imageio.ImageIO;
 
+import com.d3x.morpheus.array.segmented.SegmentedArray;
 import com.d3x.morpheus.db.DbSource;
 import com.d3x.morpheus.index.Index;
 import com.d3x.morpheus.matrix.D3xMatrix;
@@ -69,6 +70,12 @@ public interface DataFrame<R,C> extends DataFrameAccess<R,C>, DataFrameOperation
      */
     int colCount();
 
+    /**
+     * Returns the number of heap bytes retained by this frame, computed analytically from the style and coding of its arrays
+     * @return  the retained heap bytes, including arrays shared with the frame this was filtered from
+     */
+    long retainedBytes();
+
     /**
      * Returns true if this frame operates in parallel mode
      * @return  true if parallel mode is enabled
@@ -93,6 +100,14 @@ public interface DataFrame<R,C> extends DataFrameAccess<R,C>, DataFrameOperation
      */
     DataFrame<R,C> copy();
 
+    /**
+     * Returns a lazy query plan over this <code>DataFrame</code>, which is only executed on <code>collect()</code>
+     * @return  the lazy query plan over this frame
+     */
+    default DataFrameLazy<R,C> lazy() {
+        return DataFrameLazy.of(this);
+    }
+
     /**
      * Returns a reference to the output interface for this <code>DataFrame</code>
      * @return  the output interface for this <code>DataFrame</code>
@@ -192,6 +207,39 @@ public interface DataFrame<R,C> extends DataFrameAccess<R,C>, DataFrameOperation
      */
     DataFrame<C,R> transpose();
 
+    /**
+     * Returns the transpose of this DataFrame, optionally materialized into a new column store
+     * A materialized transpose is a deep copy that supports adding rows and column operations, and retains the
+     * column type if all columns of this frame share the same type, otherwise the columns are of type Object.
+     * @param materialize   true to copy the data into a new column store, false for a transposed view of this frame
+     * @return              the transpose of this frame
+     */
+    DataFrame<C,R> transpose(boolean materialize);
+
+    /**
+     * Returns a wide frame with a row for each distinct value in one column and a column for each distinct value in another
+     * Keys appear in the order they are first observed, and cells with no matching source rows or only NaN values are NaN.
+     * @param rowKeyCol     the column whose distinct values become the row keys of the result
+     * @param colKeyCol     the column whose distinct values become the column keys of the result
+     * @param valueCol      the numeric column whose values populate the cells of the result
+     * @param aggregator    the aggregator used to combine values that map to the same cell
+     * @param <X>           the row key type of the result
+     * @param <Y>           the column key type of the result
+     * @return              the newly created pivoted frame
+     */
+    <X,Y> DataFrame<X,Y> pivot(C rowKeyCol, C colKeyCol, C valueCol, DataFrameAggregator aggregator);
+
+    /**
+     * Returns a long frame with a row for each combination of source row and value column, which is the inverse of pivot()
+     * The result is ordered by value column and then source row, and keyed by integer ordinal.
+     * @param idCols        the columns that identify each source row, which are repeated for each value column
+     * @param valueCols     the columns to unpivot into the variable and value columns
+     * @param varCol        the key for the result column that holds the value column keys
+     * @param valueCol      the key for the result column that holds the values
+     * @return              the newly created melted frame
+     */
+    DataFrame<Integer,C> melt(Iterable<C> idCols, Iterable<C> valueCols, C varCol, C valueCol);
+
     /**
      * Returns the rank interface for this <code>DataFrame</code>
      * @return  the rank interface for the <code>DataFrame</code>
@@ -747,6 +795,32 @@ public interface DataFrame<R,C> extends DataFrameAccess<R,C>, DataFrameOperation
     }
 
 
+    /**
+     * Returns a new DataFrame builder that accepts values from many producer threads concurrently without locking
+     * @param rowType   the row key type for builder
+     * @param colType   the column key type for builder
+     * @param <R>       the row type
+     * @param <C>       the column type
+     * @return          the newly created builder
+     */
+    static <R,C> DataFrameConcurrentBuilder<R,C> concurrentBuilder(Class<R> rowType, Class<C> colType) {
+        return new DataFrameConcurrentBuilder<>(rowType, colType);
+    }
+
+
+    /**
+     * Returns a new append only DataFrame container optimized for continuous ingestion of rows
+     * @param rowType   the row key type for appender
+     * @param colType   the column key type for appender
+     * @param <R>       the row type
+     * @param <C>       the column type
+     * @return          the newly created appender
+     */
+    static <R,C> DataFrameAppender<R,C> appender(Class<R> rowType, Class<C> colType) {
+        return new DataFrameAppender<>(rowType, colType, SegmentedArray.DEFAULT_SEGMENT_BITS);
+    }
+
+
     /**
      * Returns a new DataFrame builder for row and column key types
      * @param rowType   the row key type for builder
@@ -0,0 +1,493 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.frame;
+
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * An interface to a mergeable aggregation that folds values into primitive state held in a shared double array.
+ *
+ * <p>
+ * Each group owns <code>width()</code> consecutive slots in a state array starting at some offset, which
+ * allows an aggregation over millions of groups to be expressed with a single primitive array rather than
+ * one object per group. Partial states computed over disjoint row ranges can be merged, and merge is always
+ * invoked with the state of the earlier row range on the left, so order sensitive aggregations such as first
+ * and last are well defined. NaN values are ignored by all the standard aggregations.
+ * </p>
+ *
+ * <p>
+ * Aggregations that can also retract a value from state report <code>isRemovable()</code>, which allows
+ * rolling window functions to slide the window in constant time per row rather than refolding every window.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public interface DataFrameAggregator {
+
+    /**
+     * Returns the number of double slots required to hold the state for one group
+     * @return  the number of state slots per group
+     */
+    int width();
+
+    /**
+     * Initializes the state slots for a group
+     * @param state     the state array
+     * @param offset    the offset of the group state in array
+     */
+    void init(double[] state, int offset);
+
+    /**
+     * Folds a value into the state for a group
+     * @param state     the state array
+     * @param offset    the offset of the group state in array
+     * @param value     the value to fold into state
+     */
+    void add(double[] state, int offset, double value);
+
+    /**
+     * Merges the right hand state, which covers later rows, into the left hand state
+     * @param left          the left state array, which is updated
+     * @param leftOffset    the offset of the group state in left array
+     * @param right         the right state array
+     * @param rightOffset   the offset of the group state in right array
+     */
+    void merge(double[] left, int leftOffset, double[] right, int rightOffset);
+
+    /**
+     * Returns the aggregate value given the state for a group
+     * @param state     the state array
+     * @param offset    the offset of the group state in array
+     * @return          the aggregate value
+     */
+    double result(double[] state, int offset);
+
+    /**
+     * Returns true if this aggregator supports removing a previously added value from state
+     * @return  true if remove() is supported
+     */
+    default boolean isRemovable() {
+        return false;
+    }
+
+    /**
+     * Retracts a value that was previously folded into the state for a group
+     * @param state     the state array
+     * @param offset    the offset of the group state in array
+     * @param value     the value to retract from state
+     */
+    default void remove(double[] state, int offset, double value) {
+        throw new DataFrameException("This aggregator does not support removal of values: " + getClass().getName());
+    }
+
+
+    /**
+     * Returns an aggregator that computes the sum of values
+     * @return  the aggregator
+     */
+    static DataFrameAggregator sum() {
+        return new DataFrameAggregator() {
+            @Override
+            public int width() {
+                return 1;
+            }
+            @Override
+            public void init(double[] state, int offset) {
+                state[offset] = 0d;
+            }
+            @Override
+            public void add(double[] state, int offset, double value) {
+                if (!Double.isNaN(value)) {
+                    state[offset] += value;
+                }
+            }
+            @Override
+            public void merge(double[] left, int leftOffset, double[] right, int rightOffset) {
+                left[leftOffset] += right[rightOffset];
+            }
+            @Override
+            public double result(double[] state, int offset) {
+                return state[offset];
+            }
+            @Override
+            public boolean isRemovable() {
+                return true;
+            }
+            @Override
+            public void remove(double[] state, int offset, double value) {
+                if (!Double.isNaN(value)) {
+                    state[offset] -= value;
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns an aggregator that computes the minimum of values
+     * @return  the aggregator
+     */
+    static DataFrameAggregator min() {
+        return new MinMax(true);
+    }
+
+    /**
+     * Returns an aggregator that computes the maximum of values
+     * @return  the aggregator
+     */
+    static DataFrameAggregator max() {
+        return new MinMax(false);
+    }
+
+    /**
+     * Returns an aggregator that computes the count of non-NaN values
+     * @return  the aggregator
+     */
+    static DataFrameAggregator count() {
+        return new DataFrameAggregator() {
+            @Override
+            public int width() {
+                return 1;
+            }
+            @Override
+            public void init(double[] state, int offset) {
+                state[offset] = 0d;
+            }
+            @Override
+            public void add(double[] state, int offset, double value) {
+                if (!Double.isNaN(value)) {
+                    state[offset]++;
+                }
+            }
+            @Override
+            public void merge(double[] left, int leftOffset, double[] right, int rightOffset) {
+                left[leftOffset] += right[rightOffset];
+            }
+            @Override
+            public double result(double[] state, int offset) {
+                return state[offset];
+            }
+            @Override
+            public boolean isRemovable() {
+                return true;
+            }
+            @Override
+            public void remove(double[] state, int offset, double value) {
+                if (!Double.isNaN(value)) {
+                    state[offset]--;
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns an aggregator that computes the mean of values
+     * @return  the aggregator
+     */
+    static DataFrameAggregator mean() {
+        return new DataFrameAggregator() {
+            @Override
+            public int width() {
+                return 2;
+            }
+            @Override
+            public void init(double[] state, int offset) {
+                state[offset] = 0d;
+                state[offset+1] = 0d;
+            }
+            @Override
+            public void add(double[] state, int offset, double value) {
+                if (!Double.isNaN(value)) {
+                    state[offset]++;
+                    state[offset+1] += value;
+                }
+            }
+            @Override
+            public void merge(double[] left, int leftOffset, double[] right, int rightOffset) {
+                left[leftOffset] += right[rightOffset];
+                left[leftOffset+1] += right[rightOffset+1];
+            }
+            @Override
+            public double result(double[] state, int offset) {
+                final double n = state[offset];
+                return n > 0d ? state[offset+1] / n : Double.NaN;
+            }
+            @Override
+            public boolean isRemovable() {
+                return true;
+            }
+            @Override
+            public void remove(double[] state, int offset, double value) {
+                if (!Double.isNaN(value)) {
+                    state[offset]--;
+                    state[offset+1] -= value;
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns an aggregator that computes the unbiased sample variance of values
+     * @return  the aggregator
+     */
+    static DataFrameAggregator variance() {
+        return new Moments(false);
+    }
+
+    /**
+     * Returns an aggregator that computes the unbiased sample standard deviation of values
+     * @return  the aggregator
+     */
+    static DataFrameAggregator stdDev() {
+        return new Moments(true);
+    }
+
+    /**
+     * Returns an aggregator that selects the first non-NaN value in row order
+     * @return  the aggregator
+     */
+    static DataFrameAggregator first() {
+        return new FirstLast(true);
+    }
+
+    /**
+     * Returns an aggregator that selects the last non-NaN value in row order
+     * @return  the aggregator
+     */
+    static DataFrameAggregator last() {
+        return new FirstLast(false);
+    }
+
+    /**
+     * Returns a custom aggregator which reduces non-NaN values with an associative operator
+     * @param identity  the initial value for each group
+     * @param operator  the associative operator to combine values, and to merge partial results
+     * @return          the aggregator
+     */
+    static DataFrameAggregator reduce(double identity, DoubleBinaryOperator operator) {
+        return new DataFrameAggregator() {
+            @Override
+            public int width() {
+                return 1;
+            }
+            @Override
+            public void init(double[] state, int offset) {
+                state[offset] = identity;
+            }
+            @Override
+            public void add(double[] state, int offset, double value) {
+                if (!Double.isNaN(value)) {
+                    state[offset] = operator.applyAsDouble(state[offset], value);
+                }
+            }
+            @Override
+            public void merge(double[] left, int leftOffset, double[] right, int rightOffset) {
+                final double value = right[rightOffset];
+                if (Double.isNaN(left[leftOffset])) {
+                    left[leftOffset] = value;
+                } else if (!Double.isNaN(value)) {
+                    left[leftOffset] = operator.applyAsDouble(left[leftOffset], value);
+                }
+            }
+            @Override
+            public double result(double[] state, int offset) {
+                return state[offset];
+            }
+        };
+    }
+
+
+    /**
+     * An aggregator that selects the first or last non-NaN value
+     */
+    class FirstLast implements DataFrameAggregator {
+
+        private boolean first;
+
+        /**
+         * Constructor
+         * @param first     true to select first value, false for last
+         */
+        private FirstLast(boolean first) {
+            this.first = first;
+        }
+
+        @Override
+        public int width() {
+            return 1;
+        }
+
+        @Override
+        public void init(double[] state, int offset) {
+            state[offset] = Double.NaN;
+        }
+
+        @Override
+        public void add(double[] state, int offset, double value) {
+            if (!Double.isNaN(value)) {
+                if (!first || Double.isNaN(state[offset])) {
+                    state[offset] = value;
+                }
+            }
+        }
+
+        @Override
+        public void merge(double[] left, int leftOffset, double[] right, int rightOffset) {
+            this.add(left, leftOffset, right[rightOffset]);
+        }
+
+        @Override
+        public double result(double[] state, int offset) {
+            return state[offset];
+        }
+    }
+
+
+    /**
+     * An aggregator that selects the minimum or maximum non-NaN value
+     */
+    class MinMax implements DataFrameAggregator {
+
+        private boolean min;
+
+        /**
+         * Constructor
+         * @param min   true to select the minimum value, false for the maximum
+         */
+        private MinMax(boolean min) {
+            this.min = min;
+        }
+
+        /**
+         * Returns true if this aggregator selects the minimum value
+         * @return  true for minimum, false for maximum
+         */
+        public boolean isMin() {
+            return min;
+        }
+
+        @Override
+        public int width() {
+            return 1;
+        }
+
+        @Override
+        public void init(double[] state, int offset) {
+            state[offset] = Double.NaN;
+        }
+
+        @Override
+        public void add(double[] state, int offset, double value) {
+            if (!Double.isNaN(value)) {
+                final double current = state[offset];
+                if (Double.isNaN(current)) {
+                    state[offset] = value;
+                } else {
+                    state[offset] = min ? Math.min(current, value) : Math.max(current, value);
+                }
+            }
+        }
+
+        @Override
+        public void merge(double[] left, int leftOffset, double[] right, int rightOffset) {
+            this.add(left, leftOffset, right[rightOffset]);
+        }
+
+        @Override
+        public double result(double[] state, int offset) {
+            return state[offset];
+        }
+    }
+
+
+    /**
+     * An aggregator for variance and standard deviation based on Welford's update and Chan's merge of moments
+     */
+    class Moments implements DataFrameAggregator {
+
+        private boolean stdDev;
+
+        /**
+         * Constructor
+         * @param stdDev    true to report standard deviation, false for variance
+         */
+        private Moments(boolean stdDev) {
+            this.stdDev = stdDev;
+        }
+
+        @Override
+        public int width() {
+            return 3;
+        }
+
+        @Override
+        public void init(double[] state, int offset) {
+            state[offset] = 0d;
+            state[offset+1] = 0d;
+            state[offset+2] = 0d;
+        }
+
+        @Override
+        public void add(double[] state, int offset, double value) {
+            if (!Double.isNaN(value)) {
+                final double n = ++state[offset];
+                final double delta = value - state[offset+1];
+                state[offset+1] += delta / n;
+                state[offset+2] += delta * (value - state[offset+1]);
+            }
+        }
+
+        @Override
+        public void merge(double[] left, int leftOffset, double[] right, int rightOffset) {
+            final double n1 = left[leftOffset];
+            final double n2 = right[rightOffset];
+            if (n2 > 0d) {
+                final double n = n1 + n2;
+                final double delta = right[rightOffset+1] - left[leftOffset+1];
+                left[leftOffset] = n;
+                left[leftOffset+1] += delta * n2 / n;
+                left[leftOffset+2] += right[rightOffset+2] + delta * delta * n1 * n2 / n;
+            }
+        }
+
+        @Override
+        public double result(double[] state, int offset) {
+            final double n = state[offset];
+            final double variance = n > 1d ? state[offset+2] / (n - 1d) : Double.NaN;
+            return stdDev ? Math.sqrt(variance) : variance;
+        }
+
+        @Override
+        public boolean isRemovable() {
+            return true;
+        }
+
+        @Override
+        public void remove(double[] state, int offset, double value) {
+            if (!Double.isNaN(value)) {
+                final double n = --state[offset];
+                if (n <= 0d) {
+                    this.init(state, offset);
+                } else {
+                    final double delta = value - state[offset+1];
+                    state[offset+1] -= delta / n;
+                    state[offset+2] = Math.max(0d, state[offset+2] - delta * (value - state[offset+1]));
+                }
+            }
+        }
+    }
+}
@@ -32,7 +32,7 @@ import com.d3x.morpheus.array.Array;
  */
 public interface DataFrameAlgebra<R,C> {
 
-    enum Lib { JAMA, APACHE }
+    enum Lib { JAMA, APACHE, BLOCKED }
 
     ThreadLocal<Lib> LIBRARY = new ThreadLocal<Lib>() {
         @Override
@@ -0,0 +1,644 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.frame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayBuilder;
+import com.d3x.morpheus.array.ArrayType;
+import com.d3x.morpheus.array.segmented.SegmentedArray;
+import com.d3x.morpheus.index.Index;
+import com.d3x.morpheus.index.IndexConsumer;
+import com.d3x.morpheus.index.IndexException;
+import com.d3x.morpheus.index.IndexMapper;
+import com.d3x.morpheus.util.IntComparator;
+import com.d3x.morpheus.util.MemoryLayout;
+
+/**
+ * An append only container for a DataFrame that ingests rows from producer threads while readers take snapshots.
+ *
+ * <p>
+ * Row keys and column data are held in <code>SegmentedArray</code> instances, so growth allocates new segments
+ * rather than reallocating and copying every column as a regular frame does when rows are added. Producers append
+ * rows in batches expressed as a DataFrame, and each batch is published atomically once all its values have been
+ * written. Readers call <code>snapshot()</code> to obtain a read only DataFrame over a consistent prefix of the
+ * rows appended so far, which shares storage with this appender and remains valid as more rows arrive. A snapshot
+ * does not index its row keys again, but looks them up in the index of this appender and ignores keys beyond its
+ * prefix, so taking a snapshot costs the same however many rows have been appended. Operations that reorder or
+ * filter the rows of a snapshot first copy its keys into a private index.
+ * </p>
+ *
+ * <p>
+ * Listeners are notified of appended rows asynchronously on the configured executor, and appends that occur while
+ * a notification is pending are coalesced, so a slow listener sees fewer, larger row add events rather than
+ * holding up the producer.
+ * </p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * <p>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class DataFrameAppender<R,C> {
+
+    /** The row key type for frame */
+    @lombok.Getter
+    private final Class<R> rowType;
+    /** The column key type for frame */
+    @lombok.Getter
+    private final Class<C> colType;
+    /** The executor used to dispatch events to listeners */
+    @lombok.Setter @lombok.NonNull
+    private volatile Executor executor = ForkJoinPool.commonPool();
+
+    private final int segmentBits;
+    private final Index<R> rowKeys;
+    private final SegmentedArray<R> keyArray;
+    private final Lock lock = new ReentrantLock();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final List<DataFrameListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile List<Column<C>> columns = Collections.emptyList();
+    private volatile DataFrame<R,C> snapshot;
+    private volatile int rowCount;
+    private int notified;
+
+
+    /**
+     * Constructor
+     * @param rowType       the row key type for frame
+     * @param colType       the column key type for frame
+     * @param segmentBits   the number of bits used to express the segment size for columns
+     */
+    DataFrameAppender(
+        @lombok.NonNull Class<R> rowType,
+        @lombok.NonNull Class<C> colType,
+        int segmentBits) {
+        this.rowType = rowType;
+        this.colType = colType;
+        this.segmentBits = segmentBits;
+        this.keyArray = SegmentedArray.of(rowType, 0, null, segmentBits);
+        this.rowKeys = Index.of(keyArray);
+    }
+
+
+    /**
+     * Returns the number of rows published by this appender
+     * @return  the published row count
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+
+    /**
+     * Returns the number of columns in this appender
+     * @return  the column count
+     */
+    public int colCount() {
+        return columns.size();
+    }
+
+
+    /**
+     * Adds a column to this appender if it does not already exist, which is null for all existing rows
+     * @param colKey    the column key
+     * @param type      the data type for column
+     * @return          this appender
+     */
+    public <T> DataFrameAppender<R,C> addColumn(@lombok.NonNull C colKey, @lombok.NonNull Class<T> type) {
+        try {
+            this.lock.lock();
+            if (column(colKey) == null) {
+                final List<Column<C>> newColumns = new ArrayList<>(columns);
+                newColumns.add(new Column<>(colKey, SegmentedArray.of(type, keyArray.length(), null, segmentBits)));
+                this.columns = Collections.unmodifiableList(newColumns);
+            }
+            return this;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+
+    /**
+     * Appends the rows of the frame provided, adding any columns not already present in this appender
+     * The rows are published to readers atomically once all values in the batch have been written.
+     * @param rows  the batch of rows to append
+     * @return      the number of rows appended
+     * @throws DataFrameException   if a row key already exists, and duplicates are not being ignored
+     */
+    public int append(@lombok.NonNull DataFrame<R,C> rows) {
+        try {
+            this.lock.lock();
+            final boolean ignoreDuplicates = DataFrameOptions.isIgnoreDuplicates();
+            final int[] ordinals = new int[rows.rowCount()];
+            int count = 0;
+            for (int i=0; i<ordinals.length; ++i) {
+                final R rowKey = rows.rows().key(i);
+                if (!rowKeys.contains(rowKey)) {
+                    ordinals[count++] = i;
+                } else if (!ignoreDuplicates) {
+                    throw new DataFrameException("A row for key already exists in this appender: " + rowKey);
+                }
+            }
+            if (count > 0) {
+                rows.cols().keys().forEach(colKey -> addColumn(colKey, rows.cols().type(colKey)));
+                final int start = rowKeys.size();
+                synchronized (rowKeys) {
+                    for (int i=0; i<count; ++i) {
+                        this.rowKeys.add(rows.rows().key(ordinals[i]));
+                    }
+                }
+                for (Column<C> column : columns) {
+                    column.array.expand(keyArray.length());
+                    if (rows.cols().contains(column.key)) {
+                        final int colOrdinal = rows.cols().ordinal(column.key);
+                        column.copy(rows, ordinals, count, colOrdinal, start);
+                    }
+                }
+                this.rowCount = rowKeys.size();
+                this.notifyListeners();
+            }
+            return count;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+
+    /**
+     * Returns a read only DataFrame over a consistent prefix of the rows appended so far
+     * The snapshot shares storage with this appender, and is unaffected by rows appended after it was taken.
+     * @return      the snapshot of rows published by this appender
+     */
+    public DataFrame<R,C> snapshot() {
+        final int rowCount = this.rowCount;
+        final List<Column<C>> columns = this.columns;
+        final DataFrame<R,C> cached = this.snapshot;
+        if (cached != null && cached.rowCount() == rowCount && cached.colCount() == columns.size()) {
+            return cached;
+        } else {
+            final Index<R> index = new SnapshotIndex<>(rowKeys, keyArray.prefix(rowCount));
+            final DataFrame<R,C> result = DataFrame.of(index, colType, frame -> {
+                columns.forEach(column -> frame.add(column.key, column.array.prefix(rowCount)));
+            });
+            this.snapshot = result;
+            return result;
+        }
+    }
+
+
+    /**
+     * Adds a listener to be notified asynchronously of rows appended to this appender
+     * @param listener  the listener reference
+     */
+    public void addDataFrameListener(@lombok.NonNull DataFrameListener listener) {
+        this.listeners.add(listener);
+    }
+
+
+    /**
+     * Removes a listener so it is no longer notified of appended rows
+     * @param listener  the listener reference
+     */
+    public void removeDataFrameListener(DataFrameListener listener) {
+        this.listeners.remove(listener);
+    }
+
+
+    /**
+     * Returns the column for the key specified
+     * @param colKey    the column key
+     * @return          the column, null if no match
+     */
+    private Column<C> column(C colKey) {
+        for (Column<C> column : columns) {
+            if (column.key.equals(colKey)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Schedules a dispatch of pending events unless one is already scheduled
+     */
+    private void notifyListeners() {
+        if (!listeners.isEmpty() && pending.compareAndSet(false, true)) {
+            this.executor.execute(this::dispatch);
+        }
+    }
+
+
+    /**
+     * Dispatches a single row add event to listeners for all rows published since the last dispatch
+     */
+    private synchronized void dispatch() {
+        this.pending.set(false);
+        final DataFrame<R,C> frame = snapshot();
+        final int from = notified;
+        final int to = frame.rowCount();
+        if (to > from) {
+            this.notified = to;
+            final Array<R> added = keyArray.prefix(to).copy(from, to);
+            final DataFrameEvent<R,C> event = DataFrameEvent.createRowAdd(frame, added);
+            this.listeners.forEach(listener -> listener.onDataFrameEvent(event));
+        }
+    }
+
+
+    /**
+     * The row index of a snapshot, which views a prefix of the keys in the index of this appender
+     *
+     * <p>
+     * Key lookups are delegated to the shared index of the appender while holding its monitor, which the appender
+     * also holds while adding keys, and coordinates beyond the prefix are treated as missing. Positional access
+     * reads the prefix of the segmented key array, whose published values never change. Operations that reorder,
+     * filter or map keys first copy the prefix into a private index, which is used for all later calls.
+     * </p>
+     *
+     * @param <K>   the key type
+     */
+    private static class SnapshotIndex<K> implements Index<K> {
+
+        private static final long serialVersionUID = 1L;
+
+        private int size;
+        private Array<K> keys;
+        private Index<K> shared;
+        private volatile Index<K> local;
+
+        /**
+         * Constructor
+         * @param shared    the shared index of the appender, whose coordinates match the key array
+         * @param keys      the prefix of the key array visible to the snapshot
+         */
+        SnapshotIndex(Index<K> shared, Array<K> keys) {
+            this.shared = shared;
+            this.keys = keys;
+            this.size = keys.length();
+        }
+
+        /**
+         * Returns the private index for this snapshot, creating it from the key prefix if necessary
+         * @return  the private index
+         */
+        private synchronized Index<K> local() {
+            if (local == null) {
+                this.local = Index.of(keys.copy());
+            }
+            return local;
+        }
+
+        @Override
+        public final int size() {
+            final Index<K> local = this.local;
+            return local != null ? local.size() : size;
+        }
+
+        @Override
+        public final int capacity() {
+            final Index<K> local = this.local;
+            return local != null ? local.capacity() : size;
+        }
+
+        @Override
+        public final long retainedBytes() {
+            final Index<K> local = this.local;
+            return MemoryLayout.shallow(3, Integer.BYTES) + (local != null ? local.retainedBytes() : 0L);
+        }
+
+        @Override
+        public final boolean add(K key) {
+            throw new IndexException("The Index of a DataFrameAppender snapshot is read only");
+        }
+
+        @Override
+        public final int addAll(Iterable<K> keys, boolean ignoreDuplicates) {
+            throw new IndexException("The Index of a DataFrameAppender snapshot is read only");
+        }
+
+        @Override
+        public final Class<K> type() {
+            return keys.type();
+        }
+
+        @Override
+        public final boolean isEmpty() {
+            return size() == 0;
+        }
+
+        @Override
+        public final boolean isFilter() {
+            final Index<K> local = this.local;
+            return local != null && local.isFilter();
+        }
+
+        @Override
+        public final boolean isReadOnly() {
+            return true;
+        }
+
+        @Override
+        public final Index<K> copy(boolean deep) {
+            final Index<K> local = this.local;
+            return local != null ? local.copy(deep) : Index.of(keys.copy());
+        }
+
+        @Override
+        public final Index<K> readOnly() {
+            return this;
+        }
+
+        @Override
+        public final Stream<K> keys() {
+            final Index<K> local = this.local;
+            return local != null ? local.keys() : IntStream.range(0, size).mapToObj(keys::getValue);
+        }
+
+        @Override
+        public final List<K> toList() {
+            final Index<K> local = this.local;
+            return local != null ? local.toList() : keys.toList();
+        }
+
+        @Override
+        public final Array<K> toArray() {
+            final Index<K> local = this.local;
+            return local != null ? local.toArray() : keys.copy();
+        }
+
+        @Override
+        public final Array<K> toArray(int from, int to) {
+            final Index<K> local = this.local;
+            return local != null ? local.toArray(from, to) : keys.copy(from, to);
+        }
+
+        @Override
+        public final IntStream indexes() {
+            final Index<K> local = this.local;
+            return local != null ? local.indexes() : IntStream.range(0, size);
+        }
+
+        @Override
+        public final IntStream indexes(Iterable<K> keys) {
+            final Index<K> local = this.local;
+            if (local != null) {
+                return local.indexes(keys);
+            } else {
+                final IntStream.Builder builder = IntStream.builder();
+                keys.forEach(key -> builder.accept(getCoordinate(key)));
+                return builder.build();
+            }
+        }
+
+        @Override
+        public final IntStream ordinals(Iterable<K> keys) {
+            final Index<K> local = this.local;
+            if (local != null) {
+                return local.ordinals(keys);
+            } else {
+                final IntStream.Builder builder = IntStream.builder();
+                keys.forEach(key -> builder.accept(getOrdinal(key)));
+                return builder.build();
+            }
+        }
+
+        @Override
+        public final Optional<K> first() {
+            return size() == 0 ? Optional.empty() : Optional.ofNullable(getKey(0));
+        }
+
+        @Override
+        public final Optional<K> last() {
+            return size() == 0 ? Optional.empty() : Optional.ofNullable(getKey(size() - 1));
+        }
+
+        @Override
+        public final Optional<K> previousKey(K key) {
+            return local().previousKey(key);
+        }
+
+        @Override
+        public final Optional<K> nextKey(K key) {
+            return local().nextKey(key);
+        }
+
+        @Override
+        public final Index<K> resetOrder() {
+            final Index<K> local = this.local;
+            if (local != null) {
+                local.resetOrder();
+            }
+            return this;
+        }
+
+        @Override
+        public final K getKey(int ordinal) {
+            final Index<K> local = this.local;
+            if (local != null) {
+                return local.getKey(ordinal);
+            } else if (ordinal < 0 || ordinal >= size) {
+                throw new IndexException("Ordinal out of bounds: " + ordinal + " not in [0, " + size + ")");
+            } else {
+                return keys.getValue(ordinal);
+            }
+        }
+
+        @Override
+        public final int getOrdinal(K key) {
+            final Index<K> local = this.local;
+            return local != null ? local.getOrdinal(key) : getCoordinate(key);
+        }
+
+        @Override
+        public final int getOrdinalAt(int coordinate) {
+            final Index<K> local = this.local;
+            return local != null ? local.getOrdinalAt(coordinate) : coordinate;
+        }
+
+        @Override
+        public final int getCoordinate(K key) {
+            final Index<K> local = this.local;
+            if (local != null) {
+                return local.getCoordinate(key);
+            } else {
+                synchronized (shared) {
+                    final int coordinate = shared.getCoordinate(key);
+                    return coordinate < size ? coordinate : -1;
+                }
+            }
+        }
+
+        @Override
+        public final int getCoordinateAt(int ordinal) {
+            final Index<K> local = this.local;
+            if (local != null) {
+                return local.getCoordinateAt(ordinal);
+            } else if (ordinal < 0 || ordinal >= size) {
+                throw new IndexException("Ordinal out of bounds: " + ordinal + " not in [0, " + size + ")");
+            } else {
+                return ordinal;
+            }
+        }
+
+        @Override
+        public final boolean contains(K key) {
+            return getCoordinate(key) >= 0;
+        }
+
+        @Override
+        public final boolean containsAll(Iterable<K> keys) {
+            for (K key : keys) {
+                if (!contains(key)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public final <V> Index<V> map(IndexMapper<K,V> mapper) {
+            return local().map(mapper);
+        }
+
+        @Override
+        public final Array<K> intersect(Iterable<K> keys) {
+            final Index<K> local = this.local;
+            if (local != null) {
+                return local.intersect(keys);
+            } else {
+                final ArrayBuilder<K> builder = ArrayBuilder.of(Math.max(100, size / 5), type());
+                keys.forEach(key -> {
+                    if (key != null && contains(key)) builder.append(key);
+                });
+                return builder.toArray();
+            }
+        }
+
+        @Override
+        public final int replace(K existing, K replacement) {
+            throw new IndexException("The Index of a DataFrameAppender snapshot is read only");
+        }
+
+        @Override
+        public final void forEachEntry(IndexConsumer<K> consumer) {
+            final Index<K> local = this.local;
+            if (local != null) {
+                local.forEachEntry(consumer);
+            } else {
+                for (int i=0; i<size; ++i) {
+                    consumer.accept(keys.getValue(i), i);
+                }
+            }
+        }
+
+        @Override
+        public final void sort(boolean parallel, boolean ascending) {
+            this.local().sort(parallel, ascending);
+        }
+
+        @Override
+        public final void sort(boolean parallel, IntComparator comparator) {
+            this.local().sort(parallel, comparator);
+        }
+
+        @Override
+        public final Index<K> filter(Iterable<K> keys) {
+            return local().filter(keys);
+        }
+
+        @Override
+        public final Index<K> filter(Predicate<K> predicate) {
+            return local().filter(predicate);
+        }
+
+        @Override
+        public final Iterator<K> iterator() {
+            final Index<K> local = this.local;
+            return local != null ? local.iterator() : keys().iterator();
+        }
+    }
+
+
+    /**
+     * A column of this appender, which holds the column key and segmented data
+     * @param <C>   the column key type
+     */
+    private static class Column<C> {
+
+        private C key;
+        private ArrayType type;
+        private SegmentedArray<Object> array;
+
+        /**
+         * Constructor
+         * @param key       the column key
+         * @param array     the column data
+         */
+        @SuppressWarnings("unchecked")
+        Column(C key, SegmentedArray<?> array) {
+            this.key = key;
+            this.array = (SegmentedArray<Object>)array;
+            this.type = ArrayType.of(array.type());
+        }
+
+        /**
+         * Copies values from a column of the batch into this column
+         * @param rows          the batch of rows
+         * @param ordinals      the row ordinals in batch to copy
+         * @param count         the number of row ordinals to copy
+         * @param colOrdinal    the column ordinal in batch
+         * @param start         the index in this column to write the first value
+         */
+        private void copy(DataFrame<?,?> rows, int[] ordinals, int count, int colOrdinal, int start) {
+            switch (type) {
+                case BOOLEAN:
+                    for (int i=0; i<count; ++i) array.setBoolean(start + i, rows.getBooleanAt(ordinals[i], colOrdinal));
+                    break;
+                case INTEGER:
+                    for (int i=0; i<count; ++i) array.setInt(start + i, rows.getIntAt(ordinals[i], colOrdinal));
+                    break;
+                case LONG:
+                    for (int i=0; i<count; ++i) array.setLong(start + i, rows.getLongAt(ordinals[i], colOrdinal));
+                    break;
+                case DOUBLE:
+                    for (int i=0; i<count; ++i) array.setDouble(start + i, rows.getDoubleAt(ordinals[i], colOrdinal));
+                    break;
+                default:
+                    for (int i=0; i<count; ++i) array.setValue(start + i, rows.getValueAt(ordinals[i], colOrdinal));
+                    break;
+            }
+        }
+    }
+}
@@ -313,6 +313,13 @@ public interface DataFrameAxis<X,Y,R,C,V extends DataFrameVector,T extends DataF
      */
     DataFrame<R,C> select(int start, int length);
 
+    /**
+     * Returns a DataFrame view containing the records whose Tuple keys start with the items of the prefix
+     * @param prefix    the prefix to match, for example Tuple.of("X") for all records with "X" in level 0
+     * @return          the <code>DataFrame</code> view, with records in the order of this axis
+     */
+    DataFrame<R,C> selectPrefix(Tuple prefix);
+
     /**
      * Sorts the DataFrame along this axis based on the keys in ascending/descending order
      * @param ascending     true for ascending order, false for descending
@@ -299,8 +299,9 @@ public class DataFrameBuilder<R,C> {
 
 
     /**
-     * Makes this builder thread safe
+     * Makes this builder thread safe by serializing all updates through a single lock
      * @return  this builder
+     * @see DataFrame#concurrentBuilder(Class, Class)
      */
     public synchronized DataFrameBuilder<R,C> threadSafe() {
         if (lock != null) {
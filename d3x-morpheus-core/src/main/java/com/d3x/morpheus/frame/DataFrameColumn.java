@@ -17,6 +17,8 @@ package com.d3x.morpheus.frame;
 
 import java.util.stream.Stream;
 
+import com.d3x.morpheus.series.DenseDoubleSeries;
+
 /**
  * A convenience marker interface used to represent a column vector on a DataFrame
  *
@@ -44,6 +46,16 @@ public interface DataFrameColumn<R,C> extends DataFrameVector<C,R,R,C,DataFrameC
         return frame().rows().keys();
     }
 
+    /**
+     * Returns a DoubleSeries of the values in this numeric column keyed by row
+     * The series is a view that shares the row index of the frame, and shares the values of a dense double column
+     * without copying them, so it reflects later updates to values and row order. It is only valid until rows are
+     * added beyond the capacity of the frame, after which access to the series throws a MorpheusException.
+     * @return      the series of values in this column
+     * @throws DataFrameException   if this column is not numeric
+     */
+    DenseDoubleSeries<R> toDoubleSeries();
+
     /**
      * An interface to a movable DataFrameRow
      * @param <R>   the row key type
@@ -0,0 +1,482 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.frame;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayBuilder;
+import com.d3x.morpheus.index.Index;
+
+/**
+ * A builder that constructs a DataFrame from values put concurrently by many producer threads without contention
+ *
+ * <p>
+ * Each producer thread writes into its own shard, which holds a row index and one <code>ArrayBuilder</code> per
+ * column, so puts never acquire a lock or touch memory written by another thread. Row keys are resolved to shard
+ * local coordinates through the shard's own index, which for int, long and date keys is a primitive keyed hash
+ * map. The shards are merged into a single frame by <code>build()</code>: rows appear in the order they were first
+ * seen by the first shard to see them, and shards are visited in the order they were created.
+ * </p>
+ *
+ * <p>
+ * Values put to the same cell from different threads are merged in shard order, so the last shard to write a cell
+ * wins. Columns that receive any of the <code>plusXXX()</code> accumulations are instead merged by adding the
+ * shard totals, so accumulations spread across threads produce the same result as a single threaded build.
+ * </p>
+ *
+ * <p>
+ * Producers must have finished, and their writes must be visible to the calling thread (for example by joining
+ * the producer threads or waiting on their futures), before <code>build()</code> is called. Shards are looked up
+ * by thread in a map owned by this builder rather than held in thread locals, so pooled producer threads never
+ * retain a builder, and <code>build()</code> releases all shards so that a builder reused afterwards starts empty.
+ * </p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * <p>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class DataFrameConcurrentBuilder<R,C> {
+
+    private static final int DEFAULT_ROW_CAPACITY = 1000;
+
+    /** The row key type for frame */
+    @lombok.Getter
+    private final Class<R> rowType;
+    /** The column key type for frame */
+    @lombok.Getter
+    private final Class<C> colType;
+    /** The function to provide the load factor for columns */
+    @lombok.Setter @lombok.NonNull
+    private Function<C,Float> loadFactor = c -> 1f;
+    /** The function to provide the default value for columns */
+    @lombok.Setter @lombok.NonNull
+    private Function<C,Object> defaultValue = c -> null;
+
+    private volatile int rowCapacity = DEFAULT_ROW_CAPACITY;
+    private final Map<C,Class<?>> typeMap = new LinkedHashMap<>();
+    private final List<Shard<R,C>> shards = new CopyOnWriteArrayList<>();
+    private final Map<Thread,Shard<R,C>> shardMap = new ConcurrentHashMap<>();
+
+
+    /**
+     * Constructor
+     * @param rowType   the row key type for frame
+     * @param colType   the column key type for frame
+     */
+    DataFrameConcurrentBuilder(
+        @lombok.NonNull Class<R> rowType,
+        @lombok.NonNull Class<C> colType) {
+        this.rowType = rowType;
+        this.colType = colType;
+    }
+
+
+    /**
+     * Sets the initial row capacity for each shard created after this call
+     * @param rowCapacity   the initial row capacity per producer thread
+     * @return              this builder
+     */
+    public DataFrameConcurrentBuilder<R,C> rowCapacity(int rowCapacity) {
+        this.rowCapacity = Math.max(rowCapacity, 10);
+        return this;
+    }
+
+
+    /**
+     * Declares a column with the data type specified, which takes precedence over types inferred from values
+     * @param colKey    the column key
+     * @param dataType  the data type for column
+     * @return          this builder
+     */
+    public DataFrameConcurrentBuilder<R,C> addColumn(C colKey, Class<?> dataType) {
+        synchronized (typeMap) {
+            this.typeMap.putIfAbsent(colKey, dataType);
+            return this;
+        }
+    }
+
+
+    /**
+     * Returns the number of shards, which is the number of threads that have written to this builder
+     * @return  the number of shards
+     */
+    public int shardCount() {
+        return shards.size();
+    }
+
+
+    /**
+     * Returns the shard for the calling thread, creating and registering it for merging if necessary
+     * @return  the shard for the calling thread
+     */
+    private Shard<R,C> shard() {
+        final Thread thread = Thread.currentThread();
+        final Shard<R,C> shard = shardMap.get(thread);
+        if (shard != null) {
+            return shard;
+        } else {
+            return shardMap.computeIfAbsent(thread, t -> {
+                final Shard<R,C> result = new Shard<>(rowType, typeMap, rowCapacity);
+                this.shards.add(result);
+                return result;
+            });
+        }
+    }
+
+
+    /**
+     * Adds all rows to this builder
+     * @param rowKeys   the row keys to add
+     * @return          this builder
+     */
+    public DataFrameConcurrentBuilder<R,C> addRows(Iterable<R> rowKeys) {
+        final Shard<R,C> shard = shard();
+        rowKeys.forEach(shard::putRow);
+        return this;
+    }
+
+
+    /**
+     * Applies a value to this builder for the row and column key
+     * @param rowKey    the row key
+     * @param colKey    the column key
+     * @param value     the value to apply
+     * @return          this builder
+     */
+    public DataFrameConcurrentBuilder<R,C> putBoolean(R rowKey, C colKey, boolean value) {
+        final Shard<R,C> shard = shard();
+        final int coord = shard.putRow(rowKey);
+        shard.column(colKey, false).put(coord).setBoolean(coord, value);
+        return this;
+    }
+
+
+    /**
+     * Applies a value to this builder for the row and column key
+     * @param rowKey    the row key
+     * @param colKey    the column key
+     * @param value     the value to apply
+     * @return          this builder
+     */
+    public DataFrameConcurrentBuilder<R,C> putInt(R rowKey, C colKey, int value) {
+        final Shard<R,C> shard = shard();
+        final int coord = shard.putRow(rowKey);
+        shard.column(colKey, false).put(coord).setInt(coord, value);
+        return this;
+    }
+
+
+    /**
+     * Applies a value to this builder for the row and column key
+     * @param rowKey    the row key
+     * @param colKey    the column key
+     * @param value     the value to apply
+     * @return          this builder
+     */
+    public DataFrameConcurrentBuilder<R,C> putLong(R rowKey, C colKey, long value) {
+        final Shard<R,C> shard = shard();
+        final int coord = shard.putRow(rowKey);
+        shard.column(colKey, false).put(coord).setLong(coord, value);
+        return this;
+    }
+
+
+    /**
+     * Applies a value to this builder for the row and column key
+     * @param rowKey    the row key
+     * @param colKey    the column key
+     * @param value     the value to apply
+     * @return          this builder
+     */
+    public DataFrameConcurrentBuilder<R,C> putDouble(R rowKey, C colKey, double value) {
+        final Shard<R,C> shard = shard();
+        final int coord = shard.putRow(rowKey);
+        shard.column(colKey, false).put(coord).setDouble(coord, value);
+        return this;
+    }
+
+
+    /**
+     * Applies a value to this builder for the row and column key
+     * @param rowKey    the row key
+     * @param colKey    the column key
+     * @param value     the value to apply
+     * @return          this builder
+     */
+    public <T> DataFrameConcurrentBuilder<R,C> putValue(R rowKey, C colKey, T value) {
+        final Shard<R,C> shard = shard();
+        final int coord = shard.putRow(rowKey);
+        shard.column(colKey, false).put(coord).setValue(coord, value);
+        return this;
+    }
+
+
+    /**
+     * Adds the int value to an existing value at coordinates, or applies the value if no existing value
+     * @param rowKey    the row key
+     * @param colKey    the column key
+     * @param value     the value to add
+     * @return          this builder
+     */
+    public DataFrameConcurrentBuilder<R,C> plusInt(R rowKey, C colKey, int value) {
+        final Shard<R,C> shard = shard();
+        final int coord = shard.putRow(rowKey);
+        shard.column(colKey, true).put(coord).plusInt(coord, value);
+        return this;
+    }
+
+
+    /**
+     * Adds the long value to an existing value at coordinates, or applies the value if no existing value
+     * @param rowKey    the row key
+     * @param colKey    the column key
+     * @param value     the value to add
+     * @return          this builder
+     */
+    public DataFrameConcurrentBuilder<R,C> plusLong(R rowKey, C colKey, long value) {
+        final Shard<R,C> shard = shard();
+        final int coord = shard.putRow(rowKey);
+        shard.column(colKey, true).put(coord).plusLong(coord, value);
+        return this;
+    }
+
+
+    /**
+     * Adds the double value to an existing value at coordinates, or applies the value if no existing value
+     * @param rowKey    the row key
+     * @param colKey    the column key
+     * @param value     the value to add
+     * @return          this builder
+     */
+    public DataFrameConcurrentBuilder<R,C> plusDouble(R rowKey, C colKey, double value) {
+        final Shard<R,C> shard = shard();
+        final int coord = shard.putRow(rowKey);
+        shard.column(colKey, true).put(coord).plusDouble(coord, value);
+        return this;
+    }
+
+
+    /**
+     * Returns a newly created frame by merging the shards written by all producer threads
+     * The shards are released by this call, so values put after it are collected into a new frame.
+     * @return      the newly created DataFrame
+     */
+    public DataFrame<R,C> build() {
+        final List<Shard<R,C>> shards = new ArrayList<>(this.shards);
+        this.shardMap.clear();
+        this.shards.clear();
+        final int rowCount = shards.stream().mapToInt(s -> s.rowKeys.size()).sum();
+        final Index<R> rowKeys = Index.of(rowType, Math.max(rowCount, 10));
+        final List<int[]> coordinates = new ArrayList<>(shards.size());
+        final Map<C,Boolean> additiveMap = new LinkedHashMap<>();
+        synchronized (typeMap) {
+            typeMap.keySet().forEach(colKey -> additiveMap.put(colKey, false));
+        }
+        for (Shard<R,C> shard : shards) {
+            final int[] coords = new int[shard.coordCount];
+            for (int i=0; i<shard.rowKeys.size(); ++i) {
+                final R rowKey = shard.rowKeys.getKey(i);
+                rowKeys.add(rowKey);
+                coords[shard.rowKeys.getCoordinateAt(i)] = rowKeys.getCoordinate(rowKey);
+            }
+            coordinates.add(coords);
+            shard.columns.forEach((colKey, column) -> additiveMap.merge(colKey, column.additive, Boolean::logicalOr));
+        }
+        final int length = rowKeys.size();
+        return DataFrame.of(rowKeys, colType, columns -> additiveMap.forEach((colKey, additive) -> {
+            final ArrayBuilder<Object> target = createArray(colKey, length);
+            for (int j=0; j<shards.size(); ++j) {
+                final Column column = shards.get(j).columns.get(colKey);
+                if (column != null) {
+                    column.mergeInto(target, coordinates.get(j), additive);
+                }
+            }
+            columns.add(colKey, target.toArray());
+        }));
+    }
+
+
+    /**
+     * Returns a newly created array builder for the column key specified
+     * @param colKey    the column key
+     * @param capacity  the initial capacity
+     * @return          the newly created array builder
+     */
+    @SuppressWarnings("unchecked")
+    private ArrayBuilder<Object> createArray(C colKey, int capacity) {
+        final Class<?> declared;
+        synchronized (typeMap) {
+            declared = typeMap.get(colKey);
+        }
+        final float loadFactor = this.loadFactor.apply(colKey);
+        if (loadFactor <= 0 || loadFactor > 1) {
+            throw new IllegalStateException("Invalid load factor for " + colKey + ", must be > 0 and <= 1, not " + loadFactor);
+        } else {
+            final Object defaultValue = this.defaultValue.apply(colKey);
+            if (declared != null) {
+                return ArrayBuilder.of(capacity, (Class<Object>)declared, defaultValue, loadFactor);
+            } else if (defaultValue != null) {
+                return ArrayBuilder.of(capacity, (Class<Object>)defaultValue.getClass(), defaultValue, loadFactor);
+            } else {
+                return ArrayBuilder.of(capacity, loadFactor);
+            }
+        }
+    }
+
+
+    /**
+     * The state written by a single producer thread
+     */
+    private static class Shard<R,C> {
+
+        private int coordCount;
+        private final int capacity;
+        private final Index<R> rowKeys;
+        private final Map<C,Class<?>> typeMap;
+        private final Map<C,Column> columns = new LinkedHashMap<>();
+
+        /**
+         * Constructor
+         * @param rowType   the row key type
+         * @param typeMap   the declared column types, which is guarded by its own monitor
+         * @param capacity  the initial row capacity
+         */
+        Shard(Class<R> rowType, Map<C,Class<?>> typeMap, int capacity) {
+            this.capacity = capacity;
+            this.typeMap = typeMap;
+            this.rowKeys = Index.of(rowType, capacity);
+        }
+
+        /**
+         * Adds the row key if new, and returns the shard local coordinate for key
+         * @param rowKey    the row key
+         * @return          the shard local coordinate
+         */
+        int putRow(R rowKey) {
+            if (rowKeys.add(rowKey)) {
+                final int coord = rowKeys.getCoordinate(rowKey);
+                this.coordCount = Math.max(coordCount, coord + 1);
+                return coord;
+            } else {
+                return rowKeys.getCoordinate(rowKey);
+            }
+        }
+
+        /**
+         * Returns the column for the key, creating it if necessary
+         * @param colKey    the column key
+         * @param additive  true if the caller is accumulating into the column
+         * @return          the column for key
+         */
+        @SuppressWarnings("unchecked")
+        Column column(C colKey, boolean additive) {
+            Column column = columns.get(colKey);
+            if (column == null) {
+                final Class<?> declared;
+                synchronized (typeMap) {
+                    declared = typeMap.get(colKey);
+                }
+                final ArrayBuilder<Object> array = declared != null ? ArrayBuilder.of(capacity, (Class<Object>)declared) : ArrayBuilder.of(capacity);
+                column = new Column(array, capacity);
+                this.columns.put(colKey, column);
+            }
+            column.additive |= additive;
+            return column;
+        }
+    }
+
+
+    /**
+     * The values written to a column by a single producer thread, with a record of which cells were written
+     */
+    private static class Column {
+
+        private boolean additive;
+        private final BitSet written;
+        private final ArrayBuilder<Object> array;
+
+        /**
+         * Constructor
+         * @param array     the array builder for values
+         * @param capacity  the initial row capacity
+         */
+        Column(ArrayBuilder<Object> array, int capacity) {
+            this.array = array;
+            this.written = new BitSet(capacity);
+        }
+
+        /**
+         * Records a write at the coordinate and returns the array builder to write to
+         * @param coord     the shard local coordinate
+         * @return          the array builder
+         */
+        ArrayBuilder<Object> put(int coord) {
+            this.written.set(coord);
+            return array;
+        }
+
+        /**
+         * Merges the cells written to this column into the target array
+         * @param target        the target array builder
+         * @param coordinates   the target coordinate for each shard local coordinate
+         * @param additive      true to add values to the target, false to overwrite
+         */
+        void mergeInto(ArrayBuilder<Object> target, int[] coordinates, boolean additive) {
+            final Array<Object> values = array.toArray();
+            switch (values.typeCode()) {
+                case BOOLEAN:
+                    for (int i = written.nextSetBit(0); i >= 0; i = written.nextSetBit(i + 1)) {
+                        target.setBoolean(coordinates[i], values.getBoolean(i));
+                    }
+                    break;
+                case INTEGER:
+                    for (int i = written.nextSetBit(0); i >= 0; i = written.nextSetBit(i + 1)) {
+                        if (additive) target.plusInt(coordinates[i], values.getInt(i));
+                        else target.setInt(coordinates[i], values.getInt(i));
+                    }
+                    break;
+                case LONG:
+                    for (int i = written.nextSetBit(0); i >= 0; i = written.nextSetBit(i + 1)) {
+                        if (additive) target.plusLong(coordinates[i], values.getLong(i));
+                        else target.setLong(coordinates[i], values.getLong(i));
+                    }
+                    break;
+                case DOUBLE:
+                    for (int i = written.nextSetBit(0); i >= 0; i = written.nextSetBit(i + 1)) {
+                        if (additive) target.plusDouble(coordinates[i], values.getDouble(i));
+                        else target.setDouble(coordinates[i], values.getDouble(i));
+                    }
+                    break;
+                default:
+                    for (int i = written.nextSetBit(0); i >= 0; i = written.nextSetBit(i + 1)) {
+                        target.setValue(coordinates[i], values.getValue(i));
+                    }
+                    break;
+            }
+        }
+    }
+}
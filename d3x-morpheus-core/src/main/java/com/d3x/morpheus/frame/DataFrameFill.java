@@ -16,7 +16,12 @@
 package com.d3x.morpheus.frame;
 
 /**
- * An interface to copy values to fill nulls or NaNs in various directions.
+ * An interface to copy values to fill nulls or NaNs in various directions, or to interpolate NaNs in columns of doubles.
+ *
+ * <p>
+ * The column fills (up, down, linear, time and nearest) process each column in a single pass over its values,
+ * and distribute columns across fork-join workers if the frame is parallel.
+ * </p>
  *
  * <p>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></p>
  *
@@ -52,4 +57,26 @@ public interface DataFrameFill {
      */
     int right(int intervals);
 
+    /**
+     * Fills interior gaps of NaNs in double columns by linear interpolation between the values either side of the gap
+     * @param intervals the maximum length of a gap to fill, longer gaps are left unchanged
+     * @return          the number of elements affected by the interpolation
+     */
+    int linear(int intervals);
+
+    /**
+     * Fills interior gaps of NaNs in double columns by interpolation weighted by the time elapsed between the row keys
+     * @param intervals the maximum length of a gap to fill, longer gaps are left unchanged
+     * @return          the number of elements affected by the interpolation
+     * @throws DataFrameException   if the row keys are not dates, times or numbers
+     */
+    int time(int intervals);
+
+    /**
+     * Fills interior gaps of NaNs or null values in columns by copying the nearest value, or the previous value if equidistant
+     * @param intervals the maximum length of a gap to fill, longer gaps are left unchanged
+     * @return          the number of elements affected by the fill
+     */
+    int nearest(int intervals);
+
 }
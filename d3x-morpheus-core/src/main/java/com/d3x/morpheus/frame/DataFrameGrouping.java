@@ -17,6 +17,7 @@ package com.d3x.morpheus.frame;
 
 import java.util.Optional;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import com.d3x.morpheus.stats.Stats;
@@ -37,7 +38,28 @@ public interface DataFrameGrouping<R,C,S> {
      * @param <R>       the row key type
      * @param <C>       the column key type
      */
-    interface Rows<R,C> extends DataFrameGrouping<R,C,DataFrame<Tuple,C>> {}
+    interface Rows<R,C> extends DataFrameGrouping<R,C,DataFrame<Tuple,C>> {
+
+        /**
+         * Returns a frame of aggregates for the most granular groups, computed in a single pass over the source columns
+         * @param aggregators   the function that supplies the aggregator for each numeric column, null to exclude a column
+         * @return              the frame of aggregates keyed by group
+         * @see #agg(int, Function)
+         */
+        default DataFrame<Tuple,C> agg(Function<C,DataFrameAggregator> aggregators) {
+            return agg(getDepth() - 1, aggregators);
+        }
+
+        /**
+         * Returns a frame of aggregates for groups at the specified level, computed in a single pass over the source columns
+         * Values are folded into primitive per group state without materializing a frame per group, and in parallel
+         * mode the rows are split across fork-join workers whose partial states are then merged.
+         * @param level         level 0 implies top level, 1 implies level below that, and so on
+         * @param aggregators   the function that supplies the aggregator for each numeric column, null to exclude a column
+         * @return              the frame of aggregates keyed by group
+         */
+        DataFrame<Tuple,C> agg(int level, Function<C,DataFrameAggregator> aggregators);
+    }
 
     /**
      * A grouping interface specialization that represents a grouping of columns
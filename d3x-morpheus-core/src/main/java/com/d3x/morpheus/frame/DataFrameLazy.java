@@ -0,0 +1,1239 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.frame;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayType;
+import com.d3x.morpheus.csv.CsvSource;
+import com.d3x.morpheus.db.DbSource;
+import com.d3x.morpheus.stats.Sample;
+import com.d3x.morpheus.stats.StatType;
+import com.d3x.morpheus.stats.Stats;
+import com.d3x.morpheus.util.TaskScheduler;
+import com.d3x.morpheus.util.Tuple;
+import com.d3x.morpheus.util.text.parser.Parser;
+
+/**
+ * A lazily evaluated query over a DataFrame or a data source, which records a logical plan that is only executed by <code>collect()</code>
+ *
+ * <p>
+ * Each operation returns a new plan, leaving this one unchanged. On <code>collect()</code> the plan is compiled into
+ * stages, each of which makes a single pass over the column arrays: element-wise maps on a column are composed into
+ * one function, column filters are evaluated against the values those maps produce, and all filters are combined into
+ * a single row mask before the selected rows and columns are gathered. A generic row predicate sees the input of its
+ * stage, so one that follows a map or a projection starts a new stage. Both the row mask and the gather run as
+ * fork-join tasks unless the plan is <code>sequential()</code>.
+ * </p>
+ *
+ * <p>
+ * A sort ends its stage and orders the rows that the stage gathered, so it never sorts rows that a filter rejects.
+ * A grouped aggregation returns a new plan over the groups, which folds the output of this plan into per group state
+ * in a single pass, and <code>describe()</code> computes column statistics over the filtered and mapped values of the
+ * final stage without gathering them into a frame. So a chain like filter, map, group and sum materializes one frame
+ * for the fused filter and map and one for the aggregates.
+ * </p>
+ *
+ * <p>
+ * When the plan reads from a <code>CsvSource</code> or <code>DbSource</code>, the projection and column filters of the
+ * first stage are pushed down into the read where possible, so excluded columns are never parsed and rejected rows
+ * are never materialized. Filters that follow a map over all double columns are not pushed down, since the column
+ * types are not known until the data is read. For sources without a row key column, rows are numbered after pushdown.
+ * </p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * <p>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class DataFrameLazy<R,C> {
+
+    private enum OpType { SELECT, MAP, FILTER, ROW_FILTER, SORT }
+
+    private final Source<R,C> source;
+    private final List<Op<R,C>> ops;
+    private final boolean parallel;
+
+
+    /**
+     * Constructor
+     * @param source    the source of the input frame
+     * @param ops       the operations recorded in this plan
+     * @param parallel  true to execute the plan with fork-join parallelism
+     */
+    private DataFrameLazy(Source<R,C> source, List<Op<R,C>> ops, boolean parallel) {
+        this.source = source;
+        this.ops = ops;
+        this.parallel = parallel;
+    }
+
+
+    /**
+     * Returns a lazy plan over the frame specified
+     * @param frame the input frame
+     * @param <R>   the row key type
+     * @param <C>   the column key type
+     * @return      the lazy plan
+     */
+    public static <R,C> DataFrameLazy<R,C> of(DataFrame<R,C> frame) {
+        Objects.requireNonNull(frame, "The frame cannot be null");
+        return new DataFrameLazy<>(new FrameSource<>(frame), Collections.emptyList(), true);
+    }
+
+
+    /**
+     * Returns a lazy plan over a CSV source, which pushes projections and column filters into the parse
+     * @param source        the CSV source
+     * @param rowType       the row key type
+     * @param configurator  the options configurator
+     * @param <R>           the row key type
+     * @return              the lazy plan
+     */
+    public static <R> DataFrameLazy<R,String> csv(CsvSource source, Class<R> rowType, Consumer<CsvSource.Options> configurator) {
+        Objects.requireNonNull(source, "The CSV source cannot be null");
+        return new DataFrameLazy<>(new CsvLazySource<>(source, rowType, configurator), Collections.emptyList(), true);
+    }
+
+
+    /**
+     * Returns a lazy plan over a ResultSet, which pushes projections and column filters into the extraction
+     * @param resultSet     the result set
+     * @param configurator  the options configurator
+     * @param <R>           the row key type
+     * @return              the lazy plan
+     */
+    public static <R> DataFrameLazy<R,String> db(ResultSet resultSet, Consumer<DbSource.Options> configurator) {
+        Objects.requireNonNull(resultSet, "The result set cannot be null");
+        return new DataFrameLazy<>(new DbLazySource<>(resultSet, configurator), Collections.emptyList(), true);
+    }
+
+
+    /**
+     * Returns a copy of this plan with the operation appended
+     * @param op    the operation to append
+     * @return      the new plan
+     */
+    private DataFrameLazy<R,C> with(Op<R,C> op) {
+        final List<Op<R,C>> result = new ArrayList<>(ops.size() + 1);
+        result.addAll(ops);
+        result.add(op);
+        return new DataFrameLazy<>(source, Collections.unmodifiableList(result), parallel);
+    }
+
+
+    /**
+     * Returns a plan that executes with fork-join parallelism
+     * @return  the parallel plan
+     */
+    public DataFrameLazy<R,C> parallel() {
+        return parallel ? this : new DataFrameLazy<>(source, ops, true);
+    }
+
+
+    /**
+     * Returns a plan that executes in the calling thread
+     * @return  the sequential plan
+     */
+    public DataFrameLazy<R,C> sequential() {
+        return parallel ? new DataFrameLazy<>(source, ops, false) : this;
+    }
+
+
+    /**
+     * Returns a plan that retains only the columns specified, in their original order
+     * @param colKeys   the keys of the columns to retain
+     * @return          the new plan
+     */
+    @SafeVarargs
+    public final DataFrameLazy<R,C> select(C... colKeys) {
+        final Set<C> keySet = new HashSet<>(Arrays.asList(colKeys));
+        return with(new Op<>(OpType.SELECT, null, keySet::contains, null, null, null));
+    }
+
+
+    /**
+     * Returns a plan that retains only the columns whose keys match the predicate
+     * @param predicate the column key predicate
+     * @return          the new plan
+     */
+    public DataFrameLazy<R,C> select(Predicate<C> predicate) {
+        Objects.requireNonNull(predicate, "The column predicate cannot be null");
+        return with(new Op<>(OpType.SELECT, null, predicate, null, null, null));
+    }
+
+
+    /**
+     * Returns a plan that retains only the rows whose value in the column specified matches the predicate
+     * @param colKey    the column key
+     * @param predicate the predicate on the double value of the column
+     * @return          the new plan
+     */
+    public DataFrameLazy<R,C> filter(C colKey, DoublePredicate predicate) {
+        Objects.requireNonNull(colKey, "The column key cannot be null");
+        Objects.requireNonNull(predicate, "The filter predicate cannot be null");
+        return with(new Op<>(OpType.FILTER, colKey, null, null, predicate, null));
+    }
+
+
+    /**
+     * Returns a plan that retains only the rows that match the predicate
+     * @param predicate the row predicate
+     * @return          the new plan
+     */
+    public DataFrameLazy<R,C> filter(Predicate<DataFrameRow<R,C>> predicate) {
+        Objects.requireNonNull(predicate, "The row predicate cannot be null");
+        return with(new Op<>(OpType.ROW_FILTER, null, null, null, null, predicate));
+    }
+
+
+    /**
+     * Returns a plan that maps the values of the column specified, which becomes a double column
+     * @param colKey    the column key
+     * @param mapper    the mapper function
+     * @return          the new plan
+     */
+    public DataFrameLazy<R,C> applyDoubles(C colKey, DoubleUnaryOperator mapper) {
+        Objects.requireNonNull(colKey, "The column key cannot be null");
+        Objects.requireNonNull(mapper, "The mapper function cannot be null");
+        return with(new Op<>(OpType.MAP, colKey, null, mapper, null, null));
+    }
+
+
+    /**
+     * Returns a plan that maps the values of all double columns
+     * @param mapper    the mapper function
+     * @return          the new plan
+     */
+    public DataFrameLazy<R,C> applyDoubles(DoubleUnaryOperator mapper) {
+        Objects.requireNonNull(mapper, "The mapper function cannot be null");
+        return with(new Op<>(OpType.MAP, null, null, mapper, null, null));
+    }
+
+
+    /**
+     * Returns a plan that sorts the rows by the values in the columns specified, which ends the current stage
+     * @param ascending true for ascending order, false for descending
+     * @param colKeys   the keys of the columns to sort by, in order of precedence
+     * @return          the new plan
+     */
+    @SafeVarargs
+    public final DataFrameLazy<R,C> sort(boolean ascending, C... colKeys) {
+        if (colKeys.length == 0) {
+            throw new DataFrameException("At least one column key must be specified to sort a lazy plan");
+        } else {
+            return with(new Op<>(List.of(colKeys), ascending));
+        }
+    }
+
+
+    /**
+     * Returns a grouping of the output of this plan by the values in the columns specified
+     * @param colKeys   the keys of the columns to group by
+     * @return          the grouping, which is aggregated into a new plan
+     */
+    @SafeVarargs
+    public final GroupBy<R,C> groupBy(C... colKeys) {
+        if (colKeys.length == 0) {
+            throw new DataFrameException("At least one column key must be specified to group a lazy plan");
+        } else {
+            return new GroupBy<>(this, colKeys.clone());
+        }
+    }
+
+
+    /**
+     * Executes this plan and returns the statistics specified for each numeric column of the result
+     * The statistics of the final stage are computed over its filtered and mapped values without gathering them.
+     * @param stats the statistics to compute
+     * @return      the frame of statistics keyed by column
+     * @throws DataFrameException   if the plan references a column that does not exist, or the source cannot be read
+     */
+    public DataFrame<C,StatType> describe(StatType... stats) {
+        final List<Stage<R,C>> stages = compile();
+        final Stage<R,C> stage = stages.get(stages.size() - 1);
+        final Pushdown<C> pushdown = source.plan(stages.get(0));
+        final DataFrame<R,C> frame = execute(stages, pushdown, stages.size() - 1);
+        final List<Filter<C>> pushed = stages.size() == 1 ? pushdown.filters : Collections.emptyList();
+        final List<Filter<C>> filters = stage.filters.stream().filter(f -> !pushed.contains(f)).collect(Collectors.toList());
+        final boolean filtered = !filters.isEmpty() || !stage.rowFilters.isEmpty();
+        final int[] rowOrdinals = filtered ? selectRows(stage, filters, frame) : null;
+        final List<C> colKeys = new ArrayList<>();
+        final List<DoubleUnaryOperator> mappers = new ArrayList<>();
+        frame.cols().keys().filter(stage::includes).forEach(colKey -> {
+            final DoubleUnaryOperator mapper = stage.fuse(colKey, stage.maps.size(), isDouble(frame, colKey));
+            if (mapper != null || ArrayType.of(frame.cols().type(colKey)).isNumeric()) {
+                colKeys.add(colKey);
+                mappers.add(mapper);
+            }
+        });
+        final double[][] values = new double[colKeys.size()][];
+        final int[] colOrdinals = colKeys.stream().mapToInt(frame.cols()::ordinal).toArray();
+        final int threshold = parallel ? DataFrameOptions.getColumnSplitThreshold(frame) : Integer.MAX_VALUE;
+        this.invoke(new StatsAction(0, colKeys.size(), threshold, frame, rowOrdinals, colOrdinals, mappers.toArray(new DoubleUnaryOperator[0]), stats, values));
+        final DataFrame<C,StatType> result = DataFrame.ofDoubles(colKeys, List.of(stats));
+        for (int i=0; i<values.length; ++i) {
+            for (int j=0; j<stats.length; ++j) {
+                result.setDoubleAt(i, j, values[i][j]);
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns a description of the stages this plan compiles to, and the operations pushed down into the source
+     * @return  the description of the physical plan
+     */
+    public String explain() {
+        final List<Stage<R,C>> stages = compile();
+        final Pushdown<C> pushdown = source.plan(stages.get(0));
+        final StringBuilder result = new StringBuilder();
+        result.append("Scan ").append(source.describe());
+        if (pushdown.projection != null || !pushdown.filters.isEmpty()) {
+            result.append(" [pushdown:");
+            if (pushdown.projection != null) result.append(" projection");
+            pushdown.filters.forEach(filter -> result.append(" filter(").append(filter.key).append(")"));
+            result.append("]");
+        }
+        for (int i=0; i<stages.size(); ++i) {
+            final Stage<R,C> stage = stages.get(i);
+            final List<Filter<C>> pushed = i == 0 ? pushdown.filters : Collections.emptyList();
+            result.append("\nStage ").append(i + 1).append(parallel ? " (parallel)" : " (sequential)");
+            if (!stage.rowFilters.isEmpty()) {
+                result.append("\n  RowFilter x").append(stage.rowFilters.size());
+            }
+            for (Filter<C> filter : stage.filters) {
+                if (!pushed.contains(filter)) {
+                    result.append("\n  Filter(").append(filter.key).append(")");
+                    if (filter.mapCount > 0) result.append(" fused with ").append(filter.mapCount).append(" map(s)");
+                }
+            }
+            if (!stage.maps.isEmpty()) {
+                result.append("\n  Map ").append(stage.maps.stream().map(op -> op.key == null ? "*" : String.valueOf(op.key)).collect(Collectors.joining(", ", "[", "]")));
+            }
+            if (stage.projection != null) {
+                result.append("\n  Project");
+            }
+            if (stage.sortKeys != null) {
+                result.append("\n  Sort ").append(stage.sortKeys).append(stage.ascending ? " ascending" : " descending");
+            }
+        }
+        return result.toString();
+    }
+
+
+    /**
+     * Executes this plan and returns the resulting frame
+     * @return  the resulting frame
+     * @throws DataFrameException   if the plan references a column that does not exist, or the source cannot be read
+     */
+    public DataFrame<R,C> collect() {
+        final List<Stage<R,C>> stages = compile();
+        final Pushdown<C> pushdown = source.plan(stages.get(0));
+        return execute(stages, pushdown, stages.size());
+    }
+
+
+    /**
+     * Reads the input frame and executes the leading stages of the plan against it
+     * @param stages    the compiled stages
+     * @param pushdown  the pushdown plan for the first stage
+     * @param count     the number of leading stages to execute
+     * @return          the resulting frame
+     */
+    private DataFrame<R,C> execute(List<Stage<R,C>> stages, Pushdown<C> pushdown, int count) {
+        DataFrame<R,C> result = source.read(stages.get(0), pushdown);
+        for (int i=0; i<count; ++i) {
+            final Stage<R,C> stage = stages.get(i);
+            result = execute(stage, result, i == 0 ? pushdown.filters : Collections.emptyList());
+            if (stage.sortKeys != null) {
+                final DataFrame<R,C> input = parallel ? result.parallel() : result;
+                result = input.rows().sort(stage.ascending, stage.sortKeys).sequential();
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Compiles the operations of this plan into stages that can each be executed in a single pass
+     * @return  the list of stages, which is never empty
+     */
+    private List<Stage<R,C>> compile() {
+        final List<Stage<R,C>> stages = new ArrayList<>();
+        Stage<R,C> stage = new Stage<>();
+        for (Op<R,C> op : ops) {
+            if (op.key != null && !stage.includes(op.key)) {
+                throw new DataFrameException("Column " + op.key + " is not selected in the lazy plan");
+            }
+            for (C colKey : op.keys) {
+                if (!stage.includes(colKey)) {
+                    throw new DataFrameException("Column " + colKey + " is not selected in the lazy plan");
+                }
+            }
+            switch (op.type) {
+                case SELECT:
+                    stage.projection = stage.projection == null ? op.select : stage.projection.and(op.select);
+                    break;
+                case MAP:
+                    stage.maps.add(op);
+                    break;
+                case FILTER:
+                    stage.filters.add(new Filter<>(op.key, op.filter, stage.maps.size()));
+                    break;
+                case ROW_FILTER:
+                    if (!stage.maps.isEmpty() || stage.projection != null) {
+                        stages.add(stage);
+                        stage = new Stage<>();
+                    }
+                    stage.rowFilters.add(op.rowFilter);
+                    break;
+                case SORT:
+                    stage.sortKeys = op.keys;
+                    stage.ascending = op.ascending;
+                    stages.add(stage);
+                    stage = new Stage<>();
+                    break;
+                default:
+                    throw new DataFrameException("Unsupported operation in lazy plan: " + op.type);
+            }
+        }
+        stages.add(stage);
+        return stages;
+    }
+
+
+    /**
+     * Executes a stage against the input frame
+     * @param stage     the stage to execute
+     * @param frame     the input frame
+     * @param pushed    the column filters of the stage already applied by the source
+     * @return          the resulting frame, which is the input frame if the stage has nothing to do
+     */
+    private DataFrame<R,C> execute(Stage<R,C> stage, DataFrame<R,C> frame, List<Filter<C>> pushed) {
+        final List<Filter<C>> filters = stage.filters.stream().filter(f -> !pushed.contains(f)).collect(Collectors.toList());
+        final boolean filtered = !filters.isEmpty() || !stage.rowFilters.isEmpty();
+        if (!filtered && stage.maps.isEmpty() && stage.projection == null) {
+            return frame;
+        } else {
+            final int[] rowOrdinals = filtered ? selectRows(stage, filters, frame) : null;
+            final int rowCount = rowOrdinals != null ? rowOrdinals.length : frame.rowCount();
+            final List<C> colKeys = frame.cols().keys().filter(stage::includes).collect(Collectors.toList());
+            final int[] colOrdinals = new int[colKeys.size()];
+            final DoubleUnaryOperator[] mappers = new DoubleUnaryOperator[colKeys.size()];
+            for (int j=0; j<colKeys.size(); ++j) {
+                final C colKey = colKeys.get(j);
+                colOrdinals[j] = frame.cols().ordinal(colKey);
+                mappers[j] = stage.fuse(colKey, stage.maps.size(), isDouble(frame, colKey));
+            }
+            final Array<?>[] arrays = new Array<?>[colKeys.size()];
+            final int threshold = parallel ? DataFrameOptions.getColumnSplitThreshold(frame) : Integer.MAX_VALUE;
+            this.invoke(new GatherAction(0, colKeys.size(), threshold, frame, rowOrdinals, rowCount, colOrdinals, mappers, arrays));
+            final Array<R> rowKeys = rowOrdinals != null ? frame.rows().keyArray().copy(rowOrdinals) : frame.rows().keyArray().copy();
+            return DataFrame.of(rowKeys, frame.cols().keyClass(), columns -> {
+                for (int j=0; j<colKeys.size(); ++j) {
+                    columns.add(colKeys.get(j), arrays[j]);
+                }
+            });
+        }
+    }
+
+
+    /**
+     * Returns the ordinals of the rows that pass all the filters of the stage
+     * @param stage     the stage being executed
+     * @param filters   the column filters not already applied by the source
+     * @param frame     the input frame
+     * @return          the selected row ordinals in ascending order
+     */
+    private int[] selectRows(Stage<R,C> stage, List<Filter<C>> filters, DataFrame<R,C> frame) {
+        final int[] colOrdinals = new int[filters.size()];
+        final DoublePredicate[] predicates = new DoublePredicate[filters.size()];
+        for (int i=0; i<filters.size(); ++i) {
+            final Filter<C> filter = filters.get(i);
+            final DoubleUnaryOperator mapper = stage.fuse(filter.key, filter.mapCount, isDouble(frame, filter.key));
+            colOrdinals[i] = frame.cols().ordinal(filter.key);
+            predicates[i] = mapper == null ? filter.predicate : v -> filter.predicate.test(mapper.applyAsDouble(v));
+        }
+        final boolean[] mask = new boolean[frame.rowCount()];
+        final int threshold = parallel ? DataFrameOptions.getRowSplitThreshold(frame) : Integer.MAX_VALUE;
+        this.invoke(new MaskAction(0, mask.length, threshold, frame, colOrdinals, predicates, stage.rowFilters, mask));
+        int count = 0;
+        for (boolean selected : mask) {
+            if (selected) count++;
+        }
+        final int[] result = new int[count];
+        for (int i=0, j=0; i<mask.length; ++i) {
+            if (mask[i]) result[j++] = i;
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns true if the column specified exists and holds doubles
+     * @param frame     the frame
+     * @param colKey    the column key
+     * @return          true if a double column
+     * @throws DataFrameException   if there is no column for the key
+     */
+    private static <R,C> boolean isDouble(DataFrame<R,C> frame, C colKey) {
+        if (!frame.cols().contains(colKey)) {
+            throw new DataFrameException("No column in frame for key referenced by lazy plan: " + colKey);
+        } else {
+            return ArrayType.of(frame.cols().type(colKey)) == ArrayType.DOUBLE;
+        }
+    }
+
+
+    /**
+     * Invokes the action in the common fork-join pool if parallel, otherwise in the calling thread
+     * @param action    the action to invoke
+     */
+    private void invoke(RecursiveAction action) {
+        if (parallel) {
+            TaskScheduler.current().invoke(action);
+        } else {
+            action.invoke();
+        }
+    }
+
+
+    /**
+     * A recorded operation of the plan
+     */
+    private static class Op<R,C> {
+
+        private final OpType type;
+        private final C key;
+        private final Predicate<C> select;
+        private final DoubleUnaryOperator map;
+        private final DoublePredicate filter;
+        private final Predicate<DataFrameRow<R,C>> rowFilter;
+        private final List<C> keys;
+        private final boolean ascending;
+
+        /**
+         * Constructor
+         * @param type      the operation type
+         * @param key       the column key, null if not column specific
+         * @param select    the column predicate for a projection
+         * @param map       the mapper for a map
+         * @param filter    the value predicate for a column filter
+         * @param rowFilter the row predicate for a row filter
+         */
+        Op(OpType type, C key, Predicate<C> select, DoubleUnaryOperator map, DoublePredicate filter, Predicate<DataFrameRow<R,C>> rowFilter) {
+            this.type = type;
+            this.key = key;
+            this.select = select;
+            this.map = map;
+            this.filter = filter;
+            this.rowFilter = rowFilter;
+            this.keys = Collections.emptyList();
+            this.ascending = true;
+        }
+
+        /**
+         * Constructor for a sort
+         * @param keys      the keys of the columns to sort by
+         * @param ascending true for ascending order
+         */
+        Op(List<C> keys, boolean ascending) {
+            this.type = OpType.SORT;
+            this.key = null;
+            this.select = null;
+            this.map = null;
+            this.filter = null;
+            this.rowFilter = null;
+            this.keys = keys;
+            this.ascending = ascending;
+        }
+    }
+
+
+    /**
+     * A column filter that tests the column values produced by the maps that precede it in its stage
+     */
+    private static class Filter<C> {
+
+        private final C key;
+        private final DoublePredicate predicate;
+        private final int mapCount;
+
+        /**
+         * Constructor
+         * @param key       the column key
+         * @param predicate the predicate on column values
+         * @param mapCount  the number of maps in the stage that precede this filter
+         */
+        Filter(C key, DoublePredicate predicate, int mapCount) {
+            this.key = key;
+            this.predicate = predicate;
+            this.mapCount = mapCount;
+        }
+    }
+
+
+    /**
+     * A stage of the plan which can be executed with a single row mask and a single gather of columns
+     */
+    private static class Stage<R,C> {
+
+        private List<C> sortKeys;
+        private boolean ascending;
+        private Predicate<C> projection;
+        private final List<Op<R,C>> maps = new ArrayList<>();
+        private final List<Filter<C>> filters = new ArrayList<>();
+        private final List<Predicate<DataFrameRow<R,C>>> rowFilters = new ArrayList<>();
+
+        /**
+         * Returns true if the column is retained by the projection of this stage
+         * @param colKey    the column key
+         * @return          true if column is retained
+         */
+        boolean includes(C colKey) {
+            return projection == null || projection.test(colKey);
+        }
+
+        /**
+         * Returns true if the filter only follows maps on its own column, so it can be applied before types are known
+         * @param filter    the filter
+         * @return          true if the filter can be pushed into a source
+         */
+        boolean isPushable(Filter<C> filter) {
+            for (int i=0; i<filter.mapCount; ++i) {
+                if (maps.get(i).key == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns the composition of the leading maps of this stage that apply to the column specified
+         * @param colKey    the column key
+         * @param count     the number of leading maps to consider
+         * @param isDouble  true if the column holds doubles, so maps over all double columns apply
+         * @return          the fused mapper, null if no maps apply
+         */
+        DoubleUnaryOperator fuse(C colKey, int count, boolean isDouble) {
+            DoubleUnaryOperator result = null;
+            for (int i=0; i<count; ++i) {
+                final Op<R,C> op = maps.get(i);
+                if (op.key == null ? isDouble : op.key.equals(colKey)) {
+                    result = result == null ? op.map : result.andThen(op.map);
+                }
+            }
+            return result;
+        }
+    }
+
+
+    /**
+     * The operations of the first stage that a source applies while reading
+     */
+    private static class Pushdown<C> {
+
+        private final Predicate<C> projection;
+        private final List<Filter<C>> filters;
+
+        /**
+         * Constructor
+         * @param projection    the projection applied by the source, null if none
+         * @param filters       the column filters applied by the source
+         */
+        Pushdown(Predicate<C> projection, List<Filter<C>> filters) {
+            this.projection = projection;
+            this.filters = filters;
+        }
+    }
+
+
+    /**
+     * The source of the input frame for a plan
+     */
+    private interface Source<R,C> {
+
+        /**
+         * Returns a description of this source
+         * @return  the description
+         */
+        String describe();
+
+        /**
+         * Returns the operations of the first stage that this source will apply while reading
+         * @param stage the first stage
+         * @return      the pushdown plan
+         */
+        Pushdown<C> plan(Stage<R,C> stage);
+
+        /**
+         * Reads the input frame, applying the pushdown plan
+         * @param stage     the first stage
+         * @param pushdown  the pushdown plan
+         * @return          the input frame
+         */
+        DataFrame<R,C> read(Stage<R,C> stage, Pushdown<C> pushdown);
+    }
+
+
+    /**
+     * A source that wraps a frame in memory and pushes nothing down
+     */
+    private static class FrameSource<R,C> implements Source<R,C> {
+
+        private final DataFrame<R,C> frame;
+
+        FrameSource(DataFrame<R,C> frame) {
+            this.frame = frame;
+        }
+
+        @Override
+        public String describe() {
+            return "DataFrame[" + frame.rowCount() + "x" + frame.colCount() + "]";
+        }
+
+        @Override
+        public Pushdown<C> plan(Stage<R,C> stage) {
+            return new Pushdown<>(null, Collections.emptyList());
+        }
+
+        @Override
+        public DataFrame<R,C> read(Stage<R,C> stage, Pushdown<C> pushdown) {
+            return frame;
+        }
+    }
+
+
+    /**
+     * A source that collects an upstream plan and folds its output into aggregates per group
+     */
+    private static class GroupSource<R,C> implements Source<Tuple,C> {
+
+        private final DataFrameLazy<R,C> upstream;
+        private final C[] keys;
+        private final Function<C,DataFrameAggregator> aggregators;
+
+        GroupSource(DataFrameLazy<R,C> upstream, C[] keys, Function<C,DataFrameAggregator> aggregators) {
+            this.upstream = upstream;
+            this.keys = keys;
+            this.aggregators = aggregators;
+        }
+
+        @Override
+        public String describe() {
+            return "Aggregate" + Arrays.toString(keys) + " of (\n  " + upstream.explain().replace("\n", "\n  ") + "\n)";
+        }
+
+        @Override
+        public Pushdown<C> plan(Stage<Tuple,C> stage) {
+            return new Pushdown<>(null, Collections.emptyList());
+        }
+
+        @Override
+        public DataFrame<Tuple,C> read(Stage<Tuple,C> stage, Pushdown<C> pushdown) {
+            final DataFrame<R,C> frame = upstream.collect();
+            final DataFrame<R,C> target = upstream.parallel ? frame.parallel() : frame.sequential();
+            return target.rows().groupBy(keys).agg(aggregators);
+        }
+    }
+
+
+    /**
+     * A grouping of the output of a plan, which is aggregated into a new plan over the groups
+     * @param <R>   the row key type
+     * @param <C>   the column key type
+     */
+    public static final class GroupBy<R,C> {
+
+        private final DataFrameLazy<R,C> plan;
+        private final C[] keys;
+
+        /**
+         * Constructor
+         * @param plan  the plan whose output is grouped
+         * @param keys  the keys of the columns to group by
+         */
+        private GroupBy(DataFrameLazy<R,C> plan, C[] keys) {
+            this.plan = plan;
+            this.keys = keys;
+        }
+
+        /**
+         * Returns a plan over the aggregates for each group, computed in a single pass over the output of the grouped plan
+         * @param aggregators   the function that supplies the aggregator for each numeric column, null to exclude a column
+         * @return              the plan over the frame of aggregates keyed by group
+         * @see DataFrameGrouping.Rows#agg(Function)
+         */
+        public DataFrameLazy<Tuple,C> agg(Function<C,DataFrameAggregator> aggregators) {
+            Objects.requireNonNull(aggregators, "The aggregator function cannot be null");
+            return new DataFrameLazy<>(new GroupSource<>(plan, keys, aggregators), Collections.emptyList(), plan.parallel);
+        }
+    }
+
+
+    /**
+     * A source that pushes projections into the column name predicate, and filters into raw value predicates, of a CSV read
+     */
+    private static class CsvLazySource<R> implements Source<R,String> {
+
+        private final CsvSource source;
+        private final Class<R> rowType;
+        private final Consumer<CsvSource.Options> configurator;
+
+        CsvLazySource(CsvSource source, Class<R> rowType, Consumer<CsvSource.Options> configurator) {
+            this.source = source;
+            this.rowType = rowType;
+            this.configurator = configurator;
+        }
+
+        @Override
+        public String describe() {
+            return "CSV[" + rowType.getSimpleName() + "]";
+        }
+
+        @Override
+        public Pushdown<String> plan(Stage<R,String> stage) {
+            final CsvSource.Options options = new CsvSource.Options();
+            this.configurator.accept(options);
+            final String rowKeyName = options.getRowKeyColumnName();
+            final boolean byName = options.getColIndexPredicate() == null && options.getRowKeyColumnIndex() == null;
+            final List<Filter<String>> filters = stage.filters.stream()
+                .filter(f -> stage.isPushable(f) && !f.key.equals(rowKeyName))
+                .collect(Collectors.toList());
+            if (stage.projection == null || !stage.rowFilters.isEmpty() || !byName) {
+                return new Pushdown<>(null, filters);
+            } else {
+                final Set<String> filterKeys = stage.filters.stream().map(f -> f.key).collect(Collectors.toSet());
+                final Predicate<String> projection = stage.projection;
+                return new Pushdown<>(name -> projection.test(name) || filterKeys.contains(name) || name.equals(rowKeyName), filters);
+            }
+        }
+
+        @Override
+        public DataFrame<R,String> read(Stage<R,String> stage, Pushdown<String> pushdown) {
+            return source.read(rowType, options -> {
+                this.configurator.accept(options);
+                if (pushdown.projection != null) {
+                    final Predicate<String> current = options.getColNamePredicate();
+                    options.setColNamePredicate(current == null ? pushdown.projection : current.and(pushdown.projection));
+                }
+                for (Filter<String> filter : pushdown.filters) {
+                    final Parser<Double> parser = options.getFormats().getParserOrFail(Double.class);
+                    final DoubleUnaryOperator mapper = stage.fuse(filter.key, filter.mapCount, true);
+                    final DoublePredicate predicate = mapper == null ? filter.predicate : v -> filter.predicate.test(mapper.applyAsDouble(v));
+                    options.addValuePredicate(filter.key, token -> predicate.test(parse(parser, token)));
+                }
+            });
+        }
+
+        /**
+         * Returns the double value of a raw CSV token, NaN if it is null or cannot be parsed
+         * @param parser    the double parser
+         * @param token     the raw token
+         * @return          the double value
+         */
+        private static double parse(Parser<Double> parser, String token) {
+            try {
+                if (token == null || parser.getNullChecker().applyAsBoolean(token)) {
+                    return Double.NaN;
+                } else {
+                    return parser.applyAsDouble(token);
+                }
+            } catch (Exception ex) {
+                return Double.NaN;
+            }
+        }
+    }
+
+
+    /**
+     * A source that pushes projections into the excluded columns, and filters into the row predicate, of a ResultSet extraction
+     */
+    private static class DbLazySource<R> implements Source<R,String> {
+
+        private final ResultSet resultSet;
+        private final Consumer<DbSource.Options> configurator;
+
+        DbLazySource(ResultSet resultSet, Consumer<DbSource.Options> configurator) {
+            this.resultSet = resultSet;
+            this.configurator = configurator;
+        }
+
+        @Override
+        public String describe() {
+            return "ResultSet";
+        }
+
+        /**
+         * Returns the column keys of the result set, as mapped by the options
+         * @param options   the options
+         * @return          the column keys, indexed by column index - 1
+         */
+        private List<String> colKeys(DbSource.Options options) {
+            try {
+                final var metaData = resultSet.getMetaData();
+                final List<String> result = new ArrayList<>(metaData.getColumnCount());
+                for (int i=1; i<=metaData.getColumnCount(); ++i) {
+                    result.add(options.getColKeyMapper().apply(metaData.getColumnName(i)));
+                }
+                return result;
+            } catch (SQLException ex) {
+                throw new DataFrameException("Failed to access ResultSet meta data", ex);
+            }
+        }
+
+        @Override
+        public Pushdown<String> plan(Stage<R,String> stage) {
+            final DbSource.Options options = new DbSource.Options();
+            this.configurator.accept(options);
+            final List<String> colKeys = colKeys(options);
+            final String rowKeyName = options.getRowIndexColumnName();
+            final List<Filter<String>> filters = stage.filters.stream()
+                .filter(f -> stage.isPushable(f) && colKeys.contains(f.key) && !f.key.equalsIgnoreCase(rowKeyName))
+                .collect(Collectors.toList());
+            if (stage.projection == null || !stage.rowFilters.isEmpty()) {
+                return new Pushdown<>(null, filters);
+            } else {
+                final Set<String> filterKeys = stage.filters.stream().map(f -> f.key).collect(Collectors.toSet());
+                final Predicate<String> projection = stage.projection;
+                return new Pushdown<>(key -> projection.test(key) || filterKeys.contains(key), filters);
+            }
+        }
+
+        @Override
+        public DataFrame<R,String> read(Stage<R,String> stage, Pushdown<String> pushdown) {
+            return new DbSource(resultSet).apply(options -> {
+                this.configurator.accept(options);
+                final List<String> colKeys = colKeys(options);
+                if (pushdown.projection != null) {
+                    final String rowKeyName = options.getRowIndexColumnName();
+                    final Set<String> excluded = new HashSet<>(options.getExcludeColumnSet());
+                    try {
+                        final var metaData = resultSet.getMetaData();
+                        for (int i=1; i<=metaData.getColumnCount(); ++i) {
+                            final String colName = metaData.getColumnName(i);
+                            if (!colName.equalsIgnoreCase(rowKeyName) && !pushdown.projection.test(colKeys.get(i-1))) {
+                                excluded.add(colName);
+                            }
+                        }
+                    } catch (SQLException ex) {
+                        throw new DataFrameException("Failed to access ResultSet meta data", ex);
+                    }
+                    options.setExcludeColumnSet(excluded);
+                }
+                if (!pushdown.filters.isEmpty()) {
+                    final int[] colIndexes = new int[pushdown.filters.size()];
+                    final DoublePredicate[] predicates = new DoublePredicate[pushdown.filters.size()];
+                    for (int i=0; i<colIndexes.length; ++i) {
+                        final Filter<String> filter = pushdown.filters.get(i);
+                        final DoubleUnaryOperator mapper = stage.fuse(filter.key, filter.mapCount, true);
+                        colIndexes[i] = colKeys.indexOf(filter.key) + 1;
+                        predicates[i] = mapper == null ? filter.predicate : v -> filter.predicate.test(mapper.applyAsDouble(v));
+                    }
+                    final Predicate<ResultSet> current = options.getRowPredicate();
+                    final Predicate<ResultSet> pushed = rs -> {
+                        try {
+                            for (int i=0; i<colIndexes.length; ++i) {
+                                final double value = rs.getDouble(colIndexes[i]);
+                                if (!predicates[i].test(rs.wasNull() ? Double.NaN : value)) {
+                                    return false;
+                                }
+                            }
+                            return true;
+                        } catch (SQLException ex) {
+                            throw new DataFrameException("Failed to evaluate pushed down filter on ResultSet", ex);
+                        }
+                    };
+                    options.setRowPredicate(current == null ? pushed : current.and(pushed));
+                }
+            });
+        }
+    }
+
+
+    /**
+     * A RecursiveAction that evaluates the column filters and row filters of a stage into a row mask
+     */
+    private class MaskAction extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final DataFrame<R,C> frame;
+        private final int[] colOrdinals;
+        private final DoublePredicate[] predicates;
+        private final List<Predicate<DataFrameRow<R,C>>> rowFilters;
+        private final boolean[] mask;
+
+        /**
+         * Constructor
+         * @param from          the first row ordinal, inclusive
+         * @param to            the last row ordinal, exclusive
+         * @param threshold     the number of rows below which the range is processed sequentially
+         * @param frame         the input frame
+         * @param colOrdinals   the column ordinals of the column filters
+         * @param predicates    the fused column filter predicates
+         * @param rowFilters    the row filters
+         * @param mask          the row mask to populate
+         */
+        MaskAction(int from, int to, int threshold, DataFrame<R,C> frame, int[] colOrdinals, DoublePredicate[] predicates, List<Predicate<DataFrameRow<R,C>>> rowFilters, boolean[] mask) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.frame = frame;
+            this.colOrdinals = colOrdinals;
+            this.predicates = predicates;
+            this.rowFilters = rowFilters;
+            this.mask = mask;
+        }
+
+        @Override
+        protected void compute() {
+            final int count = to - from;
+            if (count > threshold) {
+                final int midPoint = from + count / 2;
+                invokeAll(
+                    new MaskAction(from, midPoint, threshold, frame, colOrdinals, predicates, rowFilters, mask),
+                    new MaskAction(midPoint, to, threshold, frame, colOrdinals, predicates, rowFilters, mask)
+                );
+            } else {
+                final DataFrameRow.Cursor<R,C> cursor = rowFilters.isEmpty() ? null : frame.rows().cursor();
+                for (int i=from; i<to; ++i) {
+                    this.mask[i] = test(i, cursor);
+                }
+            }
+        }
+
+        /**
+         * Returns true if the row passes all filters
+         * @param rowOrdinal    the row ordinal
+         * @param cursor        the row cursor, null if there are no row filters
+         * @return              true if the row is selected
+         */
+        private boolean test(int rowOrdinal, DataFrameRow.Cursor<R,C> cursor) {
+            for (int k=0; k<predicates.length; ++k) {
+                if (!predicates[k].test(frame.getDoubleAt(rowOrdinal, colOrdinals[k]))) {
+                    return false;
+                }
+            }
+            if (cursor != null) {
+                cursor.atOrdinal(rowOrdinal);
+                for (Predicate<DataFrameRow<R,C>> rowFilter : rowFilters) {
+                    if (!rowFilter.test(cursor)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * A RecursiveAction that gathers the selected rows of the output columns, applying the fused maps
+     */
+    private class GatherAction extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final DataFrame<R,C> frame;
+        private final int[] rowOrdinals;
+        private final int rowCount;
+        private final int[] colOrdinals;
+        private final DoubleUnaryOperator[] mappers;
+        private final Array<?>[] arrays;
+
+        /**
+         * Constructor
+         * @param from          the index of the first output column, inclusive
+         * @param to            the index of the last output column, exclusive
+         * @param threshold     the number of columns below which the range is processed sequentially
+         * @param frame         the input frame
+         * @param rowOrdinals   the selected row ordinals, null for all rows
+         * @param rowCount      the number of selected rows
+         * @param colOrdinals   the input ordinals of the output columns
+         * @param mappers       the fused maps for the output columns, null entries for unmapped columns
+         * @param arrays        the output arrays to populate
+         */
+        GatherAction(int from, int to, int threshold, DataFrame<R,C> frame, int[] rowOrdinals, int rowCount, int[] colOrdinals, DoubleUnaryOperator[] mappers, Array<?>[] arrays) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.frame = frame;
+            this.rowOrdinals = rowOrdinals;
+            this.rowCount = rowCount;
+            this.colOrdinals = colOrdinals;
+            this.mappers = mappers;
+            this.arrays = arrays;
+        }
+
+        @Override
+        protected void compute() {
+            final int count = to - from;
+            if (count > threshold) {
+                final int midPoint = from + count / 2;
+                invokeAll(
+                    new GatherAction(from, midPoint, threshold, frame, rowOrdinals, rowCount, colOrdinals, mappers, arrays),
+                    new GatherAction(midPoint, to, threshold, frame, rowOrdinals, rowCount, colOrdinals, mappers, arrays)
+                );
+            } else {
+                for (int j=from; j<to; ++j) {
+                    this.arrays[j] = gather(colOrdinals[j], mappers[j]);
+                }
+            }
+        }
+
+        /**
+         * Returns an array with the selected rows of a column, mapped if a mapper is specified
+         * @param colOrdinal    the input column ordinal
+         * @param mapper        the fused mapper, null to copy values with their original type
+         * @return              the output array
+         */
+        @SuppressWarnings("unchecked")
+        private Array<?> gather(int colOrdinal, DoubleUnaryOperator mapper) {
+            if (mapper != null) {
+                final double[] values = new double[rowCount];
+                for (int i=0; i<rowCount; ++i) {
+                    final int rowOrdinal = rowOrdinals != null ? rowOrdinals[i] : i;
+                    values[i] = mapper.applyAsDouble(frame.getDoubleAt(rowOrdinal, colOrdinal));
+                }
+                return Array.of(values);
+            } else {
+                final Class<Object> type = (Class<Object>)frame.cols().type(frame.cols().key(colOrdinal));
+                final Array<Object> result = Array.of(type, rowCount);
+                switch (ArrayType.of(type)) {
+                    case BOOLEAN:
+                        for (int i=0; i<rowCount; ++i) result.setBoolean(i, frame.getBooleanAt(rowOrdinals != null ? rowOrdinals[i] : i, colOrdinal));
+                        break;
+                    case INTEGER:
+                        for (int i=0; i<rowCount; ++i) result.setInt(i, frame.getIntAt(rowOrdinals != null ? rowOrdinals[i] : i, colOrdinal));
+                        break;
+                    case LONG:
+                        for (int i=0; i<rowCount; ++i) result.setLong(i, frame.getLongAt(rowOrdinals != null ? rowOrdinals[i] : i, colOrdinal));
+                        break;
+                    case DOUBLE:
+                        for (int i=0; i<rowCount; ++i) result.setDouble(i, frame.getDoubleAt(rowOrdinals != null ? rowOrdinals[i] : i, colOrdinal));
+                        break;
+                    default:
+                        for (int i=0; i<rowCount; ++i) result.setValue(i, frame.getValueAt(rowOrdinals != null ? rowOrdinals[i] : i, colOrdinal));
+                        break;
+                }
+                return result;
+            }
+        }
+    }
+
+
+    /**
+     * A RecursiveAction that computes statistics over the selected rows of columns, applying the fused maps
+     */
+    private class StatsAction extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final DataFrame<R,C> frame;
+        private final int[] rowOrdinals;
+        private final int[] colOrdinals;
+        private final DoubleUnaryOperator[] mappers;
+        private final StatType[] stats;
+        private final double[][] values;
+
+        /**
+         * Constructor
+         * @param from          the index of the first column, inclusive
+         * @param to            the index of the last column, exclusive
+         * @param threshold     the number of columns below which the range is processed sequentially
+         * @param frame         the input frame
+         * @param rowOrdinals   the selected row ordinals, null for all rows
+         * @param colOrdinals   the input ordinals of the columns
+         * @param mappers       the fused maps for the columns, null entries for unmapped columns
+         * @param stats         the statistics to compute
+         * @param values        the statistic values to populate, indexed by column
+         */
+        StatsAction(int from, int to, int threshold, DataFrame<R,C> frame, int[] rowOrdinals, int[] colOrdinals, DoubleUnaryOperator[] mappers, StatType[] stats, double[][] values) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.frame = frame;
+            this.rowOrdinals = rowOrdinals;
+            this.colOrdinals = colOrdinals;
+            this.mappers = mappers;
+            this.stats = stats;
+            this.values = values;
+        }
+
+        @Override
+        protected void compute() {
+            final int count = to - from;
+            if (count > threshold) {
+                final int midPoint = from + count / 2;
+                invokeAll(
+                    new StatsAction(from, midPoint, threshold, frame, rowOrdinals, colOrdinals, mappers, stats, values),
+                    new StatsAction(midPoint, to, threshold, frame, rowOrdinals, colOrdinals, mappers, stats, values)
+                );
+            } else {
+                for (int j=from; j<to; ++j) {
+                    final Stats<Double> columnStats = Stats.of(sample(colOrdinals[j], mappers[j]));
+                    this.values[j] = new double[stats.length];
+                    for (int k=0; k<stats.length; ++k) {
+                        this.values[j][k] = stats[k].apply(columnStats);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns a sample that reads the selected rows of a column, mapped if a mapper is specified
+         * @param colOrdinal    the input column ordinal
+         * @param mapper        the fused mapper, null for the raw values
+         * @return              the sample view
+         */
+        private Sample sample(int colOrdinal, DoubleUnaryOperator mapper) {
+            return new Sample() {
+                @Override
+                public int size() {
+                    return rowOrdinals != null ? rowOrdinals.length : frame.rowCount();
+                }
+                @Override
+                public double getDoubleAt(int index) {
+                    final double value = frame.getDoubleAt(rowOrdinals != null ? rowOrdinals[index] : index, colOrdinal);
+                    return mapper != null ? mapper.applyAsDouble(value) : value;
+                }
+            };
+        }
+    }
+}
@@ -43,5 +43,13 @@ public interface DataFrameRead {
      */
     <R> DataFrame<R,String> csv(Class<R> rowType, Consumer<CsvSource.Options> configurator);
 
+    /**
+     * Returns a lazy query plan over the underlying CSV resource, which pushes projections and filters into the parse
+     * @param rowType       the row type
+     * @param configurator  the options configurator
+     * @return      the lazy query plan over CSV data
+     */
+    <R> DataFrameLazy<R,String> lazy(Class<R> rowType, Consumer<CsvSource.Options> configurator);
+
 
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.frame;
+
+/**
+ * An interface to resample the rows of a DataFrame keyed by dates or times into fixed length time buckets
+ *
+ * <p>
+ * Each bucket is keyed by its start time, and buckets are aligned to the epoch, or for <code>ZonedDateTime</code>
+ * keys to the epoch in the zone of the first row key. The aggregations return one row per non-empty bucket in
+ * ascending time order, ignore NaN and null values, and return NaN for a bucket without any valid values. The
+ * numeric aggregations only include numeric columns.
+ * </p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * <p>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public interface DataFrameResample<R,C> {
+
+    /**
+     * Returns a frame with the first valid value of each column in each bucket
+     * @return  the resampled frame
+     */
+    DataFrame<R,C> first();
+
+    /**
+     * Returns a frame with the last valid value of each column in each bucket
+     * @return  the resampled frame
+     */
+    DataFrame<R,C> last();
+
+    /**
+     * Returns a frame with the min value of each numeric column in each bucket
+     * @return  the resampled frame
+     */
+    DataFrame<R,C> min();
+
+    /**
+     * Returns a frame with the max value of each numeric column in each bucket
+     * @return  the resampled frame
+     */
+    DataFrame<R,C> max();
+
+    /**
+     * Returns a frame with the sum of each numeric column in each bucket
+     * @return  the resampled frame
+     */
+    DataFrame<R,C> sum();
+
+    /**
+     * Returns a frame with the mean of each numeric column in each bucket
+     * @return  the resampled frame
+     */
+    DataFrame<R,C> mean();
+
+    /**
+     * Returns a frame with the number of valid values of each column in each bucket
+     * @return  the resampled frame
+     */
+    DataFrame<R,C> count();
+
+    /**
+     * Returns a frame of Open, High, Low and Close values for a numeric column in each bucket
+     * @param colKey    the column key
+     * @return          the frame of bars with Open, High, Low and Close columns
+     */
+    DataFrame<R,String> ohlc(C colKey);
+
+    /**
+     * Returns a frame with a row for every bucket between the first and the last, holding the last valid value
+     * of each column in the bucket, or the value carried forward from the previous bucket if there is none
+     * @return  the upsampled frame
+     */
+    DataFrame<R,C> ffill();
+
+}
@@ -15,6 +15,7 @@
  */
 package com.d3x.morpheus.frame;
 
+import java.time.Duration;
 import java.util.function.Function;
 
 import com.d3x.morpheus.array.Array;
@@ -95,6 +96,22 @@ public interface DataFrameRows<R,C> extends DataFrameAxis<R,C,R,C,DataFrameRow<R
      */
     <X> DataFrame<X,C> mapKeys(Function<DataFrameRow<R,C>,X> mapper);
 
+    /**
+     * Returns the resampling interface to aggregate rows into fixed length time buckets
+     * The row keys must be one of LocalDate, LocalTime, LocalDateTime, ZonedDateTime, Instant or Date
+     * @param interval  the length of each bucket, which must be a whole number of days for LocalDate keys
+     * @return          the resampling interface for the rows of this frame
+     * @throws DataFrameException   if the row key type or interval is not supported
+     */
+    DataFrameResample<R,C> resample(Duration interval);
+
+    /**
+     * Returns the window function interface over partitions of rows that share the same values in the columns specified
+     * @param partitionBy   the columns whose values define the partitions, none implies a single partition
+     * @return              the window function interface for the rows of this frame
+     */
+    DataFrameWindow<R,C> window(C... partitionBy);
+
     /**
      * Returns the DataFrame value for the row key and column ordinal provided
      * @param rowKey        the row key, which must exist
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.frame;
+
+/**
+ * An interface to compute window functions over partitions of the rows of a DataFrame
+ *
+ * <p>
+ * A partition is the set of rows that share the same values in the partition columns, and rows within a partition
+ * are visited in ascending order of the order-by column, or in row order if there is none. Each function computes
+ * one numeric column and returns a single column frame with the same row keys as the source frame, so the result
+ * lines up with the source regardless of how rows are partitioned. Positions before the start of a partition yield
+ * NaN. Partition boundaries are computed once per window and shared by all the functions called on it, and are only
+ * recomputed if rows are added, removed or reordered, or the values in the partition or order-by columns change.
+ * </p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public interface DataFrameWindow<R,C> {
+
+    /**
+     * Returns a window with the same partitions where rows are ordered by the values in the column specified
+     * Rows with equal values, or null values, retain their relative row order.
+     * @param colKey    the column to order rows within each partition
+     * @return          the newly created window
+     */
+    DataFrameWindow<R,C> orderBy(C colKey);
+
+    /**
+     * Returns the values of a column shifted within each partition, which is a lag if periods is positive, and a lead if negative
+     * @param colKey    the numeric column key
+     * @param periods   the number of rows to shift by
+     * @return          the single column frame of shifted values
+     */
+    DataFrame<R,C> shift(C colKey, int periods);
+
+    /**
+     * Returns the values of a column from the row the specified number of rows earlier in each partition
+     * @param colKey    the numeric column key
+     * @param periods   the number of rows to lag by
+     * @return          the single column frame of lagged values
+     */
+    default DataFrame<R,C> lag(C colKey, int periods) {
+        return shift(colKey, periods);
+    }
+
+    /**
+     * Returns the values of a column from the row the specified number of rows later in each partition
+     * @param colKey    the numeric column key
+     * @param periods   the number of rows to lead by
+     * @return          the single column frame of lead values
+     */
+    default DataFrame<R,C> lead(C colKey, int periods) {
+        return shift(colKey, -periods);
+    }
+
+    /**
+     * Returns the difference between the values of a column and the values the specified number of rows earlier in each partition
+     * @param colKey    the numeric column key
+     * @param periods   the number of rows to difference over
+     * @return          the single column frame of differences
+     */
+    DataFrame<R,C> diff(C colKey, int periods);
+
+    /**
+     * Returns the cumulative sum of a column within each partition, where NaN values remain NaN and are skipped in the sum
+     * @param colKey    the numeric column key
+     * @return          the single column frame of cumulative sums
+     */
+    DataFrame<R,C> cumsum(C colKey);
+
+    /**
+     * Returns the cumulative product of a column within each partition, where NaN values remain NaN and are skipped in the product
+     * @param colKey    the numeric column key
+     * @return          the single column frame of cumulative products
+     */
+    DataFrame<R,C> cumprod(C colKey);
+
+    /**
+     * Returns an aggregate of a column over a trailing window of rows within each partition
+     * The result is NaN until a partition has at least windowSize rows.
+     * @param colKey        the numeric column key
+     * @param windowSize    the number of trailing rows in each window, including the current row
+     * @param aggregator    the aggregator to apply to each window
+     * @return              the single column frame of rolling aggregates
+     */
+    DataFrame<R,C> rolling(C colKey, int windowSize, DataFrameAggregator aggregator);
+
+    /**
+     * Returns the rank of the values of a column within each partition, starting from 1
+     * NaN values and ties are ranked according to the strategies in DataFrameOptions.
+     * @param colKey    the numeric column key
+     * @return          the single column frame of ranks
+     */
+    DataFrame<R,C> rank(C colKey);
+
+}
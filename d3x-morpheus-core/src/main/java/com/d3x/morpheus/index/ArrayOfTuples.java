@@ -0,0 +1,800 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.index;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Year;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayBase;
+import com.d3x.morpheus.array.ArrayBuilder;
+import com.d3x.morpheus.array.ArrayCursor;
+import com.d3x.morpheus.array.ArrayException;
+import com.d3x.morpheus.array.ArrayStyle;
+import com.d3x.morpheus.array.ArrayValue;
+import com.d3x.morpheus.array.coding.WithIntCoding;
+import com.d3x.morpheus.array.coding.WithLongCoding;
+import com.d3x.morpheus.util.MemoryLayout;
+import com.d3x.morpheus.util.Tuple;
+
+/**
+ * An Array of Tuples of equal size that stores each item position, or level, in its own Array
+ *
+ * <p>
+ * Levels holding Integer, Long or Double items are stored in primitive arrays, and levels holding LocalDate,
+ * LocalTime or Year items are stored in coded arrays, so that hashing, equality and ordering can be evaluated
+ * against primitives without creating a Tuple per element. Any other level, or a level that sees a null or an
+ * item of another type, is stored in an array of objects. Tuple objects are only created on <code>getValue()</code>.
+ * If a Tuple of a different size is assigned, the whole array is promoted to a single level that holds the Tuples
+ * themselves, which are then hashed, compared and matched as objects, much like an array of objects.
+ * </p>
+ *
+ * <p>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></p>
+ *
+ * @author  Xavier Witdouck
+ */
+class ArrayOfTuples extends ArrayBase<Tuple> {
+
+    private static final long serialVersionUID = 1L;
+
+    private enum Kind { INT, LONG, DOUBLE, INT_CODED, LONG_CODED, OBJECT }
+
+    private int length;
+    private int arity;
+    private Kind[] kinds;
+    private Class<?>[] classes;
+    private Array<Object>[] levels;
+    private BitSet assigned;
+    private int promotions;
+    private boolean mixed;
+
+    /**
+     * Constructor
+     * @param length    the length for this array
+     */
+    ArrayOfTuples(int length) {
+        super(Tuple.class, ArrayStyle.DENSE, false);
+        this.length = length;
+        this.arity = -1;
+        this.assigned = new BitSet(length);
+    }
+
+    /**
+     * Constructor
+     * @param source    the source array to shallow copy
+     * @param parallel  true for parallel version
+     */
+    private ArrayOfTuples(ArrayOfTuples source, boolean parallel) {
+        super(Tuple.class, ArrayStyle.DENSE, parallel);
+        this.length = source.length;
+        this.arity = source.arity;
+        this.kinds = source.kinds;
+        this.classes = source.classes;
+        this.levels = source.levels;
+        this.assigned = source.assigned;
+        this.promotions = source.promotions;
+        this.mixed = source.mixed;
+    }
+
+    /**
+     * Returns a newly created columnar array with the keys from the iterable
+     * @param keys  the Tuple keys, which must all be of the same size
+     * @return      the newly created columnar array
+     */
+    @SuppressWarnings("unchecked")
+    static ArrayOfTuples of(Iterable<Tuple> keys) {
+        if (keys instanceof ArrayOfTuples) {
+            return (ArrayOfTuples)keys;
+        } else if (keys instanceof Array) {
+            final Array<Tuple> array = (Array<Tuple>)keys;
+            final ArrayOfTuples result = new ArrayOfTuples(array.length());
+            for (int i=0; i<array.length(); ++i) {
+                result.setValue(i, array.getValue(i));
+            }
+            return result;
+        } else {
+            int index = 0;
+            ArrayOfTuples result = new ArrayOfTuples(1000);
+            for (Tuple key : keys) {
+                if (index >= result.length()) {
+                    result.expand(result.length() + (result.length() >> 1));
+                }
+                result.setValue(index++, key);
+            }
+            return index == result.length() ? result : (ArrayOfTuples)result.copy(0, index);
+        }
+    }
+
+    /**
+     * Returns true if the keys are non-null Tuples that all have the same size
+     * @param keys  the keys to check
+     * @return      true if the keys can be stored in a columnar array
+     */
+    static boolean isUniform(Iterable<?> keys) {
+        int arity = -1;
+        for (Object key : keys) {
+            if (!(key instanceof Tuple)) {
+                return false;
+            } else if (arity < 0) {
+                arity = ((Tuple)key).size();
+            } else if (((Tuple)key).size() != arity) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of items in each Tuple of this array, -1 if no Tuple has been assigned yet
+     * @return  the Tuple size for this array, which is meaningless if this array holds Tuples of mixed sizes
+     */
+    final int arity() {
+        return arity;
+    }
+
+    /**
+     * Returns true if this array has been promoted to hold Tuples of different sizes as objects
+     * @return  true if this array holds Tuples of mixed sizes
+     */
+    final boolean isMixed() {
+        return mixed;
+    }
+
+    /**
+     * Returns a counter that is incremented each time a level, or the whole array, is converted to objects
+     * @return  the number of level conversions so far
+     */
+    final int promotions() {
+        return promotions;
+    }
+
+    /**
+     * Returns true if the first depth levels can be ordered without reference to the item objects
+     * @param depth the number of leading levels
+     * @return      true if the leading levels have a consistent natural order
+     */
+    final boolean isOrdered(int depth) {
+        if (mixed) {
+            return false;
+        }
+        for (int level=0; level<depth; ++level) {
+            if (kinds[level] == Kind.OBJECT && !Comparable.class.isAssignableFrom(classes[level])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the item could be equal to an item stored in the level specified
+     * @param level the level index
+     * @param item  the item to check
+     * @return      true if the item is compatible with the level
+     */
+    final boolean accepts(int level, Object item) {
+        switch (kinds[level]) {
+            case OBJECT:    return item == null || classes[level] == Object.class || item.getClass() == classes[level];
+            default:        return item != null && item.getClass() == classes[level];
+        }
+    }
+
+    /**
+     * Returns the hash code of the Tuple at the index, which is consistent with hash(Tuple)
+     * @param index the array index
+     * @return      the hash code for the Tuple at index
+     */
+    final int hash(int index) {
+        if (mixed) {
+            return Objects.hashCode(levels[0].getValue(index));
+        }
+        int hash = 1;
+        for (int level=0; level<arity; ++level) {
+            final Array<Object> array = levels[level];
+            switch (kinds[level]) {
+                case INT:           hash = 31 * hash + array.getInt(index);                     break;
+                case INT_CODED:     hash = 31 * hash + array.getInt(index);                     break;
+                case LONG:          hash = 31 * hash + Long.hashCode(array.getLong(index));     break;
+                case LONG_CODED:    hash = 31 * hash + Long.hashCode(array.getLong(index));     break;
+                case DOUBLE:        hash = 31 * hash + Double.hashCode(array.getDouble(index)); break;
+                default:            hash = 31 * hash + Objects.hashCode(array.getValue(index)); break;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the hash code of a Tuple, which is consistent with hash(int) if the tuple is in this array
+     * @param tuple the tuple, which must be of the same size as the tuples in this array
+     * @return      the hash code
+     */
+    @SuppressWarnings("unchecked")
+    final int hash(Tuple tuple) {
+        if (mixed) {
+            return tuple.hashCode();
+        }
+        int hash = 1;
+        for (int level=0; level<arity; ++level) {
+            final Object item = tuple.item(level);
+            if (!accepts(level, item)) {
+                hash = 31 * hash + Objects.hashCode(item);
+            } else {
+                switch (kinds[level]) {
+                    case INT:           hash = 31 * hash + (Integer)item;                   break;
+                    case LONG:          hash = 31 * hash + Long.hashCode((Long)item);       break;
+                    case DOUBLE:        hash = 31 * hash + Double.hashCode((Double)item);   break;
+                    case INT_CODED:     hash = 31 * hash + ((WithIntCoding<Object>)levels[level]).getCoding().getCode(item); break;
+                    case LONG_CODED:    hash = 31 * hash + Long.hashCode(((WithLongCoding<Object>)levels[level]).getCoding().getCode(item)); break;
+                    default:            hash = 31 * hash + Objects.hashCode(item);          break;
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns true if the Tuple at the index equals the tuple provided
+     * @param index the array index
+     * @param tuple the tuple, which must be of the same size as the tuples in this array
+     * @return      true if the two are equal
+     */
+    final boolean matches(int index, Tuple tuple) {
+        return mixed ? tuple.equals(levels[0].getValue(index)) : matches(index, tuple, arity);
+    }
+
+    /**
+     * Returns true if the leading levels of the Tuple at the index equal the items of the prefix
+     * @param index     the array index
+     * @param prefix    the prefix with at least depth items
+     * @param depth     the number of leading levels to match
+     * @return          true if the leading levels are equal
+     */
+    final boolean matches(int index, Tuple prefix, int depth) {
+        if (mixed) {
+            final Tuple tuple = (Tuple)levels[0].getValue(index);
+            if (tuple.size() < depth) {
+                return false;
+            }
+            for (int level=0; level<depth; ++level) {
+                if (!Objects.equals(tuple.item(level), prefix.item(level))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (int level=0; level<depth; ++level) {
+            final Object item = prefix.item(level);
+            if (kinds[level] == Kind.OBJECT) {
+                if (!Objects.equals(levels[level].getValue(index), item)) {
+                    return false;
+                }
+            } else if (compare(index, level, item) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the Tuples at the two indexes are equal
+     * @param i     the first array index
+     * @param j     the second array index
+     * @return      true if the two are equal
+     */
+    final boolean matches(int i, int j) {
+        for (int level=0; level<arity; ++level) {
+            final Array<Object> array = levels[level];
+            switch (kinds[level]) {
+                case INT:           if (array.getInt(i) != array.getInt(j)) return false;   break;
+                case INT_CODED:     if (array.getInt(i) != array.getInt(j)) return false;   break;
+                case LONG:          if (array.getLong(i) != array.getLong(j)) return false; break;
+                case LONG_CODED:    if (array.getLong(i) != array.getLong(j)) return false; break;
+                case DOUBLE:        if (Double.compare(array.getDouble(i), array.getDouble(j)) != 0) return false;  break;
+                default:            if (!Objects.equals(array.getValue(i), array.getValue(j))) return false;        break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the leading levels of the Tuple at index with the items of a prefix
+     * @param index     the array index
+     * @param prefix    the prefix, which must have accepted items at each level
+     * @param depth     the number of leading levels to compare
+     * @return          the comparison result, in the order defined by compare(int,int)
+     */
+    final int compare(int index, Tuple prefix, int depth) {
+        for (int level=0; level<depth; ++level) {
+            final int result = compare(index, level, prefix.item(level));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Compares the item at index in the level specified with an item
+     * @param index the array index
+     * @param level the level index
+     * @param item  the item to compare with
+     * @return      the comparison result, which is non-zero if the item is not accepted by the level
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(int index, int level, Object item) {
+        if (!accepts(level, item)) {
+            return 1;
+        } else {
+            final Array<Object> array = levels[level];
+            switch (kinds[level]) {
+                case INT:           return Integer.compare(array.getInt(index), (Integer)item);
+                case LONG:          return Long.compare(array.getLong(index), (Long)item);
+                case DOUBLE:        return Double.compare(array.getDouble(index), (Double)item);
+                case INT_CODED:     return Integer.compare(array.getInt(index), ((WithIntCoding<Object>)array).getCoding().getCode(item));
+                case LONG_CODED:    return Long.compare(array.getLong(index), ((WithLongCoding<Object>)array).getCoding().getCode(item));
+                default:            return compareItems(array.getValue(index), item);
+            }
+        }
+    }
+
+    /**
+     * Compares two Tuple items using the same rules as Tuple.compareTo()
+     * @param v1    the first item
+     * @param v2    the second item
+     * @return      the comparison result
+     */
+    @SuppressWarnings("unchecked")
+    private static int compareItems(Object v1, Object v2) {
+        if (v1 == v2) {
+            return 0;
+        } else if (v1 == null) {
+            return -1;
+        } else if (v2 == null) {
+            return 1;
+        } else if (v1.getClass() == v2.getClass() && v1 instanceof Comparable) {
+            return ((Comparable)v1).compareTo(v2);
+        } else {
+            return v1.toString().compareTo(v2.toString());
+        }
+    }
+
+    /**
+     * Creates the levels of this array based on the types of the items in the Tuple
+     * @param tuple the first tuple assigned to this array
+     */
+    @SuppressWarnings("unchecked")
+    private void init(Tuple tuple) {
+        this.arity = tuple.size();
+        this.kinds = new Kind[arity];
+        this.classes = new Class<?>[arity];
+        this.levels = new Array[arity];
+        for (int level=0; level<arity; ++level) {
+            final Object item = tuple.item(level);
+            final Class<?> type = item != null ? item.getClass() : Object.class;
+            this.classes[level] = type;
+            this.kinds[level] = kindOf(type);
+            this.levels[level] = kinds[level] == Kind.OBJECT ? Array.of(Object.class, length) : (Array<Object>)Array.of(type, length);
+        }
+    }
+
+    /**
+     * Returns the storage kind for a level of the item type specified
+     * @param type  the item type
+     * @return      the storage kind
+     */
+    private static Kind kindOf(Class<?> type) {
+        if (type == Integer.class) {
+            return Kind.INT;
+        } else if (type == Long.class) {
+            return Kind.LONG;
+        } else if (type == Double.class) {
+            return Kind.DOUBLE;
+        } else if (type == Year.class) {
+            return Kind.INT_CODED;
+        } else if (type == LocalDate.class || type == LocalTime.class) {
+            return Kind.LONG_CODED;
+        } else {
+            return Kind.OBJECT;
+        }
+    }
+
+    /**
+     * Converts a level to an array of objects so that it can hold a null or an item of another type
+     * @param level the level index
+     */
+    private void promote(int level) {
+        final Array<Object> source = levels[level];
+        final Array<Object> target = Array.of(Object.class, length);
+        if (kinds[level] != Kind.OBJECT) {
+            for (int i = assigned.nextSetBit(0); i >= 0 && i < length; i = assigned.nextSetBit(i + 1)) {
+                target.setValue(i, source.getValue(i));
+            }
+            this.levels[level] = target;
+            this.kinds[level] = Kind.OBJECT;
+        }
+        this.classes[level] = Object.class;
+        this.promotions++;
+    }
+
+    /**
+     * Converts this array to a single level that holds whole Tuples, so that it can hold Tuples of any size
+     */
+    @SuppressWarnings("unchecked")
+    private void promote() {
+        final Array<Object> target = Array.of(Object.class, length);
+        for (int i = assigned.nextSetBit(0); i >= 0 && i < length; i = assigned.nextSetBit(i + 1)) {
+            target.setValue(i, getValue(i));
+        }
+        this.mixed = true;
+        this.arity = 1;
+        this.kinds = new Kind[] {Kind.OBJECT};
+        this.classes = new Class<?>[] {Object.class};
+        this.levels = new Array[] {target};
+        this.promotions++;
+    }
+
+
+    @Override
+    public final int length() {
+        return length;
+    }
+
+
+    @Override
+    public float loadFactor() {
+        return 1F;
+    }
+
+
+    @Override
+    public long retainedBytes() {
+        long bytes = MemoryLayout.shallow(7, 2) + MemoryLayout.references(Math.max(0, arity) * 3) + assigned.size() / 8;
+        for (int level=0; level<Math.max(0, arity); ++level) {
+            bytes += levels[level].retainedBytes();
+        }
+        return bytes;
+    }
+
+
+    @Override
+    public final Tuple defaultValue() {
+        return null;
+    }
+
+
+    @Override
+    public final Array<Tuple> parallel() {
+        return isParallel() ? this : new ArrayOfTuples(this, true);
+    }
+
+
+    @Override
+    public final Array<Tuple> sequential() {
+        return isParallel() ? new ArrayOfTuples(this, false) : this;
+    }
+
+
+    @Override()
+    @SuppressWarnings("unchecked")
+    public final Array<Tuple> copy() {
+        try {
+            final ArrayOfTuples copy = (ArrayOfTuples)super.clone();
+            copy.assigned = (BitSet)assigned.clone();
+            if (arity >= 0) {
+                copy.kinds = kinds.clone();
+                copy.classes = classes.clone();
+                copy.levels = new Array[arity];
+                for (int level=0; level<arity; ++level) {
+                    copy.levels[level] = levels[level].copy();
+                }
+            }
+            return copy;
+        } catch (Exception ex) {
+            throw new ArrayException("Failed to copy Array: " + this, ex);
+        }
+    }
+
+
+    @Override()
+    public final Array<Tuple> copy(int[] indexes) {
+        final ArrayOfTuples clone = shell(indexes.length);
+        for (int level=0; level<Math.max(0, arity); ++level) {
+            clone.levels[level] = levels[level].copy(indexes);
+        }
+        for (int i=0; i<indexes.length; ++i) {
+            clone.assigned.set(i, assigned.get(indexes[i]));
+        }
+        return clone;
+    }
+
+
+    @Override
+    public Array<Tuple> copy(Array<Integer> indexes) {
+        final int[] values = new int[indexes.length()];
+        for (int i=0; i<values.length; ++i) {
+            values[i] = indexes.getInt(i);
+        }
+        return copy(values);
+    }
+
+
+    @Override()
+    public final Array<Tuple> copy(int start, int end) {
+        final ArrayOfTuples clone = shell(end - start);
+        for (int level=0; level<Math.max(0, arity); ++level) {
+            clone.levels[level] = levels[level].copy(start, end);
+        }
+        clone.assigned = assigned.get(start, end);
+        return clone;
+    }
+
+    /**
+     * Returns a new array with the same level layout as this array, but without levels
+     * @param length    the length for new array
+     * @return          the new array
+     */
+    @SuppressWarnings("unchecked")
+    private ArrayOfTuples shell(int length) {
+        final ArrayOfTuples clone = new ArrayOfTuples(length);
+        if (arity >= 0) {
+            clone.arity = arity;
+            clone.mixed = mixed;
+            clone.kinds = kinds.clone();
+            clone.classes = classes.clone();
+            clone.levels = new Array[arity];
+        }
+        return clone;
+    }
+
+
+    @Override
+    public final Array<Tuple> swap(int i, int j) {
+        for (int level=0; level<Math.max(0, arity); ++level) {
+            this.levels[level].swap(i, j);
+        }
+        final boolean b1 = assigned.get(i);
+        this.assigned.set(i, assigned.get(j));
+        this.assigned.set(j, b1);
+        return this;
+    }
+
+
+    @Override
+    public final int compare(int i, int j) {
+        final boolean b1 = assigned.get(i);
+        final boolean b2 = assigned.get(j);
+        if (!b1 || !b2) {
+            return b1 == b2 ? 0 : b1 ? 1 : -1;
+        } else {
+            for (int level=0; level<arity; ++level) {
+                final Array<Object> array = levels[level];
+                final int result;
+                switch (kinds[level]) {
+                    case INT:           result = Integer.compare(array.getInt(i), array.getInt(j));         break;
+                    case INT_CODED:     result = Integer.compare(array.getInt(i), array.getInt(j));         break;
+                    case LONG:          result = Long.compare(array.getLong(i), array.getLong(j));          break;
+                    case LONG_CODED:    result = Long.compare(array.getLong(i), array.getLong(j));          break;
+                    case DOUBLE:        result = Double.compare(array.getDouble(i), array.getDouble(j));    break;
+                    default:            result = compareItems(array.getValue(i), array.getValue(j));        break;
+                }
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        }
+    }
+
+
+    @Override
+    public final Array<Tuple> filter(Predicate<ArrayValue<Tuple>> predicate) {
+        final ArrayCursor<Tuple> cursor = cursor();
+        final ArrayBuilder<Tuple> builder = ArrayBuilder.of(length(), type());
+        for (int i=0; i<length; ++i) {
+            cursor.moveTo(i);
+            final boolean match = predicate.test(cursor);
+            if (match) {
+                builder.append(cursor.getValue());
+            }
+        }
+        return builder.toArray();
+    }
+
+
+    @Override
+    public final Array<Tuple> update(Array<Tuple> from, int[] fromIndexes, int[] toIndexes) {
+        if (fromIndexes.length != toIndexes.length) {
+            throw new ArrayException("The from index array must have the same length as the to index array");
+        } else {
+            for (int i=0; i<fromIndexes.length; ++i) {
+                final int toIndex = toIndexes[i];
+                final int fromIndex = fromIndexes[i];
+                final Tuple update = from.getValue(fromIndex);
+                this.setValue(toIndex, update);
+            }
+        }
+        return this;
+    }
+
+
+    @Override
+    public final Array<Tuple> update(int toIndex, Array<Tuple> from, int fromIndex, int length) {
+        for (int i=0; i<length; ++i) {
+            final Tuple update = from.getValue(fromIndex + i);
+            this.setValue(toIndex + i, update);
+        }
+        return this;
+    }
+
+
+    @Override
+    public final Array<Tuple> expand(int newLength) {
+        if (newLength > length) {
+            for (int level=0; level<Math.max(0, arity); ++level) {
+                this.levels[level] = levels[level].expand(newLength);
+            }
+            this.length = newLength;
+        }
+        return this;
+    }
+
+
+    @Override
+    public Array<Tuple> fill(Tuple value, int start, int end) {
+        for (int i=start; i<end; ++i) {
+            this.setValue(i, value);
+        }
+        return this;
+    }
+
+
+    @Override
+    public boolean isNull(int index) {
+        return !assigned.get(index);
+    }
+
+
+    @Override
+    public final boolean isEqualTo(int index, Tuple value) {
+        if (value == null || !assigned.get(index)) {
+            return value == null && !assigned.get(index);
+        } else {
+            return mixed ? value.equals(levels[0].getValue(index)) : value.size() == arity && matches(index, value);
+        }
+    }
+
+
+    @Override
+    public final boolean getBoolean(int index) {
+        throw new ArrayException("Array of Tuples does not support primitive access");
+    }
+
+
+    @Override
+    public final int getInt(int index) {
+        throw new ArrayException("Array of Tuples does not support primitive access");
+    }
+
+
+    @Override
+    public final long getLong(int index) {
+        throw new ArrayException("Array of Tuples does not support primitive access");
+    }
+
+
+    @Override
+    public final double getDouble(int index) {
+        throw new ArrayException("Array of Tuples does not support primitive access");
+    }
+
+
+    @Override
+    public final Tuple getValue(int index) {
+        if (index >= length) {
+            throw new ArrayIndexOutOfBoundsException("Array index out of bounds: " + index + ", length " + length);
+        } else if (!assigned.get(index)) {
+            return null;
+        } else if (mixed) {
+            return (Tuple)levels[0].getValue(index);
+        } else {
+            final Object[] items = new Object[arity];
+            for (int level=0; level<arity; ++level) {
+                items[level] = levels[level].getValue(index);
+            }
+            return Tuple.of(items);
+        }
+    }
+
+
+    @Override
+    public final boolean setBoolean(int index, boolean value) {
+        throw new ArrayException("Array of Tuples does not support primitive access");
+    }
+
+
+    @Override
+    public final int setInt(int index, int value) {
+        throw new ArrayException("Array of Tuples does not support primitive access");
+    }
+
+
+    @Override
+    public final long setLong(int index, long value) {
+        throw new ArrayException("Array of Tuples does not support primitive access");
+    }
+
+
+    @Override
+    public final double setDouble(int index, double value) {
+        throw new ArrayException("Array of Tuples does not support primitive access");
+    }
+
+
+    @Override
+    public final Tuple setValue(int index, Tuple value) {
+        checkBounds(index, length - 1);
+        final Tuple oldValue = getValue(index);
+        if (value == null) {
+            this.assigned.clear(index);
+        } else {
+            if (arity < 0) {
+                this.init(value);
+            } else if (!mixed && value.size() != arity) {
+                this.promote();
+            }
+            if (mixed) {
+                this.levels[0].setValue(index, value);
+            } else {
+                for (int level=0; level<arity; ++level) {
+                    final Object item = value.item(level);
+                    if (!accepts(level, item)) {
+                        this.promote(level);
+                    }
+                    this.levels[level].setValue(index, item);
+                }
+            }
+            this.assigned.set(index);
+        }
+        return oldValue;
+    }
+
+
+    @Override
+    public final void read(ObjectInputStream is, int count) throws IOException {
+        try {
+            for (int i=0; i<count; ++i) {
+                this.setValue(i, (Tuple)is.readObject());
+            }
+        } catch (ClassNotFoundException ex) {
+            throw new ArrayException("Failed to de-serialized array", ex);
+        }
+    }
+
+
+    @Override
+    public final void write(ObjectOutputStream os, int[] indexes) throws IOException {
+        for (int index : indexes) {
+            os.writeObject(getValue(index));
+        }
+    }
+
+}
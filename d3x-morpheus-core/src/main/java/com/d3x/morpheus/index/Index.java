@@ -27,6 +27,7 @@ import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBuilder;
 import com.d3x.morpheus.range.Range;
 import com.d3x.morpheus.util.IntComparator;
+import com.d3x.morpheus.util.Tuple;
 
 /**
  * An interface to a data structure that maintains an ordered set of keys and a canonical index for each key.
@@ -58,6 +59,12 @@ public interface Index<K> extends Iterable<K>, Cloneable, Serializable {
      */
     int capacity();
 
+    /**
+     * Returns the number of heap bytes retained by this index, including its keys and the map of keys to coordinates
+     * @return  the retained heap bytes for this index
+     */
+    long retainedBytes();
+
     /**
      * Adds a key to this index if it does not already exist
      * @param key   the key reference
@@ -303,6 +310,16 @@ public interface Index<K> extends Iterable<K>, Cloneable, Serializable {
      */
     Index<K> filter(Predicate<K> predicate);
 
+    /**
+     * Returns a filter over this index of the Tuple keys whose leading items equal the items of the prefix
+     * @param prefix    the prefix to match, for example Tuple.of("X") to select all keys with "X" in level 0
+     * @return          the filtered index, with keys in the order of this index
+     */
+    default Index<K> filterPrefix(Tuple prefix) {
+        final int depth = prefix.size();
+        return filter(key -> key instanceof Tuple && ((Tuple)key).size() >= depth && ((Tuple)key).filter(0, depth).equals(prefix));
+    }
+
     /**
      * Returns a newly created index based on the array provided
      * @param keys      the keys for index
@@ -28,6 +28,7 @@ import com.d3x.morpheus.array.ArrayBuilder;
 import com.d3x.morpheus.array.ArrayValue;
 import com.d3x.morpheus.range.Range;
 import com.d3x.morpheus.util.IntComparator;
+import com.d3x.morpheus.util.MemoryLayout;
 import com.d3x.morpheus.util.SortAlgorithm;
 import com.d3x.morpheus.util.Swapper;
 
@@ -115,11 +116,23 @@ abstract class IndexBase<K> implements Index<K>, Swapper {
         return keys;
     }
 
+    /**
+     * Returns the number of heap bytes retained by the map of keys to coordinates in this index
+     * @return  the retained bytes of the key map
+     */
+    protected abstract long mapBytes();
+
     @Override()
     public final int capacity() {
         return keys.length();
     }
 
+    @Override()
+    public final long retainedBytes() {
+        final long filter = indexes == null ? 0L : MemoryLayout.array(indexes.length, Integer.BYTES) + MemoryLayout.array(ordinals.length, Integer.BYTES);
+        return MemoryLayout.shallow(6, 0) + keys.retainedBytes() + filter + mapBytes();
+    }
+
     @Override()
     public final Class<K> type() {
         return keys.type();
@@ -28,6 +28,7 @@ import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayType;
 import com.d3x.morpheus.array.coding.IntCoding;
 import com.d3x.morpheus.array.coding.LongCoding;
+import com.d3x.morpheus.util.Tuple;
 
 /**
  * The default IndexFactory implementation
@@ -63,7 +64,7 @@ class IndexFactoryDefault extends IndexFactory {
             case LOCAL_TIME:        return (Index<K>)new IndexWithLongCoding<>((Iterable<LocalTime>)keys, localTimeCoding);
             case LOCAL_DATETIME:    return (Index<K>)new IndexWithLongCoding<>((Iterable<LocalDateTime>)keys, localDateTimeCoding);
             case ZONED_DATETIME:    return (Index<K>)new IndexWithLongCoding<>((Iterable<ZonedDateTime>)keys, zonedDateTimeCoding);
-            default:                return new IndexOfObjects<>(keys);
+            default:                return isTuples(keys) ? (Index<K>)new IndexOfTuples((Iterable<Tuple>)keys) : new IndexOfObjects<>(keys);
         }
     }
 
@@ -83,7 +84,27 @@ class IndexFactoryDefault extends IndexFactory {
             case LOCAL_TIME:        return (Index<K>)new IndexWithLongCoding<>((Class<LocalTime>)keyType, localTimeCoding, initialSize);
             case LOCAL_DATETIME:    return (Index<K>)new IndexWithLongCoding<>((Class<LocalDateTime>)keyType, localDateTimeCoding, initialSize);
             case ZONED_DATETIME:    return (Index<K>)new IndexWithLongCoding<>((Class<ZonedDateTime>)keyType, zonedDateTimeCoding, initialSize);
-            default:                return new IndexOfObjects<>(keyType, initialSize);
+            default:                return Tuple.class.isAssignableFrom(keyType) ? (Index<K>)new IndexOfTuples(initialSize) : new IndexOfObjects<>(keyType, initialSize);
+        }
+    }
+
+    /**
+     * Returns true if the keys are Tuples of the same size that can be stored by level in an IndexOfTuples
+     * An Array of Tuples is only indexed by level if it already is an ArrayOfTuples, since any other Array is
+     * wrapped by the index rather than copied, and callers may rely on keys added to the index being written
+     * through to their array.
+     * @param keys  the Iterable keys
+     * @param <K>   the key type
+     * @return      true if keys can be stored in an IndexOfTuples
+     */
+    private <K> boolean isTuples(Iterable<K> keys) {
+        if (keys instanceof Array) {
+            return keys instanceof ArrayOfTuples && ArrayOfTuples.isUniform(keys);
+        } else if (keys instanceof Index) {
+            return Tuple.class.isAssignableFrom(((Index<?>)keys).type()) && ArrayOfTuples.isUniform(keys);
+        } else {
+            final Iterator<K> iterator = keys.iterator();
+            return iterator.hasNext() && iterator.next() instanceof Tuple && ArrayOfTuples.isUniform(keys);
         }
     }
 
@@ -19,6 +19,7 @@ import java.util.function.Predicate;
 
 import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBuilder;
+import com.d3x.morpheus.util.MemoryLayout;
 import gnu.trove.map.TDoubleIntMap;
 import gnu.trove.map.hash.TDoubleIntHashMap;
 
@@ -155,6 +156,11 @@ class IndexOfDoubles extends IndexBase<Double> {
         return indexMap.size();
     }
 
+    @Override
+    protected final long mapBytes() {
+        return MemoryLayout.hash(indexMap, Double.BYTES, Integer.BYTES);
+    }
+
     @Override
     public final int getCoordinate(Double key) {
         return indexMap.get(key);
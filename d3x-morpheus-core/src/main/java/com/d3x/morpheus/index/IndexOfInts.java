@@ -20,6 +20,7 @@ import java.util.function.Predicate;
 import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBuilder;
 import com.d3x.morpheus.util.IntComparator;
+import com.d3x.morpheus.util.MemoryLayout;
 
 import gnu.trove.map.TIntIntMap;
 import gnu.trove.map.hash.TIntIntHashMap;
@@ -160,6 +161,11 @@ class IndexOfInts extends IndexBase<Integer> {
         return indexMap.size();
     }
 
+    @Override
+    protected final long mapBytes() {
+        return MemoryLayout.hash(indexMap, Integer.BYTES, Integer.BYTES);
+    }
+
     @Override
     public final int getCoordinate(Integer key) {
         return indexMap.get(key);
@@ -19,6 +19,7 @@ import java.util.function.Predicate;
 
 import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBuilder;
+import com.d3x.morpheus.util.MemoryLayout;
 import gnu.trove.map.TLongIntMap;
 import gnu.trove.map.hash.TLongIntHashMap;
 
@@ -155,6 +156,11 @@ class IndexOfLongs extends IndexBase<Long> {
         return indexMap.size();
     }
 
+    @Override
+    protected final long mapBytes() {
+        return MemoryLayout.hash(indexMap, Long.BYTES, Integer.BYTES);
+    }
+
     @Override
     public int getCoordinate(Long key) {
         return indexMap.get(key);
@@ -19,6 +19,7 @@ import java.util.function.Predicate;
 
 import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBuilder;
+import com.d3x.morpheus.util.MemoryLayout;
 import gnu.trove.map.TObjectIntMap;
 import gnu.trove.map.hash.TObjectIntHashMap;
 
@@ -154,6 +155,11 @@ class IndexOfStrings extends IndexBase<String> {
         return indexMap.size();
     }
 
+    @Override
+    protected final long mapBytes() {
+        return MemoryLayout.hash(indexMap, MemoryLayout.REFERENCE_BYTES, Integer.BYTES);
+    }
+
     @Override
     public final int getCoordinate(String key) {
         return indexMap.get(key);
@@ -0,0 +1,413 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.index;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayBuilder;
+import com.d3x.morpheus.util.IntComparator;
+import com.d3x.morpheus.util.MemoryLayout;
+import com.d3x.morpheus.util.SortAlgorithm;
+import com.d3x.morpheus.util.Tuple;
+
+/**
+ * An Index implementation for multi-level Tuple keys of equal size that stores each level in its own Array
+ *
+ * <p>
+ * Keys are held in a columnar array, and the hash table maps the hash of the level values of each key to its
+ * position in that array, so a 10M row index holds neither Tuple objects nor boxed items for primitive, date
+ * or time levels. A first prefix selection scans the levels, and subsequent ones use a lazily created permutation
+ * of the positions in lexicographic order, so that the keys that start with a prefix are found with two binary
+ * searches. If a key of a different size is added, the key array is promoted to hold whole Tuples as objects and
+ * the hash table is rebuilt, so the index continues to work like an index of objects rather than rejecting the key.
+ * </p>
+ *
+ * <p>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></p>
+ *
+ * @author  Xavier Witdouck
+ */
+class IndexOfTuples extends IndexBase<Tuple> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final float TABLE_LOAD_FACTOR = 0.6f;
+
+    private int size;
+    private int deleted;
+    private int[] slots;
+    private int promotions;
+    private transient int prefixCount;
+    private transient int[] sorted;
+
+    /**
+     * Constructor
+     * @param initialSize   the initial size for this index
+     */
+    IndexOfTuples(int initialSize) {
+        super(new ArrayOfTuples(initialSize));
+        this.slots = newSlots(initialSize);
+    }
+
+    /**
+     * Constructor
+     * @param iterable      the keys for index, which must all be of the same size
+     */
+    IndexOfTuples(Iterable<Tuple> iterable) {
+        super(ArrayOfTuples.of(iterable));
+        this.size = keyArray().length();
+        this.rehash(size);
+    }
+
+    /**
+     * Constructor
+     * @param iterable  the keys for index
+     * @param parent    the parent index to initialize from
+     */
+    private IndexOfTuples(Iterable<Tuple> iterable, IndexOfTuples parent) {
+        super(ArrayOfTuples.of(iterable), parent);
+        this.size = keyArray().length();
+        this.rehash(size);
+    }
+
+    /**
+     * Returns the columnar key array for this index
+     * @return  the columnar key array
+     */
+    private ArrayOfTuples levels() {
+        return (ArrayOfTuples)keyArray();
+    }
+
+    /**
+     * Returns a newly created empty hash table large enough for the number of keys
+     * @param count the number of keys
+     * @return      the empty hash table
+     */
+    private static int[] newSlots(int count) {
+        final int required = (int)Math.ceil(Math.max(count, 8) / TABLE_LOAD_FACTOR);
+        final int[] slots = new int[Integer.highestOneBit(required - 1) << 1];
+        Arrays.fill(slots, -1);
+        return slots;
+    }
+
+    /**
+     * Returns the initial slot for the hash code in a table with the mask specified
+     * @param hash  the hash code
+     * @param mask  the table mask
+     * @return      the initial slot
+     */
+    private static int slot(int hash, int mask) {
+        final int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Rebuilds the hash table of this index from the key array for the capacity specified, checking for duplicates
+     * @param capacity  the number of keys the table should accommodate
+     */
+    private void rehash(int capacity) {
+        final ArrayOfTuples levels = levels();
+        final int[] slots = newSlots(Math.max(capacity, size));
+        final int mask = slots.length - 1;
+        for (int i=0; i<size; ++i) {
+            int slot = slot(levels.hash(i), mask);
+            while (slots[slot] >= 0) {
+                if (levels.matches(slots[slot], i)) {
+                    throw new IndexException("Cannot have duplicate keys in index: " + levels.getValue(i));
+                }
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i;
+        }
+        this.slots = slots;
+        this.deleted = 0;
+        this.sorted = null;
+        this.promotions = levels.promotions();
+    }
+
+    /**
+     * Returns the position of the key in the key array, or the first position at which the key was found
+     * @param key   the key to locate
+     * @return      the position of the key, -1 if no match
+     */
+    private int find(Tuple key) {
+        final ArrayOfTuples levels = levels();
+        if (key == null || (!levels.isMixed() && key.size() != levels.arity())) {
+            return -1;
+        } else {
+            final int mask = slots.length - 1;
+            int slot = slot(levels.hash(key), mask);
+            while (true) {
+                final int position = slots[slot];
+                if (position == -1) {
+                    return -1;
+                } else if (position >= 0 && levels.matches(position, key)) {
+                    return position;
+                } else {
+                    slot = (slot + 1) & mask;
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts the position into the hash table, which must have capacity
+     * @param position  the position of the key in the key array
+     */
+    private void insert(int position) {
+        final int mask = slots.length - 1;
+        int slot = slot(levels().hash(position), mask);
+        while (slots[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        this.slots[slot] = position;
+    }
+
+    /**
+     * Marks the slot holding the position as deleted in the hash table
+     * @param position  the position of the key in the key array
+     */
+    private void delete(int position) {
+        final int mask = slots.length - 1;
+        int slot = slot(levels().hash(position), mask);
+        while (slots[slot] != position) {
+            slot = (slot + 1) & mask;
+        }
+        this.slots[slot] = -2;
+    }
+
+    /**
+     * Appends a key to the key array of this index, and inserts it in the hash table
+     * @param key   the key to append, which must not already exist in this index
+     */
+    private void append(Tuple key) {
+        if (key == null) {
+            throw new IndexException("Tuple index keys cannot be null");
+        } else {
+            final int position = size;
+            this.ensureCapacity(position + 1);
+            this.levels().setValue(position, key);
+            this.size++;
+            if (levels().promotions() != promotions || size + deleted > slots.length * TABLE_LOAD_FACTOR) {
+                this.rehash(size * 2);
+            } else {
+                this.insert(position);
+                this.sorted = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the key positions in lexicographic order of the levels, computing it if necessary
+     * @return  the positions of keys in lexicographic order
+     */
+    private int[] sorted() {
+        int[] result = sorted;
+        if (result == null) {
+            final ArrayOfTuples levels = levels();
+            final int[] positions = new int[size];
+            for (int i=0; i<size; ++i) positions[i] = i;
+            final IntComparator comparator = (i, j) -> levels.compare(positions[i], positions[j]);
+            SortAlgorithm.getDefault(false).sort(0, size, comparator, (i, j) -> {
+                final int p = positions[i];
+                positions[i] = positions[j];
+                positions[j] = p;
+            });
+            this.sorted = result = positions;
+        }
+        return result;
+    }
+
+
+    @Override()
+    public final Index<Tuple> filter(Iterable<Tuple> keys) {
+        return new IndexOfTuples(keys, isFilter() ? (IndexOfTuples)parent() : this);
+    }
+
+    @Override
+    public Index<Tuple> filter(Predicate<Tuple> predicate) {
+        final ArrayBuilder<Integer> builder = ArrayBuilder.of(size / 2, Integer.class);
+        for (int i=0; i<size; ++i) {
+            final Tuple value = keyArray().getValue(i);
+            if (predicate.test(value)) {
+                builder.appendInt(i);
+            }
+        }
+        final Array<Tuple> filter = keyArray().copy(builder.toArray());
+        return new IndexOfTuples(filter, isFilter() ? (IndexOfTuples)parent() : this);
+    }
+
+    @Override
+    public Index<Tuple> filterPrefix(Tuple prefix) {
+        final ArrayOfTuples levels = levels();
+        final int depth = prefix.size();
+        final IndexOfTuples parent = isFilter() ? (IndexOfTuples)parent() : this;
+        if (size == 0 || (!levels.isMixed() && depth > levels.arity())) {
+            return new IndexOfTuples(Array.of(Tuple.class, 0), parent);
+        } else if (sorted == null && (prefixCount++ == 0 || !levels.isOrdered(depth))) {
+            final ArrayBuilder<Integer> builder = ArrayBuilder.of(100, Integer.class);
+            for (int i=0; i<size; ++i) {
+                if (levels.matches(i, prefix, depth)) {
+                    builder.appendInt(i);
+                }
+            }
+            return new IndexOfTuples(levels.copy(builder.toArray()), parent);
+        } else {
+            for (int level=0; level<depth; ++level) {
+                if (!levels.accepts(level, prefix.item(level))) {
+                    return new IndexOfTuples(Array.of(Tuple.class, 0), parent);
+                }
+            }
+            final int[] sorted = sorted();
+            int low = 0, high = size;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (levels.compare(sorted[mid], prefix, depth) < 0) low = mid + 1; else high = mid;
+            }
+            final int start = low;
+            high = size;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (levels.compare(sorted[mid], prefix, depth) <= 0) low = mid + 1; else high = mid;
+            }
+            final int[] positions = Arrays.copyOfRange(sorted, start, low);
+            Arrays.sort(positions);
+            return new IndexOfTuples(levels.copy(positions), parent);
+        }
+    }
+
+    @Override
+    public final boolean add(Tuple key) {
+        if (isFilter()) {
+            throw new IndexException("Cannot add keys to an filter on another index");
+        } else if (find(key) >= 0) {
+            return false;
+        } else {
+            this.append(key);
+            return true;
+        }
+    }
+
+    @Override
+    public int addAll(Iterable<Tuple> keys, boolean ignoreDuplicates) {
+        if (isFilter()) {
+            throw new IndexException("Cannot add keys to an filter on another index");
+        } else {
+            int count = 0;
+            for (Tuple key : keys) {
+                if (find(key) < 0) {
+                    this.append(key);
+                    ++count;
+                }
+            }
+            return count;
+        }
+    }
+
+    @Override
+    public final Index<Tuple> copy(boolean deep) {
+        try {
+            final IndexOfTuples clone = (IndexOfTuples)super.copy(deep);
+            if (deep) clone.slots = slots.clone();
+            return clone;
+        } catch (Exception ex) {
+            throw new IndexException("Failed to clone index", ex);
+        }
+    }
+
+    @Override
+    public final int size() {
+        return size;
+    }
+
+    @Override
+    protected final long mapBytes() {
+        return MemoryLayout.array(slots.length, Integer.BYTES);
+    }
+
+    @Override
+    public final int getCoordinate(Tuple key) {
+        final int position = find(key);
+        return position < 0 ? -1 : getCoordinateAt(position);
+    }
+
+    @Override
+    public final boolean contains(Tuple key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public final int replace(Tuple existing, Tuple replacement) {
+        final int position = find(existing);
+        if (position < 0) {
+            throw new IndexException("No match key for " + existing);
+        } else if (find(replacement) >= 0) {
+            throw new IndexException("The replacement key already exists in index " + replacement);
+        } else if (replacement == null) {
+            throw new IndexException("Tuple index keys cannot be null");
+        } else {
+            this.delete(position);
+            this.levels().setValue(position, replacement);
+            if (levels().promotions() != promotions || size + ++deleted > slots.length * TABLE_LOAD_FACTOR) {
+                this.rehash(size);
+            } else {
+                this.insert(position);
+                this.sorted = null;
+            }
+            return getCoordinateAt(position);
+        }
+    }
+
+    @Override()
+    public final void forEachEntry(IndexConsumer<Tuple> consumer) {
+        for (int i=0; i<size; ++i) {
+            final Tuple key = keyArray().getValue(i);
+            consumer.accept(key, getCoordinateAt(i));
+        }
+    }
+
+    @Override
+    public void sort(boolean parallel, boolean ascending) {
+        super.sort(parallel, ascending);
+        this.rehash(size);
+    }
+
+    @Override
+    public void sort(boolean parallel, IntComparator comparator) {
+        super.sort(parallel, comparator);
+        this.rehash(size);
+    }
+
+    @Override()
+    public Index<Tuple> resetOrder() {
+        if (!isFilter()) {
+            final int[] coordinates = indexes().toArray();
+            for (int i=0; i<coordinates.length; ++i) {
+                while (coordinates[i] != i) {
+                    final int j = coordinates[i];
+                    this.keyArray().swap(i, j);
+                    coordinates[i] = coordinates[j];
+                    coordinates[j] = j;
+                }
+            }
+            super.resetOrder();
+            this.rehash(size);
+        }
+        return this;
+    }
+
+}
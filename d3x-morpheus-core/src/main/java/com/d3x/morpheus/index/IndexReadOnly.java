@@ -24,6 +24,8 @@ import java.util.stream.Stream;
 
 import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.util.IntComparator;
+import com.d3x.morpheus.util.MemoryLayout;
+import com.d3x.morpheus.util.Tuple;
 
 /**
  * A read-only decorator for an Index<K> that does not allow keys to be added.
@@ -58,6 +60,11 @@ class IndexReadOnly<K> implements Index<K> {
         return underlying.capacity();
     }
 
+    @Override
+    public final long retainedBytes() {
+        return MemoryLayout.shallow(1, 0) + underlying.retainedBytes();
+    }
+
     @Override
     public final boolean add(K key) {
         throw new IndexException("The Index in question is ready only");
@@ -233,6 +240,11 @@ class IndexReadOnly<K> implements Index<K> {
         return underlying.filter(predicate);
     }
 
+    @Override
+    public final Index<K> filterPrefix(Tuple prefix) {
+        return underlying.filterPrefix(prefix);
+    }
+
     @Override
     public final Iterator<K> iterator() {
         return underlying.iterator();
@@ -21,6 +21,7 @@ import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBuilder;
 import com.d3x.morpheus.array.coding.IntCoding;
 import com.d3x.morpheus.array.coding.WithIntCoding;
+import com.d3x.morpheus.util.MemoryLayout;
 
 import gnu.trove.map.TIntIntMap;
 import gnu.trove.map.hash.TIntIntHashMap;
@@ -176,6 +177,11 @@ class IndexWithIntCoding<T> extends IndexBase<T> implements WithIntCoding<T> {
         return indexMap.size();
     }
 
+    @Override
+    protected final long mapBytes() {
+        return MemoryLayout.hash(indexMap, Integer.BYTES, Integer.BYTES);
+    }
+
     @Override
     public final int getCoordinate(T key) {
         final int code = coding.getCode(key);
@@ -21,6 +21,7 @@ import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBuilder;
 import com.d3x.morpheus.array.coding.LongCoding;
 import com.d3x.morpheus.array.coding.WithLongCoding;
+import com.d3x.morpheus.util.MemoryLayout;
 
 import gnu.trove.map.TLongIntMap;
 import gnu.trove.map.hash.TLongIntHashMap;
@@ -176,6 +177,11 @@ class IndexWithLongCoding<T> extends IndexBase<T> implements WithLongCoding<T> {
         return indexMap.size();
     }
 
+    @Override
+    protected final long mapBytes() {
+        return MemoryLayout.hash(indexMap, Long.BYTES, Integer.BYTES);
+    }
+
     @Override
     public final int getCoordinate(T key) {
         final long code = coding.getCode(key);
@@ -220,6 +220,11 @@ public final class ApacheMatrix implements D3xMatrix {
         return D3xVector.wrap(impl.operate(x.toArray()));
     }
 
+    @Override
+    public D3xVector transposeTimes(D3xVector x) {
+        return D3xVector.wrap(impl.preMultiply(x.toArray()));
+    }
+
     @Override
     public ApacheMatrix times(D3xMatrix B) {
         return wrap(this.impl.multiply(asOperand(B)));
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2014-2021 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.matrix;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.vector.CompressedVector;
+
+/**
+ * A matrix in compressed sparse column (CSC) format: the non-zero elements
+ * of each column are stored contiguously, ordered by row index.  Transpose
+ * products and column slices are fast; row access requires a binary search
+ * in every column.
+ *
+ * @author Scott Shaffer
+ */
+public final class CSCMatrix extends CompressedMatrix {
+
+    CSCMatrix(int nrow, int ncol, int[] pointers, int[] indexes, double[] values) {
+        super(nrow, ncol, pointers, indexes, values);
+    }
+
+    /**
+     * Creates a new CSC matrix with all elements initialized to zero.
+     *
+     * @param nrow the number of matrix rows.
+     * @param ncol the number of matrix columns.
+     *
+     * @return a new CSC matrix of zeros.
+     *
+     * @throws RuntimeException if either dimension is negative.
+     */
+    public static CSCMatrix sparse(int nrow, int ncol) {
+        D3xMatrix.validateShape(nrow, ncol);
+        return new CSCMatrix(nrow, ncol, emptyPointers(ncol), new int[8], new double[8]);
+    }
+
+    /**
+     * Returns a builder that assembles a CSC matrix from (row, column, value)
+     * triplets supplied in any order and compresses them once.
+     *
+     * @param nrow the number of matrix rows.
+     * @param ncol the number of matrix columns.
+     *
+     * @return a new builder for a CSC matrix with the specified shape.
+     *
+     * @throws RuntimeException if either dimension is negative.
+     */
+    public static Builder<CSCMatrix> builder(int nrow, int ncol) {
+        return new Builder<>(sparse(nrow, ncol));
+    }
+
+    /**
+     * Creates a new CSC matrix by copying the elements of a matrix view whose
+     * magnitude exceeds a threshold; all other elements are zero.
+     *
+     * @param view      the matrix to copy.
+     * @param threshold the magnitude at or below which elements are treated as zero.
+     *
+     * @return a new CSC matrix containing the non-zero elements of the view.
+     */
+    public static CSCMatrix copyOf(D3xMatrixView view, double threshold) {
+        return (CSCMatrix) sparse(view.nrow(), view.ncol()).fill(view, threshold);
+    }
+
+    /**
+     * Creates a new CSC matrix by copying the elements of a DataFrame whose
+     * magnitude exceeds a threshold; all other elements are zero.
+     *
+     * @param frame     the source DataFrame.
+     * @param threshold the magnitude at or below which elements are treated as zero.
+     *
+     * @return a new CSC matrix containing the non-zero elements of the frame
+     * (in the same row and column order).
+     *
+     * @throws RuntimeException unless the frame contains entirely numeric data.
+     */
+    public static <R,C> CSCMatrix copyFrame(DataFrame<R,C> frame, double threshold) {
+        return copyFrame(frame, frame.listRowKeys(), frame.listColumnKeys(), threshold);
+    }
+
+    /**
+     * Creates a new CSC matrix by copying the elements of selected rows and
+     * columns of a DataFrame whose magnitude exceeds a threshold; all other
+     * elements are zero.
+     *
+     * @param frame     the source DataFrame.
+     * @param rowKeys   the keys of the rows to copy.
+     * @param colKeys   the keys of the columns to copy.
+     * @param threshold the magnitude at or below which elements are treated as zero.
+     *
+     * @return a new CSC matrix containing the non-zero elements of the
+     * specified rows and columns.
+     *
+     * @throws RuntimeException unless the frame contains the specified rows
+     * and columns with numeric data.
+     */
+    public static <R,C> CSCMatrix copyFrame(DataFrame<R,C> frame, List<R> rowKeys, List<C> colKeys, double threshold) {
+        frame.requireRows(rowKeys);
+        frame.requireNumericColumns(colKeys);
+        return copyOf(D3xMatrixView.of(frame.rows().select(rowKeys).cols().select(colKeys)), threshold);
+    }
+
+    @Override
+    CSCMatrix create(int nrow, int ncol, int[] pointers, int[] indexes, double[] values) {
+        return new CSCMatrix(nrow, ncol, pointers, indexes, values);
+    }
+
+    @Override
+    boolean isRowMajor() {
+        return false;
+    }
+
+    @Override
+    public CSCMatrix copy() {
+        return (CSCMatrix) super.copy();
+    }
+
+    @Override
+    public CSCMatrix like(int nrow, int ncol) {
+        return sparse(nrow, ncol);
+    }
+
+    @Override
+    public CSRMatrix transpose() {
+        //
+        // The columns of this matrix are the rows of its transpose, so the
+        // transpose shares the same storage layout in the opposite order...
+        //
+        int count = Math.max(nnz(), 1);
+        return new CSRMatrix(ncol(), nrow(), pointers.clone(), Arrays.copyOf(indexes, count), Arrays.copyOf(values, count));
+    }
+
+    /**
+     * Copies the contents of a block of rows into a new matrix.
+     *
+     * @param start  the first row to copy.
+     * @param length the number of rows to copy.
+     *
+     * @return a new CSC matrix containing the specified rows.
+     */
+    public CSCMatrix getRows(int start, int length) {
+        return (CSCMatrix) sliceMinor(start, length);
+    }
+
+    /**
+     * Copies the contents of a block of columns into a new matrix.
+     *
+     * @param start  the first column to copy.
+     * @param length the number of columns to copy.
+     *
+     * @return a new CSC matrix containing the specified columns.
+     */
+    public CSCMatrix getColumns(int start, int length) {
+        return (CSCMatrix) sliceMajor(start, length);
+    }
+
+    @Override
+    public CompressedVector getRow(int row) {
+        validateRowIndex(row);
+        return minorVector(row);
+    }
+
+    @Override
+    public CompressedVector getColumn(int col) {
+        validateColumnIndex(col);
+        return majorVector(col);
+    }
+
+    /**
+     * Copies this matrix into compressed sparse row format.
+     * @return a new CSR matrix with the same elements as this matrix.
+     */
+    public CSRMatrix toCSR() {
+        int count = Math.max(nnz(), 1);
+        return (CSRMatrix) reorder(new CSRMatrix(nrow(), ncol(), emptyPointers(nrow()), new int[count], new double[count]));
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2014-2021 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.matrix;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.vector.CompressedVector;
+
+/**
+ * A matrix in compressed sparse row (CSR) format: the non-zero elements of
+ * each row are stored contiguously, ordered by column index.  Matrix-vector
+ * products and row slices are fast; column access requires a binary search
+ * in every row.
+ *
+ * @author Scott Shaffer
+ */
+public final class CSRMatrix extends CompressedMatrix {
+
+    CSRMatrix(int nrow, int ncol, int[] pointers, int[] indexes, double[] values) {
+        super(nrow, ncol, pointers, indexes, values);
+    }
+
+    /**
+     * Creates a new CSR matrix with all elements initialized to zero.
+     *
+     * @param nrow the number of matrix rows.
+     * @param ncol the number of matrix columns.
+     *
+     * @return a new CSR matrix of zeros.
+     *
+     * @throws RuntimeException if either dimension is negative.
+     */
+    public static CSRMatrix sparse(int nrow, int ncol) {
+        D3xMatrix.validateShape(nrow, ncol);
+        return new CSRMatrix(nrow, ncol, emptyPointers(nrow), new int[8], new double[8]);
+    }
+
+    /**
+     * Returns a builder that assembles a CSR matrix from (row, column, value)
+     * triplets supplied in any order and compresses them once.
+     *
+     * @param nrow the number of matrix rows.
+     * @param ncol the number of matrix columns.
+     *
+     * @return a new builder for a CSR matrix with the specified shape.
+     *
+     * @throws RuntimeException if either dimension is negative.
+     */
+    public static Builder<CSRMatrix> builder(int nrow, int ncol) {
+        return new Builder<>(sparse(nrow, ncol));
+    }
+
+    /**
+     * Creates a new CSR matrix by copying the elements of a matrix view whose
+     * magnitude exceeds a threshold; all other elements are zero.
+     *
+     * @param view      the matrix to copy.
+     * @param threshold the magnitude at or below which elements are treated as zero.
+     *
+     * @return a new CSR matrix containing the non-zero elements of the view.
+     */
+    public static CSRMatrix copyOf(D3xMatrixView view, double threshold) {
+        return (CSRMatrix) sparse(view.nrow(), view.ncol()).fill(view, threshold);
+    }
+
+    /**
+     * Creates a new CSR matrix by copying the elements of a DataFrame whose
+     * magnitude exceeds a threshold; all other elements are zero.
+     *
+     * @param frame     the source DataFrame.
+     * @param threshold the magnitude at or below which elements are treated as zero.
+     *
+     * @return a new CSR matrix containing the non-zero elements of the frame
+     * (in the same row and column order).
+     *
+     * @throws RuntimeException unless the frame contains entirely numeric data.
+     */
+    public static <R,C> CSRMatrix copyFrame(DataFrame<R,C> frame, double threshold) {
+        return copyFrame(frame, frame.listRowKeys(), frame.listColumnKeys(), threshold);
+    }
+
+    /**
+     * Creates a new CSR matrix by copying the elements of selected rows and
+     * columns of a DataFrame whose magnitude exceeds a threshold; all other
+     * elements are zero.
+     *
+     * @param frame     the source DataFrame.
+     * @param rowKeys   the keys of the rows to copy.
+     * @param colKeys   the keys of the columns to copy.
+     * @param threshold the magnitude at or below which elements are treated as zero.
+     *
+     * @return a new CSR matrix containing the non-zero elements of the
+     * specified rows and columns.
+     *
+     * @throws RuntimeException unless the frame contains the specified rows
+     * and columns with numeric data.
+     */
+    public static <R,C> CSRMatrix copyFrame(DataFrame<R,C> frame, List<R> rowKeys, List<C> colKeys, double threshold) {
+        frame.requireRows(rowKeys);
+        frame.requireNumericColumns(colKeys);
+        return copyOf(D3xMatrixView.of(frame.rows().select(rowKeys).cols().select(colKeys)), threshold);
+    }
+
+    @Override
+    CSRMatrix create(int nrow, int ncol, int[] pointers, int[] indexes, double[] values) {
+        return new CSRMatrix(nrow, ncol, pointers, indexes, values);
+    }
+
+    @Override
+    boolean isRowMajor() {
+        return true;
+    }
+
+    @Override
+    public CSRMatrix copy() {
+        return (CSRMatrix) super.copy();
+    }
+
+    @Override
+    public CSRMatrix like(int nrow, int ncol) {
+        return sparse(nrow, ncol);
+    }
+
+    @Override
+    public CSCMatrix transpose() {
+        //
+        // The rows of this matrix are the columns of its transpose, so the
+        // transpose shares the same storage layout in the opposite order...
+        //
+        int count = Math.max(nnz(), 1);
+        return new CSCMatrix(ncol(), nrow(), pointers.clone(), Arrays.copyOf(indexes, count), Arrays.copyOf(values, count));
+    }
+
+    /**
+     * Copies the contents of a block of rows into a new matrix.
+     *
+     * @param start  the first row to copy.
+     * @param length the number of rows to copy.
+     *
+     * @return a new CSR matrix containing the specified rows.
+     */
+    public CSRMatrix getRows(int start, int length) {
+        return (CSRMatrix) sliceMajor(start, length);
+    }
+
+    /**
+     * Copies the contents of a block of columns into a new matrix.
+     *
+     * @param start  the first column to copy.
+     * @param length the number of columns to copy.
+     *
+     * @return a new CSR matrix containing the specified columns.
+     */
+    public CSRMatrix getColumns(int start, int length) {
+        return (CSRMatrix) sliceMinor(start, length);
+    }
+
+    @Override
+    public CompressedVector getRow(int row) {
+        validateRowIndex(row);
+        return majorVector(row);
+    }
+
+    @Override
+    public CompressedVector getColumn(int col) {
+        validateColumnIndex(col);
+        return minorVector(col);
+    }
+
+    /**
+     * Copies this matrix into compressed sparse column format.
+     * @return a new CSC matrix with the same elements as this matrix.
+     */
+    public CSCMatrix toCSC() {
+        int count = Math.max(nnz(), 1);
+        return (CSCMatrix) reorder(new CSCMatrix(nrow(), ncol(), emptyPointers(ncol()), new int[count], new double[count]));
+    }
+}
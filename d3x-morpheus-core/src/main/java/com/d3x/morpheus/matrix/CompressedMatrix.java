@@ -0,0 +1,732 @@
+/*
+ * Copyright (C) 2014-2021 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.matrix;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoublePredicate;
+
+import com.d3x.morpheus.util.MorpheusException;
+import com.d3x.morpheus.util.TaskScheduler;
+import com.d3x.morpheus.vector.CompressedVector;
+import com.d3x.morpheus.vector.D3xVector;
+
+/**
+ * Base class for matrices with compressed sparse physical storage, in which
+ * the non-zero elements of each major slice (a row in the CSR format, a column
+ * in the CSC format) are stored contiguously, ordered by their minor index.
+ *
+ * <p>The storage consists of three arrays: {@code pointers}, with one element
+ * per major slice plus one, holding the position of the first stored element
+ * of each slice; {@code indexes}, holding the minor index of each stored
+ * element; and {@code values}, holding the element values.  Products with a
+ * vector along the major axis (SpMV for CSR, the transpose product for CSC)
+ * are computed in parallel across blocks of major slices when the number of
+ * stored elements is large.</p>
+ *
+ * <p>Assigning a non-zero value to an element that is not stored requires
+ * shifting all stored elements that follow it, so these matrices should be
+ * assembled with a {@link Builder}, which collects (row, column, value)
+ * triplets in any order and compresses them once, or by conversion from a
+ * dense source.</p>
+ *
+ * @author Scott Shaffer
+ */
+public abstract class CompressedMatrix implements D3xMatrix {
+    private final int nrow;
+    private final int ncol;
+
+    int[] pointers;
+    int[] indexes;
+    double[] values;
+
+    // Products along the major axis are computed in parallel above this number of stored elements...
+    private static final int PARALLEL_THRESHOLD = 100000;
+
+    // The name under which the cost of parallel products is recorded...
+    private static final String COST_KEY = "SpMV";
+
+    CompressedMatrix(int nrow, int ncol, int[] pointers, int[] indexes, double[] values) {
+        D3xMatrix.validateShape(nrow, ncol);
+        this.nrow = nrow;
+        this.ncol = ncol;
+        this.pointers = pointers;
+        this.indexes = indexes;
+        this.values = values;
+    }
+
+    /**
+     * Creates a new matrix of the same concrete type from compressed storage arrays.
+     *
+     * @param nrow     the number of rows.
+     * @param ncol     the number of columns.
+     * @param pointers the slice pointers.
+     * @param indexes  the minor indexes of the stored elements.
+     * @param values   the values of the stored elements.
+     *
+     * @return a new matrix using the specified arrays for its storage.
+     */
+    abstract CompressedMatrix create(int nrow, int ncol, int[] pointers, int[] indexes, double[] values);
+
+    /**
+     * Identifies the storage order.
+     * @return {@code true} if the major slices are rows (CSR), {@code false} if they are columns (CSC).
+     */
+    abstract boolean isRowMajor();
+
+    /**
+     * Returns the number of major slices (rows for CSR, columns for CSC).
+     * @return the number of major slices.
+     */
+    final int nmajor() {
+        return isRowMajor() ? nrow : ncol;
+    }
+
+    /**
+     * Returns the number of minor slices (columns for CSR, rows for CSC).
+     * @return the number of minor slices.
+     */
+    final int nminor() {
+        return isRowMajor() ? ncol : nrow;
+    }
+
+    /**
+     * Returns the number of elements with physical storage.
+     * @return the number of elements with physical storage.
+     */
+    public int nnz() {
+        return pointers[nmajor()];
+    }
+
+    /**
+     * Returns the fraction of elements that have physical storage.
+     * @return the fraction of elements that have physical storage.
+     */
+    public double density() {
+        return size() > 0 ? (double) nnz() / size() : 0.0;
+    }
+
+    /**
+     * Returns storage arrays for an empty matrix.
+     *
+     * @param nmajor the number of major slices.
+     *
+     * @return the slice pointers for an empty matrix.
+     */
+    static int[] emptyPointers(int nmajor) {
+        D3xMatrix.validateDimension(nmajor);
+        return new int[nmajor + 1];
+    }
+
+    /**
+     * Replaces the contents of this matrix with the elements of a view whose
+     * magnitude exceeds a threshold, visiting the view in storage order.
+     *
+     * @param view      the view to copy, with the same shape as this matrix.
+     * @param threshold the magnitude at or below which elements are treated as zero.
+     *
+     * @return this matrix, for operator chaining.
+     */
+    final CompressedMatrix fill(D3xMatrixView view, double threshold) {
+        validateCongruent(view);
+
+        int count = 0;
+        int nmajor = nmajor();
+        int nminor = nminor();
+
+        for (int major = 0; major < nmajor; ++major) {
+            pointers[major] = count;
+
+            for (int minor = 0; minor < nminor; ++minor) {
+                double value = isRowMajor() ? view.get(major, minor) : view.get(minor, major);
+
+                if (Math.abs(value) > threshold) {
+                    if (count == indexes.length) {
+                        int capacity = Math.max(8, count + (count >> 1));
+                        indexes = Arrays.copyOf(indexes, capacity);
+                        values = Arrays.copyOf(values, capacity);
+                    }
+
+                    indexes[count] = minor;
+                    values[count] = value;
+                    ++count;
+                }
+            }
+        }
+
+        pointers[nmajor] = count;
+        return this;
+    }
+
+    /**
+     * Copies the stored elements of this matrix into storage arrays with the
+     * opposite storage order (a counting sort on the minor indexes).
+     *
+     * @param target a matrix with the opposite storage order, the same
+     *               shape as this matrix and sufficient storage capacity.
+     *
+     * @return the target matrix, for operator chaining.
+     */
+    final CompressedMatrix reorder(CompressedMatrix target) {
+        int nmajor = nmajor();
+        int nminor = nminor();
+        int count = nnz();
+        int[] next = new int[nminor + 1];
+
+        for (int position = 0; position < count; ++position)
+            ++next[indexes[position] + 1];
+
+        for (int minor = 0; minor < nminor; ++minor)
+            next[minor + 1] += next[minor];
+
+        System.arraycopy(next, 0, target.pointers, 0, nminor + 1);
+
+        for (int major = 0; major < nmajor; ++major) {
+            for (int position = pointers[major]; position < pointers[major + 1]; ++position) {
+                int slot = next[indexes[position]]++;
+                target.indexes[slot] = major;
+                target.values[slot] = values[position];
+            }
+        }
+
+        return target;
+    }
+
+    private int find(int major, int minor) {
+        return Arrays.binarySearch(indexes, pointers[major], pointers[major + 1], minor);
+    }
+
+    private int lowerBound(int major, int minor) {
+        int position = find(major, minor);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    private void insert(int major, int position, int minor, double value) {
+        int count = nnz();
+
+        if (count == indexes.length) {
+            int capacity = Math.max(8, count + (count >> 1));
+            indexes = Arrays.copyOf(indexes, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        System.arraycopy(indexes, position, indexes, position + 1, count - position);
+        System.arraycopy(values, position, values, position + 1, count - position);
+
+        indexes[position] = minor;
+        values[position] = value;
+
+        for (int slice = major + 1; slice < pointers.length; ++slice)
+            ++pointers[slice];
+    }
+
+    @Override
+    public int nrow() {
+        return nrow;
+    }
+
+    @Override
+    public int ncol() {
+        return ncol;
+    }
+
+    @Override
+    public double get(int row, int col) {
+        validateRowIndex(row);
+        validateColumnIndex(col);
+
+        int position = isRowMajor() ? find(row, col) : find(col, row);
+        return position >= 0 ? values[position] : 0.0;
+    }
+
+    @Override
+    public void set(int row, int col, double value) {
+        validateRowIndex(row);
+        validateColumnIndex(col);
+
+        int major = isRowMajor() ? row : col;
+        int minor = isRowMajor() ? col : row;
+        int position = find(major, minor);
+
+        if (position >= 0)
+            values[position] = value;
+        else if (value != 0.0)
+            insert(major, -position - 1, minor, value);
+    }
+
+    @Override
+    public CompressedMatrix copy() {
+        int count = Math.max(nnz(), 1);
+        return create(nrow, ncol, pointers.clone(), Arrays.copyOf(indexes, count), Arrays.copyOf(values, count));
+    }
+
+    @Override
+    public CompressedMatrix multiplyInPlace(double scalar) {
+        int count = nnz();
+
+        for (int position = 0; position < count; ++position)
+            values[position] *= scalar;
+
+        return this;
+    }
+
+    @Override
+    public CompressedMatrix times(double scalar) {
+        return copy().multiplyInPlace(scalar);
+    }
+
+    @Override
+    public D3xVector times(D3xVector x) {
+        if (x.length() != ncol)
+            throw new MorpheusException("Vector length [%d] does not match the column dimension [%d].", x.length(), ncol);
+
+        return isRowMajor() ? gather(x.toArray()) : scatter(x.toArray());
+    }
+
+    @Override
+    public D3xVector transposeTimes(D3xVector x) {
+        if (x.length() != nrow)
+            throw new MorpheusException("Vector length [%d] does not match the row dimension [%d].", x.length(), nrow);
+
+        return isRowMajor() ? scatter(x.toArray()) : gather(x.toArray());
+    }
+
+    /**
+     * Computes the dot product of each major slice with a dense vector.
+     *
+     * @param x the dense vector indexed along the minor axis.
+     *
+     * @return a vector indexed along the major axis.
+     */
+    private D3xVector gather(double[] x) {
+        int nmajor = nmajor();
+        double[] y = new double[nmajor];
+
+        if (nnz() < PARALLEL_THRESHOLD) {
+            gather(x, y, 0, nmajor);
+        }
+        else {
+            TaskScheduler scheduler = TaskScheduler.current();
+            int width = Math.max(1, nnz() / Math.max(nmajor, 1));
+            int fallback = Math.max(64, nmajor / scheduler.getPool().getParallelism());
+            int threshold = scheduler.getLeafSize(COST_KEY, nmajor, width, fallback);
+            scheduler.invoke(new Gather(x, y, 0, nmajor, threshold));
+        }
+
+        return D3xVector.wrap(y);
+    }
+
+    private void gather(double[] x, double[] y, int start, int end) {
+        for (int major = start; major < end; ++major) {
+            double sum = 0.0;
+
+            for (int position = pointers[major]; position < pointers[major + 1]; ++position)
+                sum += values[position] * x[indexes[position]];
+
+            y[major] = sum;
+        }
+    }
+
+    /**
+     * Accumulates each major slice, scaled by the corresponding element of a
+     * dense vector, into a result vector.
+     *
+     * @param x the dense vector indexed along the major axis.
+     *
+     * @return a vector indexed along the minor axis.
+     */
+    private D3xVector scatter(double[] x) {
+        int nmajor = nmajor();
+        double[] y = new double[nminor()];
+
+        for (int major = 0; major < nmajor; ++major) {
+            double scale = x[major];
+
+            if (scale != 0.0)
+                for (int position = pointers[major]; position < pointers[major + 1]; ++position)
+                    y[indexes[position]] += values[position] * scale;
+        }
+
+        return D3xVector.wrap(y);
+    }
+
+    @Override
+    public D3xMatrix times(D3xMatrix B) {
+        if (B.nrow() != ncol)
+            throw new MorpheusException("Matrix row dimension [%d] does not match the column dimension [%d].", B.nrow(), ncol);
+
+        //
+        // Every stored element A[i, k] contributes A[i, k] * B[k, :] to row i of
+        // the product, so the product visits each stored element once and uses the
+        // stored rows of B directly when B is also in row-major compressed form...
+        //
+        int nmajor = nmajor();
+        double[][] product = new double[nrow][B.ncol()];
+        CompressedMatrix sparseB = B instanceof CompressedMatrix && ((CompressedMatrix) B).isRowMajor() ? (CompressedMatrix) B : null;
+        double[][] denseB = sparseB == null ? B.toArray() : null;
+
+        for (int major = 0; major < nmajor; ++major) {
+            for (int position = pointers[major]; position < pointers[major + 1]; ++position) {
+                double value = values[position];
+                int row = isRowMajor() ? major : indexes[position];
+                int inner = isRowMajor() ? indexes[position] : major;
+                double[] target = product[row];
+
+                if (sparseB != null) {
+                    for (int bpos = sparseB.pointers[inner]; bpos < sparseB.pointers[inner + 1]; ++bpos)
+                        target[sparseB.indexes[bpos]] += value * sparseB.values[bpos];
+                }
+                else {
+                    double[] source = denseB[inner];
+
+                    for (int col = 0; col < source.length; ++col)
+                        target[col] += value * source[col];
+                }
+            }
+        }
+
+        return D3xMatrix.wrap(product);
+    }
+
+    @Override
+    public CompressedMatrix timesDiagonal(D3xVector diagonals) {
+        if (diagonals.length() != ncol)
+            throw new MorpheusException("Diagonal length [%d] does not match the column dimension [%d].", diagonals.length(), ncol);
+
+        CompressedMatrix result = copy();
+        int nmajor = nmajor();
+
+        for (int major = 0; major < nmajor; ++major)
+            for (int position = pointers[major]; position < pointers[major + 1]; ++position)
+                result.values[position] *= diagonals.get(isRowMajor() ? indexes[position] : major);
+
+        return result;
+    }
+
+    /**
+     * Creates a copy of a contiguous block of major slices.
+     *
+     * @param start  the first major slice to copy.
+     * @param length the number of major slices to copy.
+     *
+     * @return a matrix of the same concrete type containing the specified slices.
+     */
+    CompressedMatrix sliceMajor(int start, int length) {
+        validateSlice(start, length, nmajor());
+
+        int first = pointers[start];
+        int last = pointers[start + length];
+        int[] slicePointers = new int[length + 1];
+
+        for (int major = 0; major <= length; ++major)
+            slicePointers[major] = pointers[start + major] - first;
+
+        int[] sliceIndexes = Arrays.copyOfRange(indexes, first, Math.max(last, first + 1));
+        double[] sliceValues = Arrays.copyOfRange(values, first, Math.max(last, first + 1));
+
+        return isRowMajor()
+                ? create(length, ncol, slicePointers, sliceIndexes, sliceValues)
+                : create(nrow, length, slicePointers, sliceIndexes, sliceValues);
+    }
+
+    /**
+     * Creates a copy of a contiguous block of minor slices.
+     *
+     * @param start  the first minor slice to copy.
+     * @param length the number of minor slices to copy.
+     *
+     * @return a matrix of the same concrete type containing the specified slices.
+     */
+    CompressedMatrix sliceMinor(int start, int length) {
+        validateSlice(start, length, nminor());
+
+        int nmajor = nmajor();
+        int[] slicePointers = new int[nmajor + 1];
+
+        for (int major = 0; major < nmajor; ++major)
+            slicePointers[major + 1] = slicePointers[major]
+                    + lowerBound(major, start + length) - lowerBound(major, start);
+
+        int count = slicePointers[nmajor];
+        int[] sliceIndexes = new int[Math.max(count, 1)];
+        double[] sliceValues = new double[Math.max(count, 1)];
+
+        for (int major = 0; major < nmajor; ++major) {
+            int target = slicePointers[major];
+
+            for (int position = lowerBound(major, start); position < lowerBound(major, start + length); ++position) {
+                sliceIndexes[target] = indexes[position] - start;
+                sliceValues[target] = values[position];
+                ++target;
+            }
+        }
+
+        return isRowMajor()
+                ? create(nrow, length, slicePointers, sliceIndexes, sliceValues)
+                : create(length, ncol, slicePointers, sliceIndexes, sliceValues);
+    }
+
+    /**
+     * Copies a major slice into a compressed vector.
+     *
+     * @param major the index of the major slice.
+     *
+     * @return a compressed vector containing the elements of the slice.
+     */
+    CompressedVector majorVector(int major) {
+        CompressedVector vector = CompressedVector.sparse(nminor());
+
+        for (int position = pointers[major]; position < pointers[major + 1]; ++position)
+            vector.set(indexes[position], values[position]);
+
+        return vector;
+    }
+
+    /**
+     * Copies a minor slice into a compressed vector.
+     *
+     * @param minor the index of the minor slice.
+     *
+     * @return a compressed vector containing the elements of the slice.
+     */
+    CompressedVector minorVector(int minor) {
+        int nmajor = nmajor();
+        CompressedVector vector = CompressedVector.sparse(nmajor);
+
+        for (int major = 0; major < nmajor; ++major) {
+            int position = find(major, minor);
+
+            if (position >= 0)
+                vector.set(major, values[position]);
+        }
+
+        return vector;
+    }
+
+    @Override
+    public boolean all(DoublePredicate predicate) {
+        if (nnz() < size() && !predicate.test(0.0))
+            return false;
+
+        int count = nnz();
+
+        for (int position = 0; position < count; ++position)
+            if (!predicate.test(values[position]))
+                return false;
+
+        return true;
+    }
+
+    @Override
+    public boolean any(DoublePredicate predicate) {
+        if (nnz() < size() && predicate.test(0.0))
+            return true;
+
+        int count = nnz();
+
+        for (int position = 0; position < count; ++position)
+            if (predicate.test(values[position]))
+                return true;
+
+        return false;
+    }
+
+    @Override
+    public double[][] toArray() {
+        int nmajor = nmajor();
+        double[][] array = new double[nrow][ncol];
+
+        for (int major = 0; major < nmajor; ++major) {
+            for (int position = pointers[major]; position < pointers[major + 1]; ++position) {
+                if (isRowMajor())
+                    array[major][indexes[position]] = values[position];
+                else
+                    array[indexes[position]][major] = values[position];
+            }
+        }
+
+        return array;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(nrow = %d, ncol = %d, nnz = %d)", getClass().getSimpleName(), nrow, ncol, nnz());
+    }
+
+    private static void validateSlice(int start, int length, int dimension) {
+        if (start < 0 || length < 0 || start + length > dimension)
+            throw new MorpheusException("Invalid slice: [%d, %d) not in range [0, %d).", start, start + length, dimension);
+    }
+
+    /**
+     * Assembles a compressed matrix from (row, column, value) triplets that
+     * may be supplied in any order.  The triplets are appended to growable
+     * arrays and compressed once, by a counting sort on the major index and
+     * a sort of each major slice on the minor index, so a matrix with
+     * {@code nnz} elements is built in {@code O(nnz log nnz)} time rather
+     * than the {@code O(nnz * nnz)} time of repeated calls to {@code set()}.
+     *
+     * <p>As with {@code set()}, a later assignment to the same element
+     * replaces an earlier one, and elements whose final value is zero are
+     * not stored.</p>
+     *
+     * @param <M> the concrete type of the compressed matrix.
+     */
+    public static final class Builder<M extends CompressedMatrix> {
+        private final M empty;
+
+        private int count = 0;
+        private int[] rows = new int[8];
+        private int[] cols = new int[8];
+        private double[] values = new double[8];
+
+        Builder(M empty) {
+            this.empty = empty;
+        }
+
+        /**
+         * Returns the number of triplets collected so far, including
+         * repeated assignments to the same element.
+         *
+         * @return the number of triplets collected so far.
+         */
+        public int size() {
+            return count;
+        }
+
+        /**
+         * Assigns the value of an element in the matrix under construction.
+         *
+         * @param row   the row index of the element.
+         * @param col   the column index of the element.
+         * @param value the value of the element.
+         *
+         * @return this builder, for operator chaining.
+         *
+         * @throws RuntimeException unless the indexes are valid.
+         */
+        public Builder<M> set(int row, int col, double value) {
+            empty.validateRowIndex(row);
+            empty.validateColumnIndex(col);
+
+            if (count == rows.length) {
+                int capacity = count + (count >> 1);
+                rows = Arrays.copyOf(rows, capacity);
+                cols = Arrays.copyOf(cols, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+
+            rows[count] = row;
+            cols[count] = col;
+            values[count] = value;
+            ++count;
+
+            return this;
+        }
+
+        /**
+         * Compresses the triplets collected so far into a new matrix.  The
+         * builder is left unchanged and may be used to build further matrices.
+         *
+         * @return a new compressed matrix containing the collected elements.
+         */
+        @SuppressWarnings("unchecked")
+        public M build() {
+            boolean rowMajor = empty.isRowMajor();
+            int[] majors = rowMajor ? rows : cols;
+            int[] minors = rowMajor ? cols : rows;
+            int nmajor = empty.nmajor();
+
+            //  Counting sort on the major index, then sort each slice on the minor index with
+            //  ties broken by insertion order, so the last assignment to an element comes last...
+            int[] next = new int[nmajor + 1];
+
+            for (int k = 0; k < count; ++k)
+                ++next[majors[k] + 1];
+
+            for (int major = 0; major < nmajor; ++major)
+                next[major + 1] += next[major];
+
+            int[] starts = Arrays.copyOf(next, nmajor + 1);
+            long[] keys = new long[count];
+
+            for (int k = 0; k < count; ++k)
+                keys[next[majors[k]]++] = ((long) minors[k] << 32) | k;
+
+            int stored = 0;
+            int[] pointers = new int[nmajor + 1];
+            int[] indexes = new int[Math.max(count, 1)];
+            double[] elements = new double[Math.max(count, 1)];
+
+            for (int major = 0; major < nmajor; ++major) {
+                pointers[major] = stored;
+                Arrays.sort(keys, starts[major], starts[major + 1]);
+
+                for (int position = starts[major]; position < starts[major + 1]; ++position) {
+                    int minor = (int) (keys[position] >>> 32);
+
+                    if (position + 1 < starts[major + 1] && (int) (keys[position + 1] >>> 32) == minor)
+                        continue;
+
+                    double value = values[(int) keys[position]];
+
+                    if (value != 0.0) {
+                        indexes[stored] = minor;
+                        elements[stored] = value;
+                        ++stored;
+                    }
+                }
+            }
+
+            pointers[nmajor] = stored;
+            return (M) empty.create(empty.nrow(), empty.ncol(), pointers, indexes, elements);
+        }
+    }
+
+    /**
+     * A recursive task that computes the dot products of a block of major slices with a dense vector.
+     */
+    private class Gather extends RecursiveAction {
+        private final double[] x;
+        private final double[] y;
+        private final int start;
+        private final int end;
+        private final int threshold;
+
+        Gather(double[] x, double[] y, int start, int end, int threshold) {
+            this.x = x;
+            this.y = y;
+            this.start = start;
+            this.end = end;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int length = end - start;
+
+            if (length > threshold) {
+                int split = start + length / 2;
+                invokeAll(new Gather(x, y, start, split, threshold), new Gather(x, y, split, end, threshold));
+            }
+            else {
+                long startNanos = System.nanoTime();
+                gather(x, y, start, end);
+                TaskScheduler.record(COST_KEY, pointers[end] - pointers[start], System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
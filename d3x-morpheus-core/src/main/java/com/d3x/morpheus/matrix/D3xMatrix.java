@@ -135,6 +135,58 @@ public interface D3xMatrix extends D3xMatrixView {
      */
     D3xVector times(D3xVector x);
 
+    /**
+     * Computes the product {@code A'x} of the transpose of this matrix {@code A}
+     * and a vector {@code x} and returns the result in a new vector, without
+     * creating the transpose.
+     *
+     * <p>Implementations should override this default method when a more
+     * efficient algorithm is available for the underlying storage.</p>
+     *
+     * @param x the vector factor.
+     *
+     * @return the product {@code A'x} of the transpose of this matrix
+     * {@code A} and the input vector {@code x}.
+     *
+     * @throws RuntimeException unless the length of the input vector
+     * matches the row dimension of this matrix.
+     */
+    default D3xVector transposeTimes(D3xVector x) {
+        if (x.length() != nrow())
+            throw new MorpheusException("Vector length [%d] does not match the row dimension [%d].", x.length(), nrow());
+
+        D3xVector result = D3xVector.dense(ncol());
+
+        for (int j = 0; j < ncol(); ++j) {
+            double sum = 0.0;
+
+            for (int i = 0; i < nrow(); ++i)
+                sum += get(i, j) * x.get(i);
+
+            result.set(j, sum);
+        }
+
+        return result;
+    }
+
+    /**
+     * Computes the product {@code AD} of this matrix {@code A} and a diagonal
+     * matrix {@code D} and returns the result in a new matrix.
+     *
+     * <p>Implementations should override this default method when a more
+     * efficient algorithm is available for the underlying storage.</p>
+     *
+     * @param diagonals the diagonal elements of {@code D}.
+     *
+     * @return the product {@code AD} of this matrix and the diagonal matrix.
+     *
+     * @throws RuntimeException unless the length of the diagonal vector
+     * matches the column dimension of this matrix.
+     */
+    default D3xMatrix timesDiagonal(D3xVector diagonals) {
+        return times(diagonal(diagonals));
+    }
+
     /**
      * Computes the product {@code AB} of this matrix {@code A} and another
      * matrix {@code B} and returns the result in a new matrix.
@@ -343,7 +395,10 @@ public interface D3xMatrix extends D3xMatrixView {
 
     /**
      * Creates a new matrix with sparse physical storage and all elements
-     * initialized to zero.
+     * initialized to zero.  Elements are held in a hash map, so they may be
+     * assigned in any order in constant time; use {@link CSRMatrix#builder}
+     * or {@link CSCMatrix#builder} to assemble a matrix in compressed format
+     * for fast products.
      *
      * @param nrow the number of matrix rows.
      * @param ncol the number of matrix columns.
@@ -420,18 +475,18 @@ public interface D3xMatrix extends D3xMatrixView {
     }
 
     /**
-     * Creates a new matrix with sparse physical storage and all elements
+     * Creates a new matrix with dense physical storage and all elements
      * initialized to zero.
      *
      * @param nrow the number of matrix rows.
      * @param ncol the number of matrix columns.
      *
-     * @return a new spares matrix of zeros.
+     * @return a new dense matrix of zeros.
      *
      * @throws RuntimeException if either dimension is negative.
      */
     static D3xMatrix zeros(int nrow, int ncol) {
-        return ApacheMatrix.sparse(nrow, ncol);
+        return dense(nrow, ncol);
     }
 
 
@@ -28,7 +28,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Spliterator;
 import java.util.Spliterators;
-import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.RecursiveTask;
 import java.util.function.DoublePredicate;
@@ -44,6 +43,7 @@ import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBuilder;
 import com.d3x.morpheus.array.ArrayUtils;
 import com.d3x.morpheus.index.Index;
+import com.d3x.morpheus.util.TaskScheduler;
 
 /**
  * An interface to a range of some type with a inclusive start and exclusive end
@@ -163,8 +163,10 @@ public interface Range<T> extends Iterable<T> {
             final Iterable<Object> iterable = (Iterable<Object>)this;
             return (Array<T>)ArrayBuilder.of(length).appendAll(iterable).toArray();
         } else {
-            final ToArrayTask<T> task = new ToArrayTask<>(this, 1000);
-            return ForkJoinPool.commonPool().invoke(task);
+            final TaskScheduler scheduler = TaskScheduler.current();
+            final int threshold = scheduler.getLeafSize(ToArrayTask.COST_KEY, (int)estimateSize(), 1, 1000);
+            final ToArrayTask<T> task = new ToArrayTask<>(this, threshold);
+            return scheduler.invoke(task);
         }
     }
 
@@ -581,6 +583,8 @@ public interface Range<T> extends Iterable<T> {
      */
     class ToArrayTask<T> extends RecursiveTask<Array<T>> {
 
+        static final String COST_KEY = "Range.toArray";
+
         private final Range<T> range;
         private int splitThreshold;
 
@@ -599,9 +603,12 @@ public interface Range<T> extends Iterable<T> {
         protected Array<T> compute() {
             final List<Range<T>> segments = range.split(splitThreshold);
             if (segments.size() == 1) {
+                final long startNanos = System.nanoTime();
                 final int sizeEstimate = (int)range.estimateSize();
                 final Class<T> type = (Class<T>)range.start().getClass();
-                return ArrayBuilder.of(sizeEstimate, type).appendAll(range).toArray();
+                final Array<T> result = ArrayBuilder.of(sizeEstimate, type).appendAll(range).toArray();
+                TaskScheduler.record(COST_KEY, sizeEstimate, System.nanoTime() - startNanos);
+                return result;
             } else {
                 final Stream<ForkJoinTask<Array<T>>> stream = segments.stream().map(s -> new ToArrayTask<>(s, splitThreshold).fork());
                 final List<ForkJoinTask<Array<T>>> tasks = stream.collect(Collectors.toList());
@@ -23,7 +23,6 @@ import java.util.Iterator;
 import java.util.Optional;
 import java.util.PrimitiveIterator;
 import java.util.Spliterator;
-import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -49,6 +48,10 @@ import com.d3x.morpheus.index.Index;
 import com.d3x.morpheus.stats.Stats;
 import com.d3x.morpheus.util.Asserts;
 import com.d3x.morpheus.util.Bounds;
+import com.d3x.morpheus.util.MemoryBudget;
+import com.d3x.morpheus.util.MemoryBudgetException;
+import com.d3x.morpheus.util.MemoryLayout;
+import com.d3x.morpheus.util.TaskScheduler;
 import com.d3x.morpheus.util.functions.ToBooleanFunction;
 import com.d3x.morpheus.util.text.Formats;
 
@@ -222,6 +225,13 @@ class XDataFrame<R,C> implements DataFrame<R,C>, Serializable, Cloneable {
         return colKeys().size();
     }
 
+
+    @Override()
+    public final long retainedBytes() {
+        return data.retainedBytes();
+    }
+
+
     @Override
     public boolean isEmpty() {
         return rowCount() == 0;
@@ -323,10 +333,10 @@ class XDataFrame<R,C> implements DataFrame<R,C>, Serializable, Cloneable {
             return Optional.empty();
         } else if (rowCount() > colCount()) {
             var task = new MinMaxValueTask(0, rowCount(), true, predicate);
-            return isParallel() ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+            return isParallel() ? TaskScheduler.current().invoke(task) : task.compute();
         } else {
             var task = new MinMaxValueTask(0, colCount(), true, predicate);
-            return isParallel() ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+            return isParallel() ? TaskScheduler.current().invoke(task) : task.compute();
         }
     }
 
@@ -337,10 +347,10 @@ class XDataFrame<R,C> implements DataFrame<R,C>, Serializable, Cloneable {
             return Optional.empty();
         } else if (rowCount() > colCount()) {
             var task = new MinMaxValueTask(0, rowCount(), false, predicate);
-            return  isParallel() ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+            return  isParallel() ? TaskScheduler.current().invoke(task) : task.compute();
         } else {
             var task = new MinMaxValueTask(0, colCount(), false, predicate);
-            return isParallel() ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+            return isParallel() ? TaskScheduler.current().invoke(task) : task.compute();
         }
     }
 
@@ -351,10 +361,10 @@ class XDataFrame<R,C> implements DataFrame<R,C>, Serializable, Cloneable {
             return Optional.empty();
         } else if (rowCount() > colCount()) {
             var task = new BoundsTask<V>(0, rowCount(), predicate);
-            return isParallel() ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+            return isParallel() ? TaskScheduler.current().invoke(task) : task.compute();
         } else {
             var task = new BoundsTask<V>(0, colCount(), predicate);
-            return isParallel() ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+            return isParallel() ? TaskScheduler.current().invoke(task) : task.compute();
         }
     }
 
@@ -365,7 +375,7 @@ class XDataFrame<R,C> implements DataFrame<R,C>, Serializable, Cloneable {
             var toIndex = rowCount() * colCount() - 1;
             var threshold = (rowCount() * colCount()) / Runtime.getRuntime().availableProcessors();
             var action = new ForEachValue(0, toIndex, threshold, consumer);
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
         } else if (colCount() > 0) {
             var toIndex = rowCount() * colCount() - 1;
             var threshold = Integer.MAX_VALUE;
@@ -382,7 +392,7 @@ class XDataFrame<R,C> implements DataFrame<R,C>, Serializable, Cloneable {
             var toIndex = rowCount() * colCount() - 1;
             var threshold = (rowCount() * colCount()) / Runtime.getRuntime().availableProcessors();
             var action = new ApplyBooleans(0, toIndex, threshold, mapper);
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
         } else if (colCount() > 0) {
             var toIndex = rowCount() * colCount() - 1;
             var threshold = Integer.MAX_VALUE;
@@ -399,7 +409,7 @@ class XDataFrame<R,C> implements DataFrame<R,C>, Serializable, Cloneable {
             var toIndex = rowCount() * colCount() - 1;
             var threshold = (rowCount() * colCount()) / Runtime.getRuntime().availableProcessors();
             var action = new ApplyInts(0, toIndex, threshold, mapper);
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
         } else if (colCount() > 0) {
             var toIndex = rowCount() * colCount() - 1;
             var threshold = Integer.MAX_VALUE;
@@ -416,7 +426,7 @@ class XDataFrame<R,C> implements DataFrame<R,C>, Serializable, Cloneable {
             var toIndex = rowCount() * colCount() - 1;
             var threshold = (rowCount() * colCount()) / Runtime.getRuntime().availableProcessors();
             var action = new ApplyLongs(0, toIndex, threshold, mapper);
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
         } else if (colCount() > 0) {
             var toIndex = rowCount() * colCount() - 1;
             var threshold = Integer.MAX_VALUE;
@@ -433,7 +443,7 @@ class XDataFrame<R,C> implements DataFrame<R,C>, Serializable, Cloneable {
             var toIndex = rowCount() * colCount() - 1;
             var threshold = (rowCount() * colCount()) / Runtime.getRuntime().availableProcessors();
             var action = new ApplyDoubles(0, toIndex, threshold, mapper);
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
         } else if (colCount() > 0) {
             var toIndex = rowCount() * colCount() - 1;
             var threshold = Integer.MAX_VALUE;
@@ -450,7 +460,7 @@ class XDataFrame<R,C> implements DataFrame<R,C>, Serializable, Cloneable {
             var toIndex = rowCount() * colCount() - 1;
             var threshold = (rowCount() * colCount()) / Runtime.getRuntime().availableProcessors();
             var action = new ApplyValues(0, toIndex, threshold, mapper);
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
         } else if (colCount() > 0) {
             var toIndex = rowCount() * colCount() - 1;
             var threshold = Integer.MAX_VALUE;
@@ -464,6 +474,7 @@ class XDataFrame<R,C> implements DataFrame<R,C>, Serializable, Cloneable {
     @Override()
     @SuppressWarnings("unchecked")
     public final DataFrame<R,C> copy() {
+        var heap = MemoryBudget.current().allocate("copy", data.copyBytes());
         try {
             var newRowKeys = rowKeys().toArray();
             var newColKeys = Index.of(colKeys().type(),  colKeys().size());
@@ -474,7 +485,14 @@ class XDataFrame<R,C> implements DataFrame<R,C>, Serializable, Cloneable {
                 var colKey = column.key();
                 var colClass = column.dataClass();
                 var arrayType = ArrayType.of(colClass);
-                newFrame.cols().add(colKey, colClass);
+                if (heap) {
+                    newFrame.cols().add(colKey, colClass);
+                } else if (!ArrayUtils.isMappable(colClass)) {
+                    MemoryBudget.current().fallback("copy", colClass, MemoryLayout.array(newRowKeys.length(), arrayType.elementBytes()));
+                    newFrame.cols().add(colKey, colClass);
+                } else {
+                    newFrame.cols().add(colKey, Array.map(colClass, newRowKeys.length()));
+                }
                 newColumn.atKey(colKey);
                 switch (arrayType) {
                     case BOOLEAN:       newColumn.applyBooleans(v -> column.getBooleanAt(v.rowOrdinal()));  break;
@@ -488,6 +506,8 @@ class XDataFrame<R,C> implements DataFrame<R,C>, Serializable, Cloneable {
                 }
             });
             return newFrame;
+        } catch (MemoryBudgetException ex) {
+            throw ex;
         } catch (Throwable t) {
             throw new DataFrameException("Failed to create a deep copy of DataFrame", t);
         }
@@ -577,6 +597,28 @@ class XDataFrame<R,C> implements DataFrame<R,C>, Serializable, Cloneable {
     }
 
 
+    @Override
+    public DataFrame<C,R> transpose(boolean materialize) {
+        if (!materialize) {
+            return transpose();
+        } else {
+            return new XDataFrame<>(data.transposeCopy(isParallel()), isParallel());
+        }
+    }
+
+
+    @Override
+    public <X,Y> DataFrame<X,Y> pivot(C rowKeyCol, C colKeyCol, C valueCol, DataFrameAggregator aggregator) {
+        return XDataFramePivot.pivot(this, rowKeyCol, colKeyCol, valueCol, aggregator);
+    }
+
+
+    @Override
+    public DataFrame<Integer,C> melt(Iterable<C> idCols, Iterable<C> valueCols, C varCol, C valueCol) {
+        return XDataFramePivot.melt(this, idCols, valueCols, varCol, valueCol);
+    }
+
+
     @Override
     public Decomposition decomp() {
         return algebra().decomp();
@@ -826,8 +868,8 @@ class XDataFrame<R,C> implements DataFrame<R,C>, Serializable, Cloneable {
     public final DataFrame<R,C> select(Predicate<DataFrameRow<R,C>> rowPredicate, Predicate<DataFrameColumn<R,C>> colPredicate) {
         var selectRows = new SelectRows(0, rowCount()-1, rowPredicate);
         var selectCols = new SelectColumns(0, colCount()-1, colPredicate);
-        var rowKeys = isParallel() ? ForkJoinPool.commonPool().invoke(selectRows) : selectRows.compute();
-        var colKeys = isParallel() ? ForkJoinPool.commonPool().invoke(selectCols) : selectCols.compute();
+        var rowKeys = isParallel() ? TaskScheduler.current().invoke(selectRows) : selectRows.compute();
+        var colKeys = isParallel() ? TaskScheduler.current().invoke(selectCols) : selectCols.compute();
         var newRowAxis = rowKeys().filter(rowKeys);
         var newColAxis = colKeys().filter(colKeys);
         var newContents = data.filter(newRowAxis, newColAxis);
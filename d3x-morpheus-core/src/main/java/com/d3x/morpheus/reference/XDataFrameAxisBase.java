@@ -20,7 +20,6 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Optional;
 import java.util.Spliterator;
-import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.RecursiveTask;
 import java.util.function.Consumer;
@@ -44,6 +43,7 @@ import com.d3x.morpheus.range.Range;
 import com.d3x.morpheus.util.Asserts;
 import com.d3x.morpheus.util.Collect;
 import com.d3x.morpheus.util.Parallel;
+import com.d3x.morpheus.util.TaskScheduler;
 import com.d3x.morpheus.util.Tuple;
 
 /**
@@ -293,7 +293,7 @@ abstract class XDataFrameAxisBase<X,Y,R,C,V extends DataFrameVector<?,?,R,C,?>,T
         if (parallel) {
             var count = count();
             var action = new ForEachVector(0, count - 1, consumer);
-            ForkJoinPool.commonPool().invoke(action);
+            TaskScheduler.current().invoke(action);
         } else if (count() > 0) {
             var count = count();
             var vector = createVector(frame, 0);
@@ -403,7 +403,7 @@ abstract class XDataFrameAxisBase<X,Y,R,C,V extends DataFrameVector<?,?,R,C,?>,T
         } else if (parallel) {
             var count = count();
             var select = new Select(0, count-1, predicate);
-            var keys = ForkJoinPool.commonPool().invoke(select);
+            var keys = TaskScheduler.current().invoke(select);
             return createFilter(frame, keys);
         } else {
             var count = count();
@@ -430,6 +430,22 @@ abstract class XDataFrameAxisBase<X,Y,R,C,V extends DataFrameVector<?,?,R,C,?>,T
     }
 
 
+    @Override
+    public final DataFrame<R,C> selectPrefix(Tuple prefix) {
+        if (!Tuple.class.isAssignableFrom(keyClass())) {
+            throw new DataFrameException("Prefix selection requires Tuple keys, not " + keyClass().getSimpleName());
+        } else if (axisType.isRow()) {
+            var newRowKeys = frame.rowKeys().filterPrefix(prefix);
+            var newColKeys = frame.colKeys().copy(true);
+            return frame.filter(newRowKeys, newColKeys);
+        } else {
+            var newRowKeys = frame.rowKeys().copy(true);
+            var newColKeys = frame.colKeys().filterPrefix(prefix);
+            return frame.filter(newRowKeys, newColKeys);
+        }
+    }
+
+
     @Override
     public final Optional<V> first(Predicate<V> predicate) {
         var count = count();
@@ -483,7 +499,7 @@ abstract class XDataFrameAxisBase<X,Y,R,C,V extends DataFrameVector<?,?,R,C,?>,T
     @Override
     public final Optional<V> min(Comparator<V> comparator) {
         final MinVector task = new MinVector(0, count()-1, comparator);
-        final V result = parallel ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+        final V result = parallel ? TaskScheduler.current().invoke(task) : task.compute();
         return Optional.ofNullable(result);
     }
 
@@ -491,7 +507,7 @@ abstract class XDataFrameAxisBase<X,Y,R,C,V extends DataFrameVector<?,?,R,C,?>,T
     @Override
     public final Optional<V> max(Comparator<V> comparator) {
         final MaxVector task = new MaxVector(0, count()-1, comparator);
-        final V result = parallel ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+        final V result = parallel ? TaskScheduler.current().invoke(task) : task.compute();
         return Optional.ofNullable(result);
     }
 
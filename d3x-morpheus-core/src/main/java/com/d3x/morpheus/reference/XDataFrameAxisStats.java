@@ -15,9 +15,6 @@
  */
 package com.d3x.morpheus.reference;
 
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.RecursiveAction;
-
 import com.d3x.morpheus.frame.DataFrame;
 import com.d3x.morpheus.frame.DataFrameAxisStats;
 import com.d3x.morpheus.frame.DataFrameColumn;
@@ -33,6 +30,9 @@ import com.d3x.morpheus.stats.StatType;
 import com.d3x.morpheus.stats.Statistic1;
 import com.d3x.morpheus.stats.Statistic2;
 import com.d3x.morpheus.stats.Stats;
+import com.d3x.morpheus.util.MemoryBudgetException;
+import com.d3x.morpheus.util.metrics.Metrics;
+import com.d3x.morpheus.util.metrics.MetricsOperation;
 
 /**
  * The reference implementation of the DataFrameAxisStats interface as applied to the column dimension of a DataFrame
@@ -123,21 +123,25 @@ class XDataFrameAxisStats<K,R,C,X,Y> extends XDataFrameStatsBase<X,Y> implements
     @Override
     @SuppressWarnings("unchecked")
     public DataFrame<K,K> covariance() {
-        try {
+        try (MetricsOperation operation = Metrics.start("stats")) {
             final Statistic2 covariance = new Covariance();
             if (isRow()) {
                 final Index<K> rowKeys = (Index<K>)Index.of(frame.rows().filter(DataFrameVector::isNumeric).keyArray());
                 final XDataFrame<K,K> result = (XDataFrame<K,K>)DataFrame.ofDoubles(rowKeys, rowKeys);
                 final StatisticAction action = new BivariateRowStatistics(0, result.rows().count()-1, result, covariance);
-                if (isParallel()) ForkJoinPool.commonPool().invoke(action); else action.compute();
+                operation.detail("COVARIANCE").rows(frame.rowCount()).columns(frame.colCount());
+                invoke(action, isParallel(), operation, "COVARIANCE");
                 return result;
             } else {
                 final Index<K> colKeys = (Index<K>)Index.of(frame.cols().filter(DataFrameVector::isNumeric).keyArray());
                 final XDataFrame<K,K> result = (XDataFrame<K,K>)DataFrame.ofDoubles(colKeys, colKeys);
                 final StatisticAction action = new BivariateColumnStatistics(0, result.cols().count()-1, result, covariance);
-                if (isParallel()) ForkJoinPool.commonPool().invoke(action); else action.compute();
+                operation.detail("COVARIANCE").rows(frame.rowCount()).columns(frame.colCount());
+                invoke(action, isParallel(), operation, "COVARIANCE");
                 return result;
             }
+        } catch (MemoryBudgetException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new DataFrameException("Failed to compute covariance matrix for DataFrame", ex);
         }
@@ -147,21 +151,25 @@ class XDataFrameAxisStats<K,R,C,X,Y> extends XDataFrameStatsBase<X,Y> implements
     @Override
     @SuppressWarnings("unchecked")
     public DataFrame<K,K> correlation() {
-        try {
+        try (MetricsOperation operation = Metrics.start("stats")) {
             final Statistic2 correlation = new Correlation();
             if (isRow()) {
                 final Index<K> rowKeys = (Index<K>)Index.of(frame.rows().filter(DataFrameVector::isNumeric).keyArray());
                 final XDataFrame<K,K> result = (XDataFrame<K,K>)DataFrame.ofDoubles(rowKeys, rowKeys);
                 final StatisticAction action = new BivariateRowStatistics(0, result.rowCount()-1, result, correlation);
-                if (isParallel()) ForkJoinPool.commonPool().invoke(action); else action.compute();
+                operation.detail("CORRELATION").rows(frame.rowCount()).columns(frame.colCount());
+                invoke(action, isParallel(), operation, "CORRELATION");
                 return result;
             } else {
                 final Index<K> colKeys = (Index<K>)Index.of(frame.cols().filter(DataFrameVector::isNumeric).keyArray());
                 final XDataFrame<K,K> result = (XDataFrame<K,K>)DataFrame.ofDoubles(colKeys, colKeys);
                 final StatisticAction action = new BivariateColumnStatistics(0, result.colCount()-1, result, correlation);
-                if (isParallel()) ForkJoinPool.commonPool().invoke(action); else action.compute();
+                operation.detail("CORRELATION").rows(frame.rowCount()).columns(frame.colCount());
+                invoke(action, isParallel(), operation, "CORRELATION");
                 return result;
             }
+        } catch (MemoryBudgetException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new DataFrameException("Failed to compute correlation matrix for DataFrame", ex);
         }
@@ -232,15 +240,14 @@ class XDataFrameAxisStats<K,R,C,X,Y> extends XDataFrameStatsBase<X,Y> implements
 
     @Override
     public DataFrame<R,C> ewma(int halfLife) {
-        final XDataFrame<R,C> result = (XDataFrame<R,C>)frame.copy();
-        if (parallel) {
-            final int colCount = result.cols().count();
-            ForkJoinPool.commonPool().invoke(new Ewma(result, 0, colCount-1, 2, halfLife));
-        } else {
+        try (MetricsOperation operation = Metrics.start("stats")) {
+            final XDataFrame<R,C> result = (XDataFrame<R,C>)frame.copy();
             final int colCount = result.cols().count();
-            new Ewma(result, 0, colCount-1, Integer.MAX_VALUE, halfLife).compute();
+            final int threshold = parallel ? 2 : Integer.MAX_VALUE;
+            operation.detail("EWMA").rows(result.rowCount()).columns(colCount);
+            invoke(new Ewma(result, 0, colCount-1, threshold, halfLife), parallel, operation, "EWMA");
+            return result;
         }
-        return result;
     }
 
 
@@ -293,20 +300,31 @@ class XDataFrameAxisStats<K,R,C,X,Y> extends XDataFrameStatsBase<X,Y> implements
         @Override
         public void compute() {
             final int count = to - from + 1;
-            final int threshold = isParallel() ? DataFrameOptions.getRowSplitThreshold(frame) : Integer.MAX_VALUE;
+            final int width = frame.colCount();
+            final int threshold = threshold(count, width, isParallel() ? DataFrameOptions.getRowSplitThreshold(frame) : Integer.MAX_VALUE);
             if (count <= threshold) {
-                var length = frame.cols().count();
+                final long startNanos = System.nanoTime();
+                final int[] rowOrdinals = new int[count];
+                final int[] colOrdinals = new int[frame.colCount()];
+                for (int i=0; i<count; ++i) rowOrdinals[i] = frame.rowKeys().getOrdinal(target.rows().key(from + i));
+                for (int j=0; j<colOrdinals.length; ++j) colOrdinals[j] = j;
                 final DataFrameCursor<R,StatType> cursor = target.cursor().colAt(0);
-                final XDataFrameRow<R,C> row = new XDataFrameRow<>(frame, false);
-                for (int rowOrdinal = from; rowOrdinal <= to; ++rowOrdinal) {
-                    final R rowKey = target.rows().key(rowOrdinal);
-                    final double statValue = row.atKey(rowKey).compute(statistic, 0, length);
-                    cursor.rowAt(rowOrdinal).setDouble(statValue);
-                }
+                final XDataFrameRowTiles<R,C> tiles = new XDataFrameRowTiles<>(frame, rowOrdinals, colOrdinals);
+                tiles.apply(0, count, false, (tile, first, rows, colCount) -> {
+                    for (int i=0; i<rows; ++i) {
+                        final int offset = i * colCount;
+                        statistic.reset();
+                        for (int j=0; j<colCount; ++j) {
+                            statistic.add(tile[offset + j]);
+                        }
+                        cursor.rowAt(from + first + i).setDouble(statistic.getValue());
+                    }
+                });
+                record((long)count * width, startNanos);
             } else {
                 final int splitCount = (to - from) / 2;
                 final int midPoint = from + splitCount;
-                invokeAll(
+                split(
                     new RowStatistics(from, midPoint, target, statistic.copy().reset()),
                     new RowStatistics(midPoint+1, to, target, statistic.copy().reset())
                 );
@@ -342,8 +360,10 @@ class XDataFrameAxisStats<K,R,C,X,Y> extends XDataFrameStatsBase<X,Y> implements
         @Override
         public void compute() {
             final int count = to - from + 1;
-            final int threshold = isParallel() ? DataFrameOptions.getColumnSplitThreshold(frame) : Integer.MAX_VALUE;
+            final int width = frame.rowCount();
+            final int threshold = threshold(count, width, isParallel() ? DataFrameOptions.getColumnSplitThreshold(frame) : Integer.MAX_VALUE);
             if (count <= threshold) {
+                final long startNanos = System.nanoTime();
                 var length = frame.rowCount();
                 final DataFrameCursor<C,StatType> cursor = target.cursor().colAt(0);
                 final XDataFrameColumn<R,C> column = new XDataFrameColumn<>(frame, false);
@@ -352,10 +372,11 @@ class XDataFrameAxisStats<K,R,C,X,Y> extends XDataFrameStatsBase<X,Y> implements
                     final double statValue = column.atKey(colKey).compute(statistic, 0, length);
                     cursor.rowAt(colOrdinal).setDouble(statValue);
                 }
+                record((long)count * width, startNanos);
             } else {
                 final int splitCount = (to - from) / 2;
                 final int midPoint = from + splitCount;
-                invokeAll(
+                split(
                     new ColumnStatistics(from, midPoint, target, statistic),
                     new ColumnStatistics(midPoint+1, to, target, statistic)
                 );
@@ -368,7 +389,7 @@ class XDataFrameAxisStats<K,R,C,X,Y> extends XDataFrameStatsBase<X,Y> implements
     /**
      * RecursiveAction used to compute EWMA for a columns in the DataFrame
      */
-    private class Ewma extends RecursiveAction {
+    private class Ewma extends StatisticAction {
 
         private int from;
         private int to;
@@ -393,7 +414,7 @@ class XDataFrameAxisStats<K,R,C,X,Y> extends XDataFrameStatsBase<X,Y> implements
         }
 
         @Override
-        protected void compute() {
+        public void compute() {
             final int remainder = to - from + 1;
             if (remainder <= threshold) {
                 final int rowCount = result.rows().count();
@@ -413,7 +434,7 @@ class XDataFrameAxisStats<K,R,C,X,Y> extends XDataFrameStatsBase<X,Y> implements
             } else {
                 final int splitCount = (to - from) / 2;
                 final int midPoint = from + splitCount;
-                invokeAll(
+                split(
                     new Ewma(result, from, midPoint, threshold, halfLife),
                     new Ewma(result, midPoint+1, to, threshold, halfLife)
                 );
@@ -450,8 +471,10 @@ class XDataFrameAxisStats<K,R,C,X,Y> extends XDataFrameStatsBase<X,Y> implements
         @SuppressWarnings("unchecked")
         public void compute() {
             final int count = to - from + 1;
-            final int threshold = isParallel() ? DataFrameOptions.getRowSplitThreshold(frame) : Integer.MAX_VALUE;
+            final int width = frame.colCount();
+            final int threshold = threshold(count, width, isParallel() ? DataFrameOptions.getRowSplitThreshold(frame) : Integer.MAX_VALUE);
             if (count <= threshold) {
+                final long startNanos = System.nanoTime();
                 final int rowCount = result.rowCount();
                 final int colCount = frame.colCount();
                 final DataFrameCursor<K,K> cursor = result.cursor();
@@ -475,10 +498,11 @@ class XDataFrameAxisStats<K,R,C,X,Y> extends XDataFrameStatsBase<X,Y> implements
                         }
                     }
                 }
+                record((long)count * width, startNanos);
             } else {
                 final int splitCount = (to - from) / 2;
                 final int midPoint = from + splitCount;
-                invokeAll(
+                split(
                     new BivariateRowStatistics(from, midPoint, result, statistic),
                     new BivariateRowStatistics(midPoint+1, to, result, statistic)
                 );
@@ -514,8 +538,10 @@ class XDataFrameAxisStats<K,R,C,X,Y> extends XDataFrameStatsBase<X,Y> implements
         @SuppressWarnings("unchecked")
         public void compute() {
             final int count = to - from + 1;
-            final int threshold = isParallel() ? DataFrameOptions.getColumnSplitThreshold(frame) : Integer.MAX_VALUE;
+            final int width = frame.rowCount();
+            final int threshold = threshold(count, width, isParallel() ? DataFrameOptions.getColumnSplitThreshold(frame) : Integer.MAX_VALUE);
             if (count <= threshold) {
+                final long startNanos = System.nanoTime();
                 final int rowCount = frame.rowCount();
                 final int colCount = result.colCount();
                 final DataFrameCursor<K,K> cursor = result.cursor();
@@ -539,10 +565,11 @@ class XDataFrameAxisStats<K,R,C,X,Y> extends XDataFrameStatsBase<X,Y> implements
                         }
                     }
                 }
+                record((long)count * width, startNanos);
             } else {
                 final int splitCount = (to - from) / 2;
                 final int midPoint = from + splitCount;
-                invokeAll(
+                split(
                     new BivariateColumnStatistics(from, midPoint, result, statistic),
                     new BivariateColumnStatistics(midPoint+1, to, result, statistic)
                 );
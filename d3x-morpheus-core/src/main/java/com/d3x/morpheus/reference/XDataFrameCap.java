@@ -75,8 +75,25 @@ class XDataFrameCap<R,C> implements DataFrameCap<R,C> {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public DataFrame<R,C> doubles(double lower, double upper) {
         final DataFrame<R,C> target = inPlace ? frame : frame.copy();
+        if (target instanceof XDataFrame && XDataFrameRowTiles.isDoubles((XDataFrame<R,C>)target)) {
+            final XDataFrame<R,C> tiled = (XDataFrame<R,C>)target;
+            final XDataFrameRowTiles<R,C> tiles = XDataFrameRowTiles.of(tiled);
+            tiles.apply(tiled.isParallel(), XDataFrameRowTiles.threshold(tiled), true, () -> (tile, first, rows, colCount) -> {
+                final int length = rows * colCount;
+                for (int i=0; i<length; ++i) {
+                    final double value = tile[i];
+                    if (value < lower) {
+                        tile[i] = lower;
+                    } else if (value > upper) {
+                        tile[i] = upper;
+                    }
+                }
+            });
+            return target;
+        }
         return target.applyDoubles(v -> {
             final double value = v.getDouble();
             if (Double.isNaN(value)) {
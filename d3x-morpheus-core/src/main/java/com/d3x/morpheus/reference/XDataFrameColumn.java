@@ -15,6 +15,7 @@
  */
 package com.d3x.morpheus.reference;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Optional;
@@ -23,11 +24,14 @@ import java.util.function.Predicate;
 
 import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayType;
+import com.d3x.morpheus.array.dense.DenseArrayConstructor;
 import com.d3x.morpheus.frame.DataFrame;
 import com.d3x.morpheus.frame.DataFrameColumn;
 import com.d3x.morpheus.frame.DataFrameCursor;
 import com.d3x.morpheus.frame.DataFrameException;
 import com.d3x.morpheus.frame.DataFrameValue;
+import com.d3x.morpheus.index.Index;
+import com.d3x.morpheus.series.DenseDoubleSeries;
 import com.d3x.morpheus.util.Bounds;
 
 /**
@@ -288,6 +292,27 @@ class XDataFrameColumn<R,C> extends XDataFrameVector<C,R,R,C,DataFrameColumn<R,C
 
 
 
+    @Override
+    public final DenseDoubleSeries<R> toDoubleSeries() {
+        if (!isNumeric()) {
+            throw new DataFrameException("The column is not numeric: " + key());
+        } else {
+            final Index<R> rowKeys = frame.rowKeys();
+            final Optional<double[]> storage = data.colArray(colIndex).flatMap(DenseArrayConstructor::unwrap);
+            if (storage.isPresent()) {
+                return DenseDoubleSeries.wrap(rowKeys, storage.get());
+            } else {
+                final double[] values = new double[rowKeys.capacity()];
+                Arrays.fill(values, Double.NaN);
+                for (int i=0; i<rowKeys.size(); ++i) {
+                    values[rowKeys.getCoordinateAt(i)] = getDoubleAt(i);
+                }
+                return DenseDoubleSeries.wrap(rowKeys, values);
+            }
+        }
+    }
+
+
     @Override()
     public final DataFrame<R,C> rank() {
         final double[] values = toDoubleStream().toArray();
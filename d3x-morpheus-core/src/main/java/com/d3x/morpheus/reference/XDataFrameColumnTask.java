@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameOptions;
+import com.d3x.morpheus.util.TaskScheduler;
+
+/**
+ * A RecursiveAction that runs a task for each column in a range of column indexes, splitting the range in half
+ * until it is no larger than the column split threshold of the frame
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+class XDataFrameColumnTask extends RecursiveAction {
+
+    private int from;
+    private int to;
+    private int threshold;
+    private IntConsumer task;
+
+    /**
+     * Constructor
+     * @param from      the first column index, inclusive
+     * @param to        the last column index, exclusive
+     * @param threshold the number of columns below which the range is processed sequentially
+     * @param task      the task to run for each column index
+     */
+    private XDataFrameColumnTask(int from, int to, int threshold, IntConsumer task) {
+        this.from = from;
+        this.to = to;
+        this.threshold = threshold;
+        this.task = task;
+    }
+
+
+    /**
+     * Runs the task for each column index from zero to the column count, in parallel if requested
+     * @param frame     the frame that defines the column split threshold
+     * @param colCount  the number of column indexes
+     * @param parallel  true to run the task for different columns in parallel
+     * @param task      the task to run for each column index
+     */
+    static void run(DataFrame<?,?> frame, int colCount, boolean parallel, IntConsumer task) {
+        if (!parallel) {
+            new XDataFrameColumnTask(0, colCount, Integer.MAX_VALUE, task).compute();
+        } else {
+            final int threshold = DataFrameOptions.getColumnSplitThreshold(frame);
+            TaskScheduler.current().invoke(new XDataFrameColumnTask(0, colCount, threshold, task));
+        }
+    }
+
+
+    @Override
+    protected void compute() {
+        final int count = to - from;
+        if (count > threshold && count > 1) {
+            final int midPoint = from + count / 2;
+            invokeAll(
+                new XDataFrameColumnTask(from, midPoint, threshold, task),
+                new XDataFrameColumnTask(midPoint, to, threshold, task)
+            );
+        } else {
+            for (int j=from; j<to; ++j) {
+                task.accept(j);
+            }
+        }
+    }
+}
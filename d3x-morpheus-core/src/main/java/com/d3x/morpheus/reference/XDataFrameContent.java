@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.ToDoubleFunction;
@@ -48,6 +49,8 @@ import com.d3x.morpheus.index.IndexException;
 import com.d3x.morpheus.index.IndexMapper;
 import com.d3x.morpheus.range.Range;
 import com.d3x.morpheus.util.Mapper;
+import com.d3x.morpheus.util.MemoryBudget;
+import com.d3x.morpheus.util.MemoryLayout;
 import com.d3x.morpheus.util.functions.ToBooleanFunction;
 
 /**
@@ -79,8 +82,14 @@ class XDataFrameContent<R,C> implements Serializable, Cloneable {
         this(rowKeys, colKeys, true, new ArrayList<>());
         this.data = new ArrayList<>(this.rowKeys.capacity());
         var rowCapacity = rowKeys().capacity();
+        var colCount = this.colKeys.size();
+        var bytes = colCount * MemoryLayout.array(rowCapacity, ArrayType.of(dataType).elementBytes());
+        var heap = colCount == 0 || MemoryBudget.current().allocate("create", bytes);
+        if (!heap && !ArrayUtils.isMappable(dataType)) {
+            MemoryBudget.current().fallback("create", dataType, bytes);
+        }
         this.colKeys.keys().forEach(colKey -> {
-            final Array<?> array = Array.of(dataType, rowCapacity);
+            final Array<?> array = heap || !ArrayUtils.isMappable(dataType) ? Array.of(dataType, rowCapacity) : Array.map(dataType, rowCapacity);
             this.data.add(array);
         });
     }
@@ -144,6 +153,37 @@ class XDataFrameContent<R,C> implements Serializable, Cloneable {
     }
 
 
+    /**
+     * Returns the number of heap bytes retained by this content, including arrays shared with the content it was filtered from
+     * @return      the retained heap bytes for this content
+     */
+    final long retainedBytes() {
+        var bytes = MemoryLayout.shallow(3, 1) + MemoryLayout.references(data.size());
+        bytes += rowKeys.retainedBytes() + colKeys.retainedBytes();
+        for (Array<?> array : data) {
+            bytes += array.retainedBytes();
+        }
+        return bytes;
+    }
+
+
+    /**
+     * Returns the number of heap bytes required by an array of the same type and style as the one specified
+     * @param array     the template array
+     * @param length    the length of the new array
+     * @return          the heap bytes required, where memory mapped arrays only require their heap overhead
+     */
+    private static long heapBytes(Array<?> array, int length) {
+        if (array.style().isMapped()) {
+            return array.retainedBytes();
+        } else if (array.style().isSparse() && array.length() > 0) {
+            return (long)Math.ceil(array.retainedBytes() * ((double)length / array.length()));
+        } else {
+            return MemoryLayout.array(length, array.typeCode().elementBytes());
+        }
+    }
+
+
     /**
      * Returns the row key index for this content
      * @return      the row key index for content
@@ -171,6 +211,52 @@ class XDataFrameContent<R,C> implements Serializable, Cloneable {
     }
 
 
+    /**
+     * Returns a deep copy of the transpose of this content which is expressed as a column store
+     * Homogeneous columns retain their type, while mixed columns are transposed into Object arrays
+     * @param parallel  true to copy the data in parallel
+     * @return          the materialized transpose of this content
+     */
+    @SuppressWarnings("unchecked")
+    final XDataFrameContent<C,R> transposeCopy(boolean parallel) {
+        if (!isColumnStore()) {
+            return transpose().copyColumnStore();
+        } else {
+            var rowCount = rowKeys.size();
+            var colCount = colKeys.size();
+            final int[] rowCoords = new int[rowCount];
+            final Array<?>[] source = new Array<?>[colCount];
+            final Set<Class<?>> typeSet = new HashSet<>();
+            for (int i=0; i<rowCount; ++i) rowCoords[i] = rowCoordinateAt(i);
+            for (int j=0; j<colCount; ++j) {
+                source[j] = data.get(colCoordinateAt(j));
+                typeSet.add(source[j].type());
+            }
+            final Class<?> dataType = typeSet.size() == 1 ? typeSet.iterator().next() : Object.class;
+            final ArrayType arrayType = ArrayType.of(dataType);
+            final Array<C> newRowKeys = colKeys.toArray();
+            final Array<R> newColKeys = rowKeys.toArray();
+            final long bytes = rowCount * MemoryLayout.array(colCount, arrayType.elementBytes());
+            final boolean heap = rowCount == 0 || MemoryBudget.current().allocate("transpose", bytes);
+            if (heap && XDataFrameTranspose.isPrimitive(arrayType)) {
+                final Array<?>[] target = XDataFrameTranspose.transpose(source, rowCoords, arrayType, parallel);
+                return new XDataFrameContent<>(newRowKeys, newColKeys, true, new ArrayList<>(List.of(target)));
+            } else {
+                final Array<?>[] target = new Array<?>[rowCount];
+                final boolean mapped = !heap && ArrayUtils.isMappable(dataType);
+                if (!heap && !mapped) {
+                    MemoryBudget.current().fallback("transpose", dataType, bytes);
+                }
+                for (int i=0; i<rowCount; ++i) {
+                    target[i] = mapped ? Array.map((Class<Object>)dataType, colCount) : Array.of((Class<Object>)dataType, colCount);
+                }
+                XDataFrameTranspose.transpose(source, rowCoords, target, parallel);
+                return new XDataFrameContent<>(newRowKeys, newColKeys, true, new ArrayList<>(List.of(target)));
+            }
+        }
+    }
+
+
     /**
      * Returns a newly created cursor for this content
      * @param frame the frame reference
@@ -348,6 +434,16 @@ class XDataFrameContent<R,C> implements Serializable, Cloneable {
     }
 
 
+    /**
+     * Returns the array that stores the column at the coordinate specified
+     * @param colCoord  the column coordinate
+     * @return          the column array, empty if this is a row store
+     */
+    final Optional<Array<?>> colArray(int colCoord) {
+        return isColumnStore() ? Optional.of(data.get(colCoord)) : Optional.empty();
+    }
+
+
     /**
      * Returns the array for the row or column key specified
      * @param key   the row or column key if this is row or column major respectively
@@ -467,11 +563,21 @@ class XDataFrameContent<R,C> implements Serializable, Cloneable {
         if (data.size() > 0) {
             var capacity = rowCapacity();
             if (rowCount > capacity) {
-                var newCapacity = capacity + (capacity >> 1);
-                if (newCapacity < rowCount) {
-                    this.data.forEach(s -> s.expand(rowCount));
-                } else {
+                var newCapacity = Math.max(rowCount, capacity + (capacity >> 1));
+                var bytes = data.stream().mapToLong(s -> heapBytes(s, newCapacity)).sum();
+                if (MemoryBudget.current().allocate("expand", bytes)) {
                     this.data.forEach(s -> s.expand(newCapacity));
+                } else {
+                    this.data.replaceAll(s -> {
+                        if (s.style().isMapped()) {
+                            return s.expand(newCapacity);
+                        } else if (ArrayUtils.isMappable(s.type())) {
+                            return ArrayUtils.toMapped(s, newCapacity);
+                        } else {
+                            MemoryBudget.current().fallback("expand", s.type(), heapBytes(s, newCapacity));
+                            return s.expand(newCapacity);
+                        }
+                    });
                 }
             }
         }
@@ -783,6 +889,25 @@ class XDataFrameContent<R,C> implements Serializable, Cloneable {
     }
 
 
+    /**
+     * Returns the number of heap bytes required for a deep copy of this content into dense arrays
+     * @return  the heap bytes required for a deep copy
+     */
+    final long copyBytes() {
+        var rowCount = rowKeys.size();
+        var indexBytes = rowKeys.retainedBytes() + colKeys.retainedBytes();
+        if (!isColumnStore()) {
+            var elementBytes = ArrayType.of(typeInfo()).elementBytes();
+            return indexBytes + colKeys.size() * MemoryLayout.array(rowCount, elementBytes);
+        } else {
+            return indexBytes + colKeys.keys().mapToLong(colKey -> {
+                final Array<?> array = getArray(colKey);
+                return MemoryLayout.array(rowCount, array.typeCode().elementBytes());
+            }).sum();
+        }
+    }
+
+
     /**
      * Returns a deep copy of this content which will turn a row-store into a column-store
      * @return  the deep copy of this content
@@ -15,10 +15,22 @@
  */
 package com.d3x.morpheus.reference;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.stream.IntStream;
+
+import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayType;
+import com.d3x.morpheus.array.dense.DenseArrayConstructor;
 import com.d3x.morpheus.frame.DataFrameCursor;
 import com.d3x.morpheus.frame.DataFrameException;
 import com.d3x.morpheus.frame.DataFrameFill;
+import com.d3x.morpheus.index.Index;
 
 /**
  * The reference implementation of the DataFrameFill interface
@@ -44,28 +56,9 @@ class XDataFrameFill<R,C> implements DataFrameFill {
     @Override()
     public final int up(int intervals) {
         try {
-            int totalCount = 0;
-            var rowCount = frame.rowCount();
-            var colCount = frame.colCount();
-            final DataFrameCursor<R,C> cursor = frame.cursor();
-            for (int j=0; j<colCount; ++j) {
-                int fillCount = 0;
-                cursor.colAt(j);
-                for (int i=rowCount-2; i>=0; --i) {
-                    final Object current = cursor.rowAt(i).getValue();
-                    if (current == null || (current instanceof Number && Double.isNaN(((Number)current).doubleValue()))) {
-                        if (fillCount < intervals) {
-                            final Object next = cursor.rowAt(i + 1).getValue();
-                            cursor.rowAt(i).setValue(next);
-                            fillCount++;
-                            totalCount++;
-                        }
-                    } else {
-                        fillCount = 0;
-                    }
-                }
-            }
-            return totalCount;
+            return fillColumns((values, length) -> up(values, length, intervals), (values, length) -> up(values, length, intervals));
+        } catch (DataFrameException ex) {
+            throw ex;
         } catch (Throwable t) {
             throw new DataFrameException("Failed to fill-up data: " + t.getMessage(), t);
         }
@@ -75,34 +68,52 @@ class XDataFrameFill<R,C> implements DataFrameFill {
     @Override()
     public final int down(int intervals) {
         try {
-            int totalCount = 0;
-            var rowCount = frame.rowCount();
-            var colCount = frame.colCount();
-            final DataFrameCursor<R,C> cursor = frame.cursor();
-            for (int j=0; j<colCount; ++j) {
-                int fillCount = 0;
-                cursor.colAt(j);
-                for (int i=1; i<rowCount; ++i) {
-                    final Object current = cursor.rowAt(i).getValue();
-                    if (current == null || (current instanceof Number && Double.isNaN(((Number)current).doubleValue()))) {
-                        if (fillCount < intervals) {
-                            final Object previous = cursor.rowAt(i-1).getValue();
-                            cursor.rowAt(i).setValue(previous);
-                            fillCount++;
-                            totalCount++;
-                        }
-                    } else {
-                        fillCount = 0;
-                    }
-                }
-            }
-            return totalCount;
+            return fillColumns((values, length) -> down(values, length, intervals), (values, length) -> down(values, length, intervals));
+        } catch (DataFrameException ex) {
+            throw ex;
         } catch (Throwable t) {
             throw new DataFrameException("Failed to fill-down data: " + t.getMessage(), t);
         }
     }
 
 
+    @Override()
+    public final int linear(int intervals) {
+        try {
+            return fillColumns((values, length) -> interpolate(values, length, intervals, null), null);
+        } catch (DataFrameException ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new DataFrameException("Failed to interpolate data: " + t.getMessage(), t);
+        }
+    }
+
+
+    @Override()
+    public final int time(int intervals) {
+        try {
+            final double[] times = times();
+            return fillColumns((values, length) -> interpolate(values, length, intervals, times), null);
+        } catch (DataFrameException ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new DataFrameException("Failed to interpolate data: " + t.getMessage(), t);
+        }
+    }
+
+
+    @Override()
+    public final int nearest(int intervals) {
+        try {
+            return fillColumns((values, length) -> nearest(values, length, intervals), (values, length) -> nearest(values, length, intervals));
+        } catch (DataFrameException ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new DataFrameException("Failed to fill-nearest data: " + t.getMessage(), t);
+        }
+    }
+
+
     @Override()
     public final int left(int intervals) {
         try {
@@ -168,6 +179,329 @@ class XDataFrameFill<R,C> implements DataFrameFill {
         }
     }
 
+    /**
+     * Applies the kernels to each column of the frame, in parallel if the frame is parallel
+     * @param doubles   the kernel for double columns
+     * @param objects   the kernel for object columns, null to leave object columns unchanged
+     * @return          the number of elements affected
+     */
+    private int fillColumns(DoubleKernel doubles, ObjectKernel objects) {
+        final int rowCount = frame.rowCount();
+        final int colCount = frame.colCount();
+        if (rowCount < 2 || colCount == 0) {
+            return 0;
+        } else {
+            final int[] counts = new int[colCount];
+            final int[] rowCoords = frame.rowKeys().indexes().toArray();
+            final boolean ordered = IntStream.range(0, rowCount).allMatch(i -> rowCoords[i] == i);
+            XDataFrameColumnTask.run(frame, colCount, frame.isParallel(), colOrdinal -> {
+                final C colKey = frame.cols().key(colOrdinal);
+                final int colCoord = frame.colKeys().getCoordinateAt(colOrdinal);
+                final Array<?> array = frame.content().colArray(colCoord).orElse(null);
+                switch (ArrayType.of(frame.cols().type(colKey))) {
+                    case BOOLEAN:   break;
+                    case INTEGER:   break;
+                    case LONG:      break;
+                    case DOUBLE:    counts[colOrdinal] = fillDoubles(colOrdinal, array, rowCoords, ordered, doubles);   break;
+                    default:        counts[colOrdinal] = objects != null ? fillObjects(colOrdinal, array, rowCoords, objects) : 0;  break;
+                }
+            });
+            return IntStream.of(counts).sum();
+        }
+    }
+
+
+    /**
+     * Applies the kernel to a column of doubles, directly over the primitive array if rows are in storage order
+     * @param colOrdinal    the column ordinal
+     * @param array         the column array, null if the frame is a row store
+     * @param rowCoords     the row coordinates in row ordinal order
+     * @param ordered       true if row coordinates equal row ordinals
+     * @param kernel        the kernel to apply
+     * @return              the number of elements affected
+     */
+    private int fillDoubles(int colOrdinal, Array<?> array, int[] rowCoords, boolean ordered, DoubleKernel kernel) {
+        final int rowCount = rowCoords.length;
+        final double[] storage = array != null ? DenseArrayConstructor.unwrap(array).orElse(null) : null;
+        if (storage != null && ordered) {
+            return kernel.apply(storage, rowCount);
+        } else {
+            final double[] values = new double[rowCount];
+            for (int i=0; i<rowCount; ++i) {
+                values[i] = array != null ? array.getDouble(rowCoords[i]) : frame.getDoubleAt(i, colOrdinal);
+            }
+            final int count = kernel.apply(values, rowCount);
+            for (int i=0; count > 0 && i<rowCount; ++i) {
+                if (array == null) {
+                    if (Double.isNaN(frame.getDoubleAt(i, colOrdinal))) {
+                        frame.setDoubleAt(i, colOrdinal, values[i]);
+                    }
+                } else if (Double.isNaN(array.getDouble(rowCoords[i]))) {
+                    array.setDouble(rowCoords[i], values[i]);
+                }
+            }
+            return count;
+        }
+    }
+
+
+    /**
+     * Applies the kernel to a column of objects
+     * @param colOrdinal    the column ordinal
+     * @param array         the column array, null if the frame is a row store
+     * @param rowCoords     the row coordinates in row ordinal order
+     * @param kernel        the kernel to apply
+     * @return              the number of elements affected
+     */
+    @SuppressWarnings("unchecked")
+    private int fillObjects(int colOrdinal, Array<?> array, int[] rowCoords, ObjectKernel kernel) {
+        final int rowCount = rowCoords.length;
+        final Object[] values = new Object[rowCount];
+        for (int i=0; i<rowCount; ++i) {
+            values[i] = array != null ? array.getValue(rowCoords[i]) : frame.getValueAt(i, colOrdinal);
+        }
+        final int count = kernel.apply(values, rowCount);
+        for (int i=0; count > 0 && i<rowCount; ++i) {
+            if (array == null) {
+                if (isMissing(frame.getValueAt(i, colOrdinal))) {
+                    frame.setValueAt(i, colOrdinal, values[i]);
+                }
+            } else if (isMissing(array.getValue(rowCoords[i]))) {
+                ((Array<Object>)array).setValue(rowCoords[i], values[i]);
+            }
+        }
+        return count;
+    }
+
+
+    /**
+     * Returns the time of each row for time weighted interpolation, in row ordinal order
+     * @return      the times for rows
+     * @throws DataFrameException   if a row key is not a date, time or number
+     */
+    private double[] times() {
+        final Index<R> rowKeys = frame.rowKeys();
+        final double[] times = new double[rowKeys.size()];
+        for (int i=0; i<times.length; ++i) {
+            final R key = rowKeys.getKey(i);
+            if (key instanceof LocalDate) {
+                times[i] = ((LocalDate)key).toEpochDay();
+            } else if (key instanceof LocalDateTime) {
+                final LocalDateTime dateTime = (LocalDateTime)key;
+                times[i] = dateTime.toEpochSecond(ZoneOffset.UTC) + dateTime.getNano() / 1e9d;
+            } else if (key instanceof ZonedDateTime) {
+                final ZonedDateTime dateTime = (ZonedDateTime)key;
+                times[i] = dateTime.toEpochSecond() + dateTime.getNano() / 1e9d;
+            } else if (key instanceof Instant) {
+                final Instant instant = (Instant)key;
+                times[i] = instant.getEpochSecond() + instant.getNano() / 1e9d;
+            } else if (key instanceof LocalTime) {
+                times[i] = ((LocalTime)key).toNanoOfDay();
+            } else if (key instanceof Date) {
+                times[i] = ((Date)key).getTime();
+            } else if (key instanceof Number) {
+                times[i] = ((Number)key).doubleValue();
+            } else {
+                throw new DataFrameException("Time weighted interpolation requires date, time or numeric row keys, not " + key);
+            }
+        }
+        return times;
+    }
+
+
+    /**
+     * Returns true if the value is null or a NaN number
+     * @param value     the value to check
+     * @return          true if value is missing
+     */
+    private static boolean isMissing(Object value) {
+        return value == null || (value instanceof Number && Double.isNaN(((Number)value).doubleValue()));
+    }
+
+
+    /**
+     * Fills NaNs by copying up the next value, for at most intervals consecutive NaNs
+     * @param values    the values to fill
+     * @param length    the number of values
+     * @param intervals the maximum number of intervals to fill up
+     * @return          the number of elements affected
+     */
+    private static int up(double[] values, int length, int intervals) {
+        int count = 0;
+        int run = 0;
+        double next = Double.NaN;
+        for (int i=length-1; i>=0; --i) {
+            final double value = values[i];
+            if (!Double.isNaN(value)) {
+                next = value;
+                run = 0;
+            } else if (run++ < intervals && !Double.isNaN(next)) {
+                values[i] = next;
+                ++count;
+            }
+        }
+        return count;
+    }
+
+
+    /**
+     * Fills nulls or NaNs by copying up the next value, for at most intervals consecutive missing values
+     * @param values    the values to fill
+     * @param length    the number of values
+     * @param intervals the maximum number of intervals to fill up
+     * @return          the number of elements affected
+     */
+    private static int up(Object[] values, int length, int intervals) {
+        int count = 0;
+        int run = 0;
+        Object next = null;
+        for (int i=length-1; i>=0; --i) {
+            final Object value = values[i];
+            if (!isMissing(value)) {
+                next = value;
+                run = 0;
+            } else if (run++ < intervals && next != null) {
+                values[i] = next;
+                ++count;
+            }
+        }
+        return count;
+    }
+
+
+    /**
+     * Fills NaNs by copying down the previous value, for at most intervals consecutive NaNs
+     * @param values    the values to fill
+     * @param length    the number of values
+     * @param intervals the maximum number of intervals to fill down
+     * @return          the number of elements affected
+     */
+    private static int down(double[] values, int length, int intervals) {
+        int count = 0;
+        int run = 0;
+        double previous = Double.NaN;
+        for (int i=0; i<length; ++i) {
+            final double value = values[i];
+            if (!Double.isNaN(value)) {
+                previous = value;
+                run = 0;
+            } else if (run++ < intervals && !Double.isNaN(previous)) {
+                values[i] = previous;
+                ++count;
+            }
+        }
+        return count;
+    }
+
+
+    /**
+     * Fills nulls or NaNs by copying down the previous value, for at most intervals consecutive missing values
+     * @param values    the values to fill
+     * @param length    the number of values
+     * @param intervals the maximum number of intervals to fill down
+     * @return          the number of elements affected
+     */
+    private static int down(Object[] values, int length, int intervals) {
+        int count = 0;
+        int run = 0;
+        Object previous = null;
+        for (int i=0; i<length; ++i) {
+            final Object value = values[i];
+            if (!isMissing(value)) {
+                previous = value;
+                run = 0;
+            } else if (run++ < intervals && previous != null) {
+                values[i] = previous;
+                ++count;
+            }
+        }
+        return count;
+    }
+
+
+    /**
+     * Interpolates interior gaps of NaNs linearly, either by position or by the times provided
+     * @param values    the values to interpolate
+     * @param length    the number of values
+     * @param intervals the maximum length of a gap to interpolate
+     * @param times     the time of each value, null to interpolate by position
+     * @return          the number of elements affected
+     */
+    private static int interpolate(double[] values, int length, int intervals, double[] times) {
+        int count = 0;
+        int previous = -1;
+        for (int i=0; i<length; ++i) {
+            if (!Double.isNaN(values[i])) {
+                final int gap = i - previous - 1;
+                if (previous >= 0 && gap > 0 && gap <= intervals) {
+                    final double v0 = values[previous];
+                    final double v1 = values[i];
+                    final double span = times != null ? times[i] - times[previous] : 0d;
+                    for (int k=previous+1; k<i; ++k) {
+                        final double weight = span != 0d ? (times[k] - times[previous]) / span : (double)(k - previous) / (i - previous);
+                        values[k] = v0 + (v1 - v0) * weight;
+                    }
+                    count += gap;
+                }
+                previous = i;
+            }
+        }
+        return count;
+    }
+
+
+    /**
+     * Fills interior gaps of NaNs with the nearest value, or the previous value if equidistant
+     * @param values    the values to fill
+     * @param length    the number of values
+     * @param intervals the maximum length of a gap to fill
+     * @return          the number of elements affected
+     */
+    private static int nearest(double[] values, int length, int intervals) {
+        int count = 0;
+        int previous = -1;
+        for (int i=0; i<length; ++i) {
+            if (!Double.isNaN(values[i])) {
+                final int gap = i - previous - 1;
+                if (previous >= 0 && gap > 0 && gap <= intervals) {
+                    for (int k=previous+1; k<i; ++k) {
+                        values[k] = k - previous <= i - k ? values[previous] : values[i];
+                    }
+                    count += gap;
+                }
+                previous = i;
+            }
+        }
+        return count;
+    }
+
+
+    /**
+     * Fills interior gaps of nulls or NaNs with the nearest value, or the previous value if equidistant
+     * @param values    the values to fill
+     * @param length    the number of values
+     * @param intervals the maximum length of a gap to fill
+     * @return          the number of elements affected
+     */
+    private static int nearest(Object[] values, int length, int intervals) {
+        int count = 0;
+        int previous = -1;
+        for (int i=0; i<length; ++i) {
+            if (!isMissing(values[i])) {
+                final int gap = i - previous - 1;
+                if (previous >= 0 && gap > 0 && gap <= intervals) {
+                    for (int k=previous+1; k<i; ++k) {
+                        values[k] = k - previous <= i - k ? values[previous] : values[i];
+                    }
+                    count += gap;
+                }
+                previous = i;
+            }
+        }
+        return count;
+    }
+
+
     /**
      * Returns true if the two objects are equal
      * @param left      the left object
@@ -202,4 +536,34 @@ class XDataFrameFill<R,C> implements DataFrameFill {
         }
         return nullValues;
     }
+
+
+    /**
+     * A kernel that fills values in a column of doubles
+     */
+    private interface DoubleKernel {
+
+        /**
+         * Fills missing values in the array
+         * @param values    the values to fill
+         * @param length    the number of values
+         * @return          the number of elements affected
+         */
+        int apply(double[] values, int length);
+    }
+
+
+    /**
+     * A kernel that fills values in a column of objects
+     */
+    private interface ObjectKernel {
+
+        /**
+         * Fills missing values in the array
+         * @param values    the values to fill
+         * @param length    the number of values
+         * @return          the number of elements affected
+         */
+        int apply(Object[] values, int length);
+    }
 }
@@ -18,7 +18,6 @@ package com.d3x.morpheus.reference;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveTask;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -37,6 +36,7 @@ import com.d3x.morpheus.index.Index;
 import com.d3x.morpheus.stats.Statistic1;
 import com.d3x.morpheus.stats.Stats;
 import com.d3x.morpheus.stats.StatsAssembler;
+import com.d3x.morpheus.util.TaskScheduler;
 import com.d3x.morpheus.util.Tuple;
 
 /**
@@ -54,6 +54,7 @@ class XDataFrameGroupingCols<R,C> implements DataFrameGrouping.Cols<R,C> {
     private int depth;
     private XDataFrame<R,C> source;
     private Map<Tuple,Array<C>> groupKeysMap;
+    private Index<Tuple>[] levelIndexes;
 
     /**
      * Constructor
@@ -99,7 +100,7 @@ class XDataFrameGroupingCols<R,C> implements DataFrameGrouping.Cols<R,C> {
     static <R,C> XDataFrameGroupingCols<R,C> of(XDataFrame<R,C> source, boolean parallel, Function<DataFrameColumn<R,C>,Tuple> function) {
         final int depth = source.cols().first().map(function).map(Tuple::size).orElse(0);
         final GroupColumnsTask<R,C> task = new GroupColumnsTask<>(source, 0, source.colCount()-1, depth, parallel, function);
-        return parallel ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+        return parallel ? TaskScheduler.current().invoke(task) : task.compute();
     }
 
     @Override
@@ -134,7 +135,25 @@ class XDataFrameGroupingCols<R,C> implements DataFrameGrouping.Cols<R,C> {
 
     @Override
     public final Stream<Tuple> getChildren(Tuple groupKey) {
-        return groupKeysMap.keySet().stream().filter(g -> g.size() == groupKey.size() + 1 && g.filter(0, groupKey.size()).equals(groupKey));
+        final int level = groupKey.size();
+        return level >= depth ? Stream.empty() : getLevelIndex(level).filterPrefix(groupKey).keys();
+    }
+
+    /**
+     * Returns an index of the group keys at the level specified, which is created on first access
+     * @param level     the group level
+     * @return          the index of group keys for level, which supports prefix selection
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized Index<Tuple> getLevelIndex(int level) {
+        if (levelIndexes == null) {
+            this.levelIndexes = new Index[depth];
+        }
+        if (levelIndexes[level] == null) {
+            final Array<Tuple> groupKeys = getGroupKeys(level).collect(ArrayCollector.of(Tuple.class, getGroupCount(level)));
+            this.levelIndexes[level] = Index.of(groupKeys);
+        }
+        return levelIndexes[level];
     }
 
     @Override
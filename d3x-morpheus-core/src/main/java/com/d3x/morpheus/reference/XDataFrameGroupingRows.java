@@ -15,10 +15,13 @@
  */
 package com.d3x.morpheus.reference;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.RecursiveTask;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -27,7 +30,9 @@ import java.util.stream.Stream;
 import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBuilder;
 import com.d3x.morpheus.array.ArrayCollector;
+import com.d3x.morpheus.array.ArrayType;
 import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameAggregator;
 import com.d3x.morpheus.frame.DataFrameException;
 import com.d3x.morpheus.frame.DataFrameGrouping;
 import com.d3x.morpheus.frame.DataFrameOptions;
@@ -37,7 +42,11 @@ import com.d3x.morpheus.index.Index;
 import com.d3x.morpheus.stats.Statistic1;
 import com.d3x.morpheus.stats.Stats;
 import com.d3x.morpheus.stats.StatsAssembler;
+import com.d3x.morpheus.util.MemoryBudgetException;
+import com.d3x.morpheus.util.TaskScheduler;
 import com.d3x.morpheus.util.Tuple;
+import com.d3x.morpheus.util.metrics.Metrics;
+import com.d3x.morpheus.util.metrics.MetricsOperation;
 
 /**
  * An implementation of the DataFrameGrouping interface that groups rows of a DataFrame
@@ -52,18 +61,22 @@ import com.d3x.morpheus.util.Tuple;
 class XDataFrameGroupingRows<R,C> implements DataFrameGrouping.Rows<R,C> {
 
     private int depth;
+    private boolean parallel;
     private XDataFrame<R,C> source;
     private Map<Tuple,Array<R>> groupKeysMap;
+    private Index<Tuple>[] levelIndexes;
 
     /**
      * Constructor
      * @param source        the source frame for groups
      * @param depth         the grouping depth
+     * @param parallel      true for parallel aggregation
      * @param groupKeysMap  the apply of keys for each group
      */
-    private XDataFrameGroupingRows(XDataFrame<R,C> source, int depth, Map<Tuple,Array<R>> groupKeysMap) {
+    private XDataFrameGroupingRows(XDataFrame<R,C> source, int depth, boolean parallel, Map<Tuple,Array<R>> groupKeysMap) {
         this.source = source;
         this.depth = depth;
+        this.parallel = parallel;
         this.groupKeysMap = groupKeysMap;
     }
 
@@ -103,14 +116,20 @@ class XDataFrameGroupingRows<R,C> implements DataFrameGrouping.Rows<R,C> {
      * @return          the newly create grouping engine
      */
     static <R,C> XDataFrameGroupingRows<R,C> of(XDataFrame<R,C> source, boolean parallel, Function<DataFrameRow<R,C>,Tuple> function) {
-        final int depth = source.rows().first().map(function).map(Tuple::size).orElse(0);
-        final GroupRowsTask<R,C> task = new GroupRowsTask<>(source, 0, source.rowCount()-1, depth, parallel, function);
-        if (parallel) {
-            final Map<Tuple,ArrayBuilder<R>> groupKeyMap = ForkJoinPool.commonPool().invoke(task);
-            return new XDataFrameGroupingRows<>(source, depth, crystallize(groupKeyMap));
-        } else {
-            final Map<Tuple,ArrayBuilder<R>> groupKeyMap = task.compute();
-            return new XDataFrameGroupingRows<>(source, depth, crystallize(groupKeyMap));
+        try (MetricsOperation operation = Metrics.start("group.rows")) {
+            operation.rows(source.rowCount()).columns(source.colCount()).parallel(parallel);
+            final int depth = source.rows().first().map(function).map(Tuple::size).orElse(0);
+            final TaskScheduler scheduler = TaskScheduler.current();
+            final int rowCount = source.rowCount();
+            final int threshold = parallel ? scheduler.getLeafSize(GroupRowsTask.COST_KEY, rowCount, depth, DataFrameOptions.getRowSplitThreshold(source)) : Integer.MAX_VALUE;
+            final GroupRowsTask<R,C> task = new GroupRowsTask<>(source, 0, rowCount-1, depth, threshold, function, operation);
+            if (parallel) {
+                final Map<Tuple,ArrayBuilder<R>> groupKeyMap = scheduler.invoke(task);
+                return new XDataFrameGroupingRows<>(source, depth, parallel, crystallize(groupKeyMap));
+            } else {
+                final Map<Tuple,ArrayBuilder<R>> groupKeyMap = task.compute();
+                return new XDataFrameGroupingRows<>(source, depth, parallel, crystallize(groupKeyMap));
+            }
         }
     }
 
@@ -147,7 +166,25 @@ class XDataFrameGroupingRows<R,C> implements DataFrameGrouping.Rows<R,C> {
 
     @Override
     public final Stream<Tuple> getChildren(Tuple groupKey) {
-        return groupKeysMap.keySet().stream().filter(g -> g.size() == groupKey.size() + 1 && g.filter(0, groupKey.size()).equals(groupKey));
+        final int level = groupKey.size();
+        return level >= depth ? Stream.empty() : getLevelIndex(level).filterPrefix(groupKey).keys();
+    }
+
+    /**
+     * Returns an index of the group keys at the level specified, which is created on first access
+     * @param level     the group level
+     * @return          the index of group keys for level, which supports prefix selection
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized Index<Tuple> getLevelIndex(int level) {
+        if (levelIndexes == null) {
+            this.levelIndexes = new Index[depth];
+        }
+        if (levelIndexes[level] == null) {
+            final Array<Tuple> groupKeys = getGroupKeys(level).collect(ArrayCollector.of(Tuple.class, getGroupCount(level)));
+            this.levelIndexes[level] = Index.of(groupKeys);
+        }
+        return levelIndexes[level];
     }
 
     @Override
@@ -163,6 +200,40 @@ class XDataFrameGroupingRows<R,C> implements DataFrameGrouping.Rows<R,C> {
         }
     }
 
+    @Override
+    public final DataFrame<Tuple,C> agg(int level, Function<C,DataFrameAggregator> aggregators) {
+        try {
+            final int groupCount = getGroupCount(level);
+            final Array<Tuple> groupKeys = getGroupKeys(level).collect(ArrayCollector.of(Tuple.class, groupCount));
+            final ArrayBuilder<C> colKeys = ArrayBuilder.of(source.colCount(), source.cols().keyClass());
+            final List<DataFrameAggregator> aggregatorList = new ArrayList<>();
+            final Index<C> sourceColKeys = source.colKeys();
+            for (int j=0; j<sourceColKeys.size(); ++j) {
+                final C colKey = sourceColKeys.getKey(j);
+                if (ArrayType.of(source.cols().type(colKey)).isNumeric()) {
+                    final DataFrameAggregator aggregator = aggregators.apply(colKey);
+                    if (aggregator != null) {
+                        colKeys.append(colKey);
+                        aggregatorList.add(aggregator);
+                    }
+                }
+            }
+            final Aggregation aggregation = new Aggregation(groupKeys, colKeys.toArray(), aggregatorList);
+            final double[][] states = aggregation.newStates();
+            final AggregateTask task = new AggregateTask(aggregation, states, 0, aggregation.groupCount());
+            if (parallel) {
+                TaskScheduler.current().invoke(task);
+            } else {
+                task.compute();
+            }
+            return aggregation.toFrame(states);
+        } catch (DataFrameException | MemoryBudgetException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new DataFrameException("Failed to compute grouped row aggregates: " + ex.getMessage(), ex);
+        }
+    }
+
     @Override
     public final void forEach(int level, BiConsumer<Tuple,DataFrame<R,C>> groupConsumer) {
         this.getGroupKeys(level).forEach(groupKey -> {
@@ -194,13 +265,15 @@ class XDataFrameGroupingRows<R,C> implements DataFrameGrouping.Rows<R,C> {
      */
     private static class GroupRowsTask<X,Y> extends RecursiveTask<Map<Tuple,ArrayBuilder<X>>> {
 
+        private static final String COST_KEY = "GroupRowsTask";
+
         private int from;
         private int to;
         private int depth;
-        private boolean parallel;
+        private int threshold;
         private XDataFrame<X,Y> source;
-        private int threshold = Integer.MAX_VALUE;
         private Function<DataFrameRow<X,Y>,Tuple> function;
+        private MetricsOperation operation;
 
         /**
          * Constructor
@@ -208,19 +281,18 @@ class XDataFrameGroupingRows<R,C> implements DataFrameGrouping.Rows<R,C> {
          * @param from      the from index (inclusive)
          * @param to        the to index (inclusive)
          * @param depth     the grouping depth
-         * @param parallel  true for parallel mode
+         * @param threshold the row count above which to split, MAX_VALUE for sequential mode
          * @param function  the row grouping function
+         * @param operation the metrics operation to record splits against
          */
-        private GroupRowsTask(XDataFrame<X,Y> source, int from, int to, int depth, boolean parallel, Function<DataFrameRow<X,Y>,Tuple> function) {
+        private GroupRowsTask(XDataFrame<X,Y> source, int from, int to, int depth, int threshold, Function<DataFrameRow<X,Y>,Tuple> function, MetricsOperation operation) {
             this.source = source;
             this.from = from;
             this.to = to;
             this.depth = depth;
-            this.parallel = parallel;
+            this.threshold = threshold;
             this.function = function;
-            if (parallel) {
-                this.threshold = DataFrameOptions.getRowSplitThreshold(source);
-            }
+            this.operation = operation;
         }
 
         @Override
@@ -229,6 +301,7 @@ class XDataFrameGroupingRows<R,C> implements DataFrameGrouping.Rows<R,C> {
             if (count > threshold) {
                 return split();
             } else {
+                final long startNanos = System.nanoTime();
                 final Class<X> keyType = source.rows().keyClass();
                 final Map<Tuple,ArrayBuilder<X>> groupKeyMap = new HashMap<>();
                 final XDataFrameRow<X,Y> row = new XDataFrameRow<>(source, false);
@@ -250,6 +323,7 @@ class XDataFrameGroupingRows<R,C> implements DataFrameGrouping.Rows<R,C> {
                         throw new DataFrameException("Grouping failed at row: " + rowKey, ex);
                     }
                 }
+                TaskScheduler.record(COST_KEY, (long)count * Math.max(depth, 1), System.nanoTime() - startNanos);
                 return groupKeyMap;
             }
         }
@@ -261,20 +335,313 @@ class XDataFrameGroupingRows<R,C> implements DataFrameGrouping.Rows<R,C> {
         private Map<Tuple,ArrayBuilder<X>> split() {
             final int splitCount = (to - from) / 2;
             final int midPoint = from + splitCount;
-            final GroupRowsTask<X,Y> left  = new GroupRowsTask<>(source, from, midPoint, depth, parallel, function);
-            final GroupRowsTask<X,Y> right = new GroupRowsTask<>(source, midPoint + 1, to, depth, parallel, function);
+            final GroupRowsTask<X,Y> left  = new GroupRowsTask<>(source, from, midPoint, depth, threshold, function, operation);
+            final GroupRowsTask<X,Y> right = new GroupRowsTask<>(source, midPoint + 1, to, depth, threshold, function, operation);
+            operation.split();
             left.fork();
             final Map<Tuple,ArrayBuilder<X>> rightAns = right.compute();
             final Map<Tuple,ArrayBuilder<X>> leftAns  = left.join();
-            leftAns.forEach((key, value) -> {
-                final ArrayBuilder<X> existing = rightAns.get(key);
+            rightAns.forEach((key, value) -> {
+                final ArrayBuilder<X> existing = leftAns.get(key);
                 if (existing == null) {
-                    rightAns.put(key, value);
+                    leftAns.put(key, value);
                 } else {
                     existing.appendAll(value);
                 }
             });
-            return rightAns;
+            return leftAns;
+        }
+    }
+
+
+    /**
+     * A class that captures the resolved inputs to a single pass aggregation over the source rows
+     *
+     * <p>
+     * Row ordinals are bucketed by group with a stable counting sort, so each group is a contiguous slice of
+     * row ordinals in source order. Tasks then split on ranges of groups rather than ranges of rows, so every
+     * leaf folds into a disjoint slice of one shared set of state arrays, which keeps peak memory at one state
+     * slot per group regardless of parallelism. A single group with more rows than the split threshold is instead
+     * split on ranges of its rows, each folded into a partial accumulator of one state slot, and the partials are
+     * merged in row order, so a few very large groups still aggregate in parallel.
+     * </p>
+     */
+    private class Aggregation {
+
+        private int[] rowCoords;
+        private int[] colCoords;
+        private int[] groupRows;
+        private int[] groupStarts;
+        private Array<Tuple> groupKeys;
+        private Array<C> colKeys;
+        private DataFrameAggregator[] aggregators;
+
+        /**
+         * Constructor
+         * @param groupKeys     the group keys which define the result row order
+         * @param colKeys       the column keys to aggregate
+         * @param aggregators   the aggregator for each column
+         */
+        Aggregation(Array<Tuple> groupKeys, Array<C> colKeys, List<DataFrameAggregator> aggregators) {
+            final int rowCount = source.rowCount();
+            final int groupCount = groupKeys.length();
+            final XDataFrameContent<R,C> content = source.content();
+            final int[] rowGroups = new int[rowCount];
+            this.groupKeys = groupKeys;
+            this.colKeys = colKeys;
+            this.aggregators = aggregators.toArray(new DataFrameAggregator[0]);
+            this.rowCoords = new int[rowCount];
+            this.colCoords = new int[colKeys.length()];
+            this.groupStarts = new int[groupCount + 1];
+            Arrays.fill(rowGroups, -1);
+            for (int i=0; i<rowCount; ++i) {
+                this.rowCoords[i] = content.rowCoordinateAt(i);
+            }
+            for (int j=0; j<colCoords.length; ++j) {
+                this.colCoords[j] = content.colCoordinateOrFail(colKeys.getValue(j));
+            }
+            for (int g=0; g<groupCount; ++g) {
+                final Array<R> rowKeys = groupKeysMap.get(groupKeys.getValue(g));
+                for (int k=0; k<rowKeys.length(); ++k) {
+                    final int ordinal = source.rowKeys().getOrdinal(rowKeys.getValue(k));
+                    rowGroups[ordinal] = g;
+                }
+                this.groupStarts[g + 1] = groupStarts[g] + rowKeys.length();
+            }
+            final int[] cursors = Arrays.copyOf(groupStarts, groupCount);
+            this.groupRows = new int[groupStarts[groupCount]];
+            for (int i=0; i<rowCount; ++i) {
+                final int group = rowGroups[i];
+                if (group >= 0) {
+                    this.groupRows[cursors[group]++] = i;
+                }
+            }
+        }
+
+        /**
+         * Returns the number of groups in this aggregation
+         * @return  the number of groups
+         */
+        int groupCount() {
+            return groupKeys.length();
+        }
+
+        /**
+         * Returns the number of rows in the range of groups specified
+         * @param groupFrom the from group index, inclusive
+         * @param groupTo   the to group index, exclusive
+         * @return          the number of rows in the groups
+         */
+        int rowCount(int groupFrom, int groupTo) {
+            return groupStarts[groupTo] - groupStarts[groupFrom];
+        }
+
+        /**
+         * Returns the group index that splits the range of groups specified into two halves of similar row counts
+         * @param groupFrom the from group index, inclusive
+         * @param groupTo   the to group index, exclusive
+         * @return          the split index, strictly between groupFrom and groupTo
+         */
+        int split(int groupFrom, int groupTo) {
+            final int target = groupStarts[groupFrom] + rowCount(groupFrom, groupTo) / 2;
+            int low = groupFrom + 1;
+            int high = groupTo - 1;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (groupStarts[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns newly created and initialized state arrays, one per column
+         * @return  the newly created state arrays
+         */
+        double[][] newStates() {
+            final int groupCount = groupKeys.length();
+            final double[][] states = new double[aggregators.length][];
+            for (int j=0; j<aggregators.length; ++j) {
+                final DataFrameAggregator aggregator = aggregators[j];
+                final int width = aggregator.width();
+                states[j] = new double[groupCount * width];
+                for (int g=0; g<groupCount; ++g) {
+                    aggregator.init(states[j], g * width);
+                }
+            }
+            return states;
+        }
+
+        /**
+         * Folds the values for the rows of the groups specified into their slices of the states
+         * @param states    the state arrays, one per column
+         * @param groupFrom the from group index, inclusive
+         * @param groupTo   the to group index, exclusive
+         */
+        void fold(double[][] states, int groupFrom, int groupTo) {
+            final XDataFrameContent<R,C> content = source.content();
+            for (int j=0; j<aggregators.length; ++j) {
+                final double[] state = states[j];
+                final int colCoord = colCoords[j];
+                final DataFrameAggregator aggregator = aggregators[j];
+                final int width = aggregator.width();
+                for (int g=groupFrom; g<groupTo; ++g) {
+                    final int offset = g * width;
+                    for (int k=groupStarts[g]; k<groupStarts[g+1]; ++k) {
+                        final double value = content.doubleAt(rowCoords[groupRows[k]], colCoord);
+                        aggregator.add(state, offset, value);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns partial states, one per column, folded from a slice of the rows of the group specified
+         * @param group     the group index
+         * @param from      the from index into the rows of the group, inclusive
+         * @param to        the to index into the rows of the group, exclusive
+         * @return          the partial states, each of one state slot
+         */
+        double[][] fold(int group, int from, int to) {
+            final XDataFrameContent<R,C> content = source.content();
+            final double[][] partial = new double[aggregators.length][];
+            for (int j=0; j<aggregators.length; ++j) {
+                final int colCoord = colCoords[j];
+                final DataFrameAggregator aggregator = aggregators[j];
+                partial[j] = new double[aggregator.width()];
+                aggregator.init(partial[j], 0);
+                for (int k=groupStarts[group]+from; k<groupStarts[group]+to; ++k) {
+                    final double value = content.doubleAt(rowCoords[groupRows[k]], colCoord);
+                    aggregator.add(partial[j], 0, value);
+                }
+            }
+            return partial;
+        }
+
+        /**
+         * Merges partial states that cover later rows into the states of a group
+         * @param left      the left states, which are updated
+         * @param group     the group index of the left states, zero for partial states
+         * @param right     the right partial states
+         */
+        void merge(double[][] left, int group, double[][] right) {
+            for (int j=0; j<aggregators.length; ++j) {
+                final DataFrameAggregator aggregator = aggregators[j];
+                aggregator.merge(left[j], group * aggregator.width(), right[j], 0);
+            }
+        }
+
+        /**
+         * Returns the frame of aggregate results given the final states
+         * @param states    the final state arrays, one per column
+         * @return          the frame of results
+         */
+        DataFrame<Tuple,C> toFrame(double[][] states) {
+            final int groupCount = groupKeys.length();
+            final DataFrame<Tuple,C> result = DataFrame.ofDoubles(groupKeys, colKeys);
+            for (int j=0; j<aggregators.length; ++j) {
+                final double[] state = states[j];
+                final DataFrameAggregator aggregator = aggregators[j];
+                final int width = aggregator.width();
+                for (int g=0; g<groupCount; ++g) {
+                    final double value = aggregator.result(state, g * width);
+                    result.setDoubleAt(g, j, value);
+                }
+            }
+            return result;
+        }
+    }
+
+
+    /**
+     * A RecursiveAction that folds ranges of groups into their disjoint slices of a shared set of states
+     */
+    private class AggregateTask extends RecursiveAction {
+
+        private int groupFrom;
+        private int groupTo;
+        private int threshold;
+        private double[][] states;
+        private Aggregation aggregation;
+
+        /**
+         * Constructor
+         * @param aggregation   the aggregation inputs
+         * @param states        the state arrays shared by all tasks
+         * @param groupFrom     the from group index, inclusive
+         * @param groupTo       the to group index, exclusive
+         */
+        AggregateTask(Aggregation aggregation, double[][] states, int groupFrom, int groupTo) {
+            this.aggregation = aggregation;
+            this.states = states;
+            this.groupFrom = groupFrom;
+            this.groupTo = groupTo;
+            this.threshold = parallel ? DataFrameOptions.getRowSplitThreshold(source) : Integer.MAX_VALUE;
+        }
+
+        @Override
+        protected void compute() {
+            final int count = aggregation.rowCount(groupFrom, groupTo);
+            if (count > threshold && groupTo - groupFrom > 1) {
+                final int midPoint = aggregation.split(groupFrom, groupTo);
+                final AggregateTask left = new AggregateTask(aggregation, states, groupFrom, midPoint);
+                final AggregateTask right = new AggregateTask(aggregation, states, midPoint, groupTo);
+                invokeAll(left, right);
+            } else if (count > threshold) {
+                final GroupSliceTask task = new GroupSliceTask(aggregation, groupFrom, 0, count, threshold);
+                aggregation.merge(states, groupFrom, task.compute());
+            } else {
+                aggregation.fold(states, groupFrom, groupTo);
+            }
+        }
+    }
+
+
+    /**
+     * A RecursiveTask that folds ranges of the rows of a single group into partial states and merges them in row order
+     */
+    private class GroupSliceTask extends RecursiveTask<double[][]> {
+
+        private int group;
+        private int from;
+        private int to;
+        private int threshold;
+        private Aggregation aggregation;
+
+        /**
+         * Constructor
+         * @param aggregation   the aggregation inputs
+         * @param group         the group index
+         * @param from          the from index into the rows of the group, inclusive
+         * @param to            the to index into the rows of the group, exclusive
+         * @param threshold     the row count below which slices are folded sequentially
+         */
+        GroupSliceTask(Aggregation aggregation, int group, int from, int to, int threshold) {
+            this.aggregation = aggregation;
+            this.group = group;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected double[][] compute() {
+            final int count = to - from;
+            if (count > threshold && count > 1) {
+                final int midPoint = from + count / 2;
+                final GroupSliceTask left = new GroupSliceTask(aggregation, group, from, midPoint, threshold);
+                final GroupSliceTask right = new GroupSliceTask(aggregation, group, midPoint, to, threshold);
+                left.fork();
+                final double[][] rightStates = right.compute();
+                final double[][] leftStates = left.join();
+                aggregation.merge(leftStates, 0, rightStates);
+                return leftStates;
+            } else {
+                return aggregation.fold(group, from, to);
+            }
         }
     }
 
@@ -313,6 +680,8 @@ class XDataFrameGroupingRows<R,C> implements DataFrameGrouping.Rows<R,C> {
                     });
                 });
                 return result;
+            } catch (MemoryBudgetException ex) {
+                throw ex;
             } catch (Exception ex) {
                 throw new DataFrameException("Failed to compute grouped row stats: " + ex.getMessage(), ex);
             }
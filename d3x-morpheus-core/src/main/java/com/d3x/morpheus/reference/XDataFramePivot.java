@@ -0,0 +1,513 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayType;
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameAggregator;
+import com.d3x.morpheus.frame.DataFrameException;
+import com.d3x.morpheus.frame.DataFrameOptions;
+import com.d3x.morpheus.index.Index;
+import com.d3x.morpheus.range.Range;
+import com.d3x.morpheus.util.TaskScheduler;
+
+/**
+ * A class that implements pivot and melt (unpivot) operations to reshape long and wide DataFrames
+ *
+ * <p>
+ * Distinct keys are resolved in a single pass by hashing the primitive values of the key columns, so
+ * int, long and coded columns such as LocalDate never have their values boxed. A pivot then buckets the
+ * source rows by target row partition so that workers write to disjoint rows of the target, which is
+ * allocated once and filled with ordinal writes into primitive arrays.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+class XDataFramePivot {
+
+
+    /**
+     * Returns a wide frame with a row per distinct value in one column and a column per distinct value in another
+     * @param frame         the long frame to pivot
+     * @param rowKeyCol     the column whose distinct values become the row keys
+     * @param colKeyCol     the column whose distinct values become the column keys
+     * @param valueCol      the numeric column whose values populate the cells
+     * @param aggregator    the aggregator to combine values that map to the same cell
+     * @param <R>           the row key type of the source
+     * @param <C>           the column key type of the source
+     * @param <X>           the row key type of the result
+     * @param <Y>           the column key type of the result
+     * @return              the pivoted frame, with NaN for cells that have no values other than NaN
+     */
+    static <R,C,X,Y> DataFrame<X,Y> pivot(XDataFrame<R,C> frame, C rowKeyCol, C colKeyCol, C valueCol, DataFrameAggregator aggregator) {
+        final XDataFrameContent<R,C> content = frame.content();
+        final Class<?> valueType = frame.cols().type(valueCol);
+        if (!ArrayType.of(valueType).isNumeric()) {
+            throw new DataFrameException("The pivot value column must be numeric: " + valueCol);
+        } else {
+            final int rowCount = frame.rowCount();
+            final int[] rowCoords = new int[rowCount];
+            for (int i=0; i<rowCount; ++i) {
+                rowCoords[i] = content.rowCoordinateAt(i);
+            }
+            final Keys<X> rowKeys = Keys.of(frame, rowKeyCol, rowCoords);
+            final Keys<Y> colKeys = Keys.of(frame, colKeyCol, rowCoords);
+            final Pivot<X,Y> pivot = new Pivot<>(content, rowCoords, rowKeys, colKeys, content.colCoordinateOrFail(valueCol), aggregator);
+            final int threshold = frame.isParallel() ? DataFrameOptions.getRowSplitThreshold(frame) : Integer.MAX_VALUE;
+            final int partitionCount = Math.max(1, Math.min(rowKeys.size(), rowCount / Math.max(threshold, 1)));
+            pivot.partition(partitionCount);
+            if (partitionCount == 1) {
+                pivot.fold(0);
+            } else {
+                TaskScheduler.current().invoke(new PivotTask<>(pivot, 0, partitionCount - 1));
+            }
+            return pivot.toFrame();
+        }
+    }
+
+
+    /**
+     * Returns a long frame with a row for each combination of source row and value column
+     * @param frame         the wide frame to melt
+     * @param idCols        the columns that identify each source row, which are repeated for each value column
+     * @param valueCols     the columns to unpivot into the variable and value columns
+     * @param varCol        the key for the result column that holds the value column keys
+     * @param valueCol      the key for the result column that holds the values
+     * @param <R>           the row key type of the source
+     * @param <C>           the column key type
+     * @return              the melted frame, keyed by integer ordinal, ordered by value column then source row
+     */
+    @SuppressWarnings("unchecked")
+    static <R,C> DataFrame<Integer,C> melt(XDataFrame<R,C> frame, Iterable<C> idCols, Iterable<C> valueCols, C varCol, C valueCol) {
+        final XDataFrameContent<R,C> content = frame.content();
+        final List<C> idList = new ArrayList<>();
+        final List<C> valueList = new ArrayList<>();
+        idCols.forEach(idList::add);
+        valueCols.forEach(valueList::add);
+        if (idList.contains(varCol) || idList.contains(valueCol) || varCol.equals(valueCol)) {
+            throw new DataFrameException("The melt variable and value column keys must be distinct from the id columns");
+        } else if ((long)frame.rowCount() * valueList.size() > Integer.MAX_VALUE) {
+            throw new DataFrameException("The melted frame would exceed the maximum row count: " + frame.rowCount() + " x " + valueList.size());
+        } else {
+            final int rowCount = frame.rowCount();
+            final int length = rowCount * valueList.size();
+            final int[] rowCoords = new int[rowCount];
+            for (int i=0; i<rowCount; ++i) {
+                rowCoords[i] = content.rowCoordinateAt(i);
+            }
+            final Melt<R,C> melt = new Melt<>(frame, rowCoords, idList, valueList, length);
+            final int threshold = frame.isParallel() ? DataFrameOptions.getRowSplitThreshold(frame) : Integer.MAX_VALUE;
+            if (rowCount > 0) {
+                if (rowCount <= threshold) {
+                    melt.copy(0, rowCount - 1);
+                } else {
+                    TaskScheduler.current().invoke(new MeltTask<>(melt, 0, rowCount - 1, threshold));
+                }
+            }
+            final Class<C> colType = frame.cols().keyClass();
+            final Array<C> varValues = Array.of(colType, length);
+            for (int v=0; v<valueList.size(); ++v) {
+                final C key = valueList.get(v);
+                for (int i=0; i<rowCount; ++i) {
+                    varValues.setValue(v * rowCount + i, key);
+                }
+            }
+            return DataFrame.of(Range.of(0, length), colType, columns -> {
+                for (int j=0; j<idList.size(); ++j) {
+                    columns.add(idList.get(j), melt.idArrays[j]);
+                }
+                columns.add(varCol, varValues);
+                columns.add(valueCol, melt.valueArray);
+            });
+        }
+    }
+
+
+    /**
+     * Copies a value between arrays preserving the primitive type of the source
+     * @param content   the source content
+     * @param rowCoord  the source row coordinate
+     * @param colCoord  the source column coordinate
+     * @param type      the array type of the target
+     * @param target    the target array
+     * @param index     the target index
+     */
+    @SuppressWarnings("unchecked")
+    private static void copy(XDataFrameContent<?,?> content, int rowCoord, int colCoord, ArrayType type, Array<?> target, int index) {
+        switch (type) {
+            case BOOLEAN:   target.setBoolean(index, content.booleanAt(rowCoord, colCoord));    break;
+            case INTEGER:   target.setInt(index, content.intAt(rowCoord, colCoord));            break;
+            case LONG:      target.setLong(index, content.longAt(rowCoord, colCoord));          break;
+            case DOUBLE:    target.setDouble(index, content.doubleAt(rowCoord, colCoord));      break;
+            default:        ((Array<Object>)target).setValue(index, content.valueAt(rowCoord, colCoord));   break;
+        }
+    }
+
+
+    /**
+     * The distinct keys of a column in order of first appearance, and the key ordinal of each source row
+     * @param <K>   the key type
+     */
+    static class Keys<K> {
+
+        private Array<K> keys;
+        private int[] ordinals;
+
+        /**
+         * Constructor
+         * @param keys      the distinct keys in order of first appearance
+         * @param ordinals  the key ordinal of each source row
+         */
+        private Keys(Array<K> keys, int[] ordinals) {
+            this.keys = keys;
+            this.ordinals = ordinals;
+        }
+
+        /**
+         * Returns the number of distinct keys
+         * @return  the number of distinct keys
+         */
+        int size() {
+            return keys.length();
+        }
+
+        /**
+         * Returns the key ordinal of each source row, where ordinals follow the order of first appearance
+         * @return  the key ordinal of each source row
+         */
+        int[] ordinals() {
+            return ordinals;
+        }
+
+        /**
+         * Resolves the distinct keys of a column by hashing primitive values where the column type allows
+         * @param frame     the source frame
+         * @param colKey    the column to resolve keys for
+         * @param rowCoords the row coordinates of the source rows in ordinal order
+         * @return          the resolved keys
+         */
+        @SuppressWarnings("unchecked")
+        static <R,C,K> Keys<K> of(XDataFrame<R,C> frame, C colKey, int[] rowCoords) {
+            final XDataFrameContent<R,C> content = frame.content();
+            final int colCoord = content.colCoordinateOrFail(colKey);
+            final Class<K> type = (Class<K>)frame.cols().type(colKey);
+            final int[] ordinals = new int[rowCoords.length];
+            final TIntArrayList firstRows = new TIntArrayList();
+            switch (ArrayType.of(type)) {
+                case INTEGER:
+                case YEAR:
+                case CURRENCY:
+                case ZONE_ID:
+                case TIME_ZONE:
+                    final TIntIntHashMap intMap = new TIntIntHashMap(1000, 0.75f, Integer.MIN_VALUE, -1);
+                    for (int i=0; i<rowCoords.length; ++i) {
+                        final int value = content.intAt(rowCoords[i], colCoord);
+                        final int ordinal = intMap.putIfAbsent(value, intMap.size());
+                        ordinals[i] = ordinal < 0 ? firstRows.size() : ordinal;
+                        if (ordinal < 0) firstRows.add(i);
+                    }
+                    break;
+                case LONG:
+                case DATE:
+                case INSTANT:
+                case LOCAL_DATE:
+                case LOCAL_TIME:
+                case LOCAL_DATETIME:
+                    final TLongIntHashMap longMap = new TLongIntHashMap(1000, 0.75f, Long.MIN_VALUE, -1);
+                    for (int i=0; i<rowCoords.length; ++i) {
+                        final long value = content.longAt(rowCoords[i], colCoord);
+                        final int ordinal = longMap.putIfAbsent(value, longMap.size());
+                        ordinals[i] = ordinal < 0 ? firstRows.size() : ordinal;
+                        if (ordinal < 0) firstRows.add(i);
+                    }
+                    break;
+                default:
+                    final TObjectIntHashMap<Object> objectMap = new TObjectIntHashMap<>(1000, 0.75f, -1);
+                    for (int i=0; i<rowCoords.length; ++i) {
+                        final Object value = content.valueAt(rowCoords[i], colCoord);
+                        final int ordinal = objectMap.putIfAbsent(value, objectMap.size());
+                        ordinals[i] = ordinal < 0 ? firstRows.size() : ordinal;
+                        if (ordinal < 0) firstRows.add(i);
+                    }
+                    break;
+            }
+            final Array<K> keys = Array.of(type, firstRows.size());
+            for (int k=0; k<firstRows.size(); ++k) {
+                final int rowCoord = rowCoords[firstRows.get(k)];
+                keys.setValue(k, content.valueAt(rowCoord, colCoord));
+            }
+            return new Keys<>(keys, ordinals);
+        }
+    }
+
+
+    /**
+     * The state of a pivot operation, with per cell aggregation state held in one primitive array per target column
+     * @param <X>   the target row key type
+     * @param <Y>   the target column key type
+     */
+    private static class Pivot<X,Y> {
+
+        private int width;
+        private int valueCoord;
+        private int[] rowCoords;
+        private int[] order;
+        private int[] offsets;
+        private Keys<X> rowKeys;
+        private Keys<Y> colKeys;
+        private double[][] states;
+        private boolean[][] observed;
+        private XDataFrameContent<?,?> content;
+        private DataFrameAggregator aggregator;
+
+        /**
+         * Constructor
+         * @param content       the source content
+         * @param rowCoords     the row coordinates of source rows in ordinal order
+         * @param rowKeys       the resolved target row keys
+         * @param colKeys       the resolved target column keys
+         * @param valueCoord    the column coordinate of the value column
+         * @param aggregator    the aggregator for cells
+         */
+        Pivot(XDataFrameContent<?,?> content, int[] rowCoords, Keys<X> rowKeys, Keys<Y> colKeys, int valueCoord, DataFrameAggregator aggregator) {
+            this.content = content;
+            this.rowCoords = rowCoords;
+            this.rowKeys = rowKeys;
+            this.colKeys = colKeys;
+            this.valueCoord = valueCoord;
+            this.aggregator = aggregator;
+            this.width = aggregator.width();
+            this.states = new double[colKeys.size()][];
+            this.observed = new boolean[colKeys.size()][];
+            for (int j=0; j<states.length; ++j) {
+                this.states[j] = new double[rowKeys.size() * width];
+                this.observed[j] = new boolean[rowKeys.size()];
+                for (int i=0; i<rowKeys.size(); ++i) {
+                    aggregator.init(states[j], i * width);
+                }
+            }
+        }
+
+        /**
+         * Orders source rows by target row partition with a stable counting sort
+         * @param partitionCount    the number of target row partitions
+         */
+        void partition(int partitionCount) {
+            final int targetRows = Math.max(rowKeys.size(), 1);
+            final int[] partitions = new int[rowCoords.length];
+            this.offsets = new int[partitionCount + 1];
+            this.order = new int[rowCoords.length];
+            for (int i=0; i<rowCoords.length; ++i) {
+                partitions[i] = (int)((long)rowKeys.ordinals[i] * partitionCount / targetRows);
+                this.offsets[partitions[i] + 1]++;
+            }
+            for (int p=0; p<partitionCount; ++p) {
+                this.offsets[p + 1] += offsets[p];
+            }
+            final int[] cursor = offsets.clone();
+            for (int i=0; i<rowCoords.length; ++i) {
+                this.order[cursor[partitions[i]]++] = i;
+            }
+        }
+
+        /**
+         * Folds the source rows of a partition into the state of the target cells, in source row order
+         * @param partition the partition index
+         */
+        void fold(int partition) {
+            for (int k=offsets[partition]; k<offsets[partition+1]; ++k) {
+                final int i = order[k];
+                final int row = rowKeys.ordinals[i];
+                final int col = colKeys.ordinals[i];
+                final double value = content.doubleAt(rowCoords[i], valueCoord);
+                this.aggregator.add(states[col], row * width, value);
+                this.observed[col][row] |= !Double.isNaN(value);
+            }
+        }
+
+        /**
+         * Returns the target frame, converting aggregation state into values in place where possible
+         * @return  the target frame
+         */
+        DataFrame<X,Y> toFrame() {
+            final int rowCount = rowKeys.size();
+            final Index<X> rowIndex = Index.of(rowKeys.keys);
+            return DataFrame.of(rowIndex, colKeys.keys.type(), columns -> {
+                for (int j=0; j<colKeys.size(); ++j) {
+                    final double[] state = states[j];
+                    final double[] values = width == 1 ? state : new double[rowCount];
+                    for (int i=0; i<rowCount; ++i) {
+                        values[i] = observed[j][i] ? aggregator.result(state, i * width) : Double.NaN;
+                    }
+                    columns.add(colKeys.keys.getValue(j), Array.of(values));
+                }
+            });
+        }
+    }
+
+
+    /**
+     * A RecursiveAction that folds target row partitions of a pivot in parallel
+     */
+    private static class PivotTask<X,Y> extends RecursiveAction {
+
+        private int from;
+        private int to;
+        private Pivot<X,Y> pivot;
+
+        /**
+         * Constructor
+         * @param pivot     the pivot state
+         * @param from      the from partition, inclusive
+         * @param to        the to partition, inclusive
+         */
+        PivotTask(Pivot<X,Y> pivot, int from, int to) {
+            this.pivot = pivot;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (from == to) {
+                pivot.fold(from);
+            } else {
+                final int midPoint = from + (to - from) / 2;
+                invokeAll(
+                    new PivotTask<>(pivot, from, midPoint),
+                    new PivotTask<>(pivot, midPoint + 1, to)
+                );
+            }
+        }
+    }
+
+
+    /**
+     * The state of a melt operation which holds the target arrays
+     */
+    private static class Melt<R,C> {
+
+        private int rowCount;
+        private int[] rowCoords;
+        private int[] idCoords;
+        private int[] valueCoords;
+        private ArrayType[] idTypes;
+        private ArrayType valueType;
+        private Array<?>[] idArrays;
+        private Array<?> valueArray;
+        private XDataFrameContent<R,C> content;
+
+        /**
+         * Constructor
+         * @param frame         the source frame
+         * @param rowCoords     the row coordinates of source rows in ordinal order
+         * @param idCols        the id columns
+         * @param valueCols     the value columns
+         * @param length        the length of the target arrays
+         */
+        Melt(XDataFrame<R,C> frame, int[] rowCoords, List<C> idCols, List<C> valueCols, int length) {
+            this.content = frame.content();
+            this.rowCount = rowCoords.length;
+            this.rowCoords = rowCoords;
+            this.idCoords = new int[idCols.size()];
+            this.idTypes = new ArrayType[idCols.size()];
+            this.idArrays = new Array<?>[idCols.size()];
+            this.valueCoords = new int[valueCols.size()];
+            for (int j=0; j<idCols.size(); ++j) {
+                final Class<?> type = frame.cols().type(idCols.get(j));
+                this.idCoords[j] = content.colCoordinateOrFail(idCols.get(j));
+                this.idTypes[j] = ArrayType.of(type);
+                this.idArrays[j] = Array.of(type, length);
+            }
+            final Class<?> valueClass = valueCols.stream().map(c -> frame.cols().type(c)).distinct().count() == 1 ? frame.cols().type(valueCols.get(0)) : Object.class;
+            for (int v=0; v<valueCols.size(); ++v) {
+                this.valueCoords[v] = content.colCoordinateOrFail(valueCols.get(v));
+            }
+            this.valueType = ArrayType.of(valueClass);
+            this.valueArray = Array.of(valueClass, length);
+        }
+
+        /**
+         * Copies the id and value data for the source rows in the range specified
+         * @param from  the from row ordinal, inclusive
+         * @param to    the to row ordinal, inclusive
+         */
+        void copy(int from, int to) {
+            for (int v=0; v<valueCoords.length; ++v) {
+                final int offset = v * rowCount;
+                for (int i=from; i<=to; ++i) {
+                    final int rowCoord = rowCoords[i];
+                    for (int j=0; j<idCoords.length; ++j) {
+                        XDataFramePivot.copy(content, rowCoord, idCoords[j], idTypes[j], idArrays[j], offset + i);
+                    }
+                    XDataFramePivot.copy(content, rowCoord, valueCoords[v], valueType, valueArray, offset + i);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * A RecursiveAction that melts partitions of source rows in parallel
+     */
+    private static class MeltTask<R,C> extends RecursiveAction {
+
+        private int from;
+        private int to;
+        private int threshold;
+        private Melt<R,C> melt;
+
+        /**
+         * Constructor
+         * @param melt      the melt state
+         * @param from      the from row ordinal, inclusive
+         * @param to        the to row ordinal, inclusive
+         * @param threshold the row count threshold above which to split
+         */
+        MeltTask(Melt<R,C> melt, int from, int to, int threshold) {
+            this.melt = melt;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            final int count = to - from + 1;
+            if (count <= threshold) {
+                melt.copy(from, to);
+            } else {
+                final int midPoint = from + (to - from) / 2;
+                invokeAll(
+                    new MeltTask<>(melt, from, midPoint, threshold),
+                    new MeltTask<>(melt, midPoint + 1, to, threshold)
+                );
+            }
+        }
+    }
+}
@@ -17,14 +17,16 @@ package com.d3x.morpheus.reference;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RecursiveAction;
 
 import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.frame.DataFrame;
 import com.d3x.morpheus.frame.DataFrameException;
 import com.d3x.morpheus.frame.DataFrameOptions;
 import com.d3x.morpheus.frame.DataFrameRank;
+import com.d3x.morpheus.stats.Ranker;
+import com.d3x.morpheus.util.TaskScheduler;
 import org.apache.commons.math3.stat.ranking.NaNStrategy;
-import org.apache.commons.math3.stat.ranking.NaturalRanking;
 import org.apache.commons.math3.stat.ranking.TiesStrategy;
 
 /**
@@ -69,32 +71,51 @@ class XDataFrameRank<R,C> implements DataFrameRank<R,C> {
     }
 
     /**
-     * Returns the rank array for the values specified
-     * @param values    the values to rank
-     * @return          the ranks of input array
+     * Returns a ranker configured with the NaN and ties strategies for the current thread
+     * @return      the newly created ranker
      */
-    static double[] rank(double[] values) {
+    static Ranker ranker() {
         final NaNStrategy nanStrategy = (NaNStrategy)optionsMap.get(NaNStrategy.class).get(DataFrameOptions.getNanStrategy());
         final TiesStrategy tieStrategy = (TiesStrategy)optionsMap.get(TiesStrategy.class).get(DataFrameOptions.getTieStrategy());
         if (nanStrategy == null) throw new DataFrameException("Unsupported NaN strategy specified: " + DataFrameOptions.getNanStrategy());
         if (tieStrategy == null) throw new DataFrameException("Unsupported tie strategy specified: " + DataFrameOptions.getTieStrategy());
-        final NaturalRanking ranking = new NaturalRanking(nanStrategy, tieStrategy);
-        return ranking.rank(values);
+        return new Ranker(nanStrategy, tieStrategy);
+    }
+
+    /**
+     * Returns the rank array for the values specified
+     * @param values    the values to rank
+     * @return          the ranks of input array
+     */
+    static double[] rank(double[] values) {
+        return ranker().rank(values);
     }
 
     @Override
     public DataFrame<R,C> ofRows() throws DataFrameException {
         try {
-            final Array<R> rowKeys = frame.rows().keyArray();
-            final Array<C> colKeys = frame.cols().keyArray();
-            final DataFrame<R,C> result = DataFrame.ofDoubles(rowKeys, colKeys);
-            final double[] buffer = new double[colKeys.length()];
-            this.frame.rows().forEach(row -> {
-                row.forEachValue(v -> buffer[v.colOrdinal()] = v.getDouble());
-                final double[] ranks = XDataFrameRank.rank(buffer);
-                result.row(row.key()).applyDoubles(v -> ranks[v.colOrdinal()]);
+            final Ranker ranker = ranker();
+            final double[][] ranks = new double[frame.colCount()][frame.rowCount()];
+            final int threshold = DataFrameOptions.getRowSplitThreshold(frame);
+            final XDataFrameRowTiles<R,C> tiles = XDataFrameRowTiles.of(frame);
+            tiles.apply(frame.isParallel(), threshold, false, () -> {
+                final Ranker local = ranker.copy();
+                final double[] values = new double[tiles.colCount()];
+                return (tile, first, rows, colCount) -> {
+                    for (int i=0; i<rows; ++i) {
+                        System.arraycopy(tile, i * colCount, values, 0, colCount);
+                        local.rank(values, colCount, values);
+                        System.arraycopy(values, 0, tile, i * colCount, colCount);
+                    }
+                    for (int j=0; j<colCount; ++j) {
+                        final double[] target = ranks[j];
+                        for (int i=0; i<rows; ++i) {
+                            target[first + i] = tile[i * colCount + j];
+                        }
+                    }
+                };
             });
-            return result;
+            return toFrame(ranks);
         } catch (Throwable t) {
             throw new DataFrameException("DataFrame rank ofRows() failed ", t);
         }
@@ -104,20 +125,85 @@ class XDataFrameRank<R,C> implements DataFrameRank<R,C> {
     @Override()
     public DataFrame<R,C> ofColumns() throws DataFrameException {
         try {
-            final int rowCount = frame.rowCount();
-            final Array<R> rowKeys = frame.rows().keyArray();
-            final Array<C> colKeys = frame.cols().keyArray();
-            final DataFrame<R,C> result = DataFrame.ofDoubles(rowKeys, colKeys);
-            final double[] buffer = new double[rowKeys.length()];
-            this.frame.cols().forEach(column -> {
-                column.forEachValue(v -> buffer[v.rowOrdinal()] = v.getDouble());
-                final double[] ranks = XDataFrameRank.rank(buffer);
-                result.col(column.key()).applyDoubles(v -> ranks[v.rowOrdinal()]);
-            });
-            return result;
+            final double[][] ranks = new double[frame.colCount()][];
+            final int threshold = DataFrameOptions.getColumnSplitThreshold(frame);
+            final RankTask task = new RankTask(ranker(), ranks, 0, frame.colCount(), threshold);
+            if (frame.isParallel()) {
+                TaskScheduler.current().invoke(task);
+            } else {
+                task.compute();
+            }
+            return toFrame(ranks);
         } catch (Throwable t) {
             throw new DataFrameException("DataFrame rank ofColumns() failed ", t);
         }
     }
 
+
+    /**
+     * Returns a frame with the same keys as the input frame wrapping the rank arrays for each column
+     * @param ranks     the rank arrays for each column
+     * @return          the frame of ranks
+     */
+    private DataFrame<R,C> toFrame(double[][] ranks) {
+        final Array<R> rowKeys = frame.rows().keyArray();
+        final Array<C> colKeys = frame.cols().keyArray();
+        return DataFrame.of(rowKeys, frame.cols().keyClass(), columns -> {
+            for (int j=0; j<ranks.length; ++j) {
+                columns.add(colKeys.getValue(j), Array.of(ranks[j]));
+            }
+        });
+    }
+
+
+    /**
+     * A RecursiveAction that ranks a range of columns, writing ranks directly into the column arrays of the result
+     */
+    private class RankTask extends RecursiveAction {
+
+        private int from;
+        private int to;
+        private int threshold;
+        private Ranker ranker;
+        private double[][] ranks;
+
+        /**
+         * Constructor
+         * @param ranker        the ranker prototype which carries the NaN and ties strategies
+         * @param ranks         the rank arrays for each column of the result
+         * @param from          the first column ordinal, inclusive
+         * @param to            the last column ordinal, exclusive
+         * @param threshold     the threshold to trigger parallelism
+         */
+        RankTask(Ranker ranker, double[][] ranks, int from, int to, int threshold) {
+            this.ranker = ranker;
+            this.ranks = ranks;
+            this.from = from;
+            this.to = to;
+            this.threshold = Math.max(threshold, 1);
+        }
+
+        @Override
+        protected void compute() {
+            final int count = to - from;
+            if (count > threshold) {
+                final int midPoint = from + count / 2;
+                invokeAll(
+                    new RankTask(ranker, ranks, from, midPoint, threshold),
+                    new RankTask(ranker, ranks, midPoint, to, threshold)
+                );
+            } else {
+                final Ranker ranker = this.ranker.copy();
+                final int rowCount = frame.rowCount();
+                for (int j=from; j<to; ++j) {
+                    final double[] values = new double[rowCount];
+                    for (int i=0; i<rowCount; ++i) {
+                        values[i] = frame.getDoubleAt(i, j);
+                    }
+                    ranker.rank(values, rowCount, values);
+                    this.ranks[j] = values;
+                }
+            }
+        }
+    }
 }
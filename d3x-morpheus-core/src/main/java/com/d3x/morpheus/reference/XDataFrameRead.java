@@ -20,6 +20,7 @@ import java.util.function.Consumer;
 import com.d3x.morpheus.csv.CsvSource;
 import com.d3x.morpheus.csv.CsvSourceDefault;
 import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameLazy;
 import com.d3x.morpheus.frame.DataFrameRead;
 import com.d3x.morpheus.util.Resource;
 
@@ -46,4 +47,9 @@ class XDataFrameRead implements DataFrameRead {
     public <R> DataFrame<R, String> csv(Class<R> rowType, Consumer<CsvSource.Options> configurator) {
         return new CsvSourceDefault(resource).read(rowType, configurator);
     }
+
+    @Override
+    public <R> DataFrameLazy<R, String> lazy(Class<R> rowType, Consumer<CsvSource.Options> configurator) {
+        return DataFrameLazy.csv(new CsvSourceDefault(resource), rowType, configurator);
+    }
 }
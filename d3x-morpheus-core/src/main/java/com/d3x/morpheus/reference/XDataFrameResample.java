@@ -0,0 +1,507 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayType;
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameException;
+import com.d3x.morpheus.frame.DataFrameResample;
+import com.d3x.morpheus.util.SortAlgorithm;
+
+/**
+ * The reference implementation of the DataFrameResample interface
+ *
+ * <p>
+ * Bucket boundaries are computed once from the long codes of the row keys, which hold epoch millis, epoch days or
+ * nanos of day depending on the key type, so no temporal objects are created for existing rows. The row ordinals
+ * are sorted by code only if the keys are not already in ascending order, after which every aggregation is a single
+ * sequential sweep of each column, with columns processed in parallel if the frame is parallel.
+ * </p>
+ *
+ * <p>
+ * Buckets for ZonedDateTime keys are aligned in the local time of the zone using the offset in effect at each key,
+ * so daily buckets start at local midnight on both sides of a daylight saving transition, and sub-daily buckets in
+ * a repeated local hour remain distinct.
+ * </p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+class XDataFrameResample<R,C> implements DataFrameResample<R,C> {
+
+    private enum Stat { FIRST, LAST, MIN, MAX, SUM, MEAN, COUNT }
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final long NANOS_PER_DAY = 86400000000000L;
+
+    private final XDataFrame<R,C> frame;
+    private final boolean parallel;
+    private final Class<R> rowType;
+    private final ZoneId zone;
+    private final long step;
+    private final int[] order;
+    private final long[] starts;
+    private final int[] bounds;
+
+
+    /**
+     * Constructor
+     * @param frame     the frame to resample
+     * @param interval  the length of each bucket
+     * @param parallel  true to process columns in parallel
+     */
+    XDataFrameResample(XDataFrame<R,C> frame, Duration interval, boolean parallel) {
+        Objects.requireNonNull(interval, "The resample interval cannot be null");
+        this.frame = frame;
+        this.parallel = parallel;
+        this.rowType = frame.rows().keyClass();
+        final long unit = unitNanos(rowType);
+        final long nanos = interval.toNanos();
+        if (nanos <= 0 || nanos % unit != 0) {
+            throw new DataFrameException("The resample interval for " + rowType.getSimpleName() + " keys must be a positive multiple of " + Duration.ofNanos(unit) + ", not " + interval);
+        } else {
+            final Array<R> keys = frame.rows().keyArray();
+            final int rowCount = keys.length();
+            final long[] codes = new long[rowCount];
+            final int[] ordinals = new int[rowCount];
+            int count = 0;
+            boolean sorted = true;
+            for (int i=0; i<rowCount; ++i) {
+                final long code = keys.getLong(i);
+                if (code != Long.MIN_VALUE) {
+                    sorted = sorted && (count == 0 || code >= codes[count-1]);
+                    codes[count] = code;
+                    ordinals[count++] = i;
+                }
+            }
+            if (!sorted) {
+                SortAlgorithm.getDefault(parallel).sort(0, count, (i, j) -> Long.compare(codes[i], codes[j]), (i, j) -> {
+                    final long code = codes[i]; codes[i] = codes[j]; codes[j] = code;
+                    final int ordinal = ordinals[i]; ordinals[i] = ordinals[j]; ordinals[j] = ordinal;
+                });
+            }
+            this.step = nanos / unit;
+            this.zone = rowType == ZonedDateTime.class && count > 0 ? ((ZonedDateTime)keys.getValue(ordinals[0])).getZone() : null;
+            final long[] starts = new long[count];
+            final int[] bounds = new int[count + 1];
+            int bucketCount = 0;
+            for (int p=0; p<count; ++p) {
+                final long start = bucketStart(codes[p]);
+                if (bucketCount == 0 || start != starts[bucketCount-1]) {
+                    starts[bucketCount] = start;
+                    bounds[bucketCount++] = p;
+                }
+            }
+            bounds[bucketCount] = count;
+            this.order = Arrays.copyOf(ordinals, count);
+            this.starts = Arrays.copyOf(starts, bucketCount);
+            this.bounds = Arrays.copyOf(bounds, bucketCount + 1);
+        }
+    }
+
+
+    /**
+     * Returns the number of nanos represented by one unit of the long code for the row key type
+     * @param rowType   the row key type
+     * @return          the nanos per code unit
+     * @throws DataFrameException   if the row key type is not a supported date or time type
+     */
+    private static long unitNanos(Class<?> rowType) {
+        switch (ArrayType.of(rowType)) {
+            case LOCAL_DATE:        return NANOS_PER_DAY;
+            case LOCAL_TIME:        return 1L;
+            case LOCAL_DATETIME:    return NANOS_PER_MILLI;
+            case ZONED_DATETIME:    return NANOS_PER_MILLI;
+            case INSTANT:           return NANOS_PER_MILLI;
+            case DATE:              return NANOS_PER_MILLI;
+            default:    throw new DataFrameException("Resampling requires date or time row keys, not " + rowType.getSimpleName());
+        }
+    }
+
+
+    /**
+     * Returns the start code of the bucket that contains the code specified
+     * For zoned keys the code is truncated in local time, and the local start is resolved with the offset in effect
+     * at the code, falling back to the zone rules only if the offset changes within the bucket.
+     * @param code  the long code of a row key
+     * @return      the start code of the bucket
+     */
+    private long bucketStart(long code) {
+        if (zone == null) {
+            return Math.floorDiv(code, step) * step;
+        } else {
+            final ZoneRules rules = zone.getRules();
+            final ZoneOffset offset = rules.getOffset(Instant.ofEpochMilli(code));
+            final long shift = offset.getTotalSeconds() * 1000L;
+            final long local = Math.floorDiv(code + shift, step) * step;
+            final long start = local - shift;
+            if (rules.isFixedOffset() || rules.getOffset(Instant.ofEpochMilli(start)).equals(offset)) {
+                return start;
+            } else {
+                final long seconds = Math.floorDiv(local, 1000L);
+                final int nanos = (int)Math.floorMod(local, 1000L) * (int)NANOS_PER_MILLI;
+                final LocalDateTime dateTime = LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+                return ZonedDateTime.ofLocal(dateTime, zone, offset).toInstant().toEpochMilli();
+            }
+        }
+    }
+
+
+    /**
+     * Returns the start code of the bucket that follows the bucket starting at the code specified
+     * @param start the start code of a bucket
+     * @return      the start code of the next bucket
+     */
+    private long nextStart(long start) {
+        if (zone == null) {
+            return start + step;
+        } else {
+            for (long multiple=1L; ; ++multiple) {
+                final long next = bucketStart(start + multiple * step);
+                if (next > start) {
+                    return next;
+                }
+            }
+        }
+    }
+
+
+    @Override
+    public DataFrame<R,C> first() {
+        return aggregate(Stat.FIRST);
+    }
+
+    @Override
+    public DataFrame<R,C> last() {
+        return aggregate(Stat.LAST);
+    }
+
+    @Override
+    public DataFrame<R,C> min() {
+        return aggregate(Stat.MIN);
+    }
+
+    @Override
+    public DataFrame<R,C> max() {
+        return aggregate(Stat.MAX);
+    }
+
+    @Override
+    public DataFrame<R,C> sum() {
+        return aggregate(Stat.SUM);
+    }
+
+    @Override
+    public DataFrame<R,C> mean() {
+        return aggregate(Stat.MEAN);
+    }
+
+    @Override
+    public DataFrame<R,C> count() {
+        return aggregate(Stat.COUNT);
+    }
+
+
+    @Override
+    public DataFrame<R,String> ohlc(C colKey) {
+        if (!frame.cols().contains(colKey)) {
+            throw new DataFrameException("No column exists for key: " + colKey);
+        } else if (!ArrayType.of(frame.cols().type(colKey)).isNumeric()) {
+            throw new DataFrameException("OHLC resampling requires a numeric column, not " + colKey);
+        } else {
+            final int colOrdinal = frame.cols().ordinal(colKey);
+            final int bucketCount = starts.length;
+            final double[] open = new double[bucketCount];
+            final double[] high = new double[bucketCount];
+            final double[] low = new double[bucketCount];
+            final double[] close = new double[bucketCount];
+            for (int b=0; b<bucketCount; ++b) {
+                open[b] = high[b] = low[b] = close[b] = Double.NaN;
+                for (int p=bounds[b]; p<bounds[b+1]; ++p) {
+                    final double value = frame.getDoubleAt(order[p], colOrdinal);
+                    if (!Double.isNaN(value)) {
+                        open[b] = Double.isNaN(open[b]) ? value : open[b];
+                        high[b] = Double.isNaN(high[b]) ? value : Math.max(high[b], value);
+                        low[b] = Double.isNaN(low[b]) ? value : Math.min(low[b], value);
+                        close[b] = value;
+                    }
+                }
+            }
+            return DataFrame.of(createKeys(starts), String.class, columns -> {
+                columns.add("Open", Array.of(open));
+                columns.add("High", Array.of(high));
+                columns.add("Low", Array.of(low));
+                columns.add("Close", Array.of(close));
+            });
+        }
+    }
+
+
+    @Override
+    public DataFrame<R,C> ffill() {
+        final List<C> colKeys = frame.cols().keys().collect(Collectors.toList());
+        final Array<?>[] arrays = new Array<?>[colKeys.size()];
+        final long span = starts.length == 0 ? 0L : (starts[starts.length-1] - starts[0]) / step + 1L;
+        if (span > Integer.MAX_VALUE - 2) {
+            throw new DataFrameException("Too many buckets to upsample with interval, count would be " + span);
+        } else {
+            final long[] grid = new long[(int)span + 2];
+            int gridCount = 0;
+            final long last = starts.length > 0 ? starts[starts.length-1] : Long.MIN_VALUE;
+            for (long code = starts.length > 0 ? starts[0] : 0L; code <= last; code = nextStart(code)) {
+                if (gridCount == grid.length) {
+                    throw new DataFrameException("Too many buckets to upsample with interval, count exceeds " + grid.length);
+                } else {
+                    grid[gridCount++] = code;
+                }
+            }
+            final int bucketCount = gridCount;
+            final long[] codes = Arrays.copyOf(grid, bucketCount);
+            this.forEachColumn(colKeys.size(), j -> {
+                final int colOrdinal = frame.cols().ordinal(colKeys.get(j));
+                final Class<?> colType = frame.cols().type(colKeys.get(j));
+                final ArrayType type = ArrayType.of(colType);
+                final Array<?> result = Array.of(colType, bucketCount);
+                int carry = -1;
+                for (int k=0, b=0; k<bucketCount; ++k) {
+                    while (b < starts.length && starts[b] <= codes[k]) {
+                        final int p = find(b, colOrdinal, type, false);
+                        carry = p >= 0 ? order[p] : carry;
+                        b++;
+                    }
+                    if (carry >= 0) {
+                        copy(carry, colOrdinal, type, result, k);
+                    }
+                }
+                arrays[j] = result;
+            });
+            return createFrame(createKeys(codes), colKeys, arrays);
+        }
+    }
+
+
+    /**
+     * Returns a frame with the stat computed for each bucket of the eligible columns
+     * @param stat  the stat to compute
+     * @return      the resampled frame
+     */
+    private DataFrame<R,C> aggregate(Stat stat) {
+        final boolean numeric = stat != Stat.FIRST && stat != Stat.LAST && stat != Stat.COUNT;
+        final List<C> colKeys = frame.cols().keys().filter(key -> !numeric || ArrayType.of(frame.cols().type(key)).isNumeric()).collect(Collectors.toList());
+        final Array<?>[] arrays = new Array<?>[colKeys.size()];
+        this.forEachColumn(colKeys.size(), j -> {
+            final int colOrdinal = frame.cols().ordinal(colKeys.get(j));
+            final Class<?> colType = frame.cols().type(colKeys.get(j));
+            switch (stat) {
+                case FIRST: arrays[j] = select(colOrdinal, colType, true);  break;
+                case LAST:  arrays[j] = select(colOrdinal, colType, false); break;
+                case COUNT: arrays[j] = count(colOrdinal, ArrayType.of(colType)); break;
+                default:    arrays[j] = compute(colOrdinal, stat);  break;
+            }
+        });
+        return createFrame(createKeys(starts), colKeys, arrays);
+    }
+
+
+    /**
+     * Returns an array with the first or last valid value of the column in each bucket
+     * @param colOrdinal    the column ordinal
+     * @param colType       the column type
+     * @param first         true for the first valid value, false for the last
+     * @return              the array of values, one per bucket
+     */
+    private Array<?> select(int colOrdinal, Class<?> colType, boolean first) {
+        final ArrayType type = ArrayType.of(colType);
+        final Array<?> result = Array.of(colType, starts.length);
+        for (int b=0; b<starts.length; ++b) {
+            final int p = find(b, colOrdinal, type, first);
+            if (p >= 0) {
+                copy(order[p], colOrdinal, type, result, b);
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns an array with the number of valid values of the column in each bucket
+     * @param colOrdinal    the column ordinal
+     * @param type          the column type
+     * @return              the array of counts, one per bucket
+     */
+    private Array<?> count(int colOrdinal, ArrayType type) {
+        final Array<Integer> result = Array.of(Integer.class, starts.length);
+        for (int b=0; b<starts.length; ++b) {
+            int count = 0;
+            for (int p=bounds[b]; p<bounds[b+1]; ++p) {
+                count += isValid(order[p], colOrdinal, type) ? 1 : 0;
+            }
+            result.setInt(b, count);
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns an array with a numeric stat of the column in each bucket, ignoring NaN values
+     * @param colOrdinal    the column ordinal
+     * @param stat          the stat to compute
+     * @return              the array of stat values, one per bucket
+     */
+    private Array<?> compute(int colOrdinal, Stat stat) {
+        final double[] values = new double[starts.length];
+        for (int b=0; b<starts.length; ++b) {
+            int count = 0;
+            double result = Double.NaN;
+            for (int p=bounds[b]; p<bounds[b+1]; ++p) {
+                final double value = frame.getDoubleAt(order[p], colOrdinal);
+                if (!Double.isNaN(value)) {
+                    switch (stat) {
+                        case MIN:   result = count == 0 ? value : Math.min(result, value);  break;
+                        case MAX:   result = count == 0 ? value : Math.max(result, value);  break;
+                        default:    result = count == 0 ? value : result + value;           break;
+                    }
+                    count++;
+                }
+            }
+            values[b] = stat == Stat.MEAN && count > 0 ? result / count : result;
+        }
+        return Array.of(values);
+    }
+
+
+    /**
+     * Returns the position in the sorted order of the first or last valid value of a column in a bucket
+     * @param bucket        the bucket index
+     * @param colOrdinal    the column ordinal
+     * @param type          the column type
+     * @param first         true for the first valid value, false for the last
+     * @return              the position in sorted order, -1 if there are no valid values in the bucket
+     */
+    private int find(int bucket, int colOrdinal, ArrayType type, boolean first) {
+        if (first) {
+            for (int p=bounds[bucket]; p<bounds[bucket+1]; ++p) {
+                if (isValid(order[p], colOrdinal, type)) return p;
+            }
+        } else {
+            for (int p=bounds[bucket+1]-1; p>=bounds[bucket]; --p) {
+                if (isValid(order[p], colOrdinal, type)) return p;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Returns true if the value at the coordinates is not null or NaN
+     * @param rowOrdinal    the row ordinal
+     * @param colOrdinal    the column ordinal
+     * @param type          the column type
+     * @return              true if the value is valid
+     */
+    private boolean isValid(int rowOrdinal, int colOrdinal, ArrayType type) {
+        switch (type) {
+            case BOOLEAN:   return true;
+            case INTEGER:   return true;
+            case LONG:      return true;
+            case DOUBLE:    return !Double.isNaN(frame.getDoubleAt(rowOrdinal, colOrdinal));
+            default:        return frame.getValueAt(rowOrdinal, colOrdinal) != null;
+        }
+    }
+
+
+    /**
+     * Copies the value at the coordinates into the target array, preserving primitive types
+     * @param rowOrdinal    the row ordinal
+     * @param colOrdinal    the column ordinal
+     * @param type          the column type
+     * @param target        the target array
+     * @param index         the index in the target array
+     */
+    @SuppressWarnings("unchecked")
+    private void copy(int rowOrdinal, int colOrdinal, ArrayType type, Array<?> target, int index) {
+        switch (type) {
+            case BOOLEAN:   target.setBoolean(index, frame.getBooleanAt(rowOrdinal, colOrdinal));  break;
+            case INTEGER:   target.setInt(index, frame.getIntAt(rowOrdinal, colOrdinal));          break;
+            case LONG:      target.setLong(index, frame.getLongAt(rowOrdinal, colOrdinal));       break;
+            case DOUBLE:    target.setDouble(index, frame.getDoubleAt(rowOrdinal, colOrdinal));   break;
+            default:        ((Array<Object>)target).setValue(index, frame.getValueAt(rowOrdinal, colOrdinal));  break;
+        }
+    }
+
+
+    /**
+     * Returns the array of row keys for the bucket start codes specified
+     * @param codes the bucket start codes
+     * @return      the array of row keys
+     */
+    @SuppressWarnings("unchecked")
+    private Array<R> createKeys(long[] codes) {
+        final Array<R> result = Array.of(rowType, codes.length);
+        for (int i=0; i<codes.length; ++i) {
+            if (zone != null) {
+                result.setValue(i, (R)ZonedDateTime.ofInstant(Instant.ofEpochMilli(codes[i]), zone));
+            } else {
+                result.setLong(i, codes[i]);
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns a frame with the row keys and columns specified
+     * @param rowKeys   the row keys
+     * @param colKeys   the column keys
+     * @param arrays    the column arrays
+     * @return          the newly created frame
+     */
+    private DataFrame<R,C> createFrame(Array<R> rowKeys, List<C> colKeys, Array<?>[] arrays) {
+        return DataFrame.of(rowKeys, frame.cols().keyClass(), columns -> {
+            for (int j=0; j<colKeys.size(); ++j) {
+                columns.add(colKeys.get(j), arrays[j]);
+            }
+        });
+    }
+
+
+    /**
+     * Runs the task for each column index, in parallel if this resampler is parallel
+     * @param colCount  the number of columns
+     * @param task      the task to run for each column index
+     */
+    private void forEachColumn(int colCount, IntConsumer task) {
+        XDataFrameColumnTask.run(frame, colCount, parallel, task);
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+import com.d3x.morpheus.frame.DataFrameOptions;
+import com.d3x.morpheus.util.TaskScheduler;
+
+/**
+ * An execution engine for row-wise operations on a DataFrame that processes rows in tiles.
+ *
+ * <p>
+ * A column store frame keeps each column in its own array, so visiting a row value by value hops across every
+ * column array. This engine instead copies a block of rows into a scratch row major buffer by sweeping down each
+ * column in turn, hands the buffer to a kernel which sees each row as a contiguous slice, and optionally writes the
+ * buffer back to the frame the same way. The tile height is chosen so the buffer stays cache resident.
+ * </p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+class XDataFrameRowTiles<R,C> {
+
+    /** The target number of cells in a tile, which is 128KB of doubles */
+    private static final int TILE_CELLS = 1 << 14;
+
+    private int tileRows;
+    private int[] rowCoords;
+    private int[] colCoords;
+    private XDataFrameContent<R,C> content;
+
+    /**
+     * Constructor
+     * @param frame         the frame to operate on
+     * @param rowOrdinals   the ordinals of the rows to process
+     * @param colOrdinals   the ordinals of the columns that make up each row
+     */
+    XDataFrameRowTiles(XDataFrame<R,C> frame, int[] rowOrdinals, int[] colOrdinals) {
+        this.content = frame.content();
+        this.rowCoords = new int[rowOrdinals.length];
+        this.colCoords = new int[colOrdinals.length];
+        this.tileRows = Math.max(1, TILE_CELLS / Math.max(1, colOrdinals.length));
+        for (int i=0; i<rowOrdinals.length; ++i) {
+            this.rowCoords[i] = content.rowCoordinateAt(rowOrdinals[i]);
+        }
+        for (int j=0; j<colOrdinals.length; ++j) {
+            this.colCoords[j] = content.colCoordinateAt(colOrdinals[j]);
+        }
+    }
+
+
+    /**
+     * Returns a tile engine over all the rows and columns of the frame
+     * @param frame     the frame to operate on
+     * @return          the tile engine
+     */
+    static <R,C> XDataFrameRowTiles<R,C> of(XDataFrame<R,C> frame) {
+        final int[] rowOrdinals = new int[frame.rowCount()];
+        final int[] colOrdinals = new int[frame.colCount()];
+        for (int i=0; i<rowOrdinals.length; ++i) rowOrdinals[i] = i;
+        for (int j=0; j<colOrdinals.length; ++j) colOrdinals[j] = j;
+        return new XDataFrameRowTiles<>(frame, rowOrdinals, colOrdinals);
+    }
+
+
+    /**
+     * Returns the number of rows processed by this engine
+     * @return  the row count
+     */
+    final int rowCount() {
+        return rowCoords.length;
+    }
+
+
+    /**
+     * Returns the number of columns in each row processed by this engine
+     * @return  the column count
+     */
+    final int colCount() {
+        return colCoords.length;
+    }
+
+
+    /**
+     * Applies kernels to all rows, in parallel across tiles if requested
+     * @param parallel      true to process tiles in parallel
+     * @param threshold     the number of rows below which a range is processed sequentially
+     * @param writeBack     true to write each tile back to the frame after the kernel has been applied
+     * @param kernels       the supplier of kernels, called once per sequential range so kernels may hold scratch state
+     */
+    final void apply(boolean parallel, int threshold, boolean writeBack, Supplier<Kernel> kernels) {
+        final TileAction action = new TileAction(0, rowCount(), Math.max(threshold, tileRows), writeBack, kernels);
+        if (parallel) {
+            TaskScheduler.current().invoke(action);
+        } else {
+            action.compute();
+        }
+    }
+
+
+    /**
+     * Applies a kernel to a range of rows sequentially, one tile at a time
+     * @param from          the index of the first row in this engine, inclusive
+     * @param to            the index of the last row in this engine, exclusive
+     * @param writeBack     true to write each tile back to the frame after the kernel has been applied
+     * @param kernel        the kernel to apply to each tile
+     */
+    final void apply(int from, int to, boolean writeBack, Kernel kernel) {
+        final int colCount = colCount();
+        final double[] tile = new double[Math.min(tileRows, Math.max(to - from, 0)) * colCount];
+        for (int first = from; first < to; first += tileRows) {
+            final int rows = Math.min(tileRows, to - first);
+            this.read(tile, first, rows);
+            kernel.apply(tile, first, rows, colCount);
+            if (writeBack) {
+                this.write(tile, first, rows);
+            }
+        }
+    }
+
+
+    /**
+     * Copies a block of rows from the frame into the row major tile
+     * @param tile      the tile buffer
+     * @param first     the index of the first row to copy
+     * @param rows      the number of rows to copy
+     */
+    private void read(double[] tile, int first, int rows) {
+        final int colCount = colCount();
+        if (content.isColumnStore()) {
+            for (int j=0; j<colCount; ++j) {
+                final int colCoord = colCoords[j];
+                for (int i=0; i<rows; ++i) {
+                    tile[i * colCount + j] = content.doubleAt(rowCoords[first + i], colCoord);
+                }
+            }
+        } else {
+            for (int i=0; i<rows; ++i) {
+                final int rowCoord = rowCoords[first + i];
+                for (int j=0; j<colCount; ++j) {
+                    tile[i * colCount + j] = content.doubleAt(rowCoord, colCoords[j]);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Copies a block of rows from the row major tile back into the frame
+     * @param tile      the tile buffer
+     * @param first     the index of the first row to copy
+     * @param rows      the number of rows to copy
+     */
+    private void write(double[] tile, int first, int rows) {
+        final int colCount = colCount();
+        if (content.isColumnStore()) {
+            for (int j=0; j<colCount; ++j) {
+                final int colCoord = colCoords[j];
+                for (int i=0; i<rows; ++i) {
+                    content.doubleAt(rowCoords[first + i], colCoord, tile[i * colCount + j]);
+                }
+            }
+        } else {
+            for (int i=0; i<rows; ++i) {
+                final int rowCoord = rowCoords[first + i];
+                for (int j=0; j<colCount; ++j) {
+                    content.doubleAt(rowCoord, colCoords[j], tile[i * colCount + j]);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns the default row split threshold for the frame, which is sequential unless the frame is parallel
+     * @param frame     the frame reference
+     * @return          the split threshold
+     */
+    static int threshold(XDataFrame<?,?> frame) {
+        return frame.isParallel() ? DataFrameOptions.getRowSplitThreshold(frame) : Integer.MAX_VALUE;
+    }
+
+
+    /**
+     * Returns true if every column of the frame holds doubles, so that tiles can be written back without conversion
+     * @param frame     the frame reference
+     * @return          true if all columns are of type double
+     */
+    static boolean isDoubles(XDataFrame<?,?> frame) {
+        return frame.colCount() > 0 && frame.cols().types().allMatch(type -> type == Double.class);
+    }
+
+
+    /**
+     * An operation applied to a tile of rows laid out in row major order
+     */
+    interface Kernel {
+
+        /**
+         * Applies this kernel to a tile, where row i of the tile occupies [i * colCount, (i + 1) * colCount)
+         * @param tile      the row major tile of values, which may be modified in place
+         * @param first     the index of the first row of the tile in the engine
+         * @param rows      the number of rows in the tile
+         * @param colCount  the number of columns in each row
+         */
+        void apply(double[] tile, int first, int rows, int colCount);
+    }
+
+
+    /**
+     * A RecursiveAction that splits the rows of the engine into ranges and applies a kernel to each range
+     */
+    private class TileAction extends RecursiveAction {
+
+        private int from;
+        private int to;
+        private int threshold;
+        private boolean writeBack;
+        private Supplier<Kernel> kernels;
+
+        /**
+         * Constructor
+         * @param from          the index of the first row, inclusive
+         * @param to            the index of the last row, exclusive
+         * @param threshold     the threshold to trigger parallelism
+         * @param writeBack     true to write tiles back to the frame
+         * @param kernels       the supplier of kernels
+         */
+        TileAction(int from, int to, int threshold, boolean writeBack, Supplier<Kernel> kernels) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.writeBack = writeBack;
+            this.kernels = kernels;
+        }
+
+        @Override
+        protected void compute() {
+            final int count = to - from;
+            if (count > threshold) {
+                final int midPoint = from + count / 2;
+                invokeAll(
+                    new TileAction(from, midPoint, threshold, writeBack, kernels),
+                    new TileAction(midPoint, to, threshold, writeBack, kernels)
+                );
+            } else if (count > 0) {
+                apply(from, to, writeBack, kernels.get());
+            }
+        }
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.d3x.morpheus.reference;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.function.Consumer;
@@ -31,9 +33,12 @@ import com.d3x.morpheus.frame.DataFrameEvent;
 import com.d3x.morpheus.frame.DataFrameException;
 import com.d3x.morpheus.frame.DataFrameGrouping;
 import com.d3x.morpheus.frame.DataFrameOptions;
+import com.d3x.morpheus.frame.DataFrameResample;
+import com.d3x.morpheus.frame.DataFrameWindow;
 import com.d3x.morpheus.frame.DataFrameRow;
 import com.d3x.morpheus.frame.DataFrameRows;
 import com.d3x.morpheus.frame.DataFrameValue;
+import com.d3x.morpheus.stats.Mean;
 import com.d3x.morpheus.stats.StatType;
 import com.d3x.morpheus.util.Parallel;
 import com.d3x.morpheus.util.functions.ToBooleanFunction;
@@ -197,12 +202,32 @@ class XDataFrameRows<R,C> extends XDataFrameAxisBase<R,C,R,C,DataFrameRow<R,C>,D
     public final DataFrame<R,C> demean(boolean inPlace) {
         if (!inPlace) {
             return frame().copy().rows().demean(true);
-        } else {
+        } else if (!XDataFrameRowTiles.isDoubles(frame())) {
             frame().rows().forEach(row -> {
                 var mean = row.stats().mean();
                 row.applyDoubles(v -> v.getDouble() - mean);
             });
             return frame();
+        } else {
+            var tiles = XDataFrameRowTiles.of(frame());
+            var threshold = XDataFrameRowTiles.threshold(frame());
+            tiles.apply(frame().isParallel(), threshold, true, () -> {
+                var mean = new Mean();
+                return (tile, first, rows, colCount) -> {
+                    for (int i=0; i<rows; ++i) {
+                        var offset = i * colCount;
+                        mean.reset();
+                        for (int j=0; j<colCount; ++j) {
+                            mean.add(tile[offset + j]);
+                        }
+                        var value = mean.getValue();
+                        for (int j=0; j<colCount; ++j) {
+                            tile[offset + j] -= value;
+                        }
+                    }
+                };
+            });
+            return frame();
         }
     }
 
@@ -216,6 +241,17 @@ class XDataFrameRows<R,C> extends XDataFrameAxisBase<R,C,R,C,DataFrameRow<R,C>,D
         }
     }
 
+    @Override
+    public final DataFrameResample<R,C> resample(Duration interval) {
+        return new XDataFrameResample<>(frame(), interval, isParallel());
+    }
+
+    @Override
+    @SafeVarargs
+    public final DataFrameWindow<R,C> window(C... partitionBy) {
+        return new XDataFrameWindow<>(frame(), Arrays.asList(partitionBy), null, isParallel());
+    }
+
     @Override
     public final DataFrame<R,StatType> describe(StatType... stats) {
         var rowKeys = filter(DataFrameRow::isNumeric).keyArray();
@@ -21,6 +21,7 @@ import java.util.List;
 
 import com.d3x.morpheus.frame.DataFrameColumn;
 import com.d3x.morpheus.frame.DataFrameRow;
+import com.d3x.morpheus.util.metrics.Metrics;
 
 /**
  * A class that is designed to sort a DataFrame in either the row or column dimension
@@ -68,8 +69,11 @@ class XDataFrameSorter {
      * @return              the sorted DataFrame
      */
     static <R,C> XDataFrame<R,C> sortRows(XDataFrame<R,C> frame, boolean ascending, boolean parallel) {
-        frame.rowKeys().sort(parallel, ascending);
-        return frame;
+        try (var operation = Metrics.start("sort.rows")) {
+            operation.rows(frame.rowCount()).columns(frame.colCount()).parallel(parallel);
+            frame.rowKeys().sort(parallel, ascending);
+            return frame;
+        }
     }
 
 
@@ -81,8 +85,11 @@ class XDataFrameSorter {
      * @return              the sorted DataFrame
      */
     static <R,C> XDataFrame<R,C> sortCols(XDataFrame<R,C> frame, boolean ascending, boolean parallel) {
-        frame.colKeys().sort(parallel, ascending);
-        return frame;
+        try (var operation = Metrics.start("sort.cols")) {
+            operation.rows(frame.rowCount()).columns(frame.colCount()).parallel(parallel);
+            frame.colKeys().sort(parallel, ascending);
+            return frame;
+        }
     }
 
 
@@ -95,11 +102,14 @@ class XDataFrameSorter {
      * @return              the sorted DataFrame
      */
     static <R,C> XDataFrame<R,C> sortRows(XDataFrame<R,C> frame, List<C> colKeys, boolean ascending, boolean parallel) {
-        var multiplier = ascending ? 1 : -1;
-        var result = frame.withRowKeys(frame.rowKeys().copy(false));
-        var comparator = result.content().createRowComparator(colKeys, multiplier);
-        result.rowKeys().sort(parallel, comparator);
-        return result;
+        try (var operation = Metrics.start("sort.rows")) {
+            operation.rows(frame.rowCount()).columns(frame.colCount()).parallel(parallel);
+            var multiplier = ascending ? 1 : -1;
+            var result = frame.withRowKeys(frame.rowKeys().copy(false));
+            var comparator = result.content().createRowComparator(colKeys, multiplier);
+            result.rowKeys().sort(parallel, comparator);
+            return result;
+        }
     }
 
 
@@ -112,11 +122,14 @@ class XDataFrameSorter {
      * @return              the sorted DataFrame
      */
     static <R,C> XDataFrame<R,C> sortCols(XDataFrame<R,C> frame, List<R> rowKeys, boolean ascending, boolean parallel) {
-        var multiplier = ascending ? 1 : -1;
-        var result = frame.withColKeys(frame.colKeys().copy(false));
-        var comparator = result.content().createColComparator(rowKeys, multiplier);
-        result.colKeys().sort(parallel, comparator);
-        return result;
+        try (var operation = Metrics.start("sort.cols")) {
+            operation.rows(frame.rowCount()).columns(frame.colCount()).parallel(parallel);
+            var multiplier = ascending ? 1 : -1;
+            var result = frame.withColKeys(frame.colKeys().copy(false));
+            var comparator = result.content().createColComparator(rowKeys, multiplier);
+            result.colKeys().sort(parallel, comparator);
+            return result;
+        }
     }
 
 
@@ -128,14 +141,17 @@ class XDataFrameSorter {
      * @return              the sorted DataFrame
      */
     static <R,C> XDataFrame<R,C> sortRows(XDataFrame<R,C> frame, boolean parallel, Comparator<DataFrameRow<R,C>> comparator) {
-        var result = frame.withRowKeys(frame.rowKeys().copy(false));
-        if (comparator == null) {
-            result.rowKeys().resetOrder();
-            return result;
-        } else {
-            var rowComparator = XDataFrameComparator.createRowComparator(result, comparator);
-            result.rowKeys().sort(parallel, rowComparator);
-            return result;
+        try (var operation = Metrics.start("sort.rows")) {
+            operation.rows(frame.rowCount()).columns(frame.colCount()).parallel(parallel);
+            var result = frame.withRowKeys(frame.rowKeys().copy(false));
+            if (comparator == null) {
+                result.rowKeys().resetOrder();
+                return result;
+            } else {
+                var rowComparator = XDataFrameComparator.createRowComparator(result, comparator);
+                result.rowKeys().sort(parallel, rowComparator);
+                return result;
+            }
         }
     }
 
@@ -148,14 +164,17 @@ class XDataFrameSorter {
      * @return              the sorted DataFrame
      */
     static <R,C> XDataFrame<R,C> sortCols(XDataFrame<R,C> frame, boolean parallel, Comparator<DataFrameColumn<R,C>> comparator) {
-        var result = frame.withColKeys(frame.colKeys().copy(false));
-        if (comparator == null) {
-            result.colKeys().resetOrder();
-            return result;
-        } else {
-            var colComparator = XDataFrameComparator.createColComparator(result, comparator);
-            result.colKeys().sort(parallel, colComparator);
-            return result;
+        try (var operation = Metrics.start("sort.cols")) {
+            operation.rows(frame.rowCount()).columns(frame.colCount()).parallel(parallel);
+            var result = frame.withColKeys(frame.colKeys().copy(false));
+            if (comparator == null) {
+                result.colKeys().resetOrder();
+                return result;
+            } else {
+                var colComparator = XDataFrameComparator.createColComparator(result, comparator);
+                result.colKeys().sort(parallel, colComparator);
+                return result;
+            }
         }
     }
 }
@@ -15,7 +15,6 @@
  */
 package com.d3x.morpheus.reference;
 
-import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveAction;
 
 import com.d3x.morpheus.frame.DataFrame;
@@ -40,6 +39,10 @@ import com.d3x.morpheus.stats.Sum;
 import com.d3x.morpheus.stats.SumLogs;
 import com.d3x.morpheus.stats.SumSquares;
 import com.d3x.morpheus.stats.Variance;
+import com.d3x.morpheus.util.MemoryBudgetException;
+import com.d3x.morpheus.util.TaskScheduler;
+import com.d3x.morpheus.util.metrics.Metrics;
+import com.d3x.morpheus.util.metrics.MetricsOperation;
 
 /**
  * A convenience base class for building Stats implementations that return bulk statistics
@@ -224,33 +227,97 @@ abstract class XDataFrameStatsBase<R,C> implements Stats<DataFrame<R,C>> {
      * @return              the resulting DataFrame
      */
     protected DataFrame<R,C> compute(Statistic1 statistic) {
-        try {
+        try (MetricsOperation operation = Metrics.start("stats")) {
             final boolean viable = isViable(statistic);
             final XDataFrame<R,C> result = createResult(statistic, viable);
             if (!viable) {
                 return result;
             } else {
                 final StatisticAction action = createStatisticAction(statistic, result);
-                if (isParallel()) {
-                    ForkJoinPool.commonPool().invoke(action);
-                } else {
-                    action.compute();
-                }
+                operation.detail(statistic.getType().name()).rows(result.rowCount()).columns(result.colCount());
+                invoke(action, isParallel(), operation, statistic.getType().name());
                 return result;
             }
+        } catch (MemoryBudgetException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new DataFrameException("Failed to compute statistic on DataFrame", ex);
         }
     }
 
 
+    /**
+     * Invokes a statistic action in the task scheduler or the calling thread, recording splits against the operation
+     * @param action        the statistic action to invoke
+     * @param parallel      true to invoke in the task scheduler
+     * @param operation     the metrics operation for the action
+     * @param name          the name of the statistic, which keys the calibrated cost of the action
+     */
+    static void invoke(StatisticAction action, boolean parallel, MetricsOperation operation, String name) {
+        action.operation = operation.parallel(parallel);
+        action.costKey = action.getClass().getSimpleName() + "." + name;
+        if (parallel) {
+            TaskScheduler.current().invoke(action);
+        } else {
+            action.compute();
+        }
+    }
+
+
     /**
      * Package access inner class that extends RecursiveAction to make compute() accessible.
      */
     static abstract class StatisticAction extends RecursiveAction {
 
+        private int threshold;
+        private String costKey;
+        private MetricsOperation operation;
+
         @Override
         public abstract void compute();
+
+        /**
+         * Returns the element count at or below which this action computes rather than splits, which the root action
+         * resolves from the task scheduler so that the leaf size adapts to the calibrated cost of the statistic
+         * @param count     the number of elements in this action
+         * @param width     the units of work per element
+         * @param fallback  the threshold to use if the statistic is not calibrated, or MAX_VALUE if sequential
+         * @return          the split threshold
+         */
+        int threshold(int count, int width, int fallback) {
+            if (threshold == 0) {
+                final boolean adaptive = costKey != null && fallback != Integer.MAX_VALUE;
+                this.threshold = adaptive ? TaskScheduler.current().getLeafSize(costKey, count, width, fallback) : fallback;
+            }
+            return threshold;
+        }
+
+        /**
+         * Records the time taken by a leaf of this action to calibrate the cost of the statistic
+         * @param units         the units of work done by the leaf
+         * @param startNanos    the nano time when the leaf started
+         */
+        void record(long units, long startNanos) {
+            if (costKey != null) {
+                TaskScheduler.record(costKey, units, System.nanoTime() - startNanos);
+            }
+        }
+
+        /**
+         * Splits this action into the two actions specified and invokes them, recording the split against the operation
+         * @param left      the action for the left half
+         * @param right     the action for the right half
+         */
+        void split(StatisticAction left, StatisticAction right) {
+            left.threshold = right.threshold = threshold;
+            left.costKey = right.costKey = costKey;
+            if (operation != null) {
+                left.operation = operation;
+                right.operation = operation;
+                operation.split();
+            }
+            invokeAll(left, right);
+        }
     }
 
 }
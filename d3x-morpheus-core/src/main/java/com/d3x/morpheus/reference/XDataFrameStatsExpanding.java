@@ -113,8 +113,10 @@ class XDataFrameStatsExpanding<R,C> extends XDataFrameStatsBase<R,C> {
         @Override
         public void compute() {
             final int count = to - from + 1;
-            final int threshold = isParallel() ? DataFrameOptions.getRowSplitThreshold(frame) : Integer.MAX_VALUE;
+            final int width = frame.colCount();
+            final int threshold = threshold(count, width, isParallel() ? DataFrameOptions.getRowSplitThreshold(frame) : Integer.MAX_VALUE);
             if (count <= threshold) {
+                final long startNanos = System.nanoTime();
                 final int colCount = frame.cols().count();
                 final DataFrameCursor<R,C> readCursor = frame.cursor();
                 final DataFrameCursor<R,C> writeCursor = result.cursor();
@@ -135,10 +137,11 @@ class XDataFrameStatsExpanding<R,C> extends XDataFrameStatsBase<R,C> {
                         }
                     }
                 }
+                record((long)count * width, startNanos);
             } else {
                 final int splitCount = (to - from) / 2;
                 final int midPoint = from + splitCount;
-                invokeAll(
+                split(
                     new RowExpandingStatistics(from, midPoint, statistic, result),
                     new RowExpandingStatistics(midPoint+1, to, statistic, result)
                 );
@@ -174,8 +177,10 @@ class XDataFrameStatsExpanding<R,C> extends XDataFrameStatsBase<R,C> {
         @Override
         public void compute() {
             final int count = to - from + 1;
-            final int threshold = isParallel() ? DataFrameOptions.getColumnSplitThreshold(frame) : Integer.MAX_VALUE;
+            final int width = frame.rowCount();
+            final int threshold = threshold(count, width, isParallel() ? DataFrameOptions.getColumnSplitThreshold(frame) : Integer.MAX_VALUE);
             if (count <= threshold) {
+                final long startNanos = System.nanoTime();
                 final int rowCount = frame.rows().count();
                 final DataFrameCursor<R,C> readCursor = frame.cursor();
                 final DataFrameCursor<R,C> writeCursor = result.cursor();
@@ -196,10 +201,11 @@ class XDataFrameStatsExpanding<R,C> extends XDataFrameStatsBase<R,C> {
                         }
                     }
                 }
+                record((long)count * width, startNanos);
             } else {
                 final int splitCount = (to - from) / 2;
                 final int midPoint = from + splitCount;
-                invokeAll(
+                split(
                     new ColumnExpandingStatistics(from, midPoint, statistic, result),
                     new ColumnExpandingStatistics(midPoint + 1, to, statistic, result)
                 );
@@ -116,8 +116,10 @@ class XDataFrameStatsRolling<R,C> extends XDataFrameStatsBase<R,C> {
         @Override
         public void compute() {
             final int count = to - from + 1;
-            final int threshold = isParallel() ? DataFrameOptions.getRowSplitThreshold(frame) : Integer.MAX_VALUE;
+            final int width = frame.colCount();
+            final int threshold = threshold(count, width, isParallel() ? DataFrameOptions.getRowSplitThreshold(frame) : Integer.MAX_VALUE);
             if (count <= threshold) {
+                final long startNanos = System.nanoTime();
                 final int rowCount = frame.rows().count();
                 final int colCount = frame.cols().count();
                 final DataFrameCursor<R,C> readCursor = frame.cursor();
@@ -137,10 +139,11 @@ class XDataFrameStatsRolling<R,C> extends XDataFrameStatsBase<R,C> {
                         writeCursor.setDouble(statValue);
                     }
                 }
+                record((long)count * width, startNanos);
             } else {
                 final int splitCount = (to - from) / 2;
                 final int midPoint = from + splitCount;
-                invokeAll(
+                split(
                     new RowRollingStatistics(from, midPoint, statistic, result),
                     new RowRollingStatistics(midPoint+1, to, statistic, result)
                 );
@@ -176,8 +179,10 @@ class XDataFrameStatsRolling<R,C> extends XDataFrameStatsBase<R,C> {
         @Override
         public void compute() {
             final int count = to - from + 1;
-            final int threshold = isParallel() ? DataFrameOptions.getColumnSplitThreshold(frame) : Integer.MAX_VALUE;
+            final int width = frame.rowCount();
+            final int threshold = threshold(count, width, isParallel() ? DataFrameOptions.getColumnSplitThreshold(frame) : Integer.MAX_VALUE);
             if (count <= threshold) {
+                final long startNanos = System.nanoTime();
                 final int rowCount = frame.rows().count();
                 final int colCount = frame.cols().count();
                 final DataFrameCursor<R,C> readCursor = frame.cursor();
@@ -198,10 +203,11 @@ class XDataFrameStatsRolling<R,C> extends XDataFrameStatsBase<R,C> {
                         writeCursor.setDouble(statValue);
                     }
                 }
+                record((long)count * width, startNanos);
             } else {
                 final int splitCount = (to - from) / 2;
                 final int midPoint = from + splitCount;
-                invokeAll(
+                split(
                     new ColumnRollingStatistics(from, midPoint, statistic, result),
                     new ColumnRollingStatistics(midPoint+1, to, statistic, result)
                 );
@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference;
+
+import java.util.concurrent.RecursiveAction;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayType;
+import com.d3x.morpheus.util.TaskScheduler;
+
+/**
+ * A tiled and multi-threaded block copy used to materialize the transpose of a column store into a new column store
+ *
+ * <p>
+ * Each source row becomes a target column, so a naive copy either reads or writes with a stride of one array per
+ * element. This kernel walks the matrix in square tiles small enough that the source cache lines touched by one
+ * target column are still resident when the next target column in the same tile is filled. Homogeneous boolean,
+ * int, long and double frames are copied into raw primitive arrays, while all other frames are copied by value
+ * into arrays of the common type. In parallel mode, the source rows are recursively split into blocks aligned to
+ * the tile size, each of which writes to a disjoint set of target columns.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+class XDataFrameTranspose {
+
+    static final String COST_KEY = "Transpose";
+
+    private static final int TILE = 64;
+
+    private int[] rowCoords;
+    private Array<?>[] source;
+    private ArrayType arrayType;
+    private Object[] target;
+
+    /**
+     * Constructor
+     * @param source    the source column arrays in column ordinal order
+     * @param rowCoords the source row coordinates in row ordinal order
+     * @param arrayType the array type for primitive target arrays, null to copy values into the arrays in target
+     * @param target    the target arrays, one per source row, pre-allocated if copying values
+     */
+    private XDataFrameTranspose(Array<?>[] source, int[] rowCoords, ArrayType arrayType, Object[] target) {
+        this.source = source;
+        this.rowCoords = rowCoords;
+        this.arrayType = arrayType;
+        this.target = target;
+    }
+
+
+    /**
+     * Returns true if the array type can be copied into raw primitive arrays
+     * @param arrayType the array type of the source columns
+     * @return          true for boolean, int, long and double arrays
+     */
+    static boolean isPrimitive(ArrayType arrayType) {
+        switch (arrayType) {
+            case BOOLEAN:   return true;
+            case INTEGER:   return true;
+            case LONG:      return true;
+            case DOUBLE:    return true;
+            default:        return false;
+        }
+    }
+
+
+    /**
+     * Copies the transpose of the source columns into newly created primitive arrays
+     * @param source    the source column arrays in column ordinal order
+     * @param rowCoords the source row coordinates in row ordinal order
+     * @param arrayType the array type of all source columns, which must be primitive
+     * @param parallel  true to copy tiles in parallel
+     * @return          the target column arrays, one per source row
+     */
+    static Array<?>[] transpose(Array<?>[] source, int[] rowCoords, ArrayType arrayType, boolean parallel) {
+        final int length = source.length;
+        final Object[] target = new Object[rowCoords.length];
+        for (int i=0; i<target.length; ++i) {
+            switch (arrayType) {
+                case BOOLEAN:   target[i] = new boolean[length];    break;
+                case INTEGER:   target[i] = new int[length];        break;
+                case LONG:      target[i] = new long[length];       break;
+                case DOUBLE:    target[i] = new double[length];     break;
+                default:    throw new IllegalArgumentException("Unsupported primitive array type: " + arrayType);
+            }
+        }
+        new XDataFrameTranspose(source, rowCoords, arrayType, target).run(parallel);
+        final Array<?>[] result = new Array<?>[target.length];
+        for (int i=0; i<target.length; ++i) {
+            switch (arrayType) {
+                case BOOLEAN:   result[i] = Array.of((boolean[])target[i]);  break;
+                case INTEGER:   result[i] = Array.of((int[])target[i]);      break;
+                case LONG:      result[i] = Array.of((long[])target[i]);     break;
+                case DOUBLE:    result[i] = Array.of((double[])target[i]);   break;
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Copies the transpose of the source columns by value into the target arrays provided
+     * @param source    the source column arrays in column ordinal order
+     * @param rowCoords the source row coordinates in row ordinal order
+     * @param target    the target column arrays, one per source row, each with a length of at least the source column count
+     * @param parallel  true to copy tiles in parallel
+     */
+    static void transpose(Array<?>[] source, int[] rowCoords, Array<?>[] target, boolean parallel) {
+        new XDataFrameTranspose(source, rowCoords, null, target).run(parallel);
+    }
+
+
+    /**
+     * Runs the copy over all tiles, either sequentially or in parallel
+     * @param parallel  true to copy tiles in parallel
+     */
+    private void run(boolean parallel) {
+        final int count = rowCoords.length * source.length;
+        if (count > 0 && parallel) {
+            final TaskScheduler scheduler = TaskScheduler.current();
+            final int fallback = Math.max(TILE * TILE, count / Runtime.getRuntime().availableProcessors());
+            final int threshold = scheduler.getLeafSize(COST_KEY, count, 1, fallback);
+            scheduler.invoke(new Block(0, rowCoords.length, threshold));
+        } else if (count > 0) {
+            new Block(0, rowCoords.length, Integer.MAX_VALUE).compute();
+        }
+    }
+
+
+    /**
+     * Copies the source rows in the range specified in square tiles
+     * @param rowStart  the first source row ordinal, inclusive
+     * @param rowEnd    the last source row ordinal, exclusive
+     */
+    private void copy(int rowStart, int rowEnd) {
+        for (int i0=rowStart; i0<rowEnd; i0 += TILE) {
+            final int i1 = Math.min(i0 + TILE, rowEnd);
+            for (int j0=0; j0<source.length; j0 += TILE) {
+                final int j1 = Math.min(j0 + TILE, source.length);
+                if (arrayType == null) {
+                    copyValues(i0, i1, j0, j1);
+                } else {
+                    switch (arrayType) {
+                        case BOOLEAN:   copyBooleans(i0, i1, j0, j1);   break;
+                        case INTEGER:   copyInts(i0, i1, j0, j1);       break;
+                        case LONG:      copyLongs(i0, i1, j0, j1);      break;
+                        case DOUBLE:    copyDoubles(i0, i1, j0, j1);    break;
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Copies a tile of boolean values
+     * @param i0    the first source row ordinal, inclusive
+     * @param i1    the last source row ordinal, exclusive
+     * @param j0    the first source column ordinal, inclusive
+     * @param j1    the last source column ordinal, exclusive
+     */
+    private void copyBooleans(int i0, int i1, int j0, int j1) {
+        for (int i=i0; i<i1; ++i) {
+            final int rowCoord = rowCoords[i];
+            final boolean[] values = (boolean[])target[i];
+            for (int j=j0; j<j1; ++j) {
+                values[j] = source[j].getBoolean(rowCoord);
+            }
+        }
+    }
+
+
+    /**
+     * Copies a tile of int values
+     * @param i0    the first source row ordinal, inclusive
+     * @param i1    the last source row ordinal, exclusive
+     * @param j0    the first source column ordinal, inclusive
+     * @param j1    the last source column ordinal, exclusive
+     */
+    private void copyInts(int i0, int i1, int j0, int j1) {
+        for (int i=i0; i<i1; ++i) {
+            final int rowCoord = rowCoords[i];
+            final int[] values = (int[])target[i];
+            for (int j=j0; j<j1; ++j) {
+                values[j] = source[j].getInt(rowCoord);
+            }
+        }
+    }
+
+
+    /**
+     * Copies a tile of long values
+     * @param i0    the first source row ordinal, inclusive
+     * @param i1    the last source row ordinal, exclusive
+     * @param j0    the first source column ordinal, inclusive
+     * @param j1    the last source column ordinal, exclusive
+     */
+    private void copyLongs(int i0, int i1, int j0, int j1) {
+        for (int i=i0; i<i1; ++i) {
+            final int rowCoord = rowCoords[i];
+            final long[] values = (long[])target[i];
+            for (int j=j0; j<j1; ++j) {
+                values[j] = source[j].getLong(rowCoord);
+            }
+        }
+    }
+
+
+    /**
+     * Copies a tile of double values
+     * @param i0    the first source row ordinal, inclusive
+     * @param i1    the last source row ordinal, exclusive
+     * @param j0    the first source column ordinal, inclusive
+     * @param j1    the last source column ordinal, exclusive
+     */
+    private void copyDoubles(int i0, int i1, int j0, int j1) {
+        for (int i=i0; i<i1; ++i) {
+            final int rowCoord = rowCoords[i];
+            final double[] values = (double[])target[i];
+            for (int j=j0; j<j1; ++j) {
+                values[j] = source[j].getDouble(rowCoord);
+            }
+        }
+    }
+
+
+    /**
+     * Copies a tile of values of any type
+     * @param i0    the first source row ordinal, inclusive
+     * @param i1    the last source row ordinal, exclusive
+     * @param j0    the first source column ordinal, inclusive
+     * @param j1    the last source column ordinal, exclusive
+     */
+    @SuppressWarnings("unchecked")
+    private void copyValues(int i0, int i1, int j0, int j1) {
+        for (int i=i0; i<i1; ++i) {
+            final int rowCoord = rowCoords[i];
+            final Array<Object> values = (Array<Object>)target[i];
+            for (int j=j0; j<j1; ++j) {
+                values.setValue(j, source[j].getValue(rowCoord));
+            }
+        }
+    }
+
+
+    /**
+     * A recursive task that splits the source rows into blocks aligned to the tile size
+     */
+    private class Block extends RecursiveAction {
+
+        private int rowStart;
+        private int rowEnd;
+        private int threshold;
+
+        /**
+         * Constructor
+         * @param rowStart  the first source row ordinal, inclusive
+         * @param rowEnd    the last source row ordinal, exclusive
+         * @param threshold the number of elements below which not to split
+         */
+        private Block(int rowStart, int rowEnd, int threshold) {
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            final int rows = rowEnd - rowStart;
+            if ((long)rows * source.length > threshold && rows > TILE) {
+                final int half = rowStart + (rows / 2 + TILE - 1) / TILE * TILE;
+                invokeAll(
+                    new Block(rowStart, half, threshold),
+                    new Block(half, rowEnd, threshold)
+                );
+            } else {
+                final long startNanos = System.nanoTime();
+                copy(rowStart, rowEnd);
+                TaskScheduler.record(COST_KEY, (long)rows * source.length, System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
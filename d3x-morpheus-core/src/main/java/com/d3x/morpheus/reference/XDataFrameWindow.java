@@ -0,0 +1,649 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayType;
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameAggregator;
+import com.d3x.morpheus.frame.DataFrameException;
+import com.d3x.morpheus.frame.DataFrameOptions;
+import com.d3x.morpheus.frame.DataFrameWindow;
+import com.d3x.morpheus.stats.Ranker;
+import com.d3x.morpheus.util.SortAlgorithm;
+import com.d3x.morpheus.util.TaskScheduler;
+
+/**
+ * The reference implementation of the DataFrameWindow interface
+ *
+ * <p>
+ * The partition columns are reduced to integer key ordinals, and the row ordinals are argsorted once by partition
+ * ordinals, then the order-by column, then row ordinal, which makes each partition a contiguous slice of the sort
+ * order. A function gathers its column into a primitive array in sort order, runs its kernel over each partition
+ * slice, with partitions processed in parallel if the frame is parallel, and scatters the results back to row order.
+ * The sort order and partition bounds are computed on first use and cached with a snapshot of the row coordinates
+ * and of the partition and order-by values. Each later call checks the snapshot in one linear pass and only repeats
+ * the argsort if rows were added, removed or reordered, or those values changed. Rolling aggregations slide the window incrementally where the aggregator supports removal, and
+ * use a monotonic queue for min and max, so each partition is processed in time linear in its length.
+ * </p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+class XDataFrameWindow<R,C> implements DataFrameWindow<R,C> {
+
+    private XDataFrame<R,C> frame;
+    private List<C> partitionBy;
+    private C orderBy;
+    private boolean parallel;
+    private volatile Partitions partitions;
+
+
+    /**
+     * Constructor
+     * @param frame         the frame to operate on
+     * @param partitionBy   the columns that define the partitions
+     * @param orderBy       the column to order rows within partitions, null for row order
+     * @param parallel      true to process partitions in parallel
+     */
+    XDataFrameWindow(XDataFrame<R,C> frame, List<C> partitionBy, C orderBy, boolean parallel) {
+        this.frame = frame;
+        this.partitionBy = new ArrayList<>(partitionBy);
+        this.orderBy = orderBy;
+        this.parallel = parallel;
+        this.partitionBy.forEach(frame.content()::colCoordinateOrFail);
+        if (orderBy != null) {
+            frame.content().colCoordinateOrFail(orderBy);
+        }
+    }
+
+
+    @Override
+    public final DataFrameWindow<R,C> orderBy(C colKey) {
+        return new XDataFrameWindow<>(frame, partitionBy, colKey, parallel);
+    }
+
+
+    @Override
+    public final DataFrame<R,C> shift(C colKey, int periods) {
+        return apply(colKey, () -> (values, result, from, to) -> {
+            for (int i=from; i<to; ++i) {
+                final int source = i - periods;
+                result[i] = source >= from && source < to ? values[source] : Double.NaN;
+            }
+        });
+    }
+
+
+    @Override
+    public final DataFrame<R,C> diff(C colKey, int periods) {
+        return apply(colKey, () -> (values, result, from, to) -> {
+            for (int i=from; i<to; ++i) {
+                final int source = i - periods;
+                result[i] = source >= from && source < to ? values[i] - values[source] : Double.NaN;
+            }
+        });
+    }
+
+
+    @Override
+    public final DataFrame<R,C> cumsum(C colKey) {
+        return apply(colKey, () -> (values, result, from, to) -> {
+            double sum = 0d;
+            for (int i=from; i<to; ++i) {
+                final double value = values[i];
+                if (Double.isNaN(value)) {
+                    result[i] = Double.NaN;
+                } else {
+                    sum += value;
+                    result[i] = sum;
+                }
+            }
+        });
+    }
+
+
+    @Override
+    public final DataFrame<R,C> cumprod(C colKey) {
+        return apply(colKey, () -> (values, result, from, to) -> {
+            double product = 1d;
+            for (int i=from; i<to; ++i) {
+                final double value = values[i];
+                if (Double.isNaN(value)) {
+                    result[i] = Double.NaN;
+                } else {
+                    product *= value;
+                    result[i] = product;
+                }
+            }
+        });
+    }
+
+
+    @Override
+    public final DataFrame<R,C> rolling(C colKey, int windowSize, DataFrameAggregator aggregator) {
+        if (windowSize < 1) {
+            throw new DataFrameException("The rolling window size must be greater than zero: " + windowSize);
+        } else {
+            if (aggregator instanceof DataFrameAggregator.MinMax) {
+                final boolean min = ((DataFrameAggregator.MinMax)aggregator).isMin();
+                return apply(colKey, () -> extremeKernel(windowSize, min));
+            } else if (aggregator.isRemovable()) {
+                return apply(colKey, () -> slidingKernel(windowSize, aggregator));
+            } else {
+                return apply(colKey, () -> {
+                    final double[] state = new double[aggregator.width()];
+                    return (values, result, from, to) -> {
+                        for (int i=from; i<to; ++i) {
+                            if (i - from + 1 < windowSize) {
+                                result[i] = Double.NaN;
+                            } else {
+                                aggregator.init(state, 0);
+                                for (int k=i-windowSize+1; k<=i; ++k) {
+                                    aggregator.add(state, 0, values[k]);
+                                }
+                                result[i] = aggregator.result(state, 0);
+                            }
+                        }
+                    };
+                });
+            }
+        }
+    }
+
+
+    /**
+     * Returns a rolling kernel that adds the entering value and removes the leaving value at each step,
+     * where the state is refolded from scratch once every window length to bound rounding drift, and whenever
+     * an infinite value is in or leaving the window, since infinities cannot be retracted from a sum.
+     * @param windowSize    the window size
+     * @param aggregator    the removable aggregator
+     * @return              the kernel
+     */
+    private static Kernel slidingKernel(int windowSize, DataFrameAggregator aggregator) {
+        final double[] state = new double[aggregator.width()];
+        return (values, result, from, to) -> {
+            int infinite = 0;
+            int refolded = from;
+            aggregator.init(state, 0);
+            for (int i=from; i<to; ++i) {
+                final int start = Math.max(from, i - windowSize + 1);
+                final boolean leaving = start > from && Double.isInfinite(values[start-1]);
+                if (Double.isInfinite(values[i])) infinite++;
+                if (leaving) infinite--;
+                if (infinite > 0 || leaving || i - refolded >= windowSize) {
+                    aggregator.init(state, 0);
+                    for (int k=start; k<=i; ++k) {
+                        aggregator.add(state, 0, values[k]);
+                    }
+                    refolded = i;
+                } else {
+                    if (start > from) {
+                        aggregator.remove(state, 0, values[start-1]);
+                    }
+                    aggregator.add(state, 0, values[i]);
+                }
+                result[i] = i - from + 1 < windowSize ? Double.NaN : aggregator.result(state, 0);
+            }
+        };
+    }
+
+
+    /**
+     * Returns a rolling kernel for min or max which keeps a monotonic queue of the non-NaN candidates in the window
+     * @param windowSize    the window size
+     * @param min           true for the rolling minimum, false for the maximum
+     * @return              the kernel
+     */
+    private static Kernel extremeKernel(int windowSize, boolean min) {
+        return new Kernel() {
+            private int[] queue = new int[0];
+            @Override
+            public void apply(double[] values, double[] result, int from, int to) {
+                if (queue.length < to - from) {
+                    this.queue = new int[to - from];
+                }
+                int head = 0;
+                int tail = 0;
+                for (int i=from; i<to; ++i) {
+                    final double value = values[i];
+                    if (!Double.isNaN(value)) {
+                        while (tail > head && (min ? values[queue[tail-1]] >= value : values[queue[tail-1]] <= value)) {
+                            tail--;
+                        }
+                        queue[tail++] = i;
+                    }
+                    while (tail > head && queue[head] <= i - windowSize) {
+                        head++;
+                    }
+                    if (i - from + 1 < windowSize || head == tail) {
+                        result[i] = Double.NaN;
+                    } else {
+                        result[i] = values[queue[head]];
+                    }
+                }
+            }
+        };
+    }
+
+
+    @Override
+    public final DataFrame<R,C> rank(C colKey) {
+        final Ranker ranker = XDataFrameRank.ranker();
+        return apply(colKey, () -> {
+            final Ranker local = ranker.copy();
+            return (values, result, from, to) -> {
+                final int length = to - from;
+                final double[] ranks = new double[length];
+                System.arraycopy(values, from, ranks, 0, length);
+                local.rank(ranks, length, ranks);
+                System.arraycopy(ranks, 0, result, from, length);
+            };
+        });
+    }
+
+
+    /**
+     * Applies a kernel to each partition of a column and returns the results in row order
+     * @param colKey    the numeric column key
+     * @param kernels   the supplier of a kernel for each task, which may hold scratch state
+     * @return          the single column frame of results
+     */
+    private DataFrame<R,C> apply(C colKey, Supplier<Kernel> kernels) {
+        final XDataFrameContent<R,C> content = frame.content();
+        final int colCoord = content.colCoordinateOrFail(colKey);
+        if (!ArrayType.of(frame.cols().type(colKey)).isNumeric()) {
+            throw new DataFrameException("The window function column must be numeric: " + colKey);
+        } else {
+            final Partitions partitions = partitions();
+            final int[] rowCoords = partitions.rowCoords;
+            final int[] order = partitions.order;
+            final int[] bounds = partitions.bounds;
+            final int rowCount = order.length;
+            final double[] values = new double[rowCount];
+            final double[] result = new double[rowCount];
+            for (int p=0; p<rowCount; ++p) {
+                values[p] = content.doubleAt(rowCoords[order[p]], colCoord);
+            }
+            final int partitionCount = bounds.length - 1;
+            final int threshold = parallel ? DataFrameOptions.getRowSplitThreshold(frame) : Integer.MAX_VALUE;
+            final WindowTask task = new WindowTask(kernels, values, result, bounds, 0, partitionCount, threshold);
+            if (parallel && rowCount > threshold && partitionCount > 1) {
+                TaskScheduler.current().invoke(task);
+            } else {
+                task.compute();
+            }
+            final double[] output = new double[rowCount];
+            for (int p=0; p<rowCount; ++p) {
+                output[order[p]] = result[p];
+            }
+            return DataFrame.of(frame.rows().keyArray(), frame.cols().keyClass(), columns -> {
+                columns.add(colKey, Array.of(output));
+            });
+        }
+    }
+
+
+    /**
+     * Returns the cached partitions if they still match the frame, otherwise computes and caches new partitions
+     * @return  the partitions of the frame
+     */
+    private Partitions partitions() {
+        final Partitions current = this.partitions;
+        if (current != null && current.matches(frame, columns())) {
+            return current;
+        } else {
+            final Partitions result = partition();
+            this.partitions = result;
+            return result;
+        }
+    }
+
+
+    /**
+     * Returns the partition columns followed by the order-by column if any, which are the columns the partitions depend on
+     * @return  the list of columns that define the partitions
+     */
+    private List<C> columns() {
+        if (orderBy == null) {
+            return partitionBy;
+        } else {
+            final List<C> result = new ArrayList<>(partitionBy);
+            result.add(orderBy);
+            return result;
+        }
+    }
+
+
+    /**
+     * Computes the sort order of rows and the partition boundaries from the current state of the frame
+     * @return  the partitions of the frame
+     */
+    private Partitions partition() {
+        final XDataFrameContent<R,C> content = frame.content();
+        final int rowCount = frame.rowCount();
+        final int[] rowCoords = new int[rowCount];
+        final int[] order = new int[rowCount];
+        for (int i=0; i<rowCount; ++i) {
+            rowCoords[i] = content.rowCoordinateAt(i);
+            order[i] = i;
+        }
+        final int[][] codes = new int[partitionBy.size()][];
+        for (int k=0; k<codes.length; ++k) {
+            codes[k] = XDataFramePivot.Keys.of(frame, partitionBy.get(k), rowCoords).ordinals();
+        }
+        final ColumnValues orderKey = orderBy != null ? ColumnValues.of(frame, orderBy, rowCoords) : null;
+        if (codes.length > 0 || orderKey != null) {
+            SortAlgorithm.getDefault(parallel).sort(0, rowCount, (i, j) -> {
+                final int left = order[i];
+                final int right = order[j];
+                for (int[] code : codes) {
+                    final int result = Integer.compare(code[left], code[right]);
+                    if (result != 0) return result;
+                }
+                final int result = orderKey != null ? orderKey.compare(left, right) : 0;
+                return result != 0 ? result : Integer.compare(left, right);
+            }, (i, j) -> {
+                final int ordinal = order[i];
+                order[i] = order[j];
+                order[j] = ordinal;
+            });
+        }
+        final int[] bounds = new int[rowCount + 1];
+        int count = 0;
+        for (int p=0; p<rowCount; ++p) {
+            if (p == 0 || !samePartition(codes, order[p-1], order[p])) {
+                bounds[count++] = p;
+            }
+        }
+        bounds[count++] = rowCount;
+        final ColumnValues[] values = new ColumnValues[partitionBy.size() + (orderKey != null ? 1 : 0)];
+        for (int k=0; k<partitionBy.size(); ++k) {
+            values[k] = ColumnValues.of(frame, partitionBy.get(k), rowCoords);
+        }
+        if (orderKey != null) {
+            values[values.length - 1] = orderKey;
+        }
+        return new Partitions(rowCoords, order, Arrays.copyOf(bounds, count), values);
+    }
+
+
+    /**
+     * Returns true if the two rows have the same partition key ordinals
+     * @param codes     the partition key ordinals for each partition column
+     * @param left      the left row ordinal
+     * @param right     the right row ordinal
+     * @return          true if rows are in the same partition
+     */
+    private static boolean samePartition(int[][] codes, int left, int right) {
+        for (int[] code : codes) {
+            if (code[left] != code[right]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * The sort order of rows and the partition boundaries, with a snapshot of the state they were computed from
+     */
+    private static class Partitions {
+
+        private int[] rowCoords;
+        private int[] order;
+        private int[] bounds;
+        private ColumnValues[] values;
+
+        /**
+         * Constructor
+         * @param rowCoords the row coordinates in ordinal order
+         * @param order     the row ordinals in sort order
+         * @param bounds    the start of each partition in sort order, followed by the row count
+         * @param values    the values of the partition columns followed by the order-by column, in ordinal order
+         */
+        Partitions(int[] rowCoords, int[] order, int[] bounds, ColumnValues[] values) {
+            this.rowCoords = rowCoords;
+            this.order = order;
+            this.bounds = bounds;
+            this.values = values;
+        }
+
+        /**
+         * Returns true if the rows of the frame, and the values of the columns these partitions depend on, are unchanged
+         * @param frame     the frame
+         * @param columns   the partition columns followed by the order-by column
+         * @return          true if these partitions are still valid for the frame
+         */
+        <R,C> boolean matches(XDataFrame<R,C> frame, List<C> columns) {
+            final XDataFrameContent<R,C> content = frame.content();
+            if (frame.rowCount() != rowCoords.length) {
+                return false;
+            } else {
+                for (int i=0; i<rowCoords.length; ++i) {
+                    if (content.rowCoordinateAt(i) != rowCoords[i]) {
+                        return false;
+                    }
+                }
+                for (int k=0; k<values.length; ++k) {
+                    if (!values[k].matches(frame, columns.get(k), rowCoords)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+    }
+
+
+    /**
+     * A kernel that computes a window function over a contiguous partition slice
+     */
+    private interface Kernel {
+
+        /**
+         * Computes the window function over a partition slice
+         * @param values    the column values in sort order
+         * @param result    the array to write results into, in sort order
+         * @param from      the start of the partition slice, inclusive
+         * @param to        the end of the partition slice, exclusive
+         */
+        void apply(double[] values, double[] result, int from, int to);
+    }
+
+
+    /**
+     * A snapshot of the values of a column in ordinal order, held as primitives where the column type allows
+     */
+    private static class ColumnValues {
+
+        private long[] longs;
+        private double[] doubles;
+        private Object[] objects;
+
+        /**
+         * Returns a snapshot of the values of a column
+         * @param frame     the source frame
+         * @param colKey    the column key
+         * @param rowCoords the row coordinates in ordinal order
+         * @param <R>       the row key type
+         * @param <C>       the column key type
+         * @return          the column values
+         */
+        static <R,C> ColumnValues of(XDataFrame<R,C> frame, C colKey, int[] rowCoords) {
+            final ColumnValues key = new ColumnValues();
+            final XDataFrameContent<R,C> content = frame.content();
+            final int coord = content.colCoordinateOrFail(colKey);
+            final int rowCount = rowCoords.length;
+            switch (ArrayType.of(frame.cols().type(colKey))) {
+                case INTEGER:
+                    key.longs = new long[rowCount];
+                    for (int i=0; i<rowCount; ++i) key.longs[i] = content.intAt(rowCoords[i], coord);
+                    break;
+                case LONG:
+                case DATE:
+                case INSTANT:
+                case LOCAL_DATE:
+                case LOCAL_TIME:
+                case LOCAL_DATETIME:
+                case ZONED_DATETIME:
+                    key.longs = new long[rowCount];
+                    for (int i=0; i<rowCount; ++i) key.longs[i] = content.longAt(rowCoords[i], coord);
+                    break;
+                case DOUBLE:
+                    key.doubles = new double[rowCount];
+                    for (int i=0; i<rowCount; ++i) key.doubles[i] = content.doubleAt(rowCoords[i], coord);
+                    break;
+                default:
+                    key.objects = new Object[rowCount];
+                    for (int i=0; i<rowCount; ++i) key.objects[i] = content.valueAt(rowCoords[i], coord);
+                    break;
+            }
+            return key;
+        }
+
+        /**
+         * Returns true if the column currently holds the same values as this snapshot, compared without boxing where possible
+         * @param frame     the source frame
+         * @param colKey    the column key
+         * @param rowCoords the row coordinates in ordinal order
+         * @param <R>       the row key type
+         * @param <C>       the column key type
+         * @return          true if the values are unchanged
+         */
+        <R,C> boolean matches(XDataFrame<R,C> frame, C colKey, int[] rowCoords) {
+            final XDataFrameContent<R,C> content = frame.content();
+            final int coord = content.colCoordinateOrFail(colKey);
+            final int rowCount = rowCoords.length;
+            switch (ArrayType.of(frame.cols().type(colKey))) {
+                case INTEGER:
+                    if (longs == null) return false;
+                    for (int i=0; i<rowCount; ++i) if (longs[i] != content.intAt(rowCoords[i], coord)) return false;
+                    return true;
+                case LONG:
+                case DATE:
+                case INSTANT:
+                case LOCAL_DATE:
+                case LOCAL_TIME:
+                case LOCAL_DATETIME:
+                case ZONED_DATETIME:
+                    if (longs == null) return false;
+                    for (int i=0; i<rowCount; ++i) if (longs[i] != content.longAt(rowCoords[i], coord)) return false;
+                    return true;
+                case DOUBLE:
+                    if (doubles == null) return false;
+                    for (int i=0; i<rowCount; ++i) if (Double.compare(doubles[i], content.doubleAt(rowCoords[i], coord)) != 0) return false;
+                    return true;
+                default:
+                    if (objects == null) return false;
+                    for (int i=0; i<rowCount; ++i) if (!Objects.equals(objects[i], content.valueAt(rowCoords[i], coord))) return false;
+                    return true;
+            }
+        }
+
+        /**
+         * Compares the order-by values of two rows, with nulls first
+         * @param left      the left row ordinal
+         * @param right     the right row ordinal
+         * @return          the comparison result
+         */
+        @SuppressWarnings("unchecked")
+        int compare(int left, int right) {
+            if (longs != null) {
+                return Long.compare(longs[left], longs[right]);
+            } else if (doubles != null) {
+                return Double.compare(doubles[left], doubles[right]);
+            } else {
+                final Object v1 = objects[left];
+                final Object v2 = objects[right];
+                if (v1 == v2) {
+                    return 0;
+                } else if (v1 == null) {
+                    return -1;
+                } else if (v2 == null) {
+                    return 1;
+                } else if (v1 instanceof Comparable) {
+                    return ((Comparable<Object>)v1).compareTo(v2);
+                } else {
+                    throw new DataFrameException("The window order-by column values are not comparable: " + v1.getClass());
+                }
+            }
+        }
+    }
+
+
+    /**
+     * A RecursiveAction to apply a kernel to a range of partitions
+     */
+    private static class WindowTask extends RecursiveAction {
+
+        private Supplier<Kernel> kernels;
+        private double[] values;
+        private double[] result;
+        private int[] bounds;
+        private int from;
+        private int to;
+        private int threshold;
+
+        /**
+         * Constructor
+         * @param kernels   the supplier of a kernel for each task
+         * @param values    the column values in sort order
+         * @param result    the array to write results into, in sort order
+         * @param bounds    the start of each partition in sort order, followed by the row count
+         * @param from      the first partition, inclusive
+         * @param to        the last partition, exclusive
+         * @param threshold the number of rows below which partitions are processed sequentially
+         */
+        WindowTask(Supplier<Kernel> kernels, double[] values, double[] result, int[] bounds, int from, int to, int threshold) {
+            this.kernels = kernels;
+            this.values = values;
+            this.result = result;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            final int rows = bounds[to] - bounds[from];
+            if (rows > threshold && to - from > 1) {
+                final int midPoint = from + (to - from) / 2;
+                invokeAll(
+                    new WindowTask(kernels, values, result, bounds, from, midPoint, threshold),
+                    new WindowTask(kernels, values, result, bounds, midPoint, to, threshold)
+                );
+            } else {
+                final Kernel kernel = kernels.get();
+                for (int k=from; k<to; ++k) {
+                    kernel.apply(values, result, bounds[k], bounds[k+1]);
+                }
+            }
+        }
+    }
+}
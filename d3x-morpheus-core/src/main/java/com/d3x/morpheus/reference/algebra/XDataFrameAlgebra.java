@@ -15,7 +15,6 @@
  */
 package com.d3x.morpheus.reference.algebra;
 
-import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveAction;
 
 import com.d3x.morpheus.array.Array;
@@ -25,6 +24,8 @@ import com.d3x.morpheus.frame.DataFrameAlgebra;
 import com.d3x.morpheus.frame.DataFrameColumn;
 import com.d3x.morpheus.frame.DataFrameException;
 import com.d3x.morpheus.util.Asserts;
+import com.d3x.morpheus.util.MemoryBudgetException;
+import com.d3x.morpheus.util.TaskScheduler;
 
 /**
  * A convenience base class for building third-party library specific implementations for DataFrame Linear Algebra functionality.
@@ -64,6 +65,7 @@ public abstract class XDataFrameAlgebra<R,C> implements DataFrameAlgebra<R,C> {
             switch (lib) {
                 case APACHE:    return new XDataFrameAlgebraApache<>(frame);
                 case JAMA:      return new XDataFrameAlgebraJama<>(frame);
+                case BLOCKED:   return new XDataFrameAlgebraBlocked<>(frame);
                 default:        throw new IllegalStateException("Unsupported Linear Algebra library: " + lib);
             }
         }
@@ -106,7 +108,7 @@ public abstract class XDataFrameAlgebra<R,C> implements DataFrameAlgebra<R,C> {
                 }
             });
             return result;
-        } catch (DataFrameException ex) {
+        } catch (DataFrameException | MemoryBudgetException ex) {
             throw ex;
         } catch (Exception ex) {
             throw new DataFrameException("Failed to add scalar value to DataFrame", ex);
@@ -147,7 +149,7 @@ public abstract class XDataFrameAlgebra<R,C> implements DataFrameAlgebra<R,C> {
                 }
             });
             return result;
-        } catch (DataFrameException ex) {
+        } catch (DataFrameException | MemoryBudgetException ex) {
             throw ex;
         } catch (Exception ex) {
             throw new DataFrameException("Failed to add two DataFrames", ex);
@@ -182,7 +184,7 @@ public abstract class XDataFrameAlgebra<R,C> implements DataFrameAlgebra<R,C> {
                 }
             });
             return result;
-        } catch (DataFrameException ex) {
+        } catch (DataFrameException | MemoryBudgetException ex) {
             throw ex;
         } catch (Exception ex) {
             throw new DataFrameException("Failed to subtract scalar value from DataFrame", ex);
@@ -223,7 +225,7 @@ public abstract class XDataFrameAlgebra<R,C> implements DataFrameAlgebra<R,C> {
                 }
             });
             return result;
-        } catch (DataFrameException ex) {
+        } catch (DataFrameException | MemoryBudgetException ex) {
             throw ex;
         } catch (Exception ex) {
             throw new DataFrameException("Failed to subtract two DataFrames", ex);
@@ -258,7 +260,7 @@ public abstract class XDataFrameAlgebra<R,C> implements DataFrameAlgebra<R,C> {
                 }
             });
             return result;
-        } catch (DataFrameException ex) {
+        } catch (DataFrameException | MemoryBudgetException ex) {
             throw ex;
         } catch (Exception ex) {
             throw new DataFrameException("Failed to multiply DataFrame by scalar", ex);
@@ -299,6 +301,8 @@ public abstract class XDataFrameAlgebra<R,C> implements DataFrameAlgebra<R,C> {
                 }
             });
             return result;
+        } catch (DataFrameException | MemoryBudgetException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new DataFrameException("Failed to multiply two DataFrames", ex);
         }
@@ -313,16 +317,23 @@ public abstract class XDataFrameAlgebra<R,C> implements DataFrameAlgebra<R,C> {
             final Array<Y> colKeys = right.cols().keyArray();
             final DataFrame<R,Y> result = DataFrame.ofDoubles(rowKeys, colKeys);
             final int count = result.rowCount() * result.colCount();
-            if (frame().isParallel()) {
-                final int threshold = Math.max(10, count / Runtime.getRuntime().availableProcessors());
+            Asserts.check(left.colCount() == right.rowCount(), "The column count of the left frame must match the row count of the right frame");
+            if (XDataFrameGemm.isSupported(left, right)) {
+                XDataFrameGemm.multiply(left, right, result);
+            } else if (frame().isParallel()) {
+                final TaskScheduler scheduler = TaskScheduler.current();
+                final int fallback = Math.max(10, count / Runtime.getRuntime().availableProcessors());
+                final int threshold = scheduler.getLeafSize(DotProduct.COST_KEY, count, left.colCount(), fallback);
                 final DotProduct action = new DotProduct(left, right, result, 0, count, threshold);
-                ForkJoinPool.commonPool().invoke(action);
+                scheduler.invoke(action);
             } else {
                 final int threshold = Integer.MAX_VALUE;
                 final DotProduct action = new DotProduct(left, right, result, 0, count, threshold);
                 action.compute();
             }
             return result;
+        } catch (DataFrameException | MemoryBudgetException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new DataFrameException("Failed to calculate the dot product of two DataFrames", ex);
         }
@@ -357,7 +368,7 @@ public abstract class XDataFrameAlgebra<R,C> implements DataFrameAlgebra<R,C> {
                 }
             });
             return result;
-        } catch (DataFrameException ex) {
+        } catch (DataFrameException | MemoryBudgetException ex) {
             throw ex;
         } catch (Exception ex) {
             throw new DataFrameException("Failed to divide DataFrame by scalar", ex);
@@ -398,7 +409,7 @@ public abstract class XDataFrameAlgebra<R,C> implements DataFrameAlgebra<R,C> {
                 }
             });
             return result;
-        } catch (DataFrameException ex) {
+        } catch (DataFrameException | MemoryBudgetException ex) {
             throw ex;
         } catch (Exception ex) {
             throw new DataFrameException("Failed to divide two DataFrames", ex);
@@ -412,6 +423,8 @@ public abstract class XDataFrameAlgebra<R,C> implements DataFrameAlgebra<R,C> {
      */
     private class DotProduct extends RecursiveAction {
 
+        private static final String COST_KEY = "DotProduct";
+
         private int offset;
         private int length;
         private int threshold;
@@ -449,6 +462,7 @@ public abstract class XDataFrameAlgebra<R,C> implements DataFrameAlgebra<R,C> {
                         new DotProduct(left, right, result, offset2, length - halfLength, threshold)
                     );
                 } else {
+                    var startNanos = System.nanoTime();
                     var rowCount = result.rowCount();
                     var innerDim = left.colCount();
                     var cursor = result.cursor();
@@ -468,6 +482,7 @@ public abstract class XDataFrameAlgebra<R,C> implements DataFrameAlgebra<R,C> {
                         }
                         cursor.atOrdinals(rowOrdinal, colOrdinal).setDouble(value);
                     }
+                    TaskScheduler.record(COST_KEY, (long)length * innerDim, System.nanoTime() - startNanos);
                 }
             } catch (Exception ex) {
                 throw new DataFrameException("Failed to compute dot product of two frames", ex);
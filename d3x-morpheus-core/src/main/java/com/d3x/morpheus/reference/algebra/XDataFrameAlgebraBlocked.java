@@ -0,0 +1,367 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference.algebra;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameException;
+import com.d3x.morpheus.jama.EigenDecomposition;
+import com.d3x.morpheus.jama.Matrix;
+import com.d3x.morpheus.jama.SingularValueDecomposition;
+import com.d3x.morpheus.util.LazyValue;
+
+import static com.d3x.morpheus.reference.algebra.XDataFrameAlgebraJama.toDataFrame;
+import static com.d3x.morpheus.reference.algebra.XDataFrameAlgebraJama.toMatrix;
+
+/**
+ * An implementation of the DataFrameAlgebra interface that uses cache blocked decompositions
+ *
+ * <p>
+ * The LU, Cholesky and QR decompositions process the matrix in panels of columns, and apply each panel to the
+ * trailing matrix with updates that are split across rows over the ForkJoinPool when the frame is parallel.
+ * Eigenvalue decompositions of symmetric matrices use a two-stage tridiagonal reduction, while non-symmetric
+ * matrices and singular value decompositions fall back to JAMA.
+ * </p>
+ *
+ * @param <R>   the row key type
+ * @param <C>   the column key type
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+class XDataFrameAlgebraBlocked<R,C> extends XDataFrameAlgebra<R,C> {
+
+    /**
+     * Constructor
+     * @param frame     the frame reference
+     */
+    XDataFrameAlgebraBlocked(DataFrame<R,C> frame) {
+        super(frame);
+    }
+
+    @Override
+    public Decomposition decomp() {
+        return new Decomp(frame());
+    }
+
+
+    @Override
+    public DataFrame<Integer,Integer> inverse() throws DataFrameException {
+        try {
+            final Matrix matrix = toMatrix(frame());
+            final int rowCount = matrix.getRowDimension();
+            final Matrix identity = Matrix.identity(rowCount, rowCount);
+            return toDataFrame(solve(matrix, identity, frame().isParallel()));
+        } catch (Exception ex) {
+            throw new DataFrameException("Failed to compute inverse of DataFrame", ex);
+        }
+    }
+
+    @Override
+    public DataFrame<Integer,Integer> solve(DataFrame<?,?> rhs) throws DataFrameException {
+        try {
+            final Matrix b = toMatrix(rhs);
+            final Matrix a = toMatrix(frame());
+            return toDataFrame(solve(a, b, frame().isParallel()));
+        } catch (Exception ex) {
+            throw new DataFrameException("Failed to solve AX=B for frames", ex);
+        }
+    }
+
+
+    /**
+     * Solves AX = B with an LU decomposition if A is square, otherwise the least squares solution with a QR decomposition
+     * @param a         the coefficient matrix
+     * @param b         the right hand side matrix
+     * @param parallel  true to parallelize the decomposition
+     * @return          the solution matrix
+     */
+    private static Matrix solve(Matrix a, Matrix b, boolean parallel) {
+        if (a.getRowDimension() == a.getColumnDimension()) {
+            return new XDataFrameLU(a, parallel).solve(b);
+        } else {
+            return new XDataFrameQR(a, parallel).solve(b);
+        }
+    }
+
+
+    /**
+     * The Decomposition implementation for the blocked algorithms
+     */
+    private class Decomp implements Decomposition {
+
+        private DataFrame<?,?> frame;
+
+        /**
+         * Constructor
+         * @param frame     the frame reference
+         */
+        Decomp(DataFrame<?,?> frame) {
+            this.frame = frame;
+        }
+
+        @Override
+        public <T> Optional<T> lud(Function<LUD, Optional<T>> handler) {
+            return handler.apply(new XLUD(new XDataFrameLU(toMatrix(frame), frame.isParallel())));
+        }
+
+        @Override
+        public <T> Optional<T> qrd(Function<QRD, Optional<T>> handler) {
+            return handler.apply(new XQRD(new XDataFrameQR(toMatrix(frame), frame.isParallel())));
+        }
+
+        @Override
+        public <T> Optional<T> evd(Function<EVD, Optional<T>> handler) {
+            return handler.apply(new XEVD(toMatrix(frame), frame.isParallel()));
+        }
+
+        @Override
+        public <T> Optional<T> svd(Function<SVD, Optional<T>> handler) {
+            return handler.apply(new XSVD(toMatrix(frame)));
+        }
+
+        @Override
+        public <T> Optional<T> cd(Function<CD, Optional<T>> handler) {
+            return handler.apply(new XCD(new XDataFrameCholesky(toMatrix(frame), frame.isParallel())));
+        }
+
+    }
+
+
+    /**
+     * An implementation of LU Decomposition using the blocked algorithm
+     */
+    private class XLUD implements LUD {
+
+        private XDataFrameLU lud;
+        private LazyValue<DataFrame<Integer,Integer>> l;
+        private LazyValue<DataFrame<Integer,Integer>> u;
+        private LazyValue<DataFrame<Integer,Integer>> p;
+
+        /**
+         * Constructor
+         * @param lud   the blocked LU decomposition
+         */
+        private XLUD(XDataFrameLU lud) {
+            this.lud = lud;
+            this.l = LazyValue.of(() -> toDataFrame(lud.getL()));
+            this.u = LazyValue.of(() -> toDataFrame(lud.getU()));
+            this.p = LazyValue.of(() -> toDataFrame(lud.getP()));
+        }
+
+        @Override
+        public double det() {
+            return lud.det();
+        }
+
+        @Override
+        public boolean isNonSingular() {
+            return lud.isNonSingular();
+        }
+
+        @Override
+        public DataFrame<Integer,Integer> getL() {
+            return l.get();
+        }
+
+        @Override
+        public DataFrame<Integer,Integer> getU() {
+            return u.get();
+        }
+
+        @Override
+        public DataFrame<Integer,Integer> getP() {
+            return p.get();
+        }
+
+        @Override
+        public DataFrame<Integer,Integer> solve(DataFrame<?,?> rhs) {
+            final Matrix b = toMatrix(rhs);
+            final Matrix result = lud.solve(b);
+            return toDataFrame(result);
+        }
+    }
+
+
+    /**
+     * An implementation of QR Decomposition using the blocked Householder algorithm
+     */
+    private class XQRD implements QRD {
+
+        private XDataFrameQR qrd;
+        private LazyValue<DataFrame<Integer,Integer>> q;
+        private LazyValue<DataFrame<Integer,Integer>> r;
+
+        /**
+         * Constructor
+         * @param qrd   the blocked QR decomposition
+         */
+        XQRD(XDataFrameQR qrd) {
+            this.qrd = qrd;
+            this.q = LazyValue.of(() -> toDataFrame(qrd.getQ()));
+            this.r = LazyValue.of(() -> toDataFrame(qrd.getR()));
+        }
+
+        @Override
+        public DataFrame<Integer,Integer> getR() {
+            return r.get();
+        }
+
+        @Override
+        public DataFrame<Integer,Integer> getQ() {
+            return q.get();
+        }
+
+        @Override
+        public DataFrame<Integer,Integer> solve(DataFrame<?,?> rhs) {
+            final Matrix b = toMatrix(rhs);
+            final Matrix result = qrd.solve(b);
+            return toDataFrame(result);
+        }
+    }
+
+
+    /**
+     * An implementation of Eigenvalue Decomposition using the two-stage algorithm for symmetric matrices
+     */
+    private class XEVD implements EVD {
+
+        private Array<Double> eigenValues;
+        private DataFrame<Integer,Integer> d;
+        private DataFrame<Integer,Integer> v;
+
+        /**
+         * Constructor
+         * @param matrix    the input matrix
+         * @param parallel  true to parallelize the decomposition
+         */
+        XEVD(Matrix matrix, boolean parallel) {
+            if (XDataFrameCholesky.isSymmetric(matrix)) {
+                final XDataFrameEigen evd = new XDataFrameEigen(matrix, parallel);
+                this.d = toDataFrame(evd.getD());
+                this.v = toDataFrame(evd.getV());
+                this.eigenValues = Array.of(evd.getRealEigenvalues());
+            } else {
+                final EigenDecomposition evd = new EigenDecomposition(matrix);
+                this.d = toDataFrame(evd.getD());
+                this.v = toDataFrame(evd.getV());
+                this.eigenValues = Array.of(evd.getRealEigenvalues());
+            }
+        }
+
+        @Override
+        public Array<Double> getEigenvalues() {
+            return eigenValues;
+        }
+
+        @Override
+        public DataFrame<Integer,Integer> getD() {
+            return d;
+        }
+
+        @Override
+        public DataFrame<Integer,Integer> getV() {
+            return v;
+        }
+    }
+
+
+    /**
+     * An implementation of Singular Value Decomposition which delegates to JAMA
+     */
+    private class XSVD implements SVD {
+
+        private int rank;
+        private Array<Double> singularValues;
+        private DataFrame<Integer,Integer> u;
+        private DataFrame<Integer,Integer> v;
+        private DataFrame<Integer,Integer> s;
+
+        /**
+         * Constructor
+         * @param x     the input matrix
+         */
+        XSVD(Matrix x) {
+            final SingularValueDecomposition svd = new SingularValueDecomposition(x);
+            this.rank = svd.rank();
+            this.u = toDataFrame(svd.getU());
+            this.v = toDataFrame(svd.getV());
+            this.s = toDataFrame(svd.getS());
+            this.singularValues = Array.of(svd.getSingularValues());
+        }
+
+        @Override
+        public final int rank() {
+            return rank;
+        }
+
+        @Override
+        public final DataFrame<Integer,Integer> getU() {
+            return u;
+        }
+
+        @Override
+        public final DataFrame<Integer,Integer> getV() {
+            return v;
+        }
+
+        @Override
+        public final DataFrame<Integer,Integer> getS() {
+            return s;
+        }
+
+        @Override
+        public final Array<Double> getSingularValues() {
+            return singularValues;
+        }
+    }
+
+
+    /**
+     * An implementation of Cholesky Decomposition using the blocked algorithm
+     */
+    private class XCD implements CD {
+
+        private XDataFrameCholesky cd;
+        private LazyValue<DataFrame<Integer,Integer>> l;
+
+        /**
+         * Constructor
+         * @param cd    the blocked Cholesky decomposition
+         */
+        XCD(XDataFrameCholesky cd) {
+            this.cd = cd;
+            this.l = LazyValue.of(() -> toDataFrame(cd.getL()));
+        }
+
+        @Override
+        public DataFrame<Integer,Integer> getL() {
+            return l.get();
+        }
+
+        @Override
+        public DataFrame<Integer,Integer> solve(DataFrame<?,?> rhs) {
+            final Matrix b = toMatrix(rhs);
+            final Matrix result = cd.solve(b);
+            return toDataFrame(result);
+        }
+    }
+
+}
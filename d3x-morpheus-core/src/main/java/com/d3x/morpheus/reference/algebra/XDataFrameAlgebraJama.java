@@ -85,7 +85,7 @@ class XDataFrameAlgebraJama<R,C> extends XDataFrameAlgebra<R,C> {
      * @param matrix    the JAMA matrix
      * @return          the Morpheus DataFrame
      */
-    private DataFrame<Integer,Integer> toDataFrame(Matrix matrix) {
+    static DataFrame<Integer,Integer> toDataFrame(Matrix matrix) {
         final Range<Integer> rowKeys = Range.of(0, matrix.getRowDimension());
         final Range<Integer> colKeys = Range.of(0, matrix.getColumnDimension());
         return DataFrame.ofDoubles(rowKeys, colKeys, v -> {
@@ -100,7 +100,7 @@ class XDataFrameAlgebraJama<R,C> extends XDataFrameAlgebra<R,C> {
      * @param frame     the DataFrame reference
      * @return          the JAMA matrix
      */
-    private Matrix toMatrix(DataFrame<?,?> frame) {
+    static Matrix toMatrix(DataFrame<?,?> frame) {
         final Matrix matrix = new Matrix(frame.rowCount(), frame.colCount());
         frame.forEachValue(v -> {
             final int i = v.rowOrdinal();
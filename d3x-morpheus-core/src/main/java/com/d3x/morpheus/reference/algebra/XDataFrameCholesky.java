@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference.algebra;
+
+import com.d3x.morpheus.jama.Matrix;
+
+/**
+ * A blocked, right-looking Cholesky decomposition of a symmetric positive definite matrix, which parallelizes the trailing matrix update
+ *
+ * <p>
+ * The columns are processed in panels of <code>NB</code> columns. The diagonal block of each panel is factorized
+ * directly, the panel below it is computed by a triangular solve against that block, and the lower triangle of
+ * the trailing matrix is then updated with a symmetric rank-<code>NB</code> product of the panel with itself. The
+ * panel solve and the trailing update write to disjoint rows, so both are split across rows in parallel mode. The
+ * factor and solutions have the same semantics as the JAMA <code>CholeskyDecomposition</code>.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+class XDataFrameCholesky {
+
+    static final String COST_KEY = "BlockedCholesky";
+
+    private static final int NB = 64;
+
+    private int n;
+    private double[][] l;
+    private boolean spd;
+    private boolean parallel;
+
+    /**
+     * Constructor
+     * @param matrix    the symmetric positive definite matrix to decompose
+     * @param parallel  true to parallelize the trailing matrix updates
+     */
+    XDataFrameCholesky(Matrix matrix, boolean parallel) {
+        this.n = matrix.getRowDimension();
+        this.l = matrix.getArrayCopy();
+        this.parallel = parallel;
+        this.spd = isSymmetric(matrix);
+        for (int k0=0; k0<n; k0 += NB) {
+            final int k1 = Math.min(k0 + NB, n);
+            this.factorDiagonal(k0, k1);
+            this.solvePanel(k0, k1);
+            this.updateTrailing(k0, k1);
+        }
+        for (int i=0; i<n; ++i) {
+            for (int j=i+1; j<n; ++j) {
+                l[i][j] = 0d;
+            }
+        }
+    }
+
+
+    /**
+     * Returns true if the matrix is square and symmetric
+     * @param matrix    the matrix to check
+     * @return          true if square and symmetric
+     */
+    static boolean isSymmetric(Matrix matrix) {
+        final int rows = matrix.getRowDimension();
+        if (matrix.getColumnDimension() != rows) {
+            return false;
+        } else {
+            final double[][] a = matrix.getArray();
+            for (int i=0; i<rows; ++i) {
+                for (int j=0; j<i; ++j) {
+                    if (a[i][j] != a[j][i]) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * Factorizes the diagonal block of the panel of columns [k0, k1)
+     * @param k0    the first column of the panel, inclusive
+     * @param k1    the last column of the panel, exclusive
+     */
+    private void factorDiagonal(int k0, int k1) {
+        for (int j=k0; j<k1; ++j) {
+            final double[] rowj = l[j];
+            double d = 0d;
+            for (int k=k0; k<j; ++k) {
+                final double[] rowk = l[k];
+                double s = rowj[k];
+                for (int i=k0; i<k; ++i) {
+                    s -= rowk[i] * rowj[i];
+                }
+                rowj[k] = s = s / rowk[k];
+                d += s * s;
+            }
+            d = rowj[j] - d;
+            this.spd = spd && d > 0d;
+            rowj[j] = Math.sqrt(Math.max(d, 0d));
+        }
+    }
+
+
+    /**
+     * Computes the panel below the diagonal block by solving with the transpose of the diagonal block
+     * @param k0    the first column of the panel, inclusive
+     * @param k1    the last column of the panel, exclusive
+     */
+    private void solvePanel(int k0, int k1) {
+        final int width = (k1 - k0) * (k1 - k0) / 2;
+        XDataFrameRowTask.run(COST_KEY, k1, n, width, parallel, (from, to) -> {
+            for (int i=from; i<to; ++i) {
+                final double[] rowi = l[i];
+                for (int j=k0; j<k1; ++j) {
+                    final double[] rowj = l[j];
+                    double s = rowi[j];
+                    for (int k=k0; k<j; ++k) {
+                        s -= rowi[k] * rowj[k];
+                    }
+                    rowi[j] = s / rowj[j];
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Applies the symmetric rank update of the panel to the lower triangle of the trailing matrix
+     * @param k0    the first column of the panel, inclusive
+     * @param k1    the last column of the panel, exclusive
+     */
+    private void updateTrailing(int k0, int k1) {
+        final int width = (n - k1) * (k1 - k0) / 2;
+        XDataFrameRowTask.run(COST_KEY, k1, n, width, parallel, (from, to) -> {
+            for (int i=from; i<to; ++i) {
+                final double[] rowi = l[i];
+                for (int j=k1; j<=i; ++j) {
+                    final double[] rowj = l[j];
+                    double s = 0d;
+                    for (int k=k0; k<k1; ++k) {
+                        s += rowi[k] * rowj[k];
+                    }
+                    rowi[j] -= s;
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Returns true if the matrix is symmetric and positive definite
+     * @return  true if symmetric and positive definite
+     */
+    boolean isSPD() {
+        return spd;
+    }
+
+
+    /**
+     * Returns the lower triangular factor L such that A = L * L'
+     * @return  the lower triangular factor
+     */
+    Matrix getL() {
+        return new Matrix(l, n, n).copy();
+    }
+
+
+    /**
+     * Solves A * X = B, splitting the columns of B across threads in parallel mode
+     * @param rhs   the right hand side with as many rows as A
+     * @return      the solution X
+     * @throws IllegalArgumentException if the row dimensions do not agree
+     * @throws RuntimeException         if the matrix is not symmetric positive definite
+     */
+    Matrix solve(Matrix rhs) {
+        if (rhs.getRowDimension() != n) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        } else if (!spd) {
+            throw new RuntimeException("Matrix is not symmetric positive definite.");
+        } else {
+            final int nx = rhs.getColumnDimension();
+            final double[][] x = rhs.getArrayCopy();
+            XDataFrameRowTask.run(COST_KEY, 0, nx, n * n, parallel, (from, to) -> {
+                for (int k=0; k<n; ++k) {
+                    final double[] xk = x[k];
+                    final double[] rowk = l[k];
+                    for (int i=0; i<k; ++i) {
+                        final double factor = rowk[i];
+                        if (factor != 0d) {
+                            final double[] xi = x[i];
+                            for (int j=from; j<to; ++j) {
+                                xk[j] -= factor * xi[j];
+                            }
+                        }
+                    }
+                    for (int j=from; j<to; ++j) {
+                        xk[j] /= rowk[k];
+                    }
+                }
+                for (int k=n-1; k>=0; --k) {
+                    final double[] xk = x[k];
+                    for (int i=k+1; i<n; ++i) {
+                        final double factor = l[i][k];
+                        if (factor != 0d) {
+                            final double[] xi = x[i];
+                            for (int j=from; j<to; ++j) {
+                                xk[j] -= factor * xi[j];
+                            }
+                        }
+                    }
+                    for (int j=from; j<to; ++j) {
+                        xk[j] /= l[k][k];
+                    }
+                }
+            });
+            return new Matrix(x, n, nx);
+        }
+    }
+}
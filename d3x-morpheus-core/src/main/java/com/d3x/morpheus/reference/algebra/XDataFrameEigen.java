@@ -0,0 +1,487 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference.algebra;
+
+import java.util.Arrays;
+
+import com.d3x.morpheus.jama.Maths;
+import com.d3x.morpheus.jama.Matrix;
+
+/**
+ * A two-stage eigenvalue decomposition of a symmetric matrix, which parallelizes the updates of the first stage and the eigenvector accumulation
+ *
+ * <p>
+ * The first stage reduces the matrix to a band matrix with a half bandwidth of <code>NB</code>, by computing a blocked
+ * Householder QR factorization of each block of <code>NB</code> columns below the band, and applying the resulting
+ * block reflection <code>I - V T V'</code> to both sides of the trailing matrix with matrix products that are split
+ * across rows in parallel mode. The second stage reduces the band matrix to tridiagonal form with Givens rotations,
+ * chasing each bulge down the band, which only touches <code>O(NB)</code> elements per rotation. The eigenvalues and
+ * eigenvectors of the tridiagonal matrix are then computed with the implicit QL algorithm used by JAMA. The rotations
+ * of the second and third stages are recorded per sweep, and applied to the rows of the eigenvector matrix in parallel.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+class XDataFrameEigen {
+
+    static final String COST_KEY = "BlockedEigen";
+
+    private static final int NB = 32;
+
+    private int n;
+    private double[] d;
+    private double[] e;
+    private double[][] a;
+    private double[][] v;
+    private boolean parallel;
+    private Rotations rotations;
+
+    /**
+     * Constructor
+     * @param matrix    the symmetric matrix to decompose
+     * @param parallel  true to parallelize the updates
+     */
+    XDataFrameEigen(Matrix matrix, boolean parallel) {
+        this.n = matrix.getRowDimension();
+        this.a = matrix.getArrayCopy();
+        this.d = new double[n];
+        this.e = new double[n];
+        this.v = new double[n][n];
+        this.parallel = parallel;
+        this.rotations = new Rotations(n);
+        for (int i=0; i<n; ++i) v[i][i] = 1d;
+        if (n > 0) {
+            final int band = Math.max(1, Math.min(NB, n - 1));
+            this.reduceToBand(band);
+            this.reduceToTridiagonal(band);
+            for (int i=0; i<n; ++i) {
+                d[i] = a[i][i];
+                e[i] = i < n - 1 ? a[i + 1][i] : 0d;
+            }
+            this.a = null;
+            this.tql2();
+        }
+    }
+
+
+    /**
+     * Returns the eigenvector matrix
+     * @return  the matrix whose columns are the eigenvectors
+     */
+    Matrix getV() {
+        return new Matrix(v, n, n);
+    }
+
+
+    /**
+     * Returns the eigenvalues in ascending order
+     * @return  the eigenvalues
+     */
+    double[] getRealEigenvalues() {
+        return d;
+    }
+
+
+    /**
+     * Returns the diagonal matrix of eigenvalues
+     * @return  the diagonal eigenvalue matrix
+     */
+    Matrix getD() {
+        final Matrix result = new Matrix(n, n);
+        for (int i=0; i<n; ++i) {
+            result.set(i, i, d[i]);
+        }
+        return result;
+    }
+
+
+    /**
+     * Reduces the symmetric matrix to a band matrix by applying block reflections to both sides
+     * @param band  the half bandwidth
+     */
+    private void reduceToBand(int band) {
+        final double[] rdiag = new double[n];
+        for (int k0=0; k0 + band < n - 1; k0 += band) {
+            final int r0 = k0 + band;
+            final int t = n - r0;
+            final int h = Math.min(band, t - 1);
+            final double[][] tm = XDataFrameQR.factorPanel(a, r0, n, k0, h, k0 + band, rdiag);
+            final double[][] vk = new double[t][h];
+            for (int i=0; i<t; ++i) {
+                final double[] row = a[r0 + i];
+                for (int p=0; p<h && p<=i; ++p) {
+                    final int col = k0 + p;
+                    vk[i][p] = row[col];
+                    row[col] = i == p ? rdiag[col] : 0d;
+                }
+            }
+            for (int col=k0; col<r0; ++col) {
+                for (int i=r0; i<n; ++i) {
+                    a[col][i] = a[i][col];
+                }
+            }
+            this.updateTrailing(r0, vk, tm);
+            this.accumulate(r0, vk, tm);
+        }
+    }
+
+
+    /**
+     * Applies the block reflection Q = I - V T V' to both sides of the trailing matrix, as in Q' S Q = S - V W' - W V'
+     * @param r0    the first row and column of the trailing matrix
+     * @param vk    the t x h Householder vectors
+     * @param tm    the h x h upper triangular factor
+     */
+    private void updateTrailing(int r0, double[][] vk, double[][] tm) {
+        final int t = vk.length;
+        final int h = tm.length;
+        final double[][] vt = new double[t][h];
+        for (int i=0; i<t; ++i) {
+            for (int q=0; q<h; ++q) {
+                double sum = 0d;
+                for (int p=0; p<=q; ++p) {
+                    sum += vk[i][p] * tm[p][q];
+                }
+                vt[i][q] = sum;
+            }
+        }
+        final double[][] x = new double[t][h];
+        XDataFrameRowTask.run(COST_KEY, 0, t, t * h, parallel, (from, to) -> {
+            for (int i=from; i<to; ++i) {
+                final double[] row = a[r0 + i];
+                final double[] xi = x[i];
+                for (int c=0; c<t; ++c) {
+                    final double value = row[r0 + c];
+                    if (value != 0d) {
+                        final double[] vtc = vt[c];
+                        for (int q=0; q<h; ++q) {
+                            xi[q] += value * vtc[q];
+                        }
+                    }
+                }
+            }
+        });
+        final double[][] vtx = new double[h][h];
+        for (int i=0; i<t; ++i) {
+            for (int p=0; p<h; ++p) {
+                final double vp = vk[i][p];
+                if (vp != 0d) {
+                    for (int q=0; q<h; ++q) {
+                        vtx[p][q] += vp * x[i][q];
+                    }
+                }
+            }
+        }
+        final double[][] mm = new double[h][h];
+        for (int p=0; p<h; ++p) {
+            for (int q=0; q<h; ++q) {
+                double sum = 0d;
+                for (int r=0; r<=p; ++r) {
+                    sum += tm[r][p] * vtx[r][q];
+                }
+                mm[p][q] = sum;
+            }
+        }
+        final double[][] w = new double[t][h];
+        for (int i=0; i<t; ++i) {
+            for (int q=0; q<h; ++q) {
+                double sum = 0d;
+                for (int p=0; p<h; ++p) {
+                    sum += vk[i][p] * mm[p][q];
+                }
+                w[i][q] = x[i][q] - 0.5d * sum;
+            }
+        }
+        XDataFrameRowTask.run(COST_KEY, 0, t, t * h * 2, parallel, (from, to) -> {
+            for (int i=from; i<to; ++i) {
+                final double[] row = a[r0 + i];
+                final double[] vi = vk[i];
+                final double[] wi = w[i];
+                for (int c=0; c<t; ++c) {
+                    final double[] vc = vk[c];
+                    final double[] wc = w[c];
+                    double sum = 0d;
+                    for (int p=0; p<h; ++p) {
+                        sum += vi[p] * wc[p] + wi[p] * vc[p];
+                    }
+                    row[r0 + c] -= sum;
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Accumulates the block reflection Q = I - V T V' into the eigenvector matrix from the right
+     * @param r0    the first column of the eigenvector matrix affected
+     * @param vk    the t x h Householder vectors
+     * @param tm    the h x h upper triangular factor
+     */
+    private void accumulate(int r0, double[][] vk, double[][] tm) {
+        final int t = vk.length;
+        final int h = tm.length;
+        XDataFrameRowTask.run(COST_KEY, 0, n, t * h * 2, parallel, (from, to) -> {
+            final double[] y = new double[h];
+            final double[] z = new double[h];
+            for (int r=from; r<to; ++r) {
+                final double[] row = v[r];
+                Arrays.fill(y, 0d);
+                for (int i=0; i<t; ++i) {
+                    final double value = row[r0 + i];
+                    if (value != 0d) {
+                        final double[] vi = vk[i];
+                        for (int p=0; p<h; ++p) {
+                            y[p] += value * vi[p];
+                        }
+                    }
+                }
+                for (int q=0; q<h; ++q) {
+                    double sum = 0d;
+                    for (int p=0; p<=q; ++p) {
+                        sum += y[p] * tm[p][q];
+                    }
+                    z[q] = sum;
+                }
+                for (int i=0; i<t; ++i) {
+                    final double[] vi = vk[i];
+                    double sum = 0d;
+                    for (int q=0; q<h; ++q) {
+                        sum += z[q] * vi[q];
+                    }
+                    row[r0 + i] -= sum;
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Reduces the band matrix to tridiagonal form with Givens rotations, chasing each bulge down the band
+     * @param band  the half bandwidth
+     */
+    private void reduceToTridiagonal(int band) {
+        if (band > 1) {
+            for (int j=0; j<n-2; ++j) {
+                this.rotations.clear();
+                for (int i=Math.min(j + band, n - 1); i>=j+2; --i) {
+                    if (a[i][j] != 0d) {
+                        this.rotate(i, j, band);
+                        for (int q=i+band, c=i-1; q<n && a[q][c] != 0d; c=q-1, q+=band) {
+                            this.rotate(q, c, band);
+                        }
+                    }
+                }
+                this.applyRotations();
+            }
+        }
+    }
+
+
+    /**
+     * Applies a Givens rotation to rows and columns q - 1 and q which annihilates the element at row q and column c
+     * @param q     the second row and column of the rotation plane
+     * @param c     the column of the element to annihilate
+     * @param band  the half bandwidth, which bounds the elements touched by the rotation
+     */
+    private void rotate(int q, int c, int band) {
+        final double x = a[q - 1][c];
+        final double y = a[q][c];
+        final double r = Maths.hypot(x, y);
+        final double cs = x / r;
+        final double sn = y / r;
+        final int lo = Math.max(0, q - 2 * band - 2);
+        final int hi = Math.min(n, q + 2 * band + 2);
+        final double[] row1 = a[q - 1];
+        final double[] row2 = a[q];
+        for (int k=lo; k<hi; ++k) {
+            final double v1 = row1[k];
+            final double v2 = row2[k];
+            row1[k] = cs * v1 + sn * v2;
+            row2[k] = cs * v2 - sn * v1;
+        }
+        for (int k=lo; k<hi; ++k) {
+            final double[] row = a[k];
+            final double v1 = row[q - 1];
+            final double v2 = row[q];
+            row[q - 1] = cs * v1 + sn * v2;
+            row[q] = cs * v2 - sn * v1;
+        }
+        a[q][c] = 0d;
+        a[c][q] = 0d;
+        this.rotations.add(q - 1, cs, sn);
+    }
+
+
+    /**
+     * Applies the rotations recorded since the last call to the eigenvector matrix, splitting its rows across threads
+     */
+    private void applyRotations() {
+        final int count = rotations.count;
+        if (count > 0) {
+            final int[] index = rotations.index;
+            final double[] cos = rotations.cos;
+            final double[] sin = rotations.sin;
+            XDataFrameRowTask.run(COST_KEY, 0, n, count * 6, parallel, (from, to) -> {
+                for (int r=from; r<to; ++r) {
+                    final double[] row = v[r];
+                    for (int k=0; k<count; ++k) {
+                        final int i = index[k];
+                        final double v1 = row[i];
+                        final double v2 = row[i + 1];
+                        row[i] = cos[k] * v1 + sin[k] * v2;
+                        row[i + 1] = cos[k] * v2 - sin[k] * v1;
+                    }
+                }
+            });
+            this.rotations.clear();
+        }
+    }
+
+
+    /**
+     * Computes the eigenvalues and eigenvectors of the symmetric tridiagonal matrix with the implicit QL algorithm
+     * This is derived from the tql2 method of the JAMA EigenDecomposition, except that the rotations of each QL
+     * sweep are recorded and then applied to the eigenvector matrix in one pass over its rows.
+     */
+    private void tql2() {
+        double f = 0d;
+        double tst1 = 0d;
+        final double eps = Math.pow(2d, -52d);
+        for (int l=0; l<n; ++l) {
+            tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+            int m = l;
+            while (m < n) {
+                if (Math.abs(e[m]) <= eps * tst1) {
+                    break;
+                }
+                m++;
+            }
+            if (m > l) {
+                do {
+                    double g = d[l];
+                    double p = (d[l + 1] - g) / (2d * e[l]);
+                    double r = Maths.hypot(p, 1d);
+                    if (p < 0) {
+                        r = -r;
+                    }
+                    d[l] = e[l] / (p + r);
+                    d[l + 1] = e[l] * (p + r);
+                    final double dl1 = d[l + 1];
+                    double h = g - d[l];
+                    for (int i=l+2; i<n; ++i) {
+                        d[i] -= h;
+                    }
+                    f = f + h;
+                    p = d[m];
+                    double c = 1d;
+                    double c2 = c;
+                    double c3 = c;
+                    final double el1 = e[l + 1];
+                    double s = 0d;
+                    double s2 = 0d;
+                    for (int i=m-1; i>=l; --i) {
+                        c3 = c2;
+                        c2 = c;
+                        s2 = s;
+                        g = c * e[i];
+                        h = c * p;
+                        r = Maths.hypot(p, e[i]);
+                        e[i + 1] = s * r;
+                        s = e[i] / r;
+                        c = p / r;
+                        p = c * d[i] - s * g;
+                        d[i + 1] = h + s * (c * g + s * d[i]);
+                        this.rotations.add(i, c, -s);
+                    }
+                    this.applyRotations();
+                    p = -s * s2 * c3 * el1 * e[l] / dl1;
+                    e[l] = s * p;
+                    d[l] = c * p;
+                } while (Math.abs(e[l]) > eps * tst1);
+            }
+            d[l] = d[l] + f;
+            e[l] = 0d;
+        }
+        for (int i=0; i<n-1; ++i) {
+            int k = i;
+            double p = d[i];
+            for (int j=i+1; j<n; ++j) {
+                if (d[j] < p) {
+                    k = j;
+                    p = d[j];
+                }
+            }
+            if (k != i) {
+                d[k] = d[i];
+                d[i] = p;
+                for (int j=0; j<n; ++j) {
+                    p = v[j][i];
+                    v[j][i] = v[j][k];
+                    v[j][k] = p;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * A growable buffer of plane rotations on adjacent columns i and i + 1 of the eigenvector matrix
+     */
+    private static class Rotations {
+
+        private int count;
+        private int[] index;
+        private double[] cos;
+        private double[] sin;
+
+        /**
+         * Constructor
+         * @param capacity  the initial capacity
+         */
+        Rotations(int capacity) {
+            this.index = new int[Math.max(capacity, 16)];
+            this.cos = new double[index.length];
+            this.sin = new double[index.length];
+        }
+
+        /**
+         * Adds a rotation to this buffer
+         * @param i     the first column of the rotation plane
+         * @param c     the cosine of the rotation
+         * @param s     the sine of the rotation
+         */
+        void add(int i, double c, double s) {
+            if (count == index.length) {
+                this.index = Arrays.copyOf(index, count * 2);
+                this.cos = Arrays.copyOf(cos, count * 2);
+                this.sin = Arrays.copyOf(sin, count * 2);
+            }
+            this.index[count] = i;
+            this.cos[count] = c;
+            this.sin[count] = s;
+            this.count++;
+        }
+
+        /**
+         * Removes all rotations from this buffer
+         */
+        void clear() {
+            this.count = 0;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference.algebra;
+
+import java.util.concurrent.RecursiveAction;
+
+import com.d3x.morpheus.array.ArrayType;
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.util.TaskScheduler;
+
+/**
+ * A pure Java, cache blocked and multi-threaded general matrix multiply used to compute the dot product of numeric frames
+ *
+ * <p>
+ * The operands are first copied into column major double arrays, and the product is computed with the loop structure
+ * popularised by BLIS. The outer loops block the right operand into panels of <code>KC x NC</code> that are packed into
+ * a contiguous buffer sized for the L3 cache, and the left operand into panels of <code>MC x KC</code> packed into
+ * a contiguous buffer sized for the L2 cache. The inner loops then run a register tiled <code>MR x NR</code> micro-kernel
+ * over micro-panels that stay resident in the L1 cache. Partial tiles at the edges are zero padded during packing so
+ * the micro-kernel always runs on full tiles. In parallel mode, the output is recursively split into row and column
+ * blocks aligned to the micro-kernel tile size, each of which is computed independently.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+class XDataFrameGemm {
+
+    static final String COST_KEY = "Gemm";
+
+    private static final int MR = 4;
+    private static final int NR = 4;
+    private static final int KC = 256;
+    private static final int MC = 96;
+    private static final int NC = 2048;
+
+    private int m;
+    private int n;
+    private int k;
+    private double[][] a;
+    private double[][] b;
+    private double[][] c;
+
+    /**
+     * Constructor
+     * @param a     the columns of the m x k left operand
+     * @param b     the columns of the k x n right operand
+     * @param m     the number of rows in the left operand
+     */
+    private XDataFrameGemm(double[][] a, double[][] b, int m) {
+        this.a = a;
+        this.b = b;
+        this.m = m;
+        this.n = b.length;
+        this.k = a.length;
+        this.c = new double[n][m];
+    }
+
+
+    /**
+     * Returns true if the dot product of the two frames can be computed with this kernel
+     * @param left      the left frame
+     * @param right     the right frame
+     * @return          true if all columns of both frames are int, long or double
+     */
+    static boolean isSupported(DataFrame<?,?> left, DataFrame<?,?> right) {
+        return isNumeric(left) && isNumeric(right);
+    }
+
+
+    /**
+     * Returns true if all the columns in the frame are int, long or double
+     * @param frame     the frame to check
+     * @return          true if all columns are numeric
+     */
+    private static boolean isNumeric(DataFrame<?,?> frame) {
+        for (int j=0; j<frame.colCount(); ++j) {
+            final Class<?> dataClass = frame.colAt(j).dataClass();
+            if (!ArrayType.of(dataClass).isNumeric()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Returns the columns of the frame as column major double arrays
+     * @param frame     the frame to extract values from
+     * @return          the array of column values
+     */
+    private static double[][] columns(DataFrame<?,?> frame) {
+        final int rowCount = frame.rowCount();
+        final double[][] values = new double[frame.colCount()][rowCount];
+        for (int j=0; j<values.length; ++j) {
+            final double[] column = values[j];
+            for (int i=0; i<rowCount; ++i) {
+                column[i] = frame.getDoubleAt(i, j);
+            }
+        }
+        return values;
+    }
+
+
+    /**
+     * Computes the dot product of the two frames and writes the values into the result frame
+     * @param left      the m x k left frame
+     * @param right     the k x n right frame
+     * @param result    the m x n frame to write the product into
+     */
+    static void multiply(DataFrame<?,?> left, DataFrame<?,?> right, DataFrame<?,?> result) {
+        final XDataFrameGemm gemm = new XDataFrameGemm(columns(left), columns(right), left.rowCount());
+        final long count = (long)gemm.m * gemm.n;
+        if (count > 0 && left.isParallel()) {
+            final TaskScheduler scheduler = TaskScheduler.current();
+            final int cells = (int)Math.min(count, Integer.MAX_VALUE);
+            final int fallback = (int)Math.min(Integer.MAX_VALUE, Math.max(MC * MR * NR, count / Runtime.getRuntime().availableProcessors()));
+            final int threshold = scheduler.getLeafSize(COST_KEY, cells, gemm.k, fallback);
+            scheduler.invoke(gemm.new Block(0, gemm.m, 0, gemm.n, threshold));
+        } else if (count > 0) {
+            gemm.new Block(0, gemm.m, 0, gemm.n, Integer.MAX_VALUE).compute();
+        }
+        final double[][] c = gemm.c;
+        result.applyDoubles(v -> c[v.colOrdinal()][v.rowOrdinal()]);
+    }
+
+
+    /**
+     * Computes the product for a block of the output with the packed, cache blocked loop nest
+     * @param rowStart  the first row of the output block, inclusive
+     * @param rowEnd    the last row of the output block, exclusive
+     * @param colStart  the first column of the output block, inclusive
+     * @param colEnd    the last column of the output block, exclusive
+     */
+    private void compute(int rowStart, int rowEnd, int colStart, int colEnd) {
+        final int nc = Math.min(NC, roundUp(colEnd - colStart, NR));
+        final int mc = Math.min(MC, roundUp(rowEnd - rowStart, MR));
+        final int kc = Math.min(KC, k);
+        final double[] packedA = new double[mc * kc];
+        final double[] packedB = new double[nc * kc];
+        final double[] tile = new double[MR * NR];
+        for (int jc=colStart; jc<colEnd; jc+=NC) {
+            final int nb = Math.min(NC, colEnd - jc);
+            for (int pc=0; pc<k; pc+=KC) {
+                final int kb = Math.min(KC, k - pc);
+                packB(packedB, jc, nb, pc, kb);
+                for (int ic=rowStart; ic<rowEnd; ic+=MC) {
+                    final int mb = Math.min(MC, rowEnd - ic);
+                    packA(packedA, ic, mb, pc, kb);
+                    for (int jr=0; jr<nb; jr+=NR) {
+                        final int nr = Math.min(NR, nb - jr);
+                        for (int ir=0; ir<mb; ir+=MR) {
+                            final int mr = Math.min(MR, mb - ir);
+                            kernel(kb, packedA, ir * kb, packedB, jr * kb, tile);
+                            for (int jj=0; jj<nr; ++jj) {
+                                final double[] column = c[jc + jr + jj];
+                                final int offset = ic + ir;
+                                for (int ii=0; ii<mr; ++ii) {
+                                    column[offset + ii] += tile[jj * MR + ii];
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Packs a kb x nb panel of the right operand into NR wide micro-panels, zero padding the last micro-panel
+     * @param buffer    the buffer to pack into
+     * @param jc        the first column of the panel
+     * @param nb        the number of columns in the panel
+     * @param pc        the first row of the panel
+     * @param kb        the number of rows in the panel
+     */
+    private void packB(double[] buffer, int jc, int nb, int pc, int kb) {
+        int index = 0;
+        for (int jr=0; jr<nb; jr+=NR) {
+            final int nr = Math.min(NR, nb - jr);
+            for (int jj=0; jj<NR; ++jj) {
+                if (jj < nr) {
+                    final double[] column = b[jc + jr + jj];
+                    for (int p=0; p<kb; ++p) {
+                        buffer[index + p * NR + jj] = column[pc + p];
+                    }
+                } else {
+                    for (int p=0; p<kb; ++p) {
+                        buffer[index + p * NR + jj] = 0d;
+                    }
+                }
+            }
+            index += kb * NR;
+        }
+    }
+
+
+    /**
+     * Packs an mb x kb panel of the left operand into MR tall micro-panels, zero padding the last micro-panel
+     * @param buffer    the buffer to pack into
+     * @param ic        the first row of the panel
+     * @param mb        the number of rows in the panel
+     * @param pc        the first column of the panel
+     * @param kb        the number of columns in the panel
+     */
+    private void packA(double[] buffer, int ic, int mb, int pc, int kb) {
+        int index = 0;
+        for (int ir=0; ir<mb; ir+=MR) {
+            final int mr = Math.min(MR, mb - ir);
+            for (int p=0; p<kb; ++p) {
+                final double[] column = a[pc + p];
+                final int offset = ic + ir;
+                for (int ii=0; ii<MR; ++ii) {
+                    buffer[index++] = ii < mr ? column[offset + ii] : 0d;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * The register tiled micro-kernel that computes an MR x NR tile from packed micro-panels of the operands
+     * @param kb        the depth of the micro-panels
+     * @param pa        the packed left operand
+     * @param ia        the offset of the MR tall micro-panel in the packed left operand
+     * @param pb        the packed right operand
+     * @param ib        the offset of the NR wide micro-panel in the packed right operand
+     * @param tile      the array to write the column major MR x NR tile into
+     */
+    private static void kernel(int kb, double[] pa, int ia, double[] pb, int ib, double[] tile) {
+        double c00 = 0d, c10 = 0d, c20 = 0d, c30 = 0d;
+        double c01 = 0d, c11 = 0d, c21 = 0d, c31 = 0d;
+        double c02 = 0d, c12 = 0d, c22 = 0d, c32 = 0d;
+        double c03 = 0d, c13 = 0d, c23 = 0d, c33 = 0d;
+        for (int p=0; p<kb; ++p) {
+            final double a0 = pa[ia];
+            final double a1 = pa[ia + 1];
+            final double a2 = pa[ia + 2];
+            final double a3 = pa[ia + 3];
+            final double b0 = pb[ib];
+            final double b1 = pb[ib + 1];
+            final double b2 = pb[ib + 2];
+            final double b3 = pb[ib + 3];
+            c00 += a0 * b0; c10 += a1 * b0; c20 += a2 * b0; c30 += a3 * b0;
+            c01 += a0 * b1; c11 += a1 * b1; c21 += a2 * b1; c31 += a3 * b1;
+            c02 += a0 * b2; c12 += a1 * b2; c22 += a2 * b2; c32 += a3 * b2;
+            c03 += a0 * b3; c13 += a1 * b3; c23 += a2 * b3; c33 += a3 * b3;
+            ia += MR;
+            ib += NR;
+        }
+        tile[0] = c00;  tile[1] = c10;  tile[2] = c20;  tile[3] = c30;
+        tile[4] = c01;  tile[5] = c11;  tile[6] = c21;  tile[7] = c31;
+        tile[8] = c02;  tile[9] = c12;  tile[10] = c22; tile[11] = c32;
+        tile[12] = c03; tile[13] = c13; tile[14] = c23; tile[15] = c33;
+    }
+
+
+    /**
+     * Returns the value rounded up to the next multiple of the step
+     * @param value     the value to round
+     * @param step      the step size
+     * @return          the rounded value
+     */
+    private static int roundUp(int value, int step) {
+        return ((value + step - 1) / step) * step;
+    }
+
+
+    /**
+     * A recursive task that splits the output into blocks aligned to the micro-kernel tile size
+     */
+    private class Block extends RecursiveAction {
+
+        private int rowStart;
+        private int rowEnd;
+        private int colStart;
+        private int colEnd;
+        private int threshold;
+
+        /**
+         * Constructor
+         * @param rowStart  the first row of the output block, inclusive
+         * @param rowEnd    the last row of the output block, exclusive
+         * @param colStart  the first column of the output block, inclusive
+         * @param colEnd    the last column of the output block, exclusive
+         * @param threshold the number of output cells below which not to split
+         */
+        private Block(int rowStart, int rowEnd, int colStart, int colEnd, int threshold) {
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+            this.colStart = colStart;
+            this.colEnd = colEnd;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            final int rows = rowEnd - rowStart;
+            final int cols = colEnd - colStart;
+            final boolean splitRows = rows >= cols && rows > MR;
+            final boolean splitCols = !splitRows && cols > NR;
+            if ((long)rows * cols > threshold && (splitRows || splitCols)) {
+                if (splitRows) {
+                    final int half = rowStart + roundUp(rows / 2, MR);
+                    invokeAll(
+                        new Block(rowStart, half, colStart, colEnd, threshold),
+                        new Block(half, rowEnd, colStart, colEnd, threshold)
+                    );
+                } else {
+                    final int half = colStart + roundUp(cols / 2, NR);
+                    invokeAll(
+                        new Block(rowStart, rowEnd, colStart, half, threshold),
+                        new Block(rowStart, rowEnd, half, colEnd, threshold)
+                    );
+                }
+            } else {
+                final long startNanos = System.nanoTime();
+                XDataFrameGemm.this.compute(rowStart, rowEnd, colStart, colEnd);
+                TaskScheduler.record(COST_KEY, (long)rows * cols * k, System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
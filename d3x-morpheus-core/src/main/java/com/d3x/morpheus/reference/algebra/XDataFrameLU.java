@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference.algebra;
+
+import com.d3x.morpheus.jama.Matrix;
+
+/**
+ * A blocked, right-looking LU decomposition with partial pivoting, which parallelizes the trailing matrix update
+ *
+ * <p>
+ * The columns are processed in panels of <code>NB</code> columns. Each panel is factorized with partial pivoting,
+ * where a row interchange simply swaps row references, the corresponding block row of U is computed by a triangular
+ * solve, and the trailing matrix is then updated with a rank-<code>NB</code> product of the panel and that block row.
+ * The trailing update dominates the cost and writes to disjoint rows, so it is split across rows in parallel mode.
+ * The factors, pivots and solutions have the same semantics as the JAMA <code>LUDecomposition</code>.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+class XDataFrameLU {
+
+    static final String COST_KEY = "BlockedLU";
+
+    private static final int NB = 64;
+
+    private int m;
+    private int n;
+    private int pivsign;
+    private int[] piv;
+    private double[][] lu;
+    private boolean parallel;
+
+    /**
+     * Constructor
+     * @param matrix    the m x n matrix to decompose, where m >= n
+     * @param parallel  true to parallelize the trailing matrix updates
+     */
+    XDataFrameLU(Matrix matrix, boolean parallel) {
+        this.lu = matrix.getArrayCopy();
+        this.m = matrix.getRowDimension();
+        this.n = matrix.getColumnDimension();
+        this.parallel = parallel;
+        this.piv = new int[m];
+        this.pivsign = 1;
+        for (int i=0; i<m; ++i) piv[i] = i;
+        final int steps = Math.min(m, n);
+        for (int k0=0; k0<steps; k0 += NB) {
+            final int k1 = Math.min(k0 + NB, steps);
+            this.factorPanel(k0, k1);
+            this.solveBlockRow(k0, k1);
+            this.updateTrailing(k0, k1);
+        }
+    }
+
+
+    /**
+     * Factorizes the panel of columns [k0, k1) over rows [k0, m) with partial pivoting
+     * @param k0    the first column of the panel, inclusive
+     * @param k1    the last column of the panel, exclusive
+     */
+    private void factorPanel(int k0, int k1) {
+        for (int j=k0; j<k1; ++j) {
+            int p = j;
+            double max = Math.abs(lu[j][j]);
+            for (int i=j+1; i<m; ++i) {
+                final double value = Math.abs(lu[i][j]);
+                if (value > max) {
+                    max = value;
+                    p = i;
+                }
+            }
+            if (p != j) {
+                final double[] row = lu[p];
+                lu[p] = lu[j];
+                lu[j] = row;
+                final int index = piv[p];
+                piv[p] = piv[j];
+                piv[j] = index;
+                pivsign = -pivsign;
+            }
+            final double[] pivotRow = lu[j];
+            final double pivot = pivotRow[j];
+            if (pivot != 0d) {
+                for (int i=j+1; i<m; ++i) {
+                    final double[] row = lu[i];
+                    final double factor = row[j] / pivot;
+                    row[j] = factor;
+                    if (factor != 0d) {
+                        for (int c=j+1; c<k1; ++c) {
+                            row[c] -= factor * pivotRow[c];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Computes the block row of U to the right of the panel by solving with the unit lower triangle of the panel
+     * @param k0    the first column of the panel, inclusive
+     * @param k1    the last column of the panel, exclusive
+     */
+    private void solveBlockRow(int k0, int k1) {
+        for (int i=k0+1; i<k1; ++i) {
+            final double[] row = lu[i];
+            for (int k=k0; k<i; ++k) {
+                final double factor = row[k];
+                if (factor != 0d) {
+                    final double[] pivotRow = lu[k];
+                    for (int c=k1; c<n; ++c) {
+                        row[c] -= factor * pivotRow[c];
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Applies the rank update of the panel and block row to the trailing matrix
+     * @param k0    the first column of the panel, inclusive
+     * @param k1    the last column of the panel, exclusive
+     */
+    private void updateTrailing(int k0, int k1) {
+        if (k1 < n) {
+            final int width = (n - k1) * (k1 - k0);
+            XDataFrameRowTask.run(COST_KEY, k1, m, width, parallel, (from, to) -> {
+                for (int i=from; i<to; ++i) {
+                    final double[] row = lu[i];
+                    for (int k=k0; k<k1; ++k) {
+                        final double factor = row[k];
+                        if (factor != 0d) {
+                            final double[] pivotRow = lu[k];
+                            for (int c=k1; c<n; ++c) {
+                                row[c] -= factor * pivotRow[c];
+                            }
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+
+    /**
+     * Returns true if the matrix is non-singular
+     * @return  true if U, and hence A, is non-singular
+     */
+    boolean isNonSingular() {
+        for (int j=0; j<n; ++j) {
+            if (lu[j][j] == 0d) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Returns the unit lower triangular factor
+     * @return  the m x n lower triangular factor
+     */
+    Matrix getL() {
+        final Matrix result = new Matrix(m, n);
+        final double[][] l = result.getArray();
+        for (int i=0; i<m; ++i) {
+            for (int j=0; j<n; ++j) {
+                l[i][j] = i > j ? lu[i][j] : i == j ? 1d : 0d;
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the upper triangular factor
+     * @return  the n x n upper triangular factor
+     */
+    Matrix getU() {
+        final Matrix result = new Matrix(n, n);
+        final double[][] u = result.getArray();
+        for (int i=0; i<n; ++i) {
+            for (int j=i; j<n; ++j) {
+                u[i][j] = lu[i][j];
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the row permutation matrix P such that P * A = L * U
+     * @return  the m x m permutation matrix
+     */
+    Matrix getP() {
+        final Matrix result = new Matrix(m, m);
+        for (int i=0; i<m; ++i) {
+            result.set(i, piv[i], 1d);
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the determinant of the matrix
+     * @return  the determinant
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    double det() {
+        if (m != n) {
+            throw new IllegalArgumentException("Matrix must be square.");
+        } else {
+            double result = pivsign;
+            for (int j=0; j<n; ++j) {
+                result *= lu[j][j];
+            }
+            return result;
+        }
+    }
+
+
+    /**
+     * Solves A * X = B, splitting the columns of B across threads in parallel mode
+     * @param rhs   the right hand side with as many rows as A
+     * @return      the solution X
+     * @throws IllegalArgumentException if the row dimensions do not agree
+     * @throws RuntimeException         if the matrix is singular
+     */
+    Matrix solve(Matrix rhs) {
+        if (rhs.getRowDimension() != m) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        } else if (!isNonSingular()) {
+            throw new RuntimeException("Matrix is singular.");
+        } else {
+            final int nx = rhs.getColumnDimension();
+            final Matrix result = rhs.getMatrix(piv, 0, nx - 1);
+            final double[][] x = result.getArray();
+            XDataFrameRowTask.run(COST_KEY, 0, nx, n * n, parallel, (from, to) -> {
+                for (int k=0; k<n; ++k) {
+                    final double[] xk = x[k];
+                    for (int i=k+1; i<n; ++i) {
+                        final double factor = lu[i][k];
+                        if (factor != 0d) {
+                            final double[] xi = x[i];
+                            for (int j=from; j<to; ++j) {
+                                xi[j] -= factor * xk[j];
+                            }
+                        }
+                    }
+                }
+                for (int k=n-1; k>=0; --k) {
+                    final double[] xk = x[k];
+                    final double pivot = lu[k][k];
+                    for (int j=from; j<to; ++j) {
+                        xk[j] /= pivot;
+                    }
+                    for (int i=0; i<k; ++i) {
+                        final double factor = lu[i][k];
+                        if (factor != 0d) {
+                            final double[] xi = x[i];
+                            for (int j=from; j<to; ++j) {
+                                xi[j] -= factor * xk[j];
+                            }
+                        }
+                    }
+                }
+            });
+            return n < m ? result.getMatrix(0, n - 1, 0, nx - 1) : result;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference.algebra;
+
+import java.util.Arrays;
+
+import com.d3x.morpheus.jama.Maths;
+import com.d3x.morpheus.jama.Matrix;
+
+/**
+ * A blocked Householder QR decomposition using the compact WY representation, which parallelizes the trailing matrix update
+ *
+ * <p>
+ * The columns are processed in panels of <code>NB</code> columns. Each panel is factorized with Householder
+ * reflections exactly as in JAMA, and the product of its reflections <code>H(1) H(2) ... H(NB)</code> is then
+ * expressed in the compact WY form <code>I - V T V'</code>, where V holds the Householder vectors and T is upper
+ * triangular. The trailing matrix is updated with <code>I - V T' V'</code> using matrix products rather than one
+ * reflection at a time, and since that update is independent for each column, the trailing columns are split across
+ * threads in parallel mode. The factors and solutions have the same semantics as the JAMA <code>QRDecomposition</code>.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+class XDataFrameQR {
+
+    static final String COST_KEY = "BlockedQR";
+
+    private static final int NB = 32;
+
+    private int m;
+    private int n;
+    private double[][] qr;
+    private double[] rdiag;
+    private boolean parallel;
+
+    /**
+     * Constructor
+     * @param matrix    the m x n matrix to decompose, where m >= n
+     * @param parallel  true to parallelize the trailing matrix updates
+     */
+    XDataFrameQR(Matrix matrix, boolean parallel) {
+        this.qr = matrix.getArrayCopy();
+        this.m = matrix.getRowDimension();
+        this.n = matrix.getColumnDimension();
+        this.rdiag = new double[n];
+        this.parallel = parallel;
+        for (int k0=0; k0<n; k0 += NB) {
+            final int c0 = k0;
+            final int k1 = Math.min(k0 + NB, n);
+            final int h = Math.min(k1 - k0, m - k0);
+            if (h > 0) {
+                final double[][] t = factorPanel(qr, c0, m, c0, h, k1, rdiag);
+                if (k1 < n) {
+                    final int width = (m - k0) * h * 2;
+                    XDataFrameRowTask.run(COST_KEY, k1, n, width, parallel, (from, to) -> {
+                        applyLeft(qr, c0, m, c0, h, t, from, to);
+                    });
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Factorizes a panel with Householder reflections and returns the triangular factor of its compact WY representation
+     * The p-th reflection annihilates column c0 + p below row r0 + p, and its vector is stored in place of that column
+     * in the JAMA form, where the reflection is I - v v' / v[r0 + p]. Each reflection is also applied to the remaining
+     * columns of the panel up to column c1.
+     * @param a     the row major matrix to factorize in place
+     * @param r0    the first row of the panel
+     * @param m     the number of rows in the matrix
+     * @param c0    the first column of the panel
+     * @param h     the number of reflections to compute
+     * @param c1    the last column of the panel, exclusive
+     * @param rdiag the array to receive the diagonal of R, indexed by column
+     * @return      the h x h upper triangular matrix T such that H(1) H(2) ... H(h) = I - V T V'
+     */
+    static double[][] factorPanel(double[][] a, int r0, int m, int c0, int h, int c1, double[] rdiag) {
+        final double[] tau = new double[h];
+        for (int p=0; p<h; ++p) {
+            final int k = c0 + p;
+            final int s = r0 + p;
+            double nrm = 0d;
+            for (int i=s; i<m; ++i) {
+                nrm = Maths.hypot(nrm, a[i][k]);
+            }
+            if (nrm != 0d) {
+                if (a[s][k] < 0d) {
+                    nrm = -nrm;
+                }
+                for (int i=s; i<m; ++i) {
+                    a[i][k] /= nrm;
+                }
+                a[s][k] += 1d;
+                tau[p] = 1d / a[s][k];
+                for (int j=k+1; j<c1; ++j) {
+                    double sum = 0d;
+                    for (int i=s; i<m; ++i) {
+                        sum += a[i][k] * a[i][j];
+                    }
+                    sum = -sum / a[s][k];
+                    for (int i=s; i<m; ++i) {
+                        a[i][j] += sum * a[i][k];
+                    }
+                }
+            }
+            rdiag[k] = -nrm;
+        }
+        final double[][] t = new double[h][h];
+        final double[] z = new double[h];
+        for (int p=0; p<h; ++p) {
+            t[p][p] = tau[p];
+            if (tau[p] != 0d && p > 0) {
+                Arrays.fill(z, 0, p, 0d);
+                for (int i=r0+p; i<m; ++i) {
+                    final double[] row = a[i];
+                    final double vp = row[c0 + p];
+                    if (vp != 0d) {
+                        for (int q=0; q<p; ++q) {
+                            z[q] += row[c0 + q] * vp;
+                        }
+                    }
+                }
+                for (int q=0; q<p; ++q) {
+                    double sum = 0d;
+                    for (int r=q; r<p; ++r) {
+                        sum += t[q][r] * z[r];
+                    }
+                    t[q][p] = -tau[p] * sum;
+                }
+            }
+        }
+        return t;
+    }
+
+
+    /**
+     * Applies the transpose of a block reflection I - V T V' from the left to a range of columns of a matrix
+     * @param a     the row major matrix, which holds the Householder vectors in columns [c0, c0 + h)
+     * @param r0    the first row of the panel
+     * @param m     the number of rows in the matrix
+     * @param c0    the first column of the panel
+     * @param h     the number of reflections
+     * @param t     the upper triangular factor of the block reflection
+     * @param from  the first column to update, inclusive
+     * @param to    the last column to update, exclusive
+     */
+    static void applyLeft(double[][] a, int r0, int m, int c0, int h, double[][] t, int from, int to) {
+        final int width = to - from;
+        final double[][] w = new double[h][width];
+        for (int i=r0; i<m; ++i) {
+            final double[] row = a[i];
+            final int count = Math.min(h, i - r0 + 1);
+            for (int p=0; p<count; ++p) {
+                final double vp = row[c0 + p];
+                if (vp != 0d) {
+                    final double[] wp = w[p];
+                    for (int j=0; j<width; ++j) {
+                        wp[j] += vp * row[from + j];
+                    }
+                }
+            }
+        }
+        for (int p=h-1; p>=0; --p) {
+            final double[] wp = w[p];
+            final double tpp = t[p][p];
+            for (int j=0; j<width; ++j) {
+                wp[j] *= tpp;
+            }
+            for (int q=0; q<p; ++q) {
+                final double tqp = t[q][p];
+                if (tqp != 0d) {
+                    final double[] wq = w[q];
+                    for (int j=0; j<width; ++j) {
+                        wp[j] += tqp * wq[j];
+                    }
+                }
+            }
+        }
+        for (int i=r0; i<m; ++i) {
+            final double[] row = a[i];
+            final int count = Math.min(h, i - r0 + 1);
+            for (int p=0; p<count; ++p) {
+                final double vp = row[c0 + p];
+                if (vp != 0d) {
+                    final double[] wp = w[p];
+                    for (int j=0; j<width; ++j) {
+                        row[from + j] -= vp * wp[j];
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns true if the matrix has full column rank
+     * @return  true if R, and hence A, has full rank
+     */
+    boolean isFullRank() {
+        for (int j=0; j<n; ++j) {
+            if (rdiag[j] == 0d) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Returns the upper triangular factor
+     * @return  the n x n upper triangular factor R
+     */
+    Matrix getR() {
+        final Matrix result = new Matrix(n, n);
+        final double[][] r = result.getArray();
+        for (int i=0; i<n; ++i) {
+            r[i][i] = rdiag[i];
+            for (int j=i+1; j<n; ++j) {
+                r[i][j] = qr[i][j];
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the economy sized orthogonal factor
+     * @return  the m x n orthogonal factor Q
+     */
+    Matrix getQ() {
+        final Matrix result = new Matrix(m, n);
+        final double[][] q = result.getArray();
+        for (int k=n-1; k>=0; --k) {
+            q[k][k] = 1d;
+            if (qr[k][k] != 0d) {
+                for (int j=k; j<n; ++j) {
+                    double s = 0d;
+                    for (int i=k; i<m; ++i) {
+                        s += qr[i][k] * q[i][j];
+                    }
+                    s = -s / qr[k][k];
+                    for (int i=k; i<m; ++i) {
+                        q[i][j] += s * qr[i][k];
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the least squares solution of A * X = B, splitting the columns of B across threads in parallel mode
+     * @param rhs   the right hand side with as many rows as A
+     * @return      the solution X that minimizes the two norm of Q * R * X - B
+     * @throws IllegalArgumentException if the row dimensions do not agree
+     * @throws RuntimeException         if the matrix is rank deficient
+     */
+    Matrix solve(Matrix rhs) {
+        if (rhs.getRowDimension() != m) {
+            throw new IllegalArgumentException("Matrix row dimensions must agree.");
+        } else if (!isFullRank()) {
+            throw new RuntimeException("Matrix is rank deficient.");
+        } else {
+            final int nx = rhs.getColumnDimension();
+            final double[][] x = rhs.getArrayCopy();
+            XDataFrameRowTask.run(COST_KEY, 0, nx, m * n * 2, parallel, (from, to) -> {
+                final double[] s = new double[to - from];
+                for (int k=0; k<n; ++k) {
+                    Arrays.fill(s, 0d);
+                    for (int i=k; i<m; ++i) {
+                        final double v = qr[i][k];
+                        final double[] xi = x[i];
+                        for (int j=from; j<to; ++j) {
+                            s[j - from] += v * xi[j];
+                        }
+                    }
+                    for (int j=from; j<to; ++j) {
+                        s[j - from] = -s[j - from] / qr[k][k];
+                    }
+                    for (int i=k; i<m; ++i) {
+                        final double v = qr[i][k];
+                        final double[] xi = x[i];
+                        for (int j=from; j<to; ++j) {
+                            xi[j] += s[j - from] * v;
+                        }
+                    }
+                }
+                for (int k=n-1; k>=0; --k) {
+                    final double[] xk = x[k];
+                    for (int j=from; j<to; ++j) {
+                        xk[j] /= rdiag[k];
+                    }
+                    for (int i=0; i<k; ++i) {
+                        final double factor = qr[i][k];
+                        final double[] xi = x[i];
+                        for (int j=from; j<to; ++j) {
+                            xi[j] -= xk[j] * factor;
+                        }
+                    }
+                }
+            });
+            return new Matrix(x, m, nx).getMatrix(0, n - 1, 0, nx - 1);
+        }
+    }
+}
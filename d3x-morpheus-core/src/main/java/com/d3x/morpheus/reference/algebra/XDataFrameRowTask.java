@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference.algebra;
+
+import java.util.concurrent.RecursiveAction;
+
+import com.d3x.morpheus.util.TaskScheduler;
+
+/**
+ * A recursive task that applies an update to a range of rows, which is used for the trailing matrix updates of the blocked decompositions
+ *
+ * <p>
+ * The updates of a blocked decomposition write to disjoint rows or columns of the trailing matrix, so the range is
+ * simply split in half until the work per leaf reaches the calibrated leaf size for the operation. Small updates, or
+ * updates on a sequential frame, run on the calling thread.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+class XDataFrameRowTask extends RecursiveAction {
+
+    private static final long MIN_PARALLEL_WORK = 1L << 15;
+
+    private int from;
+    private int to;
+    private int width;
+    private int threshold;
+    private String costKey;
+    private Body body;
+
+    /**
+     * An interface to an update over a range of rows or columns
+     */
+    interface Body {
+
+        /**
+         * Applies the update to the range specified
+         * @param from  the first index, inclusive
+         * @param to    the last index, exclusive
+         */
+        void apply(int from, int to);
+    }
+
+    /**
+     * Constructor
+     * @param costKey   the operation name used to calibrate leaf sizes
+     * @param from      the first index, inclusive
+     * @param to        the last index, exclusive
+     * @param width     the units of work per index
+     * @param threshold the number of indexes below which not to split
+     * @param body      the update to apply
+     */
+    private XDataFrameRowTask(String costKey, int from, int to, int width, int threshold, Body body) {
+        this.costKey = costKey;
+        this.from = from;
+        this.to = to;
+        this.width = width;
+        this.threshold = threshold;
+        this.body = body;
+    }
+
+
+    /**
+     * Applies the update to the range specified, in parallel if requested and the work is large enough
+     * @param costKey   the operation name used to calibrate leaf sizes
+     * @param from      the first index, inclusive
+     * @param to        the last index, exclusive
+     * @param width     the units of work per index
+     * @param parallel  true to apply the update in parallel
+     * @param body      the update to apply
+     */
+    static void run(String costKey, int from, int to, int width, boolean parallel, Body body) {
+        final int count = to - from;
+        if (count <= 0) {
+            return;
+        } else if (!parallel || count < 2 || (long)count * width < MIN_PARALLEL_WORK) {
+            body.apply(from, to);
+        } else {
+            final TaskScheduler scheduler = TaskScheduler.current();
+            final int fallback = Math.max(8, count / Runtime.getRuntime().availableProcessors());
+            final int threshold = scheduler.getLeafSize(costKey, count, width, fallback);
+            scheduler.invoke(new XDataFrameRowTask(costKey, from, to, width, threshold, body));
+        }
+    }
+
+
+    @Override
+    protected void compute() {
+        final int count = to - from;
+        if (count > threshold && count > 1) {
+            final int split = from + count / 2;
+            invokeAll(
+                new XDataFrameRowTask(costKey, from, split, width, threshold, body),
+                new XDataFrameRowTask(costKey, split, to, width, threshold, body)
+            );
+        } else {
+            final long startNanos = System.nanoTime();
+            body.apply(from, to);
+            TaskScheduler.record(costKey, (long)count * width, System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -0,0 +1,500 @@
+/*
+ * Copyright (C) 2018-2019 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.series;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.dense.DenseArrayConstructor;
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.index.Index;
+import com.d3x.morpheus.util.IntComparator;
+import com.d3x.morpheus.util.MorpheusException;
+
+/**
+ * A DoubleSeries that stores its keys in an Index and its values in a contiguous primitive array
+ *
+ * <p>
+ * Each value is stored at the coordinate the Index assigns to its key, so a lookup by key is a single hash probe,
+ * and a lookup by ordinal is an array access. Series that share an Index instance are aligned by construction, and
+ * arithmetic between them runs as tight loops over the primitive arrays. Alignment against other keys is a single
+ * merge pass if both key sets are in ascending order, and a single hash pass otherwise. A series can wrap the row
+ * index and storage of a DataFrame column, or expose itself as a single column DataFrame, without copying values.
+ * </p>
+ *
+ * <p>
+ * Series created by a builder, or derived from another series through arithmetic, <code>reindex()</code> or
+ * <code>copy()</code>, own a read-only index that no frame or caller can re-order, so they cache the order of their
+ * keys rather than checking it on every alignment. Derived series share the owned index of their source, and so stay
+ * aligned with it, while series derived from a view of a frame each take a private copy of the index.
+ * </p>
+ *
+ * <p>
+ * A series that wraps a DataFrame column is a view, which follows updates to values and the order of rows in the frame,
+ * as well as rows added within the existing capacity of the frame. Once the frame reallocates its column storage to
+ * add more rows, the view is no longer valid and any access through <code>size()</code> fails with a
+ * <code>MorpheusException</code>, so a new series should be requested from the frame, or a copy taken beforehand.
+ * </p>
+ *
+ * @param <K>   the key type
+ *
+ * <p>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></p>
+ *
+ * @author Xavier Witdouck
+ */
+public class DenseDoubleSeries<K> extends DoubleSeriesBuilder.DoubleSeriesBase<K> {
+
+    private enum Op { PLUS, MINUS, TIMES, DIVIDE }
+
+    private Index<K> keys;
+    private double[] values;
+    private boolean owned;
+    private boolean ascending;
+    private int ascendingSize = -1;
+
+    /**
+     * Constructor for a series that shares its index with a frame or caller
+     * @param keys      the index of keys
+     * @param values    the values indexed by key coordinate
+     */
+    DenseDoubleSeries(@lombok.NonNull Index<K> keys, @lombok.NonNull double[] values) {
+        super(keys.type());
+        if (values.length < keys.size()) {
+            throw new MorpheusException("The values length %s is less than the index size %s", values.length, keys.size());
+        } else {
+            this.keys = keys;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Constructor for a series that owns its index, which is exposed read-only so the order of keys can be cached
+     * @param keys      the index of keys, which must not be shared with a frame
+     * @param values    the values indexed by key coordinate
+     * @param sorted    true if the keys are known to be in ascending order
+     */
+    DenseDoubleSeries(@lombok.NonNull Index<K> keys, @lombok.NonNull double[] values, boolean sorted) {
+        this(keys.readOnly(), values);
+        this.owned = true;
+        if (sorted) {
+            this.ascending = true;
+            this.ascendingSize = keys.size();
+        }
+    }
+
+
+    /**
+     * Returns a series that wraps the index and values without copying either
+     * The values must be indexed by key coordinate, and the series reflects any later updates to the values.
+     * @param keys      the index of keys
+     * @param values    the values indexed by key coordinate, with a length no less than the index size
+     * @param <K>       the key type
+     * @return          the series that wraps index and values
+     */
+    public static <K> DenseDoubleSeries<K> wrap(Index<K> keys, double[] values) {
+        return new DenseDoubleSeries<>(keys, values);
+    }
+
+
+    /**
+     * Returns a series of the values in a numeric DataFrame column, which shares storage with the frame where possible
+     * @param frame     the frame to read from
+     * @param colKey    the column key
+     * @param <R>       the row key type
+     * @param <C>       the column key type
+     * @return          the series for the column
+     * @see com.d3x.morpheus.frame.DataFrameColumn#toDoubleSeries()
+     */
+    public static <R,C> DenseDoubleSeries<R> from(DataFrame<R,C> frame, C colKey) {
+        return frame.col(colKey).toDoubleSeries();
+    }
+
+
+    /**
+     * Returns the index of keys for this series, which is read-only unless this series is a view of a frame
+     * @return  the index of keys
+     */
+    public Index<K> index() {
+        return keys;
+    }
+
+
+    /**
+     * Returns true if this series shares its index with the other series, and is therefore aligned with it
+     * @param other     the other series
+     * @return          true if both series share the same index
+     */
+    public boolean isAligned(DoubleSeries<K> other) {
+        return other instanceof DenseDoubleSeries && ((DenseDoubleSeries<K>)other).keys == keys;
+    }
+
+
+    @Override
+    public final int size() {
+        final int size = keys.size();
+        if (size > values.length) {
+            throw new MorpheusException("The series is no longer valid as its index has outgrown its values, recreate it from the source frame");
+        } else {
+            return size;
+        }
+    }
+
+    @Override
+    public final boolean contains(K key) {
+        return keys.contains(key);
+    }
+
+    @Override
+    public final Stream<K> keys() {
+        return keys.keys();
+    }
+
+    @Override
+    public final K getKey(int index) {
+        return keys.getKey(index);
+    }
+
+    @Override
+    public final double getDouble(K key) {
+        final int coordinate = keys.getCoordinate(key);
+        return coordinate < 0 ? Double.NaN : values[coordinate];
+    }
+
+    @Override
+    public final double getDoubleAt(int index) {
+        return values[keys.getCoordinateAt(index)];
+    }
+
+    @Override
+    public final DoubleStream toDoubles() {
+        if (keys.isFilter()) {
+            return IntStream.range(0, size()).mapToDouble(this::getDoubleAt);
+        } else {
+            return IntStream.range(0, size()).mapToDouble(i -> values[keys.getCoordinateAt(i)]);
+        }
+    }
+
+    @Override
+    public final void forEach(BiConsumer<K> consumer) {
+        final int size = size();
+        for (int i=0; i<size; ++i) {
+            consumer.accept(keys.getKey(i), values[keys.getCoordinateAt(i)]);
+        }
+    }
+
+    @Override
+    public final void sort(IntComparator comparator) {
+        this.keys = keys.copy(true);
+        this.keys.sort(isParallel(), comparator);
+        this.keys = keys.readOnly();
+        this.owned = true;
+        this.ascendingSize = -1;
+    }
+
+    @Override
+    public DenseDoubleSeries<K> copy() {
+        return new DenseDoubleSeries<>(keys.copy(true), values.clone(), owned && ascendingSize == keys.size() && ascending);
+    }
+
+
+    /**
+     * Returns the values for the keys specified in a single pass, using the default value for keys not in this series
+     * @param keys          the keys to align to
+     * @param defaultValue  the value for keys not in this series
+     * @return              the values in the order of the keys
+     */
+    public double[] align(List<K> keys, double defaultValue) {
+        return align(keys.size(), keys::get, () -> isAscending(keys.size(), keys::get), defaultValue);
+    }
+
+
+    /**
+     * Returns a series of the values for the keys specified, using the default value for keys not in this series
+     * @param keys          the keys for the resulting series
+     * @param defaultValue  the value for keys not in this series
+     * @return              the series aligned to the keys, with a private copy of the index if one is given
+     */
+    public DenseDoubleSeries<K> reindex(Iterable<K> keys, double defaultValue) {
+        final Index<K> index;
+        if (keys instanceof Index) {
+            index = ((Index<K>)keys).copy(true);
+        } else {
+            index = Index.of(keyClass(), 1000);
+            index.addAll(keys, true);
+        }
+        final double[] result = new double[index.capacity()];
+        final double[] aligned = align(index.size(), index::getKey, () -> isAscending(index.size(), index::getKey), defaultValue);
+        Arrays.fill(result, Double.NaN);
+        for (int i=0; i<aligned.length; ++i) {
+            result[index.getCoordinateAt(i)] = aligned[i];
+        }
+        return new DenseDoubleSeries<>(index, result, false);
+    }
+
+
+    /**
+     * Returns a series with this series plus the other for each key in this series
+     * @param other     the other series, with NaN assumed for missing keys
+     * @return          the resulting series, which shares the index of this series unless it is a view
+     */
+    public DenseDoubleSeries<K> plus(DoubleSeries<K> other) {
+        return combine(other, Op.PLUS);
+    }
+
+
+    /**
+     * Returns a series with this series minus the other for each key in this series
+     * @param other     the other series, with NaN assumed for missing keys
+     * @return          the resulting series, which shares the index of this series unless it is a view
+     */
+    public DenseDoubleSeries<K> minus(DoubleSeries<K> other) {
+        return combine(other, Op.MINUS);
+    }
+
+
+    /**
+     * Returns a series with this series times the other for each key in this series
+     * @param other     the other series, with NaN assumed for missing keys
+     * @return          the resulting series, which shares the index of this series unless it is a view
+     */
+    public DenseDoubleSeries<K> times(DoubleSeries<K> other) {
+        return combine(other, Op.TIMES);
+    }
+
+
+    /**
+     * Returns a series with this series divided by the other for each key in this series
+     * @param other     the other series, with NaN assumed for missing keys
+     * @return          the resulting series, which shares the index of this series unless it is a view
+     */
+    public DenseDoubleSeries<K> divide(DoubleSeries<K> other) {
+        return combine(other, Op.DIVIDE);
+    }
+
+
+    /**
+     * Returns a series with the values of this series multiplied by a scalar
+     * @param scalar    the scalar multiplier
+     * @return          the resulting series, which shares the index of this series unless it is a view
+     */
+    public DenseDoubleSeries<K> times(double scalar) {
+        final double[] result = new double[values.length];
+        if (keys.isFilter()) {
+            Arrays.fill(result, Double.NaN);
+            for (int i=0; i<size(); ++i) {
+                final int coordinate = keys.getCoordinateAt(i);
+                result[coordinate] = values[coordinate] * scalar;
+            }
+        } else {
+            final int length = size();
+            for (int i=0; i<length; ++i) {
+                result[i] = values[i] * scalar;
+            }
+        }
+        return derive(result);
+    }
+
+
+    /**
+     * Returns a single column DataFrame that shares the values of this series
+     * The row axis of the frame is a read-only view of the index of this series, and updates to values through
+     * the frame are visible in this series.
+     * @param colKey    the column key
+     * @param <C>       the column key type
+     * @return          the single column DataFrame
+     */
+    @SuppressWarnings("unchecked")
+    public <C> DataFrame<K,C> toDataFrame(@lombok.NonNull C colKey) {
+        final Class<C> colType = (Class<C>)colKey.getClass();
+        final Array<Double> column = DenseArrayConstructor.wrap(values);
+        return DataFrame.of(keys.readOnly(), colType, columns -> columns.add(colKey, column));
+    }
+
+
+    /**
+     * Returns a series with the values specified over the keys of this series
+     * A series that owns its index shares it, while a view of a frame gives the result a private copy, so that
+     * a frame or caller cannot re-order the keys of the derived series.
+     * @param values    the values indexed by key coordinate
+     * @return          the derived series
+     */
+    private DenseDoubleSeries<K> derive(double[] values) {
+        if (!owned) {
+            return new DenseDoubleSeries<>(keys.copy(true), values, false);
+        } else {
+            final DenseDoubleSeries<K> result = new DenseDoubleSeries<>(keys, values);
+            result.owned = true;
+            result.ascending = ascending;
+            result.ascendingSize = ascendingSize;
+            return result;
+        }
+    }
+
+
+    /**
+     * Returns the values for a count of keys, with a merge pass if both key sets are ascending and a hash pass otherwise
+     * @param count         the number of keys
+     * @param keyAt         the function to access keys by position
+     * @param ascending     the check of whether the keys are ascending, only evaluated if this series is ascending
+     * @param defaultValue  the value for keys not in this series
+     * @return              the values in the order of the keys
+     */
+    @SuppressWarnings("unchecked")
+    private double[] align(int count, IntFunction<K> keyAt, BooleanSupplier ascending, double defaultValue) {
+        final double[] result = new double[count];
+        if (isAscending() && ascending.getAsBoolean()) {
+            final int size = size();
+            final Comparator<K> comparator = (Comparator<K>)Comparator.naturalOrder();
+            for (int i=0, j=0; i<count; ++i) {
+                final K key = keyAt.apply(i);
+                int cmp = -1;
+                while (j < size && (cmp = comparator.compare(keys.getKey(j), key)) < 0) ++j;
+                result[i] = j < size && cmp == 0 ? values[keys.getCoordinateAt(j)] : defaultValue;
+            }
+        } else {
+            for (int i=0; i<count; ++i) {
+                final int coordinate = keys.getCoordinate(keyAt.apply(i));
+                result[i] = coordinate < 0 ? defaultValue : values[coordinate];
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the values of the other series indexed by the coordinates of the keys in this series
+     * @param other     the other series
+     * @return          the values of other, with NaN for missing keys
+     */
+    private double[] alignedValues(DoubleSeries<K> other) {
+        if (isAligned(other)) {
+            return ((DenseDoubleSeries<K>)other).values;
+        } else {
+            final int size = size();
+            final double[] result = new double[values.length];
+            final double[] aligned;
+            if (other instanceof DenseDoubleSeries) {
+                aligned = ((DenseDoubleSeries<K>)other).align(size, keys::getKey, this::isAscending, Double.NaN);
+            } else {
+                aligned = new double[size];
+                for (int i=0; i<size; ++i) {
+                    aligned[i] = other.getDouble(keys.getKey(i));
+                }
+            }
+            Arrays.fill(result, Double.NaN);
+            for (int i=0; i<size; ++i) {
+                result[keys.getCoordinateAt(i)] = aligned[i];
+            }
+            return result;
+        }
+    }
+
+
+    /**
+     * Returns a series that combines this series with the other using the operation specified
+     * @param other     the other series
+     * @param op        the operation to apply
+     * @return          the resulting series, which shares the index of this series unless it is a view
+     */
+    private DenseDoubleSeries<K> combine(DoubleSeries<K> other, Op op) {
+        final double[] left = values;
+        final double[] right = alignedValues(other);
+        final double[] result = new double[values.length];
+        if (keys.isFilter()) {
+            Arrays.fill(result, Double.NaN);
+            for (int i=0; i<size(); ++i) {
+                final int coordinate = keys.getCoordinateAt(i);
+                result[coordinate] = apply(op, left[coordinate], right[coordinate]);
+            }
+        } else {
+            final int length = size();
+            switch (op) {
+                case PLUS:      for (int i=0; i<length; ++i) result[i] = left[i] + right[i];    break;
+                case MINUS:     for (int i=0; i<length; ++i) result[i] = left[i] - right[i];    break;
+                case TIMES:     for (int i=0; i<length; ++i) result[i] = left[i] * right[i];    break;
+                case DIVIDE:    for (int i=0; i<length; ++i) result[i] = left[i] / right[i];    break;
+                default:        throw new IllegalArgumentException("Unsupported operation: " + op);
+            }
+        }
+        return derive(result);
+    }
+
+
+    /**
+     * Returns the result of applying an operation to two values
+     * @param op    the operation
+     * @param v1    the left value
+     * @param v2    the right value
+     * @return      the result
+     */
+    private static double apply(Op op, double v1, double v2) {
+        switch (op) {
+            case PLUS:      return v1 + v2;
+            case MINUS:     return v1 - v2;
+            case TIMES:     return v1 * v2;
+            case DIVIDE:    return v1 / v2;
+            default:        throw new IllegalArgumentException("Unsupported operation: " + op);
+        }
+    }
+
+
+    /**
+     * Returns true if the keys of this series are comparable and in ascending order
+     * This is cached while this series owns its index and the size is unchanged, but checked on every call for a
+     * view, as the frame may re-order or add rows.
+     * @return  true if keys are in ascending order
+     */
+    private boolean isAscending() {
+        final int size = size();
+        if (!owned) {
+            return isAscending(size, keys::getKey);
+        } else if (ascendingSize != size) {
+            this.ascending = isAscending(size, keys::getKey);
+            this.ascendingSize = size;
+        }
+        return ascending;
+    }
+
+
+    /**
+     * Returns true if a count of keys are comparable and in strictly ascending order
+     * @param count     the number of keys
+     * @param keyAt     the function to access keys by position
+     * @return          true if keys are in ascending order
+     */
+    @SuppressWarnings("unchecked")
+    private boolean isAscending(int count, IntFunction<K> keyAt) {
+        if (!Comparable.class.isAssignableFrom(keyClass())) {
+            return false;
+        } else {
+            for (int i=1; i<count; ++i) {
+                final Comparable<Object> k1 = (Comparable<Object>)keyAt.apply(i - 1);
+                final Object k2 = keyAt.apply(i);
+                if (k1.compareTo(k2) >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
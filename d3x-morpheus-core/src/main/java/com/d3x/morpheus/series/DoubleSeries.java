@@ -507,6 +507,15 @@ public interface DoubleSeries<K> extends DataSeries<K,Double>, D3xVectorView, Da
         return DoubleSeriesBuilder.builder(keyType);
     }
 
+    /**
+     * Returns a new Builder for a DoubleSeries that stores keys in an Index and values in a primitive array
+     * @param keyType   the key type
+     * @return          the builder
+     */
+    static <K> DoubleSeriesBuilder.DenseDoubleSeriesBuilder<K> denseBuilder(Class<K> keyType) {
+        return DoubleSeriesBuilder.dense(keyType);
+    }
+
     /**
      * Returns a parameterized type to represent double map with key type
      * @param keyType   the parameterized type for double map
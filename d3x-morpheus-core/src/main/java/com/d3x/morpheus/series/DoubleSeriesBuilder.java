@@ -15,12 +15,14 @@
  */
 package com.d3x.morpheus.series;
 
+import java.util.Arrays;
 import java.util.stream.Stream;
 
 import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayBuilder;
 import com.d3x.morpheus.array.coding.IntCoding;
 import com.d3x.morpheus.array.coding.LongCoding;
+import com.d3x.morpheus.index.Index;
 import com.d3x.morpheus.util.IntComparator;
 import com.d3x.morpheus.util.SortAlgorithm;
 import com.d3x.morpheus.util.Swapper;
@@ -106,6 +108,15 @@ public interface DoubleSeriesBuilder<K> extends DataSeriesBuilder<K,Double> {
         }
     }
 
+    /**
+     * Returns a new Builder for a DenseDoubleSeries, which stores keys in an Index and values in a primitive array
+     * @param keyType   the key type
+     * @return          the builder
+     */
+    static <K> DenseDoubleSeriesBuilder<K> dense(Class<K> keyType) {
+        return new DenseDoubleSeriesBuilder<>(keyType);
+    }
+
 
     /**
      * A Builder for DefaultSeries
@@ -166,6 +177,99 @@ public interface DoubleSeriesBuilder<K> extends DataSeriesBuilder<K,Double> {
     }
 
 
+    /**
+     * A Builder for DenseDoubleSeries
+     */
+    class DenseDoubleSeriesBuilder<K> implements DoubleSeriesBuilder<K> {
+
+        private Class<K> keyType;
+        private Index<K> keys;
+        private double[] values;
+        private boolean sorted;
+
+        /**
+         * Constructor
+         * @param keyType   the key type
+         */
+        DenseDoubleSeriesBuilder(@lombok.NonNull Class<K> keyType) {
+            this.keyType = keyType;
+        }
+
+        /**
+         * Sets whether the keys should be sorted in ascending order when the series is built
+         * Series with ascending keys are aligned with a merge pass rather than a hash pass.
+         * @param sorted    true to sort keys on build
+         * @return          this builder
+         */
+        public DenseDoubleSeriesBuilder<K> sorted(boolean sorted) {
+            this.sorted = sorted;
+            return this;
+        }
+
+        @Override
+        public DenseDoubleSeries<K> build() {
+            this.capacity(100);
+            if (sorted) {
+                this.keys.sort(false, true);
+            }
+            if (values.length < keys.capacity()) {
+                this.ensure(keys.capacity() - 1);
+            }
+            return new DenseDoubleSeries<>(keys, values, sorted);
+        }
+
+        @Override
+        public DenseDoubleSeriesBuilder<K> capacity(int capacity) {
+            if (keys != null) {
+                return this;
+            } else {
+                this.keys = Index.of(keyType, capacity);
+                this.values = new double[Math.max(capacity, 1)];
+                Arrays.fill(values, Double.NaN);
+                return this;
+            }
+        }
+
+        @Override
+        public DenseDoubleSeriesBuilder<K> putDouble(@NonNull K key, double value) {
+            this.capacity(100);
+            final int coordinate = keys.add(key) ? keys.size() - 1 : keys.getCoordinate(key);
+            this.ensure(coordinate);
+            this.values[coordinate] = value;
+            return this;
+        }
+
+        @Override
+        public DenseDoubleSeriesBuilder<K> plusDouble(@NonNull K key, double value) {
+            this.capacity(100);
+            final int coordinate = keys.getCoordinate(key);
+            if (coordinate < 0) {
+                return putDouble(key, value);
+            } else if (!Double.isNaN(value)) {
+                var existing = values[coordinate];
+                var v1 = Double.isNaN(existing) ? 0d : existing;
+                this.values[coordinate] = v1 + value;
+                return this;
+            } else {
+                return this;
+            }
+        }
+
+        /**
+         * Ensures the values array can hold the coordinate specified
+         * @param coordinate    the key coordinate
+         */
+        private void ensure(int coordinate) {
+            if (coordinate >= values.length) {
+                final int length = values.length;
+                final int newLength = Math.max(Math.max(length * 2, coordinate + 1), keys.capacity());
+                this.values = Arrays.copyOf(values, newLength);
+                Arrays.fill(values, length, newLength, Double.NaN);
+            }
+        }
+    }
+
+
     /**
      * A Builder for IntCodingSeries
      */
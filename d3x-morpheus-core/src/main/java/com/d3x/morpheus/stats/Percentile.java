@@ -18,7 +18,6 @@ package com.d3x.morpheus.stats;
 import java.util.Arrays;
 
 import org.apache.commons.math3.stat.descriptive.rank.Median;
-import org.apache.commons.math3.stat.ranking.NaNStrategy;
 
 /**
  * A Statistic implementation that supports incremental calculation of a sample percentile value
@@ -50,10 +49,7 @@ public class Percentile implements Statistic1 {
 
     @Override
     public double getValue() {
-        return new org.apache.commons.math3.stat.descriptive.rank.Percentile(nth * 100)
-            .withEstimationType(org.apache.commons.math3.stat.descriptive.rank.Percentile.EstimationType.R_7)
-            .withNaNStrategy(NaNStrategy.FIXED)
-            .evaluate(values, 0, n);
+        return Selection.quantile(values, 0, n, nth);
     }
 
     @Override
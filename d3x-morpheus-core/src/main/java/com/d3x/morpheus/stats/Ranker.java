@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.stats;
+
+import org.apache.commons.math3.stat.ranking.NaNStrategy;
+import org.apache.commons.math3.stat.ranking.TiesStrategy;
+
+import com.d3x.morpheus.util.SortAlgorithm;
+
+/**
+ * A ranking algorithm that assigns natural ranks to primitive doubles based on a primitive argsort
+ *
+ * <p>
+ * This produces the same ranks as the commons-math <code>NaturalRanking</code> for the strategies it supports, but
+ * sorts primitive keys and indexes held in reusable buffers rather than boxing and copying values into pairs, and
+ * writes ranks straight into a caller supplied array. The NaN strategies MINIMAL, MAXIMAL, FIXED and FAILED are
+ * supported, as are the ties strategies MINIMUM, MAXIMUM, AVERAGE and SEQUENTIAL. A ranker holds scratch buffers
+ * so it is not thread safe, and parallel callers should use one instance per thread.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class Ranker {
+
+    private NaNStrategy nanStrategy;
+    private TiesStrategy tiesStrategy;
+    private double[] keys = new double[0];
+    private int[] indexes = new int[0];
+
+    /**
+     * Constructor
+     * @param nanStrategy   the strategy for ranking NaN values
+     * @param tiesStrategy  the strategy for ranking tied values
+     */
+    public Ranker(NaNStrategy nanStrategy, TiesStrategy tiesStrategy) {
+        switch (nanStrategy) {
+            case MINIMAL:   break;
+            case MAXIMAL:   break;
+            case FIXED:     break;
+            case FAILED:    break;
+            default:    throw new IllegalArgumentException("Unsupported NaN strategy specified: " + nanStrategy);
+        }
+        switch (tiesStrategy) {
+            case MINIMUM:       break;
+            case MAXIMUM:       break;
+            case AVERAGE:       break;
+            case SEQUENTIAL:    break;
+            default:    throw new IllegalArgumentException("Unsupported ties strategy specified: " + tiesStrategy);
+        }
+        this.nanStrategy = nanStrategy;
+        this.tiesStrategy = tiesStrategy;
+    }
+
+
+    /**
+     * Returns a copy of this ranker with the same strategies and its own scratch buffers
+     * @return  the copy of this ranker
+     */
+    public Ranker copy() {
+        return new Ranker(nanStrategy, tiesStrategy);
+    }
+
+
+    /**
+     * Returns a newly created array of ranks for the values specified
+     * @param values    the values to rank
+     * @return          the ranks of values
+     */
+    public double[] rank(double[] values) {
+        final double[] ranks = new double[values.length];
+        this.rank(values, values.length, ranks);
+        return ranks;
+    }
+
+
+    /**
+     * Ranks the first length values specified and writes the ranks into the result array
+     * @param values    the values to rank
+     * @param length    the number of values to rank
+     * @param ranks     the array to write ranks into, which may be the same as values
+     */
+    public void rank(double[] values, int length, double[] ranks) {
+        if (keys.length < length) {
+            this.keys = new double[length];
+            this.indexes = new int[length];
+        }
+        final double[] keys = this.keys;
+        final int[] indexes = this.indexes;
+        boolean hasNaN = false;
+        for (int i=0; i<length; ++i) {
+            final double value = values[i];
+            indexes[i] = i;
+            if (!Double.isNaN(value)) {
+                keys[i] = value;
+            } else {
+                switch (nanStrategy) {
+                    case MINIMAL:   keys[i] = Double.NEGATIVE_INFINITY;  break;
+                    case MAXIMAL:   keys[i] = Double.POSITIVE_INFINITY;  break;
+                    case FIXED:     keys[i] = Double.NaN;  hasNaN = true;  break;
+                    default:    throw new IllegalArgumentException("NaN value encountered at index " + i);
+                }
+            }
+        }
+        SortAlgorithm.getDefault(false).sort(0, length, (i, j) -> {
+            final int result = Double.compare(keys[i], keys[j]);
+            return result != 0 ? result : Integer.compare(indexes[i], indexes[j]);
+        }, (i, j) -> {
+            final double key = keys[i];
+            final int index = indexes[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+            indexes[i] = indexes[j];
+            indexes[j] = index;
+        });
+        int start = 0;
+        while (start < length) {
+            int end = start + 1;
+            while (end < length && Double.compare(keys[start], keys[end]) == 0) {
+                ++end;
+            }
+            for (int i=start; i<end; ++i) {
+                final double rank;
+                switch (tiesStrategy) {
+                    case MINIMUM:   rank = start + 1;  break;
+                    case MAXIMUM:   rank = end;  break;
+                    case AVERAGE:   rank = (start + 1 + end) / 2d;  break;
+                    default:        rank = i + 1;  break;
+                }
+                ranks[indexes[i]] = rank;
+            }
+            start = end;
+        }
+        if (hasNaN) {
+            for (int i=0; i<length; ++i) {
+                if (Double.isNaN(keys[i])) {
+                    ranks[indexes[i]] = Double.NaN;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.stats;
+
+import java.util.Arrays;
+
+/**
+ * A utility class that computes order statistics and quantiles of primitive double arrays using selection rather than sorting
+ *
+ * <p>
+ * A single quantile is computed with an introselect, which is a quickselect with median of three pivots that falls
+ * back to sorting the remaining range if partitioning fails to converge, so the expected cost is linear and the worst
+ * case is n log n. Multiple quantiles of the same data are computed from a single primitive sort. All methods reorder
+ * the range of the array they operate on, and expect that range to contain no NaN values.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class Selection {
+
+    private static final int INSERTION_THRESHOLD = 16;
+
+    /**
+     * Private constructor
+     */
+    private Selection() {
+        super();
+    }
+
+
+    /**
+     * Returns the k-th smallest value in the range, after partially reordering the range so that it sits at from + k
+     * @param values    the values to select from, which are reordered
+     * @param from      the from index in array, inclusive
+     * @param to        the to index in array, exclusive
+     * @param k         the zero based rank of the value to select within the range
+     * @return          the k-th smallest value in the range
+     */
+    public static double select(double[] values, int from, int to, int k) {
+        if (k < 0 || k >= to - from) {
+            throw new IllegalArgumentException("The selection rank " + k + " is out of bounds for length " + (to - from));
+        } else {
+            final int target = from + k;
+            int left = from;
+            int right = to - 1;
+            int depth = 2 * (32 - Integer.numberOfLeadingZeros(to - from));
+            while (right - left >= INSERTION_THRESHOLD) {
+                if (depth-- == 0) {
+                    Arrays.sort(values, left, right + 1);
+                    return values[target];
+                }
+                final int pivot = partition(values, left, right);
+                if (pivot == target) {
+                    return values[target];
+                } else if (pivot < target) {
+                    left = pivot + 1;
+                } else {
+                    right = pivot - 1;
+                }
+            }
+            insertionSort(values, left, right);
+            return values[target];
+        }
+    }
+
+
+    /**
+     * Returns the quantile of the values in the range, interpolated in the same way as Excel and R type 7
+     * @param values    the values to compute quantile from, which are reordered
+     * @param from      the from index in array, inclusive
+     * @param to        the to index in array, exclusive
+     * @param p         the probability for quantile in the range [0, 1]
+     * @return          the quantile value, NaN if the range is empty
+     */
+    public static double quantile(double[] values, int from, int to, double p) {
+        if (p < 0d || p > 1d) {
+            throw new IllegalArgumentException("The quantile probability must be in the range [0, 1], not " + p);
+        } else if (to <= from) {
+            return Double.NaN;
+        } else {
+            final double h = (to - from - 1) * p;
+            final int k = (int)Math.floor(h);
+            final double lower = select(values, from, to, k);
+            if (h == k) {
+                return lower;
+            } else {
+                double upper = values[from + k + 1];
+                for (int i = from + k + 2; i < to; ++i) {
+                    upper = Math.min(upper, values[i]);
+                }
+                return lower + (h - k) * (upper - lower);
+            }
+        }
+    }
+
+
+    /**
+     * Returns multiple quantiles of the values in the range with a single sort of the range
+     * @param values    the values to compute quantiles from, which are sorted
+     * @param from      the from index in array, inclusive
+     * @param to        the to index in array, exclusive
+     * @param p         the probabilities for quantiles, each in the range [0, 1]
+     * @return          the quantile values in the order of the probabilities
+     */
+    public static double[] quantiles(double[] values, int from, int to, double... p) {
+        final double[] result = new double[p.length];
+        Arrays.sort(values, from, to);
+        for (int i=0; i<p.length; ++i) {
+            if (p[i] < 0d || p[i] > 1d) {
+                throw new IllegalArgumentException("The quantile probability must be in the range [0, 1], not " + p[i]);
+            } else if (to <= from) {
+                result[i] = Double.NaN;
+            } else {
+                final double h = (to - from - 1) * p[i];
+                final int k = (int)Math.floor(h);
+                final double lower = values[from + k];
+                result[i] = h == k ? lower : lower + (h - k) * (values[from + k + 1] - lower);
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Partitions the range about a median of three pivot and returns the final index of the pivot
+     * @param values    the values to partition
+     * @param left      the left index, inclusive
+     * @param right     the right index, inclusive
+     * @return          the index of the pivot after partitioning
+     */
+    private static int partition(double[] values, int left, int right) {
+        final int middle = (left + right) >>> 1;
+        if (values[middle] < values[left]) swap(values, left, middle);
+        if (values[right] < values[left]) swap(values, left, right);
+        if (values[right] < values[middle]) swap(values, middle, right);
+        swap(values, middle, right - 1);
+        final double pivot = values[right - 1];
+        int i = left;
+        int j = right - 1;
+        while (true) {
+            while (values[++i] < pivot) ;
+            while (pivot < values[--j]) ;
+            if (i >= j) {
+                break;
+            }
+            swap(values, i, j);
+        }
+        swap(values, i, right - 1);
+        return i;
+    }
+
+
+    /**
+     * Sorts a small range of values with an insertion sort
+     * @param values    the values to sort
+     * @param left      the left index, inclusive
+     * @param right     the right index, inclusive
+     */
+    private static void insertionSort(double[] values, int left, int right) {
+        for (int i = left + 1; i <= right; ++i) {
+            final double value = values[i];
+            int j = i - 1;
+            while (j >= left && values[j] > value) {
+                values[j + 1] = values[j];
+                --j;
+            }
+            values[j + 1] = value;
+        }
+    }
+
+
+    /**
+     * Swaps two values in an array
+     * @param values    the array of values
+     * @param i         the first index
+     * @param j         the second index
+     */
+    private static void swap(double[] values, int i, int j) {
+        final double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.util;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * A class that defines a limit on the heap used by Morpheus, which large allocations check before they proceed
+ *
+ * <p>
+ * Operations that allocate in proportion to the size of a DataFrame, such as copies, capacity expansion, and the
+ * results of joins and group aggregations, compute the bytes they require analytically and ask the current budget
+ * whether they fit. An allocation fits if the heap in use plus the allocation stays within both the limit of the
+ * budget and the max heap of the JVM. Otherwise, an operation that can store its result in memory mapped arrays does
+ * so if the policy is <code>SPILL</code>, and any other operation fails fast with a <code>MemoryBudgetException</code>.
+ * Columns of types that cannot be memory mapped, such as strings and objects, have no alternative storage, so when
+ * an operation spills they stay on the heap regardless of the budget, and each such fallback is logged as a warning.
+ * Budget failures always surface as a <code>MemoryBudgetException</code>, never wrapped in another exception.
+ * </p>
+ *
+ * <p>
+ * The heap in use is read from the Runtime, so it includes garbage that has not yet been collected. The available
+ * bytes are therefore an estimate that errs low, and an allocation that does not fit is checked once more after a
+ * garbage collection is requested, before the operation spills or fails.
+ * </p>
+ *
+ * <p>
+ * The global budget is unlimited by default, and can be overridden for a single job, for example:
+ * <code>MemoryBudget.of(8L * 1024 * 1024 * 1024, MemoryBudget.Policy.SPILL).call(() -&gt; frame.copy())</code>.
+ * The budget of a job is bound to the calling thread, so parallel operations within the job run in a fork join
+ * pool whose workers are bound to the same budget, with the parallelism of the pool the job would otherwise use.
+ * That pool is created on first use, shared by all jobs run under the same budget, and its idle workers expire.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+@lombok.Getter
+@lombok.extern.slf4j.Slf4j()
+public class MemoryBudget {
+
+    /**
+     * The policy applied when an allocation does not fit in the budget
+     */
+    public enum Policy {
+        FAIL,
+        SPILL
+    }
+
+    private static final MemoryBudget UNLIMITED = new MemoryBudget(Long.MAX_VALUE, Policy.FAIL);
+    private static final ThreadLocal<MemoryBudget> currentBudget = new ThreadLocal<>();
+
+    private static volatile MemoryBudget global = UNLIMITED;
+
+    private final long limitBytes;
+    private final Policy policy;
+    @lombok.Getter(lombok.AccessLevel.NONE)
+    private ForkJoinPool workers;
+
+
+    /**
+     * Constructor
+     * @param limitBytes    the max heap in use after an allocation
+     * @param policy        the policy applied when an allocation does not fit
+     */
+    private MemoryBudget(long limitBytes, Policy policy) {
+        this.limitBytes = limitBytes;
+        this.policy = Objects.requireNonNull(policy, "The memory budget policy cannot be null");
+    }
+
+
+    /**
+     * Returns the unlimited budget, which never checks allocations
+     * @return  the unlimited budget
+     */
+    public static MemoryBudget unlimited() {
+        return UNLIMITED;
+    }
+
+
+    /**
+     * Returns a budget that limits the heap in use after an allocation
+     * @param limitBytes    the max heap in use after an allocation in bytes
+     * @param policy        the policy applied when an allocation does not fit
+     * @return              the newly created budget
+     */
+    public static MemoryBudget of(long limitBytes, Policy policy) {
+        if (limitBytes < 0) {
+            throw new IllegalArgumentException("The memory budget limit must be >= 0, not " + limitBytes);
+        } else {
+            return new MemoryBudget(limitBytes, policy);
+        }
+    }
+
+
+    /**
+     * Returns the global budget, which applies to jobs that do not run under their own budget
+     * @return  the global budget
+     */
+    public static MemoryBudget getGlobal() {
+        return global;
+    }
+
+
+    /**
+     * Sets the global budget, which applies to jobs that do not run under their own budget
+     * @param budget    the global budget, null for unlimited
+     */
+    public static void setGlobal(MemoryBudget budget) {
+        MemoryBudget.global = budget != null ? budget : UNLIMITED;
+    }
+
+
+    /**
+     * Returns the budget for the current job, which is the budget bound to the calling thread, or else the global budget
+     * @return  the budget for the current job
+     */
+    public static MemoryBudget current() {
+        final MemoryBudget budget = currentBudget.get();
+        return budget != null ? budget : global;
+    }
+
+
+    /**
+     * Returns the pool in which fork join tasks invoked by the calling thread should run, so that workers see its budget
+     * @param pool  the pool the tasks would run in if the calling thread were not bound to a budget
+     * @return      the pool with workers bound to the budget of the calling thread, otherwise the pool specified
+     */
+    public static ForkJoinPool pool(ForkJoinPool pool) {
+        final MemoryBudget budget = currentBudget.get();
+        return budget != null ? budget.workers(pool.getParallelism()) : pool;
+    }
+
+
+    /**
+     * Returns true if this budget never checks allocations
+     * @return  true if this budget is unlimited
+     */
+    public boolean isUnlimited() {
+        return this == UNLIMITED;
+    }
+
+
+    /**
+     * Returns an estimate of the number of bytes that can currently be allocated within this budget
+     * <p>The heap in use includes garbage not yet collected, so the estimate is low until the next collection.</p>
+     * @return  the estimated available bytes, which may be zero
+     */
+    public long available() {
+        final Runtime runtime = Runtime.getRuntime();
+        final long used = runtime.totalMemory() - runtime.freeMemory();
+        return Math.max(0L, Math.min(limitBytes, runtime.maxMemory()) - used);
+    }
+
+
+    /**
+     * Returns the available bytes if an allocation fits, after requesting a garbage collection if it does not at first
+     * @param bytes     the number of heap bytes required
+     * @return          the available bytes, which are less than the bytes required if the allocation does not fit
+     */
+    private long availableFor(long bytes) {
+        final long available = available();
+        if (bytes <= available) {
+            return available;
+        } else {
+            System.gc();
+            return available();
+        }
+    }
+
+
+    /**
+     * Returns the pool of workers bound to this budget, creating it on first use
+     * @param parallelism   the parallelism for the pool if it is created
+     * @return              the pool of workers bound to this budget
+     */
+    private synchronized ForkJoinPool workers(int parallelism) {
+        if (workers == null) {
+            this.workers = new ForkJoinPool(parallelism, pool -> new Worker(pool, this), null, false);
+        }
+        return workers;
+    }
+
+
+    /**
+     * Checks an allocation that could alternatively be stored in memory mapped arrays
+     * @param operation     the name of the operation
+     * @param bytes         the number of heap bytes required
+     * @return              true to allocate on the heap, false to spill to memory mapped arrays
+     * @throws MemoryBudgetException    if the allocation does not fit and the policy is FAIL
+     */
+    public boolean allocate(String operation, long bytes) {
+        if (isUnlimited()) {
+            return true;
+        } else {
+            final long available = availableFor(bytes);
+            if (bytes <= available) {
+                return true;
+            } else if (policy == Policy.SPILL) {
+                return false;
+            } else {
+                throw new MemoryBudgetException(operation, bytes, available);
+            }
+        }
+    }
+
+
+    /**
+     * Checks an allocation that can only be made on the heap
+     * @param operation     the name of the operation
+     * @param bytes         the number of heap bytes required
+     * @throws MemoryBudgetException    if the allocation does not fit, regardless of policy
+     */
+    public void require(String operation, long bytes) {
+        if (!isUnlimited()) {
+            final long available = availableFor(bytes);
+            if (bytes > available) {
+                throw new MemoryBudgetException(operation, bytes, available);
+            }
+        }
+    }
+
+
+    /**
+     * Records that part of a spilled allocation stays on the heap because its type cannot be memory mapped
+     * @param operation     the name of the operation
+     * @param type          the element type that cannot be memory mapped
+     * @param bytes         the number of heap bytes allocated regardless of the budget
+     */
+    public void fallback(String operation, Class<?> type, long bytes) {
+        if (bytes > 0L) {
+            log.warn("Memory budget exceeded by " + operation + ", keeping " + bytes + " bytes of " + type.getSimpleName() + " data on the heap as it cannot be memory mapped");
+        }
+    }
+
+
+    /**
+     * Runs a job with this budget bound to the calling thread, and returns its result
+     * @param job   the job to run
+     * @param <T>   the result type
+     * @return      the job result
+     */
+    public <T> T call(Callable<T> job) {
+        final MemoryBudget previous = currentBudget.get();
+        try {
+            currentBudget.set(this);
+            return job.call();
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new MorpheusException("Job failed under memory budget", ex);
+        } finally {
+            if (previous != null) {
+                currentBudget.set(previous);
+            } else {
+                currentBudget.remove();
+            }
+        }
+    }
+
+
+    /**
+     * Runs a job with this budget bound to the calling thread
+     * @param job   the job to run
+     */
+    public void run(Runnable job) {
+        this.call(() -> {
+            job.run();
+            return null;
+        });
+    }
+
+
+    @Override
+    public String toString() {
+        return isUnlimited() ? "MemoryBudget(unlimited)" : "MemoryBudget(limit=" + limitBytes + ", policy=" + policy + ")";
+    }
+
+
+    /**
+     * A fork join worker thread that is bound to a budget for its lifetime
+     */
+    private static class Worker extends ForkJoinWorkerThread {
+
+        private MemoryBudget budget;
+
+        /**
+         * Constructor
+         * @param pool      the pool this worker belongs to
+         * @param budget    the budget to bind to this worker
+         */
+        Worker(ForkJoinPool pool, MemoryBudget budget) {
+            super(pool);
+            this.budget = budget;
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            currentBudget.set(budget);
+        }
+    }
+}
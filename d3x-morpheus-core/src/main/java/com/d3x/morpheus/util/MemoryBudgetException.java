@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.util;
+
+/**
+ * An exception raised when an operation would allocate more heap than allowed by the current MemoryBudget
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+@lombok.Getter
+public class MemoryBudgetException extends MorpheusException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String operation;
+    private final long requiredBytes;
+    private final long availableBytes;
+
+    /**
+     * Constructor
+     * @param operation         the name of the operation that exceeded the budget
+     * @param requiredBytes     the number of heap bytes required by the operation
+     * @param availableBytes    the number of heap bytes available in the budget
+     */
+    public MemoryBudgetException(String operation, long requiredBytes, long availableBytes) {
+        super("The %s operation requires %,d bytes which exceeds the %,d bytes available in the memory budget", operation, requiredBytes, availableBytes);
+        this.operation = operation;
+        this.requiredBytes = requiredBytes;
+        this.availableBytes = availableBytes;
+    }
+}
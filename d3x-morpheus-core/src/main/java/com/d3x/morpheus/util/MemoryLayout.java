@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.util;
+
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import gnu.trove.impl.hash.THash;
+import gnu.trove.impl.hash.TPrimitiveHash;
+
+/**
+ * A class that computes the heap footprint of Morpheus data structures analytically from the layout of the JVM.
+ *
+ * <p>
+ * Sizes are derived from the object header, reference and alignment sizes of the running HotSpot VM, so that
+ * the retained bytes of an Array, Index or DataFrame can be computed analytically without instrumentation or
+ * walking the object graph. The layout of primitive arrays and of the structures themselves is exact. Strings and
+ * boxed primitives referenced by an array of objects are counted in full for every reference, even though cached
+ * boxes such as small Integers and Boolean.TRUE, and interned or otherwise shared strings, are held elsewhere and
+ * would not be freed with the array, so the total is an upper bound for arrays of such values. All other object
+ * values are counted as references only.
+ * </p>
+ *
+ * <p>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class MemoryLayout {
+
+    /** The size of an object reference in bytes */
+    public static final int REFERENCE_BYTES;
+    /** The size of the header of a plain object in bytes */
+    public static final int OBJECT_HEADER_BYTES;
+    /** The size of the header of an array in bytes, including the length */
+    public static final int ARRAY_HEADER_BYTES;
+    /** The heap footprint of the direct buffer that fronts a memory mapped array */
+    public static final long MAPPED_BUFFER_BYTES;
+
+    private static final int ALIGNMENT = 8;
+
+    /*
+     * Static initializer
+     */
+    static {
+        final boolean compressed = isCompressedOops();
+        REFERENCE_BYTES = compressed ? 4 : 8;
+        OBJECT_HEADER_BYTES = compressed ? 12 : 16;
+        ARRAY_HEADER_BYTES = compressed ? 16 : 24;
+        MAPPED_BUFFER_BYTES = shallow(6, 38);
+    }
+
+    /**
+     * Private constructor
+     */
+    private MemoryLayout() {
+        super();
+    }
+
+
+    /**
+     * Returns true if the running VM uses compressed object pointers
+     * @return  true if compressed oops are enabled
+     */
+    private static boolean isCompressedOops() {
+        try {
+            final HotSpotDiagnosticMXBean bean = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            return Boolean.parseBoolean(bean.getVMOption("UseCompressedOops").getValue());
+        } catch (Throwable t) {
+            return Runtime.getRuntime().maxMemory() < 32L * 1024L * 1024L * 1024L;
+        }
+    }
+
+
+    /**
+     * Returns the size rounded up to the object alignment of the VM
+     * @param bytes     the unaligned size in bytes
+     * @return          the aligned size in bytes
+     */
+    public static long align(long bytes) {
+        return (bytes + ALIGNMENT - 1) & ~(long)(ALIGNMENT - 1);
+    }
+
+
+    /**
+     * Returns the shallow size of an object with the fields specified
+     * @param references        the number of reference fields, including inherited fields
+     * @param primitiveBytes    the total size of primitive fields, including inherited fields
+     * @return                  the shallow size of the object in bytes
+     */
+    public static long shallow(int references, int primitiveBytes) {
+        return align(OBJECT_HEADER_BYTES + (long)references * REFERENCE_BYTES + primitiveBytes);
+    }
+
+
+    /**
+     * Returns the size of a primitive array with the element size specified
+     * @param length        the array length
+     * @param elementBytes  the size of each element in bytes
+     * @return              the size of the array in bytes
+     */
+    public static long array(long length, int elementBytes) {
+        return align(ARRAY_HEADER_BYTES + length * elementBytes);
+    }
+
+
+    /**
+     * Returns the size of an array of object references, excluding the objects referenced
+     * @param length    the array length
+     * @return          the size of the array in bytes
+     */
+    public static long references(long length) {
+        return array(length, REFERENCE_BYTES);
+    }
+
+
+    /**
+     * Returns the retained size of a string, assuming compact strings
+     * @param value     the string value
+     * @return          the retained size in bytes
+     */
+    public static long string(String value) {
+        final int length = value.length();
+        for (int i=0; i<length; ++i) {
+            if (value.charAt(i) > 0xFF) {
+                return shallow(1, 6) + array(length, 2);
+            }
+        }
+        return shallow(1, 6) + array(length, 1);
+    }
+
+
+    /**
+     * Returns the retained size of an object value held by an array, excluding the reference to it
+     * <p>The full size is returned even if the value is a cached box or a shared string that the array does not own.</p>
+     * @param value     the value, which may be null
+     * @return          the retained size in bytes, zero for null or values other than strings and boxed primitives
+     */
+    public static long value(Object value) {
+        if (value == null) {
+            return 0L;
+        } else if (value instanceof String) {
+            return string((String)value);
+        } else if (value instanceof Double || value instanceof Long) {
+            return shallow(0, 8);
+        } else if (value instanceof Integer || value instanceof Float) {
+            return shallow(0, 4);
+        } else if (value instanceof Short || value instanceof Character) {
+            return shallow(0, 2);
+        } else if (value instanceof Boolean || value instanceof Byte) {
+            return shallow(0, 1);
+        } else {
+            return 0L;
+        }
+    }
+
+
+    /**
+     * Returns the retained size of a Trove hash map or set, excluding any objects referenced by it
+     * @param hash          the Trove hash, which must extend THash
+     * @param keyBytes      the size of each key slot, which is the reference size for object keys
+     * @param valueBytes    the size of each value slot, zero for sets
+     * @return              the retained size in bytes
+     */
+    public static long hash(Object hash, int keyBytes, int valueBytes) {
+        if (!(hash instanceof THash)) {
+            throw new IllegalArgumentException("Unsupported hash implementation: " + hash);
+        } else {
+            final int capacity = ((THash)hash).capacity();
+            final long states = hash instanceof TPrimitiveHash ? array(capacity, 1) : 0L;
+            final long values = valueBytes > 0 ? array(capacity, valueBytes) : 0L;
+            return shallow(4, 28) + array(capacity, keyBytes) + values + states;
+        }
+    }
+}
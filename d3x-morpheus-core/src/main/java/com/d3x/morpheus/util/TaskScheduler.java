@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.util;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A class that schedules the fork join tasks used by Morpheus, and adapts their leaf size to the measured cost of each operation
+ *
+ * <p>
+ * Recursive tasks report the time spent in their leaves via <code>record()</code>, which calibrates a cost per unit of
+ * work for each named operation. Once calibrated, <code>getLeafSize()</code> chooses a leaf size that keeps each leaf
+ * close to the target duration, does not split work that is cheaper than two leaves or runs in a single worker pool,
+ * and never creates fewer leaves than the parallelism of the pool. Until an operation is calibrated, the fallback threshold of the caller applies.
+ * </p>
+ *
+ * <p>
+ * Tasks run in the common pool unless a job is run via a scheduler bound to a dedicated pool, for example:
+ * <code>TaskScheduler.of(pool).call(() -&gt; frame.rows().stats().mean())</code>. Nested operations that run on the
+ * worker threads of a dedicated pool stay in that pool.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class TaskScheduler {
+
+    private static final TaskScheduler defaultScheduler = new TaskScheduler(ForkJoinPool.commonPool());
+    private static final ThreadLocal<TaskScheduler> currentScheduler = new ThreadLocal<>();
+    private static final Map<String,Cost> costMap = new ConcurrentHashMap<>();
+
+    private static volatile boolean adaptive = true;
+    private static volatile long targetLeafNanos = 500000L;
+
+    @lombok.Getter
+    private final ForkJoinPool pool;
+
+
+    /**
+     * Constructor
+     * @param pool  the fork join pool for tasks
+     */
+    private TaskScheduler(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, "The fork join pool cannot be null");
+    }
+
+
+    /**
+     * Returns the default scheduler which uses the common fork join pool
+     * @return  the default scheduler
+     */
+    public static TaskScheduler getDefault() {
+        return defaultScheduler;
+    }
+
+
+    /**
+     * Returns a scheduler that runs tasks in the pool specified
+     * @param pool  the fork join pool for tasks
+     * @return      the newly created scheduler
+     */
+    public static TaskScheduler of(ForkJoinPool pool) {
+        return pool == ForkJoinPool.commonPool() ? defaultScheduler : new TaskScheduler(pool);
+    }
+
+
+    /**
+     * Returns the scheduler for the current job, which is the scheduler bound to the calling thread, the scheduler
+     * for the pool if the calling thread is a worker of a dedicated pool, or otherwise the default scheduler
+     * @return  the scheduler for the current job
+     */
+    public static TaskScheduler current() {
+        final TaskScheduler scheduler = currentScheduler.get();
+        if (scheduler != null) {
+            return scheduler;
+        } else {
+            final ForkJoinPool pool = ForkJoinTask.getPool();
+            return pool == null ? defaultScheduler : of(pool);
+        }
+    }
+
+
+    /**
+     * Returns true if leaf sizes adapt to measured cost
+     * @return  true if adaptive scheduling is enabled
+     */
+    public static boolean isAdaptive() {
+        return adaptive;
+    }
+
+
+    /**
+     * Sets whether leaf sizes adapt to measured cost, otherwise the fallback thresholds always apply
+     * @param adaptive  true to enable adaptive scheduling
+     */
+    public static void setAdaptive(boolean adaptive) {
+        TaskScheduler.adaptive = adaptive;
+    }
+
+
+    /**
+     * Returns the target duration of each leaf task in nanoseconds
+     * @return  the target leaf duration in nanoseconds
+     */
+    public static long getTargetLeafNanos() {
+        return targetLeafNanos;
+    }
+
+
+    /**
+     * Sets the target duration of each leaf task in nanoseconds
+     * @param targetLeafNanos   the target leaf duration in nanoseconds
+     */
+    public static void setTargetLeafNanos(long targetLeafNanos) {
+        if (targetLeafNanos <= 0) {
+            throw new IllegalArgumentException("The target leaf duration must be > 0, not " + targetLeafNanos);
+        } else {
+            TaskScheduler.targetLeafNanos = targetLeafNanos;
+        }
+    }
+
+
+    /**
+     * Returns the calibrated cost of an operation in nanoseconds per unit of work
+     * @param operation the operation name
+     * @return          the calibrated cost, empty if the operation has not been sampled
+     */
+    public static OptionalDouble getCost(String operation) {
+        final Cost cost = costMap.get(operation);
+        return cost == null ? OptionalDouble.empty() : OptionalDouble.of(cost.nanosPerUnit);
+    }
+
+
+    /**
+     * Clears all calibrated costs
+     */
+    public static void reset() {
+        costMap.clear();
+    }
+
+
+    /**
+     * Records the time taken by a leaf task of an operation, which calibrates the cost of that operation
+     * @param operation the operation name
+     * @param units     the units of work done by the leaf
+     * @param nanos     the time taken by the leaf in nanoseconds
+     */
+    public static void record(String operation, long units, long nanos) {
+        if (adaptive && units > 0 && nanos > 0) {
+            costMap.computeIfAbsent(operation, key -> new Cost()).update((double)nanos / units);
+        }
+    }
+
+
+    /**
+     * Returns the number of elements per leaf task for an operation over the elements specified
+     * @param operation the operation name
+     * @param count     the number of elements, such as rows or columns
+     * @param width     the units of work per element, such as the number of cells in a row
+     * @param fallback  the threshold to use if the operation has not been calibrated
+     * @return          the number of elements per leaf task
+     */
+    public int getLeafSize(String operation, int count, int width, int fallback) {
+        final Cost cost = adaptive ? costMap.get(operation) : null;
+        if (cost == null || count <= 0) {
+            return fallback;
+        } else {
+            final double elementNanos = Math.max(cost.nanosPerUnit * Math.max(width, 1), 1d);
+            final int parallelism = pool.getParallelism();
+            final long target = targetLeafNanos;
+            if (parallelism <= 1 || elementNanos * count < 2d * target) {
+                return count;
+            } else {
+                final int maxLeafSize = (int)Math.ceil((double)count / parallelism);
+                final int leafSize = (int)Math.min(maxLeafSize, Math.ceil(target / elementNanos));
+                return Math.max(leafSize, 1);
+            }
+        }
+    }
+
+
+    /**
+     * Invokes the task in the pool of this scheduler and returns its result
+     * <p>If the calling thread runs a job under a MemoryBudget, the task runs in a pool of the same parallelism whose
+     * workers are bound to that budget, so that allocations made by any subtask are checked against it.</p>
+     * @param task  the task to invoke
+     * @param <T>   the result type
+     * @return      the task result
+     */
+    public <T> T invoke(ForkJoinTask<T> task) {
+        return MemoryBudget.pool(pool).invoke(task);
+    }
+
+
+    /**
+     * Calls the job with this scheduler bound to the calling thread, so that parallel operations run in its pool
+     * @param job   the job to call
+     * @param <T>   the result type
+     * @return      the job result
+     */
+    public <T> T call(Callable<T> job) {
+        final TaskScheduler previous = currentScheduler.get();
+        try {
+            currentScheduler.set(this);
+            return job.call();
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new MorpheusException("Job failed in task scheduler", ex);
+        } finally {
+            if (previous != null) {
+                currentScheduler.set(previous);
+            } else {
+                currentScheduler.remove();
+            }
+        }
+    }
+
+
+    /**
+     * Runs the job with this scheduler bound to the calling thread, so that parallel operations run in its pool
+     * @param job   the job to run
+     */
+    public void run(Runnable job) {
+        this.call(() -> {
+            job.run();
+            return null;
+        });
+    }
+
+
+    @Override
+    public String toString() {
+        return "TaskScheduler(parallelism=" + pool.getParallelism() + ", adaptive=" + adaptive + ")";
+    }
+
+
+    /**
+     * The calibrated cost of an operation, as an exponentially weighted average of sampled leaf timings
+     */
+    private static class Cost {
+
+        private static final double alpha = 0.25d;
+
+        private volatile double nanosPerUnit = Double.NaN;
+
+        /**
+         * Updates this cost with a sampled cost per unit of work
+         * @param sample    the sampled nanoseconds per unit of work
+         */
+        private synchronized void update(double sample) {
+            final double current = nanosPerUnit;
+            this.nanosPerUnit = Double.isNaN(current) ? sample : current + alpha * (sample - current);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.util.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * An interface to a store of HTTP response content keyed by request URL, which is used by the caching HttpClient
+ *
+ * <p>
+ * Implementations must be safe for concurrent use, and are free to evict entries at any time. The freshness
+ * policy is applied by the caching client, which revalidates stale entries with the origin server using the
+ * <code>ETag</code> and <code>Last-Modified</code> validators captured in each entry.
+ * </p>
+ *
+ * @see HttpClient#withCache(HttpCache, java.time.Duration)
+ *
+ * @author Xavier Witdouck
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ */
+public interface HttpCache {
+
+    /**
+     * Returns the cached entry for the key, if any
+     * @param key   the cache key, which is the request URL
+     * @return      the optional cache entry
+     */
+    Optional<Entry> get(String key);
+
+    /**
+     * Stores the response content for the key, replacing any existing entry
+     * @param key       the cache key, which is the request URL
+     * @param headers   the response headers to store with the content
+     * @param content   the response content, which is read to the end but not closed
+     * @return          the newly stored entry
+     * @throws IOException  if the content cannot be read or stored
+     */
+    Entry put(String key, List<HttpHeader> headers, InputStream content) throws IOException;
+
+    /**
+     * Records that the entry for the key has just been revalidated with the origin server
+     * @param key   the cache key, which is the request URL
+     * @return      the revalidated entry, empty if the entry no longer exists
+     */
+    Optional<Entry> touch(String key);
+
+    /**
+     * Removes the entry for the key if it exists
+     * @param key   the cache key, which is the request URL
+     */
+    void remove(String key);
+
+    /**
+     * Removes all entries from this cache
+     */
+    void clear();
+
+    /**
+     * Returns the total size in bytes of the content held by this cache
+     * @return      the total size in bytes
+     */
+    long size();
+
+
+    /**
+     * An interface to a single entry in an HttpCache
+     */
+    interface Entry {
+
+        /**
+         * Returns the epoch millis at which this entry was last stored or revalidated
+         * @return  the epoch millis this entry was validated
+         */
+        long getValidated();
+
+        /**
+         * Returns the length in bytes of the content for this entry
+         * @return  the content length in bytes
+         */
+        long getLength();
+
+        /**
+         * Returns the response headers stored with this entry
+         * @return  the response headers
+         */
+        List<HttpHeader> getHeaders();
+
+        /**
+         * Returns a newly opened stream to read the content for this entry
+         * @return  the content stream, which the caller must close
+         * @throws java.io.FileNotFoundException   if the entry was evicted before the stream could be opened
+         * @throws IOException  if the content cannot be read
+         */
+        InputStream openStream() throws IOException;
+
+        /**
+         * Returns the value of the first header with the name specified, ignoring case
+         * @param name  the header name
+         * @return      the optional header value
+         */
+        default Optional<String> getHeader(String name) {
+            for (HttpHeader header : getHeaders()) {
+                if (header.getKey().equalsIgnoreCase(name)) {
+                    return Optional.ofNullable(header.getValue());
+                }
+            }
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.util.http;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import com.d3x.morpheus.util.Initialiser;
+
+/**
+ * An HttpClient that serves GET requests from an HttpCache, delegating to another client for cache misses
+ *
+ * <p>
+ * Entries validated within the time to live are served without any network access. Stale entries are revalidated
+ * with a conditional request that carries the <code>If-None-Match</code> and <code>If-Modified-Since</code> headers
+ * of the entry, so that a <code>304 Not Modified</code> response refreshes the entry without a new download. A
+ * <code>200 OK</code> response is written to the cache before being passed to the response handler, and all other
+ * responses, as well as POST requests, pass straight through to the handler.
+ * </p>
+ *
+ * @author Xavier Witdouck
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ */
+public class HttpCacheClient extends HttpClient {
+
+    /** The client used to make requests that cannot be served from the cache */
+    @lombok.Getter private final HttpClient delegate;
+    /** The cache that holds response content */
+    @lombok.Getter private final HttpCache cache;
+    /** The time after which a cached entry must be revalidated */
+    @lombok.Getter private final Duration ttl;
+
+
+    /**
+     * Constructor
+     * @param delegate  the client used to make requests that cannot be served from the cache
+     * @param cache     the cache that holds response content
+     * @param ttl       the time after which a cached entry must be revalidated
+     */
+    public HttpCacheClient(HttpClient delegate, HttpCache cache, Duration ttl) {
+        this.delegate = Objects.requireNonNull(delegate, "The delegate client cannot be null");
+        this.cache = Objects.requireNonNull(cache, "The cache cannot be null");
+        this.ttl = Objects.requireNonNull(ttl, "The cache time to live cannot be null");
+    }
+
+
+    @Override
+    public <T> Optional<T> doGet(Consumer<HttpRequest<T>> configurator) {
+        final HttpRequest<T> request = Initialiser.apply(new HttpRequest<>(HttpMethod.GET), configurator);
+        final String key = request.getUrl().toString();
+        final Optional<HttpCache.Entry> cached = cache.get(key);
+        if (cached.isPresent() && isFresh(cached.get())) {
+            final InputStream stream = open(request, cached.get());
+            return stream != null ? respond(request, cached.get(), stream) : execute(request, key, null, true);
+        } else {
+            return execute(request, key, cached.orElse(null), true);
+        }
+    }
+
+
+    @Override
+    public <T> Optional<T> doPost(Consumer<HttpPost<T>> configurator) {
+        return delegate.doPost(configurator);
+    }
+
+
+    /**
+     * Returns true if the entry was validated within the time to live
+     * @param entry the cache entry
+     * @return      true if the entry can be served without revalidation
+     */
+    private boolean isFresh(HttpCache.Entry entry) {
+        return System.currentTimeMillis() - entry.getValidated() < ttl.toMillis();
+    }
+
+
+    /**
+     * Executes the request with the delegate client, conditional on the validators of the stale entry if specified
+     * <p>If the entry is evicted between being written or refreshed and being opened, the request is made once more
+     * without validators, and a second eviction is reported as an HttpException rather than retried again.</p>
+     * @param request   the request descriptor
+     * @param key       the cache key
+     * @param stale     the stale cache entry, null if there is no entry
+     * @param retry     true if the request may be made once more after the entry is evicted
+     * @param <T>       the type produced by the response handler
+     * @return          the result produced by the response handler
+     */
+    private <T> Optional<T> execute(HttpRequest<T> request, String key, HttpCache.Entry stale, boolean retry) {
+        final boolean[] evicted = new boolean[1];
+        final Optional<T> result = delegate.<T>doGet(conditional -> {
+            conditional.setUrl(request.getUrl());
+            conditional.setRetryCount(request.getRetryCount());
+            conditional.setReadTimeout(request.getReadTimeout());
+            conditional.setConnectTimeout(request.getConnectTimeout());
+            conditional.getHeaders().putAll(request.getHeaders());
+            conditional.getCookies().putAll(request.getCookies());
+            if (stale != null) {
+                stale.getHeader("ETag").ifPresent(etag -> conditional.getHeaders().put("If-None-Match", etag));
+                stale.getHeader("Last-Modified").ifPresent(time -> conditional.getHeaders().put("If-Modified-Since", time));
+            }
+            conditional.setResponseHandler(response -> {
+                final int code = response.getStatus().getCode();
+                if (code == HttpURLConnection.HTTP_NOT_MODIFIED && stale != null) {
+                    final Optional<HttpCache.Entry> entry = cache.touch(key);
+                    final InputStream content = entry.map(e -> open(request, e)).orElse(null);
+                    evicted[0] = content == null;
+                    return content != null ? respond(request, entry.get(), content) : Optional.empty();
+                } else if (code == HttpURLConnection.HTTP_OK) {
+                    try (InputStream stream = response.getStream()) {
+                        final HttpCache.Entry entry = cache.put(key, response.getHeaders(), stream);
+                        final InputStream content = open(request, entry);
+                        evicted[0] = content == null;
+                        return content != null ? respond(request, entry, content) : Optional.empty();
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException("Failed to cache HTTP response for " + key, ex);
+                    }
+                } else {
+                    return request.getResponseHandler().flatMap(handler -> handler.onResponse(response));
+                }
+            });
+        });
+        if (!evicted[0]) {
+            return result;
+        } else if (retry) {
+            return execute(request, key, null, false);
+        } else {
+            throw new HttpException(request, "Cache entry was evicted before it could be read for " + key, null);
+        }
+    }
+
+
+    /**
+     * Returns a newly opened stream on the content of the cache entry
+     * @param request   the request descriptor
+     * @param entry     the cache entry
+     * @return          the content stream, null if the entry was evicted before it could be opened
+     */
+    private InputStream open(HttpRequest<?> request, HttpCache.Entry entry) {
+        try {
+            return entry.openStream();
+        } catch (FileNotFoundException ex) {
+            return null;
+        } catch (IOException ex) {
+            throw new HttpException(request, "Failed to open cached response for " + request.getUrl(), ex);
+        }
+    }
+
+
+    /**
+     * Passes the content of the cache entry to the response handler of the request
+     * @param request   the request descriptor
+     * @param entry     the cache entry
+     * @param stream    the content stream opened on the entry, which is closed by this method
+     * @param <T>       the type produced by the response handler
+     * @return          the result produced by the response handler
+     */
+    private <T> Optional<T> respond(HttpRequest<T> request, HttpCache.Entry entry, InputStream stream) {
+        try (CachedResponse response = new CachedResponse(entry, stream)) {
+            return request.getResponseHandler().flatMap(handler -> handler.onResponse(response));
+        } catch (IOException ex) {
+            throw new HttpException(request, "Failed to read cached response for " + request.getUrl(), ex);
+        }
+    }
+
+
+    /**
+     * An HttpResponse that presents the content of a cache entry as a 200 OK response
+     */
+    private static class CachedResponse implements HttpResponse {
+
+        private final HttpCache.Entry entry;
+        private final InputStream stream;
+
+        /**
+         * Constructor
+         * @param entry     the cache entry
+         * @param stream    the content stream opened on the entry
+         */
+        CachedResponse(HttpCache.Entry entry, InputStream stream) {
+            this.entry = entry;
+            this.stream = stream;
+        }
+
+        @Override
+        public HttpStatus getStatus() {
+            return new HttpStatus(HttpURLConnection.HTTP_OK, "OK");
+        }
+
+        @Override
+        public InputStream getStream() {
+            return stream;
+        }
+
+        @Override
+        public List<HttpHeader> getHeaders() {
+            return entry.getHeaders();
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
+}
@@ -21,10 +21,23 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.zip.GZIPInputStream;
 
 import com.d3x.morpheus.util.IO;
@@ -65,6 +78,71 @@ public abstract class HttpClient {
     }
 
 
+    /**
+     * Returns a client that serves GET requests from the cache specified, and delegates all other requests to this client
+     * @param cache     the cache that holds response content
+     * @param ttl       the time after which a cached entry is revalidated with the origin server
+     * @return          the caching client
+     */
+    public HttpClient withCache(HttpCache cache, Duration ttl) {
+        return new HttpCacheClient(this, cache, ttl);
+    }
+
+
+    /**
+     * Returns the results of applying a fetch function to each key, with at most maxConcurrency calls in flight
+     * <p>Fetches run on a dedicated pool of daemon threads so that blocking I/O never occupies the fork-join common pool.
+     * Results are collected in completion order, so the first fetch to fail cancels all outstanding fetches, interrupting
+     * those in flight, and its exception is re-thrown to the caller without waiting for fetches submitted earlier.</p>
+     * @param keys              the keys to fetch, such as dataset codes or URLs
+     * @param maxConcurrency    the max number of fetches to run concurrently
+     * @param fetcher           the function that fetches and parses the value for a key
+     * @param <K>               the key type
+     * @param <V>               the value type
+     * @return                  the map of results, in the iteration order of the keys
+     */
+    public static <K,V> Map<K,V> fetchAll(Collection<K> keys, int maxConcurrency, Function<K,V> fetcher) {
+        final Map<K,V> results = new LinkedHashMap<>(keys.size());
+        final int threadCount = Math.min(maxConcurrency, keys.size());
+        if (threadCount <= 1) {
+            keys.forEach(key -> results.put(key, fetcher.apply(key)));
+            return results;
+        } else {
+            final AtomicInteger threadIndex = new AtomicInteger();
+            final ExecutorService executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+                final Thread thread = new Thread(runnable, "morpheus-http-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            final CompletionService<V> completion = new ExecutorCompletionService<>(executor);
+            final Map<Future<V>,K> futures = new HashMap<>(keys.size() * 2);
+            try {
+                keys.forEach(key -> futures.put(completion.submit(() -> fetcher.apply(key)), key));
+                final Map<K,V> fetched = new HashMap<>(keys.size() * 2);
+                for (int i=0; i<futures.size(); ++i) {
+                    final Future<V> future = completion.take();
+                    fetched.put(futures.get(future), future.get());
+                }
+                keys.forEach(key -> results.put(key, fetched.get(key)));
+                return results;
+            } catch (ExecutionException ex) {
+                futures.keySet().forEach(future -> future.cancel(true));
+                final Throwable cause = ex.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException)cause;
+                } else {
+                    throw new RuntimeException("Failed to fetch resource: " + cause.getMessage(), cause);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while fetching resources", ex);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+
     /**
      * Executes an HTTP GET request using the configurator to setup the request descriptor
      * @param configurator  the HTTP request configurator
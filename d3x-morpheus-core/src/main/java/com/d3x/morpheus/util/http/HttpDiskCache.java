@@ -0,0 +1,428 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.util.http;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * An HttpCache that persists response content to files in a directory, bounded in total size by LRU eviction
+ *
+ * <p>
+ * Each entry is stored as a content file and a small properties file with the response headers and the time the
+ * entry was last validated, both named by a SHA-256 digest of the request URL so that URLs containing credentials
+ * never appear on disk. Entries found in the directory are reloaded on construction, so the cache survives across
+ * processes, and the modification time of each content file records its last access to preserve the LRU order.
+ * </p>
+ *
+ * <p>
+ * Streams opened on an entry pin its files, so an entry evicted or removed while it is being read is dropped from
+ * the index immediately but its files are only deleted once the last open stream is closed. An entry evicted after
+ * it was returned by <code>get()</code> but before its stream is opened fails to open with a FileNotFoundException,
+ * which callers should treat as a cache miss.
+ * </p>
+ *
+ * @author Xavier Witdouck
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ */
+@lombok.extern.slf4j.Slf4j()
+public class HttpDiskCache implements HttpCache {
+
+    private static final String DATA = ".data";
+    private static final String META = ".meta";
+    private static final Set<String> EXCLUDED = Set.of("content-encoding", "content-length", "transfer-encoding", "set-cookie");
+
+    /** The directory that holds the cache files */
+    @lombok.Getter private final File directory;
+    /** The max total size in bytes of the content held by this cache */
+    @lombok.Getter private final long maxBytes;
+
+    private long totalBytes;
+    private final Map<String,DiskEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String,Integer> readers = new HashMap<>();
+    private final Set<String> doomed = new HashSet<>();
+
+
+    /**
+     * Constructor
+     * @param directory the directory to hold the cache files, which is created if it does not exist
+     * @param maxBytes  the max total size in bytes of the content held by this cache
+     */
+    public HttpDiskCache(File directory, long maxBytes) {
+        Objects.requireNonNull(directory, "The cache directory cannot be null");
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("The max cache size must be > 0, not " + maxBytes);
+        } else if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new RuntimeException("Failed to create HTTP cache directory: " + directory.getAbsolutePath());
+        } else {
+            this.directory = directory;
+            this.maxBytes = maxBytes;
+            this.load();
+        }
+    }
+
+
+    /**
+     * Loads the entries persisted in the cache directory, least recently used first
+     */
+    private synchronized void load() {
+        final File[] files = directory.listFiles((dir, name) -> name.endsWith(META));
+        final List<DiskEntry> loaded = new ArrayList<>();
+        for (File file : files != null ? files : new File[0]) {
+            final String name = file.getName();
+            final String hash = name.substring(0, name.length() - META.length());
+            final DiskEntry entry = read(hash);
+            if (entry != null) {
+                loaded.add(entry);
+            } else {
+                delete(hash);
+            }
+        }
+        loaded.sort(Comparator.comparingLong(entry -> entry.data.lastModified()));
+        loaded.forEach(entry -> {
+            this.entries.put(entry.hash, entry);
+            this.totalBytes += entry.length;
+        });
+        this.evict();
+    }
+
+
+    @Override
+    public Optional<Entry> get(String key) {
+        final String hash = hash(key);
+        synchronized (this) {
+            final DiskEntry entry = entries.get(hash);
+            if (entry == null) {
+                return Optional.empty();
+            } else if (!entry.data.setLastModified(System.currentTimeMillis())) {
+                this.remove(hash, entry);
+                return Optional.empty();
+            } else {
+                return Optional.of(entry);
+            }
+        }
+    }
+
+
+    @Override
+    public Entry put(String key, List<HttpHeader> headers, InputStream content) throws IOException {
+        final String hash = hash(key);
+        final File temp = File.createTempFile("http", ".tmp", directory);
+        try {
+            final long length = Files.copy(content, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            final List<HttpHeader> retained = new ArrayList<>(headers.size());
+            for (HttpHeader header : headers) {
+                if (header.getKey() != null && !EXCLUDED.contains(header.getKey().toLowerCase())) {
+                    retained.add(header);
+                }
+            }
+            synchronized (this) {
+                final File data = new File(directory, hash + DATA);
+                final DiskEntry entry = new DiskEntry(hash, data, length, System.currentTimeMillis(), retained);
+                this.doomed.remove(hash);
+                Files.move(temp.toPath(), data.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                this.write(entry);
+                final DiskEntry prior = entries.put(hash, entry);
+                this.totalBytes += entry.length - (prior != null ? prior.length : 0L);
+                this.evict();
+                return entry;
+            }
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+
+    @Override
+    public Optional<Entry> touch(String key) {
+        final String hash = hash(key);
+        synchronized (this) {
+            final DiskEntry entry = entries.get(hash);
+            if (entry == null || !entry.data.exists()) {
+                this.remove(hash, entry);
+                return Optional.empty();
+            } else {
+                try {
+                    final DiskEntry result = new DiskEntry(hash, entry.data, entry.length, System.currentTimeMillis(), entry.headers);
+                    this.write(result);
+                    this.entries.put(hash, result);
+                    return Optional.of(result);
+                } catch (IOException ex) {
+                    this.remove(hash, entry);
+                    return Optional.empty();
+                }
+            }
+        }
+    }
+
+
+    @Override
+    public void remove(String key) {
+        final String hash = hash(key);
+        synchronized (this) {
+            this.remove(hash, entries.get(hash));
+        }
+    }
+
+
+    @Override
+    public synchronized void clear() {
+        new ArrayList<>(entries.values()).forEach(entry -> remove(entry.hash, entry));
+    }
+
+
+    @Override
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+
+    /**
+     * Removes the least recently used entries until the total size is within bounds, always keeping the newest entry
+     */
+    private void evict() {
+        final Iterator<DiskEntry> iterator = entries.values().iterator();
+        while (totalBytes > maxBytes && entries.size() > 1 && iterator.hasNext()) {
+            final DiskEntry entry = iterator.next();
+            iterator.remove();
+            this.totalBytes -= entry.length;
+            this.delete(entry.hash);
+        }
+    }
+
+
+    /**
+     * Removes an entry from the index and deletes its files
+     * @param hash  the hash of the entry key
+     * @param entry the entry in the index, null permitted
+     */
+    private void remove(String hash, DiskEntry entry) {
+        if (entry != null && entries.remove(hash) != null) {
+            this.totalBytes -= entry.length;
+        }
+        this.delete(hash);
+    }
+
+
+    /**
+     * Deletes the files for an entry, deferring the deletion until the last open stream is closed if it is being read
+     * @param hash  the hash of the entry key
+     */
+    private void delete(String hash) {
+        if (readers.containsKey(hash)) {
+            this.doomed.add(hash);
+        } else {
+            try {
+                Files.deleteIfExists(new File(directory, hash + DATA).toPath());
+                Files.deleteIfExists(new File(directory, hash + META).toPath());
+            } catch (IOException ex) {
+                log.warn("Failed to delete HTTP cache files for " + hash + " in " + directory.getAbsolutePath(), ex);
+            }
+        }
+    }
+
+
+    /**
+     * Returns a newly opened stream on the content of an entry that pins its files until the stream is closed
+     * @param entry the entry to open
+     * @return      the content stream
+     * @throws IOException  if the entry has been evicted or its content cannot be opened
+     */
+    private synchronized InputStream open(DiskEntry entry) throws IOException {
+        if (!entries.containsKey(entry.hash) || doomed.contains(entry.hash) || !entry.data.isFile()) {
+            throw new FileNotFoundException("The HTTP cache entry has been evicted: " + entry.data.getAbsolutePath());
+        } else {
+            final InputStream stream = new BufferedInputStream(new FileInputStream(entry.data));
+            this.readers.merge(entry.hash, 1, Integer::sum);
+            return new FilterInputStream(stream) {
+                private boolean closed;
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        if (!closed) {
+                            this.closed = true;
+                            release(entry.hash);
+                        }
+                    }
+                }
+            };
+        }
+    }
+
+
+    /**
+     * Releases a stream opened on the entry files for the hash specified, deleting them if the entry was removed
+     * @param hash  the hash of the entry key
+     */
+    private synchronized void release(String hash) {
+        final int count = readers.merge(hash, -1, Integer::sum);
+        if (count <= 0) {
+            this.readers.remove(hash);
+            if (doomed.remove(hash)) {
+                this.delete(hash);
+            }
+        }
+    }
+
+
+    /**
+     * Writes the properties file for the entry specified
+     * @param entry the entry to write
+     * @throws IOException  if the write fails
+     */
+    private void write(DiskEntry entry) throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty("validated", String.valueOf(entry.validated));
+        properties.setProperty("headers", String.valueOf(entry.headers.size()));
+        for (int i=0; i<entry.headers.size(); ++i) {
+            final HttpHeader header = entry.headers.get(i);
+            properties.setProperty("header." + i + ".key", header.getKey());
+            properties.setProperty("header." + i + ".value", header.getValue() != null ? header.getValue() : "");
+        }
+        final File file = new File(directory, entry.hash + META);
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+            properties.store(os, null);
+        }
+    }
+
+
+    /**
+     * Returns the entry read from the properties file for the hash specified
+     * @param hash  the hash of the entry key
+     * @return      the entry, null if it is missing or malformed
+     */
+    private DiskEntry read(String hash) {
+        final File data = new File(directory, hash + DATA);
+        final File meta = new File(directory, hash + META);
+        if (!data.isFile()) {
+            return null;
+        } else {
+            try (InputStream is = new BufferedInputStream(new FileInputStream(meta))) {
+                final Properties properties = new Properties();
+                properties.load(is);
+                final long validated = Long.parseLong(properties.getProperty("validated"));
+                final int count = Integer.parseInt(properties.getProperty("headers"));
+                final List<HttpHeader> headers = new ArrayList<>(count);
+                for (int i=0; i<count; ++i) {
+                    final String key = properties.getProperty("header." + i + ".key");
+                    final String value = properties.getProperty("header." + i + ".value");
+                    headers.add(new HttpHeader(key, value));
+                }
+                return new DiskEntry(hash, data, data.length(), validated, headers);
+            } catch (Exception ex) {
+                return null;
+            }
+        }
+    }
+
+
+    /**
+     * Returns the hex encoded SHA-256 digest of the key specified
+     * @param key   the cache key
+     * @return      the digest of the key
+     */
+    private static String hash(String key) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            final byte[] bytes = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder result = new StringBuilder(bytes.length * 2);
+            for (byte value : bytes) {
+                result.append(Character.forDigit((value >> 4) & 0xF, 16));
+                result.append(Character.forDigit(value & 0xF, 16));
+            }
+            return result.toString();
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to compute digest for HTTP cache key", ex);
+        }
+    }
+
+
+    /**
+     * An immutable cache entry backed by a content file
+     */
+    private class DiskEntry implements Entry {
+
+        private final String hash;
+        private final File data;
+        private final long length;
+        private final long validated;
+        private final List<HttpHeader> headers;
+
+        /**
+         * Constructor
+         * @param hash      the hash of the entry key
+         * @param data      the content file
+         * @param length    the content length in bytes
+         * @param validated the epoch millis the entry was validated
+         * @param headers   the response headers
+         */
+        DiskEntry(String hash, File data, long length, long validated, List<HttpHeader> headers) {
+            this.hash = hash;
+            this.data = data;
+            this.length = length;
+            this.validated = validated;
+            this.headers = Collections.unmodifiableList(headers);
+        }
+
+        @Override
+        public long getValidated() {
+            return validated;
+        }
+
+        @Override
+        public long getLength() {
+            return length;
+        }
+
+        @Override
+        public List<HttpHeader> getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return open(this);
+        }
+    }
+}
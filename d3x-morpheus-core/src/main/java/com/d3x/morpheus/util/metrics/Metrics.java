@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.util.metrics;
+
+import java.util.Optional;
+
+/**
+ * The entry point to runtime metrics for DataFrame operations such as sorting, grouping, statistics and data source I/O
+ *
+ * <p>
+ * Each instrumented operation emits a <code>com.d3x.morpheus.Operation</code> JDK Flight Recorder event while a
+ * recording has that event enabled, and reports timers and counters to the registered <code>MetricsRecorder</code>
+ * if there is one. With neither active, instrumentation reduces to a shared no-op handle.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class Metrics {
+
+    private static volatile MetricsRecorder recorder;
+
+
+    /**
+     * Returns the metrics recorder that receives counters and timers, if any
+     * @return  the optional metrics recorder
+     */
+    public static Optional<MetricsRecorder> getRecorder() {
+        return Optional.ofNullable(recorder);
+    }
+
+
+    /**
+     * Sets the metrics recorder that receives counters and timers
+     * @param recorder  the metrics recorder, null to disable
+     */
+    public static void setRecorder(MetricsRecorder recorder) {
+        Metrics.recorder = recorder;
+    }
+
+
+    /**
+     * Starts recording an operation, which should be closed when the operation completes
+     * @param name  the operation name, for example sort.rows
+     * @return      the operation handle, which is inactive if metrics are disabled
+     */
+    public static MetricsOperation start(String name) {
+        final MetricsRecorder recorder = Metrics.recorder;
+        final MetricsEvent event = new MetricsEvent();
+        if (event.isEnabled()) {
+            return new MetricsOperation(name, event, recorder);
+        } else if (recorder != null) {
+            return new MetricsOperation(name, null, recorder);
+        } else {
+            return MetricsOperation.NOOP;
+        }
+    }
+}
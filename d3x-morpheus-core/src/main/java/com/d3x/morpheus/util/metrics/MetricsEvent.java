@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.util.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JDK Flight Recorder event emitted when a DataFrame operation completes, which is only committed while a recording
+ * has the <code>com.d3x.morpheus.Operation</code> event enabled.
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+@Name(MetricsEvent.NAME)
+@Label("DataFrame Operation")
+@Category({"Morpheus"})
+@Description("A DataFrame sort, grouping, statistic or data source read and write")
+@StackTrace(false)
+public class MetricsEvent extends Event {
+
+    /** The name of this event type in a recording */
+    public static final String NAME = "com.d3x.morpheus.Operation";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Detail")
+    String detail;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Columns")
+    long columns;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Parallel Splits")
+    long splits;
+
+    @Label("Parallel")
+    boolean parallel;
+
+}
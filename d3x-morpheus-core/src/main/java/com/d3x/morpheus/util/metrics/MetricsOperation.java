@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.util.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A handle on a single DataFrame operation in flight, which captures its dimensions and reports them on close
+ *
+ * <p>
+ * When neither a Flight Recorder recording nor a <code>MetricsRecorder</code> is active, <code>Metrics.start()</code>
+ * returns a shared inactive handle whose methods do nothing, so instrumented code pays no more than a volatile read
+ * and a check on the event type. Callers that need to do extra work to measure something, such as counting bytes,
+ * should check <code>isEnabled()</code> first.
+ * </p>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class MetricsOperation implements AutoCloseable {
+
+    /** The shared inactive operation used while metrics are disabled */
+    static final MetricsOperation NOOP = new MetricsOperation(null, null, null);
+
+    @lombok.Getter private final String name;
+    @lombok.Getter private volatile String detail;
+    @lombok.Getter private volatile long rows;
+    @lombok.Getter private volatile long columns;
+    @lombok.Getter private volatile long bytes;
+    @lombok.Getter private volatile boolean parallel;
+    private final long startNanos;
+    private final LongAdder splits;
+    private final MetricsEvent event;
+    private final MetricsRecorder recorder;
+
+    /**
+     * Constructor
+     * @param name      the operation name
+     * @param event     the Flight Recorder event, null if not enabled
+     * @param recorder  the metrics recorder, null if none
+     */
+    MetricsOperation(String name, MetricsEvent event, MetricsRecorder recorder) {
+        this.name = name;
+        this.event = event;
+        this.recorder = recorder;
+        this.splits = name != null ? new LongAdder() : null;
+        this.startNanos = name != null ? System.nanoTime() : 0L;
+        if (event != null) {
+            event.begin();
+        }
+    }
+
+
+    /**
+     * Returns true if this operation is being recorded
+     * @return  true if recorded, false if this is the inactive operation
+     */
+    public boolean isEnabled() {
+        return this != NOOP;
+    }
+
+    /**
+     * Returns the number of times the operation was split into parallel tasks
+     * @return  the number of parallel splits
+     */
+    public long getSplits() {
+        return splits != null ? splits.sum() : 0L;
+    }
+
+    /**
+     * Sets an optional detail for this operation, such as the statistic being computed
+     * @param detail    the operation detail
+     * @return          this operation
+     */
+    public MetricsOperation detail(String detail) {
+        if (this != NOOP) this.detail = detail;
+        return this;
+    }
+
+    /**
+     * Sets the number of rows processed by this operation
+     * @param rows  the row count
+     * @return      this operation
+     */
+    public MetricsOperation rows(long rows) {
+        if (this != NOOP) this.rows = rows;
+        return this;
+    }
+
+    /**
+     * Sets the number of columns processed by this operation
+     * @param columns   the column count
+     * @return          this operation
+     */
+    public MetricsOperation columns(long columns) {
+        if (this != NOOP) this.columns = columns;
+        return this;
+    }
+
+    /**
+     * Sets the number of bytes read or written by this operation
+     * @param bytes the byte count
+     * @return      this operation
+     */
+    public MetricsOperation bytes(long bytes) {
+        if (this != NOOP) this.bytes = bytes;
+        return this;
+    }
+
+    /**
+     * Sets whether this operation runs in parallel
+     * @param parallel  true if parallel
+     * @return          this operation
+     */
+    public MetricsOperation parallel(boolean parallel) {
+        if (this != NOOP) this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Records that this operation was split into two parallel tasks, which may be called from any thread
+     */
+    public void split() {
+        if (this != NOOP) {
+            splits.increment();
+        }
+    }
+
+
+    /**
+     * Ends this operation, committing the Flight Recorder event and reporting to the metrics recorder
+     */
+    @Override
+    public void close() {
+        if (this != NOOP) {
+            final long elapsedNanos = System.nanoTime() - startNanos;
+            final long splitCount = splits.sum();
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.operation = name;
+                    event.detail = detail;
+                    event.rows = rows;
+                    event.columns = columns;
+                    event.bytes = bytes;
+                    event.splits = splitCount;
+                    event.parallel = parallel;
+                    event.commit();
+                }
+            }
+            if (recorder != null) {
+                final String prefix = "morpheus." + name;
+                recorder.timer(prefix, elapsedNanos);
+                if (rows > 0) recorder.counter(prefix + ".rows", rows);
+                if (columns > 0) recorder.counter(prefix + ".columns", columns);
+                if (bytes > 0) recorder.counter(prefix + ".bytes", bytes);
+                if (splitCount > 0) recorder.counter(prefix + ".splits", splitCount);
+            }
+        }
+    }
+
+
+    @Override
+    public String toString() {
+        return "MetricsOperation(name=" + name + ", rows=" + rows + ", columns=" + columns + ", bytes=" + bytes + ", splits=" + getSplits() + ")";
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.util.metrics;
+
+/**
+ * An interface to a counter and timer registry that receives metrics when a DataFrame operation completes
+ *
+ * <p>
+ * The names passed to a recorder are prefixed with <code>morpheus.</code> followed by the operation name, for
+ * example <code>morpheus.sort.rows</code> for the timer of a row sort and <code>morpheus.sort.rows.rows</code>
+ * for the number of rows it sorted. The interface maps directly onto registries such as Micrometer, for example:
+ * </p>
+ * <pre>
+ *     Metrics.setRecorder(MetricsRecorder.of(
+ *         (name, amount) -&gt; registry.counter(name).increment(amount),
+ *         (name, nanos) -&gt; registry.timer(name).record(nanos, TimeUnit.NANOSECONDS)
+ *     ));
+ * </pre>
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public interface MetricsRecorder {
+
+    /**
+     * Called to increment the counter with the name specified
+     * @param name      the counter name
+     * @param amount    the amount to increment by
+     */
+    void counter(String name, long amount);
+
+    /**
+     * Called to record the elapsed time of an operation against the timer specified
+     * @param name      the timer name
+     * @param nanos     the elapsed time in nanoseconds
+     */
+    void timer(String name, long nanos);
+
+
+    /**
+     * Returns a recorder that delegates to the counter and timer functions specified
+     * @param counter   the counter function
+     * @param timer     the timer function
+     * @return          the newly created recorder
+     */
+    static MetricsRecorder of(Counter counter, Timer timer) {
+        return new MetricsRecorder() {
+            @Override
+            public void counter(String name, long amount) {
+                counter.increment(name, amount);
+            }
+            @Override
+            public void timer(String name, long nanos) {
+                timer.record(name, nanos);
+            }
+        };
+    }
+
+
+    /**
+     * A function that increments a named counter
+     */
+    @FunctionalInterface
+    interface Counter {
+
+        /**
+         * Increments the counter with the name specified
+         * @param name      the counter name
+         * @param amount    the amount to increment by
+         */
+        void increment(String name, long amount);
+    }
+
+
+    /**
+     * A function that records a time against a named timer
+     */
+    @FunctionalInterface
+    interface Timer {
+
+        /**
+         * Records the time against the timer with the name specified
+         * @param name      the timer name
+         * @param nanos     the elapsed time in nanoseconds
+         */
+        void record(String name, long nanos);
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2014-2021 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.vector;
+
+import java.util.Arrays;
+
+import com.d3x.morpheus.util.MorpheusException;
+
+/**
+ * A vector with compressed sparse physical storage: the indexes of the
+ * non-zero elements are kept in ascending order in one array and the values
+ * in a parallel array, so element access is a binary search and products
+ * with other vectors only visit the stored elements.
+ *
+ * <p>Assigning a non-zero value to an element that is not stored requires
+ * shifting the elements with larger indexes, so vectors should be populated
+ * in ascending index order where possible.</p>
+ *
+ * @author Scott Shaffer
+ */
+public final class CompressedVector implements D3xVector {
+    private final int length;
+    private int count;
+    private int[] indexes;
+    private double[] values;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private CompressedVector(int length, int count, int[] indexes, double[] values) {
+        D3xVector.validateLength(length);
+        this.length = length;
+        this.count = count;
+        this.indexes = indexes;
+        this.values = values;
+    }
+
+    /**
+     * Creates a new compressed vector by copying the elements of a vector view
+     * whose magnitude exceeds a threshold; all other elements are zero.
+     *
+     * @param view      the vector to copy.
+     * @param threshold the magnitude at or below which elements are treated as zero.
+     *
+     * @return a new compressed vector containing the non-zero elements of the view.
+     */
+    public static CompressedVector copyOf(D3xVectorView view, double threshold) {
+        CompressedVector vector = sparse(view.length());
+
+        for (int index = 0; index < view.length(); ++index) {
+            double value = view.get(index);
+
+            if (Math.abs(value) > threshold)
+                vector.append(index, value);
+        }
+
+        return vector;
+    }
+
+    /**
+     * Creates a new compressed vector with all elements initialized to zero.
+     *
+     * @param length the length of the vector.
+     *
+     * @return a new compressed vector of zeros.
+     *
+     * @throws RuntimeException if the length is negative.
+     */
+    public static CompressedVector sparse(int length) {
+        return new CompressedVector(length, 0, new int[INITIAL_CAPACITY], new double[INITIAL_CAPACITY]);
+    }
+
+    /**
+     * Returns the number of elements with physical storage.
+     * @return the number of elements with physical storage.
+     */
+    public int nnz() {
+        return count;
+    }
+
+    /**
+     * Returns the index of a stored element.
+     *
+     * @param position the position of the element in storage, in {@code [0, nnz())}.
+     *
+     * @return the index of the stored element.
+     */
+    public int indexAt(int position) {
+        validatePosition(position);
+        return indexes[position];
+    }
+
+    /**
+     * Returns the value of a stored element.
+     *
+     * @param position the position of the element in storage, in {@code [0, nnz())}.
+     *
+     * @return the value of the stored element.
+     */
+    public double valueAt(int position) {
+        validatePosition(position);
+        return values[position];
+    }
+
+    private int find(int index) {
+        return Arrays.binarySearch(indexes, 0, count, index);
+    }
+
+    private int lowerBound(int index) {
+        int position = find(index);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    private void append(int index, double value) {
+        insert(count, index, value);
+    }
+
+    private void insert(int position, int index, double value) {
+        if (count == indexes.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, count + (count >> 1));
+            indexes = Arrays.copyOf(indexes, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        System.arraycopy(indexes, position, indexes, position + 1, count - position);
+        System.arraycopy(values, position, values, position + 1, count - position);
+
+        indexes[position] = index;
+        values[position] = value;
+        ++count;
+    }
+
+    @Override
+    public CompressedVector copy() {
+        return new CompressedVector(length, count, Arrays.copyOf(indexes, Math.max(count, 1)), Arrays.copyOf(values, Math.max(count, 1)));
+    }
+
+    @Override
+    public double dot(D3xVector vector) {
+        validateCongruent(vector);
+        double result = 0.0;
+
+        if (vector instanceof CompressedVector) {
+            //
+            // Merge the two sorted index arrays...
+            //
+            CompressedVector that = (CompressedVector) vector;
+            int i = 0;
+            int j = 0;
+
+            while (i < this.count && j < that.count) {
+                if (this.indexes[i] < that.indexes[j])
+                    ++i;
+                else if (this.indexes[i] > that.indexes[j])
+                    ++j;
+                else
+                    result += this.values[i++] * that.values[j++];
+            }
+        }
+        else {
+            for (int position = 0; position < count; ++position)
+                result += values[position] * vector.get(indexes[position]);
+        }
+
+        return result;
+    }
+
+    @Override
+    public double get(int index) {
+        validateIndex(index);
+        int position = find(index);
+        return position >= 0 ? values[position] : 0.0;
+    }
+
+    @Override
+    public CompressedVector getSubVector(int start, int length) {
+        validateIndex(start);
+        validateIndex(start + length - 1);
+
+        int first = lowerBound(start);
+        int last = lowerBound(start + length);
+
+        int[] subIndexes = new int[Math.max(last - first, 1)];
+        double[] subValues = Arrays.copyOfRange(values, first, first + subIndexes.length);
+
+        for (int position = first; position < last; ++position)
+            subIndexes[position - first] = indexes[position] - start;
+
+        return new CompressedVector(length, last - first, subIndexes, subValues);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public CompressedVector like(int length) {
+        return sparse(length);
+    }
+
+    @Override
+    public CompressedVector multiplyInPlace(double scalar) {
+        for (int position = 0; position < count; ++position)
+            values[position] *= scalar;
+
+        return this;
+    }
+
+    @Override
+    public void set(int index, double value) {
+        validateIndex(index);
+        int position = find(index);
+
+        if (position >= 0)
+            values[position] = value;
+        else if (value != 0.0)
+            insert(-position - 1, index, value);
+    }
+
+    @Override
+    public CompressedVector times(double scalar) {
+        return copy().multiplyInPlace(scalar);
+    }
+
+    @Override
+    public double[] toArray() {
+        double[] array = new double[length];
+
+        for (int position = 0; position < count; ++position)
+            array[indexes[position]] = values[position];
+
+        return array;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("CompressedVector(length = %d, nnz = %d) {", length, count));
+
+        for (int position = 0; position < count; ++position) {
+            if (position > 0)
+                builder.append(", ");
+
+            builder.append(indexes[position]).append(": ").append(values[position]);
+        }
+
+        return builder.append("}").toString();
+    }
+
+    /**
+     * Ensures that a position in storage is valid.
+     *
+     * @param position the storage position to validate.
+     *
+     * @throws RuntimeException unless the position is valid.
+     */
+    private void validatePosition(int position) {
+        if (position < 0 || position >= count)
+            throw new MorpheusException("Storage position [%d] is out of bounds [0, %d).", position, count);
+    }
+}
@@ -23,6 +23,7 @@ import com.d3x.morpheus.frame.DataFrame;
 import com.d3x.morpheus.frame.DataFrameColumn;
 import com.d3x.morpheus.frame.DataFrameException;
 import com.d3x.morpheus.frame.DataFrameRow;
+import com.d3x.morpheus.series.DenseDoubleSeries;
 import com.d3x.morpheus.series.DoubleSeries;
 import com.d3x.morpheus.util.DoubleComparator;
 import com.d3x.morpheus.util.MorpheusException;
@@ -335,6 +336,9 @@ public interface D3xVector extends D3xVectorView {
      * specified series.
      */
     static <K> D3xVector copyOf(DoubleSeries<K> series, List<K> keys, double defaultValue) {
+        if (series instanceof DenseDoubleSeries)
+            return wrap(((DenseDoubleSeries<K>) series).align(keys, defaultValue));
+
         D3xVector vector = dense(keys.size());
 
         for (int index = 0; index < keys.size(); ++index) {
@@ -508,7 +512,7 @@ public interface D3xVector extends D3xVectorView {
     }
 
     /**
-     * Creates a new vector with sparse physical storage and all elements
+     * Creates a new vector with compressed sparse physical storage and all elements
      * initialized to zero.
      *
      * @param length the length of the vector.
@@ -519,7 +523,7 @@ public interface D3xVector extends D3xVectorView {
      * @throws RuntimeException if the length is negative.
      */
     static D3xVector sparse(int length) {
-        return ApacheVector.sparse(length);
+        return CompressedVector.sparse(length);
     }
 
     /**
@@ -16,11 +16,20 @@
 package com.d3x.morpheus.array;
 
 
+import java.io.File;
+import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Random;
+import java.util.UUID;
 
+import com.d3x.morpheus.array.mapped.MappedFile;
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.range.Range;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -100,4 +109,172 @@ public class ArrayMappedTests {
             System.out.println(v1);
         }
     }
+
+
+    /**
+     * Returns a new file path in the temp directory, which is deleted along with its catalog on JVM exit
+     * @return  the file path
+     */
+    private File tempFile() {
+        final File file = new File(System.getProperty("java.io.tmpdir"), "morpheus-" + UUID.randomUUID() + ".dat");
+        final File catalog = new File(file.getPath() + ".catalog");
+        file.deleteOnExit();
+        catalog.deleteOnExit();
+        return file;
+    }
+
+
+    @Test()
+    public void testSegmentedGrowth() {
+        final MappedFile file = MappedFile.open(tempFile(), 4096);
+        try {
+            final Array<Double> array = file.array("values", Double.class, 100, Double.NaN);
+            array.applyDoubles(v -> v.index() * 2d);
+            Assert.assertSame(array.expand(5000), array);
+            Assert.assertEquals(array.length(), 5000);
+            for (int i=0; i<100; ++i) Assert.assertEquals(array.getDouble(i), i * 2d);
+            for (int i=100; i<5000; ++i) Assert.assertTrue(Double.isNaN(array.getDouble(i)));
+            array.applyDoubles(v -> v.index() * 3d);
+            for (int i=0; i<5000; ++i) Assert.assertEquals(array.getDouble(i), i * 3d);
+            final Array<Double> copy = array.copy(1000, 4000);
+            Assert.assertEquals(copy.length(), 3000);
+            Assert.assertEquals(copy.getDouble(0), 3000d);
+        } finally {
+            file.close();
+        }
+    }
+
+
+    @Test(timeOut = 60000)
+    public void testGrowWhileFlushing() throws Exception {
+        final MappedFile file = MappedFile.open(tempFile(), 4096);
+        try {
+            final Array<Double> array = file.array("values", Double.class, 10, Double.NaN);
+            final Thread flusher = new Thread(() -> {
+                for (int i=0; i<200; ++i) {
+                    file.flush();
+                }
+            });
+            flusher.start();
+            for (int i=1; i<=200; ++i) {
+                array.expand(i * 1000);
+                array.setDouble(i * 1000 - 1, i);
+            }
+            flusher.join();
+            Assert.assertEquals(array.length(), 200000);
+            Assert.assertEquals(array.getDouble(199999), 200d);
+        } finally {
+            file.close();
+        }
+    }
+
+
+    @Test()
+    public void testSharedFileReopen() {
+        final File path = tempFile();
+        final LocalDate start = LocalDate.of(2000, 1, 1);
+        final MappedFile file1 = MappedFile.open(path, 4096);
+        Assert.assertSame(MappedFile.open(path), file1);
+        final Array<Double> doubles = file1.array("doubles", Double.class, 600, Double.NaN);
+        final Array<Integer> ints = file1.array("ints", Integer.class, 1500, 0);
+        final Array<LocalDate> dates = file1.array("dates", LocalDate.class, 300, null);
+        doubles.expand(2000);
+        ints.expand(3000);
+        doubles.applyDoubles(v -> v.index() + 0.5d);
+        ints.applyInts(v -> v.index() * 7);
+        dates.applyValues(v -> start.plusDays(v.index()));
+        file1.close();
+        Assert.assertTrue(file1.isClosed());
+        final MappedFile file2 = MappedFile.open(path);
+        try {
+            Assert.assertNotSame(file2, file1);
+            Assert.assertEquals(file2.segmentBytes(), 4096L);
+            Assert.assertEquals(file2.names(), new HashSet<>(Arrays.asList("doubles", "ints", "dates")));
+            final Array<Double> doubles2 = file2.array("doubles", Double.class, 0, Double.NaN);
+            final Array<Integer> ints2 = file2.array("ints", Integer.class, 0, 0);
+            final Array<LocalDate> dates2 = file2.array("dates", LocalDate.class, 400, null);
+            Assert.assertEquals(doubles2.length(), 2000);
+            Assert.assertEquals(ints2.length(), 3000);
+            Assert.assertEquals(dates2.length(), 400);
+            for (int i=0; i<2000; ++i) Assert.assertEquals(doubles2.getDouble(i), i + 0.5d);
+            for (int i=0; i<3000; ++i) Assert.assertEquals(ints2.getInt(i), i * 7);
+            for (int i=0; i<300; ++i) Assert.assertEquals(dates2.getValue(i), start.plusDays(i));
+            for (int i=300; i<400; ++i) Assert.assertNull(dates2.getValue(i));
+        } finally {
+            file2.close();
+        }
+    }
+
+
+    @Test()
+    public void testMapPathCreatesNewArray() {
+        final File path = tempFile();
+        final Array<Double> array1 = Array.map(Double.class, 10, 1d, path.getPath());
+        final Array<Double> array2 = Array.map(Double.class, 5, 7d, path.getPath());
+        try {
+            Assert.assertEquals(array1.length(), 10);
+            Assert.assertEquals(array2.length(), 5);
+            for (int i=0; i<5; ++i) Assert.assertEquals(array2.getDouble(i), 7d);
+            array2.applyDoubles(v -> -1d);
+            for (int i=0; i<10; ++i) Assert.assertEquals(array1.getDouble(i), 1d);
+            final Array<Long> array3 = Array.map(Long.class, 20, 3L, path.getPath());
+            Assert.assertEquals(array3.length(), 20);
+            for (int i=0; i<20; ++i) Assert.assertEquals(array3.getLong(i), 3L);
+            Assert.assertEquals(MappedFile.open(path).names(), Collections.singleton(MappedFile.DEFAULT_NAME));
+        } finally {
+            MappedFile.open(path).close();
+        }
+        final long fileLength = path.length();
+        final Array<Integer> array4 = Array.map(Integer.class, 100, 5, path.getPath());
+        try {
+            Assert.assertEquals(array4.length(), 100);
+            for (int i=0; i<100; ++i) Assert.assertEquals(array4.getInt(i), 5);
+            Assert.assertTrue(path.length() < fileLength + MappedFile.DEFAULT_SEGMENT_BYTES, "Segments of the replaced array are reused");
+        } finally {
+            MappedFile.open(path).close();
+        }
+    }
+
+
+    @Test(expectedExceptions = { ArrayException.class })
+    public void testTypeMismatch() {
+        final MappedFile file = MappedFile.open(tempFile(), 4096);
+        try {
+            file.array("values", Double.class, 10, Double.NaN);
+            file.array("values", Long.class, 10, 0L);
+        } finally {
+            file.close();
+        }
+    }
+
+
+    @Test(expectedExceptions = { ArrayException.class })
+    public void testClosedFile() {
+        final MappedFile file = MappedFile.open(tempFile(), 4096);
+        file.array("values", Double.class, 10, Double.NaN);
+        file.close();
+        file.array("other", Double.class, 10, Double.NaN);
+    }
+
+
+    @Test()
+    public void testFrameColumnsInOneFile() {
+        final int rowCount = 10000;
+        final MappedFile file = MappedFile.open(tempFile(), 1 << 16);
+        try {
+            final DataFrame<Integer,String> frame = DataFrame.of(Range.of(0, rowCount), String.class, columns -> {
+                for (int j=0; j<5; ++j) {
+                    columns.add("C" + j, file.array("C" + j, Double.class, rowCount, Double.NaN));
+                }
+            });
+            frame.applyDoubles(v -> v.rowOrdinal() * (v.colOrdinal() + 1));
+            Assert.assertEquals(file.names().size(), 5);
+            for (int j=0; j<5; ++j) {
+                final Array<Double> column = file.array("C" + j, Double.class, rowCount, Double.NaN);
+                Assert.assertEquals(column.getDouble(rowCount - 1), (rowCount - 1d) * (j + 1));
+            }
+        } finally {
+            file.close();
+        }
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.array;
+
+import java.time.LocalDate;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.d3x.morpheus.array.segmented.SegmentedArray;
+
+/**
+ * Unit tests specific to segmented arrays
+ *
+ * @author  Xavier Witdouck
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ */
+public class ArraySegmentedTests {
+
+
+    @Test()
+    public void testExpand() {
+        final SegmentedArray<Double> array = SegmentedArray.of(Double.class, 10, Double.NaN, 4);
+        for (int i=0; i<10; ++i) array.setDouble(i, i);
+        Assert.assertSame(array.expand(1000), array);
+        Assert.assertEquals(array.length(), 1000);
+        for (int i=10; i<1000; ++i) array.setDouble(i, i);
+        for (int i=0; i<1000; ++i) {
+            Assert.assertEquals(array.getDouble(i), (double)i, "Values match at index " + i);
+        }
+        final Array<Double> dense = array.copy(5, 50);
+        Assert.assertEquals(dense.length(), 45);
+        for (int i=0; i<dense.length(); ++i) {
+            Assert.assertEquals(dense.getDouble(i), (double)(i + 5));
+        }
+        array.sort(false);
+        Assert.assertEquals(array.getDouble(0), 999d);
+        Assert.assertEquals(array.getDouble(999), 0d);
+    }
+
+
+    @Test()
+    public void testExpandOneAtATime() {
+        final SegmentedArray<Double> array = SegmentedArray.of(Double.class, 0, Double.NaN, 4);
+        for (int i=0; i<200; ++i) {
+            array.expand(i + 1);
+            Assert.assertTrue(Double.isNaN(array.getDouble(i)), "New element has default value at index " + i);
+            array.setDouble(i, i);
+            final Array<Double> copy = array.copy();
+            Assert.assertEquals(copy.length(), i + 1);
+            Assert.assertEquals(copy.getDouble(i), (double)i, "Copy matches at index " + i);
+        }
+        for (int i=0; i<200; ++i) {
+            Assert.assertEquals(array.getDouble(i), (double)i, "Values match at index " + i);
+        }
+    }
+
+
+    @Test()
+    public void testCodedValues() {
+        final LocalDate start = LocalDate.of(2000, 1, 1);
+        final SegmentedArray<LocalDate> array = SegmentedArray.of(LocalDate.class, 0, null, 5);
+        array.expand(100);
+        for (int i=0; i<100; ++i) array.setValue(i, start.plusDays(i));
+        for (int i=0; i<100; ++i) {
+            Assert.assertEquals(array.getValue(i), start.plusDays(i));
+            Assert.assertEquals(array.getLong(i), start.plusDays(i).toEpochDay());
+        }
+    }
+
+
+    @Test()
+    public void testPrefix() {
+        final SegmentedArray<Integer> array = SegmentedArray.of(Integer.class, 100, null, 4);
+        array.applyInts(v -> v.index());
+        final SegmentedArray<Integer> prefix = array.prefix(50);
+        array.expand(200);
+        array.fill(-1, 50, 200);
+        Assert.assertEquals(prefix.length(), 50);
+        Assert.assertTrue(prefix.isReadOnly());
+        for (int i=0; i<50; ++i) {
+            Assert.assertEquals(prefix.getInt(i), i);
+        }
+        Assert.assertThrows(ArrayIndexOutOfBoundsException.class, () -> prefix.getInt(50));
+        Assert.assertThrows(ArrayException.class, () -> prefix.setInt(0, 1));
+        Assert.assertThrows(ArrayException.class, () -> prefix.expand(51));
+    }
+}
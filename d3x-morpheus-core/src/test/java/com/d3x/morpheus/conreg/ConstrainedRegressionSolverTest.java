@@ -15,6 +15,7 @@
  */
 package com.d3x.morpheus.conreg;
 
+import com.d3x.morpheus.matrix.CSRMatrix;
 import com.d3x.morpheus.matrix.D3xMatrix;
 import com.d3x.morpheus.util.DoubleComparator;
 import com.d3x.morpheus.vector.D3xVector;
@@ -77,4 +78,24 @@ public class ConstrainedRegressionSolverTest extends ConstrainedRegressionTestBa
 
         assertTrue(comparator0001.equals(actualPseudoSolution, expectedPseudoSolution));
     }
+
+    @Test
+    public void testSparseDesign() {
+        ConstrainedRegressionModel<String, String> sparseModel = buildConstrainedModel().withSparseDesign(0.0);
+        ConstrainedRegressionSolver<String, String> sparseSolver = ConstrainedRegressionSolver.build(sparseModel);
+        ConstrainedRegressionSystem<String, String> sparseSystem = sparseSolver.getAugmentedSystem();
+
+        assertTrue(sparseModel.isSparseDesign());
+        assertTrue(sparseSystem.getDesignMatrix() instanceof CSRMatrix);
+        assertTrue(sparseSystem.getAugmentedMatrix().equalsMatrix(system.getAugmentedMatrix()));
+        assertTrue(sparseSystem.getAugmentedVector().equalsVector(system.getAugmentedVector()));
+
+        ConstrainedRegressionResult<String, String> expected = solver.solve();
+        ConstrainedRegressionResult<String, String> actual = sparseSolver.solve();
+        DoubleComparator comparator = DoubleComparator.fixed(1.0E-09);
+
+        assertTrue(comparator.equals(actual.getBetaCoefficients().toDoubles().toArray(), expected.getBetaCoefficients().toDoubles().toArray()));
+        assertTrue(comparator.equals(actual.getFittedValues().toDoubles().toArray(), expected.getFittedValues().toDoubles().toArray()));
+        assertTrue(sparseSolver.computePseudoInverse().equalsMatrix(solver.computePseudoInverse()));
+    }
 }
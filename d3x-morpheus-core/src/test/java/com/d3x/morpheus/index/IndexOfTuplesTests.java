@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.index;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameException;
+import com.d3x.morpheus.frame.DataFrameGrouping;
+import com.d3x.morpheus.util.Tuple;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the columnar Index of multi-level Tuple keys
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class IndexOfTuplesTests {
+
+
+    /**
+     * Returns a list of unique 3 level keys of String, Integer and LocalDate in random order
+     * @return  the list of keys
+     */
+    private static List<Tuple> createKeys() {
+        final List<Tuple> keys = new ArrayList<>();
+        final LocalDate start = LocalDate.of(2018, 1, 1);
+        for (String name : List.of("A", "B", "C", "D")) {
+            for (int i=0; i<25; ++i) {
+                for (int j=0; j<10; ++j) {
+                    keys.add(Tuple.of(name, i, start.plusDays(j)));
+                }
+            }
+        }
+        Collections.shuffle(keys, new Random(7));
+        return keys;
+    }
+
+
+    @Test()
+    public void testCreate() {
+        final List<Tuple> keys = createKeys();
+        final Index<Tuple> index = Index.of(keys);
+        Assert.assertTrue(index instanceof IndexOfTuples);
+        Assert.assertEquals(index.size(), keys.size());
+        Assert.assertEquals(index.type(), Tuple.class);
+        for (int i=0; i<keys.size(); ++i) {
+            final Tuple key = keys.get(i);
+            Assert.assertEquals(index.getKey(i), key);
+            Assert.assertEquals(index.getCoordinate(key), i);
+            Assert.assertEquals(index.getCoordinate(Tuple.of(key.item(0), key.item(1), key.item(2))), i);
+            Assert.assertTrue(index.contains(key));
+        }
+        Assert.assertEquals(index.getCoordinate(Tuple.of("E", 1, LocalDate.of(2018, 1, 1))), -1);
+        Assert.assertEquals(index.getCoordinate(Tuple.of("A", 1L, LocalDate.of(2018, 1, 1))), -1);
+        Assert.assertEquals(index.getCoordinate(Tuple.of("A", 1)), -1);
+        Assert.assertFalse(index.contains(null));
+    }
+
+
+    @Test()
+    public void testArrayIsWrapped() {
+        final Array<Tuple> keys = Array.of(Tuple.class, Tuple.of("A", 1), Tuple.of("B", 2));
+        final Index<Tuple> index = Index.of(keys);
+        Assert.assertFalse(index instanceof IndexOfTuples);
+        Assert.assertEquals(index.getCoordinate(Tuple.of("B", 2)), 1);
+        keys.expand(3);
+        Assert.assertTrue(index.add(Tuple.of("C", 3)));
+        Assert.assertEquals(keys.getValue(2), Tuple.of("C", 3), "Keys added to index are written to the wrapped array");
+    }
+
+
+    @Test()
+    public void testMixedSizesUseObjectIndex() {
+        final Index<Tuple> index = Index.of(Array.of(Tuple.class, Tuple.of("A", 1), Tuple.of("B")));
+        Assert.assertFalse(index instanceof IndexOfTuples);
+        Assert.assertEquals(index.getCoordinate(Tuple.of("B")), 1);
+    }
+
+
+    @Test(expectedExceptions={IndexException.class})
+    public void testDuplicateKeys() {
+        Index.of(List.of(Tuple.of("A", 1), Tuple.of("B", 2), Tuple.of("A", 1)));
+    }
+
+
+    @Test()
+    public void testAddWithLevelPromotion() {
+        final Index<Tuple> index = Index.of(Tuple.class, 10);
+        Assert.assertTrue(index instanceof IndexOfTuples);
+        final List<Tuple> keys = new ArrayList<>();
+        for (int i=0; i<1000; ++i) {
+            keys.add(Tuple.of("Key-" + (i % 10), i, LocalDate.of(2018, 1, 1).plusDays(i % 7)));
+        }
+        keys.add(Tuple.of(null, 2000, LocalDate.of(2018, 1, 1)));
+        keys.add(Tuple.of("Key-1", 2001L, null));
+        keys.add(Tuple.of(5, 2002, "2018-01-01"));
+        keys.forEach(key -> Assert.assertTrue(index.add(key)));
+        keys.forEach(key -> Assert.assertFalse(index.add(key)));
+        Assert.assertEquals(index.size(), keys.size());
+        Assert.assertEquals(index.addAll(keys, true), 0);
+        for (int i=0; i<keys.size(); ++i) {
+            Assert.assertEquals(index.getCoordinate(keys.get(i)), i);
+            Assert.assertEquals(index.getKey(i), keys.get(i));
+        }
+        Assert.assertEquals(index.getCoordinate(Tuple.of("Key-1", 2001, null)), -1);
+    }
+
+
+    @Test()
+    public void testAddDifferentSize() {
+        final Index<Tuple> index = Index.of(Tuple.class, 10);
+        final List<Tuple> keys = new ArrayList<>();
+        for (int i=0; i<100; ++i) {
+            keys.add(Tuple.of("Key-" + (i % 10), i));
+        }
+        keys.add(Tuple.of("Key-1"));
+        keys.add(Tuple.of("Key-1", 200, 300));
+        keys.add(Tuple.of(5));
+        keys.forEach(key -> Assert.assertTrue(index.add(key)));
+        keys.forEach(key -> Assert.assertFalse(index.add(key)));
+        Assert.assertEquals(index.size(), keys.size());
+        for (int i=0; i<keys.size(); ++i) {
+            Assert.assertEquals(index.getCoordinate(keys.get(i)), i);
+            Assert.assertEquals(index.getKey(i), keys.get(i));
+        }
+        Assert.assertFalse(index.contains(Tuple.of("Key-1", 200)));
+        Assert.assertEquals(index.filterPrefix(Tuple.of("Key-1")).size(), 12);
+        Assert.assertEquals(index.filterPrefix(Tuple.of("Key-1", 200)).toList(), List.of(Tuple.of("Key-1", 200, 300)));
+        Assert.assertEquals(index.replace(Tuple.of(5), Tuple.of(5, 6)), keys.size() - 1);
+        Assert.assertEquals(index.getCoordinate(Tuple.of(5, 6)), keys.size() - 1);
+        Assert.assertFalse(index.contains(Tuple.of(5)));
+    }
+
+
+    @Test()
+    public void testAddRowOfDifferentSize() {
+        final List<Tuple> keys = createKeys();
+        final DataFrame<Tuple,String> frame = DataFrame.ofDoubles(keys, List.of("Value"));
+        frame.applyDoubles(v -> v.rowOrdinal());
+        Assert.assertTrue(frame.rows().add(Tuple.of("Z")));
+        frame.setDouble(Tuple.of("Z"), "Value", -1d);
+        Assert.assertEquals(frame.rowCount(), keys.size() + 1);
+        Assert.assertEquals(frame.getDouble(Tuple.of("Z"), "Value"), -1d);
+        Assert.assertEquals(frame.getDouble(keys.get(7), "Value"), 7d);
+        Assert.assertEquals(frame.rows().selectPrefix(Tuple.of("Z")).rowCount(), 1);
+    }
+
+
+    @Test()
+    public void testReplace() {
+        final List<Tuple> keys = createKeys();
+        final Index<Tuple> index = Index.of(keys);
+        for (int i=0; i<keys.size(); ++i) {
+            final Tuple key = keys.get(i);
+            final Tuple replacement = Tuple.of(key.item(0), (Integer)key.item(1) + 100, key.item(2));
+            Assert.assertEquals(index.replace(key, replacement), i);
+            Assert.assertFalse(index.contains(key));
+            Assert.assertEquals(index.getCoordinate(replacement), i);
+        }
+        Assert.assertEquals(index.size(), keys.size());
+    }
+
+
+    @Test()
+    public void testFilterPrefix() {
+        final List<Tuple> keys = createKeys();
+        final Index<Tuple> index = Index.of(keys);
+        for (String name : List.of("A", "D", "E")) {
+            final List<Tuple> expected = keys.stream().filter(k -> k.item(0).equals(name)).collect(Collectors.toList());
+            final Index<Tuple> filter = index.filterPrefix(Tuple.of(name));
+            Assert.assertEquals(filter.toList(), expected);
+            filter.forEach(key -> Assert.assertEquals(filter.getCoordinate(key), index.getCoordinate(key)));
+        }
+        final List<Tuple> expected = keys.stream().filter(k -> k.item(0).equals("B") && k.<Integer>item(1) == 7).collect(Collectors.toList());
+        Assert.assertEquals(index.filterPrefix(Tuple.of("B", 7)).toList(), expected);
+        Assert.assertEquals(index.filterPrefix(Tuple.of("B", 7L)).size(), 0);
+        Assert.assertEquals(index.filterPrefix(Tuple.of()).size(), keys.size());
+        Assert.assertEquals(index.readOnly().filterPrefix(Tuple.of("C", 1, LocalDate.of(2018, 1, 3))).toList(), List.of(Tuple.of("C", 1, LocalDate.of(2018, 1, 3))));
+        final Index<Tuple> filter = index.filterPrefix(Tuple.of("C"));
+        Assert.assertEquals(filter.filterPrefix(Tuple.of("C", 3)).size(), 10);
+        Assert.assertEquals(filter.filterPrefix(Tuple.of("A")).size(), 0);
+    }
+
+
+    @Test()
+    public void testSortAndReset() {
+        final List<Tuple> keys = createKeys();
+        final Index<Tuple> index = Index.of(keys);
+        index.sort(false, true);
+        final List<Tuple> sorted = keys.stream().sorted().collect(Collectors.toList());
+        Assert.assertEquals(index.toList(), sorted);
+        for (int i=0; i<index.size(); ++i) {
+            final Tuple key = index.getKey(i);
+            Assert.assertEquals(index.getCoordinate(key), keys.indexOf(key));
+            Assert.assertEquals(index.getCoordinateAt(i), keys.indexOf(key));
+        }
+        Assert.assertEquals(index.filterPrefix(Tuple.of("B", 3)).toList(), sorted.stream().filter(k -> k.item(0).equals("B") && k.<Integer>item(1) == 3).collect(Collectors.toList()));
+        index.resetOrder();
+        Assert.assertEquals(index.toList(), keys);
+        for (int i=0; i<keys.size(); ++i) {
+            Assert.assertEquals(index.getCoordinate(keys.get(i)), i);
+        }
+    }
+
+
+    @Test()
+    public void testSelectPrefix() {
+        final List<Tuple> keys = createKeys();
+        final DataFrame<Tuple,String> frame = DataFrame.ofDoubles(keys, List.of("Value"));
+        frame.applyDoubles(v -> v.rowOrdinal());
+        final DataFrame<Tuple,String> selection = frame.rows().selectPrefix(Tuple.of("C", 12));
+        Assert.assertEquals(selection.rowCount(), 10);
+        selection.rows().forEach(row -> {
+            Assert.assertEquals(row.key().item(0), "C");
+            Assert.assertEquals(row.key().<Integer>item(1).intValue(), 12);
+            Assert.assertEquals(row.getDouble("Value"), keys.indexOf(row.key()), 0d);
+        });
+        final DataFrame<Tuple,String> select = frame.rows().select(keys.get(3), keys.get(5), Tuple.of("X", 1, LocalDate.now()));
+        Assert.assertEquals(select.rows().keyArray().toList(), List.of(keys.get(3), keys.get(5)));
+        Assert.assertEquals(select.getDouble(keys.get(5), "Value"), 5d);
+    }
+
+
+    @Test(expectedExceptions={DataFrameException.class})
+    public void testSelectPrefixWithoutTupleKeys() {
+        DataFrame.ofDoubles(List.of("A", "B"), List.of("Value")).rows().selectPrefix(Tuple.of("A"));
+    }
+
+
+    @Test()
+    public void testGroupChildren() {
+        final List<Tuple> keys = createKeys();
+        final DataFrame<Tuple,String> frame = DataFrame.ofDoubles(keys, List.of("Value"));
+        frame.cols().add("Name", String.class, v -> v.rowKey().item(0));
+        frame.cols().add("Bucket", Integer.class, v -> v.rowKey().<Integer>item(1) % 5);
+        final DataFrameGrouping.Rows<Tuple,String> grouping = frame.rows().groupBy("Name", "Bucket");
+        final Map<Tuple,Set<Tuple>> expected = keys.stream().collect(Collectors.groupingBy(
+            k -> Tuple.of(k.<String>item(0)),
+            Collectors.mapping(k -> Tuple.of(k.<String>item(0), k.<Integer>item(1) % 5), Collectors.toSet())
+        ));
+        Assert.assertEquals(grouping.getGroupKeys(0).collect(Collectors.toSet()), expected.keySet());
+        expected.forEach((parent, children) -> {
+            Assert.assertEquals(grouping.getChildren(parent).collect(Collectors.toSet()), children);
+            children.forEach(child -> {
+                Assert.assertEquals(grouping.getChildren(child).count(), 0L);
+                Assert.assertEquals(grouping.getGroup(child).rowCount(), 50);
+            });
+        });
+        Assert.assertEquals(grouping.getChildren(Tuple.of("Z")).count(), 0L);
+    }
+
+}
@@ -17,6 +17,7 @@ package com.d3x.morpheus.linalg;
 
 import java.util.Random;
 
+import com.d3x.morpheus.matrix.CSRMatrix;
 import com.d3x.morpheus.matrix.D3xMatrix;
 import com.d3x.morpheus.util.DoubleComparator;
 import com.d3x.morpheus.vector.D3xVector;
@@ -130,4 +131,24 @@ public class SVDSolverTest {
         D3xVector exactX = invATA.times(A.transpose()).times(b);
         assertTrue(exactX.equalsVector(x));
     }
+
+    @Test
+    public void testLeastSquaresSparse() {
+        int M = 1000;
+        int N = 50;
+
+        D3xMatrix dense = D3xMatrix.random(M, N, random);
+
+        for (int i = 0; i < M; ++i)
+            for (int j = 0; j < N; ++j)
+                if (random.nextDouble() < 0.9)
+                    dense.set(i, j, 0.0);
+
+        D3xMatrix A = CSRMatrix.copyOf(dense, 0.0);
+        D3xVector b = D3xVector.random(M, random);
+        D3xVector x = SVDSolver.apache(A).solve(b);
+
+        assertTrue(SVDSolver.isLeastSquaresSolution(A, x, b));
+        assertTrue(SVDSolver.apache(dense).solve(b).equalsVector(x));
+    }
 }
@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2014-2021 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.matrix;
+
+import java.util.List;
+import java.util.Random;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.range.Range;
+import com.d3x.morpheus.util.DoubleComparator;
+import com.d3x.morpheus.vector.CompressedVector;
+import com.d3x.morpheus.vector.D3xVector;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class CompressedMatrixTest {
+    private static final Random random = new Random(20210301);
+    private static final DoubleComparator comparator = DoubleComparator.fixed(1.0E-10);
+
+    private static D3xMatrix randomSparse(int nrow, int ncol, double density) {
+        D3xMatrix dense = D3xMatrix.dense(nrow, ncol);
+
+        for (int i = 0; i < nrow; ++i)
+            for (int j = 0; j < ncol; ++j)
+                if (random.nextDouble() < density)
+                    dense.set(i, j, random.nextDouble() - 0.5);
+
+        return dense;
+    }
+
+    @Test
+    public void testCopyOf() {
+        D3xMatrix dense = randomSparse(37, 23, 0.1);
+        CSRMatrix csr = CSRMatrix.copyOf(dense, 0.0);
+        CSCMatrix csc = CSCMatrix.copyOf(dense, 0.0);
+
+        assertEquals(csr.nrow(), 37);
+        assertEquals(csr.ncol(), 23);
+        assertEquals(csr.nnz(), csc.nnz());
+        assertTrue(csr.nnz() < dense.size() / 5);
+        assertTrue(csr.equalsMatrix(dense));
+        assertTrue(csc.equalsMatrix(dense));
+        assertTrue(csr.toCSC().equalsMatrix(dense));
+        assertTrue(csc.toCSR().equalsMatrix(dense));
+        assertTrue(csr.equalsArray(dense.toArray()));
+    }
+
+    @Test
+    public void testThreshold() {
+        D3xMatrix dense = D3xMatrix.byrow(2, 3, 1.0, 1.0E-12, 0.0, -1.0E-12, 0.0, -2.0);
+        CSRMatrix matrix = CSRMatrix.copyOf(dense, 1.0E-10);
+
+        assertEquals(matrix.nnz(), 2);
+        assertEquals(matrix.get(0, 0), 1.0);
+        assertEquals(matrix.get(0, 1), 0.0);
+        assertEquals(matrix.get(1, 0), 0.0);
+        assertEquals(matrix.get(1, 2), -2.0);
+    }
+
+    @Test
+    public void testCopyFrame() {
+        DataFrame<Integer, String> frame = DataFrame.ofDoubles(Range.of(0, 20), List.of("A", "B", "C", "D"));
+        frame.applyDoubles(v -> v.rowOrdinal() % (v.colOrdinal() + 2) == 0 ? v.rowOrdinal() + v.colOrdinal() : 0.0);
+
+        CSRMatrix csr = CSRMatrix.copyFrame(frame, 0.0);
+        CSCMatrix csc = CSCMatrix.copyFrame(frame, List.of(3, 5, 8), List.of("D", "A"), 0.0);
+
+        assertTrue(csr.equalsView(D3xMatrixView.of(frame)));
+        assertEquals(csc.nrow(), 3);
+        assertEquals(csc.ncol(), 2);
+        assertEquals(csc.get(0, 0), 0.0);
+        assertEquals(csc.get(1, 0), 8.0);
+        assertEquals(csc.get(2, 1), 8.0);
+        assertEquals(csc.nnz(), 2);
+    }
+
+    @Test
+    public void testSet() {
+        CSRMatrix matrix = CSRMatrix.sparse(5, 6);
+        D3xMatrix expected = D3xMatrix.dense(5, 6);
+
+        for (int k = 0; k < 40; ++k) {
+            int i = random.nextInt(5);
+            int j = random.nextInt(6);
+            double value = k % 7 == 0 ? 0.0 : random.nextDouble();
+
+            matrix.set(i, j, value);
+            expected.set(i, j, value);
+        }
+
+        assertTrue(matrix.equalsMatrix(expected));
+        assertTrue(matrix.copy().equalsMatrix(expected));
+
+        CSCMatrix csc = CSCMatrix.sparse(5, 6);
+        csc.setSubMatrix(0, 0, expected);
+        assertTrue(csc.equalsMatrix(expected));
+    }
+
+    @Test
+    public void testBuilder() {
+        CSRMatrix.Builder<CSRMatrix> csrBuilder = CSRMatrix.builder(5, 6);
+        CSCMatrix.Builder<CSCMatrix> cscBuilder = CSCMatrix.builder(5, 6);
+        D3xMatrix expected = D3xMatrix.dense(5, 6);
+
+        for (int k = 0; k < 40; ++k) {
+            int i = random.nextInt(5);
+            int j = random.nextInt(6);
+            double value = k % 7 == 0 ? 0.0 : random.nextDouble();
+
+            csrBuilder.set(i, j, value);
+            cscBuilder.set(i, j, value);
+            expected.set(i, j, value);
+        }
+
+        CSRMatrix csr = csrBuilder.build();
+        CSCMatrix csc = cscBuilder.build();
+
+        assertEquals(csrBuilder.size(), 40);
+        assertTrue(csr.equalsMatrix(expected));
+        assertTrue(csc.equalsMatrix(expected));
+        assertEquals(csr.nnz(), CSRMatrix.copyOf(expected, 0.0).nnz());
+        assertEquals(csc.nnz(), csr.nnz());
+    }
+
+    @Test
+    public void testTimesVector() {
+        D3xMatrix dense = randomSparse(120, 80, 0.05);
+        D3xVector x = D3xVector.random(80, random);
+        D3xVector y = D3xVector.random(120, random);
+
+        D3xVector expectedAx = dense.times(x);
+        D3xVector expectedATy = dense.transpose().times(y);
+
+        for (CompressedMatrix matrix : List.of(CSRMatrix.copyOf(dense, 0.0), CSCMatrix.copyOf(dense, 0.0))) {
+            assertTrue(comparator.equals(matrix.times(x), expectedAx));
+            assertTrue(comparator.equals(matrix.transposeTimes(y), expectedATy));
+            assertTrue(comparator.equals(matrix.transpose().times(y), expectedATy));
+        }
+
+        assertTrue(comparator.equals(dense.transposeTimes(y), expectedATy));
+    }
+
+    @Test
+    public void testParallelTimesVector() {
+        int nrow = 20000;
+        int ncol = 500;
+        CSRMatrix matrix = CSRMatrix.copyOf(new D3xMatrixView() {
+            @Override
+            public int nrow() {
+                return nrow;
+            }
+
+            @Override
+            public int ncol() {
+                return ncol;
+            }
+
+            @Override
+            public double get(int row, int col) {
+                return col >= row % 7 && (col - row % 7) % 31 == 0 ? row + col : 0.0;
+            }
+        }, 0.0);
+
+        assertTrue(matrix.nnz() > 100000);
+
+        D3xVector x = D3xVector.random(ncol, random);
+        D3xVector actual = matrix.times(x);
+
+        for (int i = 0; i < nrow; ++i) {
+            double expected = 0.0;
+
+            for (int j = i % 7; j < ncol; j += 31)
+                expected += (i + j) * x.get(j);
+
+            assertEquals(actual.get(i), expected, 1.0E-08 * Math.abs(expected));
+        }
+
+        assertTrue(comparator.equals(matrix.toCSC().times(x), actual));
+    }
+
+    @Test
+    public void testTimesMatrix() {
+        D3xMatrix denseA = randomSparse(30, 40, 0.1);
+        D3xMatrix denseB = randomSparse(40, 25, 0.1);
+        D3xMatrix expected = denseA.times(denseB);
+
+        List<D3xMatrix> lefts = List.of(CSRMatrix.copyOf(denseA, 0.0), CSCMatrix.copyOf(denseA, 0.0));
+        List<D3xMatrix> rights = List.of(denseB, CSRMatrix.copyOf(denseB, 0.0), CSCMatrix.copyOf(denseB, 0.0));
+
+        for (D3xMatrix left : lefts)
+            for (D3xMatrix right : rights)
+                assertTrue(left.times(right).equalsMatrix(expected));
+
+        assertTrue(denseA.times(CSRMatrix.copyOf(denseB, 0.0)).equalsMatrix(expected));
+    }
+
+    @Test
+    public void testTimesDiagonal() {
+        D3xMatrix dense = randomSparse(30, 20, 0.2);
+        D3xVector diagonals = D3xVector.random(20, random);
+        D3xMatrix expected = dense.times(D3xMatrix.diagonal(diagonals));
+
+        assertTrue(dense.timesDiagonal(diagonals).equalsMatrix(expected));
+        assertTrue(CSRMatrix.copyOf(dense, 0.0).timesDiagonal(diagonals).equalsMatrix(expected));
+        assertTrue(CSCMatrix.copyOf(dense, 0.0).timesDiagonal(diagonals).equalsMatrix(expected));
+    }
+
+    @Test
+    public void testSlicing() {
+        D3xMatrix dense = randomSparse(25, 18, 0.2);
+
+        CSRMatrix csr = CSRMatrix.copyOf(dense, 0.0);
+        assertTrue(csr.getRows(5, 10).equalsArray(subArray(dense, 5, 0, 10, 18)));
+        assertTrue(csr.getColumns(3, 9).equalsArray(subArray(dense, 0, 3, 25, 9)));
+        assertTrue(csr.getRows(7, 0).isEmpty());
+
+        CSCMatrix csc = CSCMatrix.copyOf(dense, 0.0);
+        assertTrue(csc.getRows(5, 10).equalsArray(subArray(dense, 5, 0, 10, 18)));
+        assertTrue(csc.getColumns(3, 9).equalsArray(subArray(dense, 0, 3, 25, 9)));
+
+        for (CompressedMatrix matrix : List.of(csr, csc)) {
+            CompressedVector row = (CompressedVector) matrix.getRow(4);
+            CompressedVector col = (CompressedVector) matrix.getColumn(11);
+            assertTrue(row.equalsVector(dense.getRow(4)));
+            assertTrue(col.equalsVector(dense.getColumn(11)));
+        }
+    }
+
+    @Test
+    public void testAllAndAny() {
+        CSRMatrix matrix = CSRMatrix.copyOf(D3xMatrix.byrow(2, 2, 1.0, 0.0, 2.0, 3.0), 0.0);
+
+        assertTrue(matrix.all(Double::isFinite));
+        assertFalse(matrix.all(x -> x > 0.0));
+        assertTrue(matrix.any(x -> x == 0.0));
+        assertFalse(matrix.any(x -> x > 3.0));
+    }
+
+    @Test
+    public void testDiagonalAndEmpty() {
+        assertEquals(CSRMatrix.builder(3, 3).build().nnz(), 0);
+        assertTrue(CSRMatrix.copyOf(D3xMatrix.identity(4), 0.0).isDiagonal());
+        assertEquals(CSRMatrix.sparse(0, 0).nnz(), 0);
+        assertEquals(CSCMatrix.sparse(4, 0).times(D3xVector.empty()).length(), 4);
+    }
+
+    private static double[][] subArray(D3xMatrix matrix, int startRow, int startCol, int nrow, int ncol) {
+        double[][] array = new double[nrow][ncol];
+
+        for (int i = 0; i < nrow; ++i)
+            for (int j = 0; j < ncol; ++j)
+                array[i][j] = matrix.get(startRow + i, startCol + j);
+
+        return array;
+    }
+}
@@ -15,13 +15,17 @@
  */
 package com.d3x.morpheus.reference;
 
+import java.util.Arrays;
+import java.util.Optional;
 import java.util.Random;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
 import com.d3x.morpheus.util.IO;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.EigenDecomposition;
 import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.MatrixUtils;
 import org.apache.commons.math3.linear.QRDecomposition;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.testng.Assert;
@@ -32,6 +36,7 @@ import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.array.ArrayType;
 import com.d3x.morpheus.frame.DataFrame;
 import com.d3x.morpheus.frame.DataFrameAlgebra;
+import com.d3x.morpheus.frame.DataFrameException;
 import com.d3x.morpheus.frame.DataFrameValue;
 import com.d3x.morpheus.range.Range;
 
@@ -131,7 +136,9 @@ public class AlgebraTests {
             {DataFrameAlgebra.Lib.JAMA, true},
             {DataFrameAlgebra.Lib.APACHE, true},
             {DataFrameAlgebra.Lib.JAMA, false},
-            {DataFrameAlgebra.Lib.APACHE, false}
+            {DataFrameAlgebra.Lib.APACHE, false},
+            {DataFrameAlgebra.Lib.BLOCKED, true},
+            {DataFrameAlgebra.Lib.BLOCKED, false}
         };
     }
 
@@ -338,6 +345,42 @@ public class AlgebraTests {
         });
     }
 
+    @Test(dataProvider = "styles")
+    public void testDotProductBlocked(DataFrameAlgebra.Lib lib, boolean parallel) {
+        DataFrameAlgebra.LIBRARY.set(lib);
+        final Random random = new Random(11);
+        final int[][] shapes = {{1, 1, 1}, {3, 5, 7}, {97, 301, 13}, {130, 517, 270}, {6, 600, 2}};
+        for (int[] shape : shapes) {
+            final DataFrame<Integer,Integer> left = random(shape[0], shape[1], parallel, double.class);
+            final DataFrame<Integer,Integer> right = DataFrame.ofInts(Range.of(0, shape[1]), Range.of(0, shape[2]), v -> random.nextInt(100) - 50);
+            right.cols().add(shape[2], Long.class, v -> (long)random.nextInt(1000));
+            final DataFrame<Integer,Integer> result = left.dot(parallel ? right.parallel() : right.sequential());
+            Assert.assertEquals(result.rowCount(), left.rowCount());
+            Assert.assertEquals(result.colCount(), right.colCount());
+            assertEquals(result, toMatrix(left).multiply(toMatrix(right)));
+        }
+    }
+
+
+    @Test(dataProvider = "styles")
+    public void testDotProductMixedTypes(DataFrameAlgebra.Lib lib, boolean parallel) {
+        DataFrameAlgebra.LIBRARY.set(lib);
+        final Random random = new Random(13);
+        final DataFrame<Integer,Integer> left = random(40, 30, parallel, double.class);
+        final DataFrame<Integer,Integer> right = random(30, 20, parallel, double.class);
+        right.cols().add(20, Object.class, v -> random.nextDouble());
+        final DataFrame<Integer,Integer> result = left.dot(parallel ? right.parallel() : right.sequential());
+        Assert.assertEquals(result.colCount(), 21);
+        assertEquals(result, toMatrix(left).multiply(toMatrix(right)));
+    }
+
+
+    @Test(expectedExceptions = {DataFrameException.class})
+    public void testDotProductShapeMismatch() {
+        random(10, 5, false, double.class).dot(random(6, 10, false, double.class));
+    }
+
+
     /*
     @Test(dataProvider = "styles")
     public void testDeterminant(DataFrameAlgebra.Lib lib, boolean parallel) {
@@ -376,6 +419,46 @@ public class AlgebraTests {
     }
 
 
+    @DataProvider(name = "parallel")
+    public Object[][] parallel() {
+        return new Object[][] { {false}, {true} };
+    }
+
+
+    @Test(dataProvider = "parallel")
+    public void testBlockedDecompositions(boolean parallel) {
+        DataFrameAlgebra.LIBRARY.set(DataFrameAlgebra.Lib.BLOCKED);
+        Array.of(1, 20, 64, 77, 135).forEach(count -> {
+            var frame = random(count, count, parallel, double.class);
+            var symmetric = frame.plus(frame.transpose());
+            var spd = frame.transpose().dot(frame);
+            var tall = random(count + 5, count, parallel, double.class);
+            frame.decomp().lud(lud -> {
+                Assert.assertTrue(lud.isNonSingular());
+                Assert.assertEquals(lud.det(), new LUDecomposition(toMatrix(frame)).getDeterminant(), Math.abs(lud.det() * 0.0000001));
+                assertEquals(lud.getL().dot(lud.getU()), toMatrix(lud.getP()).multiply(toMatrix(frame)));
+                return Optional.empty();
+            });
+            spd.decomp().cd(cd -> {
+                assertEquals(cd.getL().dot(cd.getL().transpose()), toMatrix(spd));
+                return Optional.empty();
+            });
+            tall.decomp().qrd(qrd -> {
+                assertEquals(qrd.getQ().dot(qrd.getR()), toMatrix(tall));
+                return Optional.empty();
+            });
+            symmetric.decomp().evd(evd -> {
+                var expected = new EigenDecomposition(toMatrix(symmetric)).getRealEigenvalues();
+                Arrays.sort(expected);
+                Assert.assertEquals(evd.getEigenvalues().stream().doubles().toArray(), expected, 0.0000001);
+                assertEquals(symmetric.dot(evd.getV()), toMatrix(evd.getV()).multiply(toMatrix(evd.getD())));
+                assertEquals(evd.getV().transpose().dot(evd.getV()), MatrixUtils.createRealIdentityMatrix(count));
+                return Optional.empty();
+            });
+        });
+    }
+
+
     @Test()
     public void testMultiply() {
         var weights = random(3000, 1, false, Double.class);
@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameAppender;
+import com.d3x.morpheus.frame.DataFrameException;
+import com.d3x.morpheus.frame.DataFrameOptions;
+import com.d3x.morpheus.range.Range;
+import com.d3x.morpheus.util.Tuple;
+
+/**
+ * Unit tests for the append only DataFrameAppender
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class AppenderTests {
+
+    private static final Instant start = Instant.parse("2020-01-02T09:30:00Z");
+
+
+    /**
+     * Returns a batch of ticks for the sequence range specified
+     * @param from  the first tick sequence, inclusive
+     * @param to    the last tick sequence, exclusive
+     * @return      the batch of ticks
+     */
+    private DataFrame<Instant,String> ticks(int from, int to) {
+        final Range<Instant> times = Range.of(from, to).map(i -> start.plusMillis(i));
+        return DataFrame.of(times, String.class, columns -> {
+            columns.add("Price", Double.class, v -> 100d + (from + v.rowOrdinal()) * 0.01d);
+            columns.add("Size", Long.class, v -> (long)(from + v.rowOrdinal()));
+            columns.add("Venue", String.class, v -> (from + v.rowOrdinal()) % 2 == 0 ? "XNYS" : "XNAS");
+        });
+    }
+
+
+    @Test()
+    public void testAppendAndSnapshot() {
+        final DataFrameAppender<Instant,String> appender = DataFrame.appender(Instant.class, String.class);
+        for (int i=0; i<100; ++i) {
+            Assert.assertEquals(appender.append(ticks(i * 500, (i + 1) * 500)), 500);
+        }
+        final DataFrame<Instant,String> snapshot = appender.snapshot();
+        Assert.assertSame(appender.snapshot(), snapshot);
+        Assert.assertEquals(snapshot.rowCount(), 50000);
+        Assert.assertEquals(snapshot.colCount(), 3);
+        Assert.assertEquals(snapshot.cols().type("Size"), Long.class);
+        for (int i=0; i<snapshot.rowCount(); ++i) {
+            Assert.assertEquals(snapshot.rows().key(i), start.plusMillis(i));
+            Assert.assertEquals(snapshot.getDoubleAt(i, 0), 100d + i * 0.01d, 0.0000001d);
+            Assert.assertEquals(snapshot.getLong(start.plusMillis(i), "Size"), (long)i);
+            Assert.assertEquals(snapshot.getValueAt(i, 2), i % 2 == 0 ? "XNYS" : "XNAS");
+        }
+        appender.append(ticks(50000, 50010));
+        Assert.assertEquals(snapshot.rowCount(), 50000);
+        Assert.assertEquals(appender.snapshot().rowCount(), 50010);
+        Assert.assertEquals(appender.append(ticks(10, 20)), 0);
+        DataFrameOptions.whileNotIgnoringDuplicates(() -> {
+            Assert.assertThrows(DataFrameException.class, () -> appender.append(ticks(10, 20)));
+        });
+        Assert.assertThrows(Exception.class, () -> snapshot.setDoubleAt(0, 0, 1d));
+    }
+
+
+    @Test()
+    public void testSnapshotIndexView() {
+        final DataFrameAppender<Instant,String> appender = DataFrame.appender(Instant.class, String.class);
+        final List<DataFrame<Instant,String>> snapshots = new ArrayList<>();
+        for (int i=0; i<1000; ++i) {
+            appender.append(ticks(i * 10, (i + 1) * 10));
+            snapshots.add(appender.snapshot());
+        }
+        final DataFrame<Instant,String> first = snapshots.get(0);
+        Assert.assertEquals(first.rowCount(), 10);
+        Assert.assertTrue(first.rows().contains(start.plusMillis(9)));
+        Assert.assertFalse(first.rows().contains(start.plusMillis(10)), "Keys appended later are not visible");
+        Assert.assertEquals(first.rows().lastKey().orElse(null), start.plusMillis(9));
+        Assert.assertTrue(Double.isNaN(first.getDouble(start.plusMillis(10), "Price")));
+        final DataFrame<Instant,String> last = snapshots.get(999);
+        Assert.assertEquals(last.rowCount(), 10000);
+        Assert.assertEquals(last.getLong(start.plusMillis(9999), "Size"), 9999L);
+        final DataFrame<Instant,String> selected = last.rows().select(row -> row.getValue("Venue").equals("XNAS"));
+        Assert.assertEquals(selected.rowCount(), 5000);
+        Assert.assertEquals(selected.getLong(start.plusMillis(7), "Size"), 7L);
+        final DataFrame<Instant,String> sorted = last.rows().sort(false);
+        Assert.assertEquals(sorted.rows().firstKey().orElse(null), start.plusMillis(9999));
+        Assert.assertEquals(sorted.getLong(start.plusMillis(9999), "Size"), 9999L);
+        appender.append(ticks(10000, 10010));
+        Assert.assertEquals(appender.snapshot().rows().firstKey().orElse(null), start, "Sorting a snapshot leaves the appender order unchanged");
+    }
+
+
+    @Test()
+    public void testTupleKeys() {
+        final DataFrameAppender<Tuple,String> appender = DataFrame.appender(Tuple.class, String.class);
+        for (int i=0; i<10; ++i) {
+            final int batch = i;
+            final Range<Tuple> keys = Range.of(0, 100).map(j -> Tuple.of("B" + batch, j));
+            final DataFrame<Tuple,String> rows = DataFrame.ofDoubles(keys, "Price");
+            rows.applyDoubles(v -> batch * 100d + v.rowOrdinal());
+            Assert.assertEquals(appender.append(rows), 100);
+        }
+        final DataFrame<Tuple,String> snapshot = appender.snapshot();
+        Assert.assertEquals(snapshot.rowCount(), 1000);
+        Assert.assertEquals(snapshot.rows().key(250), Tuple.of("B2", 50));
+        Assert.assertEquals(snapshot.getDouble(Tuple.of("B7", 3), "Price"), 703d);
+    }
+
+
+    @Test()
+    public void testAddColumn() {
+        final DataFrameAppender<Instant,String> appender = DataFrame.appender(Instant.class, String.class);
+        appender.append(ticks(0, 100));
+        appender.addColumn("Bid", Double.class);
+        final DataFrame<Instant,String> batch = ticks(100, 200);
+        batch.cols().add("Bid", Double.class, v -> 1d);
+        appender.append(batch);
+        final DataFrame<Instant,String> snapshot = appender.snapshot();
+        Assert.assertEquals(snapshot.colCount(), 4);
+        Assert.assertTrue(Double.isNaN(snapshot.getDouble(start, "Bid")));
+        Assert.assertEquals(snapshot.getDouble(start.plusMillis(150), "Bid"), 1d);
+    }
+
+
+    @Test()
+    public void testConcurrentSnapshots() throws Exception {
+        final DataFrameAppender<Instant,String> appender = DataFrame.appender(Instant.class, String.class);
+        final Thread producer = new Thread(() -> {
+            for (int i=0; i<200; ++i) {
+                appender.append(ticks(i * 100, (i + 1) * 100));
+            }
+        });
+        producer.start();
+        while (producer.isAlive()) {
+            final DataFrame<Instant,String> snapshot = appender.snapshot();
+            final int rowCount = snapshot.rowCount();
+            Assert.assertEquals(rowCount % 100, 0, "Snapshots contain whole batches");
+            if (rowCount > 0) {
+                Assert.assertEquals(snapshot.getLongAt(rowCount - 1, 1), rowCount - 1L);
+                Assert.assertEquals(snapshot.rows().lastKey().orElse(null), start.plusMillis(rowCount - 1));
+            }
+        }
+        producer.join();
+        Assert.assertEquals(appender.snapshot().rowCount(), 20000);
+    }
+
+
+    @Test()
+    public void testCoalescedEvents() throws Exception {
+        final DataFrameAppender<Instant,String> appender = DataFrame.appender(Instant.class, String.class);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicInteger events = new AtomicInteger();
+        final AtomicInteger rows = new AtomicInteger();
+        appender.addDataFrameListener(event -> {
+            try {
+                blocked.await();
+                events.incrementAndGet();
+                if (rows.addAndGet(event.rowKeys().length()) == 1000) {
+                    done.countDown();
+                }
+            } catch (InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        for (int i=0; i<10; ++i) {
+            appender.append(ticks(i * 100, (i + 1) * 100));
+        }
+        blocked.countDown();
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(rows.get(), 1000);
+        Assert.assertTrue(events.get() < 10, "Events were coalesced: " + events.get());
+    }
+}
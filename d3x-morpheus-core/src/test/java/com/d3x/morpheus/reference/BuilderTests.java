@@ -278,6 +278,53 @@ public class BuilderTests {
     }
 
 
+    @Test()
+    public void concurrent() {
+        var expected = DataFrame.read("/csv/cars93.csv").csv();
+        var builder = DataFrame.concurrentBuilder(expected.rows().keyClass(), expected.cols().keyClass());
+        expected.cols().forEach(c -> builder.addColumn(c.key(), c.dataClass()));
+        expected.parallel().forEach(v -> builder.putValue(v.rowKey(), v.colKey(), v.getValue()));
+        var result = builder.build().rows().sort(true);
+        Assert.assertEquals(result.rowCount(), expected.rowCount());
+        Assert.assertEquals(result.colCount(), expected.colCount());
+        expected.cols().forEach(c -> Assert.assertEquals(result.col(c.key()).dataClass(), c.dataClass()));
+        DataFrameAsserts.assertEqualsByIndex(result, expected);
+    }
+
+
+    @Test()
+    public void concurrentPlus() throws Exception {
+        var threadCount = 8;
+        var builder = DataFrame.concurrentBuilder(Integer.class, String.class);
+        var threads = IntStream.range(0, threadCount).mapToObj(t -> new Thread(() -> {
+            for (int i=0; i<10000; ++i) {
+                builder.plusDouble(i % 100, "Double", 0.5d);
+                builder.plusLong(i % 100, "Long", 2L);
+                builder.plusInt(i % 50, "Int", 1);
+                builder.putInt(i % 100, "Thread", 1);
+            }
+        })).collect(Collectors.toList());
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) thread.join();
+        Assert.assertEquals(builder.shardCount(), threadCount);
+        var frame = builder.build();
+        Assert.assertEquals(builder.shardCount(), 0);
+        Assert.assertEquals(frame.rowCount(), 100);
+        Assert.assertEquals(frame.cols().keyList(), List.of("Double", "Long", "Int", "Thread"));
+        for (int i=0; i<100; ++i) {
+            Assert.assertEquals(frame.getDouble(i, "Double"), threadCount * 100 * 0.5d, 0.000001d);
+            Assert.assertEquals(frame.getLong(i, "Long"), threadCount * 100 * 2L);
+            Assert.assertEquals(frame.getInt(i, "Int"), i < 50 ? threadCount * 200 : 0);
+            Assert.assertEquals(frame.getInt(i, "Thread"), 1);
+        }
+        builder.plusDouble(0, "Double", 1d);
+        var next = builder.build();
+        Assert.assertEquals(next.rowCount(), 1);
+        Assert.assertEquals(next.getDouble(0, "Double"), 1d, 0.000001d);
+        Assert.assertEquals(frame.getDouble(0, "Double"), threadCount * 100 * 0.5d, 0.000001d);
+    }
+
+
     @Test()
     public void toBuilder() {
         var expected = DataFrame.read("/csv/cars93.csv").csv();
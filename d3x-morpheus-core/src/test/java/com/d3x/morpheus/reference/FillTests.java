@@ -16,8 +16,10 @@
 package com.d3x.morpheus.reference;
 
 import java.io.IOException;
+import java.time.LocalDate;
 
 import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameException;
 import com.d3x.morpheus.range.Range;
 import org.testng.annotations.Test;
 
@@ -147,4 +149,120 @@ public class FillTests {
     }
 
 
+    @Test()
+    public void testFillLinear() {
+        final Range<Integer> rowKeys = Range.of(0, 10);
+        final Range<String> colKeys = Range.of(0, 5).map(i -> "C" + i);
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(rowKeys, colKeys);
+        frame.row(1).applyDoubles(v -> 10d);
+        frame.row(5).applyDoubles(v -> 50d);
+        frame.row(9).applyDoubles(v -> 10d);
+        final int count = frame.fill().linear(3);
+        assertEquals("Fill count", 30, count);
+        frame.cols().forEach(column -> {
+            assertEquals("Leading NaN", Double.NaN, column.getDoubleAt(0));
+            for (int i=1; i<=5; ++i) assertEquals("Value at " + i, i * 10d, column.getDoubleAt(i), 0.0000001d);
+            for (int i=6; i<=9; ++i) assertEquals("Value at " + i, 50d - (i - 5) * 10d, column.getDoubleAt(i), 0.0000001d);
+        });
+    }
+
+
+    @Test()
+    public void testFillLinearLimit() {
+        final Range<Integer> rowKeys = Range.of(0, 10);
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(rowKeys, "A");
+        frame.setDouble(0, "A", 1d);
+        frame.setDouble(3, "A", 4d);
+        frame.setDouble(9, "A", 9d);
+        final int count = frame.fill().linear(2);
+        assertEquals("Fill count", 2, count);
+        assertEquals(2d, frame.getDouble(1, "A"), 0.0000001d);
+        assertEquals(3d, frame.getDouble(2, "A"), 0.0000001d);
+        for (int i=4; i<9; ++i) assertEquals("Gap too long at " + i, Double.NaN, frame.getDouble(i, "A"));
+    }
+
+
+    @Test()
+    public void testFillTime() {
+        final LocalDate start = LocalDate.of(2018, 1, 1);
+        final Range<LocalDate> rowKeys = Range.of(0, 4).map(i -> start.plusDays(i * i));
+        final DataFrame<LocalDate,String> frame = DataFrame.ofDoubles(rowKeys, "A");
+        frame.setDoubleAt(0, 0, 0d);
+        frame.setDoubleAt(3, 0, 9d);
+        final int count = frame.fill().time(5);
+        assertEquals("Fill count", 2, count);
+        assertEquals(1d, frame.getDoubleAt(1, 0), 0.0000001d);
+        assertEquals(4d, frame.getDoubleAt(2, 0), 0.0000001d);
+    }
+
+
+    @Test(expectedExceptions = { DataFrameException.class })
+    public void testFillTimeRequiresTemporalKeys() {
+        final Range<String> rowKeys = Range.of(0, 10).map(i -> "R" + i);
+        final DataFrame<String,String> frame = DataFrame.ofDoubles(rowKeys, "A");
+        frame.fill().time(5);
+    }
+
+
+    @Test()
+    public void testFillNearest() {
+        final Range<Integer> rowKeys = Range.of(0, 8);
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(rowKeys, "A");
+        frame.setDouble(0, "A", 1d);
+        frame.setDouble(5, "A", 2d);
+        final int count = frame.fill().nearest(10);
+        assertEquals("Fill count", 4, count);
+        assertEquals(1d, frame.getDouble(1, "A"));
+        assertEquals(1d, frame.getDouble(2, "A"));
+        assertEquals(2d, frame.getDouble(3, "A"));
+        assertEquals(2d, frame.getDouble(4, "A"));
+        assertEquals(Double.NaN, frame.getDouble(6, "A"));
+    }
+
+
+    @Test()
+    public void testFillDownObjects() {
+        final Range<Integer> rowKeys = Range.of(0, 6);
+        final DataFrame<Integer,String> frame = DataFrame.ofObjects(rowKeys, Range.of(0, 1).map(i -> "A"));
+        frame.setValue(1, "A", "X");
+        frame.setValue(4, "A", "Y");
+        final int count = frame.fill().down(2);
+        assertEquals("Fill count", 3, count);
+        assertEquals(null, (Object)frame.getValue(0, "A"));
+        assertEquals("X", frame.getValue(2, "A"));
+        assertEquals("X", frame.getValue(3, "A"));
+        assertEquals("Y", frame.getValue(5, "A"));
+    }
+
+
+    @Test()
+    public void testFillParallel() {
+        final Range<Integer> rowKeys = Range.of(0, 1000);
+        final Range<String> colKeys = Range.of(0, 500).map(i -> "C" + i);
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(rowKeys, colKeys, v -> Math.random() < 0.3d ? Double.NaN : Math.random());
+        final DataFrame<Integer,String> expected = frame.copy();
+        final DataFrame<Integer,String> actual = frame.copy();
+        final int expectedCount = expected.sequential().fill().linear(5) + expected.sequential().fill().down(3);
+        final int actualCount = actual.parallel().fill().linear(5) + actual.parallel().fill().down(3);
+        assertEquals("Fill count", expectedCount, actualCount);
+        assertEquals("Frames match", expected, actual);
+    }
+
+
+    @Test()
+    public void testFillFiltered() {
+        final Range<Integer> rowKeys = Range.of(0, 20);
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(rowKeys, "A");
+        frame.setDouble(2, "A", 2d);
+        frame.setDouble(8, "A", 8d);
+        final DataFrame<Integer,String> filter = frame.rows().select(row -> row.key() % 2 == 0);
+        final int count = filter.fill().linear(5);
+        assertEquals("Fill count", 2, count);
+        assertEquals(4d, frame.getDouble(4, "A"), 0.0000001d);
+        assertEquals(6d, frame.getDouble(6, "A"), 0.0000001d);
+        assertEquals(Double.NaN, frame.getDouble(5, "A"));
+        assertEquals(Double.NaN, frame.getDouble(10, "A"));
+    }
+
+
 }
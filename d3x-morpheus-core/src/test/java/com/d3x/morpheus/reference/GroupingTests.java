@@ -17,6 +17,7 @@ package com.d3x.morpheus.reference;
 
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
@@ -24,11 +25,13 @@ import org.testng.annotations.Test;
 
 import com.d3x.morpheus.array.Array;
 import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameAggregator;
 import com.d3x.morpheus.frame.DataFrameAsserts;
 import com.d3x.morpheus.frame.DataFrameColumn;
 import com.d3x.morpheus.frame.DataFrameGrouping;
 import com.d3x.morpheus.frame.DataFrameRow;
 import com.d3x.morpheus.index.Index;
+import com.d3x.morpheus.range.Range;
 import com.d3x.morpheus.util.Tuple;
 
 /**
@@ -161,6 +164,96 @@ public class GroupingTests {
     }
 
 
+    @Test(dataProvider = "parallel")
+    public void testAggregateRows(boolean parallel) {
+        final DataFrame<String,String> source = frame();
+        final DataFrameGrouping.Rows<String,String> grouping = parallel ? source.rows().parallel().groupBy("Issuer", "Niche") : source.rows().groupBy("Issuer", "Niche");
+        for (int level=0; level<grouping.getDepth(); ++level) {
+            final DataFrame<Tuple,String> sums = grouping.agg(level, colKey -> DataFrameAggregator.sum());
+            final DataFrame<Tuple,String> stats = grouping.agg(level, colKey -> {
+                switch (colKey) {
+                    case "AUM":             return DataFrameAggregator.mean();
+                    case "Expense Ratio":   return DataFrameAggregator.stdDev();
+                    case "P/E":             return DataFrameAggregator.count();
+                    case "P/B":             return DataFrameAggregator.first();
+                    case "Spread%":         return DataFrameAggregator.last();
+                    default:                return null;
+                }
+            });
+            Assert.assertEquals(sums.rowCount(), grouping.getGroupCount(level), "Row count matches group count");
+            Assert.assertEquals(stats.colCount(), 5, "Only columns with an aggregator are included");
+            grouping.getGroupKeys(level).forEach(groupKey -> {
+                final DataFrame<String,String> group = grouping.getGroup(groupKey);
+                sums.cols().forEach(column -> {
+                    final double expected = group.col(column.key()).stats().sum();
+                    assertEquals(column.getDouble(groupKey), expected, 0.0001, "Sum matches for " + column.key() + " in " + groupKey);
+                });
+                final double[] pb = group.col("P/B").toDoubleStream().filter(v -> !Double.isNaN(v)).toArray();
+                final double[] spread = group.col("Spread%").toDoubleStream().filter(v -> !Double.isNaN(v)).toArray();
+                assertEquals(stats.getDouble(groupKey, "AUM"), group.col("AUM").stats().mean(), 0.0001, "Mean matches for " + groupKey);
+                assertEquals(stats.getDouble(groupKey, "Expense Ratio"), group.col("Expense Ratio").stats().stdDev(), 0.0001, "StdDev matches for " + groupKey);
+                assertEquals(stats.getDouble(groupKey, "P/E"), group.col("P/E").stats().count(), 0.0001, "Count matches for " + groupKey);
+                assertEquals(stats.getDouble(groupKey, "P/B"), pb.length > 0 ? pb[0] : Double.NaN, 0.0001, "First matches for " + groupKey);
+                assertEquals(stats.getDouble(groupKey, "Spread%"), spread.length > 0 ? spread[spread.length-1] : Double.NaN, 0.0001, "Last matches for " + groupKey);
+            });
+        }
+    }
+
+
+    @Test(dataProvider = "parallel")
+    public void testAggregateManyGroups(boolean parallel) {
+        final int groupCount = 50000;
+        final int rowCount = groupCount * 4;
+        final DataFrame<Integer,String> source = DataFrame.of(Range.of(0, rowCount), String.class, columns -> {
+            columns.add("A", Array.of(IntStream.range(0, rowCount).asDoubleStream().toArray()));
+            columns.add("B", Array.of(IntStream.range(0, rowCount).mapToDouble(i -> 1d).toArray()));
+        });
+        final DataFrameGrouping.Rows<Integer,String> grouping = parallel
+            ? source.rows().parallel().groupBy(row -> Tuple.of(row.key() % groupCount))
+            : source.rows().groupBy(row -> Tuple.of(row.key() % groupCount));
+        final DataFrame<Tuple,String> sums = grouping.agg(0, colKey -> DataFrameAggregator.sum());
+        final DataFrame<Tuple,String> firsts = grouping.agg(0, colKey -> colKey.equals("A") ? DataFrameAggregator.first() : DataFrameAggregator.count());
+        final DataFrame<Tuple,String> lasts = grouping.agg(0, colKey -> colKey.equals("A") ? DataFrameAggregator.last() : null);
+        Assert.assertEquals(sums.rowCount(), groupCount, "Row count matches group count");
+        for (int g=0; g<groupCount; ++g) {
+            final Tuple groupKey = Tuple.of(g);
+            Assert.assertEquals(sums.getDouble(groupKey, "A"), 4d * g + 6d * groupCount, "Sum matches for " + groupKey);
+            Assert.assertEquals(sums.getDouble(groupKey, "B"), 4d, "Sum of ones matches for " + groupKey);
+            Assert.assertEquals(firsts.getDouble(groupKey, "A"), (double)g, "First matches for " + groupKey);
+            Assert.assertEquals(firsts.getDouble(groupKey, "B"), 4d, "Count matches for " + groupKey);
+            Assert.assertEquals(lasts.getDouble(groupKey, "A"), (double)(g + 3 * groupCount), "Last matches for " + groupKey);
+        }
+    }
+
+
+    @Test(dataProvider = "parallel")
+    public void testAggregateFewLargeGroups(boolean parallel) {
+        final int rowCount = 200000;
+        final DataFrame<Integer,String> source = DataFrame.of(Range.of(0, rowCount), String.class, columns -> {
+            columns.add("A", Array.of(IntStream.range(0, rowCount).asDoubleStream().toArray()));
+            columns.add("B", Array.of(IntStream.range(0, rowCount).mapToDouble(i -> i % 3 == 0 ? Double.NaN : 2d).toArray()));
+        });
+        final DataFrameGrouping.Rows<Integer,String> grouping = parallel
+            ? source.rows().parallel().groupBy(row -> Tuple.of(row.key() < 10 ? "Small" : "Large"))
+            : source.rows().groupBy(row -> Tuple.of(row.key() < 10 ? "Small" : "Large"));
+        final DataFrame<Tuple,String> sums = grouping.agg(0, colKey -> DataFrameAggregator.sum());
+        final DataFrame<Tuple,String> firsts = grouping.agg(0, colKey -> colKey.equals("A") ? DataFrameAggregator.first() : DataFrameAggregator.count());
+        final DataFrame<Tuple,String> lasts = grouping.agg(0, colKey -> colKey.equals("A") ? DataFrameAggregator.last() : DataFrameAggregator.variance());
+        final Tuple large = Tuple.of("Large");
+        final Tuple small = Tuple.of("Small");
+        final double n = rowCount - 10;
+        Assert.assertEquals(sums.getDouble(large, "A"), (rowCount - 1d) * rowCount / 2d - 45d, "Sum matches");
+        Assert.assertEquals(sums.getDouble(small, "A"), 45d, "Sum matches");
+        Assert.assertEquals(firsts.getDouble(large, "A"), 10d, "First matches");
+        Assert.assertEquals(firsts.getDouble(large, "B"), (double)IntStream.range(10, rowCount).filter(i -> i % 3 != 0).count(), "Count matches");
+        Assert.assertEquals(lasts.getDouble(large, "A"), rowCount - 1d, "Last matches");
+        Assert.assertEquals(lasts.getDouble(small, "A"), 9d, "Last matches");
+        Assert.assertEquals(lasts.getDouble(large, "B"), 0d, 1e-9, "Variance matches");
+        final DataFrame<Tuple,String> variances = grouping.agg(0, colKey -> DataFrameAggregator.variance());
+        Assert.assertEquals(variances.getDouble(large, "A"), n * (n + 1d) / 12d, 1e-3, "Variance matches");
+    }
+
+
     @Test()
     public void testTranspose() {
         final DataFrame<String,String> source = frame();
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+import java.util.Random;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameAggregator;
+import com.d3x.morpheus.frame.DataFrameAsserts;
+import com.d3x.morpheus.frame.DataFrameException;
+import com.d3x.morpheus.frame.DataFrameLazy;
+import com.d3x.morpheus.range.Range;
+import com.d3x.morpheus.stats.StatType;
+import com.d3x.morpheus.util.Tuple;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for lazy DataFrame query plans
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class LazyTests {
+
+
+    @DataProvider(name="parallel")
+    public Object[][] parallel() {
+        return new Object[][] { {false}, {true} };
+    }
+
+
+    /**
+     * Returns a frame of random doubles with an additional integer column
+     * @return  the test frame
+     */
+    private static DataFrame<Integer,String> createTestFrame() {
+        final Random random = new Random(7);
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(Range.of(0, 10000), List.of("A", "B", "C", "D"));
+        frame.applyDoubles(v -> random.nextDouble() - 0.5);
+        frame.cols().add("E", Integer.class, v -> v.rowOrdinal() % 7);
+        return frame;
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void testFusedFilterAndMap(boolean parallel) {
+        final DataFrame<Integer,String> frame = createTestFrame();
+        final DataFrameLazy<Integer,String> plan = frame.lazy()
+            .applyDoubles("A", v -> v * 2d)
+            .filter("A", v -> v > 0d)
+            .applyDoubles("A", v -> v + 1d)
+            .filter("E", v -> v < 5)
+            .applyDoubles(Math::abs)
+            .select("A", "C", "E");
+        final DataFrame<Integer,String> actual = (parallel ? plan.parallel() : plan.sequential()).collect();
+        final DataFrame<Integer,String> expected = frame.rows().select(row -> row.getDouble("A") > 0d && row.getInt("E") < 5).cols().select("A", "C", "E").copy();
+        expected.col("A").applyDoubles(v -> Math.abs(v.getDouble() * 2d + 1d));
+        expected.col("C").applyDoubles(v -> Math.abs(v.getDouble()));
+        DataFrameAsserts.assertEqualsByIndex(actual, expected);
+        Assert.assertEquals(actual.cols().type("E"), Integer.class);
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void testRowFilterAfterMap(boolean parallel) {
+        final DataFrame<Integer,String> frame = createTestFrame();
+        final DataFrameLazy<Integer,String> plan = frame.lazy()
+            .applyDoubles("B", v -> v + 100d)
+            .filter(row -> row.getDouble("B") > 100.25d)
+            .filter(row -> row.getDouble("D") < 0d);
+        final DataFrame<Integer,String> actual = (parallel ? plan.parallel() : plan.sequential()).collect();
+        final DataFrame<Integer,String> expected = frame.rows().select(row -> row.getDouble("B") > 0.25d && row.getDouble("D") < 0d).copy();
+        expected.col("B").applyDoubles(v -> v.getDouble() + 100d);
+        DataFrameAsserts.assertEqualsByIndex(actual, expected);
+        Assert.assertTrue(plan.explain().contains("Stage 2"), "Row filter after a map starts a new stage");
+    }
+
+
+    @Test()
+    public void testEmptyPlanReturnsFrame() {
+        final DataFrame<Integer,String> frame = createTestFrame();
+        Assert.assertSame(frame.lazy().collect(), frame);
+    }
+
+
+    @Test(expectedExceptions={DataFrameException.class})
+    public void testFilterOnUnselectedColumn() {
+        createTestFrame().lazy().select("A", "B").filter("C", v -> v > 0d).collect();
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void testCsvPushdown(boolean parallel) {
+        final DataFrameLazy<String,String> plan = DataFrame.read("/csv/cars93.csv").lazy(String.class, options -> {
+            options.setRowKeyColumnName("Make");
+        })
+        .filter("Price", v -> v > 20d)
+        .applyDoubles("Price", v -> v * 2d)
+        .filter("Horsepower", v -> v < 200)
+        .select("Model", "Price", "Horsepower");
+        final String explain = plan.explain();
+        Assert.assertTrue(explain.contains("projection"), explain);
+        Assert.assertTrue(explain.contains("filter(Price)"), explain);
+        Assert.assertTrue(explain.contains("filter(Horsepower)"), explain);
+        final DataFrame<String,String> actual = (parallel ? plan.parallel() : plan.sequential()).collect();
+        final DataFrame<String,String> frame = DataFrame.read("/csv/cars93.csv").csv(String.class, options -> {
+            options.setRowKeyColumnName("Make");
+        });
+        final DataFrame<String,String> expected = frame.rows().select(row -> row.getDouble("Price") > 20d && row.getDouble("Horsepower") < 200).cols().select("Model", "Price", "Horsepower").copy();
+        expected.col("Price").applyDoubles(v -> v.getDouble() * 2d);
+        Assert.assertTrue(actual.rowCount() > 0, "There is at least one row");
+        DataFrameAsserts.assertEqualsByIndex(actual, expected);
+    }
+
+
+    @Test()
+    public void testDbPushdown() throws Exception {
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:lazy", "sa", "")) {
+            try (var stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE PRICES (ID INTEGER, NAME VARCHAR(20), PRICE DOUBLE, VOLUME BIGINT)");
+                for (int i=0; i<100; ++i) {
+                    stmt.execute("INSERT INTO PRICES VALUES (" + i + ", 'N" + i + "', " + (i * 1.5d) + ", " + (i * 10) + ")");
+                }
+            }
+            try (var stmt = conn.createStatement()) {
+                final DataFrameLazy<Integer,String> plan = DataFrame.read(stmt.executeQuery("SELECT * FROM PRICES")).<Integer>lazy(options -> {
+                    options.setRowIndexColumnName("ID");
+                })
+                .filter("PRICE", v -> v >= 30d)
+                .filter("VOLUME", v -> v < 500)
+                .select("PRICE");
+                Assert.assertTrue(plan.explain().contains("filter(VOLUME)"));
+                final DataFrame<Integer,String> actual = plan.collect();
+                Assert.assertEquals(actual.rowCount(), 30);
+                Assert.assertEquals(actual.colCount(), 1);
+                Assert.assertEquals(actual.rows().firstKey().orElse(null), Integer.valueOf(20));
+                Assert.assertEquals(actual.rows().lastKey().orElse(null), Integer.valueOf(49));
+                actual.rows().forEach(row -> Assert.assertEquals(row.getDouble("PRICE"), row.key() * 1.5d, 0.0000001));
+            }
+        }
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void testSortStage(boolean parallel) {
+        final DataFrame<Integer,String> frame = createTestFrame();
+        final DataFrameLazy<Integer,String> plan = frame.lazy()
+            .filter("A", v -> v > 0d)
+            .sort(false, "B")
+            .applyDoubles("B", v -> v * 10d);
+        final DataFrame<Integer,String> actual = (parallel ? plan.parallel() : plan.sequential()).collect();
+        final DataFrame<Integer,String> expected = frame.rows().select(row -> row.getDouble("A") > 0d).copy().rows().sort(false, "B");
+        expected.col("B").applyDoubles(v -> v.getDouble() * 10d);
+        DataFrameAsserts.assertEqualsByIndex(actual, expected);
+        Assert.assertTrue(plan.explain().contains("Sort [B] descending"), plan.explain());
+        final DataFrame<Integer,String> sorted = frame.lazy().sort(true, "C").collect();
+        Assert.assertEquals(frame.rows().firstKey().orElse(null), Integer.valueOf(0), "Input frame is not sorted in place");
+        Assert.assertTrue(sorted.getDouble(sorted.rows().key(0), "C") <= sorted.getDouble(sorted.rows().key(1), "C"));
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void testFilterMapGroupSum(boolean parallel) {
+        final DataFrame<Integer,String> frame = createTestFrame();
+        final DataFrameLazy<Integer,String> plan = (parallel ? frame.lazy().parallel() : frame.lazy().sequential())
+            .filter("A", v -> v > 0d)
+            .applyDoubles("B", v -> v * 2d)
+            .select("B", "C", "E");
+        final DataFrameLazy<Tuple,String> grouped = plan.groupBy("E").agg(c -> c.equals("E") ? null : DataFrameAggregator.sum());
+        final DataFrame<Tuple,String> actual = grouped.sort(true, "B").collect();
+        final DataFrame<Integer,String> filtered = frame.rows().select(row -> row.getDouble("A") > 0d).cols().select("B", "C", "E").copy();
+        filtered.col("B").applyDoubles(v -> v.getDouble() * 2d);
+        final DataFrame<Tuple,String> expected = filtered.rows().groupBy("E").agg(c -> c.equals("E") ? null : DataFrameAggregator.sum()).rows().sort(true, "B");
+        DataFrameAsserts.assertEqualsByIndex(actual, expected);
+        Assert.assertEquals(actual.rowCount(), 7);
+        Assert.assertTrue(grouped.explain().startsWith("Scan Aggregate[E]"), grouped.explain());
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void testDescribe(boolean parallel) {
+        final DataFrame<Integer,String> frame = createTestFrame();
+        final DataFrameLazy<Integer,String> plan = (parallel ? frame.lazy().parallel() : frame.lazy().sequential())
+            .filter("E", v -> v < 3)
+            .applyDoubles("A", v -> v + 1d)
+            .select("A", "B", "E");
+        final DataFrame<String,StatType> actual = plan.describe(StatType.COUNT, StatType.MEAN, StatType.MAX);
+        final DataFrame<Integer,String> expected = frame.rows().select(row -> row.getInt("E") < 3).cols().select("A", "B", "E").copy();
+        expected.col("A").applyDoubles(v -> v.getDouble() + 1d);
+        DataFrameAsserts.assertEqualsByIndex(actual, expected.cols().describe(StatType.COUNT, StatType.MEAN, StatType.MAX));
+    }
+
+
+    @Test()
+    public void testCsvPushdownWithNameMapping() {
+        final DataFrameLazy<Integer,String> plan = DataFrame.read("/csv/cars93.csv").lazy(Integer.class, options -> {
+            options.setColumnNameMapping((name, index) -> name.toUpperCase());
+        })
+        .filter("PRICE", v -> v > 20d)
+        .select("MODEL", "PRICE");
+        final DataFrame<Integer,String> actual = plan.collect();
+        final DataFrame<Integer,String> all = DataFrame.read("/csv/cars93.csv").csv(Integer.class, options -> {});
+        final long count = all.rows().stream().filter(row -> row.getDouble("Price") > 20d).count();
+        Assert.assertEquals(actual.cols().keyList(), List.of("MODEL", "PRICE"));
+        Assert.assertEquals(actual.rowCount(), (int)count);
+        actual.rows().forEach(row -> Assert.assertTrue(row.getDouble("PRICE") > 20d));
+    }
+}
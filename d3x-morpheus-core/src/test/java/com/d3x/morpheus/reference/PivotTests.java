@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameAggregator;
+import com.d3x.morpheus.frame.DataFrameAsserts;
+import com.d3x.morpheus.frame.DataFrameException;
+import com.d3x.morpheus.range.Range;
+
+/**
+ * Unit tests for the pivot and melt operations on a DataFrame
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class PivotTests {
+
+    private static final String[] tickers = {"AAPL", "MSFT", "ORCL", "IBM", "GOOGL"};
+
+
+    @DataProvider(name="parallel")
+    public Object[][] parallel() {
+        return new Object[][] {{false}, {true}};
+    }
+
+
+    /**
+     * Returns a long frame of trades with two trades per date and ticker, where every 20th price is missing
+     * @return  the long frame of trades
+     */
+    private DataFrame<Integer,String> trades() {
+        final LocalDate start = LocalDate.of(2020, 1, 1);
+        final Range<Integer> rows = Range.of(0, 2000);
+        return DataFrame.of(rows, String.class, columns -> {
+            columns.add("Date", LocalDate.class, v -> start.plusDays(v.rowOrdinal() / 10));
+            columns.add("Ticker", String.class, v -> tickers[v.rowOrdinal() % 5]);
+            columns.add("Price", Double.class, v -> v.rowOrdinal() % 20 == 19 ? Double.NaN : v.rowOrdinal() * 0.5d);
+        });
+    }
+
+
+    @Test(dataProvider = "parallel")
+    public void testPivot(boolean parallel) {
+        final DataFrame<Integer,String> trades = parallel ? trades().parallel() : trades().sequential();
+        final DataFrame<LocalDate,String> sums = trades.pivot("Date", "Ticker", "Price", DataFrameAggregator.sum());
+        final DataFrame<LocalDate,String> lasts = trades.pivot("Date", "Ticker", "Price", DataFrameAggregator.last());
+        Assert.assertEquals(sums.rowCount(), 200);
+        Assert.assertEquals(sums.colCount(), 5);
+        Assert.assertEquals(sums.rows().key(0), LocalDate.of(2020, 1, 1));
+        Assert.assertEquals(sums.cols().keyList(), List.of(tickers));
+        for (int i=0; i<sums.rowCount(); ++i) {
+            for (int j=0; j<tickers.length; ++j) {
+                final double first = (i * 10 + j) * 0.5d;
+                final double second = (i * 10 + j + 5) * 0.5d;
+                final boolean missing = (i * 10 + j + 5) % 20 == 19;
+                Assert.assertEquals(sums.getDoubleAt(i, j), missing ? first : first + second, 0.0000001d);
+                Assert.assertEquals(lasts.getDoubleAt(i, j), missing ? first : second, 0.0000001d);
+            }
+        }
+    }
+
+
+    @Test()
+    public void testPivotMissingCells() {
+        final DataFrame<Integer,String> trades = trades().rows().select(row -> !row.getValue("Ticker").equals("IBM") || row.ordinal() < 10);
+        final DataFrame<LocalDate,String> counts = trades.pivot("Date", "Ticker", "Price", DataFrameAggregator.count());
+        Assert.assertEquals(counts.getDouble(LocalDate.of(2020, 1, 1), "IBM"), 2d);
+        Assert.assertTrue(Double.isNaN(counts.getDouble(LocalDate.of(2020, 1, 2), "IBM")));
+        Assert.assertEquals(counts.getDouble(LocalDate.of(2020, 1, 2), "AAPL"), 2d);
+    }
+
+
+    @Test(dataProvider = "parallel")
+    public void testPivotAllNaNCell(boolean parallel) {
+        final DataFrame<Integer,String> trades = DataFrame.of(Range.of(0, 4), String.class, columns -> {
+            columns.add("Date", LocalDate.class, v -> LocalDate.of(2020, 1, 1));
+            columns.add("Ticker", String.class, v -> tickers[v.rowOrdinal() % 2]);
+            columns.add("Price", Double.class, v -> v.rowOrdinal() % 2 == 0 ? Double.NaN : 2d);
+        });
+        final DataFrame<Integer,String> input = parallel ? trades.parallel() : trades.sequential();
+        final DataFrame<LocalDate,String> sums = input.pivot("Date", "Ticker", "Price", DataFrameAggregator.sum());
+        final DataFrame<LocalDate,String> counts = input.pivot("Date", "Ticker", "Price", DataFrameAggregator.count());
+        Assert.assertTrue(Double.isNaN(sums.getDouble(LocalDate.of(2020, 1, 1), "AAPL")), "All NaN cell sums to NaN");
+        Assert.assertTrue(Double.isNaN(counts.getDouble(LocalDate.of(2020, 1, 1), "AAPL")), "All NaN cell counts to NaN");
+        Assert.assertEquals(sums.getDouble(LocalDate.of(2020, 1, 1), "MSFT"), 4d);
+        Assert.assertEquals(counts.getDouble(LocalDate.of(2020, 1, 1), "MSFT"), 2d);
+    }
+
+
+    @Test(dataProvider = "parallel")
+    public void testMelt(boolean parallel) {
+        final DataFrame<Integer,String> trades = parallel ? trades().parallel() : trades().sequential();
+        final DataFrame<LocalDate,String> wide = trades.pivot("Date", "Ticker", "Price", DataFrameAggregator.first());
+        final DataFrame<Integer,String> dates = DataFrame.of(Range.of(0, wide.rowCount()), String.class, columns -> {
+            columns.add("Date", LocalDate.class, v -> wide.rows().key(v.rowOrdinal()));
+            wide.cols().keys().forEach(ticker -> columns.add(ticker, Double.class, v -> wide.getDouble(wide.rows().key(v.rowOrdinal()), ticker)));
+        });
+        final DataFrame<Integer,String> melted = dates.melt(List.of("Date"), List.of(tickers), "Ticker", "Price");
+        Assert.assertEquals(melted.rowCount(), dates.rowCount() * tickers.length);
+        Assert.assertEquals(melted.cols().keyList(), List.of("Date", "Ticker", "Price"));
+        Assert.assertEquals(melted.cols().type("Date"), LocalDate.class);
+        Assert.assertEquals(melted.cols().type("Price"), Double.class);
+        for (int i=0; i<melted.rowCount(); ++i) {
+            final LocalDate date = melted.getValueAt(i, 0);
+            final String ticker = melted.getValueAt(i, 1);
+            Assert.assertEquals(ticker, tickers[i / dates.rowCount()]);
+            Assert.assertEquals(melted.getDoubleAt(i, 2), wide.getDouble(date, ticker), 0.0000001d);
+        }
+        final DataFrame<LocalDate,String> pivoted = melted.pivot("Date", "Ticker", "Price", DataFrameAggregator.first());
+        DataFrameAsserts.assertEqualsByIndex(pivoted, wide);
+    }
+
+
+    @Test(expectedExceptions = { DataFrameException.class })
+    public void testMeltTooLarge() {
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(Range.of(0, 1000000), List.of("A"));
+        frame.melt(List.of(), Collections.nCopies(2200, "A"), "Variable", "Value");
+    }
+}
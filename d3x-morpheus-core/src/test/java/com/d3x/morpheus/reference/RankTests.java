@@ -18,7 +18,9 @@ package com.d3x.morpheus.reference;
 import java.util.Random;
 
 import com.d3x.morpheus.frame.DataFrame;
+import org.apache.commons.math3.stat.ranking.NaNStrategy;
 import org.apache.commons.math3.stat.ranking.NaturalRanking;
+import org.apache.commons.math3.stat.ranking.TiesStrategy;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -80,4 +82,25 @@ public class RankTests {
             }
         });
     }
+
+
+    @Test()
+    public void testParallelRankWithTiesAndNaNs() {
+        final Random random = new Random(1);
+        final DataFrame<String,String> frame = TestDataFrames.random(double.class, 500, 80);
+        frame.applyDoubles(v -> random.nextDouble() < 0.05d ? Double.NaN : Math.floor(random.nextDouble() * 10));
+        final DataFrame<String,String> rowRanks = frame.parallel().rank().ofRows();
+        final DataFrame<String,String> colRanks = frame.parallel().rank().ofColumns();
+        final NaturalRanking ranking = new NaturalRanking(NaNStrategy.MINIMAL, TiesStrategy.AVERAGE);
+        for (int i=0; i<frame.rowCount(); ++i) {
+            final double[] expected = ranking.rank(frame.rowAt(i).toDoubleStream().toArray());
+            final double[] actual = rowRanks.rowAt(i).toDoubleStream().toArray();
+            Assert.assertEquals(actual, expected, "The ranks match for row " + i);
+        }
+        for (int j=0; j<frame.colCount(); ++j) {
+            final double[] expected = ranking.rank(frame.colAt(j).toDoubleStream().toArray());
+            final double[] actual = colRanks.colAt(j).toDoubleStream().toArray();
+            Assert.assertEquals(actual, expected, "The ranks match for column " + j);
+        }
+    }
 }
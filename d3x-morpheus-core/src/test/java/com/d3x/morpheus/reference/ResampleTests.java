@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameAsserts;
+import com.d3x.morpheus.frame.DataFrameException;
+import com.d3x.morpheus.range.Range;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for time based resampling of DataFrame rows
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class ResampleTests {
+
+
+    @DataProvider(name="parallel")
+    public Object[][] parallel() {
+        return new Object[][] { {false}, {true} };
+    }
+
+
+    /**
+     * Returns a frame of ticks every 7 seconds with a random price, size and an occasional missing price
+     * @param shuffle   true to shuffle the order of the rows
+     * @return          the frame of ticks
+     */
+    private static DataFrame<LocalDateTime,String> createTicks(boolean shuffle) {
+        final Random random = new Random(3);
+        final LocalDateTime start = LocalDateTime.of(2018, 1, 2, 9, 30, 0);
+        final List<LocalDateTime> keys = new ArrayList<>();
+        for (int i=0; i<2000; ++i) keys.add(start.plusSeconds(i * 7));
+        if (shuffle) Collections.shuffle(keys, new Random(5));
+        final DataFrame<LocalDateTime,String> frame = DataFrame.ofDoubles(keys, List.of("Price"));
+        frame.applyDoubles(v -> v.rowOrdinal() % 17 == 0 ? Double.NaN : 100d + random.nextDouble());
+        frame.cols().add("Size", Integer.class, v -> 100 + random.nextInt(50));
+        return frame;
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void testMinuteBars(boolean parallel) {
+        final DataFrame<LocalDateTime,String> ticks = parallel ? createTicks(false).parallel() : createTicks(false).sequential();
+        final Map<LocalDateTime,List<Integer>> groups = new LinkedHashMap<>();
+        for (int i=0; i<ticks.rowCount(); ++i) {
+            final LocalDateTime key = ticks.rows().key(i);
+            final LocalDateTime bucket = key.truncatedTo(ChronoUnit.HOURS).plusMinutes(key.getMinute() / 5 * 5);
+            groups.computeIfAbsent(bucket, k -> new ArrayList<>()).add(i);
+        }
+        final DataFrame<LocalDateTime,String> bars = ticks.rows().resample(Duration.ofMinutes(5)).ohlc("Price");
+        final DataFrame<LocalDateTime,String> sums = ticks.rows().resample(Duration.ofMinutes(5)).sum();
+        final DataFrame<LocalDateTime,String> means = ticks.rows().resample(Duration.ofMinutes(5)).mean();
+        final DataFrame<LocalDateTime,String> counts = ticks.rows().resample(Duration.ofMinutes(5)).count();
+        final DataFrame<LocalDateTime,String> lasts = ticks.rows().resample(Duration.ofMinutes(5)).last();
+        Assert.assertEquals(bars.rows().keyArray().toList(), new ArrayList<>(groups.keySet()));
+        Assert.assertEquals(sums.rows().keyArray().toList(), new ArrayList<>(groups.keySet()));
+        Assert.assertEquals(bars.cols().keyArray().toList(), List.of("Open", "High", "Low", "Close"));
+        Assert.assertEquals(lasts.cols().type("Size"), Integer.class);
+        groups.forEach((bucket, ordinals) -> {
+            final List<Double> prices = new ArrayList<>();
+            int size = 0;
+            for (int i : ordinals) {
+                final double price = ticks.getDoubleAt(i, 0);
+                if (!Double.isNaN(price)) prices.add(price);
+                size += ticks.getIntAt(i, 1);
+            }
+            final double sum = prices.stream().mapToDouble(Double::doubleValue).sum();
+            Assert.assertEquals(bars.getDouble(bucket, "Open"), prices.get(0), 0d);
+            Assert.assertEquals(bars.getDouble(bucket, "High"), Collections.max(prices), 0d);
+            Assert.assertEquals(bars.getDouble(bucket, "Low"), Collections.min(prices), 0d);
+            Assert.assertEquals(bars.getDouble(bucket, "Close"), prices.get(prices.size() - 1), 0d);
+            Assert.assertEquals(sums.getDouble(bucket, "Price"), sum, 0.0000001);
+            Assert.assertEquals(sums.getDouble(bucket, "Size"), size, 0d);
+            Assert.assertEquals(means.getDouble(bucket, "Price"), sum / prices.size(), 0.0000001);
+            Assert.assertEquals(counts.getInt(bucket, "Price"), prices.size());
+            Assert.assertEquals(counts.getInt(bucket, "Size"), ordinals.size());
+            Assert.assertEquals(lasts.getDouble(bucket, "Price"), prices.get(prices.size() - 1), 0d);
+            Assert.assertEquals(lasts.getInt(bucket, "Size"), ticks.getIntAt(ordinals.get(ordinals.size() - 1), 1));
+        });
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void testUnsortedKeys(boolean parallel) {
+        final DataFrame<LocalDateTime,String> sorted = createTicks(false);
+        final DataFrame<LocalDateTime,String> shuffled = parallel ? createTicks(true).parallel() : createTicks(true);
+        shuffled.rows().forEach(row -> {
+            row.setDouble("Price", sorted.getDouble(row.key(), "Price"));
+            row.setInt("Size", sorted.getInt(row.key(), "Size"));
+        });
+        final Duration interval = Duration.ofMinutes(1);
+        DataFrameAsserts.assertEqualsByIndex(shuffled.rows().resample(interval).first(), sorted.rows().resample(interval).first());
+        DataFrameAsserts.assertEqualsByIndex(shuffled.rows().resample(interval).max(), sorted.rows().resample(interval).max());
+        DataFrameAsserts.assertEqualsByIndex(shuffled.rows().resample(interval).ohlc("Price"), sorted.rows().resample(interval).ohlc("Price"));
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void testUpsampleForwardFill(boolean parallel) {
+        final LocalDate start = LocalDate.of(2018, 1, 1);
+        final DataFrame<LocalDate,String> frame = DataFrame.ofDoubles(Range.of(0, 10).map(i -> start.plusDays(i * 3)), List.of("A", "B"));
+        frame.applyDoubles(v -> v.rowOrdinal() * 10 + v.colOrdinal());
+        frame.setDouble(start.plusDays(6), "B", Double.NaN);
+        final DataFrame<LocalDate,String> daily = (parallel ? frame.parallel() : frame.sequential()).rows().resample(Duration.ofDays(1)).ffill();
+        Assert.assertEquals(daily.rowCount(), 28);
+        Assert.assertEquals(daily.rows().firstKey().orElse(null), start);
+        Assert.assertEquals(daily.rows().lastKey().orElse(null), start.plusDays(27));
+        for (int i=0; i<28; ++i) {
+            final LocalDate date = start.plusDays(i);
+            Assert.assertEquals(daily.getDouble(date, "A"), (i / 3) * 10d);
+            Assert.assertEquals(daily.getDouble(date, "B"), i >= 6 && i < 9 ? 11d : (i / 3) * 10d + 1d);
+        }
+    }
+
+
+    @Test()
+    public void testWeeklyDates() {
+        final LocalDate start = LocalDate.of(2018, 1, 1);
+        final DataFrame<LocalDate,String> frame = DataFrame.ofDoubles(Range.of(0, 70).map(start::plusDays), List.of("A"));
+        frame.applyDoubles(v -> 1d);
+        final DataFrame<LocalDate,String> weekly = frame.rows().resample(Duration.ofDays(7)).sum();
+        weekly.rows().keys().forEach(date -> Assert.assertEquals(date.toEpochDay() % 7, 0L, "Buckets aligned to epoch"));
+        Assert.assertEquals(weekly.col("A").stats().sum().doubleValue(), 70d);
+        Assert.assertEquals(weekly.getDouble(LocalDate.of(2018, 1, 4), "A"), 7d);
+    }
+
+
+    @Test()
+    public void testZonedDailyBuckets() {
+        final ZoneId zone = ZoneId.of("America/New_York");
+        final ZonedDateTime start = ZonedDateTime.of(2018, 3, 1, 0, 0, 0, 0, zone);
+        final DataFrame<ZonedDateTime,String> frame = DataFrame.ofDoubles(Range.of(0, 24 * 5).map(i -> start.plusHours(i)), List.of("A"));
+        frame.applyDoubles(v -> 1d);
+        final DataFrame<ZonedDateTime,String> daily = frame.rows().resample(Duration.ofDays(1)).count();
+        Assert.assertEquals(daily.rowCount(), 5);
+        daily.rows().keys().forEach(key -> {
+            Assert.assertEquals(key.getZone(), zone);
+            Assert.assertEquals(key.toLocalTime(), LocalTime.MIDNIGHT, "Buckets aligned to local midnight");
+        });
+        daily.rows().forEach(row -> Assert.assertEquals(row.getInt("A"), 24));
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void testZonedDailyBucketsAcrossDst(boolean parallel) {
+        final ZoneId zone = ZoneId.of("America/New_York");
+        final ZonedDateTime start = ZonedDateTime.of(2024, 3, 1, 0, 0, 0, 0, zone);
+        final ZonedDateTime end = ZonedDateTime.of(2024, 4, 1, 0, 0, 0, 0, zone);
+        final int hours = (int)ChronoUnit.HOURS.between(start, end);
+        final DataFrame<ZonedDateTime,String> frame = DataFrame.ofDoubles(Range.of(0, hours).map(i -> start.plusHours(i)), List.of("A"));
+        frame.applyDoubles(v -> 1d);
+        final DataFrame<ZonedDateTime,String> daily = (parallel ? frame.parallel() : frame.sequential()).rows().resample(Duration.ofDays(1)).count();
+        Assert.assertEquals(daily.rowCount(), 31);
+        for (int i=0; i<31; ++i) {
+            final ZonedDateTime key = daily.rows().key(i);
+            Assert.assertEquals(key, start.plusDays(i), "Bucket starts at local midnight on day " + i);
+            Assert.assertEquals(daily.getIntAt(i, 0), key.getDayOfMonth() == 10 ? 23 : 24, "Hour count for " + key);
+        }
+    }
+
+
+    @Test()
+    public void testZonedHourlyBucketsInRepeatedHour() {
+        final ZoneId zone = ZoneId.of("America/New_York");
+        final ZonedDateTime start = ZonedDateTime.of(2024, 11, 2, 22, 0, 0, 0, zone);
+        final DataFrame<ZonedDateTime,String> frame = DataFrame.ofDoubles(Range.of(0, 8 * 4).map(i -> start.plusMinutes(i * 15)), List.of("A"));
+        frame.applyDoubles(v -> 1d);
+        final DataFrame<ZonedDateTime,String> hourly = frame.rows().resample(Duration.ofHours(1)).count();
+        Assert.assertEquals(hourly.rowCount(), 8, "Repeated local hour forms two buckets");
+        for (int i=0; i<8; ++i) {
+            Assert.assertEquals(hourly.rows().key(i).toInstant(), start.plusHours(i).toInstant());
+            Assert.assertEquals(hourly.getIntAt(i, 0), 4);
+        }
+    }
+
+
+    @Test()
+    public void testZonedForwardFillAcrossDst() {
+        final ZoneId zone = ZoneId.of("America/New_York");
+        final ZonedDateTime start = ZonedDateTime.of(2024, 3, 8, 9, 30, 0, 0, zone);
+        final DataFrame<ZonedDateTime,String> frame = DataFrame.ofDoubles(List.of(start, start.plusDays(4)), List.of("A"));
+        frame.applyDoubles(v -> v.rowOrdinal() + 1d);
+        final DataFrame<ZonedDateTime,String> daily = frame.rows().resample(Duration.ofDays(1)).ffill();
+        Assert.assertEquals(daily.rowCount(), 5);
+        for (int i=0; i<5; ++i) {
+            final ZonedDateTime key = daily.rows().key(i);
+            Assert.assertEquals(key, start.truncatedTo(ChronoUnit.DAYS).plusDays(i), "Bucket starts at local midnight");
+            Assert.assertEquals(daily.getDoubleAt(i, 0), i < 4 ? 1d : 2d);
+        }
+    }
+
+
+    @Test()
+    public void testLocalTimeBuckets() {
+        final DataFrame<LocalTime,String> frame = DataFrame.ofDoubles(Range.of(0, 120).map(i -> LocalTime.of(9, 0).plusSeconds(i * 30)), List.of("A"));
+        frame.applyDoubles(v -> v.rowOrdinal());
+        final DataFrame<LocalTime,String> result = frame.rows().resample(Duration.ofMinutes(15)).first();
+        Assert.assertEquals(result.rows().keyArray().toList(), List.of(LocalTime.of(9, 0), LocalTime.of(9, 15), LocalTime.of(9, 30), LocalTime.of(9, 45)));
+        Assert.assertEquals(result.getDouble(LocalTime.of(9, 30), "A"), 60d);
+    }
+
+
+    @Test(expectedExceptions={DataFrameException.class})
+    public void testUnsupportedKeyType() {
+        DataFrame.ofDoubles(Range.of(0, 10), List.of("A")).rows().resample(Duration.ofMinutes(1));
+    }
+
+
+    @Test(expectedExceptions={DataFrameException.class})
+    public void testPartialDayForDates() {
+        final LocalDate start = LocalDate.of(2018, 1, 1);
+        DataFrame.ofDoubles(Range.of(0, 10).map(start::plusDays), List.of("A")).rows().resample(Duration.ofHours(12));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference;
+
+import java.util.Random;
+
+import org.apache.commons.math3.stat.ranking.NaNStrategy;
+import org.apache.commons.math3.stat.ranking.NaturalRanking;
+import org.apache.commons.math3.stat.ranking.TiesStrategy;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.range.Range;
+import com.d3x.morpheus.stats.StatType;
+
+/**
+ * Unit tests for the row-wise operations that run on the tiled row engine
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class RowTilesTests {
+
+
+    @DataProvider(name="frames")
+    public Object[][] frames() {
+        return new Object[][] {
+            { false, false },
+            { true, false },
+            { false, true },
+            { true, true },
+        };
+    }
+
+
+    /**
+     * Returns a random frame with enough rows to span several tiles, and some NaN values
+     * @param parallel  true for a parallel frame
+     * @param filter    true to return a filter of a larger frame
+     * @return          the frame of random values
+     */
+    private DataFrame<Integer,String> frame(boolean parallel, boolean filter) {
+        final Random random = new Random(7);
+        final Range<Integer> rowKeys = Range.of(0, 5000);
+        final Range<String> colKeys = Range.of(0, 40).map(i -> "C" + i);
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(rowKeys, colKeys, v -> {
+            final double value = random.nextDouble();
+            return value < 0.02d ? Double.NaN : Math.floor(value * 100d);
+        });
+        final DataFrame<Integer,String> result = filter ? frame.rows().select(row -> row.key() % 3 != 0).cols().select(col -> !col.key().equals("C5")) : frame;
+        return parallel ? result.parallel() : result.sequential();
+    }
+
+
+    @Test(dataProvider="frames")
+    public void testRowStats(boolean parallel, boolean filter) {
+        final DataFrame<Integer,String> frame = frame(parallel, filter);
+        final DataFrame<Integer,StatType> means = frame.rows().stats().mean();
+        final DataFrame<Integer,StatType> maxima = frame.rows().stats().max();
+        Assert.assertEquals(means.rowCount(), frame.rowCount());
+        frame.rows().forEach(row -> {
+            Assert.assertEquals(means.getDouble(row.key(), StatType.MEAN), row.stats().mean(), 0.0000001d, "Mean for " + row.key());
+            Assert.assertEquals(maxima.getDouble(row.key(), StatType.MAX), (double)row.stats().max(), "Max for " + row.key());
+        });
+    }
+
+
+    @Test(dataProvider="frames")
+    public void testRankOfRows(boolean parallel, boolean filter) {
+        final DataFrame<Integer,String> frame = frame(parallel, filter);
+        final DataFrame<Integer,String> ranks = frame.rank().ofRows();
+        final NaturalRanking ranking = new NaturalRanking(NaNStrategy.MINIMAL, TiesStrategy.AVERAGE);
+        frame.rows().forEach(row -> {
+            final double[] expected = ranking.rank(row.toDoubleStream().toArray());
+            final double[] actual = ranks.row(row.key()).toDoubleStream().toArray();
+            Assert.assertEquals(actual, expected, "Ranks for " + row.key());
+        });
+    }
+
+
+    @Test(dataProvider="frames")
+    public void testDemean(boolean parallel, boolean filter) {
+        final DataFrame<Integer,String> frame = frame(parallel, filter);
+        final DataFrame<Integer,String> original = frame.copy();
+        frame.rows().demean(true);
+        original.rows().forEach(row -> {
+            final double mean = row.stats().mean();
+            for (int j=0; j<row.size(); ++j) {
+                final double expected = row.getDoubleAt(j) - mean;
+                Assert.assertEquals(frame.getDouble(row.key(), original.cols().key(j)), expected, 0.0000001d);
+            }
+        });
+    }
+
+
+    @Test(dataProvider="frames")
+    public void testCap(boolean parallel, boolean filter) {
+        final DataFrame<Integer,String> frame = frame(parallel, filter);
+        final DataFrame<Integer,String> capped = frame.cap(false).doubles(20d, 80d);
+        Assert.assertEquals(capped.rowCount(), frame.rowCount());
+        frame.forEachValue(v -> {
+            final double value = v.getDouble();
+            final double actual = capped.getDouble(v.rowKey(), v.colKey());
+            if (Double.isNaN(value)) {
+                Assert.assertTrue(Double.isNaN(actual));
+            } else {
+                Assert.assertEquals(actual, Math.max(20d, Math.min(80d, value)));
+            }
+        });
+        frame.cap(true).doubles(20d, 80d);
+        frame.forEachValue(v -> {
+            Assert.assertEquals(v.getDouble(), capped.getDouble(v.rowKey(), v.colKey()), 0d);
+        });
+    }
+
+
+    @Test()
+    public void testTransposedFrame() {
+        final DataFrame<String,Integer> frame = frame(false, false).transpose();
+        final DataFrame<String,StatType> means = frame.rows().stats().mean();
+        frame.rows().forEach(row -> {
+            Assert.assertEquals(means.getDouble(row.key(), StatType.MEAN), row.stats().mean(), 0.0000001d);
+        });
+    }
+}
@@ -15,9 +15,12 @@
  */
 package com.d3x.morpheus.reference;
 
+import java.time.LocalDate;
+
 import com.d3x.morpheus.frame.DataFrame;
 import com.d3x.morpheus.range.Range;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 /**
@@ -28,6 +31,12 @@ import org.testng.annotations.Test;
 public class TransposeTests {
 
 
+    @DataProvider(name="parallel")
+    public Object[][] parallel() {
+        return new Object[][] { {false}, {true} };
+    }
+
+
     @Test()
     public void transpose() {
         var rows = Range.of(0, 100).map(i -> "Row-" + i);
@@ -61,6 +70,71 @@ public class TransposeTests {
     }
 
 
+    @Test(dataProvider="parallel")
+    public void transposeMaterialized(boolean parallel) {
+        var rows = Range.of(0, 700).map(i -> "Row-" + i);
+        var cols = Range.of(0, 300).map(i -> "Col-" + i);
+        var source = DataFrame.ofDoubles(rows, cols, v -> Math.random());
+        var transpose = (parallel ? source.parallel() : source.sequential()).transpose(true);
+        assertEquals(source, transpose);
+        Assert.assertEquals(transpose.isParallel(), parallel);
+        transpose.cols().forEach(column -> Assert.assertEquals(column.dataClass(), Double.class));
+        source.applyDoubles(v -> -1d);
+        Assert.assertTrue(transpose.getDoubleAt(0, 0) >= 0d, "Materialized transpose is a deep copy");
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void transposeMaterializedFilter(boolean parallel) {
+        var rows = Range.of(0, 500).map(i -> "Row-" + i);
+        var cols = Range.of(0, 200).map(i -> "Col-" + i);
+        var frame = DataFrame.ofDoubles(rows, cols, v -> Math.random());
+        var source = frame.rows().select(v -> v.ordinal() % 3 == 0).cols().select(v -> v.ordinal() % 2 == 1);
+        var transpose = (parallel ? source.parallel() : source.sequential()).transpose(true);
+        Assert.assertEquals(transpose.rowCount(), source.colCount());
+        Assert.assertEquals(transpose.colCount(), source.rowCount());
+        assertEquals(source, transpose);
+    }
+
+
+    @Test()
+    public void transposeMaterializedTypes() {
+        var rows = Range.of(0, 100).map(i -> "Row-" + i);
+        var cols = Range.of(0, 10).map(i -> "Col-" + i);
+        var ints = DataFrame.ofInts(rows, cols, v -> v.rowOrdinal() * 10 + v.colOrdinal()).transpose(true);
+        var dates = DataFrame.of(rows, cols, LocalDate.class).applyValues(v -> LocalDate.of(2000, 1, 1).plusDays(v.rowOrdinal())).transpose(true);
+        var mixed = DataFrame.ofDoubles(rows, cols, v -> Math.random());
+        mixed.cols().add("Text", String.class, v -> "Value-" + v.rowOrdinal());
+        var transpose = mixed.transpose(true);
+        ints.cols().forEach(column -> Assert.assertEquals(column.dataClass(), Integer.class));
+        dates.cols().forEach(column -> Assert.assertEquals(column.dataClass(), LocalDate.class));
+        transpose.cols().forEach(column -> Assert.assertEquals(column.dataClass(), Object.class));
+        Assert.assertEquals(ints.getIntAt(3, 7), 73);
+        Assert.assertEquals(dates.getValue("Col-4", "Row-9"), LocalDate.of(2000, 1, 10));
+        Assert.assertEquals(transpose.getValue("Text", "Row-5"), "Value-5");
+        Assert.assertEquals(transpose.getDouble("Col-2", "Row-8"), mixed.getDouble("Row-8", "Col-2"));
+    }
+
+
+    @Test()
+    public void transposeMaterializedIsColumnStore() {
+        var rows = Range.of(0, 100).map(i -> "Row-" + i);
+        var cols = Range.of(0, 10).map(i -> "Col-" + i);
+        var source = DataFrame.ofDoubles(rows, cols, v -> Math.random());
+        var transpose = source.transpose(true);
+        transpose.rows().add("Col-10");
+        transpose.cols().add("Row-100", Double.class, v -> 1d);
+        transpose.col("Row-0").applyDoubles(v -> v.getDouble() * 2d);
+        Assert.assertEquals(transpose.rowCount(), 11);
+        Assert.assertEquals(transpose.colCount(), 101);
+        Assert.assertEquals(transpose.getDouble("Col-3", "Row-0"), source.getDouble("Row-0", "Col-3") * 2d);
+        Assert.assertEquals(transpose.getDouble("Col-3", "Row-100"), 1d);
+        var roundTrip = transpose.transpose().transpose(true);
+        Assert.assertEquals(roundTrip.rowCount(), 11);
+        Assert.assertEquals(roundTrip.getDouble("Col-3", "Row-100"), 1d);
+    }
+
+
     /**
      * Asserts that all values match between the frame and its transpose
      * @param source        the source frame
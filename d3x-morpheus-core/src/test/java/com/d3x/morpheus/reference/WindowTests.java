@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.reference;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameAggregator;
+import com.d3x.morpheus.frame.DataFrameException;
+import com.d3x.morpheus.frame.DataFrameWindow;
+import com.d3x.morpheus.range.Range;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for window functions over partitions of DataFrame rows
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class WindowTests {
+
+
+    @DataProvider(name="parallel")
+    public Object[][] parallel() {
+        return new Object[][] { {false}, {true} };
+    }
+
+
+    /**
+     * Returns a frame of prices for securities in sectors, with rows in random order and an occasional missing price
+     * @param rowCount  the number of rows
+     * @return          the frame of prices
+     */
+    private DataFrame<Integer,String> prices(int rowCount) {
+        final Random random = new Random(7);
+        final String[] sectors = new String[rowCount];
+        final String[] tickers = new String[rowCount];
+        final LocalDate[] dates = new LocalDate[rowCount];
+        final double[] prices = new double[rowCount];
+        final List<Integer> days = new ArrayList<>();
+        for (int i=0; i<rowCount; ++i) days.add(i);
+        Collections.shuffle(days, random);
+        for (int i=0; i<rowCount; ++i) {
+            final int security = random.nextInt(20);
+            sectors[i] = "S" + (security % 4);
+            tickers[i] = "T" + security;
+            dates[i] = LocalDate.of(2000, 1, 1).plusDays(days.get(i));
+            prices[i] = random.nextDouble() < 0.05d ? Double.NaN : 100d * random.nextDouble();
+        }
+        return DataFrame.of(Range.of(0, rowCount), String.class, columns -> {
+            columns.add("Sector", Array.of(String.class, sectors));
+            columns.add("Ticker", Array.of(String.class, tickers));
+            columns.add("Date", Array.of(LocalDate.class, dates));
+            columns.add("Price", Array.of(prices));
+        });
+    }
+
+
+    /**
+     * Asserts a window function against a brute force calculation over each row's partition ordered by date
+     * @param frame     the source frame
+     * @param result    the window function result
+     * @param function  the function of the partition prices up to and including the row, and the index of the row
+     */
+    private void assertWindow(DataFrame<Integer,String> frame, DataFrame<Integer,String> result, BiFunction<List<Double>,Integer,Double> function) {
+        Assert.assertEquals(result.rowCount(), frame.rowCount());
+        Assert.assertEquals(result.colCount(), 1);
+        frame.rows().forEach(row -> {
+            final List<Integer> partition = new ArrayList<>();
+            frame.rows().forEach(other -> {
+                if (other.getValue("Sector").equals(row.getValue("Sector")) && other.getValue("Ticker").equals(row.getValue("Ticker"))) {
+                    partition.add(other.ordinal());
+                }
+            });
+            partition.sort((i, j) -> frame.<LocalDate>getValueAt(i, 2).compareTo(frame.getValueAt(j, 2)));
+            final List<Double> values = new ArrayList<>();
+            partition.forEach(i -> values.add(frame.getDoubleAt(i, 3)));
+            final double expected = function.apply(values, partition.indexOf(row.ordinal()));
+            final double actual = result.getDouble(row.key(), "Price");
+            Assert.assertEquals(actual, expected, 0.0000001d, "Value at row " + row.key());
+        });
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void testShift(boolean parallel) {
+        final DataFrame<Integer,String> frame = parallel ? prices(2000).parallel() : prices(2000);
+        final DataFrameWindow<Integer,String> window = frame.rows().window("Sector", "Ticker").orderBy("Date");
+        assertWindow(frame, window.shift("Price", 2), (values, i) -> i >= 2 ? values.get(i - 2) : Double.NaN);
+        assertWindow(frame, window.lag("Price", 1), (values, i) -> i >= 1 ? values.get(i - 1) : Double.NaN);
+        assertWindow(frame, window.lead("Price", 1), (values, i) -> i + 1 < values.size() ? values.get(i + 1) : Double.NaN);
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void testDiff(boolean parallel) {
+        final DataFrame<Integer,String> frame = parallel ? prices(2000).parallel() : prices(2000);
+        final DataFrameWindow<Integer,String> window = frame.rows().window("Sector", "Ticker").orderBy("Date");
+        assertWindow(frame, window.diff("Price", 1), (values, i) -> i >= 1 ? values.get(i) - values.get(i - 1) : Double.NaN);
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void testCumulative(boolean parallel) {
+        final DataFrame<Integer,String> frame = parallel ? prices(2000).parallel() : prices(2000);
+        final DataFrameWindow<Integer,String> window = frame.rows().window("Sector", "Ticker").orderBy("Date");
+        assertWindow(frame, window.cumsum("Price"), (values, i) -> {
+            double sum = 0d;
+            for (int k=0; k<=i; ++k) sum += Double.isNaN(values.get(k)) ? 0d : values.get(k);
+            return Double.isNaN(values.get(i)) ? Double.NaN : sum;
+        });
+        assertWindow(frame, window.cumprod("Price").applyDoubles(v -> Math.log(v.getDouble())), (values, i) -> {
+            double sum = 0d;
+            for (int k=0; k<=i; ++k) sum += Double.isNaN(values.get(k)) ? 0d : Math.log(values.get(k));
+            return Double.isNaN(values.get(i)) ? Double.NaN : sum;
+        });
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void testRolling(boolean parallel) {
+        final DataFrame<Integer,String> frame = parallel ? prices(2000).parallel() : prices(2000);
+        final DataFrameWindow<Integer,String> window = frame.rows().window("Sector", "Ticker").orderBy("Date");
+        assertWindow(frame, window.rolling("Price", 3, DataFrameAggregator.max()), (values, i) -> {
+            if (i < 2) return Double.NaN;
+            double max = Double.NaN;
+            for (int k=i-2; k<=i; ++k) {
+                final double value = values.get(k);
+                max = Double.isNaN(max) || value > max ? value : max;
+            }
+            return max;
+        });
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void testRollingAggregates(boolean parallel) {
+        final DataFrame<Integer,String> frame = parallel ? prices(2000).parallel() : prices(2000);
+        final DataFrameWindow<Integer,String> window = frame.rows().window("Sector", "Ticker").orderBy("Date");
+        final List<Supplier<DataFrameAggregator>> aggregators = List.of(
+            DataFrameAggregator::sum,
+            DataFrameAggregator::count,
+            DataFrameAggregator::mean,
+            DataFrameAggregator::variance,
+            DataFrameAggregator::stdDev,
+            DataFrameAggregator::min
+        );
+        aggregators.forEach(aggregator -> {
+            assertWindow(frame, window.rolling("Price", 5, aggregator.get()), (values, i) -> {
+                if (i < 4) return Double.NaN;
+                final DataFrameAggregator expected = aggregator.get();
+                final double[] state = new double[expected.width()];
+                expected.init(state, 0);
+                for (int k=i-4; k<=i; ++k) expected.add(state, 0, values.get(k));
+                return expected.result(state, 0);
+            });
+        });
+    }
+
+
+    @Test()
+    public void testRollingWithInfinity() {
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(Range.of(0, 8), "A");
+        final double[] values = {1d, 2d, Double.POSITIVE_INFINITY, 3d, 4d, 5d, Double.NaN, 6d};
+        frame.applyDoubles(v -> values[v.rowOrdinal()]);
+        final DataFrame<Integer,String> result = frame.rows().window().rolling("A", 2, DataFrameAggregator.sum());
+        final double inf = Double.POSITIVE_INFINITY;
+        Assert.assertEquals(result.col("A").toDoubleStream().toArray(), new double[] {Double.NaN, 3d, inf, inf, 7d, 9d, 5d, 6d});
+    }
+
+
+    @Test()
+    public void testWindowTracksFrameChanges() {
+        final DataFrame<Integer,String> frame = prices(500);
+        final DataFrameWindow<Integer,String> window = frame.rows().window("Sector", "Ticker").orderBy("Date");
+        Assert.assertEquals(window.cumsum("Price").rowCount(), 500);
+        frame.rows().add(500);
+        frame.setValue(500, "Sector", "S9");
+        frame.setValue(500, "Ticker", "T99");
+        frame.setValue(500, "Date", LocalDate.of(2000, 1, 1));
+        frame.setDouble(500, "Price", 42d);
+        frame.rows().forEach(row -> {
+            if (row.ordinal() % 7 == 0) {
+                row.setValue("Sector", "S0");
+            }
+        });
+        final DataFrame<Integer,String> expected = frame.rows().window("Sector", "Ticker").orderBy("Date").rolling("Price", 3, DataFrameAggregator.mean());
+        final DataFrame<Integer,String> actual = window.rolling("Price", 3, DataFrameAggregator.mean());
+        Assert.assertEquals(actual.rowCount(), 501);
+        Assert.assertEquals(actual.col("Price").toDoubleStream().toArray(), expected.col("Price").toDoubleStream().toArray());
+        assertWindow(frame, window.cumsum("Price"), (values, i) -> {
+            double sum = 0d;
+            for (int k=0; k<=i; ++k) sum += Double.isNaN(values.get(k)) ? 0d : values.get(k);
+            return Double.isNaN(values.get(i)) ? Double.NaN : sum;
+        });
+    }
+
+
+    @Test()
+    public void testWindowTracksValueChanges() {
+        final DataFrame<Integer,String> frame = prices(500);
+        final DataFrameWindow<Integer,String> window = frame.rows().window("Sector").orderBy("Date");
+        final double[] first = window.cumsum("Price").col("Price").toDoubleStream().toArray();
+        Assert.assertEquals(window.cumsum("Price").col("Price").toDoubleStream().toArray(), first);
+        frame.rows().forEach(row -> {
+            if (row.ordinal() % 5 == 0) {
+                row.setValue("Sector", "S0");
+            } else if (row.ordinal() % 11 == 0) {
+                row.setValue("Date", LocalDate.of(1990, 1, 1).plusDays(row.ordinal()));
+            }
+        });
+        final DataFrame<Integer,String> expected = frame.rows().window("Sector").orderBy("Date").cumsum("Price");
+        final DataFrame<Integer,String> actual = window.cumsum("Price");
+        Assert.assertEquals(actual.col("Price").toDoubleStream().toArray(), expected.col("Price").toDoubleStream().toArray());
+    }
+
+
+    @Test(dataProvider="parallel")
+    public void testRank(boolean parallel) {
+        final DataFrame<Integer,String> frame = parallel ? prices(2000).parallel() : prices(2000);
+        final DataFrame<Integer,String> source = frame.rows().select(row -> !Double.isNaN(row.getDouble("Price")));
+        final DataFrame<Integer,String> ranks = source.rows().window("Sector").rank("Price");
+        source.rows().forEach(row -> {
+            final String sector = row.getValue("Sector");
+            final double price = row.getDouble("Price");
+            final long below = source.rows().stream().filter(other -> other.getValue("Sector").equals(sector) && other.getDouble("Price") < price).count();
+            Assert.assertEquals(ranks.getDouble(row.key(), "Price"), below + 1d, "Rank at row " + row.key());
+        });
+    }
+
+
+    @Test()
+    public void testSinglePartition() {
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(Range.of(0, 5), "A");
+        frame.applyDoubles(v -> v.rowOrdinal() + 1d);
+        final DataFrame<Integer,String> result = frame.rows().window().cumsum("A");
+        Assert.assertEquals(result.rows().keyArray(), frame.rows().keyArray());
+        Assert.assertEquals(result.col("A").toDoubleStream().toArray(), new double[] {1d, 3d, 6d, 10d, 15d});
+    }
+
+
+    @Test(expectedExceptions={DataFrameException.class})
+    public void testNonNumericColumn() {
+        prices(10).rows().window("Sector").shift("Ticker", 1);
+    }
+
+
+    @Test(expectedExceptions={DataFrameException.class})
+    public void testUnknownPartitionColumn() {
+        prices(10).rows().window("Region");
+    }
+
+}
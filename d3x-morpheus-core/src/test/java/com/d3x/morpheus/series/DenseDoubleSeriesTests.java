@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2018-2019 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.series;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.index.IndexException;
+import com.d3x.morpheus.range.Range;
+import com.d3x.morpheus.util.MorpheusException;
+import com.d3x.morpheus.vector.D3xVector;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the DenseDoubleSeries
+ *
+ * @author Xavier Witdouck
+ */
+public class DenseDoubleSeriesTests {
+
+    private IntFunction ofIntFunction(IntFunction function) {
+        return function;
+    }
+
+
+    @DataProvider(name="types")
+    public Object[][] types() {
+        var start = LocalDate.of(2000, 1, 1);
+        return new Object[][] {
+            { Integer.class, ofIntFunction(i -> i), false },
+            { LocalDate.class, ofIntFunction(start::plusDays), false },
+            { String.class, ofIntFunction(i -> String.format("X%05d", i)), false },
+            { Integer.class, ofIntFunction(i -> i), true },
+            { LocalDate.class, ofIntFunction(start::plusDays), true },
+            { String.class, ofIntFunction(i -> String.format("X%05d", i)), true }
+        };
+    }
+
+
+    /**
+     * Returns a dense series with every other key in shuffled order, and values equal to the key position
+     * @param keyType   the key type
+     * @param keyGen    the key generator
+     * @param sorted    true to sort keys on build
+     * @return          the dense series
+     */
+    private <K> DenseDoubleSeries<K> create(Class<K> keyType, IntFunction<K> keyGen, boolean sorted) {
+        var positions = IntStream.range(0, 5000).filter(i -> i % 2 == 0).boxed().collect(Collectors.toList());
+        Collections.shuffle(positions, new Random(1));
+        var builder = DoubleSeries.denseBuilder(keyType).sorted(sorted);
+        positions.forEach(i -> builder.putDouble(keyGen.apply(i), i));
+        return builder.build();
+    }
+
+
+    @Test(dataProvider="types")
+    public <K> void build(Class<K> keyType, IntFunction<K> keyGen, boolean sorted) {
+        var series = create(keyType, keyGen, sorted);
+        Assert.assertEquals(series.size(), 2500);
+        Assert.assertEquals(series.keyClass(), keyType);
+        for (int i=0; i<5000; ++i) {
+            var key = keyGen.apply(i);
+            Assert.assertEquals(series.contains(key), i % 2 == 0);
+            Assert.assertEquals(series.getDouble(key), i % 2 == 0 ? i : Double.NaN);
+        }
+        for (int i=0; i<series.size(); ++i) {
+            Assert.assertEquals(series.getDouble(series.getKey(i)), series.getDoubleAt(i));
+        }
+        if (sorted) {
+            for (int i=0; i<series.size(); ++i) {
+                Assert.assertEquals(series.getKey(i), keyGen.apply(i * 2));
+            }
+        }
+        Assert.assertEquals(series.toDoubles().sum(), series.keys().mapToDouble(series::getDouble).sum());
+    }
+
+
+    @Test()
+    public void putAndPlus() {
+        var series = DoubleSeries.denseBuilder(String.class)
+            .putDouble("A", 1d)
+            .putDouble("B", 2d)
+            .putDouble("A", 3d)
+            .plusDouble("B", 5d)
+            .plusDouble("C", 7d)
+            .plusDouble("C", Double.NaN)
+            .build();
+        Assert.assertEquals(series.size(), 3);
+        Assert.assertEquals(series.getDouble("A"), 3d);
+        Assert.assertEquals(series.getDouble("B"), 7d);
+        Assert.assertEquals(series.getDouble("C"), 7d);
+        Assert.assertEquals(series.keys().collect(Collectors.toList()), List.of("A", "B", "C"));
+    }
+
+
+    @Test(dataProvider="types")
+    public <K> void align(Class<K> keyType, IntFunction<K> keyGen, boolean sorted) {
+        var series = create(keyType, keyGen, sorted);
+        var ascending = IntStream.range(0, 6000).filter(i -> i % 3 == 0).mapToObj(keyGen).collect(Collectors.toList());
+        var shuffled = new ArrayList<>(ascending);
+        Collections.shuffle(shuffled, new Random(2));
+        for (List<K> keys : List.of(ascending, shuffled)) {
+            var aligned = series.align(keys, -1d);
+            var reindexed = series.reindex(keys, -1d);
+            var vector = D3xVector.copyOf(series, keys, -1d);
+            Assert.assertEquals(reindexed.size(), keys.size());
+            for (int i=0; i<keys.size(); ++i) {
+                var key = keys.get(i);
+                var expected = series.contains(key) ? series.getDouble(key) : -1d;
+                Assert.assertEquals(aligned[i], expected);
+                Assert.assertEquals(vector.get(i), expected);
+                Assert.assertEquals(reindexed.getKey(i), key);
+                Assert.assertEquals(reindexed.getDoubleAt(i), expected);
+                Assert.assertEquals(reindexed.getDouble(key), expected);
+            }
+        }
+    }
+
+
+    @Test(dataProvider="types")
+    public <K> void arithmetic(Class<K> keyType, IntFunction<K> keyGen, boolean sorted) {
+        var left = create(keyType, keyGen, sorted);
+        var same = left.times(2d);
+        var other = DoubleSeries.of(keyType, IntStream.range(0, 5000).filter(i -> i % 4 == 0).mapToObj(keyGen), key -> 10d);
+        var dense = create(keyType, keyGen, !sorted);
+        Assert.assertTrue(left.isAligned(same));
+        Assert.assertFalse(left.isAligned(dense));
+        var plus = left.plus(same);
+        var minus = left.minus(same);
+        var times = left.times(dense);
+        var divide = left.divide(dense);
+        var partial = left.plus(other);
+        for (int i=0; i<left.size(); ++i) {
+            var key = left.getKey(i);
+            var v = left.getDoubleAt(i);
+            Assert.assertEquals(plus.getDoubleAt(i), 3d * v);
+            Assert.assertEquals(minus.getDouble(key), -v);
+            Assert.assertEquals(times.getDouble(key), v * v);
+            Assert.assertEquals(divide.getDouble(key), v / v);
+            Assert.assertEquals(partial.getDouble(key), other.contains(key) ? v + 10d : Double.NaN);
+        }
+    }
+
+
+    @Test()
+    public void sorting() {
+        var series = create(Integer.class, i -> i, false);
+        var sorted = series.copy();
+        sorted.sort((i1, i2) -> Double.compare(sorted.getDoubleAt(i2), sorted.getDoubleAt(i1)));
+        Assert.assertEquals(sorted.size(), series.size());
+        Assert.assertEquals(sorted.getKey(0), Integer.valueOf(4998));
+        Assert.assertEquals(sorted.getDoubleAt(0), 4998d);
+        Assert.assertEquals(series.getDouble(4998), 4998d);
+        for (int i=1; i<sorted.size(); ++i) {
+            Assert.assertTrue(sorted.getDoubleAt(i - 1) > sorted.getDoubleAt(i));
+            Assert.assertEquals(sorted.getDouble(sorted.getKey(i)), sorted.getDoubleAt(i));
+        }
+    }
+
+
+    @Test()
+    public void fromDataFrame() {
+        var start = LocalDate.of(2018, 1, 1);
+        var frame = DataFrame.ofDoubles(Range.of(0, 1000).map(start::plusDays), List.of("A", "B"));
+        frame.applyDoubles(v -> v.rowOrdinal() * 10 + v.colOrdinal());
+        frame.cols().add("C", Integer.class, v -> v.rowOrdinal());
+        var series = frame.col("B").toDoubleSeries();
+        var ints = DenseDoubleSeries.from(frame, "C");
+        Assert.assertEquals(series.size(), 1000);
+        Assert.assertEquals(series.getDouble(start.plusDays(10)), 101d);
+        Assert.assertEquals(ints.getDouble(start.plusDays(10)), 10d);
+        frame.setDouble(start.plusDays(10), "B", -5d);
+        Assert.assertEquals(series.getDouble(start.plusDays(10)), -5d, "Series shares storage with frame");
+        var filter = frame.rows().select(row -> row.ordinal() % 10 == 0).col("A").toDoubleSeries();
+        Assert.assertEquals(filter.size(), 100);
+        Assert.assertEquals(filter.getDoubleAt(3), 300d);
+        Assert.assertEquals(filter.times(2d).getDoubleAt(3), 600d);
+        Assert.assertFalse(filter.contains(start.plusDays(1)));
+    }
+
+
+    @Test()
+    public void fromDataFrameAfterRowChanges() {
+        var frame = DataFrame.ofDoubles(Range.of(0, 100), List.of("A"));
+        frame.applyDoubles(v -> v.rowKey() * 10d);
+        var series = frame.col("A").toDoubleSeries();
+        var keys = List.of(10, 20, 30);
+        Assert.assertEquals(series.align(keys, Double.NaN), new double[] {100d, 200d, 300d});
+        frame.rows().sort(false);
+        Assert.assertEquals(series.getKey(0), Integer.valueOf(99), "Series shares row order with frame");
+        Assert.assertEquals(series.align(keys, Double.NaN), new double[] {100d, 200d, 300d});
+        frame.rows().addAll(Range.of(100, 200));
+        Assert.assertThrows(MorpheusException.class, series::size);
+        var copy = frame.col("A").toDoubleSeries();
+        Assert.assertEquals(copy.size(), 200);
+        Assert.assertEquals(copy.getDouble(50), 500d);
+    }
+
+
+    @Test()
+    public void derivedSeriesOwnIndex() {
+        var frame = DataFrame.ofDoubles(Range.of(0, 100), List.of("A"));
+        frame.applyDoubles(v -> v.rowKey() * 10d);
+        var series = frame.col("A").toDoubleSeries();
+        var doubled = series.times(2d);
+        var reindexed = series.reindex(series.index(), Double.NaN);
+        var sum = doubled.plus(series);
+        Assert.assertTrue(doubled.index().isReadOnly());
+        Assert.assertTrue(doubled.isAligned(sum), "Derived series share an owned index");
+        Assert.assertFalse(series.isAligned(doubled), "Series derived from a view copy the index");
+        frame.rows().sort(false);
+        Assert.assertEquals(series.getKey(0), Integer.valueOf(99), "View shares row order with frame");
+        Assert.assertEquals(doubled.getKey(0), Integer.valueOf(0));
+        Assert.assertEquals(reindexed.getKey(0), Integer.valueOf(0));
+        Assert.assertEquals(sum.getDoubleAt(10), 300d);
+        Assert.assertEquals(doubled.align(List.of(10, 20), Double.NaN), new double[] {200d, 400d});
+        Assert.assertThrows(IndexException.class, () -> doubled.index().add(-1));
+    }
+
+
+    @Test()
+    public void toDataFrame() {
+        var series = create(String.class, i -> String.format("X%05d", i), false);
+        var frame = series.toDataFrame("Value");
+        Assert.assertEquals(frame.rowCount(), series.size());
+        Assert.assertEquals(frame.colCount(), 1);
+        Assert.assertEquals(frame.cols().type("Value"), Double.class);
+        for (int i=0; i<series.size(); ++i) {
+            Assert.assertEquals(frame.rows().key(i), series.getKey(i));
+            Assert.assertEquals(frame.getDoubleAt(i, 0), series.getDoubleAt(i));
+        }
+        frame.setDouble("X00002", "Value", -1d);
+        Assert.assertEquals(series.getDouble("X00002"), -1d, "Frame shares storage with series");
+        var roundTrip = frame.col("Value").toDoubleSeries();
+        Assert.assertEquals(roundTrip.getDouble("X00004"), 4d);
+    }
+
+
+    @Test(expectedExceptions={IndexException.class})
+    public void toDataFrameReadOnlyRows() {
+        var series = create(Integer.class, i -> i, false);
+        series.toDataFrame("Value").rows().add(-1);
+    }
+}
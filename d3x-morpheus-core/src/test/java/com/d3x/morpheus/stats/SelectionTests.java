@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.stats;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.math3.stat.ranking.NaNStrategy;
+import org.apache.commons.math3.stat.ranking.NaturalRanking;
+import org.apache.commons.math3.stat.ranking.TiesStrategy;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the selection based quantiles and the primitive ranker
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class SelectionTests {
+
+
+    @DataProvider(name="strategies")
+    public Object[][] strategies() {
+        return new Object[][] {
+            { NaNStrategy.MINIMAL, TiesStrategy.AVERAGE },
+            { NaNStrategy.MINIMAL, TiesStrategy.MINIMUM },
+            { NaNStrategy.MAXIMAL, TiesStrategy.MAXIMUM },
+            { NaNStrategy.MAXIMAL, TiesStrategy.SEQUENTIAL },
+            { NaNStrategy.FIXED, TiesStrategy.AVERAGE },
+        };
+    }
+
+
+    @Test()
+    public void testSelect() {
+        final Random random = new Random(1);
+        for (int length : new int[] {1, 5, 16, 17, 100, 10001}) {
+            final double[] values = random.doubles(length).map(v -> Math.floor(v * 50)).toArray();
+            final double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            for (int k : new int[] {0, length / 3, length / 2, length - 1}) {
+                final double[] copy = values.clone();
+                Assert.assertEquals(Selection.select(copy, 0, length, k), sorted[k], "Selected rank " + k + " of " + length);
+            }
+        }
+    }
+
+
+    @Test()
+    public void testQuantiles() {
+        final Random random = new Random(2);
+        final double[] values = random.doubles(5001).toArray();
+        final double[] probabilities = {0d, 0.01d, 0.25d, 0.5d, 0.733d, 0.99d, 1d};
+        final double[] quantiles = Selection.quantiles(values.clone(), 0, values.length, probabilities);
+        for (int i=0; i<probabilities.length; ++i) {
+            final double p = probabilities[i];
+            final double expected = p == 0d ? Arrays.stream(values).min().getAsDouble() : new org.apache.commons.math3.stat.descriptive.rank.Percentile(p * 100)
+                .withEstimationType(org.apache.commons.math3.stat.descriptive.rank.Percentile.EstimationType.R_7)
+                .evaluate(values);
+            Assert.assertEquals(Selection.quantile(values.clone(), 0, values.length, p), expected, 0.0000000001d);
+            Assert.assertEquals(quantiles[i], expected, 0.0000000001d);
+        }
+        final Percentile percentile = new Percentile(0.9d);
+        Arrays.stream(values).forEach(percentile::add);
+        Assert.assertEquals(percentile.getValue(), Selection.quantiles(values.clone(), 0, values.length, 0.9d)[0], 0.0000000001d);
+        Assert.assertTrue(Double.isNaN(new Median().getValue()));
+    }
+
+
+    @Test(dataProvider="strategies")
+    public void testRanker(NaNStrategy nanStrategy, TiesStrategy tiesStrategy) {
+        final Random random = new Random(3);
+        final double[] values = random.doubles(2000).map(v -> v < 0.05d ? Double.NaN : Math.floor(v * 100)).toArray();
+        values[0] = Double.NEGATIVE_INFINITY;
+        values[1] = Double.POSITIVE_INFINITY;
+        final double[] expected = new NaturalRanking(nanStrategy, tiesStrategy).rank(values);
+        final double[] actual = new Ranker(nanStrategy, tiesStrategy).rank(values);
+        Assert.assertEquals(actual, expected);
+    }
+}
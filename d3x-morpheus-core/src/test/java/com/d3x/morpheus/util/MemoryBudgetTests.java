@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.util;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RecursiveAction;
+
+import com.d3x.morpheus.array.Array;
+import com.d3x.morpheus.array.ArrayStyle;
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameAggregator;
+import com.d3x.morpheus.frame.DataFrameAsserts;
+import com.d3x.morpheus.frame.DataFrameGrouping;
+import com.d3x.morpheus.index.Index;
+import com.d3x.morpheus.range.Range;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for analytic memory accounting and memory budgeted DataFrame operations
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class MemoryBudgetTests {
+
+
+    /**
+     * Returns a frame with double, date and string columns
+     * @param rowCount  the row count
+     * @return          the test frame
+     */
+    private static DataFrame<Integer,String> createFrame(int rowCount) {
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(Range.of(0, rowCount), List.of("A", "B", "C"));
+        frame.applyDoubles(v -> v.rowOrdinal() + v.colOrdinal() / 10d);
+        frame.cols().add("D", LocalDate.class, v -> LocalDate.of(2018, 1, 1).plusDays(v.rowOrdinal()));
+        frame.cols().add("E", String.class, v -> "Row" + v.rowOrdinal());
+        return frame;
+    }
+
+
+    @Test()
+    public void testDenseArrays() {
+        Assert.assertEquals(Array.of(Double.class, 1000).retainedBytes(), MemoryLayout.shallow(3, 9) + MemoryLayout.array(1000, 8));
+        Assert.assertEquals(Array.of(Boolean.class, 1000).retainedBytes(), MemoryLayout.shallow(3, 2) + MemoryLayout.array(1000, 1));
+        Assert.assertEquals(Array.of(LocalDate.class, 1000).retainedBytes(), MemoryLayout.shallow(5, 9) + MemoryLayout.array(1000, 8));
+        Assert.assertEquals(Array.of(Year.class, 1000).retainedBytes(), MemoryLayout.shallow(5, 5) + MemoryLayout.array(1000, 4));
+        final Array<String> strings = Array.of(String.class, 3);
+        strings.setValue(0, "a");
+        strings.setValue(1, "bb");
+        final long expected = MemoryLayout.shallow(4, 1) + MemoryLayout.references(3) + MemoryLayout.string("a") + MemoryLayout.string("bb");
+        Assert.assertEquals(strings.retainedBytes(), expected);
+        Assert.assertEquals(Array.of(Double.class, 1000).readOnly().retainedBytes(), MemoryLayout.shallow(3, 1) + Array.of(Double.class, 1000).retainedBytes());
+    }
+
+
+    @Test()
+    public void testSparseAndMappedArrays() {
+        final Array<Double> dense = Array.of(Double.class, 100000);
+        final Array<Double> sparse = Array.of(Double.class, 100000, 0.001f);
+        final Array<Double> mapped = Array.map(Double.class, 100000);
+        Assert.assertEquals(sparse.style(), ArrayStyle.SPARSE);
+        Assert.assertTrue(sparse.retainedBytes() < dense.retainedBytes() / 10, "Sparse array is much smaller");
+        Assert.assertTrue(mapped.retainedBytes() < 1000, "Mapped array only retains heap overhead");
+        final long initial = sparse.retainedBytes();
+        for (int i=0; i<10000; ++i) sparse.setDouble(i * 10, i);
+        Assert.assertTrue(sparse.retainedBytes() - initial >= 10000L * (Integer.BYTES + Double.BYTES + 1), "Sparse array grows with entries");
+    }
+
+
+    @Test()
+    public void testIndexAndFrame() {
+        final Index<Integer> index = Index.of(Range.of(0, 1000).toArray());
+        final long keyBytes = Range.of(0, 1000).toArray().retainedBytes();
+        Assert.assertTrue(index.retainedBytes() > keyBytes + 1000L * (Integer.BYTES + Integer.BYTES + 1), "Index includes key map");
+        Assert.assertEquals(index.readOnly().retainedBytes(), MemoryLayout.shallow(1, 0) + index.retainedBytes());
+        final DataFrame<Integer,String> frame = createFrame(1000);
+        final long columnBytes = 4L * MemoryLayout.array(1000, 8) + MemoryLayout.references(1000);
+        Assert.assertTrue(frame.retainedBytes() > columnBytes + 1000L * MemoryLayout.string("Row000"));
+        Assert.assertTrue(createFrame(2000).retainedBytes() > frame.retainedBytes() * 3 / 2);
+    }
+
+
+    @Test()
+    public void testUnlimitedByDefault() {
+        Assert.assertTrue(MemoryBudget.current().isUnlimited());
+        Assert.assertTrue(MemoryBudget.current().allocate("test", Long.MAX_VALUE));
+        final MemoryBudget budget = MemoryBudget.of(0L, MemoryBudget.Policy.SPILL);
+        Assert.assertSame(budget.call(MemoryBudget::current), budget);
+        Assert.assertTrue(MemoryBudget.current().isUnlimited());
+    }
+
+
+    @Test(expectedExceptions={MemoryBudgetException.class})
+    public void testCopyFailsFast() {
+        final DataFrame<Integer,String> frame = createFrame(1000);
+        MemoryBudget.of(0L, MemoryBudget.Policy.FAIL).call(frame::copy);
+    }
+
+
+    @Test(expectedExceptions={MemoryBudgetException.class})
+    public void testGlobalBudget() {
+        final DataFrame<Integer,String> frame = createFrame(1000);
+        try {
+            MemoryBudget.setGlobal(MemoryBudget.of(0L, MemoryBudget.Policy.FAIL));
+            frame.transpose().copy();
+        } finally {
+            MemoryBudget.setGlobal(null);
+        }
+    }
+
+
+    @Test()
+    public void testCopySpills() {
+        final DataFrame<Integer,String> frame = createFrame(10000);
+        final DataFrame<Integer,String> copy = MemoryBudget.of(0L, MemoryBudget.Policy.SPILL).call(frame::copy);
+        DataFrameAsserts.assertEqualsByIndex(copy, frame);
+        Assert.assertEquals(copy.cols().type("D"), LocalDate.class);
+        Assert.assertTrue(copy.retainedBytes() < frame.retainedBytes() - 3L * 8L * 10000L, "Numeric and date columns spilled");
+    }
+
+
+    @Test()
+    public void testTransposeCopySpills() {
+        final DataFrame<Integer,String> frame = createFrame(100).cols().select("A", "B", "C");
+        final DataFrame<String,Integer> copy = MemoryBudget.of(0L, MemoryBudget.Policy.SPILL).call(() -> frame.transpose().copy());
+        DataFrameAsserts.assertEqualsByIndex(copy, frame.transpose());
+    }
+
+
+    @Test()
+    public void testExpandSpills() {
+        final DataFrame<Integer,String> frame = createFrame(1000);
+        final DataFrame<Integer,String> expected = createFrame(5000);
+        final long before = frame.retainedBytes();
+        MemoryBudget.of(0L, MemoryBudget.Policy.SPILL).run(() -> {
+            frame.rows().addAll(Range.of(1000, 5000));
+            frame.rows().forEach(row -> {
+                if (row.key() >= 1000) {
+                    row.setDouble("A", expected.getDouble(row.key(), "A"));
+                    row.setDouble("B", expected.getDouble(row.key(), "B"));
+                    row.setDouble("C", expected.getDouble(row.key(), "C"));
+                    row.setValue("D", expected.getValue(row.key(), "D"));
+                    row.setValue("E", expected.getValue(row.key(), "E"));
+                }
+            });
+        });
+        DataFrameAsserts.assertEqualsByIndex(frame, expected);
+        Assert.assertTrue(frame.retainedBytes() < before + 4L * 8L * 6500L + 4000L * MemoryLayout.string("Row0000"), "Numeric and date columns spilled");
+    }
+
+
+    @Test()
+    public void testConcatRowsSpills() {
+        final DataFrame<Integer,String> frame = createFrame(2000);
+        final DataFrame<Integer,String> first = frame.rows().select(row -> row.key() < 1000);
+        final DataFrame<Integer,String> second = frame.rows().select(row -> row.key() >= 1000);
+        final DataFrame<Integer,String> result = MemoryBudget.of(0L, MemoryBudget.Policy.SPILL).call(() -> DataFrame.concatRows(first, second));
+        DataFrameAsserts.assertEqualsByIndex(result, frame);
+    }
+
+
+    @Test(expectedExceptions={MemoryBudgetException.class})
+    public void testGroupOutputFailsFast() {
+        final DataFrame<Integer,String> frame = createFrame(1000);
+        frame.cols().add("K", Integer.class, v -> v.rowOrdinal() % 10);
+        final DataFrameGrouping.Rows<Integer,String> grouping = frame.rows().groupBy("K");
+        MemoryBudget.of(0L, MemoryBudget.Policy.FAIL).call(() -> grouping.agg(0, colKey -> DataFrameAggregator.sum()));
+    }
+
+
+    @Test(expectedExceptions={MemoryBudgetException.class})
+    public void testDotProductFailsFast() {
+        final DataFrame<Integer,String> frame = createFrame(1000).cols().select("A", "B", "C");
+        MemoryBudget.of(0L, MemoryBudget.Policy.FAIL).call(() -> frame.transpose().dot(frame));
+    }
+
+
+    @Test()
+    public void testStatsFailFast() {
+        final DataFrame<Integer,String> frame = createFrame(1000);
+        frame.cols().add("K", Integer.class, v -> v.rowOrdinal() % 10);
+        final MemoryBudget budget = MemoryBudget.of(0L, MemoryBudget.Policy.FAIL);
+        Assert.assertThrows(MemoryBudgetException.class, () -> budget.call(() -> frame.cols().stats().covariance()));
+        Assert.assertThrows(MemoryBudgetException.class, () -> budget.call(() -> frame.rows().stats().mean()));
+        Assert.assertThrows(MemoryBudgetException.class, () -> budget.call(() -> frame.rows().groupBy("K").stats(0).sum()));
+    }
+
+
+    @Test()
+    public void testBudgetBoundToWorkers() {
+        final MemoryBudget budget = MemoryBudget.of(Long.MAX_VALUE, MemoryBudget.Policy.SPILL);
+        final Set<MemoryBudget> budgets = ConcurrentHashMap.newKeySet();
+        budget.run(() -> TaskScheduler.current().invoke(new BudgetProbe(0, 1024, budgets)));
+        Assert.assertEquals(budgets, Set.of(budget));
+        Assert.assertSame(MemoryBudget.current(), MemoryBudget.getGlobal());
+    }
+
+
+    /**
+     * A recursive task that records the budget seen by each leaf
+     */
+    private static class BudgetProbe extends RecursiveAction {
+
+        private int from;
+        private int to;
+        private Set<MemoryBudget> budgets;
+
+        /**
+         * Constructor
+         * @param from      the start of the range, inclusive
+         * @param to        the end of the range, exclusive
+         * @param budgets   the set to collect budgets seen by leaves
+         */
+        BudgetProbe(int from, int to, Set<MemoryBudget> budgets) {
+            this.from = from;
+            this.to = to;
+            this.budgets = budgets;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 8) {
+                budgets.add(MemoryBudget.current());
+            } else {
+                final int split = (from + to) / 2;
+                invokeAll(new BudgetProbe(from, split, budgets), new BudgetProbe(split, to, budgets));
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.util;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameAsserts;
+import com.d3x.morpheus.range.Range;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the adaptive fork join task scheduler
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class TaskSchedulerTests {
+
+
+    @AfterMethod()
+    public void after() {
+        TaskScheduler.setAdaptive(true);
+        TaskScheduler.setTargetLeafNanos(500000L);
+    }
+
+
+    @Test()
+    public void testFallbackUntilCalibrated() {
+        final TaskScheduler scheduler = TaskScheduler.of(new ForkJoinPool(4));
+        Assert.assertEquals(scheduler.getLeafSize("test.uncalibrated", 100000, 1, 1234), 1234);
+        Assert.assertFalse(TaskScheduler.getCost("test.uncalibrated").isPresent());
+        scheduler.getPool().shutdown();
+    }
+
+
+    @Test()
+    public void testLeafSizeAdaptsToCost() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        final TaskScheduler scheduler = TaskScheduler.of(pool);
+        TaskScheduler.setTargetLeafNanos(100000L);
+        TaskScheduler.record("test.cheap", 1000000, 1000000);
+        TaskScheduler.record("test.costly", 10, 1000000);
+        Assert.assertEquals(TaskScheduler.getCost("test.cheap").orElse(0d), 1d, 0.0001d);
+        Assert.assertEquals(TaskScheduler.getCost("test.costly").orElse(0d), 100000d, 0.0001d);
+        Assert.assertEquals(scheduler.getLeafSize("test.cheap", 1000, 10, 1), 1000, "Cheap work is not split");
+        Assert.assertEquals(scheduler.getLeafSize("test.cheap", 1000000, 1, 1), 100000, "Leaves sized to target duration");
+        Assert.assertEquals(scheduler.getLeafSize("test.cheap", 100000, 10, 1), 10000, "Width scales the cost");
+        Assert.assertEquals(scheduler.getLeafSize("test.cheap", 200000, 1, 1), 50000, "At least one leaf per worker");
+        Assert.assertEquals(scheduler.getLeafSize("test.costly", 1000, 1, 500), 1, "Costly work split to single elements");
+        TaskScheduler.setAdaptive(false);
+        Assert.assertEquals(scheduler.getLeafSize("test.costly", 1000, 1, 500), 500);
+        pool.shutdown();
+    }
+
+
+    @Test()
+    public void testDedicatedPool() {
+        final ForkJoinPool pool = new ForkJoinPool(3);
+        final TaskScheduler scheduler = TaskScheduler.of(pool);
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(Range.of(0, 10000), List.of("A", "B")).parallel();
+        scheduler.run(() -> {
+            Assert.assertSame(TaskScheduler.current(), scheduler);
+            frame.applyDoubles(v -> {
+                threads.add(Thread.currentThread());
+                return 1d;
+            });
+        });
+        Assert.assertSame(TaskScheduler.current(), TaskScheduler.getDefault());
+        Assert.assertFalse(threads.isEmpty());
+        threads.forEach(thread -> {
+            Assert.assertTrue(thread instanceof ForkJoinWorkerThread, "Work ran in a fork join pool");
+            Assert.assertSame(((ForkJoinWorkerThread)thread).getPool(), pool, "Work ran in the dedicated pool");
+        });
+        Assert.assertEquals(frame.stats().sum().doubleValue(), 20000d);
+        pool.shutdown();
+    }
+
+
+    @Test()
+    public void testAdaptiveStatsMatchSequential() {
+        final Random random = new Random(2);
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(Range.of(0, 50000), List.of("A", "B", "C", "D"));
+        frame.applyDoubles(v -> random.nextDouble());
+        final DataFrame<Integer,?> expected = frame.sequential().rows().stats().stdDev();
+        TaskScheduler.reset();
+        for (int i=0; i<3; ++i) {
+            DataFrameAsserts.assertEqualsByIndex(frame.parallel().rows().stats().stdDev(), expected);
+        }
+        Assert.assertTrue(TaskScheduler.getCost("RowStatistics.STD_DEV").isPresent(), "Row statistics were calibrated");
+        final DataFrame<Integer,String> grouped = frame.parallel().rows().groupBy(row -> Tuple.of(row.getDouble("A") > 0.5d)).getGroup(Tuple.of(true));
+        Assert.assertTrue(TaskScheduler.getCost("GroupRowsTask").isPresent(), "Grouping was calibrated");
+        Assert.assertEquals(grouped.rowCount(), frame.rows().select(row -> row.getDouble("A") > 0.5d).rowCount());
+    }
+}
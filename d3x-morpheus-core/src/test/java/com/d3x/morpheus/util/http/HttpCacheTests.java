@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.util.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the HttpCache and batch fetch support in the Morpheus http client, using a local stub server
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class HttpCacheTests {
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger contentCount = new AtomicInteger();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicInteger maxActiveCount = new AtomicInteger();
+
+
+    @BeforeClass()
+    public void start() throws IOException {
+        this.executor = Executors.newCachedThreadPool();
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/data", this::handle);
+        this.server.start();
+    }
+
+
+    @AfterClass()
+    public void stop() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+
+    @BeforeMethod()
+    public void reset() {
+        this.requestCount.set(0);
+        this.contentCount.set(0);
+        this.activeCount.set(0);
+        this.maxActiveCount.set(0);
+    }
+
+
+    /**
+     * Serves a body derived from the path, honouring If-None-Match, after an optional delay given by the query,
+     * during which the request is counted as active
+     * @param exchange  the http exchange
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        final String query = exchange.getRequestURI().getQuery();
+        final boolean delayed = query != null && query.startsWith("delay=");
+        try {
+            requestCount.incrementAndGet();
+            if (delayed) {
+                maxActiveCount.accumulateAndGet(activeCount.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(Long.parseLong(query.substring(6)));
+                } finally {
+                    activeCount.decrementAndGet();
+                }
+            }
+            final String path = exchange.getRequestURI().getPath();
+            final String etag = "\"" + path.hashCode() + "\"";
+            exchange.getResponseHeaders().add("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                final byte[] bytes = body(path).getBytes(StandardCharsets.UTF_8);
+                contentCount.incrementAndGet();
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(bytes);
+                }
+            }
+        } catch (InterruptedException ex) {
+            throw new IOException(ex);
+        } finally {
+            exchange.close();
+        }
+    }
+
+
+    /**
+     * Returns the 100 character body served for the path
+     * @param path  the request path
+     * @return      the body
+     */
+    private String body(String path) {
+        final StringBuilder result = new StringBuilder(path);
+        while (result.length() < 100) result.append('x');
+        return result.substring(0, 100);
+    }
+
+
+    /**
+     * Returns the url for the path on the stub server
+     * @param path  the path
+     * @return      the url
+     */
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+
+    /**
+     * Returns the body for a GET request with the client specified
+     * @param client    the client
+     * @param path      the request path
+     * @return          the body
+     */
+    private String get(HttpClient client, String path) {
+        return client.<String>doGet(request -> {
+            request.setUrl(url(path));
+            request.setResponseHandler(response -> {
+                try {
+                    return Optional.of(new String(response.getStream().readAllBytes(), StandardCharsets.UTF_8));
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+        }).orElse(null);
+    }
+
+
+    @Test()
+    public void testFreshEntryServedFromCache() throws Exception {
+        final File dir = Files.createTempDirectory("morpheus-http").toFile();
+        final HttpClient client = HttpClient.getDefault().withCache(new HttpDiskCache(dir, 1024 * 1024), Duration.ofHours(1));
+        Assert.assertEquals(get(client, "/data/a"), body("/data/a"));
+        Assert.assertEquals(get(client, "/data/a"), body("/data/a"));
+        Assert.assertEquals(get(client, "/data/b"), body("/data/b"));
+        Assert.assertEquals(requestCount.get(), 2, "Second request for /data/a served from cache");
+    }
+
+
+    @Test()
+    public void testStaleEntryRevalidated() throws Exception {
+        final File dir = Files.createTempDirectory("morpheus-http").toFile();
+        final HttpCache cache = new HttpDiskCache(dir, 1024 * 1024);
+        final HttpClient client = HttpClient.getDefault().withCache(cache, Duration.ZERO);
+        Assert.assertEquals(get(client, "/data/a"), body("/data/a"));
+        final long validated = cache.get(url("/data/a")).map(HttpCache.Entry::getValidated).orElse(-1L);
+        Thread.sleep(5);
+        Assert.assertEquals(get(client, "/data/a"), body("/data/a"));
+        Assert.assertEquals(requestCount.get(), 2, "Stale entry is revalidated");
+        Assert.assertEquals(contentCount.get(), 1, "Revalidation returns 304 without content");
+        Assert.assertTrue(cache.get(url("/data/a")).map(HttpCache.Entry::getValidated).orElse(-1L) > validated);
+    }
+
+
+    @Test()
+    public void testLeastRecentlyUsedEviction() throws Exception {
+        final File dir = Files.createTempDirectory("morpheus-http").toFile();
+        final HttpCache cache = new HttpDiskCache(dir, 250);
+        final HttpClient client = HttpClient.getDefault().withCache(cache, Duration.ofHours(1));
+        get(client, "/data/a");
+        get(client, "/data/b");
+        get(client, "/data/a");
+        get(client, "/data/c");
+        Assert.assertEquals(cache.size(), 200L);
+        Assert.assertTrue(cache.get(url("/data/a")).isPresent());
+        Assert.assertFalse(cache.get(url("/data/b")).isPresent(), "Least recently used entry is evicted");
+        Assert.assertTrue(cache.get(url("/data/c")).isPresent());
+    }
+
+
+    @Test()
+    public void testEvictionWhileReading() throws Exception {
+        final File dir = Files.createTempDirectory("morpheus-http").toFile();
+        final HttpCache cache = new HttpDiskCache(dir, 150);
+        final byte[] content = body("/data/a").getBytes(StandardCharsets.UTF_8);
+        cache.put("a", List.of(), new ByteArrayInputStream(content));
+        final HttpCache.Entry evicted = cache.get("a").orElseThrow();
+        final HttpCache.Entry reading = cache.put("b", List.of(), new ByteArrayInputStream(content));
+        try (InputStream stream = reading.openStream()) {
+            cache.put("c", List.of(), new ByteArrayInputStream(content));
+            Assert.assertFalse(cache.get("b").isPresent(), "Entry being read is evicted from the index");
+            Assert.assertEquals(stream.readAllBytes(), content, "Open stream reads the evicted content");
+            Assert.assertEquals(dir.listFiles().length, 4, "Files of the entry being read are retained");
+        }
+        Assert.assertEquals(dir.listFiles().length, 2, "Files are deleted when the last stream is closed");
+        Assert.expectThrows(FileNotFoundException.class, evicted::openStream);
+    }
+
+
+    @Test()
+    public void testCachePersistedAcrossInstances() throws Exception {
+        final File dir = Files.createTempDirectory("morpheus-http").toFile();
+        get(HttpClient.getDefault().withCache(new HttpDiskCache(dir, 1024 * 1024), Duration.ofHours(1)), "/data/a");
+        final HttpDiskCache cache = new HttpDiskCache(dir, 1024 * 1024);
+        Assert.assertEquals(cache.size(), 100L);
+        Assert.assertEquals(get(HttpClient.getDefault().withCache(cache, Duration.ofHours(1)), "/data/a"), body("/data/a"));
+        Assert.assertEquals(requestCount.get(), 1, "Reloaded cache serves the entry");
+        Assert.assertTrue(cache.get(url("/data/a")).flatMap(entry -> entry.getHeader("etag")).isPresent());
+        cache.clear();
+        Assert.assertEquals(cache.size(), 0L);
+        Assert.assertEquals(dir.listFiles().length, 0);
+    }
+
+
+    @Test()
+    public void testFetchAllWithBoundedConcurrency() {
+        final List<String> paths = new ArrayList<>();
+        for (int i=0; i<12; ++i) paths.add("/data/" + i);
+        final Map<String,String> results = HttpClient.fetchAll(paths, 4, path -> get(HttpClient.getDefault(), path + "?delay=50"));
+        Assert.assertEquals(new ArrayList<>(results.keySet()), paths, "Results in the order of the keys");
+        paths.forEach(path -> Assert.assertEquals(results.get(path), body(path)));
+        Assert.assertTrue(maxActiveCount.get() > 1, "Requests run concurrently");
+        Assert.assertTrue(maxActiveCount.get() <= 4, "Concurrency is bounded, max was " + maxActiveCount.get());
+    }
+
+
+    @Test()
+    public void testFetchAllPropagatesFailure() {
+        final List<String> keys = List.of("a", "b", "c");
+        final RuntimeException error = Assert.expectThrows(IllegalStateException.class, () -> {
+            HttpClient.fetchAll(keys, 2, key -> {
+                if (key.equals("b")) throw new IllegalStateException("Failed on " + key);
+                return key;
+            });
+        });
+        Assert.assertEquals(error.getMessage(), "Failed on b");
+    }
+
+
+    @Test(timeOut = 10000)
+    public void testFetchAllCancelsOnFirstFailure() throws Exception {
+        final List<String> keys = List.of("slow", "fail");
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        Assert.expectThrows(IllegalStateException.class, () -> {
+            HttpClient.fetchAll(keys, 2, key -> {
+                if (key.equals("fail")) throw new IllegalStateException("Failed on " + key);
+                try {
+                    Thread.sleep(60000);
+                    return key;
+                } catch (InterruptedException ex) {
+                    interrupted.countDown();
+                    throw new IllegalStateException("Interrupted", ex);
+                }
+            });
+        });
+        Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS), "The slow fetch was cancelled");
+    }
+}
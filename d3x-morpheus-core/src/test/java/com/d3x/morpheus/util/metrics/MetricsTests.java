@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.util.metrics;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameOptions;
+import com.d3x.morpheus.range.Range;
+import com.d3x.morpheus.util.TaskScheduler;
+import com.d3x.morpheus.util.Tuple;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for DataFrame operation metrics and Flight Recorder events
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class MetricsTests {
+
+    private Map<String,AtomicLong> counters = new ConcurrentHashMap<>();
+    private Map<String,AtomicLong> timers = new ConcurrentHashMap<>();
+
+
+    /**
+     * Returns a recorder that accumulates counters and timer invocations in this test
+     * @return  the metrics recorder
+     */
+    private MetricsRecorder createRecorder() {
+        this.counters.clear();
+        this.timers.clear();
+        return MetricsRecorder.of(
+            (name, amount) -> counters.computeIfAbsent(name, k -> new AtomicLong()).addAndGet(amount),
+            (name, nanos) -> timers.computeIfAbsent(name, k -> new AtomicLong()).incrementAndGet()
+        );
+    }
+
+
+    /**
+     * Returns a frame of random doubles for testing
+     * @param rowCount  the row count
+     * @return          the test frame
+     */
+    private static DataFrame<Integer,String> createFrame(int rowCount) {
+        final Random random = new Random(1);
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(Range.of(0, rowCount), List.of("A", "B", "C"));
+        frame.applyDoubles(v -> random.nextDouble());
+        return frame;
+    }
+
+
+    /**
+     * Runs the runnable with a fixed row split threshold, so fork join tasks split regardless of the processor count
+     * @param threshold the row split threshold
+     * @param runnable  the runnable to run
+     */
+    private static void withRowSplitThreshold(int threshold, Runnable runnable) {
+        try {
+            TaskScheduler.setAdaptive(false);
+            DataFrameOptions.setDefaultRowSplitThreshold(frame -> threshold);
+            runnable.run();
+        } finally {
+            final int processorCount = Runtime.getRuntime().availableProcessors();
+            DataFrameOptions.setDefaultRowSplitThreshold(frame -> Math.max(frame.rows().count() / processorCount, 1));
+            TaskScheduler.setAdaptive(true);
+        }
+    }
+
+
+    @AfterMethod()
+    public void after() {
+        Metrics.setRecorder(null);
+    }
+
+
+    @Test()
+    public void testDisabledByDefault() {
+        Metrics.setRecorder(null);
+        try (MetricsOperation operation = Metrics.start("test")) {
+            Assert.assertFalse(operation.isEnabled());
+            Assert.assertSame(operation, MetricsOperation.NOOP);
+            operation.rows(10).columns(5).split();
+            Assert.assertEquals(operation.getRows(), 0L);
+            Assert.assertEquals(operation.getSplits(), 0L);
+        }
+    }
+
+
+    @Test()
+    public void testRecorder() {
+        Metrics.setRecorder(createRecorder());
+        final DataFrame<Integer,String> frame = createFrame(1000);
+        frame.rows().sort(true, "A");
+        frame.rows().groupBy(row -> Tuple.of(row.getDouble("B") > 0.5d));
+        frame.cols().stats().mean();
+        Assert.assertEquals(timers.get("morpheus.sort.rows").get(), 1L);
+        Assert.assertEquals(timers.get("morpheus.group.rows").get(), 1L);
+        Assert.assertEquals(timers.get("morpheus.stats").get(), 1L);
+        Assert.assertEquals(counters.get("morpheus.sort.rows.rows").get(), 1000L);
+        Assert.assertEquals(counters.get("morpheus.sort.rows.columns").get(), 3L);
+        Assert.assertEquals(counters.get("morpheus.group.rows.rows").get(), 1000L);
+    }
+
+
+    @Test()
+    public void testParallelSplits() {
+        Metrics.setRecorder(createRecorder());
+        final DataFrame<Integer,String> frame = createFrame(200000).parallel();
+        withRowSplitThreshold(10000, () -> {
+            frame.rows().groupBy(row -> Tuple.of(row.getDouble("A") > 0.5d));
+            frame.rows().stats().max();
+        });
+        Assert.assertTrue(counters.get("morpheus.group.rows.splits").get() > 0, "Grouping was split");
+        Assert.assertTrue(counters.get("morpheus.stats.splits").get() > 0, "Row statistics were split");
+        Assert.assertEquals(counters.get("morpheus.stats.rows").get(), 200000L);
+    }
+
+
+    @Test()
+    public void testCsvBytesRead() throws Exception {
+        Metrics.setRecorder(createRecorder());
+        final File file = File.createTempFile("metrics", ".csv");
+        try {
+            final DataFrame<Integer,String> frame = createFrame(500);
+            frame.write().csv(file).apply();
+            final DataFrame<Integer,String> result = DataFrame.read(file).csv();
+            Assert.assertEquals(counters.get("morpheus.csv.read.bytes").get(), file.length());
+            Assert.assertEquals(counters.get("morpheus.csv.read.rows").get(), (long)result.rowCount());
+            Assert.assertEquals(counters.get("morpheus.csv.read.columns").get(), (long)result.colCount());
+        } finally {
+            Assert.assertTrue(file.delete());
+        }
+    }
+
+
+    @Test()
+    public void testFlightRecorderEvents() throws Exception {
+        final Path path = Files.createTempFile("metrics", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable(MetricsEvent.NAME);
+                recording.start();
+                final DataFrame<Integer,String> frame = createFrame(100000).parallel();
+                withRowSplitThreshold(10000, () -> {
+                    frame.rows().sort(false, "C");
+                    frame.rows().stats().sum();
+                });
+                recording.stop();
+                recording.dump(path);
+            }
+            final Map<String,RecordedEvent> events = RecordingFile.readAllEvents(path).stream()
+                .filter(event -> event.getEventType().getName().equals(MetricsEvent.NAME))
+                .collect(Collectors.toMap(event -> event.getString("operation"), event -> event, (a, b) -> a));
+            Assert.assertTrue(events.containsKey("sort.rows"), "Sort event recorded");
+            Assert.assertTrue(events.containsKey("stats"), "Stats event recorded");
+            Assert.assertEquals(events.get("sort.rows").getLong("rows"), 100000L);
+            Assert.assertEquals(events.get("stats").getString("detail"), "SUM");
+            Assert.assertTrue(events.get("stats").getBoolean("parallel"));
+            Assert.assertTrue(events.get("stats").getLong("splits") > 0);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
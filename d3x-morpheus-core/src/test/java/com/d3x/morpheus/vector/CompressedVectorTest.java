@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2014-2021 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.vector;
+
+import java.util.Random;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class CompressedVectorTest {
+    private static final double TOLERANCE = 1.0E-12;
+    private static final Random random = new Random(20210302);
+
+    @Test
+    public void testSetAndGet() {
+        CompressedVector vector = CompressedVector.sparse(100);
+        D3xVector expected = D3xVector.dense(100);
+
+        for (int k = 0; k < 200; ++k) {
+            int index = random.nextInt(100);
+            double value = k % 5 == 0 ? 0.0 : random.nextDouble();
+
+            vector.set(index, value);
+            expected.set(index, value);
+        }
+
+        assertTrue(vector.nnz() <= 100);
+        assertTrue(vector.equalsVector(expected));
+        assertTrue(vector.copy().equalsVector(expected));
+        assertEquals(vector.like(7).length(), 7);
+        assertEquals(vector.like(7).nnz(), 0);
+
+        for (int position = 1; position < vector.nnz(); ++position)
+            assertTrue(vector.indexAt(position - 1) < vector.indexAt(position));
+    }
+
+    @Test
+    public void testCopyOf() {
+        CompressedVector vector = CompressedVector.copyOf(D3xVector.wrap(0.0, 1.0, 1.0E-12, -2.0, 0.0), 1.0E-10);
+
+        assertEquals(vector.length(), 5);
+        assertEquals(vector.nnz(), 2);
+        assertEquals(vector.indexAt(0), 1);
+        assertEquals(vector.valueAt(1), -2.0, TOLERANCE);
+        assertTrue(vector.equalsArray(0.0, 1.0, 0.0, -2.0, 0.0));
+    }
+
+    @Test
+    public void testDot() {
+        D3xVector x = D3xVector.dense(1000);
+        D3xVector y = D3xVector.dense(1000);
+
+        for (int index = 0; index < 1000; index += 3)
+            x.set(index, random.nextDouble());
+
+        for (int index = 0; index < 1000; index += 5)
+            y.set(index, random.nextDouble());
+
+        double expected = x.dot(y);
+        CompressedVector sx = CompressedVector.copyOf(x, 0.0);
+        CompressedVector sy = CompressedVector.copyOf(y, 0.0);
+
+        assertEquals(sx.dot(sy), expected, TOLERANCE);
+        assertEquals(sx.dot(y), expected, TOLERANCE);
+        assertEquals(x.dot(sy), expected, TOLERANCE);
+    }
+
+    @Test
+    public void testArithmetic() {
+        CompressedVector vector = CompressedVector.copyOf(D3xVector.wrap(1.0, 0.0, 2.0, 0.0, 3.0), 0.0);
+
+        assertTrue(vector.times(2.0).equalsArray(2.0, 0.0, 4.0, 0.0, 6.0));
+        assertTrue(vector.equalsArray(1.0, 0.0, 2.0, 0.0, 3.0));
+        assertTrue(vector.plus(D3xVector.ones(5)).equalsArray(2.0, 1.0, 3.0, 1.0, 4.0));
+        assertTrue(vector.getSubVector(1, 3).equalsArray(0.0, 2.0, 0.0));
+        assertEquals(vector.getSubVector(1, 3).nnz(), 1);
+        assertEquals(vector.sum(), 6.0, TOLERANCE);
+        assertTrue(vector.multiplyInPlace(-1.0).equalsArray(-1.0, 0.0, -2.0, 0.0, -3.0));
+    }
+
+    @Test
+    public void testSparseFactory() {
+        assertTrue(D3xVector.sparse(10) instanceof CompressedVector);
+        assertEquals(D3xVector.sparse(10).toArray().length, 10);
+    }
+}
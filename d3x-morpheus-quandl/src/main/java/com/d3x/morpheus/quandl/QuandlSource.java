@@ -47,6 +47,7 @@ import java.util.zip.ZipFile;
 import com.d3x.morpheus.frame.DataFrame;
 import com.d3x.morpheus.frame.DataFrameRow;
 import com.d3x.morpheus.util.IO;
+import com.d3x.morpheus.util.http.HttpClient;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonDeserializationContext;
@@ -88,6 +89,8 @@ public class QuandlSource {
     @lombok.Getter @lombok.Setter private String apiKey;
     /** The Quandl server base url */
     @lombok.Getter @lombok.Setter private String baseUrl;
+    /** The max number of datasets fetched concurrently by batch queries */
+    @lombok.Getter @lombok.Setter private int maxConcurrency = 8;
     /** The http client to interact with Quandl */
     private CloseableHttpClient httpClient;
 
@@ -326,7 +329,6 @@ public class QuandlSource {
             final URL url = createUrl("/api/v3/datasets/" + database + "/" + dataset + ".csv", queryString);
             IO.println(url);
             return DataFrame.read(url).csv(LocalDate.class, csvOptions -> {
-                csvOptions.setColIndexPredicate(index -> index != 0);
                 csvOptions.setRowKeyColumnIndex(0);
             });
         } catch (Exception ex) {
@@ -335,6 +337,51 @@ public class QuandlSource {
     }
 
 
+    /**
+     * Returns the time series for each of the dataset codes specified, fetched and parsed concurrently
+     * @param codes     the dataset codes, such as WIKI/AAPL
+     * @return          the map of DataFrames keyed by dataset code, in the order of the codes
+     * @see #getTimeSeries(List, Consumer)
+     */
+    public Map<String,DataFrame<LocalDate,String>> getTimeSeries(List<String> codes) {
+        return getTimeSeries(codes, options -> {});
+    }
+
+
+    /**
+     * Returns the time series for each of the dataset codes specified, fetched and parsed concurrently
+     * <p>At most <code>maxConcurrency</code> requests are in flight at once. Time series are loaded through the default
+     * Morpheus HttpClient, so repeat requests are served locally when a caching client is installed via
+     * <code>HttpClient.setDefault(HttpClient.getDefault().withCache(cache, ttl))</code></p>
+     * @param codes     the dataset codes, such as WIKI/AAPL
+     * @param consumer  the consumer to initialize the options shared by all datasets, such as the date range
+     * @return          the map of DataFrames keyed by dataset code, in the order of the codes
+     * @throws QuandlException  if a code is malformed or any of the requests fail
+     */
+    public Map<String,DataFrame<LocalDate,String>> getTimeSeries(List<String> codes, Consumer<TimeSeriesOptions> consumer) {
+        for (String code : codes) {
+            final int index = code != null ? code.indexOf('/') : -1;
+            if (index <= 0 || index == code.length() - 1) {
+                throw new QuandlException("Quandl dataset codes must be of the form DATABASE/DATASET, not " + code);
+            }
+        }
+        try {
+            return HttpClient.fetchAll(codes, maxConcurrency, code -> {
+                final int index = code.indexOf('/');
+                return getTimeSeries(options -> {
+                    consumer.accept(options);
+                    options.setDatabase(code.substring(0, index));
+                    options.setDataset(code.substring(index + 1));
+                });
+            });
+        } catch (QuandlException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new QuandlException("Failed to load time-series batch from Quandl", ex);
+        }
+    }
+
+
     /**
      * Returns a DataFrame result from a Quandl DataTable query
      * @link https://docs.quandl.com/docs/tables-1
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.quandl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * A unit test for the concurrent batch time series API of the Quandl adapter, using a local stub server
+ *
+ * @author Xavier Witdouck
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ */
+public class QuandlBatchTests {
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+
+    @BeforeClass()
+    public void start() throws IOException {
+        this.executor = Executors.newCachedThreadPool();
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/api/v3/datasets", this::handle);
+        this.server.start();
+    }
+
+
+    @AfterClass()
+    public void stop() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+
+    /**
+     * Serves a small CSV time series whose values are derived from the dataset code in the path
+     * @param exchange  the http exchange
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            final String path = exchange.getRequestURI().getPath();
+            final String dataset = path.substring(path.lastIndexOf('/') + 1, path.length() - 4);
+            final int value = dataset.length();
+            final String csv = "Date,Open,Close\n2018-01-02," + value + "," + (value + 1) + "\n2018-01-03," + (value + 2) + "," + (value + 3) + "\n";
+            final byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+
+    @Test()
+    public void testTimeSeriesBatch() {
+        final QuandlSource source = new QuandlSource("http://localhost:" + server.getAddress().getPort(), "test");
+        source.setMaxConcurrency(3);
+        final List<String> codes = new ArrayList<>();
+        for (int i=0; i<10; ++i) codes.add("DB/" + "X".repeat(i + 1));
+        final Map<String,DataFrame<LocalDate,String>> results = source.getTimeSeries(codes, options -> {
+            options.setStartDate(LocalDate.of(2018, 1, 1));
+        });
+        Assert.assertEquals(new ArrayList<>(results.keySet()), codes);
+        for (int i=0; i<codes.size(); ++i) {
+            final DataFrame<LocalDate,String> frame = results.get(codes.get(i));
+            Assert.assertEquals(frame.rowCount(), 2);
+            Assert.assertEquals(frame.getDouble(LocalDate.of(2018, 1, 2), "Open"), i + 1d);
+            Assert.assertEquals(frame.getDouble(LocalDate.of(2018, 1, 3), "Close"), i + 4d);
+        }
+    }
+
+
+    @Test(expectedExceptions = { QuandlException.class })
+    public void testMalformedCode() {
+        new QuandlSource("http://localhost:" + server.getAddress().getPort(), "test").getTimeSeries(List.of("WIKI"));
+    }
+}
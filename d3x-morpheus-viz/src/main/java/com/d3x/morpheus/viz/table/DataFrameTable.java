@@ -26,6 +26,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.*;
@@ -39,9 +40,9 @@ import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
 import javax.swing.table.TableModel;
-import javax.swing.table.TableRowSorter;
 
 import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameRow;
 import com.d3x.morpheus.index.Index;
 
 /**
@@ -71,7 +72,7 @@ public class DataFrameTable extends javax.swing.JPanel {
     private DataFrameCellRenderer renderer = new DataFrameCellRenderer(this);
     private DataFrameCellFormat defaultCellFormat = new DataFrameCellFormat();
     private ListSelectionModel selectionModel = new DefaultListSelectionModel();
-    private TableRowSorter<TableModel> sorter = new TableRowSorter<>(model);
+    private DataFrameTableSorter sorter = new DataFrameTableSorter(model);
     private Map<Object,DataFrameCellFormat> formatMap = new HashMap<>();
     private Index<Object> rowIndex = Index.of(Object.class, 2000);
     private Index<Object> colIndex = Index.of(Object.class, 100);
@@ -333,6 +334,22 @@ public class DataFrameTable extends javax.swing.JPanel {
         }
     }
 
+    /**
+     * Sets the filter that selects the rows to display, which is evaluated off the event dispatch thread
+     * @param filter    the row filter, null to display all rows
+     */
+    public void setRowFilter(Predicate<DataFrameRow<Object,Object>> filter) {
+        this.sorter.setRowFilter(filter);
+    }
+
+    /**
+     * Sets the minimum interval between repaints in response to changes in the DataFrame
+     * @param millis    the refresh interval in milliseconds
+     */
+    public void setRefreshInterval(int millis) {
+        this.model.setRefreshInterval(millis);
+    }
+
     /**
      * Returns the default format for cells
      * @return  the default format for cells
@@ -700,8 +717,12 @@ public class DataFrameTable extends javax.swing.JPanel {
                             }
                         }
                         final TableModel model = rightTable.getModel();
-                        for (int i = 0; i < model.getRowCount(); ++i) {
-                            final Object value = model.getValueAt(i, modelIndex);
+                        final Rectangle visible = rightTable.getVisibleRect();
+                        final int firstRow = Math.max(0, rightTable.rowAtPoint(new Point(0, visible.y)));
+                        final int lastRow = rightTable.rowAtPoint(new Point(0, visible.y + visible.height - 1));
+                        final int endRow = lastRow < 0 ? rightTable.getRowCount() : lastRow + 1;
+                        for (int i = firstRow; i < endRow; ++i) {
+                            final Object value = model.getValueAt(rightTable.convertRowIndexToModel(i), modelIndex);
                             final Component component = renderer.getTableCellRendererComponent(rightTable, value, false, false, i, columnIndex);
                             if (component instanceof JLabel) {
                                 final JLabel label = (JLabel) component;
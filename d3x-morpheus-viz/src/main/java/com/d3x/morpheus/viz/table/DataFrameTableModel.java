@@ -15,8 +15,11 @@
  */
 package com.d3x.morpheus.viz.table;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.table.AbstractTableModel;
 
 import com.d3x.morpheus.frame.DataFrame;
@@ -26,6 +29,13 @@ import com.d3x.morpheus.frame.DataFrameListener;
 /**
  * A Swing <code>TableModel</code> implementation to display a <code>DataFrame</code> in a JTable.
  *
+ * <p>
+ * DataFrameEvents may be raised on any thread and in rapid bursts, so rather than firing a table event for each one,
+ * this model accumulates the affected rows and fires a single coalesced table event on the event dispatch thread at
+ * most once per refresh interval. At most one task to start the refresh timer is queued on the event dispatch thread
+ * at a time, however many events arrive before it runs.
+ * </p>
+ *
  * @author Xavier Witdouck
  *
  * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
@@ -36,6 +46,11 @@ public class DataFrameTableModel extends AbstractTableModel implements DataFrame
 
     private boolean mutable;
     private DataFrame<Object,Object> frame;
+    private Timer refreshTimer;
+    private AtomicBoolean refreshQueued = new AtomicBoolean();
+    private boolean pendingAll;
+    private int pendingFirstRow = Integer.MAX_VALUE;
+    private int pendingLastRow = -1;
     private ThreadLocal<Object[]> coordinates = new ThreadLocal<Object[]>() {
         protected Object[] initialValue() {
             return new Object[2];
@@ -55,6 +70,8 @@ public class DataFrameTableModel extends AbstractTableModel implements DataFrame
      * @param frame    the frame to expose through table model
      */
     public DataFrameTableModel(DataFrame frame) {
+        this.refreshTimer = new Timer(100, e -> flush());
+        this.refreshTimer.setRepeats(false);
         this.setFrame(frame);
     }
 
@@ -91,25 +108,72 @@ public class DataFrameTableModel extends AbstractTableModel implements DataFrame
         this.mutable = mutable;
     }
 
+    /**
+     * Sets the minimum interval between table events fired in response to DataFrameEvents
+     * @param millis    the refresh interval in milliseconds
+     */
+    public void setRefreshInterval(int millis) {
+        this.refreshTimer.setInitialDelay(millis);
+    }
+
     /** @inheritDoc */
     @SuppressWarnings("unchecked")
     public void onDataFrameEvent(DataFrameEvent event) {
         try {
-            if (event.isSingleElement()) {
+            if (event.isSingleElement() || event.isSingleRow()) {
                 final Object row = event.rowKeys().getValue(0);
-                final Object column = event.colKeys().getValue(0);
                 final int rowIndex = frame.rows().ordinal(row);
-                final int colIndex = frame.cols().ordinal(column);
-                fireTableCellUpdated(rowIndex, colIndex);
-            } else if (event.isSingleRow()) {
-                final Object row = event.rowKeys().getValue(0);
-                final int rowIndex = frame.rows().ordinal(row);
-                fireTableRowsUpdated(rowIndex, rowIndex);
+                this.invalidate(rowIndex, rowIndex);
             } else {
-                fireTableDataChanged();
+                this.invalidate(0, Integer.MAX_VALUE);
             }
         } catch (Throwable t) {
-            t.printStackTrace();
+            LOG.log(Level.SEVERE, t.getMessage(), t);
+        }
+    }
+
+    /**
+     * Records that a range of rows has changed, and starts the refresh timer if it is not already running
+     * @param firstRow  the first row ordinal that changed
+     * @param lastRow   the last row ordinal that changed, Integer.MAX_VALUE for all rows
+     */
+    private void invalidate(int firstRow, int lastRow) {
+        synchronized (this) {
+            if (firstRow < 0 || lastRow == Integer.MAX_VALUE) {
+                this.pendingAll = true;
+            } else {
+                this.pendingFirstRow = Math.min(pendingFirstRow, firstRow);
+                this.pendingLastRow = Math.max(pendingLastRow, lastRow);
+            }
+        }
+        if (refreshQueued.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                refreshQueued.set(false);
+                if (!refreshTimer.isRunning()) {
+                    refreshTimer.start();
+                }
+            });
+        }
+    }
+
+    /**
+     * Fires a single table event for all changes recorded since the last refresh
+     */
+    private void flush() {
+        final boolean all;
+        final int firstRow, lastRow;
+        synchronized (this) {
+            all = pendingAll;
+            firstRow = pendingFirstRow;
+            lastRow = pendingLastRow;
+            this.pendingAll = false;
+            this.pendingFirstRow = Integer.MAX_VALUE;
+            this.pendingLastRow = -1;
+        }
+        if (all || lastRow >= getRowCount()) {
+            fireTableDataChanged();
+        } else if (lastRow >= 0) {
+            fireTableRowsUpdated(firstRow, lastRow);
         }
     }
 
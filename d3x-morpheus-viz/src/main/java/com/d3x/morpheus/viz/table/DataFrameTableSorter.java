@@ -0,0 +1,472 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.viz.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
+
+import com.d3x.morpheus.array.ArrayType;
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameRow;
+import com.d3x.morpheus.util.IntComparator;
+import com.d3x.morpheus.util.SortAlgorithm;
+
+/**
+ * A <code>RowSorter</code> for a DataFrameTableModel that sorts and filters rows on a background executor
+ *
+ * <p>
+ * Unlike a <code>TableRowSorter</code>, which boxes and compares every cell on the event dispatch thread, this sorter
+ * reads sort keys directly from the primitive columns of the frame, sorts an array of row ordinals off the event
+ * dispatch thread, and then publishes the resulting view to model mapping atomically on the event dispatch thread.
+ * Until a new mapping is published, the table continues to display the previous mapping, and a computation that is
+ * superseded by a later request is discarded. Any change to the model that may invalidate the order or the selection
+ * of rows schedules a new computation, and a mapping that no longer matches the number of rows in the model is
+ * replaced by the identity mapping until the new one is ready. The sort keys and row filter may be changed from any
+ * thread, but listeners of this sorter are always notified on the event dispatch thread.
+ * </p>
+ *
+ * @author Xavier Witdouck
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ */
+public class DataFrameTableSorter extends RowSorter<DataFrameTableModel> {
+
+    private static final Logger LOG = Logger.getLogger(DataFrameTableSorter.class.getName());
+
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "DataFrameTableSorter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Executor executor;
+    private DataFrameTableModel model;
+    private volatile List<SortKey> sortKeys = Collections.emptyList();
+    private volatile Predicate<DataFrameRow<Object,Object>> rowFilter;
+    private AtomicLong generation = new AtomicLong();
+    private AtomicReference<Mapping> mapping = new AtomicReference<>(new Mapping(null, 0));
+
+    /**
+     * Constructor
+     * @param model the model to sort and filter
+     */
+    public DataFrameTableSorter(DataFrameTableModel model) {
+        this(model, DEFAULT_EXECUTOR);
+    }
+
+
+    /**
+     * Constructor
+     * @param model     the model to sort and filter
+     * @param executor  the executor on which to compute sort orders and filters
+     */
+    public DataFrameTableSorter(DataFrameTableModel model, Executor executor) {
+        this.model = model;
+        this.executor = executor;
+        this.mapping.set(new Mapping(null, model.getRowCount()));
+    }
+
+
+    @Override
+    public DataFrameTableModel getModel() {
+        return model;
+    }
+
+
+    /**
+     * Returns true if a sort order or row filter is applied
+     * @return  true if the view differs from the model
+     */
+    public boolean isActive() {
+        return !sortKeys.isEmpty() || rowFilter != null;
+    }
+
+
+    /**
+     * Returns the row filter for this sorter
+     * @return  the row filter, null if no filter
+     */
+    public Predicate<DataFrameRow<Object,Object>> getRowFilter() {
+        return rowFilter;
+    }
+
+
+    /**
+     * Sets the filter that selects the rows to include in the view, which is evaluated on the background executor
+     * This may be called from any thread, as the resulting mapping is published on the event dispatch thread.
+     * @param rowFilter the row filter, null to include all rows
+     */
+    public void setRowFilter(Predicate<DataFrameRow<Object,Object>> rowFilter) {
+        this.rowFilter = rowFilter;
+        this.schedule();
+    }
+
+
+    @Override
+    public void toggleSortOrder(int column) {
+        final List<SortKey> keys = new ArrayList<>(sortKeys);
+        final SortKey current = keys.stream().filter(k -> k.getColumn() == column).findFirst().orElse(null);
+        if (current == null) {
+            keys.add(0, new SortKey(column, SortOrder.ASCENDING));
+        } else if (current.getSortOrder() == SortOrder.ASCENDING) {
+            keys.remove(current);
+            keys.add(0, new SortKey(column, SortOrder.DESCENDING));
+        } else {
+            keys.remove(current);
+        }
+        this.setSortKeys(keys);
+    }
+
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        final int[] viewToModel = mapping.get().viewToModel;
+        if (viewToModel == null) {
+            return index;
+        } else if (index < 0 || index >= viewToModel.length) {
+            throw new IndexOutOfBoundsException("Invalid view row index: " + index);
+        } else {
+            return viewToModel[index];
+        }
+    }
+
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        final Mapping current = mapping.get();
+        if (current.viewToModel == null) {
+            return index;
+        } else if (index < 0 || index >= current.modelToView.length) {
+            throw new IndexOutOfBoundsException("Invalid model row index: " + index);
+        } else {
+            return current.modelToView[index];
+        }
+    }
+
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        final List<SortKey> newKeys = keys == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(keys));
+        if (!newKeys.equals(sortKeys)) {
+            this.sortKeys = newKeys;
+            this.onEventThread(this::fireSortOrderChanged);
+            this.schedule();
+        }
+    }
+
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+
+    @Override
+    public int getViewRowCount() {
+        final int[] viewToModel = mapping.get().viewToModel;
+        return viewToModel == null ? model.getRowCount() : viewToModel.length;
+    }
+
+
+    @Override
+    public int getModelRowCount() {
+        return model.getRowCount();
+    }
+
+
+    @Override
+    public void modelStructureChanged() {
+        this.sortKeys = Collections.emptyList();
+        this.invalidate();
+        this.schedule();
+    }
+
+
+    @Override
+    public void allRowsChanged() {
+        this.invalidate();
+        this.schedule();
+    }
+
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        this.invalidate();
+        this.schedule();
+    }
+
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        this.invalidate();
+        this.schedule();
+    }
+
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        this.schedule();
+    }
+
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        this.schedule();
+    }
+
+
+    /**
+     * Replaces the current mapping with the identity mapping if it no longer matches the row count of the model
+     */
+    private void invalidate() {
+        final Mapping current = mapping.get();
+        final int rowCount = model.getRowCount();
+        if (current.modelRowCount != rowCount) {
+            this.generation.incrementAndGet();
+            this.publish(new Mapping(null, rowCount));
+        }
+    }
+
+
+    /**
+     * Runs a task on the event dispatch thread, immediately if already on that thread, otherwise later
+     * @param task  the task to run
+     */
+    private void onEventThread(Runnable task) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            task.run();
+        } else {
+            SwingUtilities.invokeLater(task);
+        }
+    }
+
+
+    /**
+     * Publishes a new mapping and notifies listeners on the event dispatch thread
+     * @param newMapping    the new mapping to publish
+     */
+    private void publish(Mapping newMapping) {
+        this.onEventThread(() -> {
+            final Mapping previous = mapping.getAndSet(newMapping);
+            this.fireRowSorterChanged(previous, newMapping);
+        });
+    }
+
+
+    /**
+     * Notifies listeners that the mapping has changed from the previous mapping to the new mapping
+     * @param previous      the previous mapping
+     * @param newMapping    the new mapping
+     */
+    private void fireRowSorterChanged(Mapping previous, Mapping newMapping) {
+        if (previous.viewToModel == null && newMapping.viewToModel == null) {
+            if (previous.modelRowCount != newMapping.modelRowCount) {
+                this.fireRowSorterChanged(null);
+            }
+        } else if (previous.viewToModel == null) {
+            final int[] identity = new int[previous.modelRowCount];
+            for (int i=0; i<identity.length; ++i) identity[i] = i;
+            this.fireRowSorterChanged(identity);
+        } else {
+            this.fireRowSorterChanged(previous.viewToModel);
+        }
+    }
+
+
+    /**
+     * Schedules the computation of a new mapping on the background executor if a sort order or filter is active
+     */
+    @SuppressWarnings("unchecked")
+    private void schedule() {
+        final long id = generation.incrementAndGet();
+        final DataFrame<Object,Object> frame = model.getFrame();
+        final List<SortKey> keys = sortKeys;
+        final Predicate<DataFrameRow<Object,Object>> filter = rowFilter;
+        if (frame == null || (keys.isEmpty() && filter == null)) {
+            final Mapping identity = new Mapping(null, model.getRowCount());
+            if (mapping.get().viewToModel != null) {
+                this.publish(identity);
+            } else {
+                this.mapping.set(identity);
+            }
+        } else {
+            this.executor.execute(() -> {
+                try {
+                    if (generation.get() == id) {
+                        final Mapping result = compute(frame, keys, filter);
+                        SwingUtilities.invokeLater(() -> {
+                            if (generation.get() == id && result.modelRowCount == model.getRowCount()) {
+                                publish(result);
+                            }
+                        });
+                    }
+                } catch (Throwable t) {
+                    LOG.log(Level.SEVERE, "Failed to sort or filter DataFrameTable rows", t);
+                }
+            });
+        }
+    }
+
+
+    /**
+     * Computes the mapping for the frame given the sort keys and filter
+     * @param frame     the frame to sort and filter
+     * @param keys      the sort keys, which may be empty
+     * @param filter    the row filter, which may be null
+     * @return          the newly computed mapping
+     */
+    private Mapping compute(DataFrame<Object,Object> frame, List<SortKey> keys, Predicate<DataFrameRow<Object,Object>> filter) {
+        final int rowCount = frame.rowCount();
+        final int[] ordinals = select(frame, filter);
+        if (!keys.isEmpty() && ordinals.length > 1) {
+            final IntComparator comparator = comparator(frame, keys);
+            SortAlgorithm.getDefault(false).sort(0, ordinals.length, (i, j) -> comparator.compare(ordinals[i], ordinals[j]), (i, j) -> {
+                final int temp = ordinals[i];
+                ordinals[i] = ordinals[j];
+                ordinals[j] = temp;
+            });
+        }
+        return new Mapping(ordinals, rowCount);
+    }
+
+
+    /**
+     * Returns the ordinals of rows that match the filter
+     * @param frame     the frame to filter
+     * @param filter    the row filter, which may be null
+     * @return          the ordinals of matching rows in ascending order
+     */
+    private int[] select(DataFrame<Object,Object> frame, Predicate<DataFrameRow<Object,Object>> filter) {
+        final int rowCount = frame.rowCount();
+        final int[] ordinals = new int[rowCount];
+        if (filter == null) {
+            for (int i=0; i<rowCount; ++i) ordinals[i] = i;
+            return ordinals;
+        } else {
+            int count = 0;
+            final DataFrameRow.Cursor<Object,Object> row = frame.rows().cursor();
+            for (int i=0; i<rowCount; ++i) {
+                if (filter.test(row.atOrdinal(i))) {
+                    ordinals[count++] = i;
+                }
+            }
+            return count == rowCount ? ordinals : Arrays.copyOf(ordinals, count);
+        }
+    }
+
+
+    /**
+     * Returns a comparator of row ordinals for the sort keys, which breaks ties by row ordinal so the sort is stable
+     * @param frame     the frame to sort
+     * @param keys      the sort keys, where column zero is the row key column
+     * @return          the comparator of row ordinals
+     */
+    private IntComparator comparator(DataFrame<Object,Object> frame, List<SortKey> keys) {
+        final IntComparator[] comparators = new IntComparator[keys.size()];
+        for (int k=0; k<keys.size(); ++k) {
+            final SortKey key = keys.get(k);
+            final IntComparator comparator = comparator(frame, key.getColumn());
+            final boolean descending = key.getSortOrder() == SortOrder.DESCENDING;
+            comparators[k] = descending ? (i, j) -> comparator.compare(j, i) : comparator;
+        }
+        return (i, j) -> {
+            for (IntComparator comparator : comparators) {
+                final int result = comparator.compare(i, j);
+                if (result != 0) return result;
+            }
+            return Integer.compare(i, j);
+        };
+    }
+
+
+    /**
+     * Returns a comparator of row ordinals for the values in a table column
+     * Numeric columns are read into a primitive array, while other columns are compared as Comparable values.
+     * @param frame     the frame to sort
+     * @param column    the table column index, where column zero is the row key column
+     * @return          the comparator of row ordinals
+     */
+    @SuppressWarnings("unchecked")
+    private IntComparator comparator(DataFrame<Object,Object> frame, int column) {
+        final int rowCount = frame.rowCount();
+        final int colOrdinal = column - 1;
+        final Class<?> dataType = column == 0 ? Object.class : frame.cols().type(frame.cols().key(colOrdinal));
+        if (column > 0 && ArrayType.of(dataType).isNumeric()) {
+            final double[] values = new double[rowCount];
+            for (int i=0; i<rowCount; ++i) values[i] = frame.getDoubleAt(i, colOrdinal);
+            return (i, j) -> Double.compare(values[i], values[j]);
+        } else {
+            final Object[] values = new Object[rowCount];
+            for (int i=0; i<rowCount; ++i) values[i] = column == 0 ? frame.rows().key(i) : frame.getValueAt(i, colOrdinal);
+            return (i, j) -> {
+                final Object v1 = values[i];
+                final Object v2 = values[j];
+                if (v1 == v2) {
+                    return 0;
+                } else if (v1 == null) {
+                    return -1;
+                } else if (v2 == null) {
+                    return 1;
+                } else if (v1 instanceof Comparable && v1.getClass() == v2.getClass()) {
+                    return ((Comparable<Object>)v1).compareTo(v2);
+                } else {
+                    return v1.toString().compareTo(v2.toString());
+                }
+            };
+        }
+    }
+
+
+    /**
+     * An immutable mapping between view and model row indexes
+     */
+    private static class Mapping {
+
+        private int modelRowCount;
+        private int[] viewToModel;
+        private int[] modelToView;
+
+        /**
+         * Constructor
+         * @param viewToModel   the model index for each view index, null for the identity mapping
+         * @param modelRowCount the number of rows in the model
+         */
+        Mapping(int[] viewToModel, int modelRowCount) {
+            this.modelRowCount = modelRowCount;
+            this.viewToModel = viewToModel;
+            if (viewToModel != null) {
+                this.modelToView = new int[modelRowCount];
+                Arrays.fill(modelToView, -1);
+                for (int i=0; i<viewToModel.length; ++i) {
+                    modelToView[viewToModel[i]] = i;
+                }
+            }
+        }
+    }
+}
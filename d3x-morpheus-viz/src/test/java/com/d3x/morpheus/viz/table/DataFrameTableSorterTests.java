@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2014-2018 D3X Systems - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.d3x.morpheus.viz.table;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
+import javax.swing.event.RowSorterEvent;
+import javax.swing.event.TableModelEvent;
+
+import com.d3x.morpheus.frame.DataFrame;
+import com.d3x.morpheus.frame.DataFrameEvent;
+import com.d3x.morpheus.range.Range;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the DataFrameTableModel and DataFrameTableSorter
+ *
+ * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
+ *
+ * @author  Xavier Witdouck
+ */
+public class DataFrameTableSorterTests {
+
+
+    /**
+     * Returns a frame where column A descends and column B is the row parity
+     * @param rowCount  the row count
+     * @return          the test frame
+     */
+    private static DataFrame<Integer,String> createFrame(int rowCount) {
+        final DataFrame<Integer,String> frame = DataFrame.ofDoubles(Range.of(0, rowCount), List.of("A"));
+        frame.applyDoubles(v -> rowCount - v.rowOrdinal());
+        frame.cols().add("B", String.class, v -> v.rowOrdinal() % 2 == 0 ? "Even" : "Odd");
+        return frame;
+    }
+
+
+    /**
+     * Waits until all events queued on the event dispatch thread have been processed
+     */
+    private static void flushEvents() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {});
+    }
+
+
+    @Test()
+    public void testSortAndFilterMapping() throws Exception {
+        final DataFrame<Integer,String> frame = createFrame(10);
+        final DataFrameTableModel model = new DataFrameTableModel(frame);
+        final DataFrameTableSorter sorter = new DataFrameTableSorter(model, Runnable::run);
+        final AtomicBoolean offEventThread = new AtomicBoolean();
+        final List<RowSorterEvent.Type> events = new ArrayList<>();
+        sorter.addRowSorterListener(e -> {
+            offEventThread.compareAndSet(false, !SwingUtilities.isEventDispatchThread());
+            events.add(e.getType());
+        });
+        sorter.setSortKeys(List.of(new RowSorter.SortKey(1, SortOrder.ASCENDING)));
+        flushEvents();
+        Assert.assertTrue(sorter.isActive());
+        Assert.assertEquals(sorter.getViewRowCount(), 10);
+        for (int i=0; i<10; ++i) {
+            Assert.assertEquals(sorter.convertRowIndexToModel(i), 9 - i, "View row " + i);
+            Assert.assertEquals(sorter.convertRowIndexToView(i), 9 - i, "Model row " + i);
+        }
+        sorter.setRowFilter(row -> row.getValue("B").equals("Odd"));
+        flushEvents();
+        Assert.assertEquals(sorter.getViewRowCount(), 5);
+        for (int i=0; i<5; ++i) {
+            Assert.assertEquals(sorter.convertRowIndexToModel(i), 9 - 2 * i, "View row " + i);
+        }
+        Assert.assertEquals(sorter.convertRowIndexToView(0), -1, "Filtered out row has no view index");
+        sorter.setRowFilter(null);
+        sorter.setSortKeys(null);
+        flushEvents();
+        Assert.assertFalse(sorter.isActive());
+        Assert.assertEquals(sorter.getViewRowCount(), 10);
+        Assert.assertEquals(sorter.convertRowIndexToModel(3), 3);
+        Assert.assertTrue(events.contains(RowSorterEvent.Type.SORT_ORDER_CHANGED));
+        Assert.assertTrue(events.contains(RowSorterEvent.Type.SORTED));
+        Assert.assertFalse(offEventThread.get(), "Listeners notified on the event dispatch thread");
+    }
+
+
+    @Test()
+    public void testSupersededSortIsDiscarded() throws Exception {
+        final DataFrame<Integer,String> frame = createFrame(100);
+        final DataFrameTableModel model = new DataFrameTableModel(frame);
+        final List<Runnable> tasks = new ArrayList<>();
+        final DataFrameTableSorter sorter = new DataFrameTableSorter(model, tasks::add);
+        final List<RowSorterEvent.Type> events = new ArrayList<>();
+        sorter.addRowSorterListener(e -> events.add(e.getType()));
+        sorter.setSortKeys(List.of(new RowSorter.SortKey(1, SortOrder.ASCENDING)));
+        for (int i=0; i<5; ++i) {
+            sorter.rowsUpdated(i, i);
+        }
+        tasks.forEach(Runnable::run);
+        flushEvents();
+        Assert.assertEquals(tasks.size(), 6);
+        Assert.assertEquals(events.stream().filter(t -> t == RowSorterEvent.Type.SORTED).count(), 1L);
+        Assert.assertEquals(sorter.convertRowIndexToModel(0), 99);
+    }
+
+
+    @Test()
+    public void testModelCoalescesEvents() throws Exception {
+        final DataFrame<Integer,String> frame = createFrame(100);
+        final DataFrameTableModel model = new DataFrameTableModel(frame);
+        final List<TableModelEvent> events = new ArrayList<>();
+        model.setRefreshInterval(200);
+        model.addTableModelListener(events::add);
+        for (int i=10; i<20; ++i) {
+            model.onDataFrameEvent(DataFrameEvent.createUpdateEvent(frame, i, "A"));
+        }
+        model.onDataFrameEvent(DataFrameEvent.createUpdateEvent(frame, 5, "A"));
+        Thread.sleep(1000);
+        flushEvents();
+        Assert.assertEquals(events.size(), 1, "Burst of events coalesced into one table event");
+        Assert.assertEquals(events.get(0).getType(), TableModelEvent.UPDATE);
+        Assert.assertEquals(events.get(0).getFirstRow(), 5);
+        Assert.assertEquals(events.get(0).getLastRow(), 19);
+        model.onDataFrameEvent(DataFrameEvent.createUpdateEvent(frame, frame.rows().keyArray(), frame.cols().keyArray()));
+        Thread.sleep(1000);
+        flushEvents();
+        Assert.assertEquals(events.size(), 2);
+        Assert.assertEquals(events.get(1).getLastRow(), Integer.MAX_VALUE, "Multi row change refreshes all rows");
+    }
+}
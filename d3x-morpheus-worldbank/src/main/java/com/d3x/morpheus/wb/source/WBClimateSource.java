@@ -16,7 +16,10 @@
 package com.d3x.morpheus.wb.source;
 
 import java.time.Month;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
 
@@ -45,6 +48,7 @@ import com.d3x.morpheus.wb.climate.WBClimateKey;
  *
  * <p><strong>This is open source software released under the <a href="http://www.apache.org/licenses/LICENSE-2.0">Apache 2.0 License</a></strong></p>
  */
+@lombok.extern.slf4j.Slf4j()
 public class WBClimateSource implements DataFrameSource<WBClimateKey,Month,WBClimateSource.Options> {
 
     private static List<Range<Integer>> YEAR_RANGES = Collect.asList(
@@ -58,6 +62,9 @@ public class WBClimateSource implements DataFrameSource<WBClimateKey,Month,WBCli
         Range.of(2080, 2099)
     );
 
+    /** The max number of year ranges requested concurrently */
+    private static final int MAX_CONCURRENCY = 4;
+
 
     /**
      * Constructor
@@ -73,45 +80,16 @@ public class WBClimateSource implements DataFrameSource<WBClimateKey,Month,WBCli
             final Options options = initOptions(new Options(), configurator);
             final Index<WBClimateKey> rowIndex = Index.of(WBClimateKey.class, 1000);
             final DataFrame<WBClimateKey,Month> result = DataFrame.ofDoubles(rowIndex, Array.ofObjects(Month.values()));
-            YEAR_RANGES.forEach(range -> {
-                HttpClient.getDefault().doGet(request -> {
-                    final long t1 = System.currentTimeMillis();
-                    final String url = createUrl(options, range);
-                    request.setUrl(url);
-                    request.setRetryCount(3);
-                    request.setResponseHandler(response -> {
-                        try {
-                            if (response.getStatus().getCode() == 200) {
-                                final WBLoader loader = new WBLoader();
-                                final Gson gson = loader.builder().create();
-                                final JsonReader reader = loader.createReader(response.getStream());
-                                reader.beginArray();
-                                while (reader.hasNext()) {
-                                    final WBClimate.MonthlyRecord record = gson.fromJson(reader, WBClimate.MonthlyRecord.class);
-                                    if (record != null) {
-                                        final WBClimateKey key = record.getKey();
-                                        final Month[] months = Month.values();
-                                        result.rows().add(key);
-                                        for (int i=0; i<months.length; ++i) {
-                                            final double value = record.getValues()[i];
-                                            result.setDouble(key, months[i], value);
-                                        }
-                                    }
-                                }
-                                final long t2 = System.currentTimeMillis();
-                                System.out.println("World Bank request " + url + " completed in " + (t2-t1) + " millis");
-                                return Optional.empty();
-                            } else {
-                                throw new WBException("World Bank API responded with status code: " + response.getStatus() + " to " + url);
-                            }
-                        } catch (WBException ex) {
-                            throw ex;
-                        } catch (Exception ex) {
-                            throw new WBException("", ex);
-                        }
-                    });
-                });
-            });
+            final Map<Range<Integer>,List<WBClimate.MonthlyRecord>> recordMap = HttpClient.fetchAll(YEAR_RANGES, MAX_CONCURRENCY, range -> load(options, range));
+            final Month[] months = Month.values();
+            recordMap.values().forEach(records -> records.forEach(record -> {
+                final WBClimateKey key = record.getKey();
+                result.rows().add(key);
+                for (int i=0; i<months.length; ++i) {
+                    final double value = record.getValues()[i];
+                    result.setDouble(key, months[i], value);
+                }
+            }));
             return result;
         } catch (DataFrameException ex) {
             throw ex;
@@ -121,6 +99,48 @@ public class WBClimateSource implements DataFrameSource<WBClimateKey,Month,WBCli
     }
 
 
+    /**
+     * Returns the monthly records for the options and year range specified
+     * @param options   the user specified options
+     * @param range     the year range
+     * @return          the list of monthly records
+     */
+    private List<WBClimate.MonthlyRecord> load(Options options, Range<Integer> range) {
+        return HttpClient.getDefault().<List<WBClimate.MonthlyRecord>>doGet(request -> {
+            final long t1 = System.currentTimeMillis();
+            final String url = createUrl(options, range);
+            request.setUrl(url);
+            request.setRetryCount(3);
+            request.setResponseHandler(response -> {
+                try {
+                    if (response.getStatus().getCode() == 200) {
+                        final WBLoader loader = new WBLoader();
+                        final Gson gson = loader.builder().create();
+                        final JsonReader reader = loader.createReader(response.getStream());
+                        final List<WBClimate.MonthlyRecord> records = new ArrayList<>();
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            final WBClimate.MonthlyRecord record = gson.fromJson(reader, WBClimate.MonthlyRecord.class);
+                            if (record != null) {
+                                records.add(record);
+                            }
+                        }
+                        final long t2 = System.currentTimeMillis();
+                        log.debug("World Bank request {} completed in {} millis", url, t2 - t1);
+                        return Optional.of(records);
+                    } else {
+                        throw new WBException("World Bank API responded with status code: " + response.getStatus() + " to " + url);
+                    }
+                } catch (WBException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    throw new WBException("", ex);
+                }
+            });
+        }).orElse(Collections.emptyList());
+    }
+
+
     /**
      * Returns the World Bank Climate API REST URL for the options and year range
      * @param options   the user specified options
@@ -16,11 +16,13 @@
 package com.d3x.morpheus.wb.source;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import com.google.gson.stream.JsonReader;
@@ -32,6 +34,7 @@ import com.d3x.morpheus.frame.DataFrameSource;
 import com.d3x.morpheus.index.Index;
 import com.d3x.morpheus.range.Range;
 import com.d3x.morpheus.util.Initialiser;
+import com.d3x.morpheus.util.http.HttpClient;
 import com.d3x.morpheus.util.text.parser.Parser;
 import com.d3x.morpheus.wb.WBException;
 import com.d3x.morpheus.wb.WBLoader;
@@ -49,6 +52,9 @@ import com.d3x.morpheus.wb.WBResponse;
  */
 public class WBIndicatorSource implements DataFrameSource<LocalDate,String,WBIndicatorSource.Options> {
 
+    /** The max number of pages requested concurrently */
+    private static final int MAX_CONCURRENCY = 8;
+
 
     /**
      * Constructor
@@ -94,13 +100,12 @@ public class WBIndicatorSource implements DataFrameSource<LocalDate,String,WBInd
         final Function<JsonReader,DataFrame<LocalDate,String>> handler = createMessageHandler(indicator);
         final WBResponse<DataFrame<LocalDate,String>> peek = loader.load(peekUrl, handler);
         final int requestCount = peek.getRequestCount(batchSize);
-        final IntStream pages = requestCount > 10 ? IntStream.range(0, requestCount).parallel() : IntStream.range(0, requestCount);
-        return DataFrame.combineFirst(pages.mapToObj(i -> {
-            final int page = i + 1;
+        final List<Integer> pages = IntStream.rangeClosed(1, requestCount).boxed().collect(Collectors.toList());
+        return DataFrame.combineFirst(HttpClient.fetchAll(pages, MAX_CONCURRENCY, page -> {
             final String url = createURL(indicator, dateRange, country, page, batchSize);
             final WBResponse<DataFrame<LocalDate,String>> response = loader.load(url, handler);
             return response.getBody();
-        }));
+        }).values());
     }
 
 